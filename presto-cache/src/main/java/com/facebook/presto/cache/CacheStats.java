@@ -26,6 +26,7 @@ public class CacheStats
     private final AtomicLong hit = new AtomicLong();
     private final AtomicLong miss = new AtomicLong();
     private final AtomicLong quotaExceed = new AtomicLong();
+    private final AtomicLong memoryMappedReads = new AtomicLong();
 
     public void incrementCacheHit()
     {
@@ -42,6 +43,11 @@ public class CacheStats
         quotaExceed.getAndIncrement();
     }
 
+    public void incrementMemoryMappedRead()
+    {
+        memoryMappedReads.getAndIncrement();
+    }
+
     public void addInMemoryRetainedBytes(long bytes)
     {
         inMemoryRetainedBytes.addAndGet(bytes);
@@ -70,4 +76,10 @@ public class CacheStats
     {
         return quotaExceed.get();
     }
+
+    @Managed
+    public long getMemoryMappedReads()
+    {
+        return memoryMappedReads.get();
+    }
 }
@@ -29,6 +29,7 @@ public class FileMergeCacheConfig
     private int maxCachedEntries = 1_000;
     private Duration cacheTtl = new Duration(2, DAYS);
     private DataSize maxInMemoryCacheSize = new DataSize(2, GIGABYTE);
+    private int maxMemoryMappedFiles;
 
     @Min(1)
     public int getMaxCachedEntries()
@@ -57,6 +58,20 @@ public class FileMergeCacheConfig
         return this;
     }
 
+    @Min(0)
+    public int getMaxMemoryMappedFiles()
+    {
+        return maxMemoryMappedFiles;
+    }
+
+    @Config("cache.max-memory-mapped-files")
+    @ConfigDescription("Maximum number of cache files that are read through a memory mapping at the same time, 0 to read them with a file read")
+    public FileMergeCacheConfig setMaxMemoryMappedFiles(int maxMemoryMappedFiles)
+    {
+        this.maxMemoryMappedFiles = maxMemoryMappedFiles;
+        return this;
+    }
+
     @MinDuration("0s")
     public Duration getCacheTtl()
     {
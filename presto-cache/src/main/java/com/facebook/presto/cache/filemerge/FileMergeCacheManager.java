@@ -48,6 +48,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
@@ -96,6 +97,12 @@ public class FileMergeCacheManager
     private final Map<Long, Set<Path>> cacheScopeFiles = new ConcurrentHashMap<>();
     private final Map<Long, Long> cacheScopeSizeInBytes = new ConcurrentHashMap<>();
 
+    // a cache file is not modified once it is in the range map, so it can be read through a memory mapping;
+    // a mapping is unmapped when it is removed from this cache and no read uses it, so a cache file is
+    // unmapped before it is deleted, and the limit must stay well below the vm.max_map_count limit of the OS
+    private final int maxMemoryMappedFiles;
+    private final Cache<Path, MemoryMappedCacheFile> memoryMappedFiles;
+
     // stats
     private final CacheStats stats;
 
@@ -126,6 +133,12 @@ public class FileMergeCacheManager
         this.baseDirectory = new Path(cacheConfig.getBaseDirectory());
         checkArgument(fileMergeCacheConfig.getMaxInMemoryCacheSize().toBytes() >= 0, "maxInflightBytes is negative");
         this.maxInflightBytes = fileMergeCacheConfig.getMaxInMemoryCacheSize().toBytes();
+        checkArgument(fileMergeCacheConfig.getMaxMemoryMappedFiles() >= 0, "maxMemoryMappedFiles is negative");
+        this.maxMemoryMappedFiles = MemoryMappedCacheFile.isSupported() ? fileMergeCacheConfig.getMaxMemoryMappedFiles() : 0;
+        this.memoryMappedFiles = CacheBuilder.newBuilder()
+                .maximumSize(maxMemoryMappedFiles)
+                .removalListener((RemovalListener<Path, MemoryMappedCacheFile>) notification -> notification.getValue().release())
+                .build();
 
         File target = new File(baseDirectory.toUri());
         if (!target.exists()) {
@@ -173,6 +186,7 @@ public class FileMergeCacheManager
         cacheFlushExecutor.shutdownNow();
         cacheRemovalExecutor.shutdownNow();
         cacheSizeCalculateExecutor.shutdownNow();
+        memoryMappedFiles.invalidateAll();
         buffers.remove();
     }
 
@@ -289,6 +303,20 @@ public class FileMergeCacheManager
             readLock.unlock();
         }
 
+        Optional<MemoryMappedCacheFile> mapping = retainMemoryMapping(cacheFile.getPath());
+        if (mapping.isPresent()) {
+            try {
+                if (!mapping.get().read(request.getOffset() - cacheFile.getOffset(), buffer, offset, request.getLength())) {
+                    return false;
+                }
+                stats.incrementMemoryMappedRead();
+                return true;
+            }
+            finally {
+                mapping.get().release();
+            }
+        }
+
         try (RandomAccessFile file = new RandomAccessFile(new File(cacheFile.getPath().toUri()), "r")) {
             file.seek(request.getOffset() - cacheFile.getOffset());
             file.readFully(buffer, offset, request.getLength());
@@ -300,6 +328,57 @@ public class FileMergeCacheManager
         }
     }
 
+    /**
+     * Returns the mapping of the cache file with a reference for the caller, who must release it.
+     */
+    private Optional<MemoryMappedCacheFile> retainMemoryMapping(Path cacheFile)
+    {
+        if (maxMemoryMappedFiles == 0) {
+            return Optional.empty();
+        }
+        MemoryMappedCacheFile mapping = memoryMappedFiles.getIfPresent(cacheFile);
+        if (mapping == null) {
+            Optional<MemoryMappedCacheFile> newMapping;
+            try {
+                newMapping = MemoryMappedCacheFile.map(cacheFile);
+            }
+            catch (IOException e) {
+                // there might be a chance the file has been deleted
+                return Optional.empty();
+            }
+            if (!newMapping.isPresent()) {
+                return Optional.empty();
+            }
+
+            mapping = memoryMappedFiles.asMap().putIfAbsent(cacheFile, newMapping.get());
+            if (mapping != null) {
+                newMapping.get().release();
+            }
+            else {
+                mapping = newMapping.get();
+                // the file might have been deleted after it was mapped, and before the mapping was added to the cache
+                if (!new File(cacheFile.toUri()).exists()) {
+                    memoryMappedFiles.invalidate(cacheFile);
+                }
+            }
+        }
+
+        // the mapping might have been removed from the cache and unmapped in the meantime
+        if (!mapping.retain()) {
+            return Optional.empty();
+        }
+        return Optional.of(mapping);
+    }
+
+    private void deleteCacheFile(Path path)
+    {
+        // unmap the file before it is deleted, so that its disk blocks are freed, and again afterwards
+        // in case a concurrent read mapped it in the meantime
+        memoryMappedFiles.invalidate(path);
+        tryDeleteFile(path);
+        memoryMappedFiles.invalidate(path);
+    }
+
     private boolean write(FileReadRequest key, byte[] data, Path newFilePath)
     {
         Path targetFile = key.getPath();
@@ -422,7 +501,7 @@ public class FileMergeCacheManager
             cacheFilesToDelete = ImmutableSet.of(newFilePath);
         }
 
-        cacheFilesToDelete.forEach(FileMergeCacheManager::tryDeleteFile);
+        cacheFilesToDelete.forEach(this::deleteCacheFile);
         return true;
     }
 
@@ -574,12 +653,7 @@ public class FileMergeCacheManager
                 // There is a chance of the files to be deleted are being read.
                 // We may just fail the cache hit and do it in a simple way given the chance is low.
                 for (LocalCacheFile file : files) {
-                    try {
-                        Files.delete(new File(file.getPath().toUri()).toPath());
-                    }
-                    catch (IOException e) {
-                        // ignore
-                    }
+                    deleteCacheFile(file.getPath());
                 }
             });
         }
@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cache.filemerge;
+
+import com.facebook.airlift.log.Logger;
+import org.apache.hadoop.fs.Path;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.toIntExact;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A read-only memory mapping of a cache file, which is counted by references. The cache holds
+ * one reference, and every read holds one while it copies the data out of the mapping. The file
+ * is unmapped as soon as the last reference is released, so a deleted cache file does not keep
+ * its disk blocks until the garbage collector collects the mapping. The mapping never leaves the
+ * cache manager, so nothing can read it after it is unmapped.
+ */
+final class MemoryMappedCacheFile
+{
+    private static final Logger log = Logger.get(MemoryMappedCacheFile.class);
+
+    private static final Optional<Unmapper> UNMAPPER = createUnmapper();
+
+    private final MappedByteBuffer mapping;
+    @GuardedBy("this")
+    private int references = 1;
+
+    private MemoryMappedCacheFile(MappedByteBuffer mapping)
+    {
+        this.mapping = requireNonNull(mapping, "mapping is null");
+    }
+
+    /**
+     * Files can only be mapped if they can be unmapped explicitly, which depends on the JVM.
+     */
+    public static boolean isSupported()
+    {
+        return UNMAPPER.isPresent();
+    }
+
+    /**
+     * Maps the file, with a reference for the caller, unless it is empty or does not fit in a buffer.
+     */
+    public static Optional<MemoryMappedCacheFile> map(Path path)
+            throws IOException
+    {
+        checkState(isSupported(), "memory mapped files cannot be unmapped on this JVM");
+        try (FileChannel channel = FileChannel.open(new File(path.toUri()).toPath(), READ)) {
+            long size = channel.size();
+            if (size == 0 || size > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            return Optional.of(new MemoryMappedCacheFile(channel.map(READ_ONLY, 0, size)));
+        }
+    }
+
+    /**
+     * Adds a reference to the mapping, unless it is already unmapped.
+     */
+    public synchronized boolean retain()
+    {
+        if (references == 0) {
+            return false;
+        }
+        references++;
+        return true;
+    }
+
+    /**
+     * Releases a reference, and unmaps the file if it was the last one.
+     */
+    public void release()
+    {
+        synchronized (this) {
+            checkState(references > 0, "mapping is already unmapped");
+            references--;
+            if (references > 0) {
+                return;
+            }
+        }
+        UNMAPPER.get().unmap(mapping);
+    }
+
+    /**
+     * Copies the data at the position of the file, which must be retained by the caller.
+     * Returns false if the data is past the end of the file.
+     */
+    public boolean read(long position, byte[] buffer, int offset, int length)
+    {
+        if (position < 0 || position + length > mapping.limit()) {
+            return false;
+        }
+        ByteBuffer data = mapping.duplicate();
+        data.position(toIntExact(position));
+        data.get(buffer, offset, length);
+        return true;
+    }
+
+    private interface Unmapper
+    {
+        void unmap(ByteBuffer buffer);
+    }
+
+    private static Optional<Unmapper> createUnmapper()
+    {
+        try {
+            // Java 9 and later
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field unsafeField = unsafeClass.getDeclaredField("theUnsafe");
+            unsafeField.setAccessible(true);
+            Object unsafe = unsafeField.get(null);
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            return Optional.of(buffer -> invoke(invokeCleaner, unsafe, buffer));
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            // fall back to the cleaner of Java 8
+        }
+
+        try {
+            Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            return Optional.of(buffer -> invoke(clean, invoke(cleaner, buffer)));
+        }
+        catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn(e, "Memory mapped files cannot be unmapped on this JVM, so cache files are not memory mapped");
+            return Optional.empty();
+        }
+    }
+
+    private static Object invoke(Method method, Object target, Object... arguments)
+    {
+        try {
+            return method.invoke(target, arguments);
+        }
+        catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Failed to unmap a memory mapped file", e);
+        }
+    }
+}
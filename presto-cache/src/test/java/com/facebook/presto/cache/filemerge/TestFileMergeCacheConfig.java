@@ -36,6 +36,7 @@ public class TestFileMergeCacheConfig
         assertRecordedDefaults(recordDefaults(FileMergeCacheConfig.class)
                 .setMaxCachedEntries(1_000)
                 .setMaxInMemoryCacheSize(new DataSize(2, GIGABYTE))
+                .setMaxMemoryMappedFiles(0)
                 .setCacheTtl(new Duration(2, DAYS)));
     }
 
@@ -45,12 +46,14 @@ public class TestFileMergeCacheConfig
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("cache.max-cached-entries", "5")
                 .put("cache.max-in-memory-cache-size", "42MB")
+                .put("cache.max-memory-mapped-files", "100")
                 .put("cache.ttl", "10s")
                 .build();
 
         FileMergeCacheConfig expected = new FileMergeCacheConfig()
                 .setMaxCachedEntries(5)
                 .setMaxInMemoryCacheSize(new DataSize(42, MEGABYTE))
+                .setMaxMemoryMappedFiles(100)
                 .setCacheTtl(new Duration(10, SECONDS));
         assertFullMapping(properties, expected);
     }
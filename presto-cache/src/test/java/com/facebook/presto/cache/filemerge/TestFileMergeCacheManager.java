@@ -156,6 +156,36 @@ public class TestFileMergeCacheManager
         validateBuffer(data, 40, buffer, 400, 200);
     }
 
+    @Test(timeOut = 30_000)
+    public void testMemoryMappedRead()
+            throws InterruptedException, ExecutionException, IOException
+    {
+        TestingCacheStats stats = new TestingCacheStats();
+        CacheManager cacheManager = new FileMergeCacheManager(
+                new CacheConfig().setBaseDirectory(cacheDirectory),
+                new FileMergeCacheConfig().setMaxMemoryMappedFiles(10),
+                stats,
+                flushExecutor,
+                removeExecutor,
+                cacheSizeCalculator);
+        byte[] buffer = new byte[1024];
+
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 1042, buffer, 0, 100));
+        stats.trigger();
+        assertEquals(stats.getMemoryMappedReads(), 0);
+
+        // the cache file is read through its mapping
+        assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 1047, buffer, 10, 90));
+        assertEquals(stats.getCacheHit(), 1);
+        assertEquals(stats.getMemoryMappedReads(), 1);
+        validateBuffer(data, 1047, buffer, 10, 90);
+
+        // a read past the end of the cache file is a miss
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 1100, buffer, 0, 100));
+        assertEquals(stats.getMemoryMappedReads(), 1);
+        validateBuffer(data, 1100, buffer, 0, 100);
+    }
+
     @Test(invocationCount = 10)
     public void testStress()
             throws ExecutionException, InterruptedException
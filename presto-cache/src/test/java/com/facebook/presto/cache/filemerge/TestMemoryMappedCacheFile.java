@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cache.filemerge;
+
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestMemoryMappedCacheFile
+{
+    @Test
+    public void testReadAndRelease()
+            throws Exception
+    {
+        File file = File.createTempFile("mapped", ".cache");
+        try {
+            byte[] data = new byte[1024];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) i;
+            }
+            Files.write(file.toPath(), data);
+
+            MemoryMappedCacheFile mapping = MemoryMappedCacheFile.map(new Path(file.toURI())).get();
+            assertTrue(mapping.retain());
+
+            byte[] buffer = new byte[110];
+            assertTrue(mapping.read(100, buffer, 10, 100));
+            for (int i = 0; i < 100; i++) {
+                assertEquals(buffer[10 + i], data[100 + i]);
+            }
+            assertFalse(mapping.read(1000, buffer, 0, 100));
+            assertFalse(mapping.read(-1, buffer, 0, 1));
+
+            // the file stays mapped until the last reference is released
+            mapping.release();
+            assertTrue(mapping.read(0, buffer, 0, 1));
+            mapping.release();
+            assertFalse(mapping.retain());
+        }
+        finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testEmptyFile()
+            throws Exception
+    {
+        File file = File.createTempFile("mapped", ".cache");
+        try {
+            assertFalse(MemoryMappedCacheFile.map(new Path(file.toURI())).isPresent());
+        }
+        finally {
+            assertTrue(file.delete());
+        }
+    }
+}
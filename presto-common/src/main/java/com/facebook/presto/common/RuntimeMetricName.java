@@ -41,6 +41,8 @@ public class RuntimeMetricName
     public static final String GET_PARTITIONS_BY_NAMES_TIME_NANOS = "getPartitionsByNamesTimeNanos";
     public static final String GET_TABLE_TIME_NANOS = "getTableTimeNanos";
     public static final String GET_SPLITS_TIME_NANOS = "getSplitsTimeNanos";
+    // Number of splits a prefetching split source has fetched ahead of the scheduler, sampled on each batch
+    public static final String SPLIT_SOURCE_BUFFERED_SPLITS = "splitSourceBufferedSplits";
     // CPU time taken to schedule a given stage
     public static final String SCHEDULER_CPU_TIME_NANOS = "schedulerCpuTimeNanos";
     // Wall time taken to schedule a given stage
@@ -75,6 +77,21 @@ public class RuntimeMetricName
     // Size of the data retrieved by read call to storage
     public static final String STORAGE_READ_DATA_BYTES = "storageReadDataBytes";
     public static final String WRITTEN_FILES_COUNT = "writtenFilesCount";
+    // Input rows of a partial aggregation that were passed through because adaptive partial aggregation disabled it
+    public static final String PARTIAL_AGGREGATION_SKIPPED_ROWS = "partialAggregationSkippedRows";
+    // Number of partial aggregation buffers flushed while adaptive partial aggregation had disabled it
+    public static final String PARTIAL_AGGREGATION_SKIPPED_FLUSHES = "partialAggregationSkippedFlushes";
+    // Size of the exchange pages serialized by an output operator with compression enabled, before and after compression
+    public static final String EXCHANGE_COMPRESSION_INPUT_BYTES = "exchangeCompressionInputBytes";
+    public static final String EXCHANGE_COMPRESSION_OUTPUT_BYTES = "exchangeCompressionOutputBytes";
+    // Time spent compressing exchange pages
+    public static final String EXCHANGE_COMPRESSION_CPU_NANOS = "exchangeCompressionCpuNanos";
+    // Number of exchange pages adaptive compression did not try to compress
+    public static final String EXCHANGE_COMPRESSION_SKIPPED_PAGES = "exchangeCompressionSkippedPages";
+    // Bytes a partitioned output sent to the partition that received the most data
+    public static final String PARTITIONED_OUTPUT_MAX_PARTITION_BYTES = "partitionedOutputMaxPartitionBytes";
+    // Number of partitioning keys a partitioned output found to make up more than a fair share of a partition by themselves
+    public static final String PARTITIONED_OUTPUT_HOT_KEYS = "partitionedOutputHotKeys";
     public static final String HISTORY_OPTIMIZER_QUERY_REGISTRATION_GET_PLAN_NODE_HASHES = "historyOptimizerQueryRegistrationGetPlanNodeHashes";
     public static final String HISTORY_OPTIMIZER_QUERY_REGISTRATION_GET_STATISTICS = "historyOptimizerQueryRegistrationGetStatistics";
     public static final String DIRECTORY_LISTING_CACHE_HIT = "directoryListingCacheHit";
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.airlift.stats.CounterStat;
 import com.facebook.airlift.stats.DistributionStat;
 import com.facebook.airlift.stats.TimeStat;
 import org.weakref.jmx.Managed;
@@ -29,6 +30,12 @@ public class FileFormatDataSourceStats
     private final TimeStat time100KBto1MB = new TimeStat(MILLISECONDS);
     private final TimeStat time1MBto10MB = new TimeStat(MILLISECONDS);
     private final TimeStat time10MBPlus = new TimeStat(MILLISECONDS);
+    private final CounterStat readAheadHits = new CounterStat();
+    private final TimeStat readAheadWaitTime = new TimeStat(MILLISECONDS);
+    private final CounterStat readAheadRejected = new CounterStat();
+    private final CounterStat memoryMappedFiles = new CounterStat();
+    private final CounterStat memoryMappingRejected = new CounterStat();
+    private final DistributionStat memoryMappedReadBytes = new DistributionStat();
 
     @Managed
     @Nested
@@ -72,6 +79,48 @@ public class FileFormatDataSourceStats
         return time10MBPlus;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getReadAheadHits()
+    {
+        return readAheadHits;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getReadAheadWaitTime()
+    {
+        return readAheadWaitTime;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getReadAheadRejected()
+    {
+        return readAheadRejected;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMemoryMappedFiles()
+    {
+        return memoryMappedFiles;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMemoryMappingRejected()
+    {
+        return memoryMappingRejected;
+    }
+
+    @Managed
+    @Nested
+    public DistributionStat getMemoryMappedReadBytes()
+    {
+        return memoryMappedReadBytes;
+    }
+
     public void readDataBytesPerSecond(long bytes, long nanos)
     {
         readBytes.add(bytes);
@@ -93,4 +142,34 @@ public class FileFormatDataSourceStats
     {
         maxCombinedBytesPerRow.add(bytes);
     }
+
+    public void readAheadHit()
+    {
+        readAheadHits.update(1);
+    }
+
+    public void readAheadWait(long nanos)
+    {
+        readAheadWaitTime.add(nanos, NANOSECONDS);
+    }
+
+    public void readAheadRejected()
+    {
+        readAheadRejected.update(1);
+    }
+
+    public void memoryMappedFile()
+    {
+        memoryMappedFiles.update(1);
+    }
+
+    public void memoryMappingRejected()
+    {
+        memoryMappingRejected.update(1);
+    }
+
+    public void readMemoryMappedBytes(long bytes)
+    {
+        memoryMappedReadBytes.add(bytes);
+    }
 }
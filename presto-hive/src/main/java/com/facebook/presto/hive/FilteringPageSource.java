@@ -20,10 +20,6 @@ import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.FilterFunction;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.predicate.TupleDomainFilter;
-import com.facebook.presto.common.type.ArrayType;
-import com.facebook.presto.common.type.DecimalType;
-import com.facebook.presto.common.type.MapType;
-import com.facebook.presto.common.type.RowType;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.common.type.TypeManager;
 import com.facebook.presto.expressions.DynamicFilters;
@@ -33,7 +29,6 @@ import com.facebook.presto.spi.relation.InputReferenceExpression;
 import com.facebook.presto.spi.relation.RowExpression;
 import com.facebook.presto.spi.relation.RowExpressionService;
 import com.facebook.presto.spi.relation.VariableReferenceExpression;
-import io.airlift.slice.Slice;
 
 import java.io.IOException;
 import java.util.List;
@@ -43,30 +38,15 @@ import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 
-import static com.facebook.presto.common.predicate.TupleDomainFilter.IS_NOT_NULL;
-import static com.facebook.presto.common.predicate.TupleDomainFilter.IS_NULL;
 import static com.facebook.presto.common.predicate.TupleDomainFilterUtils.toFilter;
-import static com.facebook.presto.common.type.BigintType.BIGINT;
-import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
-import static com.facebook.presto.common.type.Chars.isCharType;
-import static com.facebook.presto.common.type.DateType.DATE;
-import static com.facebook.presto.common.type.DoubleType.DOUBLE;
-import static com.facebook.presto.common.type.IntegerType.INTEGER;
-import static com.facebook.presto.common.type.RealType.REAL;
-import static com.facebook.presto.common.type.SmallintType.SMALLINT;
-import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
-import static com.facebook.presto.common.type.TinyintType.TINYINT;
-import static com.facebook.presto.common.type.Varchars.isVarcharType;
 import static com.facebook.presto.expressions.DynamicFilters.extractDynamicFilters;
 import static com.facebook.presto.expressions.LogicalRowExpressions.TRUE_CONSTANT;
 import static com.facebook.presto.expressions.LogicalRowExpressions.and;
 import static com.facebook.presto.expressions.RowExpressionNodeInliner.replaceExpression;
+import static com.facebook.presto.hive.HiveFilterUtils.filterBlock;
 import static com.facebook.presto.spi.relation.ExpressionOptimizer.Level.OPTIMIZED;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
-import static java.lang.Double.longBitsToDouble;
-import static java.lang.Float.intBitsToFloat;
 import static java.util.Objects.requireNonNull;
-import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
 
 public class FilteringPageSource
         implements ConnectorPageSource
@@ -216,70 +196,6 @@ public class FilteringPageSource
         delegate.close();
     }
 
-    private static int filterBlock(Block block, Type type, TupleDomainFilter filter, int[] positions, int positionCount)
-    {
-        int outputPositionsCount = 0;
-        for (int i = 0; i < positionCount; i++) {
-            int position = positions[i];
-            if (block.isNull(position)) {
-                if (filter.testNull()) {
-                    positions[outputPositionsCount] = position;
-                    outputPositionsCount++;
-                }
-            }
-            else if (testNonNullPosition(block, position, type, filter)) {
-                positions[outputPositionsCount] = position;
-                outputPositionsCount++;
-            }
-        }
-
-        return outputPositionsCount;
-    }
-
-    private static boolean testNonNullPosition(Block block, int position, Type type, TupleDomainFilter filter)
-    {
-        if (type == BIGINT || type == INTEGER || type == SMALLINT || type == TINYINT || type == TIMESTAMP || type == DATE) {
-            return filter.testLong(type.getLong(block, position));
-        }
-
-        if (type == BOOLEAN) {
-            return filter.testBoolean(type.getBoolean(block, position));
-        }
-
-        if (type.equals(DOUBLE)) {
-            return filter.testDouble(longBitsToDouble(block.getLong(position)));
-        }
-
-        if (type.equals(REAL)) {
-            return filter.testFloat(intBitsToFloat(block.getInt(position)));
-        }
-
-        if (type instanceof DecimalType) {
-            if (((DecimalType) type).isShort()) {
-                return filter.testLong(block.getLong(position));
-            }
-            else {
-                return filter.testDecimal(block.getLong(position, 0), block.getLong(position, Long.BYTES));
-            }
-        }
-
-        if (isVarcharType(type) || isCharType(type)) {
-            Slice slice = block.getSlice(position, 0, block.getSliceLength(position));
-            return filter.testBytes((byte[]) slice.getBase(), (int) slice.getAddress() - ARRAY_BYTE_BASE_OFFSET, slice.length());
-        }
-
-        if (type instanceof ArrayType || type instanceof MapType || type instanceof RowType) {
-            if (IS_NULL == filter) {
-                return block.isNull(position);
-            }
-            if (IS_NOT_NULL == filter) {
-                return !block.isNull(position);
-            }
-        }
-
-        throw new UnsupportedOperationException("Unexpected column type " + type);
-    }
-
     @Override
     public long getCompletedBytes()
     {
@@ -46,6 +46,7 @@ import static com.facebook.presto.hive.HiveSessionProperties.INSERT_EXISTING_PAR
 import static com.facebook.presto.hive.HiveStorageFormat.ORC;
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.lang.String.format;
@@ -198,6 +199,13 @@ public class HiveClientConfig
     private boolean userDefinedTypeEncodingEnabled;
 
     private boolean columnIndexFilterEnabled;
+    private boolean parquetBloomFilterEnabled;
+    private boolean readAheadEnabled;
+    private DataSize readAheadMaxInFlightSizePerQuery = new DataSize(256, MEGABYTE);
+    private int readAheadMaxThreads = 32;
+    private boolean memoryMappedLocalFilesEnabled;
+    private int memoryMappedLocalFilesMaxMappings = 10_000;
+    private DataSize memoryMappedLocalFilesMaxSize = new DataSize(16, GIGABYTE);
     private boolean fileSplittable = true;
     private Protocol thriftProtocol = Protocol.BINARY;
     private DataSize thriftBufferSize = new DataSize(128, BYTE);
@@ -1538,6 +1546,100 @@ public class HiveClientConfig
         return this.columnIndexFilterEnabled;
     }
 
+    @Config("hive.parquet-bloom-filter-enabled")
+    @ConfigDescription("enable using parquet Bloom filters to skip row groups for equality and IN predicates")
+    public HiveClientConfig setParquetBloomFilterEnabled(boolean parquetBloomFilterEnabled)
+    {
+        this.parquetBloomFilterEnabled = parquetBloomFilterEnabled;
+        return this;
+    }
+
+    public boolean isParquetBloomFilterEnabled()
+    {
+        return this.parquetBloomFilterEnabled;
+    }
+
+    @Config("hive.read-ahead.enabled")
+    @ConfigDescription("Read the next ORC stripe or Parquet row group in the background while the current one is decoded")
+    public HiveClientConfig setReadAheadEnabled(boolean readAheadEnabled)
+    {
+        this.readAheadEnabled = readAheadEnabled;
+        return this;
+    }
+
+    public boolean isReadAheadEnabled()
+    {
+        return readAheadEnabled;
+    }
+
+    @NotNull
+    public DataSize getReadAheadMaxInFlightSizePerQuery()
+    {
+        return readAheadMaxInFlightSizePerQuery;
+    }
+
+    @Config("hive.read-ahead.max-in-flight-size-per-query")
+    @ConfigDescription("Maximum size of the data read ahead and not yet consumed, per query and per node")
+    public HiveClientConfig setReadAheadMaxInFlightSizePerQuery(DataSize readAheadMaxInFlightSizePerQuery)
+    {
+        this.readAheadMaxInFlightSizePerQuery = readAheadMaxInFlightSizePerQuery;
+        return this;
+    }
+
+    @Min(1)
+    public int getReadAheadMaxThreads()
+    {
+        return readAheadMaxThreads;
+    }
+
+    @Config("hive.read-ahead.max-threads")
+    public HiveClientConfig setReadAheadMaxThreads(int readAheadMaxThreads)
+    {
+        this.readAheadMaxThreads = readAheadMaxThreads;
+        return this;
+    }
+
+    @Config("hive.memory-mapped-local-files.enabled")
+    @ConfigDescription("Read ORC, Parquet and page files on the local file system through a memory mapping instead of copying them to the heap")
+    public HiveClientConfig setMemoryMappedLocalFilesEnabled(boolean memoryMappedLocalFilesEnabled)
+    {
+        this.memoryMappedLocalFilesEnabled = memoryMappedLocalFilesEnabled;
+        return this;
+    }
+
+    public boolean isMemoryMappedLocalFilesEnabled()
+    {
+        return memoryMappedLocalFilesEnabled;
+    }
+
+    @Min(0)
+    public int getMemoryMappedLocalFilesMaxMappings()
+    {
+        return memoryMappedLocalFilesMaxMappings;
+    }
+
+    @Config("hive.memory-mapped-local-files.max-mappings")
+    @ConfigDescription("Maximum number of local files that are memory mapped at the same time, which must stay well below the vm.max_map_count limit of the OS")
+    public HiveClientConfig setMemoryMappedLocalFilesMaxMappings(int memoryMappedLocalFilesMaxMappings)
+    {
+        this.memoryMappedLocalFilesMaxMappings = memoryMappedLocalFilesMaxMappings;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMemoryMappedLocalFilesMaxSize()
+    {
+        return memoryMappedLocalFilesMaxSize;
+    }
+
+    @Config("hive.memory-mapped-local-files.max-size")
+    @ConfigDescription("Maximum total size of the local files that are memory mapped at the same time, including the deleted files whose mappings are not yet released")
+    public HiveClientConfig setMemoryMappedLocalFilesMaxSize(DataSize memoryMappedLocalFilesMaxSize)
+    {
+        this.memoryMappedLocalFilesMaxSize = memoryMappedLocalFilesMaxSize;
+        return this;
+    }
+
     @Config("hive.size-based-split-weights-enabled")
     public HiveClientConfig setSizeBasedSplitWeightsEnabled(boolean sizeBasedSplitWeightsEnabled)
     {
@@ -64,6 +64,7 @@ import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
 import com.facebook.presto.orc.metadata.OrcFileTail;
 import com.facebook.presto.orc.metadata.RowGroupIndex;
 import com.facebook.presto.parquet.ParquetDataSourceId;
+import com.facebook.presto.parquet.cache.BloomFilterCacheKey;
 import com.facebook.presto.parquet.cache.CachingParquetMetadataSource;
 import com.facebook.presto.parquet.cache.MetadataReader;
 import com.facebook.presto.parquet.cache.ParquetCacheConfig;
@@ -188,6 +189,9 @@ public class HiveClientModule
 
         binder.bind(FileFormatDataSourceStats.class).in(Scopes.SINGLETON);
         newExporter(binder).export(FileFormatDataSourceStats.class).as(generatedNameOf(FileFormatDataSourceStats.class, connectorId));
+        binder.bind(ReadAheadManager.class).in(Scopes.SINGLETON);
+        binder.bind(MemoryMappedFiles.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(MemoryMappedFiles.class).as(generatedNameOf(MemoryMappedFiles.class, connectorId));
 
         binder.bind(EncryptionLibrary.class).annotatedWith(ForCryptoService.class).to(UnsupportedEncryptionLibrary.class).in(Scopes.SINGLETON);
         binder.bind(EncryptionLibrary.class).annotatedWith(ForUnknown.class).to(UnsupportedEncryptionLibrary.class).in(Scopes.SINGLETON);
@@ -293,6 +297,18 @@ public class HiveClientModule
                                 hiveClientConfig.getMaxConcurrentZeroRowFileCreations())));
     }
 
+    @ForReadAhead
+    @Singleton
+    @Provides
+    public ListeningExecutorService createReadAheadExecutor(HiveConnectorId hiveClientId, HiveClientConfig hiveClientConfig)
+    {
+        return listeningDecorator(
+                new ExecutorServiceAdapter(
+                        new BoundedExecutor(
+                                newCachedThreadPool(daemonThreadsNamed("hive-read-ahead-" + hiveClientId + "-%s")),
+                                hiveClientConfig.getReadAheadMaxThreads())));
+    }
+
     @Singleton
     @Provides
     public OrcFileTailSource createOrcFileTailSource(OrcCacheConfig orcCacheConfig, MBeanExporter exporter)
@@ -370,8 +386,19 @@ public class HiveClientModule
                     .recordStats()
                     .build();
             CacheStatsMBean cacheStatsMBean = new CacheStatsMBean(cache);
-            parquetMetadataSource = new CachingParquetMetadataSource(cache, parquetMetadataSource);
             exporter.export(generatedNameOf(CacheStatsMBean.class, connectorId + "_ParquetMetadata"), cacheStatsMBean);
+
+            Optional<Cache<BloomFilterCacheKey, Optional<BloomFilter>>> bloomFilterCache = Optional.empty();
+            if (parquetCacheConfig.getBloomFilterCacheSize().toBytes() > 0) {
+                bloomFilterCache = Optional.of(CacheBuilder.newBuilder()
+                        .maximumWeight(parquetCacheConfig.getBloomFilterCacheSize().toBytes())
+                        .weigher((BloomFilterCacheKey key, Optional<BloomFilter> bloomFilter) -> bloomFilter.map(BloomFilter::getBitsetSize).orElse(0))
+                        .expireAfterAccess(parquetCacheConfig.getMetadataCacheTtlSinceLastAccess().toMillis(), MILLISECONDS)
+                        .recordStats()
+                        .build());
+                exporter.export(generatedNameOf(CacheStatsMBean.class, connectorId + "_ParquetBloomFilter"), new CacheStatsMBean(bloomFilterCache.get()));
+            }
+            parquetMetadataSource = new CachingParquetMetadataSource(cache, bloomFilterCache, parquetMetadataSource);
         }
         return parquetMetadataSource;
     }
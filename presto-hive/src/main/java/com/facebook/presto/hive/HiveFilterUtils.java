@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.predicate.FilterFunction;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
+import com.facebook.presto.common.relation.Predicate;
+import com.facebook.presto.common.type.ArrayType;
+import com.facebook.presto.common.type.DecimalType;
+import com.facebook.presto.common.type.MapType;
+import com.facebook.presto.common.type.RowType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.expressions.DefaultRowExpressionTraversalVisitor;
+import com.facebook.presto.expressions.DynamicFilters.DynamicFilterExtractResult;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.relation.DeterminismEvaluator;
+import com.facebook.presto.spi.relation.InputReferenceExpression;
+import com.facebook.presto.spi.relation.PredicateCompiler;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slice;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.common.predicate.TupleDomainFilter.IS_NOT_NULL;
+import static com.facebook.presto.common.predicate.TupleDomainFilter.IS_NULL;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.Chars.isCharType;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.RealType.REAL;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.common.type.Varchars.isVarcharType;
+import static com.facebook.presto.expressions.DynamicFilters.extractDynamicFilters;
+import static com.facebook.presto.expressions.LogicalRowExpressions.TRUE_CONSTANT;
+import static com.facebook.presto.expressions.LogicalRowExpressions.and;
+import static com.facebook.presto.expressions.LogicalRowExpressions.binaryExpression;
+import static com.facebook.presto.expressions.LogicalRowExpressions.extractConjuncts;
+import static com.facebook.presto.hive.HiveSessionProperties.isAdaptiveFilterReorderingEnabled;
+import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.AND;
+import static java.lang.Double.longBitsToDouble;
+import static java.lang.Float.intBitsToFloat;
+import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
+
+public final class HiveFilterUtils
+{
+    private HiveFilterUtils() {}
+
+    public static int filterBlock(Block block, Type type, TupleDomainFilter filter, int[] positions, int positionCount)
+    {
+        int outputPositionsCount = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            if (block.isNull(position)) {
+                if (filter.testNull()) {
+                    positions[outputPositionsCount] = position;
+                    outputPositionsCount++;
+                }
+            }
+            else if (testNonNullPosition(block, position, type, filter)) {
+                positions[outputPositionsCount] = position;
+                outputPositionsCount++;
+            }
+        }
+
+        return outputPositionsCount;
+    }
+
+    private static boolean testNonNullPosition(Block block, int position, Type type, TupleDomainFilter filter)
+    {
+        if (type == BIGINT || type == INTEGER || type == SMALLINT || type == TINYINT || type == TIMESTAMP || type == DATE) {
+            return filter.testLong(type.getLong(block, position));
+        }
+
+        if (type == BOOLEAN) {
+            return filter.testBoolean(type.getBoolean(block, position));
+        }
+
+        if (type.equals(DOUBLE)) {
+            return filter.testDouble(longBitsToDouble(block.getLong(position)));
+        }
+
+        if (type.equals(REAL)) {
+            return filter.testFloat(intBitsToFloat(block.getInt(position)));
+        }
+
+        if (type instanceof DecimalType) {
+            if (((DecimalType) type).isShort()) {
+                return filter.testLong(block.getLong(position));
+            }
+            else {
+                return filter.testDecimal(block.getLong(position, 0), block.getLong(position, Long.BYTES));
+            }
+        }
+
+        if (isVarcharType(type) || isCharType(type)) {
+            Slice slice = block.getSlice(position, 0, block.getSliceLength(position));
+            return filter.testBytes((byte[]) slice.getBase(), (int) slice.getAddress() - ARRAY_BYTE_BASE_OFFSET, slice.length());
+        }
+
+        if (type instanceof ArrayType || type instanceof MapType || type instanceof RowType) {
+            if (IS_NULL == filter) {
+                return block.isNull(position);
+            }
+            if (IS_NOT_NULL == filter) {
+                return !block.isNull(position);
+            }
+        }
+
+        throw new UnsupportedOperationException("Unexpected column type " + type);
+    }
+
+    public static List<FilterFunction> toFilterFunctions(RowExpression filter, ConnectorSession session, DeterminismEvaluator determinismEvaluator, PredicateCompiler predicateCompiler)
+    {
+        return toFilterFunctions(filter, Optional.empty(), session, determinismEvaluator, predicateCompiler);
+    }
+
+    /**
+     * Split filter expression into groups of conjuncts that depend on the same set of inputs,
+     * then compile each group into FilterFunction.
+     */
+    public static List<FilterFunction> toFilterFunctions(RowExpression filter, Optional<? extends Predicate> bucketAdapter, ConnectorSession session, DeterminismEvaluator determinismEvaluator, PredicateCompiler predicateCompiler)
+    {
+        ImmutableList.Builder<FilterFunction> filterFunctions = ImmutableList.builder();
+
+        bucketAdapter.map(predicate -> new FilterFunction(session.getSqlFunctionProperties(), true, predicate))
+                .ifPresent(filterFunctions::add);
+
+        if (TRUE_CONSTANT.equals(filter)) {
+            return filterFunctions.build();
+        }
+
+        DynamicFilterExtractResult extractDynamicFilterResult = extractDynamicFilters(filter);
+
+        // dynamic filter will be added through subfield pushdown
+        filter = and(extractDynamicFilterResult.getStaticConjuncts());
+
+        if (!isAdaptiveFilterReorderingEnabled(session)) {
+            filterFunctions.add(new FilterFunction(session.getSqlFunctionProperties(), determinismEvaluator.isDeterministic(filter), predicateCompiler.compilePredicate(session.getSqlFunctionProperties(), session.getSessionFunctions(), filter).get()));
+            return filterFunctions.build();
+        }
+
+        List<RowExpression> conjuncts = extractConjuncts(filter);
+        if (conjuncts.size() == 1) {
+            filterFunctions.add(new FilterFunction(session.getSqlFunctionProperties(), determinismEvaluator.isDeterministic(filter), predicateCompiler.compilePredicate(session.getSqlFunctionProperties(), session.getSessionFunctions(), filter).get()));
+            return filterFunctions.build();
+        }
+
+        // Use LinkedHashMap to preserve user-specified order of conjuncts. This will be the initial order in which filters are applied.
+        Map<Set<Integer>, List<RowExpression>> inputsToConjuncts = new LinkedHashMap<>();
+        for (RowExpression conjunct : conjuncts) {
+            inputsToConjuncts.computeIfAbsent(extractInputs(conjunct), k -> new ArrayList<>()).add(conjunct);
+        }
+
+        inputsToConjuncts.values().stream()
+                .map(expressions -> binaryExpression(AND, expressions))
+                .map(predicate -> new FilterFunction(session.getSqlFunctionProperties(), determinismEvaluator.isDeterministic(predicate), predicateCompiler.compilePredicate(session.getSqlFunctionProperties(), session.getSessionFunctions(), predicate).get()))
+                .forEach(filterFunctions::add);
+
+        return filterFunctions.build();
+    }
+
+    private static Set<Integer> extractInputs(RowExpression expression)
+    {
+        ImmutableSet.Builder<Integer> inputs = ImmutableSet.builder();
+        expression.accept(new InputReferenceBuilderVisitor(), inputs);
+        return inputs.build();
+    }
+
+    private static class InputReferenceBuilderVisitor
+            extends DefaultRowExpressionTraversalVisitor<ImmutableSet.Builder<Integer>>
+    {
+        @Override
+        public Void visitInputReference(InputReferenceExpression input, ImmutableSet.Builder<Integer> builder)
+        {
+            builder.add(input.getField());
+            return null;
+        }
+    }
+}
@@ -251,6 +251,8 @@ import static com.facebook.presto.hive.HiveTableProperties.ENCRYPT_TABLE;
 import static com.facebook.presto.hive.HiveTableProperties.EXTERNAL_LOCATION_PROPERTY;
 import static com.facebook.presto.hive.HiveTableProperties.ORC_BLOOM_FILTER_COLUMNS;
 import static com.facebook.presto.hive.HiveTableProperties.ORC_BLOOM_FILTER_FPP;
+import static com.facebook.presto.hive.HiveTableProperties.PARQUET_BLOOM_FILTER_COLUMNS;
+import static com.facebook.presto.hive.HiveTableProperties.PARQUET_BLOOM_FILTER_FPP;
 import static com.facebook.presto.hive.HiveTableProperties.PARTITIONED_BY_PROPERTY;
 import static com.facebook.presto.hive.HiveTableProperties.PREFERRED_ORDERING_COLUMNS;
 import static com.facebook.presto.hive.HiveTableProperties.SORTED_BY_PROPERTY;
@@ -266,6 +268,8 @@ import static com.facebook.presto.hive.HiveTableProperties.getExternalLocation;
 import static com.facebook.presto.hive.HiveTableProperties.getHiveStorageFormat;
 import static com.facebook.presto.hive.HiveTableProperties.getOrcBloomFilterColumns;
 import static com.facebook.presto.hive.HiveTableProperties.getOrcBloomFilterFpp;
+import static com.facebook.presto.hive.HiveTableProperties.getParquetBloomFilterColumns;
+import static com.facebook.presto.hive.HiveTableProperties.getParquetBloomFilterFpp;
 import static com.facebook.presto.hive.HiveTableProperties.getPartitionedBy;
 import static com.facebook.presto.hive.HiveTableProperties.getPreferredOrderingColumns;
 import static com.facebook.presto.hive.HiveTableProperties.isExternalTable;
@@ -293,6 +297,8 @@ import static com.facebook.presto.hive.MetadataUtils.getDiscretePredicates;
 import static com.facebook.presto.hive.MetadataUtils.getPredicate;
 import static com.facebook.presto.hive.MetadataUtils.getSubfieldPredicate;
 import static com.facebook.presto.hive.MetadataUtils.isEntireColumn;
+import static com.facebook.presto.hive.OrcFileWriterFactory.ORC_BLOOM_FILTER_COLUMNS_KEY;
+import static com.facebook.presto.hive.OrcFileWriterFactory.ORC_BLOOM_FILTER_FPP_KEY;
 import static com.facebook.presto.hive.PartitionUpdate.UpdateMode.APPEND;
 import static com.facebook.presto.hive.PartitionUpdate.UpdateMode.NEW;
 import static com.facebook.presto.hive.PartitionUpdate.UpdateMode.OVERWRITE;
@@ -329,6 +335,8 @@ import static com.facebook.presto.hive.metastore.Statistics.createEmptyPartition
 import static com.facebook.presto.hive.metastore.Statistics.reduce;
 import static com.facebook.presto.hive.metastore.StorageFormat.fromHiveStorageFormat;
 import static com.facebook.presto.hive.metastore.thrift.ThriftMetastoreUtil.listEnabledPrincipals;
+import static com.facebook.presto.hive.parquet.ParquetFileWriterFactory.PARQUET_BLOOM_FILTER_COLUMNS_KEY;
+import static com.facebook.presto.hive.parquet.ParquetFileWriterFactory.PARQUET_BLOOM_FILTER_FPP_KEY;
 import static com.facebook.presto.hive.security.SqlStandardAccessControl.ADMIN_ROLE_NAME;
 import static com.facebook.presto.spi.MaterializedViewStatus.MaterializedDataPredicates;
 import static com.facebook.presto.spi.MaterializedViewStatus.MaterializedViewState.FULLY_MATERIALIZED;
@@ -386,9 +394,6 @@ public class HiveMetadata
     public static final Set<String> RESERVED_ROLES = ImmutableSet.of("all", "default", "none");
     public static final String REFERENCED_MATERIALIZED_VIEWS = "referenced_materialized_views";
 
-    private static final String ORC_BLOOM_FILTER_COLUMNS_KEY = "orc.bloom.filter.columns";
-    private static final String ORC_BLOOM_FILTER_FPP_KEY = "orc.bloom.filter.fpp";
-
     private static final String PRESTO_TEMPORARY_TABLE_NAME_PREFIX = "__presto_temporary_table_";
 
     // Comma is not a reserved keyword with or without quote
@@ -731,6 +736,16 @@ public class HiveMetadata
             properties.put(ORC_BLOOM_FILTER_FPP, Double.parseDouble(orcBloomFilterFfp));
         }
 
+        // Parquet format specific properties
+        String parquetBloomFilterColumns = table.get().getParameters().get(PARQUET_BLOOM_FILTER_COLUMNS_KEY);
+        if (parquetBloomFilterColumns != null) {
+            properties.put(PARQUET_BLOOM_FILTER_COLUMNS, Splitter.on(COMMA).trimResults().omitEmptyStrings().splitToList(parquetBloomFilterColumns));
+        }
+        String parquetBloomFilterFpp = table.get().getParameters().get(PARQUET_BLOOM_FILTER_FPP_KEY);
+        if (parquetBloomFilterFpp != null) {
+            properties.put(PARQUET_BLOOM_FILTER_FPP, Double.parseDouble(parquetBloomFilterFpp));
+        }
+
         // Avro specific property
         String avroSchemaUrl = table.get().getParameters().get(AVRO_SCHEMA_URL_KEY);
         if (avroSchemaUrl != null) {
@@ -1266,6 +1281,17 @@ public class HiveMetadata
             tableProperties.put(ORC_BLOOM_FILTER_FPP_KEY, String.valueOf(getOrcBloomFilterFpp(tableMetadata.getProperties())));
         }
 
+        // Parquet format specific properties
+        double parquetBloomFilterFpp = getParquetBloomFilterFpp(tableMetadata.getProperties());
+        if (!(parquetBloomFilterFpp > 0 && parquetBloomFilterFpp < 1)) {
+            throw new PrestoException(INVALID_TABLE_PROPERTY, format("%s must be between 0 and 1 (exclusive): %s", PARQUET_BLOOM_FILTER_FPP, parquetBloomFilterFpp));
+        }
+        List<String> parquetBloomFilterColumns = getParquetBloomFilterColumns(tableMetadata.getProperties());
+        if (parquetBloomFilterColumns != null && !parquetBloomFilterColumns.isEmpty()) {
+            tableProperties.put(PARQUET_BLOOM_FILTER_COLUMNS_KEY, Joiner.on(COMMA).join(parquetBloomFilterColumns));
+            tableProperties.put(PARQUET_BLOOM_FILTER_FPP_KEY, String.valueOf(parquetBloomFilterFpp));
+        }
+
         // Avro specific properties
         String avroSchemaUrl = getAvroSchemaUrl(tableMetadata.getProperties());
         if (avroSchemaUrl != null) {
@@ -24,7 +24,7 @@ public class HiveOrcLocalMemoryContext
 {
     private final LocalMemoryContext delegate;
 
-    HiveOrcLocalMemoryContext(LocalMemoryContext delegate)
+    public HiveOrcLocalMemoryContext(LocalMemoryContext delegate)
     {
         this.delegate = requireNonNull(delegate, "delegate is null");
     }
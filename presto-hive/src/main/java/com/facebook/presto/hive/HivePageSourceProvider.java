@@ -383,6 +383,7 @@ public class HivePageSourceProvider
                     session,
                     split.getFileSplit(),
                     split.getStorage(),
+                    layout.getSchemaTableName(),
                     columnHandles,
                     prefilledValues,
                     coercers,
@@ -119,6 +119,9 @@ public final class HiveSessionProperties
     private static final String DWRF_WRITER_STRIPE_CACHE_ENABLED = "dwrf_writer_stripe_cache_enabled";
     private static final String DWRF_WRITER_STRIPE_CACHE_SIZE = "dwrf_writer_stripe_cache_size";
     public static final String USE_COLUMN_INDEX_FILTER = "use_column_index_filter";
+    public static final String PARQUET_BLOOM_FILTER_ENABLED = "parquet_bloom_filter_enabled";
+    public static final String READ_AHEAD_ENABLED = "read_ahead_enabled";
+    public static final String MEMORY_MAPPED_LOCAL_FILES_ENABLED = "memory_mapped_local_files_enabled";
     public static final String SIZE_BASED_SPLIT_WEIGHTS_ENABLED = "size_based_split_weights_enabled";
     public static final String MINIMUM_ASSIGNED_SPLIT_WEIGHT = "minimum_assigned_split_weight";
     private static final String USE_RECORD_PAGE_SOURCE_FOR_CUSTOM_SPLIT = "use_record_page_source_for_custom_split";
@@ -565,6 +568,21 @@ public final class HiveSessionProperties
                         "should use column index statistics filtering",
                         hiveClientConfig.getReadColumnIndexFilter(),
                         false),
+                booleanProperty(
+                        PARQUET_BLOOM_FILTER_ENABLED,
+                        "Parquet: Use Bloom filters to skip row groups for equality and IN predicates",
+                        hiveClientConfig.isParquetBloomFilterEnabled(),
+                        false),
+                booleanProperty(
+                        READ_AHEAD_ENABLED,
+                        "Read the next ORC stripe or Parquet row group in the background while the current one is decoded",
+                        hiveClientConfig.isReadAheadEnabled(),
+                        false),
+                booleanProperty(
+                        MEMORY_MAPPED_LOCAL_FILES_ENABLED,
+                        "Read ORC, Parquet and page files on the local file system through a memory mapping",
+                        hiveClientConfig.isMemoryMappedLocalFilesEnabled(),
+                        false),
                 booleanProperty(
                         SIZE_BASED_SPLIT_WEIGHTS_ENABLED,
                         "Enable estimating split weights based on size in bytes",
@@ -1073,6 +1091,21 @@ public final class HiveSessionProperties
         return session.getProperty(USE_COLUMN_INDEX_FILTER, Boolean.class);
     }
 
+    public static boolean isParquetBloomFilterEnabled(ConnectorSession session)
+    {
+        return session.getProperty(PARQUET_BLOOM_FILTER_ENABLED, Boolean.class);
+    }
+
+    public static boolean isReadAheadEnabled(ConnectorSession session)
+    {
+        return session.getProperty(READ_AHEAD_ENABLED, Boolean.class);
+    }
+
+    public static boolean isMemoryMappedLocalFilesEnabled(ConnectorSession session)
+    {
+        return session.getProperty(MEMORY_MAPPED_LOCAL_FILES_ENABLED, Boolean.class);
+    }
+
     public static boolean isSizeBasedSplitWeightsEnabled(ConnectorSession session)
     {
         return session.getProperty(SIZE_BASED_SPLIT_WEIGHTS_ENABLED, Boolean.class);
@@ -31,6 +31,7 @@ import java.util.stream.Collectors;
 import static com.facebook.presto.common.type.TypeSignature.parseTypeSignature;
 import static com.facebook.presto.common.type.VarcharType.createUnboundedVarcharType;
 import static com.facebook.presto.hive.BucketFunctionType.HIVE_COMPATIBLE;
+import static com.facebook.presto.parquet.writer.ParquetWriterOptions.DEFAULT_BLOOM_FILTER_FPP;
 import static com.facebook.presto.spi.StandardErrorCode.INVALID_TABLE_PROPERTY;
 import static com.facebook.presto.spi.session.PropertyMetadata.doubleProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.integerProperty;
@@ -49,6 +50,8 @@ public class HiveTableProperties
     public static final String SORTED_BY_PROPERTY = "sorted_by";
     public static final String ORC_BLOOM_FILTER_COLUMNS = "orc_bloom_filter_columns";
     public static final String ORC_BLOOM_FILTER_FPP = "orc_bloom_filter_fpp";
+    public static final String PARQUET_BLOOM_FILTER_COLUMNS = "parquet_bloom_filter_columns";
+    public static final String PARQUET_BLOOM_FILTER_FPP = "parquet_bloom_filter_fpp";
     public static final String AVRO_SCHEMA_URL = "avro_schema_url";
     public static final String PREFERRED_ORDERING_COLUMNS = "preferred_ordering_columns";
     public static final String ENCRYPT_COLUMNS = "encrypt_columns";
@@ -133,6 +136,23 @@ public class HiveTableProperties
                         "ORC Bloom filter false positive probability",
                         config.getOrcDefaultBloomFilterFpp(),
                         false),
+                new PropertyMetadata<>(
+                        PARQUET_BLOOM_FILTER_COLUMNS,
+                        "Parquet Bloom filter columns",
+                        typeManager.getType(parseTypeSignature("array(varchar)")),
+                        List.class,
+                        ImmutableList.of(),
+                        false,
+                        value -> ((Collection<?>) value).stream()
+                                .map(String.class::cast)
+                                .map(name -> name.toLowerCase(ENGLISH))
+                                .collect(toImmutableList()),
+                        value -> value),
+                doubleProperty(
+                        PARQUET_BLOOM_FILTER_FPP,
+                        "Parquet Bloom filter false positive probability",
+                        DEFAULT_BLOOM_FILTER_FPP,
+                        false),
                 integerProperty(BUCKET_COUNT_PROPERTY, "Number of buckets", 0, false),
                 stringProperty(AVRO_SCHEMA_URL, "URI pointing to Avro schema for the table", null, false),
                 new PropertyMetadata<>(
@@ -245,6 +265,17 @@ public class HiveTableProperties
         return (Double) tableProperties.get(ORC_BLOOM_FILTER_FPP);
     }
 
+    @SuppressWarnings("unchecked")
+    public static List<String> getParquetBloomFilterColumns(Map<String, Object> tableProperties)
+    {
+        return (List<String>) tableProperties.get(PARQUET_BLOOM_FILTER_COLUMNS);
+    }
+
+    public static Double getParquetBloomFilterFpp(Map<String, Object> tableProperties)
+    {
+        return (Double) tableProperties.get(PARQUET_BLOOM_FILTER_FPP);
+    }
+
     public static Optional<Character> getCsvProperty(Map<String, Object> tableProperties, String key)
     {
         Object value = tableProperties.get(key);
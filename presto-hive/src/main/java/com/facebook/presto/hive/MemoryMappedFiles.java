@@ -0,0 +1,205 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.ConnectorSession;
+import io.airlift.slice.Slice;
+import org.apache.hadoop.fs.Path;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.common.RuntimeUnit.NONE;
+import static com.facebook.presto.hive.HiveSessionProperties.isMemoryMappedLocalFilesEnabled;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Maps files of the local file system read-only, so that the readers decode them from the
+ * page cache instead of copying them to the heap first.
+ * <p>
+ * A mapping is unmapped by the garbage collector once no slice of it is referenced anymore.
+ * It cannot be unmapped when the page source is closed, because the slices outlive the page
+ * source, for example in the blocks of a page file or in the lazy blocks of an ORC file.
+ * Since every mapping uses an entry of the vm.max_map_count limit of the OS until it is
+ * collected, and keeps the disk blocks of a deleted file allocated, the number and the total
+ * size of the mappings that are not yet collected are limited. The files that do not fit are
+ * read through the file system as usual, which is recorded in the runtime stats of the query.
+ * <p>
+ * A mapped file must not be truncated while it is mapped, since reading a page past the end
+ * of the file crashes the process with SIGBUS. The files of a table are not modified once
+ * written, so only the local files of a table should be read through a mapping.
+ */
+public class MemoryMappedFiles
+{
+    public static final MemoryMappedFiles NO_MEMORY_MAPPED_FILES = new MemoryMappedFiles(0, 0, new FileFormatDataSourceStats());
+
+    private static final String REJECTED_MAPPINGS_METRIC = "MemoryMappedFiles/RejectedMappings";
+
+    private final int maxMappings;
+    private final long maxMappedBytes;
+    private final FileFormatDataSourceStats stats;
+
+    private final ReferenceQueue<ByteBuffer> unmappedBuffers = new ReferenceQueue<>();
+    @GuardedBy("this")
+    private final Set<MappingReference> mappings = new HashSet<>();
+    @GuardedBy("this")
+    private int reservedMappings;
+    // the size of the mappings that are not yet collected, and of the reserved ones
+    @GuardedBy("this")
+    private long mappedBytes;
+
+    @Inject
+    public MemoryMappedFiles(HiveClientConfig hiveClientConfig, FileFormatDataSourceStats stats)
+    {
+        this(
+                requireNonNull(hiveClientConfig, "hiveClientConfig is null").getMemoryMappedLocalFilesMaxMappings(),
+                hiveClientConfig.getMemoryMappedLocalFilesMaxSize().toBytes(),
+                stats);
+    }
+
+    public MemoryMappedFiles(int maxMappings, long maxMappedBytes, FileFormatDataSourceStats stats)
+    {
+        checkArgument(maxMappings >= 0, "maxMappings is negative");
+        checkArgument(maxMappedBytes >= 0, "maxMappedBytes is negative");
+        this.maxMappings = maxMappings;
+        this.maxMappedBytes = maxMappedBytes;
+        this.stats = requireNonNull(stats, "stats is null");
+    }
+
+    /**
+     * Maps the file as the user of the session, if memory mapping is enabled for the session,
+     * the file is on the local file system and is not larger than a slice, and the limits of
+     * mappings are not reached. Otherwise, the file must be read through the file system.
+     */
+    public Optional<Slice> tryMap(ConnectorSession session, HdfsEnvironment hdfsEnvironment, Path path)
+            throws IOException
+    {
+        if (maxMappings == 0 || !isMemoryMappedLocalFilesEnabled(session) || !"file".equals(path.toUri().getScheme())) {
+            return Optional.empty();
+        }
+
+        Optional<MappedByteBuffer> buffer = hdfsEnvironment.doAs(session.getUser(), () -> map(session, new File(path.toUri())));
+        if (buffer.isPresent()) {
+            stats.memoryMappedFile();
+        }
+        return buffer.map(mapping -> wrappedBuffer(mapping));
+    }
+
+    @Managed
+    public synchronized int getMappingCount()
+    {
+        removeUnmappedBuffers();
+        return mappings.size();
+    }
+
+    @Managed
+    public synchronized long getMappedBytes()
+    {
+        removeUnmappedBuffers();
+        return mappedBytes;
+    }
+
+    private Optional<MappedByteBuffer> map(ConnectorSession session, File file)
+            throws IOException
+    {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+                FileChannel channel = randomAccessFile.getChannel()) {
+            long size = channel.size();
+            // empty files cannot be mapped, and larger files do not fit in a slice
+            if (size == 0 || size > Integer.MAX_VALUE) {
+                return Optional.empty();
+            }
+            if (!tryReserve(size)) {
+                stats.memoryMappingRejected();
+                session.getRuntimeStats().addMetricValue(REJECTED_MAPPINGS_METRIC, NONE, 1);
+                return Optional.empty();
+            }
+
+            MappedByteBuffer mapping = null;
+            try {
+                mapping = channel.map(READ_ONLY, 0, size);
+            }
+            finally {
+                register(mapping, size);
+            }
+            return Optional.of(mapping);
+        }
+    }
+
+    private synchronized boolean tryReserve(long size)
+    {
+        removeUnmappedBuffers();
+        if (mappings.size() + reservedMappings >= maxMappings || mappedBytes + size > maxMappedBytes) {
+            return false;
+        }
+        reservedMappings++;
+        mappedBytes += size;
+        return true;
+    }
+
+    private synchronized void register(@Nullable MappedByteBuffer mapping, long size)
+    {
+        reservedMappings--;
+        if (mapping == null) {
+            mappedBytes -= size;
+            return;
+        }
+        mappings.add(new MappingReference(mapping, size, unmappedBuffers));
+    }
+
+    @GuardedBy("this")
+    private void removeUnmappedBuffers()
+    {
+        for (Reference<? extends ByteBuffer> reference = unmappedBuffers.poll(); reference != null; reference = unmappedBuffers.poll()) {
+            if (mappings.remove(reference)) {
+                mappedBytes -= ((MappingReference) reference).getSize();
+            }
+        }
+    }
+
+    private static class MappingReference
+            extends PhantomReference<ByteBuffer>
+    {
+        private final long size;
+
+        public MappingReference(ByteBuffer mapping, long size, ReferenceQueue<ByteBuffer> queue)
+        {
+            super(mapping, queue);
+            this.size = size;
+        }
+
+        public long getSize()
+        {
+            return size;
+        }
+    }
+}
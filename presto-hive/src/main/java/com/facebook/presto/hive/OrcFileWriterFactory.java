@@ -89,11 +89,13 @@ import static com.facebook.presto.hive.HiveSessionProperties.isStringDictionaryS
 import static com.facebook.presto.hive.HiveType.toHiveTypes;
 import static com.facebook.presto.orc.OrcEncoding.DWRF;
 import static com.facebook.presto.orc.OrcEncoding.ORC;
+import static com.facebook.presto.orc.OrcWriterOptions.DEFAULT_BLOOM_FILTER_FPP;
 import static com.facebook.presto.orc.OrcWriterOptions.DEFAULT_MAX_FLATTENED_MAP_KEY_COUNT;
 import static com.facebook.presto.orc.metadata.KeyProvider.CRYPTO_SERVICE;
 import static com.facebook.presto.orc.metadata.KeyProvider.UNKNOWN;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.lang.Boolean.parseBoolean;
 import static java.lang.String.format;
 import static java.util.Locale.ENGLISH;
@@ -131,9 +133,22 @@ public class OrcFileWriterFactory
      */
     static final String ORC_MAP_STATISTICS_KEY = "orc.map.statistics";
 
+    /**
+     * A comma separated list of column names, stored in the table properties,
+     * indicating which columns should have Bloom filters. Only used for ORC.
+     */
+    static final String ORC_BLOOM_FILTER_COLUMNS_KEY = "orc.bloom.filter.columns";
+
+    /**
+     * A double value, stored in the table properties as a string, indicating
+     * the false positive probability of the Bloom filters.
+     */
+    static final String ORC_BLOOM_FILTER_FPP_KEY = "orc.bloom.filter.fpp";
+
     private static final String HOSTNAME_METADATA_KEY = "orc.writer.host";
     private static final Supplier<Optional<String>> HOSTNAME = Suppliers.memoize(OrcFileWriterFactory::getHostname);
     private static final Splitter FLAT_MAP_COLUMN_NUMBERS_SPLITTER = Splitter.on(',').omitEmptyStrings().trimResults();
+    private static final Splitter COLUMN_NAMES_SPLITTER = Splitter.on(',').omitEmptyStrings().trimResults();
 
     private final DateTimeZone hiveStorageTimeZone;
     private final HdfsEnvironment hdfsEnvironment;
@@ -302,6 +317,7 @@ public class OrcFileWriterFactory
         boolean mapStatisticsEnabled = isMapStatisticsEnabled(schema);
         int flatMapKeyLimit = getFlatMapKeyLimit(schema);
         Set<Integer> flattenedColumns = getFlattenedColumns(schema, session);
+        Set<Integer> bloomFilterColumns = getBloomFilterColumns(schema);
 
         return orcFileWriterConfig
                 .toOrcWriterOptionsBuilder()
@@ -322,6 +338,8 @@ public class OrcFileWriterFactory
                 .withMaxFlattenedMapKeyCount(flatMapKeyLimit)
                 .withMapStatisticsEnabled(mapStatisticsEnabled)
                 .withCompressionLevel(getCompressionLevel(session))
+                .withBloomFilterColumns(bloomFilterColumns)
+                .withBloomFilterFpp(getBloomFilterFpp(schema))
                 .build();
     }
 
@@ -413,6 +431,28 @@ public class OrcFileWriterFactory
         return flattenedColumns;
     }
 
+    private static Set<Integer> getBloomFilterColumns(Properties schema)
+    {
+        Set<String> bloomFilterColumnNames = COLUMN_NAMES_SPLITTER.splitToList(schema.getProperty(ORC_BLOOM_FILTER_COLUMNS_KEY, "")).stream()
+                .map(name -> name.toLowerCase(ENGLISH))
+                .collect(toImmutableSet());
+        if (bloomFilterColumnNames.isEmpty()) {
+            return ImmutableSet.of();
+        }
+
+        List<String> fileColumnNames = COLUMN_NAMES_SPLITTER.splitToList(schema.getProperty(META_TABLE_COLUMNS, ""));
+        return IntStream.range(0, fileColumnNames.size())
+                .filter(column -> bloomFilterColumnNames.contains(fileColumnNames.get(column).toLowerCase(ENGLISH)))
+                .boxed()
+                .collect(toImmutableSet());
+    }
+
+    private static double getBloomFilterFpp(Properties schema)
+    {
+        String value = schema.getProperty(ORC_BLOOM_FILTER_FPP_KEY, Double.toString(DEFAULT_BLOOM_FILTER_FPP)).trim();
+        return Double.parseDouble(value);
+    }
+
     private boolean isMapStatisticsEnabled(Properties schema)
     {
         return parseBoolean(schema.getProperty(ORC_MAP_STATISTICS_KEY, "false"));
@@ -36,6 +36,7 @@ public class OrcWriterStats
     private final OrcWriterFlushStats dictionaryFullFlush = new OrcWriterFlushStats(DICTIONARY_FULL.name());
     private final OrcWriterFlushStats closedFlush = new OrcWriterFlushStats(CLOSED.name());
     private final AtomicLong writerSizeInBytes = new AtomicLong();
+    private final AtomicLong bloomFilterBytes = new AtomicLong();
 
     @Override
     public void recordStripeWritten(
@@ -52,6 +53,12 @@ public class OrcWriterStats
         allFlush.recordStripeWritten(stripeBytes, stripeRows, dictionaryBytes);
     }
 
+    @Override
+    public void recordBloomFiltersWritten(long bloomFilterBytes)
+    {
+        this.bloomFilterBytes.addAndGet(bloomFilterBytes);
+    }
+
     @Override
     public void updateSizeInBytes(long deltaInBytes)
     {
@@ -99,6 +106,12 @@ public class OrcWriterStats
         return writerSizeInBytes.get();
     }
 
+    @Managed
+    public long getBloomFilterBytes()
+    {
+        return bloomFilterBytes.get();
+    }
+
     private OrcWriterFlushStats getFlushStats(FlushReason flushReason)
     {
         switch (flushReason) {
@@ -125,6 +138,7 @@ public class OrcWriterStats
                 .add("dictionaryFullFlush", dictionaryFullFlush)
                 .add("closedFlush", closedFlush)
                 .add("writerSizeInBytes", writerSizeInBytes.get())
+                .add("bloomFilterBytes", bloomFilterBytes.get())
                 .toString();
     }
 }
@@ -0,0 +1,229 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.orc.DiskRange;
+import com.facebook.presto.orc.OrcLocalMemoryContext;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.Math.max;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Holds the data read ahead for the regions of one file. When the reader starts reading
+ * a region, the next region is read in the background, and the regions before it are released.
+ * The regions being read or held are reported to the memory context of the reader.
+ * <p>
+ * This class is not thread safe: it is used by the thread that reads the file.
+ */
+public class ReadAheadBuffer
+        implements Closeable
+{
+    private final String queryId;
+    private final List<Region> regions;
+    private final RangeReader reader;
+    private final ReadAheadManager manager;
+    private final OrcLocalMemoryContext memoryContext;
+    private int currentRegion = -1;
+    private long bufferedBytes;
+
+    ReadAheadBuffer(String queryId, List<List<DiskRange>> regions, RangeReader reader, ReadAheadManager manager, OrcLocalMemoryContext memoryContext)
+    {
+        this.queryId = requireNonNull(queryId, "queryId is null");
+        this.regions = requireNonNull(regions, "regions is null").stream()
+                .map(Region::new)
+                .collect(toImmutableList());
+        this.reader = requireNonNull(reader, "reader is null");
+        this.manager = requireNonNull(manager, "manager is null");
+        this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
+
+        // the first region is read while the reader opens the file
+        if (!this.regions.isEmpty()) {
+            readAhead(0);
+        }
+    }
+
+    /**
+     * Copies the requested bytes from the data read ahead. Returns false if the bytes
+     * were not read ahead, in which case the caller must read them.
+     */
+    public boolean read(long position, byte[] buffer, int bufferOffset, int length)
+    {
+        int regionIndex = findRegion(position, length);
+        if (regionIndex < 0) {
+            return false;
+        }
+
+        if (regionIndex > currentRegion) {
+            for (int i = max(currentRegion, 0); i < regionIndex; i++) {
+                regions.get(i).release();
+            }
+            currentRegion = regionIndex;
+            if (regionIndex + 1 < regions.size()) {
+                readAhead(regionIndex + 1);
+            }
+        }
+        return regions.get(regionIndex).read(position, buffer, bufferOffset, length);
+    }
+
+    @Override
+    public void close()
+    {
+        for (Region region : regions) {
+            region.release();
+        }
+    }
+
+    private int findRegion(long position, int length)
+    {
+        if (currentRegion >= 0 && regions.get(currentRegion).contains(position, length)) {
+            return currentRegion;
+        }
+        for (int i = 0; i < regions.size(); i++) {
+            if (regions.get(i).contains(position, length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void readAhead(int regionIndex)
+    {
+        Region region = regions.get(regionIndex);
+        if (!region.isStarted() && manager.tryReserve(queryId, region.getSize())) {
+            region.start(manager.read(region.getRanges(), reader));
+            updateBufferedBytes(region.getSize());
+        }
+    }
+
+    private void updateBufferedBytes(long delta)
+    {
+        bufferedBytes += delta;
+        memoryContext.setBytes(bufferedBytes);
+    }
+
+    private class Region
+    {
+        private final List<DiskRange> ranges;
+        private final long size;
+        private boolean started;
+        private ListenableFuture<List<byte[]>> buffers;
+
+        public Region(List<DiskRange> ranges)
+        {
+            this.ranges = ImmutableList.copyOf(requireNonNull(ranges, "ranges is null"));
+            this.size = this.ranges.stream()
+                    .mapToLong(DiskRange::getLength)
+                    .sum();
+        }
+
+        public List<DiskRange> getRanges()
+        {
+            return ranges;
+        }
+
+        public long getSize()
+        {
+            return size;
+        }
+
+        public boolean isStarted()
+        {
+            return started;
+        }
+
+        public void start(ListenableFuture<List<byte[]>> buffers)
+        {
+            this.started = true;
+            this.buffers = buffers;
+        }
+
+        public boolean contains(long position, int length)
+        {
+            return indexOf(position, length) >= 0;
+        }
+
+        public boolean read(long position, byte[] buffer, int bufferOffset, int length)
+        {
+            if (buffers == null) {
+                return false;
+            }
+
+            boolean done = buffers.isDone();
+            long start = System.nanoTime();
+            List<byte[]> data;
+            try {
+                data = buffers.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            catch (ExecutionException | CancellationException e) {
+                // the caller reads the data again, and reports the error if it fails again
+                release();
+                return false;
+            }
+            if (done) {
+                manager.getStats().readAheadHit();
+            }
+            else {
+                manager.getStats().readAheadWait(System.nanoTime() - start);
+            }
+
+            int rangeIndex = indexOf(position, length);
+            DiskRange range = ranges.get(rangeIndex);
+            System.arraycopy(data.get(rangeIndex), toIntExact(position - range.getOffset()), buffer, bufferOffset, length);
+            return true;
+        }
+
+        public void release()
+        {
+            if (buffers == null) {
+                return;
+            }
+            // the read is not interrupted, since interrupting a read can close the underlying stream
+            buffers.cancel(false);
+            buffers = null;
+            manager.release(queryId, size);
+            updateBufferedBytes(-size);
+        }
+
+        private int indexOf(long position, int length)
+        {
+            for (int i = 0; i < ranges.size(); i++) {
+                DiskRange range = ranges.get(i);
+                if (range.getOffset() <= position && position + length <= range.getEnd()) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    public interface RangeReader
+    {
+        void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+                throws IOException;
+    }
+}
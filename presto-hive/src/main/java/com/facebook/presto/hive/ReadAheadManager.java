@@ -0,0 +1,133 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.ReadAheadBuffer.RangeReader;
+import com.facebook.presto.orc.DiskRange;
+import com.facebook.presto.orc.OrcLocalMemoryContext;
+import com.facebook.presto.spi.ConnectorSession;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.inject.Inject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.hive.HiveSessionProperties.isReadAheadEnabled;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the data of the next ORC stripe or Parquet row group of a file in the background,
+ * while the reader decodes the current one. The data that was read ahead and not yet consumed
+ * is limited per query, and the regions that do not fit are read by the reader as usual.
+ */
+public class ReadAheadManager
+{
+    /**
+     * The ranges of a region are merged with these limits, the defaults of the ORC reader.
+     */
+    public static final DataSize READ_AHEAD_MAX_MERGE_DISTANCE = new DataSize(1, MEGABYTE);
+    public static final DataSize READ_AHEAD_MAX_READ_SIZE = new DataSize(8, MEGABYTE);
+
+    public static final ReadAheadManager NO_READ_AHEAD = new ReadAheadManager(newDirectExecutorService(), new DataSize(0, BYTE), new FileFormatDataSourceStats());
+
+    private final ListeningExecutorService executor;
+    private final long maxInFlightBytesPerQuery;
+    private final FileFormatDataSourceStats stats;
+
+    @GuardedBy("this")
+    private final Map<String, Long> inFlightBytesByQuery = new HashMap<>();
+
+    @Inject
+    public ReadAheadManager(@ForReadAhead ListeningExecutorService executor, HiveClientConfig hiveClientConfig, FileFormatDataSourceStats stats)
+    {
+        this(executor, requireNonNull(hiveClientConfig, "hiveClientConfig is null").getReadAheadMaxInFlightSizePerQuery(), stats);
+    }
+
+    public ReadAheadManager(ListeningExecutorService executor, DataSize maxInFlightSizePerQuery, FileFormatDataSourceStats stats)
+    {
+        this.executor = requireNonNull(executor, "executor is null");
+        this.maxInFlightBytesPerQuery = requireNonNull(maxInFlightSizePerQuery, "maxInFlightSizePerQuery is null").toBytes();
+        this.stats = requireNonNull(stats, "stats is null");
+    }
+
+    public boolean isEnabled(ConnectorSession session)
+    {
+        return maxInFlightBytesPerQuery > 0 && isReadAheadEnabled(session);
+    }
+
+    /**
+     * Creates a buffer that reads the regions ahead, in order, with the given reader.
+     * Each region is the list of disk ranges that the reader reads for one stripe or row group.
+     * The bytes held by the buffer are reported to the memory context.
+     */
+    public Optional<ReadAheadBuffer> createReadAheadBuffer(ConnectorSession session, List<List<DiskRange>> regions, RangeReader reader, OrcLocalMemoryContext memoryContext)
+    {
+        if (regions.isEmpty() || !isEnabled(session)) {
+            return Optional.empty();
+        }
+        return Optional.of(new ReadAheadBuffer(session.getQueryId(), regions, reader, this, memoryContext));
+    }
+
+    ListenableFuture<List<byte[]>> read(List<DiskRange> ranges, RangeReader reader)
+    {
+        return executor.submit(() -> {
+            ImmutableList.Builder<byte[]> buffers = ImmutableList.builder();
+            for (DiskRange range : ranges) {
+                byte[] buffer = new byte[range.getLength()];
+                long start = System.nanoTime();
+                reader.readFully(range.getOffset(), buffer, 0, buffer.length);
+                stats.readDataBytesPerSecond(buffer.length, System.nanoTime() - start);
+                buffers.add(buffer);
+            }
+            return buffers.build();
+        });
+    }
+
+    synchronized boolean tryReserve(String queryId, long bytes)
+    {
+        long inFlightBytes = inFlightBytesByQuery.getOrDefault(queryId, 0L);
+        if (inFlightBytes + bytes > maxInFlightBytesPerQuery) {
+            stats.readAheadRejected();
+            return false;
+        }
+        inFlightBytesByQuery.put(queryId, inFlightBytes + bytes);
+        return true;
+    }
+
+    synchronized void release(String queryId, long bytes)
+    {
+        long inFlightBytes = inFlightBytesByQuery.getOrDefault(queryId, 0L) - bytes;
+        if (inFlightBytes <= 0) {
+            inFlightBytesByQuery.remove(queryId);
+        }
+        else {
+            inFlightBytesByQuery.put(queryId, inFlightBytes);
+        }
+    }
+
+    FileFormatDataSourceStats getStats()
+    {
+        return stats;
+    }
+}
@@ -25,6 +25,8 @@ import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HiveDwrfEncryptionProvider;
 import com.facebook.presto.hive.HiveFileContext;
 import com.facebook.presto.hive.HiveFileSplit;
+import com.facebook.presto.hive.MemoryMappedFiles;
+import com.facebook.presto.hive.ReadAheadManager;
 import com.facebook.presto.hive.metastore.Storage;
 import com.facebook.presto.orc.DwrfEncryptionProvider;
 import com.facebook.presto.orc.OrcReaderOptions;
@@ -64,6 +66,8 @@ public class DwrfBatchPageSourceFactory
     private final OrcFileTailSource orcFileTailSource;
     private final StripeMetadataSourceFactory stripeMetadataSourceFactory;
     private final DwrfEncryptionProvider dwrfEncryptionProvider;
+    private final ReadAheadManager readAheadManager;
+    private final MemoryMappedFiles memoryMappedFiles;
 
     @Inject
     public DwrfBatchPageSourceFactory(
@@ -74,7 +78,9 @@ public class DwrfBatchPageSourceFactory
             FileFormatDataSourceStats stats,
             OrcFileTailSource orcFileTailSource,
             StripeMetadataSourceFactory stripeMetadataSourceFactory,
-            HiveDwrfEncryptionProvider dwrfEncryptionProvider)
+            HiveDwrfEncryptionProvider dwrfEncryptionProvider,
+            ReadAheadManager readAheadManager,
+            MemoryMappedFiles memoryMappedFiles)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.functionResolution = requireNonNull(functionResolution, "functionResolution is null");
@@ -84,6 +90,8 @@ public class DwrfBatchPageSourceFactory
         this.orcFileTailSource = requireNonNull(orcFileTailSource, "orcFileTailSource is null");
         this.stripeMetadataSourceFactory = requireNonNull(stripeMetadataSourceFactory, "stripeMetadataSourceFactory is null");
         this.dwrfEncryptionProvider = requireNonNull(dwrfEncryptionProvider, "dwrfEncryptionProvider is null").toDwrfEncryptionProvider();
+        this.readAheadManager = requireNonNull(readAheadManager, "readAheadManager is null");
+        this.memoryMappedFiles = requireNonNull(memoryMappedFiles, "memoryMappedFiles is null");
     }
 
     @Override
@@ -121,6 +129,8 @@ public class DwrfBatchPageSourceFactory
                 typeManager,
                 false,
                 stats,
+                readAheadManager,
+                memoryMappedFiles,
                 domainCompactionThreshold,
                 orcFileTailSource,
                 stripeMetadataSourceFactory,
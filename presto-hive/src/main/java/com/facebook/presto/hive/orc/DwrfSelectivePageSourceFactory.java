@@ -28,6 +28,8 @@ import com.facebook.presto.hive.HiveDwrfEncryptionProvider;
 import com.facebook.presto.hive.HiveFileContext;
 import com.facebook.presto.hive.HiveFileSplit;
 import com.facebook.presto.hive.HiveSelectivePageSourceFactory;
+import com.facebook.presto.hive.MemoryMappedFiles;
+import com.facebook.presto.hive.ReadAheadManager;
 import com.facebook.presto.hive.metastore.Storage;
 import com.facebook.presto.orc.DwrfEncryptionProvider;
 import com.facebook.presto.orc.StripeMetadataSourceFactory;
@@ -35,6 +37,7 @@ import com.facebook.presto.orc.cache.OrcFileTailSource;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.function.StandardFunctionResolution;
 import com.facebook.presto.spi.relation.RowExpression;
 import com.facebook.presto.spi.relation.RowExpressionService;
@@ -66,6 +69,8 @@ public class DwrfSelectivePageSourceFactory
     private final StripeMetadataSourceFactory stripeMetadataSourceFactory;
     private final TupleDomainFilterCache tupleDomainFilterCache;
     private final DwrfEncryptionProvider dwrfEncryptionProvider;
+    private final ReadAheadManager readAheadManager;
+    private final MemoryMappedFiles memoryMappedFiles;
 
     @Inject
     public DwrfSelectivePageSourceFactory(
@@ -78,7 +83,9 @@ public class DwrfSelectivePageSourceFactory
             OrcFileTailSource orcFileTailSource,
             StripeMetadataSourceFactory stripeMetadataSourceFactory,
             TupleDomainFilterCache tupleDomainFilterCache,
-            HiveDwrfEncryptionProvider dwrfEncryptionProvider)
+            HiveDwrfEncryptionProvider dwrfEncryptionProvider,
+            ReadAheadManager readAheadManager,
+            MemoryMappedFiles memoryMappedFiles)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.functionResolution = requireNonNull(functionResolution, "functionResolution is null");
@@ -90,6 +97,8 @@ public class DwrfSelectivePageSourceFactory
         this.stripeMetadataSourceFactory = requireNonNull(stripeMetadataSourceFactory, "stripeMetadataSourceFactory is null");
         this.tupleDomainFilterCache = requireNonNull(tupleDomainFilterCache, "tupleDomainFilterCache is null");
         this.dwrfEncryptionProvider = requireNonNull(dwrfEncryptionProvider, "dwrfEncryptionProvider is null").toDwrfEncryptionProvider();
+        this.readAheadManager = requireNonNull(readAheadManager, "readAheadManager is null");
+        this.memoryMappedFiles = requireNonNull(memoryMappedFiles, "memoryMappedFiles is null");
     }
 
     @Override
@@ -98,6 +107,7 @@ public class DwrfSelectivePageSourceFactory
             ConnectorSession session,
             HiveFileSplit fileSplit,
             Storage storage,
+            SchemaTableName tableName,
             List<HiveColumnHandle> columns,
             Map<Integer, String> prefilledValues,
             Map<Integer, HiveCoercer> coercers,
@@ -141,6 +151,8 @@ public class DwrfSelectivePageSourceFactory
                 rowExpressionService,
                 false,
                 stats,
+                readAheadManager,
+                memoryMappedFiles,
                 domainCompactionThreshold,
                 orcFileTailSource,
                 stripeMetadataSourceFactory,
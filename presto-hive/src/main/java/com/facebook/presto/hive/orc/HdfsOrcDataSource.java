@@ -14,13 +14,20 @@
 package com.facebook.presto.hive.orc;
 
 import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.ReadAheadBuffer;
+import com.facebook.presto.hive.ReadAheadManager;
 import com.facebook.presto.orc.AbstractOrcDataSource;
+import com.facebook.presto.orc.DiskRange;
 import com.facebook.presto.orc.OrcDataSourceId;
+import com.facebook.presto.orc.OrcLocalMemoryContext;
+import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.fs.FSDataInputStream;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_MISSING_DATA;
@@ -33,6 +40,7 @@ public class HdfsOrcDataSource
 {
     private final FSDataInputStream inputStream;
     private final FileFormatDataSourceStats stats;
+    private Optional<ReadAheadBuffer> readAheadBuffer = Optional.empty();
 
     public HdfsOrcDataSource(
             OrcDataSourceId id,
@@ -49,10 +57,21 @@ public class HdfsOrcDataSource
         this.stats = requireNonNull(stats, "stats is null");
     }
 
+    /**
+     * Reads the given regions of the file ahead, one region at a time, if read-ahead is enabled for the session.
+     * The bytes read ahead are reported to the memory context.
+     */
+    public void startReadAhead(ReadAheadManager readAheadManager, ConnectorSession session, List<List<DiskRange>> regions, OrcLocalMemoryContext memoryContext)
+    {
+        readAheadBuffer.ifPresent(ReadAheadBuffer::close);
+        readAheadBuffer = readAheadManager.createReadAheadBuffer(session, regions, inputStream::readFully, memoryContext);
+    }
+
     @Override
     public void close()
             throws IOException
     {
+        readAheadBuffer.ifPresent(ReadAheadBuffer::close);
         inputStream.close();
     }
 
@@ -60,6 +79,9 @@ public class HdfsOrcDataSource
     protected void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
     {
         try {
+            if (readAheadBuffer.isPresent() && readAheadBuffer.get().read(position, buffer, bufferOffset, bufferLength)) {
+                return;
+            }
             long readStart = System.nanoTime();
             inputStream.readFully(position, buffer, bufferOffset, bufferLength);
             stats.readDataBytesPerSecond(bufferLength, System.nanoTime() - readStart);
@@ -25,6 +25,8 @@ import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HiveFileContext;
 import com.facebook.presto.hive.HiveFileSplit;
 import com.facebook.presto.hive.HiveOrcAggregatedMemoryContext;
+import com.facebook.presto.hive.MemoryMappedFiles;
+import com.facebook.presto.hive.ReadAheadManager;
 import com.facebook.presto.hive.metastore.Storage;
 import com.facebook.presto.orc.DwrfEncryptionProvider;
 import com.facebook.presto.orc.OrcAggregatedMemoryContext;
@@ -67,7 +69,9 @@ import static com.facebook.presto.hive.HiveUtil.checkRowIDPartitionComponent;
 import static com.facebook.presto.hive.HiveUtil.getPhysicalHiveColumnHandles;
 import static com.facebook.presto.hive.orc.OrcPageSourceFactoryUtils.getOrcDataSource;
 import static com.facebook.presto.hive.orc.OrcPageSourceFactoryUtils.getOrcReader;
+import static com.facebook.presto.hive.orc.OrcPageSourceFactoryUtils.isStripeReadAheadEnabled;
 import static com.facebook.presto.hive.orc.OrcPageSourceFactoryUtils.mapToPrestoException;
+import static com.facebook.presto.hive.orc.OrcPageSourceFactoryUtils.startStripeReadAhead;
 import static com.facebook.presto.orc.DwrfEncryptionProvider.NO_ENCRYPTION;
 import static com.facebook.presto.orc.OrcEncoding.ORC;
 import static com.facebook.presto.orc.OrcReader.INITIAL_BATCH_SIZE;
@@ -85,6 +89,8 @@ public class OrcBatchPageSourceFactory
     private final int domainCompactionThreshold;
     private final OrcFileTailSource orcFileTailSource;
     private final StripeMetadataSourceFactory stripeMetadataSourceFactory;
+    private final ReadAheadManager readAheadManager;
+    private final MemoryMappedFiles memoryMappedFiles;
 
     @Inject
     public OrcBatchPageSourceFactory(
@@ -94,7 +100,9 @@ public class OrcBatchPageSourceFactory
             HdfsEnvironment hdfsEnvironment,
             FileFormatDataSourceStats stats,
             OrcFileTailSource orcFileTailSource,
-            StripeMetadataSourceFactory stripeMetadataSourceFactory)
+            StripeMetadataSourceFactory stripeMetadataSourceFactory,
+            ReadAheadManager readAheadManager,
+            MemoryMappedFiles memoryMappedFiles)
     {
         this(
                 typeManager,
@@ -103,7 +111,9 @@ public class OrcBatchPageSourceFactory
                 stats,
                 config.getDomainCompactionThreshold(),
                 orcFileTailSource,
-                stripeMetadataSourceFactory);
+                stripeMetadataSourceFactory,
+                readAheadManager,
+                memoryMappedFiles);
     }
 
     public OrcBatchPageSourceFactory(
@@ -113,7 +123,9 @@ public class OrcBatchPageSourceFactory
             FileFormatDataSourceStats stats,
             int domainCompactionThreshold,
             OrcFileTailSource orcFileTailSource,
-            StripeMetadataSourceFactory stripeMetadataSourceFactory)
+            StripeMetadataSourceFactory stripeMetadataSourceFactory,
+            ReadAheadManager readAheadManager,
+            MemoryMappedFiles memoryMappedFiles)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.useOrcColumnNames = useOrcColumnNames;
@@ -122,6 +134,8 @@ public class OrcBatchPageSourceFactory
         this.domainCompactionThreshold = domainCompactionThreshold;
         this.orcFileTailSource = requireNonNull(orcFileTailSource, "orcFileTailSource is null");
         this.stripeMetadataSourceFactory = requireNonNull(stripeMetadataSourceFactory, "stripeMetadataSourceFactory is null");
+        this.readAheadManager = requireNonNull(readAheadManager, "readAheadManager is null");
+        this.memoryMappedFiles = requireNonNull(memoryMappedFiles, "memoryMappedFiles is null");
     }
 
     @Override
@@ -160,6 +174,8 @@ public class OrcBatchPageSourceFactory
                 typeManager,
                 isOrcBloomFiltersEnabled(session),
                 stats,
+                readAheadManager,
+                memoryMappedFiles,
                 domainCompactionThreshold,
                 orcFileTailSource,
                 stripeMetadataSourceFactory,
@@ -188,6 +204,8 @@ public class OrcBatchPageSourceFactory
             TypeManager typeManager,
             boolean orcBloomFiltersEnabled,
             FileFormatDataSourceStats stats,
+            ReadAheadManager readAheadManager,
+            MemoryMappedFiles memoryMappedFiles,
             int domainCompactionThreshold,
             OrcFileTailSource orcFileTailSource,
             StripeMetadataSourceFactory stripeMetadataSourceFactory,
@@ -201,7 +219,7 @@ public class OrcBatchPageSourceFactory
         checkArgument(domainCompactionThreshold >= 1, "domainCompactionThreshold must be at least 1");
         checkRowIDPartitionComponent(columns, rowIDPartitionComponent);
 
-        OrcDataSource orcDataSource = getOrcDataSource(session, fileSplit, hdfsEnvironment, configuration, hiveFileContext, stats);
+        OrcDataSource orcDataSource = getOrcDataSource(session, fileSplit, hdfsEnvironment, configuration, hiveFileContext, stats, memoryMappedFiles);
         Path path = new Path(fileSplit.getPath());
 
         OrcAggregatedMemoryContext systemMemoryUsage = new HiveOrcAggregatedMemoryContext();
@@ -240,6 +258,9 @@ public class OrcBatchPageSourceFactory
                     hiveStorageTimeZone,
                     systemMemoryUsage,
                     INITIAL_BATCH_SIZE);
+            if (isStripeReadAheadEnabled(orcDataSource, readAheadManager, session)) {
+                startStripeReadAhead(orcDataSource, readAheadManager, session, recordReader.getStripeDiskRanges(), systemMemoryUsage);
+            }
 
             byte[] partitionID = rowIDPartitionComponent.orElseGet(() -> new byte[0]);
             String rowGroupID = path.getName();
@@ -21,8 +21,14 @@ import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HiveFileContext;
 import com.facebook.presto.hive.HiveFileSplit;
 import com.facebook.presto.hive.HiveOrcAggregatedMemoryContext;
+import com.facebook.presto.hive.MemoryMappedFiles;
+import com.facebook.presto.hive.ReadAheadBuffer;
+import com.facebook.presto.hive.ReadAheadManager;
+import com.facebook.presto.orc.DiskRange;
 import com.facebook.presto.orc.DwrfEncryptionProvider;
 import com.facebook.presto.orc.DwrfKeyProvider;
+import com.facebook.presto.orc.MemoryMappedOrcDataSource;
+import com.facebook.presto.orc.OrcAggregatedMemoryContext;
 import com.facebook.presto.orc.OrcDataSource;
 import com.facebook.presto.orc.OrcDataSourceId;
 import com.facebook.presto.orc.OrcEncoding;
@@ -33,6 +39,7 @@ import com.facebook.presto.orc.cache.OrcFileTailSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
 import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
@@ -49,14 +56,26 @@ import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcMaxMerg
 import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcStreamBufferSize;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_MISSING_DATA;
+import static com.facebook.presto.hive.ReadAheadManager.READ_AHEAD_MAX_MERGE_DISTANCE;
+import static com.facebook.presto.hive.ReadAheadManager.READ_AHEAD_MAX_READ_SIZE;
+import static com.facebook.presto.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.nullToEmpty;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.lang.String.format;
 
 public class OrcPageSourceFactoryUtils
 {
     private OrcPageSourceFactoryUtils() {}
 
-    public static HdfsOrcDataSource getOrcDataSource(ConnectorSession session, HiveFileSplit fileSplit, HdfsEnvironment hdfsEnvironment, Configuration configuration, HiveFileContext hiveFileContext, FileFormatDataSourceStats stats)
+    public static OrcDataSource getOrcDataSource(
+            ConnectorSession session,
+            HiveFileSplit fileSplit,
+            HdfsEnvironment hdfsEnvironment,
+            Configuration configuration,
+            HiveFileContext hiveFileContext,
+            FileFormatDataSourceStats stats,
+            MemoryMappedFiles memoryMappedFiles)
     {
         DataSize maxMergeDistance = getOrcMaxMergeDistance(session);
         DataSize maxBufferSize = getOrcMaxBufferSize(session);
@@ -65,6 +84,17 @@ public class OrcPageSourceFactoryUtils
 
         Path path = new Path(fileSplit.getPath());
         try {
+            Optional<Slice> mapping = memoryMappedFiles.tryMap(session, hdfsEnvironment, path);
+            if (mapping.isPresent()) {
+                return new MemoryMappedOrcDataSource(new OrcDataSourceId(fileSplit.getPath()), mapping.get())
+                {
+                    @Override
+                    protected void recordRead(int length)
+                    {
+                        stats.readMemoryMappedBytes(length);
+                    }
+                };
+            }
             FSDataInputStream inputStream = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration).openFile(path, hiveFileContext);
             return new HdfsOrcDataSource(
                     new OrcDataSourceId(fileSplit.getPath()),
@@ -85,6 +115,38 @@ public class OrcPageSourceFactoryUtils
         }
     }
 
+    /**
+     * Returns true if the stripes of the file can be read ahead. Memory mapped files
+     * are not read ahead, since they are read from the page cache.
+     */
+    public static boolean isStripeReadAheadEnabled(OrcDataSource orcDataSource, ReadAheadManager readAheadManager, ConnectorSession session)
+    {
+        return orcDataSource instanceof HdfsOrcDataSource && readAheadManager.isEnabled(session);
+    }
+
+    /**
+     * Reads the projected streams of the stripes ahead, one stripe at a time. The streams of
+     * a stripe are merged into reads the same way as the column chunks of a Parquet row group.
+     * The bytes read ahead are reported to the system memory context of the page source.
+     */
+    public static void startStripeReadAhead(OrcDataSource orcDataSource, ReadAheadManager readAheadManager, ConnectorSession session, List<List<DiskRange>> stripeDiskRanges, OrcAggregatedMemoryContext systemMemoryUsage)
+    {
+        checkArgument(orcDataSource instanceof HdfsOrcDataSource, "stripes can only be read ahead from HDFS: %s", orcDataSource);
+        ((HdfsOrcDataSource) orcDataSource).startReadAhead(
+                readAheadManager,
+                session,
+                getStripeReadAheadRegions(stripeDiskRanges),
+                systemMemoryUsage.newOrcLocalMemoryContext(ReadAheadBuffer.class.getSimpleName()));
+    }
+
+    private static List<List<DiskRange>> getStripeReadAheadRegions(List<List<DiskRange>> stripeDiskRanges)
+    {
+        return stripeDiskRanges.stream()
+                .filter(ranges -> !ranges.isEmpty())
+                .map(ranges -> mergeAdjacentDiskRanges(ranges, READ_AHEAD_MAX_MERGE_DISTANCE, READ_AHEAD_MAX_READ_SIZE))
+                .collect(toImmutableList());
+    }
+
     private static String splitError(Throwable t, Path path, long start, long length)
     {
         return format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, t.getMessage());
@@ -23,7 +23,6 @@ import com.facebook.presto.common.relation.Predicate;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.common.type.TypeManager;
 import com.facebook.presto.expressions.DefaultRowExpressionTraversalVisitor;
-import com.facebook.presto.expressions.DynamicFilters.DynamicFilterExtractResult;
 import com.facebook.presto.hive.BucketAdaptation;
 import com.facebook.presto.hive.EncryptionInformation;
 import com.facebook.presto.hive.FileFormatDataSourceStats;
@@ -36,6 +35,8 @@ import com.facebook.presto.hive.HiveFileSplit;
 import com.facebook.presto.hive.HiveOrcAggregatedMemoryContext;
 import com.facebook.presto.hive.HiveSelectivePageSourceFactory;
 import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.hive.MemoryMappedFiles;
+import com.facebook.presto.hive.ReadAheadManager;
 import com.facebook.presto.hive.SubfieldExtractor;
 import com.facebook.presto.hive.metastore.Storage;
 import com.facebook.presto.orc.DwrfEncryptionProvider;
@@ -53,11 +54,10 @@ import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.function.StandardFunctionResolution;
 import com.facebook.presto.spi.relation.CallExpression;
-import com.facebook.presto.spi.relation.DeterminismEvaluator;
 import com.facebook.presto.spi.relation.InputReferenceExpression;
-import com.facebook.presto.spi.relation.PredicateCompiler;
 import com.facebook.presto.spi.relation.RowExpression;
 import com.facebook.presto.spi.relation.RowExpressionService;
 import com.facebook.presto.spi.relation.SpecialFormExpression;
@@ -78,12 +78,10 @@ import org.joda.time.DateTimeZone;
 import javax.inject.Inject;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -92,11 +90,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 
-import static com.facebook.presto.expressions.DynamicFilters.extractDynamicFilters;
-import static com.facebook.presto.expressions.LogicalRowExpressions.TRUE_CONSTANT;
 import static com.facebook.presto.expressions.LogicalRowExpressions.and;
-import static com.facebook.presto.expressions.LogicalRowExpressions.binaryExpression;
-import static com.facebook.presto.expressions.LogicalRowExpressions.extractConjuncts;
 import static com.facebook.presto.expressions.RowExpressionNodeInliner.replaceExpression;
 import static com.facebook.presto.hive.BaseHiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.HiveBucketing.getHiveBucket;
@@ -106,18 +100,19 @@ import static com.facebook.presto.hive.HiveCommonSessionProperties.getOrcTinyStr
 import static com.facebook.presto.hive.HiveCommonSessionProperties.isOrcBloomFiltersEnabled;
 import static com.facebook.presto.hive.HiveCommonSessionProperties.isOrcZstdJniDecompressionEnabled;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_BUCKET_FILES;
-import static com.facebook.presto.hive.HiveSessionProperties.isAdaptiveFilterReorderingEnabled;
+import static com.facebook.presto.hive.HiveFilterUtils.toFilterFunctions;
 import static com.facebook.presto.hive.HiveSessionProperties.isLegacyTimestampBucketing;
 import static com.facebook.presto.hive.HiveUtil.getPhysicalHiveColumnHandles;
 import static com.facebook.presto.hive.HiveUtil.typedPartitionKey;
 import static com.facebook.presto.hive.MetadataUtils.isEntireColumn;
 import static com.facebook.presto.hive.orc.OrcPageSourceFactoryUtils.getOrcDataSource;
 import static com.facebook.presto.hive.orc.OrcPageSourceFactoryUtils.getOrcReader;
+import static com.facebook.presto.hive.orc.OrcPageSourceFactoryUtils.isStripeReadAheadEnabled;
 import static com.facebook.presto.hive.orc.OrcPageSourceFactoryUtils.mapToPrestoException;
+import static com.facebook.presto.hive.orc.OrcPageSourceFactoryUtils.startStripeReadAhead;
 import static com.facebook.presto.orc.DwrfEncryptionProvider.NO_ENCRYPTION;
 import static com.facebook.presto.orc.OrcEncoding.ORC;
 import static com.facebook.presto.orc.OrcReader.INITIAL_BATCH_SIZE;
-import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.AND;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableBiMap.toImmutableBiMap;
@@ -140,6 +135,8 @@ public class OrcSelectivePageSourceFactory
     private final OrcFileTailSource orcFileTailSource;
     private final StripeMetadataSourceFactory stripeMetadataSourceFactory;
     private final TupleDomainFilterCache tupleDomainFilterCache;
+    private final ReadAheadManager readAheadManager;
+    private final MemoryMappedFiles memoryMappedFiles;
 
     @Inject
     public OrcSelectivePageSourceFactory(
@@ -151,7 +148,9 @@ public class OrcSelectivePageSourceFactory
             FileFormatDataSourceStats stats,
             OrcFileTailSource orcFileTailSource,
             StripeMetadataSourceFactory stripeMetadataSourceFactory,
-            TupleDomainFilterCache tupleDomainFilterCache)
+            TupleDomainFilterCache tupleDomainFilterCache,
+            ReadAheadManager readAheadManager,
+            MemoryMappedFiles memoryMappedFiles)
     {
         this(
                 typeManager,
@@ -163,7 +162,9 @@ public class OrcSelectivePageSourceFactory
                 config.getDomainCompactionThreshold(),
                 orcFileTailSource,
                 stripeMetadataSourceFactory,
-                tupleDomainFilterCache);
+                tupleDomainFilterCache,
+                readAheadManager,
+                memoryMappedFiles);
     }
 
     public OrcSelectivePageSourceFactory(
@@ -176,7 +177,9 @@ public class OrcSelectivePageSourceFactory
             int domainCompactionThreshold,
             OrcFileTailSource orcFileTailSource,
             StripeMetadataSourceFactory stripeMetadataSourceFactory,
-            TupleDomainFilterCache tupleDomainFilterCache)
+            TupleDomainFilterCache tupleDomainFilterCache,
+            ReadAheadManager readAheadManager,
+            MemoryMappedFiles memoryMappedFiles)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.functionResolution = requireNonNull(functionResolution, "functionResolution is null");
@@ -188,6 +191,8 @@ public class OrcSelectivePageSourceFactory
         this.orcFileTailSource = requireNonNull(orcFileTailSource, "orcFileTailCache is null");
         this.stripeMetadataSourceFactory = requireNonNull(stripeMetadataSourceFactory, "stripeMetadataSourceFactory is null");
         this.tupleDomainFilterCache = requireNonNull(tupleDomainFilterCache, "tupleDomainFilterCache is null");
+        this.readAheadManager = requireNonNull(readAheadManager, "readAheadManager is null");
+        this.memoryMappedFiles = requireNonNull(memoryMappedFiles, "memoryMappedFiles is null");
     }
 
     @Override
@@ -196,6 +201,7 @@ public class OrcSelectivePageSourceFactory
             ConnectorSession session,
             HiveFileSplit fileSplit,
             Storage storage,
+            SchemaTableName tableName,
             List<HiveColumnHandle> selectedColumns,
             Map<Integer, String> prefilledValues,
             Map<Integer, HiveCoercer> coercers,
@@ -238,6 +244,8 @@ public class OrcSelectivePageSourceFactory
                 rowExpressionService,
                 isOrcBloomFiltersEnabled(session),
                 stats,
+                readAheadManager,
+                memoryMappedFiles,
                 domainCompactionThreshold,
                 orcFileTailSource,
                 stripeMetadataSourceFactory,
@@ -269,6 +277,8 @@ public class OrcSelectivePageSourceFactory
             RowExpressionService rowExpressionService,
             boolean orcBloomFiltersEnabled,
             FileFormatDataSourceStats stats,
+            ReadAheadManager readAheadManager,
+            MemoryMappedFiles memoryMappedFiles,
             int domainCompactionThreshold,
             OrcFileTailSource orcFileTailSource,
             StripeMetadataSourceFactory stripeMetadataSourceFactory,
@@ -281,7 +291,7 @@ public class OrcSelectivePageSourceFactory
     {
         checkArgument(domainCompactionThreshold >= 1, "domainCompactionThreshold must be at least 1");
 
-        OrcDataSource orcDataSource = getOrcDataSource(session, fileSplit, hdfsEnvironment, configuration, hiveFileContext, stats);
+        OrcDataSource orcDataSource = getOrcDataSource(session, fileSplit, hdfsEnvironment, configuration, hiveFileContext, stats, memoryMappedFiles);
         Path path = new Path(fileSplit.getPath());
 
         boolean supplyRowIDs = selectedColumns.stream().anyMatch(column -> HiveColumnHandle.isRowIdColumnHandle(column));
@@ -382,6 +392,9 @@ public class OrcSelectivePageSourceFactory
                     systemMemoryUsage,
                     Optional.empty(),
                     INITIAL_BATCH_SIZE);
+            if (isStripeReadAheadEnabled(orcDataSource, readAheadManager, session)) {
+                startStripeReadAhead(orcDataSource, readAheadManager, session, recordReader.getStripeDiskRanges(), systemMemoryUsage);
+            }
 
             return new OrcSelectivePageSource(
                     recordReader,
@@ -581,69 +594,6 @@ public class OrcSelectivePageSourceFactory
         return new TupleDomainOrcPredicate<>(entireColumnDomains, columnReferences.build(), orcBloomFiltersEnabled, Optional.of(domainCompactionThreshold));
     }
 
-    /**
-     * Split filter expression into groups of conjuncts that depend on the same set of inputs,
-     * then compile each group into FilterFunction.
-     */
-    private static List<FilterFunction> toFilterFunctions(RowExpression filter, Optional<BucketAdapter> bucketAdapter, ConnectorSession session, DeterminismEvaluator determinismEvaluator, PredicateCompiler predicateCompiler)
-    {
-        ImmutableList.Builder<FilterFunction> filterFunctions = ImmutableList.builder();
-
-        bucketAdapter.map(predicate -> new FilterFunction(session.getSqlFunctionProperties(), true, predicate))
-                .ifPresent(filterFunctions::add);
-
-        if (TRUE_CONSTANT.equals(filter)) {
-            return filterFunctions.build();
-        }
-
-        DynamicFilterExtractResult extractDynamicFilterResult = extractDynamicFilters(filter);
-
-        // dynamic filter will be added through subfield pushdown
-        filter = and(extractDynamicFilterResult.getStaticConjuncts());
-
-        if (!isAdaptiveFilterReorderingEnabled(session)) {
-            filterFunctions.add(new FilterFunction(session.getSqlFunctionProperties(), determinismEvaluator.isDeterministic(filter), predicateCompiler.compilePredicate(session.getSqlFunctionProperties(), session.getSessionFunctions(), filter).get()));
-            return filterFunctions.build();
-        }
-
-        List<RowExpression> conjuncts = extractConjuncts(filter);
-        if (conjuncts.size() == 1) {
-            filterFunctions.add(new FilterFunction(session.getSqlFunctionProperties(), determinismEvaluator.isDeterministic(filter), predicateCompiler.compilePredicate(session.getSqlFunctionProperties(), session.getSessionFunctions(), filter).get()));
-            return filterFunctions.build();
-        }
-
-        // Use LinkedHashMap to preserve user-specified order of conjuncts. This will be the initial order in which filters are applied.
-        Map<Set<Integer>, List<RowExpression>> inputsToConjuncts = new LinkedHashMap<>();
-        for (RowExpression conjunct : conjuncts) {
-            inputsToConjuncts.computeIfAbsent(extractInputs(conjunct), k -> new ArrayList<>()).add(conjunct);
-        }
-
-        inputsToConjuncts.values().stream()
-                .map(expressions -> binaryExpression(AND, expressions))
-                .map(predicate -> new FilterFunction(session.getSqlFunctionProperties(), determinismEvaluator.isDeterministic(predicate), predicateCompiler.compilePredicate(session.getSqlFunctionProperties(), session.getSessionFunctions(), predicate).get()))
-                .forEach(filterFunctions::add);
-
-        return filterFunctions.build();
-    }
-
-    private static Set<Integer> extractInputs(RowExpression expression)
-    {
-        ImmutableSet.Builder<Integer> inputs = ImmutableSet.builder();
-        expression.accept(new InputReferenceBuilderVisitor(), inputs);
-        return inputs.build();
-    }
-
-    private static class InputReferenceBuilderVisitor
-            extends DefaultRowExpressionTraversalVisitor<ImmutableSet.Builder<Integer>>
-    {
-        @Override
-        public Void visitInputReference(InputReferenceExpression input, ImmutableSet.Builder<Integer> builder)
-        {
-            builder.add(input.getField());
-            return null;
-        }
-    }
-
     private static class BucketAdapter
             implements Predicate
     {
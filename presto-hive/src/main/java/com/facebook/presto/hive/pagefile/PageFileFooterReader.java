@@ -17,6 +17,7 @@ import com.facebook.presto.hive.HiveCompressionCodec;
 import com.facebook.presto.spi.PrestoException;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.FixedLengthSliceInput;
+import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import org.apache.hadoop.fs.FSDataInputStream;
 
@@ -48,13 +49,24 @@ public class PageFileFooterReader
             long fileSize)
             throws IOException
     {
-        checkArgument(fileSize >= FOOTER_LENGTH_IN_BYTES, "Malformed PageFile format, footer length is missing.");
-        requireNonNull(inputStream, "inputStream is null");
+        this(readFileTail(inputStream, fileSize), fileSize);
+    }
+
+    /**
+     * Reads the footer from the memory mapping of the whole file.
+     */
+    public PageFileFooterReader(Slice file)
+    {
+        this(file, file.length());
+    }
+
+    // the tail is the end of the file, and contains the whole footer unless the footer length is malformed
+    private PageFileFooterReader(Slice tail, long fileSize)
+    {
+        checkArgument(tail.length() >= FOOTER_LENGTH_IN_BYTES, "Malformed PageFile format, footer length is missing.");
         ImmutableList.Builder<Long> stripeOffsetsBuilder = ImmutableList.builder();
 
-        byte[] buffer = new byte[toIntExact(min(fileSize, ESTIMATED_FOOTER_SIZE))];
-        inputStream.readFully(fileSize - buffer.length, buffer);
-        int footerSize = Slices.wrappedBuffer(buffer, buffer.length - FOOTER_LENGTH_IN_BYTES, FOOTER_LENGTH_IN_BYTES).getInt(0);
+        int footerSize = tail.getInt(tail.length() - FOOTER_LENGTH_IN_BYTES);
 
         footerOffset = fileSize - footerSize;
         HiveCompressionCodec compression;
@@ -62,12 +74,7 @@ public class PageFileFooterReader
             throw new PrestoException(HIVE_BAD_DATA, "Malformed PageFile format, incorrect footer length.");
         }
         else if (footerOffset > 0) {
-            if (footerSize > buffer.length) {
-                buffer = new byte[footerSize];
-                inputStream.readFully(footerOffset, buffer);
-            }
-
-            FixedLengthSliceInput sliceInput = Slices.wrappedBuffer(buffer, buffer.length - footerSize, footerSize - FOOTER_LENGTH_IN_BYTES).getInput();
+            FixedLengthSliceInput sliceInput = tail.slice(tail.length() - footerSize, footerSize - FOOTER_LENGTH_IN_BYTES).getInput();
             long remainingSize = sliceInput.length();
             // read compression
             int compressionStringSize = sliceInput.readInt();
@@ -102,6 +109,23 @@ public class PageFileFooterReader
         stripeOffsets = stripeOffsetsBuilder.build();
     }
 
+    private static Slice readFileTail(FSDataInputStream inputStream, long fileSize)
+            throws IOException
+    {
+        checkArgument(fileSize >= FOOTER_LENGTH_IN_BYTES, "Malformed PageFile format, footer length is missing.");
+        requireNonNull(inputStream, "inputStream is null");
+
+        byte[] buffer = new byte[toIntExact(min(fileSize, ESTIMATED_FOOTER_SIZE))];
+        inputStream.readFully(fileSize - buffer.length, buffer);
+        int footerSize = Slices.wrappedBuffer(buffer, buffer.length - FOOTER_LENGTH_IN_BYTES, FOOTER_LENGTH_IN_BYTES).getInt(0);
+
+        if (footerSize > buffer.length && footerSize < fileSize) {
+            buffer = new byte[footerSize];
+            inputStream.readFully(fileSize - footerSize, buffer);
+        }
+        return Slices.wrappedBuffer(buffer);
+    }
+
     public List<Long> getStripeOffsets()
     {
         return stripeOffsets;
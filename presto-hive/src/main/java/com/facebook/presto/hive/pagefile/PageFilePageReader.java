@@ -17,6 +17,7 @@ import com.facebook.presto.common.Page;
 import com.facebook.presto.spi.page.PagesSerde;
 import com.facebook.presto.spi.page.SerializedPage;
 import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.Slice;
 import io.airlift.slice.SliceInput;
 import org.apache.hadoop.fs.FSDataInputStream;
 
@@ -25,6 +26,7 @@ import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 import static com.facebook.presto.spi.page.PagesSerdeUtil.readSerializedPage;
+import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 
 public class PageFilePageReader
@@ -48,6 +50,22 @@ public class PageFilePageReader
         this.input = new InputStreamSliceInput(inputStream);
     }
 
+    /**
+     * Reads the pages from the memory mapping of the whole file. The serialized pages are
+     * slices of the mapping, so the blocks of an uncompressed page can reference the mapping.
+     */
+    public PageFilePageReader(
+            long readStart,
+            long readLength,
+            Slice file,
+            PagesSerde pagesSerde)
+    {
+        this.pagesSerde = requireNonNull(pagesSerde, "pagesSerde is null");
+        this.readLength = readLength;
+        requireNonNull(file, "file is null");
+        this.input = file.slice(toIntExact(readStart), toIntExact(readLength)).getInput();
+    }
+
     @Override
     public boolean hasNext()
     {
@@ -19,11 +19,13 @@ import com.facebook.presto.common.block.BlockEncodingSerde;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.PrestoException;
+import io.airlift.slice.Slice;
 import org.apache.hadoop.fs.FSDataInputStream;
 
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.hive.pagefile.PageFileWriterFactory.createPagesSerdeForPageFile;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
@@ -33,7 +35,7 @@ import static java.util.Objects.requireNonNull;
 public class PageFilePageSource
         implements ConnectorPageSource
 {
-    private final FSDataInputStream inputStream;
+    private final Optional<FSDataInputStream> inputStream;
     private final Iterator<Page> pageReader;
     private final int[] hiveColumnIndexes;
 
@@ -52,7 +54,7 @@ public class PageFilePageSource
             List<HiveColumnHandle> columns)
             throws IOException
     {
-        this.inputStream = requireNonNull(inputStream, "inputStream is null");
+        this.inputStream = Optional.of(requireNonNull(inputStream, "inputStream is null"));
         PageFileFooterReader pageFileFooterReader = new PageFileFooterReader(inputStream, fileSize);
 
         OffsetAndLength readStartAndLength = getReadStartAndLength(
@@ -69,13 +71,38 @@ public class PageFilePageSource
                         blockEncodingSerde,
                         pageFileFooterReader.getCompression()));
 
-        int size = requireNonNull(columns, "columns is null").size();
-        this.hiveColumnIndexes = new int[size];
+        this.hiveColumnIndexes = getHiveColumnIndexes(columns);
+    }
 
-        for (int columnIndex = 0; columnIndex < size; columnIndex++) {
-            HiveColumnHandle column = columns.get(columnIndex);
-            hiveColumnIndexes[columnIndex] = column.getHiveColumnIndex();
-        }
+    /**
+     * Reads the split from the memory mapping of the whole file, which is not unmapped when
+     * the page source is closed, since the blocks of the pages can reference it.
+     */
+    public PageFilePageSource(
+            Slice file,
+            long start,
+            long splitLength,
+            BlockEncodingSerde blockEncodingSerde,
+            List<HiveColumnHandle> columns)
+    {
+        this.inputStream = Optional.empty();
+        PageFileFooterReader pageFileFooterReader = new PageFileFooterReader(requireNonNull(file, "file is null"));
+
+        OffsetAndLength readStartAndLength = getReadStartAndLength(
+                start,
+                splitLength,
+                pageFileFooterReader.getFooterOffset(),
+                pageFileFooterReader.getStripeOffsets());
+
+        pageReader = new PageFilePageReader(
+                readStartAndLength.getOffset(),
+                readStartAndLength.getLength(),
+                file,
+                createPagesSerdeForPageFile(
+                        blockEncodingSerde,
+                        pageFileFooterReader.getCompression()));
+
+        this.hiveColumnIndexes = getHiveColumnIndexes(columns);
     }
 
     @Override
@@ -140,10 +167,24 @@ public class PageFilePageSource
     public void close()
             throws IOException
     {
-        inputStream.close();
+        if (inputStream.isPresent()) {
+            inputStream.get().close();
+        }
         closed = true;
     }
 
+    private static int[] getHiveColumnIndexes(List<HiveColumnHandle> columns)
+    {
+        int size = requireNonNull(columns, "columns is null").size();
+        int[] hiveColumnIndexes = new int[size];
+
+        for (int columnIndex = 0; columnIndex < size; columnIndex++) {
+            HiveColumnHandle column = columns.get(columnIndex);
+            hiveColumnIndexes[columnIndex] = column.getHiveColumnIndex();
+        }
+        return hiveColumnIndexes;
+    }
+
     private static OffsetAndLength getReadStartAndLength(
             long splitStart,
             long splitLength,
@@ -21,11 +21,13 @@ import com.facebook.presto.hive.HiveBatchPageSourceFactory;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HiveFileContext;
 import com.facebook.presto.hive.HiveFileSplit;
+import com.facebook.presto.hive.MemoryMappedFiles;
 import com.facebook.presto.hive.metastore.Storage;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
+import io.airlift.slice.Slice;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.Path;
@@ -50,14 +52,17 @@ public class PageFilePageSourceFactory
 {
     private final HdfsEnvironment hdfsEnvironment;
     private final BlockEncodingSerde blockEncodingSerde;
+    private final MemoryMappedFiles memoryMappedFiles;
 
     @Inject
     public PageFilePageSourceFactory(
             HdfsEnvironment hdfsEnvironment,
-            BlockEncodingSerde blockEncodingSerde)
+            BlockEncodingSerde blockEncodingSerde,
+            MemoryMappedFiles memoryMappedFiles)
     {
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.memoryMappedFiles = requireNonNull(memoryMappedFiles, "memoryMappedFiles is null");
     }
 
     @Override
@@ -79,10 +84,14 @@ public class PageFilePageSourceFactory
             return Optional.empty();
         }
 
-        FSDataInputStream inputStream;
+        Optional<Slice> mapping;
+        FSDataInputStream inputStream = null;
         Path path = new Path(fileSplit.getPath());
         try {
-            inputStream = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration).openFile(path, hiveFileContext);
+            mapping = memoryMappedFiles.tryMap(session, hdfsEnvironment, path);
+            if (!mapping.isPresent()) {
+                inputStream = hdfsEnvironment.getFileSystem(session.getUser(), path, configuration).openFile(path, hiveFileContext);
+            }
         }
         catch (Exception e) {
             if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
@@ -93,12 +102,17 @@ public class PageFilePageSourceFactory
         }
 
         try {
+            if (mapping.isPresent()) {
+                return Optional.of(new PageFilePageSource(mapping.get(), fileSplit.getStart(), fileSplit.getLength(), blockEncodingSerde, columns));
+            }
             PageFilePageSource pageFilePageSource = new PageFilePageSource(inputStream, fileSplit.getStart(), fileSplit.getLength(), fileSplit.getFileSize(), blockEncodingSerde, columns);
             return Optional.of(pageFilePageSource);
         }
         catch (Throwable e) {
             try {
-                inputStream.close();
+                if (inputStream != null) {
+                    inputStream.close();
+                }
             }
             catch (IOException ignored) {
             }
@@ -14,8 +14,13 @@
 package com.facebook.presto.hive.parquet;
 
 import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.ReadAheadBuffer;
+import com.facebook.presto.hive.ReadAheadManager;
+import com.facebook.presto.orc.DiskRange;
+import com.facebook.presto.orc.OrcLocalMemoryContext;
 import com.facebook.presto.parquet.AbstractParquetDataSource;
 import com.facebook.presto.parquet.ParquetDataSourceId;
+import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
@@ -29,6 +34,7 @@ import org.apache.parquet.internal.hadoop.metadata.IndexReference;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
@@ -42,6 +48,7 @@ public class HdfsParquetDataSource
 {
     private final FSDataInputStream inputStream;
     private final FileFormatDataSourceStats stats;
+    private Optional<ReadAheadBuffer> readAheadBuffer = Optional.empty();
 
     public HdfsParquetDataSource(ParquetDataSourceId id, FSDataInputStream inputStream, FileFormatDataSourceStats stats)
     {
@@ -50,10 +57,21 @@ public class HdfsParquetDataSource
         this.inputStream = requireNonNull(inputStream, "inputStream is null");
     }
 
+    /**
+     * Reads the given regions of the file ahead, one region at a time, if read-ahead is enabled for the session.
+     * The bytes read ahead are reported to the memory context.
+     */
+    public void startReadAhead(ReadAheadManager readAheadManager, ConnectorSession session, List<List<DiskRange>> regions, OrcLocalMemoryContext memoryContext)
+    {
+        readAheadBuffer.ifPresent(ReadAheadBuffer::close);
+        readAheadBuffer = readAheadManager.createReadAheadBuffer(session, regions, inputStream::readFully, memoryContext);
+    }
+
     @Override
     public void close()
             throws IOException
     {
+        readAheadBuffer.ifPresent(ReadAheadBuffer::close);
         inputStream.close();
     }
 
@@ -61,6 +79,9 @@ public class HdfsParquetDataSource
     protected void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
     {
         try {
+            if (readAheadBuffer.isPresent() && readAheadBuffer.get().read(position, buffer, bufferOffset, bufferLength)) {
+                return;
+            }
             long start = System.nanoTime();
             inputStream.readFully(position, buffer, bufferOffset, bufferLength);
             stats.readDataBytesPerSecond(bufferLength, System.nanoTime() - start);
@@ -0,0 +1,116 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.parquet.AbstractParquetDataSource;
+import com.facebook.presto.parquet.ParquetDataSourceId;
+import com.facebook.presto.spi.PrestoException;
+import io.airlift.slice.BasicSliceInput;
+import io.airlift.slice.Slice;
+import org.apache.parquet.format.Util;
+import org.apache.parquet.format.converter.ParquetMetadataConverter;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.internal.column.columnindex.ColumnIndex;
+import org.apache.parquet.internal.column.columnindex.OffsetIndex;
+import org.apache.parquet.internal.hadoop.metadata.IndexReference;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.toIntExact;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads a local file through its read-only memory mapping. The column chunks are returned as
+ * slices of the mapping, so their pages are decompressed straight from the page cache instead of
+ * being copied to the heap first. Only the footer and the column chunks that are filtered with a
+ * column index are copied. The mapping is not unmapped when the data source is closed.
+ */
+public class MemoryMappedParquetDataSource
+        extends AbstractParquetDataSource
+{
+    private final FileFormatDataSourceStats stats;
+    private Slice mapping;
+
+    public MemoryMappedParquetDataSource(ParquetDataSourceId id, Slice mapping, FileFormatDataSourceStats stats)
+    {
+        super(id);
+        this.mapping = requireNonNull(mapping, "mapping is null");
+        this.stats = requireNonNull(stats, "stats is null");
+    }
+
+    @Override
+    public void close()
+    {
+        mapping = null;
+    }
+
+    @Override
+    protected void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength)
+    {
+        checkState(mapping != null, "data source is closed");
+        try {
+            long start = System.nanoTime();
+            mapping.getBytes(toIntExact(position), buffer, bufferOffset, bufferLength);
+            stats.readDataBytesPerSecond(bufferLength, System.nanoTime() - start);
+            stats.readMemoryMappedBytes(bufferLength);
+        }
+        catch (IndexOutOfBoundsException | ArithmeticException e) {
+            throw new PrestoException(HIVE_FILESYSTEM_ERROR, format("Error reading from %s at position %s", getId(), position), e);
+        }
+    }
+
+    @Override
+    protected Optional<Slice> getSliceInternal(long position, int length)
+    {
+        checkState(mapping != null, "data source is closed");
+        if (position < 0 || position + length > mapping.length()) {
+            throw new PrestoException(HIVE_FILESYSTEM_ERROR, format("Error reading from %s at position %s", getId(), position));
+        }
+        stats.readMemoryMappedBytes(length);
+        return Optional.of(mapping.slice(toIntExact(position), length));
+    }
+
+    @Override
+    public Optional<ColumnIndex> readColumnIndex(ColumnChunkMetaData column)
+            throws IOException
+    {
+        IndexReference indexRef = column.getColumnIndexReference();
+        if (indexRef == null) {
+            return Optional.empty();
+        }
+        return Optional.of(ParquetMetadataConverter.fromParquetColumnIndex(column.getPrimitiveType(), Util.readColumnIndex(getInput(indexRef))));
+    }
+
+    @Override
+    public Optional<OffsetIndex> readOffsetIndex(ColumnChunkMetaData column)
+            throws IOException
+    {
+        IndexReference indexRef = column.getOffsetIndexReference();
+        if (indexRef == null) {
+            return Optional.empty();
+        }
+        return Optional.of(ParquetMetadataConverter.fromParquetOffsetIndex(Util.readOffsetIndex(getInput(indexRef))));
+    }
+
+    private BasicSliceInput getInput(IndexReference indexRef)
+    {
+        checkState(mapping != null, "data source is closed");
+        return mapping.slice(toIntExact(indexRef.getOffset()), indexRef.getLength()).getInput();
+    }
+}
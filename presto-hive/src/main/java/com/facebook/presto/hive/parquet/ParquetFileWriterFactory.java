@@ -27,6 +27,7 @@ import com.facebook.presto.parquet.writer.ParquetWriterOptions;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.PrestoException;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -48,6 +49,7 @@ import static com.facebook.presto.hive.HiveSessionProperties.getParquetWriterPag
 import static com.facebook.presto.hive.HiveSessionProperties.getParquetWriterVersion;
 import static com.facebook.presto.hive.HiveSessionProperties.isParquetOptimizedWriterEnabled;
 import static com.facebook.presto.hive.HiveType.toHiveTypes;
+import static com.facebook.presto.parquet.writer.ParquetWriterOptions.DEFAULT_BLOOM_FILTER_FPP;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMNS;
@@ -56,6 +58,18 @@ import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_
 public class ParquetFileWriterFactory
         implements HiveFileWriterFactory
 {
+    /**
+     * A comma separated list of column names, stored in the table properties,
+     * indicating which columns should have Bloom filters. Only used for Parquet.
+     */
+    public static final String PARQUET_BLOOM_FILTER_COLUMNS_KEY = "parquet.bloom.filter.columns";
+
+    /**
+     * A double value, stored in the table properties as a string, indicating
+     * the false positive probability of the Bloom filters.
+     */
+    public static final String PARQUET_BLOOM_FILTER_FPP_KEY = "parquet.bloom.filter.fpp";
+
     private final HdfsEnvironment hdfsEnvironment;
     private final TypeManager typeManager;
 
@@ -105,6 +119,8 @@ public class ParquetFileWriterFactory
                 .setMaxPageSize(getParquetWriterPageSize(session))
                 .setMaxBlockSize(getParquetWriterBlockSize(session))
                 .setWriterVersion(getParquetWriterVersion(session))
+                .setBloomFilterColumns(ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(schema.getProperty(PARQUET_BLOOM_FILTER_COLUMNS_KEY, ""))))
+                .setBloomFilterFpp(Double.parseDouble(schema.getProperty(PARQUET_BLOOM_FILTER_FPP_KEY, String.valueOf(DEFAULT_BLOOM_FILTER_FPP))))
                 .build();
 
         CompressionCodecName compressionCodecName = getCompression(conf);
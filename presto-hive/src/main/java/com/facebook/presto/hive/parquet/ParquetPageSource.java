@@ -57,6 +57,8 @@ public class ParquetPageSource
     private final List<Boolean> rowIndexLocations;
 
     private int batchId;
+    // the loaders of the lazy blocks of the last page, by channel
+    private ParquetBlockLoader[] blockLoaders = new ParquetBlockLoader[0];
     private long completedPositions;
     private boolean closed;
 
@@ -149,6 +151,7 @@ public class ParquetPageSource
             completedPositions += batchSize;
 
             Block[] blocks = new Block[fields.size()];
+            blockLoaders = new ParquetBlockLoader[fields.size()];
             for (int fieldId = 0; fieldId < blocks.length; fieldId++) {
                 if (isIndexColumn(fieldId)) {
                     blocks[fieldId] = getRowIndexColumn(parquetReader.lastBatchStartRow(), batchSize);
@@ -156,7 +159,8 @@ public class ParquetPageSource
                 else {
                     Optional<Field> field = fields.get(fieldId);
                     if (field.isPresent()) {
-                        blocks[fieldId] = new LazyBlock(batchSize, new ParquetBlockLoader(field.get()));
+                        blockLoaders[fieldId] = new ParquetBlockLoader(field.get());
+                        blocks[fieldId] = new LazyBlock(batchSize, blockLoaders[fieldId]);
                     }
                     else {
                         blocks[fieldId] = RunLengthEncodedBlock.create(types.get(fieldId), null, batchSize);
@@ -175,6 +179,21 @@ public class ParquetPageSource
         }
     }
 
+    /**
+     * Returns the values at the given positions, in increasing order, of a channel of the last page returned.
+     * A column that was not loaded yet is only read for these positions, so that the column reader skips the
+     * values at the other positions instead of decoding them, and its block in the page can not be loaded anymore.
+     */
+    public Block getPositions(Page page, int channel, int[] positions, int positionCount)
+    {
+        ParquetBlockLoader blockLoader = blockLoaders[channel];
+        if (blockLoader == null || blockLoader.loaded) {
+            Block block = page.getBlock(channel);
+            return positionCount == page.getPositionCount() ? block : block.getPositions(positions, 0, positionCount);
+        }
+        return blockLoader.loadPositions(positions, positionCount);
+    }
+
     private void closeWithSuppression(Throwable throwable)
     {
         requireNonNull(throwable, "throwable is null");
@@ -211,6 +230,7 @@ public class ParquetPageSource
         private final int expectedBatchId = batchId;
         private final Field field;
         private boolean loaded;
+        private boolean loadedPositions;
 
         public ParquetBlockLoader(Field field)
         {
@@ -225,6 +245,7 @@ public class ParquetPageSource
             }
 
             checkState(batchId == expectedBatchId);
+            checkState(!loadedPositions, "column was already read for a subset of the positions");
 
             try {
                 Block block = parquetReader.readBlock(field);
@@ -238,6 +259,24 @@ public class ParquetPageSource
             }
             loaded = true;
         }
+
+        public Block loadPositions(int[] positions, int positionCount)
+        {
+            checkState(batchId == expectedBatchId);
+            checkState(!loadedPositions, "column was already read for a subset of the positions");
+
+            try {
+                Block block = parquetReader.readBlock(field, positions, positionCount);
+                loadedPositions = true;
+                return block;
+            }
+            catch (ParquetCorruptionException e) {
+                throw new PrestoException(HIVE_BAD_DATA, e);
+            }
+            catch (IOException e) {
+                throw new PrestoException(HIVE_CURSOR_ERROR, e);
+            }
+        }
     }
 
     private boolean isIndexColumn(int column)
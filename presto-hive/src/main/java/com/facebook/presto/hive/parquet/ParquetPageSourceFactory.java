@@ -27,13 +27,20 @@ import com.facebook.presto.hive.HiveBatchPageSourceFactory;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HiveFileContext;
 import com.facebook.presto.hive.HiveFileSplit;
+import com.facebook.presto.hive.HiveOrcLocalMemoryContext;
 import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.hive.MemoryMappedFiles;
+import com.facebook.presto.hive.ReadAheadBuffer;
+import com.facebook.presto.hive.ReadAheadManager;
 import com.facebook.presto.hive.metastore.Storage;
 import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.facebook.presto.orc.DiskRange;
 import com.facebook.presto.parquet.Field;
 import com.facebook.presto.parquet.ParquetDataSource;
+import com.facebook.presto.parquet.ParquetDataSourceId;
 import com.facebook.presto.parquet.RichColumnDescriptor;
 import com.facebook.presto.parquet.cache.ParquetMetadataSource;
+import com.facebook.presto.parquet.predicate.BloomFilterStore;
 import com.facebook.presto.parquet.predicate.Predicate;
 import com.facebook.presto.parquet.reader.ColumnIndexFilterUtils;
 import com.facebook.presto.parquet.reader.ParquetReader;
@@ -45,6 +52,7 @@ import com.facebook.presto.spi.function.StandardFunctionResolution;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slice;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.Path;
@@ -68,6 +76,7 @@ import javax.inject.Inject;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -103,9 +112,13 @@ import static com.facebook.presto.hive.HiveCommonSessionProperties.isParquetBatc
 import static com.facebook.presto.hive.HiveCommonSessionProperties.isUseParquetColumnNames;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_SCHEMA_MISMATCH;
 import static com.facebook.presto.hive.HiveSessionProperties.columnIndexFilterEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isParquetBloomFilterEnabled;
+import static com.facebook.presto.hive.ReadAheadManager.READ_AHEAD_MAX_MERGE_DISTANCE;
+import static com.facebook.presto.hive.ReadAheadManager.READ_AHEAD_MAX_READ_SIZE;
 import static com.facebook.presto.hive.parquet.HdfsParquetDataSource.buildHdfsParquetDataSource;
 import static com.facebook.presto.hive.parquet.ParquetPageSourceFactoryUtils.mapToPrestoException;
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
 import static com.facebook.presto.parquet.ParquetTypeUtils.columnPathFromSubfield;
 import static com.facebook.presto.parquet.ParquetTypeUtils.getColumnIO;
 import static com.facebook.presto.parquet.ParquetTypeUtils.getDescriptors;
@@ -116,6 +129,8 @@ import static com.facebook.presto.parquet.ParquetTypeUtils.nestedColumnPath;
 import static com.facebook.presto.parquet.predicate.PredicateUtils.buildPredicate;
 import static com.facebook.presto.parquet.predicate.PredicateUtils.predicateMatches;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category.PRIMITIVE;
@@ -151,19 +166,25 @@ public class ParquetPageSourceFactory
     private final HdfsEnvironment hdfsEnvironment;
     private final FileFormatDataSourceStats stats;
     private final ParquetMetadataSource parquetMetadataSource;
+    private final ReadAheadManager readAheadManager;
+    private final MemoryMappedFiles memoryMappedFiles;
 
     @Inject
     public ParquetPageSourceFactory(TypeManager typeManager,
             StandardFunctionResolution functionResolution,
             HdfsEnvironment hdfsEnvironment,
             FileFormatDataSourceStats stats,
-            ParquetMetadataSource parquetMetadataSource)
+            ParquetMetadataSource parquetMetadataSource,
+            ReadAheadManager readAheadManager,
+            MemoryMappedFiles memoryMappedFiles)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.functionResolution = requireNonNull(functionResolution, "functionResolution is null");
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.stats = requireNonNull(stats, "stats is null");
         this.parquetMetadataSource = requireNonNull(parquetMetadataSource, "parquetMetadataSource is null");
+        this.readAheadManager = requireNonNull(readAheadManager, "readAheadManager is null");
+        this.memoryMappedFiles = requireNonNull(memoryMappedFiles, "memoryMappedFiles is null");
     }
 
     public static ConnectorPageSource createParquetPageSource(
@@ -177,6 +198,8 @@ public class ParquetPageSourceFactory
             StandardFunctionResolution functionResolution,
             TupleDomain<HiveColumnHandle> effectivePredicate,
             FileFormatDataSourceStats stats,
+            ReadAheadManager readAheadManager,
+            MemoryMappedFiles memoryMappedFiles,
             HiveFileContext hiveFileContext,
             ParquetMetadataSource parquetMetadataSource)
     {
@@ -190,9 +213,16 @@ public class ParquetPageSourceFactory
         ParquetDataSource dataSource = null;
         Path path = new Path(fileSplit.getPath());
         try {
-            FSDataInputStream inputStream = hdfsEnvironment.getFileSystem(user, path, configuration).openFile(path, hiveFileContext);
+            Optional<Slice> mapping = memoryMappedFiles.tryMap(session, hdfsEnvironment, path);
             // Lambda expression below requires final variable, so we define a new variable parquetDataSource.
-            final ParquetDataSource parquetDataSource = buildHdfsParquetDataSource(inputStream, path, stats);
+            final ParquetDataSource parquetDataSource;
+            if (mapping.isPresent()) {
+                parquetDataSource = new MemoryMappedParquetDataSource(new ParquetDataSourceId(path.toString()), mapping.get(), stats);
+            }
+            else {
+                FSDataInputStream inputStream = hdfsEnvironment.getFileSystem(user, path, configuration).openFile(path, hiveFileContext);
+                parquetDataSource = buildHdfsParquetDataSource(inputStream, path, stats);
+            }
             dataSource = parquetDataSource;
             Optional<InternalFileDecryptor> fileDecryptor = createDecryptor(configuration, path);
             ParquetMetadata parquetMetadata = hdfsEnvironment.doAs(user, () -> parquetMetadataSource.getParquetMetadata(
@@ -231,6 +261,10 @@ public class ParquetPageSourceFactory
             TupleDomain<ColumnDescriptor> parquetTupleDomain = getParquetTupleDomain(descriptorsByPath, effectivePredicate);
             Predicate parquetPredicate = buildPredicate(requestedSchema, parquetTupleDomain, descriptorsByPath);
             final ParquetDataSource finalDataSource = dataSource;
+            // the Bloom filters of encrypted files are encrypted as well
+            Optional<BloomFilterStore> bloomFilterStore = isParquetBloomFilterEnabled(session) && !fileDecryptor.isPresent()
+                    ? Optional.of(new BloomFilterStore(parquetMetadataSource, finalDataSource, hiveFileContext.isCacheable(), hiveFileContext.getModificationTime()))
+                    : Optional.empty();
             ImmutableList.Builder<BlockMetaData> blocks = ImmutableList.builder();
             List<ColumnIndexStore> blockIndexStores = new ArrayList<>();
 
@@ -238,7 +272,7 @@ public class ParquetPageSourceFactory
             ImmutableList.Builder<Long> blockStarts = ImmutableList.builder();
             for (BlockMetaData block : footerBlocks.build()) {
                 Optional<ColumnIndexStore> columnIndexStore = ColumnIndexFilterUtils.getColumnIndexStore(parquetPredicate, finalDataSource, block, descriptorsByPath, columnIndexFilterEnabled);
-                if (predicateMatches(parquetPredicate, block, finalDataSource, descriptorsByPath, parquetTupleDomain, columnIndexStore, columnIndexFilterEnabled, Optional.of(session.getWarningCollector()))) {
+                if (predicateMatches(parquetPredicate, block, finalDataSource, descriptorsByPath, parquetTupleDomain, columnIndexStore, columnIndexFilterEnabled, Optional.of(session.getWarningCollector()), bloomFilterStore)) {
                     blocks.add(block);
                     blockStarts.add(nextStart);
                     blockIndexStores.add(columnIndexStore.orElse(null));
@@ -253,10 +287,19 @@ public class ParquetPageSourceFactory
                 }
                 nextStart += block.getRowCount();
             }
+            List<BlockMetaData> selectedBlocks = blocks.build();
+            // memory mapped files are read from the page cache, so they are not read ahead
+            if (parquetDataSource instanceof HdfsParquetDataSource) {
+                ((HdfsParquetDataSource) parquetDataSource).startReadAhead(
+                        readAheadManager,
+                        session,
+                        getRowGroupReadAheadRegions(selectedBlocks, descriptorsByPath),
+                        new HiveOrcLocalMemoryContext(systemMemoryContext.newLocalMemoryContext(ReadAheadBuffer.class.getSimpleName())));
+            }
             MessageColumnIO messageColumnIO = getColumnIO(fileSchema, requestedSchema);
             ParquetReader parquetReader = new ParquetReader(
                     messageColumnIO,
-                    blocks.build(),
+                    selectedBlocks,
                     Optional.of(blockStarts.build()),
                     dataSource,
                     systemMemoryContext,
@@ -321,6 +364,24 @@ public class ParquetPageSourceFactory
         }
     }
 
+    // one region per row group, with the column chunks that are read merged the same way as the ORC reader merges its streams
+    private static List<List<DiskRange>> getRowGroupReadAheadRegions(List<BlockMetaData> blocks, Map<List<String>, RichColumnDescriptor> descriptorsByPath)
+    {
+        ImmutableList.Builder<List<DiskRange>> regions = ImmutableList.builder();
+        for (BlockMetaData block : blocks) {
+            List<DiskRange> ranges = block.getColumns().stream()
+                    .filter(column -> !isHiddenColumn(column))
+                    .filter(column -> descriptorsByPath.containsKey(Arrays.asList(column.getPath().toArray())))
+                    .filter(column -> column.getTotalSize() <= Integer.MAX_VALUE)
+                    .map(column -> new DiskRange(column.getStartingPos(), toIntExact(column.getTotalSize())))
+                    .collect(toImmutableList());
+            if (!ranges.isEmpty()) {
+                regions.add(mergeAdjacentDiskRanges(ranges, READ_AHEAD_MAX_MERGE_DISTANCE, READ_AHEAD_MAX_READ_SIZE));
+            }
+        }
+        return regions.build();
+    }
+
     public static TupleDomain<ColumnDescriptor> getParquetTupleDomain(Map<List<String>, RichColumnDescriptor> descriptorsByPath, TupleDomain<HiveColumnHandle> effectivePredicate)
     {
         if (effectivePredicate.isNone()) {
@@ -530,6 +591,8 @@ public class ParquetPageSourceFactory
                 functionResolution,
                 effectivePredicate,
                 stats,
+                readAheadManager,
+                memoryMappedFiles,
                 hiveFileContext,
                 parquetMetadataSource));
     }
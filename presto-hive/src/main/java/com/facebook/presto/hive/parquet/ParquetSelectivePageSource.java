@@ -0,0 +1,415 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.LazyBlock;
+import com.facebook.presto.common.block.RunLengthEncodedBlock;
+import com.facebook.presto.common.predicate.FilterFunction;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.hive.HiveCoercer;
+import com.facebook.presto.spi.ConnectorPageSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.hive.HiveFilterUtils.filterBlock;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Applies the pushed down filters to the pages of a {@link ParquetPageSource}.
+ * <p>
+ * Columns are only decoded when they are needed: the filter columns are decoded one at a time in
+ * the order of the filters, and the remaining columns are left as lazy blocks, so they are never
+ * decoded for batches without matching rows. Each column is only read for the positions that passed
+ * the previous filters, and the column readers skip the values at the other positions where they
+ * can. With adaptive filter reordering, the filters that drop the most rows per unit of time are
+ * applied first.
+ */
+public class ParquetSelectivePageSource
+        implements ConnectorPageSource
+{
+    private final ConnectorPageSource delegate;
+    // the Parquet page source can read a column for a subset of the positions of a page
+    private final Optional<ParquetPageSource> parquetPageSource;
+    // per column: the channel of the delegate, or -1 if the column is prefilled
+    private final int[] delegateChannels;
+    // per column: the type of the values in the file
+    private final Type[] fileTypes;
+    private final Block[] prefilledValues;
+    private final HiveCoercer[] coercers;
+    private final List<DomainFilter> domainFilters;
+    private final List<FilterFunctionWithStats> filterFunctions;
+    private final int[] outputColumns;
+    private final boolean reorderFilters;
+
+    public ParquetSelectivePageSource(
+            ConnectorPageSource delegate,
+            int[] delegateChannels,
+            Type[] fileTypes,
+            Block[] prefilledValues,
+            HiveCoercer[] coercers,
+            Map<Integer, TupleDomainFilter> domainFilters,
+            List<FilterFunction> filterFunctions,
+            int[] outputColumns,
+            boolean reorderFilters)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.parquetPageSource = delegate instanceof ParquetPageSource ? Optional.of((ParquetPageSource) delegate) : Optional.empty();
+        this.delegateChannels = requireNonNull(delegateChannels, "delegateChannels is null");
+        this.fileTypes = requireNonNull(fileTypes, "fileTypes is null");
+        this.prefilledValues = requireNonNull(prefilledValues, "prefilledValues is null");
+        this.coercers = requireNonNull(coercers, "coercers is null");
+        checkArgument(fileTypes.length == delegateChannels.length && prefilledValues.length == delegateChannels.length && coercers.length == delegateChannels.length, "column arrays must have the same length");
+
+        this.domainFilters = new ArrayList<>();
+        requireNonNull(domainFilters, "domainFilters is null").forEach((column, filter) -> this.domainFilters.add(new DomainFilter(column, filter)));
+        this.filterFunctions = new ArrayList<>();
+        requireNonNull(filterFunctions, "filterFunctions is null").forEach(function -> this.filterFunctions.add(new FilterFunctionWithStats(function)));
+        this.outputColumns = requireNonNull(outputColumns, "outputColumns is null");
+        this.reorderFilters = reorderFilters;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        Page page = delegate.getNextPage();
+        if (page == null || page.getPositionCount() == 0) {
+            return page;
+        }
+
+        int batchSize = page.getPositionCount();
+        ColumnValues[] columnValues = new ColumnValues[delegateChannels.length];
+
+        int positionCount = batchSize;
+        int[] positions = new int[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            positions[i] = i;
+        }
+        // the filters are applied to blocks that only contain the values at the remaining positions
+        int[] blockPositions = new int[batchSize];
+
+        for (DomainFilter domainFilter : domainFilters) {
+            int column = domainFilter.getColumn();
+            Block block = getColumnValues(page, columnValues, column, positions, positionCount).getFileBlock(positions, positionCount);
+            long start = System.nanoTime();
+            int inputPositionCount = positionCount;
+            setIdentityPositions(blockPositions, positionCount);
+            positionCount = filterBlock(block, fileTypes[column], domainFilter.getFilter(), blockPositions, positionCount);
+            selectPositions(positions, blockPositions, positionCount);
+            domainFilter.getStats().update(inputPositionCount, positionCount, System.nanoTime() - start);
+            if (positionCount == 0) {
+                return finishBatch();
+            }
+        }
+
+        if (!filterFunctions.isEmpty()) {
+            RuntimeException[] errors = new RuntimeException[positionCount];
+            for (FilterFunctionWithStats functionWithStats : filterFunctions) {
+                FilterFunction function = functionWithStats.getFunction();
+                int[] inputs = function.getInputChannels();
+                Block[] inputBlocks = new Block[inputs.length];
+                for (int i = 0; i < inputs.length; i++) {
+                    inputBlocks[i] = getColumnValues(page, columnValues, inputs[i], positions, positionCount).getBlock(positions, positionCount);
+                }
+
+                long start = System.nanoTime();
+                int inputPositionCount = positionCount;
+                setIdentityPositions(blockPositions, positionCount);
+                // the errors are kept at the same index as the positions, so they stay aligned with them
+                positionCount = function.filter(new Page(positionCount, inputBlocks), blockPositions, positionCount, errors);
+                selectPositions(positions, blockPositions, positionCount);
+                functionWithStats.getStats().update(inputPositionCount, positionCount, System.nanoTime() - start);
+                if (positionCount == 0) {
+                    return finishBatch();
+                }
+            }
+            for (int i = 0; i < positionCount; i++) {
+                if (errors[i] != null) {
+                    throw errors[i];
+                }
+            }
+        }
+
+        Block[] blocks = new Block[outputColumns.length];
+        Block[] lazyBlocks = new Block[delegateChannels.length];
+        for (int i = 0; i < outputColumns.length; i++) {
+            int column = outputColumns[i];
+            if (columnValues[column] != null || prefilledValues[column] != null) {
+                blocks[i] = getColumnValues(page, columnValues, column, positions, positionCount).getBlock(positions, positionCount);
+            }
+            else {
+                if (lazyBlocks[column] == null) {
+                    lazyBlocks[column] = getLazyBlock(page, column, positions, positionCount);
+                }
+                blocks[i] = lazyBlocks[column];
+            }
+        }
+        reorderFiltersIfNeeded();
+        return new Page(positionCount, blocks);
+    }
+
+    private Page finishBatch()
+    {
+        reorderFiltersIfNeeded();
+        return new Page(0);
+    }
+
+    private ColumnValues getColumnValues(Page page, ColumnValues[] columnValues, int column, int[] positions, int positionCount)
+    {
+        if (prefilledValues[column] != null) {
+            // a prefilled column has the same value at every position, so it does not need to be cached
+            return new ColumnValues(new RunLengthEncodedBlock(prefilledValues[column], positionCount), positions, positionCount, coercers[column]);
+        }
+        if (columnValues[column] == null) {
+            // only the values at the remaining positions are read, the column reader skips the others
+            Block block = readPositions(page, delegateChannels[column], positions, positionCount);
+            columnValues[column] = new ColumnValues(block, Arrays.copyOf(positions, positionCount), positionCount, coercers[column]);
+        }
+        return columnValues[column];
+    }
+
+    private Block getLazyBlock(Page page, int column, int[] positions, int positionCount)
+    {
+        // the column is not needed by the filters, so it is only read if the consumer reads it
+        int channel = delegateChannels[column];
+        HiveCoercer coercer = coercers[column];
+        if (positionCount == page.getPositionCount() && coercer == null) {
+            return page.getBlock(channel);
+        }
+        return new LazyBlock(positionCount, lazyBlock -> {
+            Block block = readPositions(page, channel, positions, positionCount);
+            lazyBlock.setBlock(coercer == null ? block : coercer.apply(block));
+        });
+    }
+
+    private Block readPositions(Page page, int channel, int[] positions, int positionCount)
+    {
+        if (parquetPageSource.isPresent()) {
+            return parquetPageSource.get().getPositions(page, channel, positions, positionCount);
+        }
+        Block block = page.getBlock(channel);
+        return positionCount == page.getPositionCount() ? block : block.getPositions(positions, 0, positionCount);
+    }
+
+    private static void setIdentityPositions(int[] positions, int positionCount)
+    {
+        for (int i = 0; i < positionCount; i++) {
+            positions[i] = i;
+        }
+    }
+
+    private static void selectPositions(int[] positions, int[] selectedIndexes, int selectedCount)
+    {
+        // the selected indexes are increasing, so the positions can be compacted in place
+        for (int i = 0; i < selectedCount; i++) {
+            positions[i] = positions[selectedIndexes[i]];
+        }
+    }
+
+    private void reorderFiltersIfNeeded()
+    {
+        if (!reorderFilters) {
+            return;
+        }
+        // a stable sort keeps the original order until the filters have been measured
+        if (domainFilters.size() > 1) {
+            domainFilters.sort(Comparator.comparingDouble(filter -> filter.getStats().getElapsedNanosPerDroppedPosition()));
+        }
+        if (filterFunctions.size() > 1) {
+            filterFunctions.sort(Comparator.comparingDouble(function -> function.getStats().getElapsedNanosPerDroppedPosition()));
+        }
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return delegate.getCompletedBytes();
+    }
+
+    @Override
+    public long getCompletedPositions()
+    {
+        return delegate.getCompletedPositions();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return delegate.getReadTimeNanos();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return delegate.isFinished();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return delegate.getSystemMemoryUsage();
+    }
+
+    @Override
+    public RuntimeStats getRuntimeStats()
+    {
+        return delegate.getRuntimeStats();
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        delegate.close();
+    }
+
+    /**
+     * The values of a column that were read for a set of positions of the batch. The filters only remove
+     * positions, so the values at the positions that remain are a subset of these.
+     */
+    private static final class ColumnValues
+    {
+        private final Block fileBlock;
+        private final int[] positions;
+        private final int positionCount;
+        private final HiveCoercer coercer;
+        private Block coercedBlock;
+
+        private ColumnValues(Block fileBlock, int[] positions, int positionCount, HiveCoercer coercer)
+        {
+            this.fileBlock = requireNonNull(fileBlock, "fileBlock is null");
+            this.positions = requireNonNull(positions, "positions is null");
+            this.positionCount = positionCount;
+            this.coercer = coercer;
+        }
+
+        /**
+         * Returns the values at the given positions, which must be a subset of the positions that were read,
+         * as they are stored in the file.
+         */
+        public Block getFileBlock(int[] selectedPositions, int selectedCount)
+        {
+            return select(fileBlock, selectedPositions, selectedCount);
+        }
+
+        /**
+         * Returns the values at the given positions, which must be a subset of the positions that were read,
+         * coerced to the table type.
+         */
+        public Block getBlock(int[] selectedPositions, int selectedCount)
+        {
+            if (coercer == null) {
+                return getFileBlock(selectedPositions, selectedCount);
+            }
+            if (coercedBlock == null) {
+                coercedBlock = coercer.apply(fileBlock.getLoadedBlock());
+            }
+            return select(coercedBlock, selectedPositions, selectedCount);
+        }
+
+        private Block select(Block block, int[] selectedPositions, int selectedCount)
+        {
+            if (selectedCount == positionCount) {
+                return block;
+            }
+            int[] indexes = new int[selectedCount];
+            int index = 0;
+            for (int i = 0; i < selectedCount; i++) {
+                while (positions[index] != selectedPositions[i]) {
+                    index++;
+                }
+                indexes[i] = index;
+            }
+            return block.getPositions(indexes, 0, selectedCount);
+        }
+    }
+
+    private static final class DomainFilter
+    {
+        private final int column;
+        private final TupleDomainFilter filter;
+        private final FilterStats stats = new FilterStats();
+
+        private DomainFilter(int column, TupleDomainFilter filter)
+        {
+            this.column = column;
+            this.filter = requireNonNull(filter, "filter is null");
+        }
+
+        public int getColumn()
+        {
+            return column;
+        }
+
+        public TupleDomainFilter getFilter()
+        {
+            return filter;
+        }
+
+        public FilterStats getStats()
+        {
+            return stats;
+        }
+    }
+
+    private static final class FilterFunctionWithStats
+    {
+        private final FilterFunction function;
+        private final FilterStats stats = new FilterStats();
+
+        private FilterFunctionWithStats(FilterFunction function)
+        {
+            this.function = requireNonNull(function, "function is null");
+        }
+
+        public FilterFunction getFunction()
+        {
+            return function;
+        }
+
+        public FilterStats getStats()
+        {
+            return stats;
+        }
+    }
+
+    private static final class FilterStats
+    {
+        private long inputPositions;
+        private long outputPositions;
+        private long elapsedNanos;
+
+        public void update(int inputPositions, int outputPositions, long elapsedNanos)
+        {
+            this.inputPositions += inputPositions;
+            this.outputPositions += outputPositions;
+            this.elapsedNanos += elapsedNanos;
+        }
+
+        public double getElapsedNanosPerDroppedPosition()
+        {
+            return (double) elapsedNanos / (1 + inputPositions - outputPositions);
+        }
+    }
+}
@@ -14,19 +14,37 @@
 package com.facebook.presto.hive.parquet;
 
 import com.facebook.presto.common.Subfield;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.FilterFunction;
 import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.TypeManager;
 import com.facebook.presto.hive.BucketAdaptation;
 import com.facebook.presto.hive.EncryptionInformation;
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveCoercer;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HiveFileContext;
 import com.facebook.presto.hive.HiveFileSplit;
 import com.facebook.presto.hive.HiveSelectivePageSourceFactory;
+import com.facebook.presto.hive.MemoryMappedFiles;
+import com.facebook.presto.hive.ReadAheadManager;
 import com.facebook.presto.hive.metastore.Storage;
+import com.facebook.presto.hive.orc.TupleDomainFilterCache;
+import com.facebook.presto.parquet.cache.ParquetMetadataSource;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
-import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.function.StandardFunctionResolution;
+import com.facebook.presto.spi.relation.InputReferenceExpression;
 import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.RowExpressionService;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.apache.hadoop.conf.Configuration;
 import org.joda.time.DateTimeZone;
@@ -37,9 +55,22 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
-import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.common.Utils.nativeValueToBlock;
+import static com.facebook.presto.expressions.RowExpressionNodeInliner.replaceExpression;
+import static com.facebook.presto.hive.BaseHiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveColumnHandle.isPushedDownSubfield;
+import static com.facebook.presto.hive.HiveFilterUtils.toFilterFunctions;
+import static com.facebook.presto.hive.HiveSessionProperties.isAdaptiveFilterReorderingEnabled;
+import static com.facebook.presto.hive.HiveUtil.typedPartitionKey;
+import static com.facebook.presto.hive.MetadataUtils.isEntireColumn;
+import static com.facebook.presto.hive.parquet.ParquetPageSourceFactory.createParquetPageSource;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.Objects.requireNonNull;
 
 public class ParquetSelectivePageSourceFactory
         implements HiveSelectivePageSourceFactory
@@ -49,9 +80,37 @@ public class ParquetSelectivePageSourceFactory
             .add("parquet.hive.serde.ParquetHiveSerDe")
             .build();
 
+    private final TypeManager typeManager;
+    private final StandardFunctionResolution functionResolution;
+    private final RowExpressionService rowExpressionService;
+    private final HdfsEnvironment hdfsEnvironment;
+    private final FileFormatDataSourceStats stats;
+    private final ParquetMetadataSource parquetMetadataSource;
+    private final TupleDomainFilterCache tupleDomainFilterCache;
+    private final ReadAheadManager readAheadManager;
+    private final MemoryMappedFiles memoryMappedFiles;
+
     @Inject
-    public ParquetSelectivePageSourceFactory()
+    public ParquetSelectivePageSourceFactory(
+            TypeManager typeManager,
+            StandardFunctionResolution functionResolution,
+            RowExpressionService rowExpressionService,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            ParquetMetadataSource parquetMetadataSource,
+            TupleDomainFilterCache tupleDomainFilterCache,
+            ReadAheadManager readAheadManager,
+            MemoryMappedFiles memoryMappedFiles)
     {
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.functionResolution = requireNonNull(functionResolution, "functionResolution is null");
+        this.rowExpressionService = requireNonNull(rowExpressionService, "rowExpressionService is null");
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.parquetMetadataSource = requireNonNull(parquetMetadataSource, "parquetMetadataSource is null");
+        this.tupleDomainFilterCache = requireNonNull(tupleDomainFilterCache, "tupleDomainFilterCache is null");
+        this.readAheadManager = requireNonNull(readAheadManager, "readAheadManager is null");
+        this.memoryMappedFiles = requireNonNull(memoryMappedFiles, "memoryMappedFiles is null");
     }
 
     @Override
@@ -60,6 +119,7 @@ public class ParquetSelectivePageSourceFactory
             ConnectorSession session,
             HiveFileSplit fileSplit,
             Storage storage,
+            SchemaTableName tableName,
             List<HiveColumnHandle> columns,
             Map<Integer, String> prefilledValues,
             Map<Integer, HiveCoercer> coercers,
@@ -77,6 +137,103 @@ public class ParquetSelectivePageSourceFactory
             return Optional.empty();
         }
         checkState(!appendRowNumberEnabled, "append row number is not supported for Parquet Reader");
-        throw new PrestoException(NOT_SUPPORTED, "Parquet reader doesn't support filter pushdown yet");
+        checkArgument(!domainPredicate.isNone(), "Unexpected NONE domain");
+
+        // bucket adaptation, filters on nested fields and synthesized columns are handled by the generic filtering page source
+        if (bucketAdaptation.isPresent() ||
+                !domainPredicate.getDomains().get().keySet().stream().allMatch(subfield -> isEntireColumn(subfield)) ||
+                !columns.stream().allMatch(column -> prefilledValues.containsKey(column.getHiveColumnIndex()) || column.getColumnType() == REGULAR || isPushedDownSubfield(column))) {
+            return Optional.empty();
+        }
+
+        int columnCount = columns.size();
+        int[] delegateChannels = new int[columnCount];
+        Type[] fileTypes = new Type[columnCount];
+        Block[] typedPrefilledValues = new Block[columnCount];
+        HiveCoercer[] columnCoercers = new HiveCoercer[columnCount];
+        ImmutableList.Builder<HiveColumnHandle> physicalColumns = ImmutableList.builder();
+        int physicalColumnCount = 0;
+        for (int i = 0; i < columnCount; i++) {
+            HiveColumnHandle column = columns.get(i);
+            int hiveColumnIndex = column.getHiveColumnIndex();
+            fileTypes[i] = typeManager.getType(column.getTypeSignature());
+            columnCoercers[i] = coercers.get(hiveColumnIndex);
+            if (prefilledValues.containsKey(hiveColumnIndex)) {
+                delegateChannels[i] = -1;
+                typedPrefilledValues[i] = nativeValueToBlock(fileTypes[i], typedPartitionKey(prefilledValues.get(hiveColumnIndex), fileTypes[i], column.getName(), hiveStorageTimeZone));
+            }
+            else {
+                delegateChannels[i] = physicalColumnCount++;
+                physicalColumns.add(column);
+            }
+        }
+
+        Map<String, Integer> columnIndices = IntStream.range(0, columnCount)
+                .boxed()
+                .collect(toImmutableMap(i -> columns.get(i).getName(), Function.identity()));
+
+        ImmutableMap.Builder<Integer, TupleDomainFilter> domainFilters = ImmutableMap.builder();
+        for (Map.Entry<Subfield, Domain> entry : domainPredicate.getDomains().get().entrySet()) {
+            Subfield subfield = entry.getKey();
+            int column = columnIndices.get(subfield.getRootName());
+            TupleDomainFilter filter = tupleDomainFilterCache.getFilter(entry.getValue());
+            if (columnCoercers[column] != null) {
+                filter = columnCoercers[column].toCoercingFilter(filter, subfield);
+            }
+            domainFilters.put(column, filter);
+        }
+
+        // row groups are pruned with the statistics of the columns that are read as they are stored in the file
+        TupleDomain<HiveColumnHandle> rowGroupPredicate = domainPredicate.transform(subfield -> {
+            HiveColumnHandle column = columns.get(columnIndices.get(subfield.getRootName()));
+            int hiveColumnIndex = column.getHiveColumnIndex();
+            return prefilledValues.containsKey(hiveColumnIndex) || coercers.containsKey(hiveColumnIndex) ? null : column;
+        });
+
+        // use column types from the current table schema; these types might be different from this partition's schema
+        Map<VariableReferenceExpression, InputReferenceExpression> variableToInput = columnIndices.entrySet().stream()
+                .collect(toImmutableMap(
+                        entry -> new VariableReferenceExpression(Optional.empty(), entry.getKey(), getTableType(fileTypes, columnCoercers, entry.getValue())),
+                        entry -> new InputReferenceExpression(Optional.empty(), entry.getValue(), getTableType(fileTypes, columnCoercers, entry.getValue()))));
+        List<FilterFunction> filterFunctions = toFilterFunctions(replaceExpression(remainingPredicate, variableToInput), session, rowExpressionService.getDeterminismEvaluator(), rowExpressionService.getPredicateCompiler());
+
+        Map<Integer, Integer> outputIndices = IntStream.range(0, columnCount)
+                .boxed()
+                .collect(toImmutableMap(i -> columns.get(i).getHiveColumnIndex(), Function.identity()));
+        int[] outputChannels = outputColumns.stream()
+                .mapToInt(outputIndices::get)
+                .toArray();
+
+        ConnectorPageSource parquetPageSource = createParquetPageSource(
+                hdfsEnvironment,
+                session,
+                configuration,
+                fileSplit,
+                physicalColumns.build(),
+                tableName,
+                typeManager,
+                functionResolution,
+                rowGroupPredicate,
+                stats,
+                readAheadManager,
+                memoryMappedFiles,
+                hiveFileContext,
+                parquetMetadataSource);
+
+        return Optional.of(new ParquetSelectivePageSource(
+                parquetPageSource,
+                delegateChannels,
+                fileTypes,
+                typedPrefilledValues,
+                columnCoercers,
+                domainFilters.build(),
+                filterFunctions,
+                outputChannels,
+                isAdaptiveFilterReorderingEnabled(session)));
+    }
+
+    private static Type getTableType(Type[] fileTypes, HiveCoercer[] coercers, int column)
+    {
+        return coercers[column] != null ? coercers[column].getToType() : fileTypes[column];
     }
 }
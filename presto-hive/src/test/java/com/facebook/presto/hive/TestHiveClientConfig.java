@@ -142,6 +142,13 @@ public class TestHiveClientConfig
                 .setMaterializedViewMissingPartitionsThreshold(100)
                 .setLooseMemoryAccountingEnabled(false)
                 .setReadColumnIndexFilter(false)
+                .setParquetBloomFilterEnabled(false)
+                .setReadAheadEnabled(false)
+                .setReadAheadMaxInFlightSizePerQuery(new DataSize(256, Unit.MEGABYTE))
+                .setReadAheadMaxThreads(32)
+                .setMemoryMappedLocalFilesEnabled(false)
+                .setMemoryMappedLocalFilesMaxMappings(10_000)
+                .setMemoryMappedLocalFilesMaxSize(new DataSize(16, Unit.GIGABYTE))
                 .setSizeBasedSplitWeightsEnabled(true)
                 .setDynamicSplitSizesEnabled(false)
                 .setMinimumAssignedSplitWeight(0.05)
@@ -268,6 +275,13 @@ public class TestHiveClientConfig
                 .put("hive.verbose-runtime-stats-enabled", "true")
                 .put("hive.materialized-view-missing-partitions-threshold", "50")
                 .put("hive.parquet-column-index-filter-enabled", "true")
+                .put("hive.parquet-bloom-filter-enabled", "true")
+                .put("hive.read-ahead.enabled", "true")
+                .put("hive.read-ahead.max-in-flight-size-per-query", "64MB")
+                .put("hive.read-ahead.max-threads", "8")
+                .put("hive.memory-mapped-local-files.enabled", "true")
+                .put("hive.memory-mapped-local-files.max-mappings", "500")
+                .put("hive.memory-mapped-local-files.max-size", "1GB")
                 .put("hive.size-based-split-weights-enabled", "false")
                 .put("hive.dynamic-split-sizes-enabled", "true")
                 .put("hive.user-defined-type-encoding-enabled", "true")
@@ -390,6 +404,13 @@ public class TestHiveClientConfig
                 .setMaterializedViewMissingPartitionsThreshold(50)
                 .setLooseMemoryAccountingEnabled(true)
                 .setReadColumnIndexFilter(true)
+                .setParquetBloomFilterEnabled(true)
+                .setReadAheadEnabled(true)
+                .setReadAheadMaxInFlightSizePerQuery(new DataSize(64, Unit.MEGABYTE))
+                .setReadAheadMaxThreads(8)
+                .setMemoryMappedLocalFilesEnabled(true)
+                .setMemoryMappedLocalFilesMaxMappings(500)
+                .setMemoryMappedLocalFilesMaxSize(new DataSize(1, Unit.GIGABYTE))
                 .setSizeBasedSplitWeightsEnabled(false)
                 .setDynamicSplitSizesEnabled(true)
                 .setMinimumAssignedSplitWeight(1.0)
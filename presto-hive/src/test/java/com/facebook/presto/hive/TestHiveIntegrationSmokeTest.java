@@ -5264,6 +5264,14 @@ public class TestHiveIntegrationSmokeTest
         assertUpdate("DROP TABLE test_show_properties");
     }
 
+    @Test
+    public void testInvalidParquetBloomFilterFpp()
+    {
+        assertQueryFails(
+                "CREATE TABLE test_invalid_parquet_bloom_filter_fpp (c bigint) WITH (format = 'PARQUET', parquet_bloom_filter_columns = ARRAY['c'], parquet_bloom_filter_fpp = 1.5)",
+                "parquet_bloom_filter_fpp must be between 0 and 1 \\(exclusive\\): 1.5");
+    }
+
     @Test
     public void testPageFileFormatSmallStripe()
     {
@@ -5746,9 +5754,11 @@ public class TestHiveIntegrationSmokeTest
                 .setCatalogSessionProperty("hive", "pushdown_filter_enabled", "true")
                 .setCatalogSessionProperty("hive", "parquet_pushdown_filter_enabled", "true")
                 .build();
-        assertQueryFails(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown", "Parquet reader doesn't support filter pushdown yet");
-        assertQueryFails(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = true", "Parquet reader doesn't support filter pushdown yet");
-        assertQueryFails(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = false", "Parquet reader doesn't support filter pushdown yet");
+        assertQuery(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown", "select 1");
+        assertQuery(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = true", "select 1");
+        assertQueryReturnsEmptyResult(parquetFilterPushdownSession, "SELECT a FROM test_parquet_filter_pushdoown WHERE b = false");
+        assertQuery(parquetFilterPushdownSession, "SELECT b FROM test_parquet_filter_pushdoown WHERE a + 1 = 2", "select true");
+        assertQueryReturnsEmptyResult(parquetFilterPushdownSession, "SELECT b FROM test_parquet_filter_pushdoown WHERE a % 2 = 0 AND b");
     }
 
     private void testPageFileCompression(String compression)
@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.parquet.MemoryMappedParquetDataSource;
+import com.facebook.presto.parquet.ParquetDataSourceId;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.testing.TestingConnectorSession;
+import io.airlift.slice.Slice;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Optional;
+
+import static com.facebook.presto.hive.HiveTestUtils.HDFS_ENVIRONMENT;
+import static com.facebook.presto.hive.HiveTestUtils.SESSION;
+import static com.facebook.presto.hive.HiveTestUtils.getAllSessionProperties;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class TestMemoryMappedFiles
+{
+    private static final ConnectorSession MEMORY_MAPPED_SESSION = new TestingConnectorSession(getAllSessionProperties(
+            new HiveClientConfig().setMemoryMappedLocalFilesEnabled(true),
+            new HiveCommonClientConfig()));
+    private static final int FILE_SIZE = 1000;
+    private static final long MAX_MAPPED_BYTES = 1_000_000;
+
+    private File tempDirectory;
+    private Path path;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        tempDirectory = Files.createTempDirectory("test_memory_mapped_files").toFile();
+        File file = new File(tempDirectory, "data");
+        byte[] data = new byte[FILE_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        Files.write(file.toPath(), data);
+        path = new Path(file.toURI());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(tempDirectory.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testMap()
+            throws IOException
+    {
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+        MemoryMappedFiles memoryMappedFiles = new MemoryMappedFiles(10, MAX_MAPPED_BYTES, stats);
+
+        Optional<Slice> mapping = memoryMappedFiles.tryMap(MEMORY_MAPPED_SESSION, HDFS_ENVIRONMENT, path);
+        assertTrue(mapping.isPresent());
+        assertEquals(mapping.get().length(), FILE_SIZE);
+        assertEquals(mapping.get().getByte(300), (byte) 300);
+        assertEquals(memoryMappedFiles.getMappingCount(), 1);
+        assertEquals(memoryMappedFiles.getMappedBytes(), FILE_SIZE);
+        assertEquals(stats.getMemoryMappedFiles().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testMappingLimit()
+            throws IOException
+    {
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+        MemoryMappedFiles memoryMappedFiles = new MemoryMappedFiles(2, MAX_MAPPED_BYTES, stats);
+
+        Optional<Slice> first = memoryMappedFiles.tryMap(MEMORY_MAPPED_SESSION, HDFS_ENVIRONMENT, path);
+        Optional<Slice> second = memoryMappedFiles.tryMap(MEMORY_MAPPED_SESSION, HDFS_ENVIRONMENT, path);
+        assertTrue(first.isPresent());
+        assertTrue(second.isPresent());
+
+        // the file is read through the file system until one of the mappings is collected
+        assertFalse(memoryMappedFiles.tryMap(MEMORY_MAPPED_SESSION, HDFS_ENVIRONMENT, path).isPresent());
+        assertEquals(memoryMappedFiles.getMappingCount(), 2);
+        assertEquals(stats.getMemoryMappedFiles().getTotalCount(), 2);
+        assertEquals(stats.getMemoryMappingRejected().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testMappedBytesLimit()
+            throws IOException
+    {
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+        MemoryMappedFiles memoryMappedFiles = new MemoryMappedFiles(10, FILE_SIZE * 2 + 1, stats);
+
+        assertTrue(memoryMappedFiles.tryMap(MEMORY_MAPPED_SESSION, HDFS_ENVIRONMENT, path).isPresent());
+        assertTrue(memoryMappedFiles.tryMap(MEMORY_MAPPED_SESSION, HDFS_ENVIRONMENT, path).isPresent());
+
+        // the size of the mappings that are not yet collected is limited as well
+        assertFalse(memoryMappedFiles.tryMap(MEMORY_MAPPED_SESSION, HDFS_ENVIRONMENT, path).isPresent());
+        assertEquals(memoryMappedFiles.getMappingCount(), 2);
+        assertEquals(memoryMappedFiles.getMappedBytes(), FILE_SIZE * 2);
+        assertEquals(stats.getMemoryMappingRejected().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testNotMapped()
+            throws IOException
+    {
+        MemoryMappedFiles memoryMappedFiles = new MemoryMappedFiles(10, MAX_MAPPED_BYTES, new FileFormatDataSourceStats());
+
+        // disabled for the session
+        assertFalse(memoryMappedFiles.tryMap(SESSION, HDFS_ENVIRONMENT, path).isPresent());
+        // not on the local file system
+        assertFalse(memoryMappedFiles.tryMap(MEMORY_MAPPED_SESSION, HDFS_ENVIRONMENT, new Path("hdfs://localhost/data")).isPresent());
+        // empty files cannot be mapped
+        File emptyFile = new File(tempDirectory, "empty");
+        assertTrue(emptyFile.createNewFile());
+        assertFalse(memoryMappedFiles.tryMap(MEMORY_MAPPED_SESSION, HDFS_ENVIRONMENT, new Path(emptyFile.toURI())).isPresent());
+        // disabled for the connector
+        assertFalse(MemoryMappedFiles.NO_MEMORY_MAPPED_FILES.tryMap(MEMORY_MAPPED_SESSION, HDFS_ENVIRONMENT, path).isPresent());
+
+        assertEquals(memoryMappedFiles.getMappingCount(), 0);
+    }
+
+    @Test
+    public void testParquetDataSource()
+            throws IOException
+    {
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+        Slice mapping = new MemoryMappedFiles(10, MAX_MAPPED_BYTES, stats).tryMap(MEMORY_MAPPED_SESSION, HDFS_ENVIRONMENT, path).get();
+
+        try (MemoryMappedParquetDataSource dataSource = new MemoryMappedParquetDataSource(new ParquetDataSourceId(path.toString()), mapping, stats)) {
+            byte[] buffer = new byte[12];
+            dataSource.readFully(300, buffer, 1, 10);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(buffer[i + 1], (byte) (300 + i));
+            }
+            assertEquals(dataSource.getReadBytes(), 10);
+            assertEquals((long) stats.getMemoryMappedReadBytes().getAllTime().getTotal(), 10);
+
+            assertThrows(PrestoException.class, () -> dataSource.readFully(FILE_SIZE - 5, new byte[10]));
+
+            // the column chunks are sliced from the mapping without a copy
+            Slice slice = dataSource.getSlice(500, 20).get();
+            assertEquals(slice.length(), 20);
+            assertEquals(slice.getByte(0), (byte) 500);
+            assertFalse(slice.hasByteArray());
+            assertEquals(dataSource.getReadBytes(), 30);
+            assertThrows(PrestoException.class, () -> dataSource.getSlice(FILE_SIZE - 5, 10));
+        }
+    }
+}
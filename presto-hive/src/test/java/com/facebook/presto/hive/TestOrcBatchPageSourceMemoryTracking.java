@@ -111,6 +111,8 @@ import static com.facebook.presto.hive.HiveTestUtils.HDFS_ENVIRONMENT;
 import static com.facebook.presto.hive.HiveTestUtils.ROW_EXPRESSION_SERVICE;
 import static com.facebook.presto.hive.HiveTestUtils.SESSION;
 import static com.facebook.presto.hive.HiveTestUtils.getAllSessionProperties;
+import static com.facebook.presto.hive.MemoryMappedFiles.NO_MEMORY_MAPPED_FILES;
+import static com.facebook.presto.hive.ReadAheadManager.NO_READ_AHEAD;
 import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
 import static com.facebook.presto.orc.OrcReader.MAX_BATCH_SIZE;
 import static com.facebook.presto.sql.relational.Expressions.field;
@@ -461,7 +463,9 @@ public class TestOrcBatchPageSourceMemoryTracking
                     stats,
                     100,
                     new StorageOrcFileTailSource(),
-                    StripeMetadataSourceFactory.of(new StorageStripeMetadataSource()));
+                    StripeMetadataSourceFactory.of(new StorageStripeMetadataSource()),
+                    NO_READ_AHEAD,
+                    NO_MEMORY_MAPPED_FILES);
             return HivePageSourceProvider.createHivePageSource(
                     ImmutableSet.of(),
                     ImmutableSet.of(orcPageSourceFactory),
@@ -25,16 +25,19 @@ import java.util.Properties;
 import static com.facebook.presto.hive.HiveTestUtils.HIVE_CLIENT_CONFIG;
 import static com.facebook.presto.hive.HiveTestUtils.METASTORE_CLIENT_CONFIG;
 import static com.facebook.presto.hive.HiveTestUtils.getDefaultOrcFileWriterFactory;
+import static com.facebook.presto.hive.OrcFileWriterFactory.ORC_BLOOM_FILTER_COLUMNS_KEY;
+import static com.facebook.presto.hive.OrcFileWriterFactory.ORC_BLOOM_FILTER_FPP_KEY;
 import static com.facebook.presto.hive.OrcFileWriterFactory.ORC_FLAT_MAP_COLUMN_NUMBERS_KEY;
 import static com.facebook.presto.hive.OrcFileWriterFactory.ORC_FLAT_MAP_KEY_LIMIT_KEY;
 import static com.facebook.presto.hive.OrcFileWriterFactory.ORC_FLAT_MAP_WRITER_ENABLED_KEY;
 import static com.facebook.presto.hive.OrcFileWriterFactory.ORC_MAP_STATISTICS_KEY;
 import static com.facebook.presto.orc.OrcWriterOptions.DEFAULT_MAX_FLATTENED_MAP_KEY_COUNT;
+import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_TABLE_COLUMNS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
-public class TesOrcFileWriterFactory
+public class TestOrcFileWriterFactory
 {
     @Test
     public void tesDefaultFlatMapOptions()
@@ -88,6 +91,19 @@ public class TesOrcFileWriterFactory
         assertTrue(orcWriterOptions.isMapStatisticsEnabled());
     }
 
+    @Test
+    public void testBloomFilterColumns()
+    {
+        Properties serDe = new Properties();
+        serDe.setProperty(META_TABLE_COLUMNS, "a,b,c");
+        serDe.setProperty(ORC_BLOOM_FILTER_COLUMNS_KEY, "C, a");
+        serDe.setProperty(ORC_BLOOM_FILTER_FPP_KEY, "0.1");
+
+        OrcWriterOptions orcWriterOptions = getOrcWriterOptions(serDe);
+        assertEquals(orcWriterOptions.getBloomFilterColumns(), ImmutableSet.of(0, 2));
+        assertEquals(orcWriterOptions.getBloomFilterFpp(), 0.1);
+    }
+
     private static OrcWriterOptions getOrcWriterOptions(Properties serDe)
     {
         OrcFileWriterConfig orcFileWriterConfig = new OrcFileWriterConfig();
@@ -0,0 +1,166 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.ReadAheadBuffer.RangeReader;
+import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.facebook.presto.orc.DiskRange;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.orc.NoopOrcLocalMemoryContext.NOOP_ORC_LOCAL_MEMORY_CONTEXT;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestReadAheadBuffer
+{
+    private static final String QUERY_ID = "test_query";
+
+    @Test
+    public void testReadAhead()
+    {
+        TestingRangeReader reader = new TestingRangeReader();
+        ReadAheadManager manager = createManager(1000);
+        AggregatedMemoryContext memoryContext = newSimpleAggregatedMemoryContext();
+        ReadAheadBuffer buffer = new ReadAheadBuffer(
+                QUERY_ID,
+                ImmutableList.of(
+                        ImmutableList.of(new DiskRange(0, 100), new DiskRange(200, 50)),
+                        ImmutableList.of(new DiskRange(300, 100)),
+                        ImmutableList.of(new DiskRange(500, 100))),
+                reader,
+                manager,
+                new HiveOrcLocalMemoryContext(memoryContext.newLocalMemoryContext("test")));
+        // the first region is read when the buffer is created
+        assertEquals(reader.getReads(), ImmutableList.of(new DiskRange(0, 100), new DiskRange(200, 50)));
+        assertEquals(memoryContext.getBytes(), 150);
+
+        assertRead(buffer, 210, 20);
+        assertEquals(reader.getReads().size(), 3);
+        assertEquals(reader.getReads().get(2), new DiskRange(300, 100));
+        assertEquals(memoryContext.getBytes(), 250);
+
+        // a read that spans two ranges of a region is not served
+        assertFalse(buffer.read(90, new byte[20], 0, 20));
+        // a read outside of the regions is not served
+        assertFalse(buffer.read(450, new byte[10], 0, 10));
+
+        assertRead(buffer, 300, 100);
+        assertEquals(reader.getReads().get(3), new DiskRange(500, 100));
+        assertEquals(memoryContext.getBytes(), 200);
+        assertRead(buffer, 550, 50);
+        assertEquals(reader.getReads().size(), 4);
+        assertEquals(manager.getStats().getReadAheadHits().getTotalCount(), 3);
+
+        buffer.close();
+        assertEquals(memoryContext.getBytes(), 0);
+        assertTrue(manager.tryReserve(QUERY_ID, 1000));
+    }
+
+    @Test
+    public void testInFlightLimit()
+    {
+        TestingRangeReader reader = new TestingRangeReader();
+        ReadAheadManager manager = createManager(150);
+        ReadAheadBuffer buffer = new ReadAheadBuffer(
+                QUERY_ID,
+                ImmutableList.of(
+                        ImmutableList.of(new DiskRange(0, 100)),
+                        ImmutableList.of(new DiskRange(100, 100)),
+                        ImmutableList.of(new DiskRange(200, 100))),
+                reader,
+                manager,
+                NOOP_ORC_LOCAL_MEMORY_CONTEXT);
+
+        // the second region does not fit until the first one is released
+        assertRead(buffer, 0, 10);
+        assertEquals(reader.getReads(), ImmutableList.of(new DiskRange(0, 100)));
+        assertEquals(manager.getStats().getReadAheadRejected().getTotalCount(), 1);
+
+        // moving to the second region releases the first one, so the third one fits
+        assertFalse(buffer.read(100, new byte[10], 0, 10));
+        assertEquals(reader.getReads(), ImmutableList.of(new DiskRange(0, 100), new DiskRange(200, 100)));
+        assertRead(buffer, 200, 10);
+
+        buffer.close();
+        assertTrue(manager.tryReserve(QUERY_ID, 150));
+    }
+
+    @Test
+    public void testFailedRead()
+    {
+        ReadAheadManager manager = createManager(1000);
+        ReadAheadBuffer buffer = new ReadAheadBuffer(
+                QUERY_ID,
+                ImmutableList.of(ImmutableList.of(new DiskRange(0, 100))),
+                (position, data, offset, length) -> {
+                    throw new IOException("test");
+                },
+                manager,
+                NOOP_ORC_LOCAL_MEMORY_CONTEXT);
+
+        // the caller reads the data itself
+        assertFalse(buffer.read(0, new byte[10], 0, 10));
+        buffer.close();
+        assertTrue(manager.tryReserve(QUERY_ID, 1000));
+    }
+
+    private static ReadAheadManager createManager(long maxInFlightBytes)
+    {
+        return new ReadAheadManager(newDirectExecutorService(), new DataSize(maxInFlightBytes, BYTE), new FileFormatDataSourceStats());
+    }
+
+    private static void assertRead(ReadAheadBuffer buffer, long position, int length)
+    {
+        byte[] data = new byte[length + 2];
+        assertTrue(buffer.read(position, data, 1, length));
+        for (int i = 0; i < length; i++) {
+            assertEquals(data[i + 1], valueAt(position + i));
+        }
+    }
+
+    private static byte valueAt(long position)
+    {
+        return (byte) position;
+    }
+
+    private static class TestingRangeReader
+            implements RangeReader
+    {
+        private final List<DiskRange> reads = new ArrayList<>();
+
+        @Override
+        public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+        {
+            reads.add(new DiskRange(position, bufferLength));
+            for (int i = 0; i < bufferLength; i++) {
+                buffer[bufferOffset + i] = valueAt(position + i);
+            }
+        }
+
+        public List<DiskRange> getReads()
+        {
+            return ImmutableList.copyOf(reads);
+        }
+    }
+}
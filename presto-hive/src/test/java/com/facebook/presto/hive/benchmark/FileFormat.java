@@ -89,6 +89,8 @@ import static com.facebook.presto.hive.HiveTestUtils.FUNCTION_AND_TYPE_MANAGER;
 import static com.facebook.presto.hive.HiveTestUtils.FUNCTION_RESOLUTION;
 import static com.facebook.presto.hive.HiveTestUtils.HIVE_CLIENT_CONFIG;
 import static com.facebook.presto.hive.HiveType.toHiveType;
+import static com.facebook.presto.hive.MemoryMappedFiles.NO_MEMORY_MAPPED_FILES;
+import static com.facebook.presto.hive.ReadAheadManager.NO_READ_AHEAD;
 import static com.facebook.presto.hive.metastore.StorageFormat.fromHiveStorageFormat;
 import static com.facebook.presto.hive.pagefile.PageFileWriterFactory.createPagesSerdeForPageFile;
 import static com.facebook.presto.hive.util.ConfigurationUtils.configureCompression;
@@ -166,7 +168,9 @@ public enum FileFormat
                     new FileFormatDataSourceStats(),
                     100,
                     new StorageOrcFileTailSource(),
-                    StripeMetadataSourceFactory.of(new StorageStripeMetadataSource()));
+                    StripeMetadataSourceFactory.of(new StorageStripeMetadataSource()),
+                    NO_READ_AHEAD,
+                    NO_MEMORY_MAPPED_FILES);
             return createPageSource(pageSourceFactory, session, targetFile, columnNames, columnTypes, HiveStorageFormat.ORC, MODIFICATION_TIME_NOT_SET);
         }
 
@@ -200,7 +204,9 @@ public enum FileFormat
                     new FileFormatDataSourceStats(),
                     new StorageOrcFileTailSource(),
                     StripeMetadataSourceFactory.of(new StorageStripeMetadataSource()),
-                    HiveDwrfEncryptionProvider.NO_ENCRYPTION);
+                    HiveDwrfEncryptionProvider.NO_ENCRYPTION,
+                    NO_READ_AHEAD,
+                    NO_MEMORY_MAPPED_FILES);
             return createPageSource(pageSourceFactory, session, targetFile, columnNames, columnTypes, HiveStorageFormat.DWRF, MODIFICATION_TIME_NOT_SET);
         }
 
@@ -234,7 +240,8 @@ public enum FileFormat
         {
             HiveBatchPageSourceFactory pageSourceFactory = new PageFilePageSourceFactory(
                     hdfsEnvironment,
-                    new BlockEncodingManager());
+                    new BlockEncodingManager(),
+                    NO_MEMORY_MAPPED_FILES);
             return createPageSource(pageSourceFactory, session, targetFile, columnNames, columnTypes, PAGEFILE, MODIFICATION_TIME_NOT_SET);
         }
 
@@ -258,7 +265,7 @@ public enum FileFormat
         @Override
         public ConnectorPageSource createFileFormatReader(ConnectorSession session, HdfsEnvironment hdfsEnvironment, File targetFile, List<String> columnNames, List<Type> columnTypes)
         {
-            HiveBatchPageSourceFactory pageSourceFactory = new ParquetPageSourceFactory(FUNCTION_AND_TYPE_MANAGER, FUNCTION_RESOLUTION, hdfsEnvironment, new FileFormatDataSourceStats(), new MetadataReader());
+            HiveBatchPageSourceFactory pageSourceFactory = new ParquetPageSourceFactory(FUNCTION_AND_TYPE_MANAGER, FUNCTION_RESOLUTION, hdfsEnvironment, new FileFormatDataSourceStats(), new MetadataReader(), NO_READ_AHEAD, NO_MEMORY_MAPPED_FILES);
             return createPageSource(pageSourceFactory, session, targetFile, columnNames, columnTypes, HiveStorageFormat.PARQUET, MODIFICATION_TIME_NOT_SET);
         }
 
@@ -365,7 +372,7 @@ public enum FileFormat
         @Override
         public ConnectorPageSource createFileFormatReader(ConnectorSession session, HdfsEnvironment hdfsEnvironment, File targetFile, List<String> columnNames, List<Type> columnTypes)
         {
-            HiveBatchPageSourceFactory pageSourceFactory = new ParquetPageSourceFactory(FUNCTION_AND_TYPE_MANAGER, FUNCTION_RESOLUTION, hdfsEnvironment, new FileFormatDataSourceStats(), new MetadataReader());
+            HiveBatchPageSourceFactory pageSourceFactory = new ParquetPageSourceFactory(FUNCTION_AND_TYPE_MANAGER, FUNCTION_RESOLUTION, hdfsEnvironment, new FileFormatDataSourceStats(), new MetadataReader(), NO_READ_AHEAD, NO_MEMORY_MAPPED_FILES);
             return createPageSource(pageSourceFactory, session, targetFile, columnNames, columnTypes, HiveStorageFormat.PARQUET, MODIFICATION_TIME_NOT_SET);
         }
 
@@ -0,0 +1,196 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.parquet.Field;
+import com.facebook.presto.parquet.FileParquetDataSource;
+import com.facebook.presto.parquet.cache.MetadataReader;
+import com.facebook.presto.parquet.reader.ParquetReader;
+import com.facebook.presto.parquet.writer.ParquetWriterOptions;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.ColumnIOConverter;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.schema.MessageType;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.hive.parquet.ParquetTester.writeParquetFileFromPresto;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.parquet.ParquetTypeUtils.getColumnIO;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.UUID.randomUUID;
+import static org.apache.parquet.hadoop.metadata.CompressionCodecName.UNCOMPRESSED;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestParquetReaderSelectedPositions
+{
+    private static final int ROWS = 10000;
+    private static final List<Type> TYPES = ImmutableList.of(INTEGER, BIGINT, INTEGER);
+
+    private File temporaryDirectory;
+    private File parquetFile;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        temporaryDirectory = createTempDir();
+        parquetFile = new File(temporaryDirectory, randomUUID().toString());
+
+        List<Integer> ints = new ArrayList<>();
+        List<Long> longs = new ArrayList<>();
+        List<Integer> nullableInts = new ArrayList<>();
+        for (int row = 0; row < ROWS; row++) {
+            ints.add(getExpectedValue(0, row).intValue());
+            longs.add(getExpectedValue(1, row));
+            Long value = getExpectedValue(2, row);
+            nullableInts.add(value == null ? null : value.intValue());
+        }
+        writeParquetFileFromPresto(
+                parquetFile,
+                TYPES,
+                ImmutableList.of("c1", "c2", "c3"),
+                new Iterable<?>[] {ints, longs, nullableInts},
+                ROWS,
+                UNCOMPRESSED,
+                ParquetWriterOptions.DEFAULT_WRITER_VERSION);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(temporaryDirectory.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testReadSelectedPositions()
+            throws Exception
+    {
+        for (int stride : new int[] {1, 2, 3, 17, 1000}) {
+            assertSelectedPositions(stride);
+        }
+    }
+
+    private void assertSelectedPositions(int stride)
+            throws Exception
+    {
+        List<Field> fields = getFields();
+        try (ParquetReader parquetReader = createParquetReader()) {
+            // the batch sizes depend on the sizes of the blocks read, so the rows are selected by their row number
+            int firstRow = 0;
+            int batchSize = parquetReader.nextBatch();
+            while (batchSize > 0) {
+                int[] positions = new int[batchSize];
+                int positionCount = 0;
+                for (int position = 0; position < batchSize; position++) {
+                    if ((firstRow + position) % stride == 0) {
+                        positions[positionCount++] = position;
+                    }
+                }
+
+                for (int i = 0; i < fields.size(); i++) {
+                    Block block = parquetReader.readBlock(fields.get(i), positions, positionCount);
+                    assertEquals(block.getPositionCount(), positionCount);
+                    for (int j = 0; j < positionCount; j++) {
+                        Long expected = getExpectedValue(i, firstRow + positions[j]);
+                        if (expected == null) {
+                            assertTrue(block.isNull(j));
+                        }
+                        else {
+                            assertEquals(TYPES.get(i).getLong(block, j), expected.longValue());
+                        }
+                    }
+                }
+                firstRow += batchSize;
+                batchSize = parquetReader.nextBatch();
+            }
+            assertEquals(firstRow, ROWS);
+        }
+    }
+
+    private static Long getExpectedValue(int column, int row)
+    {
+        switch (column) {
+            case 0:
+                return (long) row;
+            case 1:
+                return row % 5 == 0 ? null : row * 1000L;
+            default:
+                return row % 7 < 3 ? null : (long) -row;
+        }
+    }
+
+    private List<Field> getFields()
+            throws IOException
+    {
+        MessageColumnIO messageColumnIO = getMessageColumnIO();
+        ImmutableList.Builder<Field> fields = ImmutableList.builder();
+        for (int i = 0; i < TYPES.size(); i++) {
+            fields.add(ColumnIOConverter.constructField(TYPES.get(i), messageColumnIO.getChild(i)).get());
+        }
+        return fields.build();
+    }
+
+    private MessageColumnIO getMessageColumnIO()
+            throws IOException
+    {
+        ParquetMetadata parquetMetadata = readFooter();
+        MessageType schema = parquetMetadata.getFileMetaData().getSchema();
+        return getColumnIO(schema, schema);
+    }
+
+    private ParquetMetadata readFooter()
+            throws IOException
+    {
+        return MetadataReader.readFooter(new FileParquetDataSource(parquetFile), parquetFile.length(), Optional.empty(), false).getParquetMetadata();
+    }
+
+    private ParquetReader createParquetReader()
+            throws IOException
+    {
+        FileParquetDataSource dataSource = new FileParquetDataSource(parquetFile);
+        ParquetMetadata parquetMetadata = readFooter();
+        return new ParquetReader(
+                getMessageColumnIO(),
+                parquetMetadata.getBlocks(),
+                Optional.empty(),
+                dataSource,
+                newSimpleAggregatedMemoryContext(),
+                new DataSize(16, MEGABYTE),
+                true,
+                true,
+                null,
+                null,
+                false,
+                Optional.empty());
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.LazyBlock;
+import com.facebook.presto.common.function.SqlFunctionProperties;
+import com.facebook.presto.common.predicate.FilterFunction;
+import com.facebook.presto.common.predicate.TupleDomainFilter;
+import com.facebook.presto.common.predicate.TupleDomainFilter.BigintRange;
+import com.facebook.presto.common.relation.Predicate;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.hive.HiveCoercer;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.FixedPageSource;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.common.Utils.nativeValueToBlock;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.hive.HiveTestUtils.SESSION;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+public class TestParquetSelectivePageSource
+{
+    private static final Type[] TYPES = {BIGINT, BIGINT, BIGINT};
+
+    @Test
+    public void testDomainFilter()
+    {
+        LazyBlock values = lazyBlock(createLongSequenceBlock(100, 110));
+        ConnectorPageSource pageSource = createPageSource(
+                new Page(createLongSequenceBlock(0, 10), values),
+                ImmutableMap.of(0, BigintRange.of(3, 5, false)),
+                ImmutableList.of());
+
+        Page page = pageSource.getNextPage();
+        assertEquals(page.getPositionCount(), 3);
+        // the column without filters is only decoded when it is read
+        assertFalse(values.isLoaded());
+        assertBlockEquals(page.getBlock(0), 3, 4, 5);
+        assertBlockEquals(page.getBlock(1), 103, 104, 105);
+        assertBlockEquals(page.getBlock(2), 42, 42, 42);
+        assertNull(pageSource.getNextPage());
+    }
+
+    @Test
+    public void testAllPositionsFiltered()
+    {
+        LazyBlock values = lazyBlock(createLongSequenceBlock(100, 110));
+        ConnectorPageSource pageSource = createPageSource(
+                new Page(createLongSequenceBlock(0, 10), values),
+                ImmutableMap.of(0, BigintRange.of(20, 30, false)),
+                ImmutableList.of());
+
+        assertEquals(pageSource.getNextPage().getPositionCount(), 0);
+        assertFalse(values.isLoaded());
+    }
+
+    @Test
+    public void testFilterFunctions()
+    {
+        ConnectorPageSource pageSource = createPageSource(
+                new Page(createLongSequenceBlock(0, 10), createLongSequenceBlock(100, 110)),
+                ImmutableMap.of(0, BigintRange.of(2, 8, false)),
+                ImmutableList.of(
+                        new FilterFunction(SESSION.getSqlFunctionProperties(), true, new IsEvenPredicate(1)),
+                        new FilterFunction(SESSION.getSqlFunctionProperties(), true, new IsEvenPredicate(2))));
+
+        Page page = pageSource.getNextPage();
+        assertBlockEquals(page.getBlock(0), 2, 4, 6, 8);
+        assertBlockEquals(page.getBlock(1), 102, 104, 106, 108);
+    }
+
+    @Test
+    public void testNoFilters()
+    {
+        Block keys = createLongSequenceBlock(0, 10);
+        Block values = createLongSequenceBlock(100, 110);
+        ConnectorPageSource pageSource = createPageSource(new Page(keys, values), ImmutableMap.of(), ImmutableList.of());
+
+        Page page = pageSource.getNextPage();
+        assertEquals(page.getPositionCount(), 10);
+        assertEquals(page.getBlock(0), keys);
+        assertEquals(page.getBlock(1), values);
+    }
+
+    private static ConnectorPageSource createPageSource(Page page, Map<Integer, TupleDomainFilter> domainFilters, List<FilterFunction> filterFunctions)
+    {
+        // the third column is a prefilled constant
+        return new ParquetSelectivePageSource(
+                new FixedPageSource(ImmutableList.of(page)),
+                new int[] {0, 1, -1},
+                TYPES,
+                new Block[] {null, null, nativeValueToBlock(BIGINT, 42L)},
+                new HiveCoercer[3],
+                domainFilters,
+                filterFunctions,
+                new int[] {0, 1, 2},
+                true);
+    }
+
+    private static LazyBlock lazyBlock(Block block)
+    {
+        return new LazyBlock(block.getPositionCount(), lazyBlock -> lazyBlock.setBlock(block));
+    }
+
+    private static void assertBlockEquals(Block actual, long... expected)
+    {
+        assertEquals(actual.getPositionCount(), expected.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(BIGINT.getLong(actual, i), expected[i]);
+        }
+    }
+
+    private static class IsEvenPredicate
+            implements Predicate
+    {
+        private final int channel;
+
+        private IsEvenPredicate(int channel)
+        {
+            this.channel = channel;
+        }
+
+        @Override
+        public int[] getInputChannels()
+        {
+            return new int[] {channel};
+        }
+
+        @Override
+        public boolean evaluate(SqlFunctionProperties properties, Page page, int position)
+        {
+            return BIGINT.getLong(page.getBlock(0), position) % 2 == 0;
+        }
+    }
+}
@@ -162,6 +162,8 @@ public final class SystemSessionProperties
     public static final String RUNTIME_OPTIMIZER_ENABLED = "runtime_optimizer_enabled";
     public static final String EXCHANGE_COMPRESSION_CODEC = "exchange_compression_codec";
     public static final String EXCHANGE_CHECKSUM = "exchange_checksum";
+    public static final String EXCHANGE_ADAPTIVE_COMPRESSION = "exchange_adaptive_compression";
+    public static final String SPLIT_COALESCING_ENABLED = "split_coalescing_enabled";
     public static final String LEGACY_TIMESTAMP = "legacy_timestamp";
     public static final String ENABLE_INTERMEDIATE_AGGREGATIONS = "enable_intermediate_aggregations";
     public static final String PUSH_AGGREGATION_THROUGH_JOIN = "push_aggregation_through_join";
@@ -216,6 +218,7 @@ public final class SystemSessionProperties
     public static final String DYNAMIC_FILTERING_MAX_PER_DRIVER_ROW_COUNT = "dynamic_filtering_max_per_driver_row_count";
     public static final String DYNAMIC_FILTERING_MAX_PER_DRIVER_SIZE = "dynamic_filtering_max_per_driver_size";
     public static final String DYNAMIC_FILTERING_RANGE_ROW_LIMIT_PER_DRIVER = "dynamic_filtering_range_row_limit_per_driver";
+    public static final String DYNAMIC_FILTERING_BLOOM_FILTER_SIZE = "dynamic_filtering_bloom_filter_size";
     public static final String FRAGMENT_RESULT_CACHING_ENABLED = "fragment_result_caching_enabled";
     public static final String INLINE_SQL_FUNCTIONS = "inline_sql_functions";
     public static final String REMOTE_FUNCTIONS_ENABLED = "remote_functions_enabled";
@@ -277,6 +280,8 @@ public final class SystemSessionProperties
     public static final String RANDOMIZE_OUTER_JOIN_NULL_KEY_NULL_RATIO_THRESHOLD = "randomize_outer_join_null_key_null_ratio_threshold";
     public static final String SHARDED_JOINS_STRATEGY = "sharded_joins_strategy";
     public static final String JOIN_SHARD_COUNT = "join_shard_count";
+    public static final String SALT_AGGREGATION_KEYS = "salt_aggregation_keys";
+    public static final String AGGREGATION_KEY_SALT_COUNT = "aggregation_key_salt_count";
     public static final String IN_PREDICATES_AS_INNER_JOINS_ENABLED = "in_predicates_as_inner_joins_enabled";
     public static final String PUSH_AGGREGATION_BELOW_JOIN_BYTE_REDUCTION_THRESHOLD = "push_aggregation_below_join_byte_reduction_threshold";
     public static final String KEY_BASED_SAMPLING_ENABLED = "key_based_sampling_enabled";
@@ -857,6 +862,16 @@ public final class SystemSessionProperties
                         "Enable checksum in exchanges",
                         featuresConfig.isExchangeChecksumEnabled(),
                         false),
+                booleanProperty(
+                        EXCHANGE_ADAPTIVE_COMPRESSION,
+                        "Skip compressing exchange pages that are small or do not compress well",
+                        featuresConfig.isExchangeAdaptiveCompressionEnabled(),
+                        false),
+                booleanProperty(
+                        SPLIT_COALESCING_ENABLED,
+                        "Read small splits of a source stage together in a single driver",
+                        featuresConfig.isSplitCoalescingEnabled(),
+                        featuresConfig.isNativeExecutionEnabled()),
                 booleanProperty(
                         LEGACY_TIMESTAMP,
                         "Use legacy TIME & TIMESTAMP semantics (warning: this will be removed)",
@@ -1191,6 +1206,15 @@ public final class SystemSessionProperties
                         "Maximum number of build-side rows per driver up to which min and max values will be collected for dynamic filtering",
                         featuresConfig.getDynamicFilteringRangeRowLimitPerDriver(),
                         false),
+                new PropertyMetadata<>(
+                        DYNAMIC_FILTERING_BLOOM_FILTER_SIZE,
+                        "Size of the Bloom filter collected per driver and join key for dynamic filtering (0 disables Bloom filters)",
+                        VARCHAR,
+                        DataSize.class,
+                        featuresConfig.getDynamicFilteringBloomFilterSize(),
+                        false,
+                        value -> DataSize.valueOf((String) value),
+                        DataSize::toString),
                 booleanProperty(
                         FRAGMENT_RESULT_CACHING_ENABLED,
                         "Enable fragment result caching and read/write leaf fragment result pages from/to cache when applicable",
@@ -1605,6 +1629,16 @@ public final class SystemSessionProperties
                         "Number of shards to use in sharded joins optimization",
                         featuresConfig.getJoinShardCount(),
                         true),
+                booleanProperty(
+                        SALT_AGGREGATION_KEYS,
+                        "Spread each grouping key over several tasks before the final aggregation to mitigate skew",
+                        featuresConfig.isSaltAggregationKeys(),
+                        false),
+                integerProperty(
+                        AGGREGATION_KEY_SALT_COUNT,
+                        "Number of tasks each grouping key is spread over when aggregation keys are salted",
+                        featuresConfig.getAggregationKeySaltCount(),
+                        false),
                 booleanProperty(
                         OPTIMIZE_CONDITIONAL_AGGREGATION_ENABLED,
                         "Enable rewriting IF(condition, AGG(x)) to AGG(x) with condition included in mask",
@@ -2322,6 +2356,16 @@ public final class SystemSessionProperties
         return session.getSystemProperty(EXCHANGE_CHECKSUM, Boolean.class);
     }
 
+    public static boolean isExchangeAdaptiveCompressionEnabled(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_ADAPTIVE_COMPRESSION, Boolean.class);
+    }
+
+    public static boolean isSplitCoalescingEnabled(Session session)
+    {
+        return session.getSystemProperty(SPLIT_COALESCING_ENABLED, Boolean.class);
+    }
+
     public static boolean isEnableIntermediateAggregations(Session session)
     {
         return session.getSystemProperty(ENABLE_INTERMEDIATE_AGGREGATIONS, Boolean.class);
@@ -2664,6 +2708,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(DYNAMIC_FILTERING_RANGE_ROW_LIMIT_PER_DRIVER, Integer.class);
     }
 
+    public static DataSize getDynamicFilteringBloomFilterSize(Session session)
+    {
+        return session.getSystemProperty(DYNAMIC_FILTERING_BLOOM_FILTER_SIZE, DataSize.class);
+    }
+
     public static boolean isFragmentResultCachingEnabled(Session session)
     {
         return session.getSystemProperty(FRAGMENT_RESULT_CACHING_ENABLED, Boolean.class);
@@ -2977,6 +3026,16 @@ public final class SystemSessionProperties
         return session.getSystemProperty(JOIN_SHARD_COUNT, Integer.class);
     }
 
+    public static boolean isSaltAggregationKeys(Session session)
+    {
+        return session.getSystemProperty(SALT_AGGREGATION_KEYS, Boolean.class);
+    }
+
+    public static int getAggregationKeySaltCount(Session session)
+    {
+        return session.getSystemProperty(AGGREGATION_KEY_SALT_COUNT, Integer.class);
+    }
+
     public static boolean isOptimizeConditionalAggregationEnabled(Session session)
     {
         return session.getSystemProperty(OPTIMIZE_CONDITIONAL_AGGREGATION_ENABLED, Boolean.class);
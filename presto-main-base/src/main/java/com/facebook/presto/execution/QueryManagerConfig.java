@@ -45,6 +45,7 @@ public class QueryManagerConfig
 {
     private int scheduleSplitBatchSize = 1000;
     private int minScheduleSplitBatchSize = 100;
+    private int maxPrefetchedSplits;
     private int maxConcurrentQueries = 1000;
     private int maxQueuedQueries = 5000;
 
@@ -128,6 +129,20 @@ public class QueryManagerConfig
         return this;
     }
 
+    @Min(0)
+    public int getMaxPrefetchedSplits()
+    {
+        return maxPrefetchedSplits;
+    }
+
+    @Config("query.max-prefetched-splits")
+    @ConfigDescription("Maximum number of splits of an ungrouped table scan that are enumerated ahead of the scheduler. Zero disables prefetching")
+    public QueryManagerConfig setMaxPrefetchedSplits(int maxPrefetchedSplits)
+    {
+        this.maxPrefetchedSplits = maxPrefetchedSplits;
+        return this;
+    }
+
     @Deprecated
     @Min(1)
     public int getMaxConcurrentQueries()
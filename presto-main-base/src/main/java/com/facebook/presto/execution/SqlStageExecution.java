@@ -570,6 +570,11 @@ public final class SqlStageExecution
         stateMachine.recordGetSplitTime(start);
     }
 
+    public void recordBufferedSplits(int bufferedSplits)
+    {
+        stateMachine.recordBufferedSplits(bufferedSplits);
+    }
+
     public void recordSchedulerRunningTime(long cpuTimeNanos, long wallTimeNanos)
     {
         if (planFragment.isLeaf()) {
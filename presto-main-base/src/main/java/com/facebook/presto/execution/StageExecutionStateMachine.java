@@ -45,10 +45,12 @@ import static com.facebook.presto.common.RuntimeMetricName.SCAN_STAGE_SCHEDULER_
 import static com.facebook.presto.common.RuntimeMetricName.SCHEDULER_BLOCKED_TIME_NANOS;
 import static com.facebook.presto.common.RuntimeMetricName.SCHEDULER_CPU_TIME_NANOS;
 import static com.facebook.presto.common.RuntimeMetricName.SCHEDULER_WALL_TIME_NANOS;
+import static com.facebook.presto.common.RuntimeMetricName.SPLIT_SOURCE_BUFFERED_SPLITS;
 import static com.facebook.presto.common.RuntimeMetricName.TASK_PLAN_SERIALIZED_CPU_TIME_NANOS;
 import static com.facebook.presto.common.RuntimeMetricName.TASK_UPDATE_DELIVERED_WALL_TIME_NANOS;
 import static com.facebook.presto.common.RuntimeMetricName.TASK_UPDATE_SERIALIZED_CPU_TIME_NANOS;
 import static com.facebook.presto.common.RuntimeUnit.NANO;
+import static com.facebook.presto.common.RuntimeUnit.NONE;
 import static com.facebook.presto.execution.StageExecutionState.ABORTED;
 import static com.facebook.presto.execution.StageExecutionState.CANCELED;
 import static com.facebook.presto.execution.StageExecutionState.FAILED;
@@ -372,6 +374,11 @@ public class StageExecutionStateMachine
         runtimeStats.addMetricValue(GET_SPLITS_TIME_NANOS, NANO, elapsedNanos);
     }
 
+    public void recordBufferedSplits(int bufferedSplits)
+    {
+        runtimeStats.addMetricValue(SPLIT_SOURCE_BUFFERED_SPLITS, NONE, bufferedSplits);
+    }
+
     public void recordSchedulerRunningTime(long cpuTimeNanos, long wallTimeNanos)
     {
         runtimeStats.addMetricValue(SCHEDULER_CPU_TIME_NANOS, NANO, max(cpuTimeNanos, 0));
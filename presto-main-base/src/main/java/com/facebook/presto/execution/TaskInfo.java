@@ -202,4 +202,21 @@ public class TaskInfo
     {
         return new TaskInfo(taskId, newTaskStatus, lastHeartbeatInMillis, outputBuffers, noMoreSplits, stats, needsPlan, metadataUpdates, nodeId);
     }
+
+    public TaskInfo withStats(TaskStats newStats)
+    {
+        return new TaskInfo(taskId, taskStatus, lastHeartbeatInMillis, outputBuffers, noMoreSplits, newStats, needsPlan, metadataUpdates, nodeId);
+    }
+
+    /**
+     * Returns this task info with empty stats, unless the task is done. This is enough to answer
+     * task updates, since the stats of a running task are fetched with the task info.
+     */
+    public TaskInfo omitStats()
+    {
+        if (taskStatus.getState().isDone()) {
+            return this;
+        }
+        return withStats(new TaskStats(stats.getCreateTimeInMillis(), stats.getEndTimeInMillis()));
+    }
 }
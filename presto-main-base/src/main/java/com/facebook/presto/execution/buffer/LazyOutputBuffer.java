@@ -160,6 +160,10 @@ public class LazyOutputBuffer
                     }
                     switch (newOutputBuffers.getType()) {
                         case PARTITIONED:
+                            if (spoolingOutputBufferFactory.isPartitionedOutputSpoolingEnabled()) {
+                                outputBuffer = spoolingOutputBufferFactory.createSpoolingPartitionedOutputBuffer(taskId, taskInstanceId, newOutputBuffers, state, maxBufferSizeInBytes, systemMemoryContextSupplier);
+                                break;
+                            }
                             outputBuffer = new PartitionedOutputBuffer(taskInstanceId, state, newOutputBuffers, maxBufferSizeInBytes, systemMemoryContextSupplier, executor);
                             break;
                         case BROADCAST:
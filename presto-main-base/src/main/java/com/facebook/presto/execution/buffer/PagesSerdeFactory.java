@@ -38,6 +38,7 @@ public class PagesSerdeFactory
     private final BlockEncodingSerde blockEncodingSerde;
     private final CompressionCodec compressionCodec;
     private final boolean checksumEnabled;
+    private final boolean adaptiveCompression;
 
     public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, CompressionCodec compressionCodec)
     {
@@ -45,25 +46,31 @@ public class PagesSerdeFactory
     }
 
     public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, CompressionCodec compressionCodec, boolean checksumEnabled)
+    {
+        this(blockEncodingSerde, compressionCodec, checksumEnabled, false);
+    }
+
+    public PagesSerdeFactory(BlockEncodingSerde blockEncodingSerde, CompressionCodec compressionCodec, boolean checksumEnabled, boolean adaptiveCompression)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
         this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
         this.checksumEnabled = checksumEnabled;
+        this.adaptiveCompression = adaptiveCompression;
     }
 
     public PagesSerde createPagesSerde()
     {
-        return createPagesSerdeInternal(Optional.empty());
+        return createPagesSerdeInternal(Optional.empty(), adaptiveCompression);
     }
 
     public PagesSerde createPagesSerdeForSpill(Optional<SpillCipher> spillCipher)
     {
-        return createPagesSerdeInternal(spillCipher);
+        return createPagesSerdeInternal(spillCipher, false);
     }
 
-    private PagesSerde createPagesSerdeInternal(Optional<SpillCipher> spillCipher)
+    private PagesSerde createPagesSerdeInternal(Optional<SpillCipher> spillCipher, boolean adaptiveCompression)
     {
-        return new PagesSerde(blockEncodingSerde, getPageCompressor(), getPageDecompressor(), spillCipher, checksumEnabled);
+        return new PagesSerde(blockEncodingSerde, getPageCompressor(), getPageDecompressor(), spillCipher, checksumEnabled, adaptiveCompression);
     }
 
     private Optional<PageCompressor> getPageCompressor()
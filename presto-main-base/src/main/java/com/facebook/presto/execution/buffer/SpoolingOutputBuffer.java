@@ -67,10 +67,12 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterators.advance;
 import static com.google.common.collect.Range.closedOpen;
 import static com.google.common.util.concurrent.Futures.catchingAsync;
+import static com.google.common.util.concurrent.Futures.getDone;
 import static com.google.common.util.concurrent.Futures.immediateFailedFuture;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.Futures.transform;
 import static com.google.common.util.concurrent.Futures.transformAsync;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 
@@ -87,6 +89,7 @@ public class SpoolingOutputBuffer
     private final long thresholdInBytes;
     private final FinalizerService finalizerService;
     private final ListeningExecutorService executor;
+    private final boolean retainAcknowledgedPages;
 
     private final AtomicLong totalBufferedBytes = new AtomicLong();
     private final AtomicLong totalBufferedPages = new AtomicLong();
@@ -107,10 +110,20 @@ public class SpoolingOutputBuffer
 
     private final AtomicLong totalStorageBytesAdded = new AtomicLong();
     private final AtomicLong totalStoragePagesAdded = new AtomicLong();
+    private final AtomicLong pendingWriteBytes = new AtomicLong();
+
+    private volatile Runnable memoryChangeListener = () -> {};
 
     @GuardedBy("this")
     private final Deque<HandleInfo> handleInfoQueue = new LinkedList<>();
 
+    // the files of acknowledged pages, which are kept for a consumer that reads the buffer again after a rewind
+    @GuardedBy("this")
+    private final Deque<HandleInfo> acknowledgedHandleInfoQueue = new LinkedList<>();
+
+    @GuardedBy("this")
+    private boolean rewound;
+
     @GuardedBy("this")
     private final Queue<SerializedPage> pages = new ArrayDeque<>();
 
@@ -126,6 +139,20 @@ public class SpoolingOutputBuffer
             long thresholdInBytes,
             ListeningExecutorService executor,
             FinalizerService finalizerService)
+    {
+        this(taskId, taskInstanceId, outputBuffers, state, tempStorage, thresholdInBytes, executor, finalizerService, false);
+    }
+
+    public SpoolingOutputBuffer(
+            TaskId taskId,
+            String taskInstanceId,
+            OutputBuffers outputBuffers,
+            StateMachine<BufferState> state,
+            TempStorage tempStorage,
+            long thresholdInBytes,
+            ListeningExecutorService executor,
+            FinalizerService finalizerService,
+            boolean retainAcknowledgedPages)
     {
         this.taskId = requireNonNull(taskId, "taskId is null");
         this.taskInstanceId = requireNonNull(taskInstanceId, "taskInstanceIs is null");
@@ -136,6 +163,7 @@ public class SpoolingOutputBuffer
         this.thresholdInBytes = thresholdInBytes;
         this.executor = requireNonNull(executor, "executor is null");
         this.finalizerService = requireNonNull(finalizerService, "finalizerService is null");
+        this.retainAcknowledgedPages = retainAcknowledgedPages;
         this.finalizerService.addFinalizer(this, this::close);
 
         tempDataOperationContext = new TempDataOperationContext(Optional.empty(), taskId.getQueryId().toString(), Optional.empty(), Optional.empty(), new Identity("spooling-buffer", Optional.empty()));
@@ -239,6 +267,7 @@ public class SpoolingOutputBuffer
             pendingRead = this.pendingRead;
             this.pendingRead = null;
         }
+        memoryChangeListener.run();
 
         if (pendingRead != null) {
             processPendingRead(pendingRead);
@@ -267,6 +296,11 @@ public class SpoolingOutputBuffer
 
         // store the handleFuture and file information
         long bytes = totalInMemoryBytes.get();
+        pendingWriteBytes.addAndGet(bytes);
+        handleFuture.addListener(() -> {
+            pendingWriteBytes.addAndGet(-bytes);
+            memoryChangeListener.run();
+        }, directExecutor());
         int pageCount = pages.size();
         HandleInfo handleInfo = new HandleInfo(
                 closedOpen(currentMemorySequenceId.get(), currentMemorySequenceId.get() + pageCount),
@@ -294,6 +328,14 @@ public class SpoolingOutputBuffer
         checkArgument(bufferId.getId() == outputBufferId.getId(), "Invalid buffer id");
         checkArgument(maxSizeInBytes > 0, "maxSize must be at least 1 byte");
 
+        if (rewound) {
+            // the failed consumer may still have requests in flight, which must not acknowledge the pages of the next consumer
+            if (startSequenceId != this.currentSequenceId.get()) {
+                return immediateFuture(emptyResults(taskInstanceId, startSequenceId, false));
+            }
+            rewound = false;
+        }
+
         acknowledge(bufferId, startSequenceId);
 
         long currentSequenceId = this.currentSequenceId.get();
@@ -449,8 +491,8 @@ public class SpoolingOutputBuffer
         checkArgument(bufferId.getId() == outputBufferId.getId(), "Invalid buffer id");
         checkArgument(sequenceId >= 0, "Invalid sequenceId");
 
-        // ignore if buffer is destroyed OR pages have been acknowledged already
-        if (state.get() == FINISHED || sequenceId < currentSequenceId.get()) {
+        // ignore if buffer is destroyed OR pages have been acknowledged already OR the next consumer did not start reading yet
+        if (state.get() == FINISHED || sequenceId < currentSequenceId.get() || rewound) {
             return;
         }
 
@@ -463,9 +505,17 @@ public class SpoolingOutputBuffer
         // remove the pages from storage
         currentSequenceId += acknowledgePagesFromStorage(sequenceId);
 
-        // remove the pages from memory
         if (currentSequenceId < sequenceId) {
-            acknowledgePagesFromMemory(sequenceId, currentSequenceId);
+            if (retainAcknowledgedPages) {
+                // write the pages to storage, so that they can be read again after a rewind
+                flush();
+                currentSequenceId += acknowledgePagesFromStorage(sequenceId);
+                memoryChangeListener.run();
+            }
+            else {
+                // remove the pages from memory
+                acknowledgePagesFromMemory(sequenceId, currentSequenceId);
+            }
         }
 
         verify(this.currentSequenceId.compareAndSet(oldSequenceId, oldSequenceId + pagesToRemove));
@@ -482,7 +532,12 @@ public class SpoolingOutputBuffer
             Range<Long> range = handleInfo.getRange();
 
             if (range.upperEndpoint() <= sequenceId) {
-                handleInfo.removeFile();
+                if (retainAcknowledgedPages) {
+                    acknowledgedHandleInfoQueue.add(handleInfo);
+                }
+                else {
+                    handleInfo.removeFile();
+                }
                 handleInfoQueue.removeFirst();
 
                 pagesAcknowledged += handleInfo.getPageCount() - startPage.get();
@@ -522,6 +577,7 @@ public class SpoolingOutputBuffer
         totalBufferedBytes.addAndGet(-bytesRemoved);
         totalInMemoryBytes.addAndGet(-bytesRemoved);
         totalPagesRemaining.addAndGet(-pagesToRemove);
+        memoryChangeListener.run();
     }
 
     @Override
@@ -558,7 +614,8 @@ public class SpoolingOutputBuffer
             return;
         }
 
-        if (totalBufferedPages.get() == 0) {
+        // the retained pages are removed once the consumer aborts the buffer after reading all of them
+        if (totalBufferedPages.get() == 0 && !retainAcknowledgedPages) {
             destroy();
         }
     }
@@ -591,12 +648,104 @@ public class SpoolingOutputBuffer
         for (HandleInfo handleInfo : handleInfoQueue) {
             handleInfo.removeFile();
         }
+        for (HandleInfo handleInfo : acknowledgedHandleInfoQueue) {
+            handleInfo.removeFile();
+        }
         pages.clear();
         handleInfoQueue.clear();
+        acknowledgedHandleInfoQueue.clear();
         noMorePages.set(true);
         totalBufferedPages.set(0);
         totalBufferedBytes.set(0);
         totalPagesRemaining.set(0);
+        totalInMemoryBytes.set(0);
+        memoryChangeListener.run();
+    }
+
+    /**
+     * Writes the pages held in memory to storage, regardless of the threshold.
+     */
+    synchronized void spool()
+    {
+        if (!pages.isEmpty() && !state.get().isTerminal()) {
+            flush();
+        }
+    }
+
+    /**
+     * Makes the acknowledged pages readable again from the first page, after the consumer of the
+     * buffer failed. Requests are ignored until the next consumer reads from the first page, so the
+     * requests of the failed consumer that are still in flight do not acknowledge any pages.
+     */
+    void rewind()
+    {
+        PendingRead pendingRead;
+        synchronized (this) {
+            checkState(retainAcknowledgedPages, "Acknowledged pages are not retained");
+            if (state.get().isTerminal()) {
+                return;
+            }
+
+            // a partially acknowledged file stays at the head of the queue
+            Iterator<HandleInfo> acknowledgedHandleInfos = acknowledgedHandleInfoQueue.descendingIterator();
+            while (acknowledgedHandleInfos.hasNext()) {
+                HandleInfo handleInfo = acknowledgedHandleInfos.next();
+                handleInfoQueue.addFirst(handleInfo);
+                totalBufferedPages.addAndGet(handleInfo.getPageCount());
+                totalBufferedBytes.addAndGet(handleInfo.getBytes());
+            }
+            acknowledgedHandleInfoQueue.clear();
+
+            // all acknowledged pages are in storage, so the first file starts at the first page
+            long firstSequenceId = handleInfoQueue.isEmpty() ? currentMemorySequenceId.get() : handleInfoQueue.getFirst().getRange().lowerEndpoint();
+            totalPagesRemaining.addAndGet(currentSequenceId.get() - firstSequenceId);
+            currentSequenceId.set(firstSequenceId);
+            startPage.set(0);
+            rewound = true;
+
+            pendingRead = this.pendingRead;
+            this.pendingRead = null;
+        }
+
+        if (pendingRead != null) {
+            pendingRead.completeResultFutureWithEmpty();
+        }
+    }
+
+    /**
+     * Returns whether no more pages are added and all pages were acknowledged.
+     */
+    boolean isDrained()
+    {
+        return noMorePages.get() && totalPagesRemaining.get() == 0;
+    }
+
+    /**
+     * Sets a listener that is called whenever the bytes held in memory or waiting to be written change.
+     * The listener may be called while the lock of this buffer is held.
+     */
+    void setMemoryChangeListener(Runnable memoryChangeListener)
+    {
+        this.memoryChangeListener = requireNonNull(memoryChangeListener, "memoryChangeListener is null");
+    }
+
+    long getInMemoryBytes()
+    {
+        return totalInMemoryBytes.get();
+    }
+
+    long getPendingWriteBytes()
+    {
+        return pendingWriteBytes.get();
+    }
+
+    BufferInfo getBufferInfo(int partition)
+    {
+        // lock free, like the info of the other buffers
+        boolean finished = isFinished();
+        int bufferedPages = finished ? 0 : toIntExact(totalBufferedPages.get());
+        PageBufferInfo pageBufferInfo = new PageBufferInfo(partition, bufferedPages, totalBufferedBytes.get(), totalRowsAdded.get(), totalPagesAdded.get());
+        return new BufferInfo(new OutputBufferId(partition), finished, bufferedPages, currentSequenceId.get(), pageBufferInfo);
     }
 
     @Override
@@ -664,14 +813,15 @@ public class SpoolingOutputBuffer
 
         public void removeFile()
         {
-            executor.execute(() -> {
+            // wait for the write without holding a thread of the bounded executor
+            handleFuture.addListener(() -> {
                 try {
-                    tempStorage.remove(tempDataOperationContext, handleFuture.get());
+                    tempStorage.remove(tempDataOperationContext, getDone(handleFuture));
                 }
                 catch (Exception e) {
                     log.error(e, "Failed to remove file from TempStorage");
                 }
-            });
+            }, executor);
         }
     }
 
@@ -15,12 +15,14 @@ package com.facebook.presto.execution.buffer;
 
 import com.facebook.presto.execution.StateMachine;
 import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spiller.LocalTempStorage;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.storage.TempStorageManager;
 import com.facebook.presto.testing.TestingTempStorageManager;
 import com.facebook.presto.util.FinalizerService;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.io.Closer;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
@@ -30,15 +32,21 @@ import javax.annotation.PreDestroy;
 
 import java.io.IOException;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.execution.buffer.BufferState.OPEN;
+import static com.facebook.presto.execution.buffer.BufferState.TERMINAL_BUFFER_STATES;
+import static com.facebook.presto.execution.buffer.OutputBuffers.createSpoolingOutputBuffers;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 
 public class SpoolingOutputBufferFactory
 {
     private ListeningExecutorService executor;
+    private ListeningExecutorService partitionedExecutor;
 
     private final FeaturesConfig featuresConfig;
     private final TempStorageManager tempStorageManager;
@@ -47,6 +55,7 @@ public class SpoolingOutputBufferFactory
     private final Closer closer = Closer.create();
 
     private final ExecutorService coreExecutor = newCachedThreadPool(daemonThreadsNamed("spooling-outputbuffer-%s"));
+    private final ExecutorService partitionedCoreExecutor;
 
     @Inject
     public SpoolingOutputBufferFactory(FeaturesConfig featuresConfig, TempStorageManager tempStorageManager, FinalizerService finalizerService)
@@ -54,6 +63,7 @@ public class SpoolingOutputBufferFactory
         this.featuresConfig = requireNonNull(featuresConfig, "featuresConfig is null");
         this.tempStorageManager = requireNonNull(tempStorageManager, "tempStorageManger is null");
         this.finalizerService = requireNonNull(finalizerService, "finalizerService is null");
+        this.partitionedCoreExecutor = newFixedThreadPool(featuresConfig.getSpoolingPartitionedOutputBufferThreads(), daemonThreadsNamed("spooling-partitioned-outputbuffer-%s"));
     }
 
     @VisibleForTesting
@@ -62,6 +72,7 @@ public class SpoolingOutputBufferFactory
         this.featuresConfig = requireNonNull(featuresConfig);
         tempStorageManager = new TestingTempStorageManager();
         finalizerService = new FinalizerService();
+        partitionedCoreExecutor = newFixedThreadPool(featuresConfig.getSpoolingPartitionedOutputBufferThreads(), daemonThreadsNamed("spooling-partitioned-outputbuffer-%s"));
 
         initialize();
     }
@@ -70,7 +81,9 @@ public class SpoolingOutputBufferFactory
     public void initialize()
     {
         closer.register(coreExecutor::shutdownNow);
+        closer.register(partitionedCoreExecutor::shutdownNow);
         executor = listeningDecorator(coreExecutor);
+        partitionedExecutor = listeningDecorator(partitionedCoreExecutor);
     }
 
     @PreDestroy
@@ -96,4 +109,37 @@ public class SpoolingOutputBufferFactory
                 executor,
                 finalizerService);
     }
+
+    public boolean isPartitionedOutputSpoolingEnabled()
+    {
+        return featuresConfig.isSpoolingPartitionedOutputBufferEnabled();
+    }
+
+    public SpoolingPartitionedOutputBuffer createSpoolingPartitionedOutputBuffer(
+            TaskId taskId,
+            String taskInstanceId,
+            OutputBuffers outputBuffers,
+            StateMachine<BufferState> state,
+            long maxBufferSizeInBytes,
+            Supplier<LocalMemoryContext> systemMemoryContextSupplier)
+    {
+        int partitionCount = outputBuffers.getBuffers().size();
+        // the threshold applies to the whole task, which spools its largest partition once the threshold is reached
+        long thresholdInBytes = featuresConfig.getSpoolingOutputBufferThreshold().toBytes();
+
+        ImmutableList.Builder<SpoolingOutputBuffer> partitions = ImmutableList.builder();
+        for (int partition = 0; partition < partitionCount; partition++) {
+            partitions.add(new SpoolingOutputBuffer(
+                    taskId,
+                    taskInstanceId,
+                    createSpoolingOutputBuffers(),
+                    new StateMachine<>(taskId + "-buffer-" + partition, partitionedExecutor, OPEN, TERMINAL_BUFFER_STATES),
+                    tempStorageManager.getTempStorage(LocalTempStorage.NAME),
+                    thresholdInBytes,
+                    partitionedExecutor,
+                    finalizerService,
+                    true));
+        }
+        return new SpoolingPartitionedOutputBuffer(state, outputBuffers, partitions.build(), thresholdInBytes, maxBufferSizeInBytes, systemMemoryContextSupplier, partitionedExecutor);
+    }
 }
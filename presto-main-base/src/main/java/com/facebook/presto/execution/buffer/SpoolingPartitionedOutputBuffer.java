@@ -0,0 +1,358 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import com.facebook.presto.execution.Lifespan;
+import com.facebook.presto.execution.StateMachine;
+import com.facebook.presto.execution.StateMachine.StateChangeListener;
+import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static com.facebook.presto.execution.buffer.BufferState.FAILED;
+import static com.facebook.presto.execution.buffer.BufferState.FINISHED;
+import static com.facebook.presto.execution.buffer.BufferState.FLUSHING;
+import static com.facebook.presto.execution.buffer.BufferState.NO_MORE_BUFFERS;
+import static com.facebook.presto.execution.buffer.BufferState.NO_MORE_PAGES;
+import static com.facebook.presto.execution.buffer.BufferState.OPEN;
+import static com.facebook.presto.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A partitioned output buffer that spools the pages of every partition to temp storage through
+ * a {@link SpoolingOutputBuffer} per partition. Once the pages held in memory by all partitions
+ * reach the spooling threshold, the largest partition is written to storage, so producers are not
+ * blocked on slow consumers. Producers are only blocked while more than the max buffer size is
+ * waiting to be written, or when the memory pool is exhausted.
+ * <p>
+ * The partitions keep the pages acknowledged by their consumer in storage until the consumer has
+ * read the whole partition. When a consumer aborts its partition before that, the partition is
+ * rewound instead of destroyed, so a retried consumer reads it again from the first page without
+ * re-running the producing task. The retained files are removed when the partition is drained or
+ * the buffer is destroyed, which for a consumer that stops early, like a limit, is the end of the query.
+ */
+public class SpoolingPartitionedOutputBuffer
+        implements OutputBuffer
+{
+    // the partition buffers only know about buffer id 0
+    private static final OutputBufferId PARTITION_BUFFER_ID = new OutputBufferId(0);
+
+    private final StateMachine<BufferState> state;
+    private final OutputBuffers outputBuffers;
+    private final List<SpoolingOutputBuffer> partitions;
+    private final long thresholdInBytes;
+    private final OutputBufferMemoryManager memoryManager;
+
+    private final Set<Lifespan> noMorePagesLifespans = ConcurrentHashMap.newKeySet();
+    private volatile Consumer<Lifespan> lifespanCompletionCallback;
+
+    @GuardedBy("this")
+    private long reportedMemoryBytes;
+
+    public SpoolingPartitionedOutputBuffer(
+            StateMachine<BufferState> state,
+            OutputBuffers outputBuffers,
+            List<SpoolingOutputBuffer> partitions,
+            long thresholdInBytes,
+            long maxBufferSizeInBytes,
+            Supplier<LocalMemoryContext> systemMemoryContextSupplier,
+            Executor notificationExecutor)
+    {
+        this.state = requireNonNull(state, "state is null");
+
+        requireNonNull(outputBuffers, "outputBuffers is null");
+        checkArgument(outputBuffers.getType() == PARTITIONED, "Expected a PARTITIONED output buffer descriptor");
+        checkArgument(outputBuffers.isNoMoreBufferIds(), "Expected a final output buffer descriptor");
+        this.outputBuffers = outputBuffers;
+
+        this.partitions = ImmutableList.copyOf(requireNonNull(partitions, "partitions is null"));
+        checkArgument(this.partitions.size() == outputBuffers.getBuffers().size(), "Expected %s partitions, got %s", outputBuffers.getBuffers().size(), this.partitions.size());
+
+        checkArgument(thresholdInBytes >= 0, "thresholdInBytes must be >= 0");
+        checkArgument(maxBufferSizeInBytes > 0, "maxBufferSizeInBytes must be at least 1");
+        this.thresholdInBytes = thresholdInBytes;
+        // the pages in memory stay below the threshold, so only the pages waiting to be written can fill the buffer
+        this.memoryManager = new OutputBufferMemoryManager(
+                thresholdInBytes + maxBufferSizeInBytes,
+                requireNonNull(systemMemoryContextSupplier, "systemMemoryContextSupplier is null"),
+                requireNonNull(notificationExecutor, "notificationExecutor is null"));
+        this.partitions.forEach(partition -> partition.setMemoryChangeListener(this::updateMemoryUsage));
+
+        state.compareAndSet(OPEN, NO_MORE_BUFFERS);
+        state.compareAndSet(NO_MORE_PAGES, FLUSHING);
+        checkFlushComplete();
+    }
+
+    @Override
+    public OutputBufferInfo getInfo()
+    {
+        // always get the state first before any other stats
+        BufferState state = this.state.get();
+
+        long totalBufferedBytes = 0;
+        long totalBufferedPages = 0;
+        long totalRowsSent = 0;
+        long totalPagesSent = 0;
+        ImmutableList.Builder<BufferInfo> infos = ImmutableList.builderWithExpectedSize(partitions.size());
+        for (int partition = 0; partition < partitions.size(); partition++) {
+            BufferInfo info = partitions.get(partition).getBufferInfo(partition);
+            infos.add(info);
+
+            PageBufferInfo pageBufferInfo = info.getPageBufferInfo();
+            totalBufferedBytes += pageBufferInfo.getBufferedBytes();
+            totalBufferedPages += pageBufferInfo.getBufferedPages();
+            totalRowsSent += pageBufferInfo.getRowsAdded();
+            totalPagesSent += pageBufferInfo.getPagesAdded();
+        }
+
+        return new OutputBufferInfo(
+                "SPOOLING_PARTITIONED",
+                state,
+                state.canAddBuffers(),
+                state.canAddPages(),
+                totalBufferedBytes,
+                totalBufferedPages,
+                totalRowsSent,
+                totalPagesSent,
+                infos.build());
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return state.get() == FINISHED;
+    }
+
+    @Override
+    public double getUtilization()
+    {
+        return memoryManager.getUtilization();
+    }
+
+    @Override
+    public boolean isOverutilized()
+    {
+        return memoryManager.isOverutilized();
+    }
+
+    @Override
+    public long getPeakMemoryUsage()
+    {
+        return memoryManager.getPeakMemoryUsage();
+    }
+
+    @Override
+    public void addStateChangeListener(StateChangeListener<BufferState> stateChangeListener)
+    {
+        state.addStateChangeListener(stateChangeListener);
+    }
+
+    @Override
+    public void setOutputBuffers(OutputBuffers newOutputBuffers)
+    {
+        requireNonNull(newOutputBuffers, "newOutputBuffers is null");
+
+        // ignore buffers added after query finishes, which can happen when a query is canceled
+        // also ignore old versions, which is normal
+        if (state.get().isTerminal() || outputBuffers.getVersion() >= newOutputBuffers.getVersion()) {
+            return;
+        }
+
+        // no more buffers can be added but verify this is valid state change
+        outputBuffers.checkValidTransition(newOutputBuffers);
+    }
+
+    @Override
+    public ListenableFuture<?> isFull()
+    {
+        return memoryManager.getBufferBlockedFuture();
+    }
+
+    @Override
+    public void enqueue(Lifespan lifespan, List<SerializedPage> pages)
+    {
+        checkState(partitions.size() == 1, "Expected exactly one partition");
+        enqueue(lifespan, 0, pages);
+    }
+
+    @Override
+    public void enqueue(Lifespan lifespan, int partitionNumber, List<SerializedPage> pages)
+    {
+        requireNonNull(lifespan, "lifespan is null");
+        requireNonNull(pages, "pages is null");
+
+        // ignore pages after "no more pages" is set
+        // this can happen with a limit query
+        if (!state.get().canAddPages() || noMorePagesLifespans.contains(lifespan)) {
+            return;
+        }
+        partitions.get(partitionNumber).enqueue(lifespan, pages);
+        spoolIfNecessary();
+    }
+
+    @Override
+    public ListenableFuture<BufferResult> get(OutputBufferId bufferId, long startingSequenceId, long maxSizeInBytes)
+    {
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(maxSizeInBytes > 0, "maxSize must be at least 1 byte");
+
+        return partitions.get(bufferId.getId()).get(PARTITION_BUFFER_ID, startingSequenceId, maxSizeInBytes);
+    }
+
+    @Override
+    public void acknowledge(OutputBufferId bufferId, long sequenceId)
+    {
+        requireNonNull(bufferId, "bufferId is null");
+
+        partitions.get(bufferId.getId()).acknowledge(PARTITION_BUFFER_ID, sequenceId);
+    }
+
+    @Override
+    public void abort(OutputBufferId bufferId)
+    {
+        requireNonNull(bufferId, "bufferId is null");
+
+        SpoolingOutputBuffer partition = partitions.get(bufferId.getId());
+        if (partition.isDrained()) {
+            partition.abort(PARTITION_BUFFER_ID);
+        }
+        else {
+            // the consumer failed, so the partition is kept for the consumer that retries it
+            partition.rewind();
+        }
+
+        checkFlushComplete();
+    }
+
+    @Override
+    public void setNoMorePages()
+    {
+        state.compareAndSet(OPEN, NO_MORE_PAGES);
+        state.compareAndSet(NO_MORE_BUFFERS, FLUSHING);
+        memoryManager.setNoBlockOnFull();
+
+        partitions.forEach(SpoolingOutputBuffer::setNoMorePages);
+
+        checkFlushComplete();
+    }
+
+    @Override
+    public void destroy()
+    {
+        // ignore destroy if the buffer already in a terminal state.
+        if (state.setIf(FINISHED, oldState -> !oldState.isTerminal())) {
+            partitions.forEach(SpoolingOutputBuffer::destroy);
+            memoryManager.setNoBlockOnFull();
+            memoryManager.close();
+        }
+    }
+
+    @Override
+    public void fail()
+    {
+        // ignore fail if the buffer already in a terminal state.
+        if (state.setIf(FAILED, oldState -> !oldState.isTerminal())) {
+            memoryManager.setNoBlockOnFull();
+            memoryManager.close();
+            // DO NOT destroy buffers or set no more pages.  The coordinator manages the teardown of failed queries.
+            partitions.forEach(SpoolingOutputBuffer::fail);
+        }
+    }
+
+    @Override
+    public void setNoMorePagesForLifespan(Lifespan lifespan)
+    {
+        requireNonNull(lifespan, "lifespan is null");
+
+        // the pages of the lifespan are owned by the partition buffers as soon as they are enqueued,
+        // so the lifespan does not have to wait for the consumers
+        if (noMorePagesLifespans.add(lifespan)) {
+            Consumer<Lifespan> callback = lifespanCompletionCallback;
+            checkState(callback != null, "lifespanCompletionCallback is not set");
+            callback.accept(lifespan);
+        }
+    }
+
+    @Override
+    public void registerLifespanCompletionCallback(Consumer<Lifespan> callback)
+    {
+        checkState(lifespanCompletionCallback == null, "lifespanCompletionCallback is already set");
+        lifespanCompletionCallback = requireNonNull(callback, "callback is null");
+    }
+
+    @Override
+    public boolean isFinishedForLifespan(Lifespan lifespan)
+    {
+        return noMorePagesLifespans.contains(lifespan);
+    }
+
+    private void spoolIfNecessary()
+    {
+        long inMemoryBytes = 0;
+        SpoolingOutputBuffer largestPartition = null;
+        long largestPartitionBytes = 0;
+        for (SpoolingOutputBuffer partition : partitions) {
+            long partitionBytes = partition.getInMemoryBytes();
+            inMemoryBytes += partitionBytes;
+            if (partitionBytes > largestPartitionBytes) {
+                largestPartition = partition;
+                largestPartitionBytes = partitionBytes;
+            }
+        }
+        if (largestPartition != null && inMemoryBytes >= thresholdInBytes) {
+            largestPartition.spool();
+        }
+    }
+
+    private synchronized void updateMemoryUsage()
+    {
+        long bytes = 0;
+        for (SpoolingOutputBuffer partition : partitions) {
+            bytes += partition.getInMemoryBytes() + partition.getPendingWriteBytes();
+        }
+        memoryManager.updateMemoryUsage(bytes - reportedMemoryBytes);
+        reportedMemoryBytes = bytes;
+    }
+
+    @VisibleForTesting
+    OutputBufferMemoryManager getMemoryManager()
+    {
+        return memoryManager;
+    }
+
+    private void checkFlushComplete()
+    {
+        if (state.get() != FLUSHING && state.get() != NO_MORE_BUFFERS) {
+            return;
+        }
+
+        if (partitions.stream().allMatch(SpoolingOutputBuffer::isFinished)) {
+            destroy();
+        }
+    }
+}
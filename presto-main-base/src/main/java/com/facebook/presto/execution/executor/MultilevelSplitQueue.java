@@ -20,7 +20,6 @@ import com.google.common.collect.ImmutableList;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
-import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
 
@@ -28,31 +27,41 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.base.Preconditions.checkState;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
+/**
+ * The waiting splits of every level are kept in a separate priority queue with its own lock, so
+ * that runner threads taking splits from different levels, and tasks offering splits to different
+ * levels, do not contend with each other. Level selection only reads the per-level split counts
+ * and scheduled times, which are atomics, and the lock of a level is held just long enough to
+ * poll or offer a single split.
+ */
 @ThreadSafe
 public class MultilevelSplitQueue
 {
     static final int[] LEVEL_THRESHOLD_SECONDS = {0, 1, 10, 60, 300};
     static final long LEVEL_CONTRIBUTION_CAP = SECONDS.toNanos(30);
 
-    @GuardedBy("lock")
+    // each queue is guarded by itself
     private final List<PriorityQueue<PrioritizedSplitRunner>> levelWaitingSplits;
+    // updated while holding the lock of the level, read without it
+    private final AtomicInteger[] levelWaitingSplitCounts = new AtomicInteger[LEVEL_THRESHOLD_SECONDS.length];
 
     private final AtomicLong[] levelScheduledTime = new AtomicLong[LEVEL_THRESHOLD_SECONDS.length];
 
     private final AtomicLong[] levelMinPriority;
     private final List<CounterStat> selectedLevelCounters;
 
-    private final ReentrantLock lock = new ReentrantLock();
-    private final Condition notEmpty = lock.newCondition();
+    // one permit per offered split. Splits that are removed without being taken leave a stale
+    // permit behind, which makes a taker look for a split one extra time, so there are never
+    // fewer permits than waiting splits.
+    private final Semaphore waitingSplitPermits = new Semaphore(0);
 
     private final double levelTimeMultiplier;
 
@@ -72,6 +81,7 @@ public class MultilevelSplitQueue
             levelScheduledTime[i] = new AtomicLong();
             levelMinPriority[i] = new AtomicLong(-1);
             levelWaitingSplits.add(new PriorityQueue<>());
+            levelWaitingSplitCounts[i] = new AtomicInteger();
             counters.add(new CounterStat());
         }
 
@@ -101,9 +111,9 @@ public class MultilevelSplitQueue
 
         split.setReady();
         int level = split.getPriority().getLevel();
-        lock.lock();
-        try {
-            if (levelWaitingSplits.get(level).isEmpty()) {
+        PriorityQueue<PrioritizedSplitRunner> waitingSplits = levelWaitingSplits.get(level);
+        synchronized (waitingSplits) {
+            if (waitingSplits.isEmpty()) {
                 // Accesses to levelScheduledTime are not synchronized, so we have a data race
                 // here - our level time math will be off. However, the staleness is bounded by
                 // the fact that only running splits that complete during this computation
@@ -114,39 +124,33 @@ public class MultilevelSplitQueue
                 levelScheduledTime[level].addAndGet(delta);
             }
 
-            levelWaitingSplits.get(level).offer(split);
-            notEmpty.signal();
-        }
-        finally {
-            lock.unlock();
+            waitingSplits.offer(split);
+            levelWaitingSplitCounts[level].incrementAndGet();
         }
+        waitingSplitPermits.release();
     }
 
     public PrioritizedSplitRunner take()
             throws InterruptedException
     {
         while (true) {
-            lock.lockInterruptibly();
-            try {
-                PrioritizedSplitRunner result;
-                while ((result = pollSplit()) == null) {
-                    notEmpty.await();
-                }
+            waitingSplitPermits.acquire();
+            PrioritizedSplitRunner result = pollSplit();
+            if (result == null) {
+                // the permit belonged to a removed split
+                continue;
+            }
 
-                if (result.updateLevelPriority()) {
-                    offer(result);
-                    continue;
-                }
+            if (result.updateLevelPriority()) {
+                offer(result);
+                continue;
+            }
 
-                int selectedLevel = result.getPriority().getLevel();
-                levelMinPriority[selectedLevel].set(result.getPriority().getLevelPriority());
-                selectedLevelCounters.get(selectedLevel).update(1);
+            int selectedLevel = result.getPriority().getLevel();
+            levelMinPriority[selectedLevel].set(result.getPriority().getLevelPriority());
+            selectedLevelCounters.get(selectedLevel).update(1);
 
-                return result;
-            }
-            finally {
-                lock.unlock();
-            }
+            return result;
         }
     }
 
@@ -157,15 +161,36 @@ public class MultilevelSplitQueue
      * This function selects the level that has the lowest ratio of actual to the target time
      * with the objective of minimizing deviation from the target scheduled time. From this level,
      * we pick the split with the lowest priority.
+     * <p>
+     * The level is selected without holding any lock, so another thread may empty it before
+     * the split is polled, in which case the selection is repeated.
      */
-    @GuardedBy("lock")
     private PrioritizedSplitRunner pollSplit()
+    {
+        while (true) {
+            int selectedLevel = selectLevel();
+            if (selectedLevel == -1) {
+                return null;
+            }
+
+            PriorityQueue<PrioritizedSplitRunner> waitingSplits = levelWaitingSplits.get(selectedLevel);
+            synchronized (waitingSplits) {
+                PrioritizedSplitRunner result = waitingSplits.poll();
+                if (result != null) {
+                    levelWaitingSplitCounts[selectedLevel].decrementAndGet();
+                    return result;
+                }
+            }
+        }
+    }
+
+    private int selectLevel()
     {
         long targetScheduledTime = getLevel0TargetTime();
         double worstRatio = 1;
         int selectedLevel = -1;
         for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
-            if (!levelWaitingSplits.get(level).isEmpty()) {
+            if (levelWaitingSplitCounts[level].get() > 0) {
                 long levelTime = levelScheduledTime[level].get();
                 double ratio = levelTime == 0 ? 0 : targetScheduledTime / (1.0 * levelTime);
                 if (selectedLevel == -1 || ratio > worstRatio) {
@@ -176,18 +201,9 @@ public class MultilevelSplitQueue
 
             targetScheduledTime /= levelTimeMultiplier;
         }
-
-        if (selectedLevel == -1) {
-            return null;
-        }
-
-        PrioritizedSplitRunner result = levelWaitingSplits.get(selectedLevel).poll();
-        checkState(result != null, "pollSplit cannot return null");
-
-        return result;
+        return selectedLevel;
     }
 
-    @GuardedBy("lock")
     private long getLevel0TargetTime()
     {
         long level0TargetTime = levelScheduledTime[0].get();
@@ -247,28 +263,26 @@ public class MultilevelSplitQueue
     public void remove(PrioritizedSplitRunner split)
     {
         checkArgument(split != null, "split is null");
-        lock.lock();
-        try {
-            for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
-                level.remove(split);
+        for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
+            PriorityQueue<PrioritizedSplitRunner> waitingSplits = levelWaitingSplits.get(level);
+            synchronized (waitingSplits) {
+                if (waitingSplits.remove(split)) {
+                    levelWaitingSplitCounts[level].decrementAndGet();
+                }
             }
         }
-        finally {
-            lock.unlock();
-        }
     }
 
     public void removeAll(Collection<PrioritizedSplitRunner> splits)
     {
-        lock.lock();
-        try {
-            for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
-                level.removeAll(splits);
+        for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
+            PriorityQueue<PrioritizedSplitRunner> waitingSplits = levelWaitingSplits.get(level);
+            synchronized (waitingSplits) {
+                int sizeBefore = waitingSplits.size();
+                waitingSplits.removeAll(splits);
+                levelWaitingSplitCounts[level].addAndGet(waitingSplits.size() - sizeBefore);
             }
         }
-        finally {
-            lock.unlock();
-        }
     }
 
     public long getLevelMinPriority(int level, long taskThreadUsageNanos)
@@ -279,17 +293,11 @@ public class MultilevelSplitQueue
 
     public int size()
     {
-        lock.lock();
-        try {
-            int total = 0;
-            for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
-                total += level.size();
-            }
-            return total;
-        }
-        finally {
-            lock.unlock();
+        int total = 0;
+        for (AtomicInteger count : levelWaitingSplitCounts) {
+            total += count.get();
         }
+        return total;
     }
 
     public static int computeLevel(long threadUsageNanos)
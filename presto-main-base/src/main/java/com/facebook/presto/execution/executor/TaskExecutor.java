@@ -342,7 +342,7 @@ public class TaskExecutor
         }
     }
 
-    public synchronized TaskHandle addTask(
+    public TaskHandle addTask(
             TaskId taskId,
             DoubleSupplier utilizationSupplier,
             int initialSplitConcurrency,
@@ -364,7 +364,9 @@ public class TaskExecutor
                 splitConcurrencyAdjustFrequency,
                 maxDriversPerTask);
 
-        tasks.add(taskHandle);
+        synchronized (this) {
+            tasks.add(taskHandle);
+        }
         return taskHandle;
     }
 
@@ -406,19 +408,25 @@ public class TaskExecutor
 
     public List<ListenableFuture<?>> enqueueSplits(TaskHandle taskHandle, boolean intermediate, List<? extends SplitRunner> taskSplits)
     {
-        List<PrioritizedSplitRunner> splitsToDestroy = new ArrayList<>();
+        // create the runners before taking the lock, which is shared by all tasks on the worker
+        List<PrioritizedSplitRunner> prioritizedSplitRunners = new ArrayList<>(taskSplits.size());
         List<ListenableFuture<?>> finishedFutures = new ArrayList<>(taskSplits.size());
-        synchronized (this) {
-            for (SplitRunner taskSplit : taskSplits) {
-                PrioritizedSplitRunner prioritizedSplitRunner = new PrioritizedSplitRunner(
-                        taskHandle,
-                        taskSplit,
-                        ticker,
-                        globalCpuTimeMicros,
-                        globalScheduledTimeMicros,
-                        blockedQuantaWallTime,
-                        unblockedQuantaWallTime);
+        for (SplitRunner taskSplit : taskSplits) {
+            PrioritizedSplitRunner prioritizedSplitRunner = new PrioritizedSplitRunner(
+                    taskHandle,
+                    taskSplit,
+                    ticker,
+                    globalCpuTimeMicros,
+                    globalScheduledTimeMicros,
+                    blockedQuantaWallTime,
+                    unblockedQuantaWallTime);
+            prioritizedSplitRunners.add(prioritizedSplitRunner);
+            finishedFutures.add(prioritizedSplitRunner.getFinishedFuture());
+        }
 
+        List<PrioritizedSplitRunner> splitsToDestroy = new ArrayList<>();
+        synchronized (this) {
+            for (PrioritizedSplitRunner prioritizedSplitRunner : prioritizedSplitRunners) {
                 if (intermediate) {
                     // add the runner to the handle so it can be destroyed if the task is canceled
                     if (taskHandle.recordIntermediateSplit(prioritizedSplitRunner)) {
@@ -441,8 +449,6 @@ public class TaskExecutor
                         splitsToDestroy.add(prioritizedSplitRunner);
                     }
                 }
-
-                finishedFutures.add(prioritizedSplitRunner.getFinishedFuture());
             }
         }
         for (PrioritizedSplitRunner split : splitsToDestroy) {
@@ -454,24 +460,10 @@ public class TaskExecutor
     private void splitFinished(PrioritizedSplitRunner split)
     {
         completedSplitsPerLevel.incrementAndGet(split.getPriority().getLevel());
+        boolean intermediate;
         synchronized (this) {
             allSplits.remove(split);
-
-            long wallNanos = System.nanoTime() - split.getCreatedNanos();
-            splitWallTime.add(Duration.succinctNanos(wallNanos));
-
-            if (intermediateSplits.remove(split)) {
-                intermediateSplitWallTime.add(wallNanos);
-                intermediateSplitScheduledTime.add(split.getScheduledNanos());
-                intermediateSplitWaitTime.add(split.getWaitNanos());
-                intermediateSplitCpuTime.add(split.getCpuTimeNanos());
-            }
-            else {
-                leafSplitWallTime.add(wallNanos);
-                leafSplitScheduledTime.add(split.getScheduledNanos());
-                leafSplitWaitTime.add(split.getWaitNanos());
-                leafSplitCpuTime.add(split.getCpuTimeNanos());
-            }
+            intermediate = intermediateSplits.remove(split);
 
             TaskHandle taskHandle = split.getTaskHandle();
             taskHandle.splitComplete(split);
@@ -480,6 +472,22 @@ public class TaskExecutor
 
             addNewEntrants();
         }
+
+        // the stats are thread safe, so they are recorded outside of the synchronized block
+        long wallNanos = System.nanoTime() - split.getCreatedNanos();
+        splitWallTime.add(Duration.succinctNanos(wallNanos));
+        if (intermediate) {
+            intermediateSplitWallTime.add(wallNanos);
+            intermediateSplitScheduledTime.add(split.getScheduledNanos());
+            intermediateSplitWaitTime.add(split.getWaitNanos());
+            intermediateSplitCpuTime.add(split.getCpuTimeNanos());
+        }
+        else {
+            leafSplitWallTime.add(wallNanos);
+            leafSplitScheduledTime.add(split.getScheduledNanos());
+            leafSplitWaitTime.add(split.getWaitNanos());
+            leafSplitCpuTime.add(split.getCpuTimeNanos());
+        }
         // call destroy outside of synchronized block as it is expensive and doesn't need a lock on the task executor
         split.destroy();
     }
@@ -207,6 +207,35 @@ public class MemoryPool
         return true;
     }
 
+    /**
+     * Try to reserve the given number of bytes for memory that is not owned by a query, like the memory of a worker-wide cache.
+     * The bytes are counted in the reserved bytes of the pool, but not in the reservation of any query.
+     */
+    public boolean tryReserveUnowned(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        synchronized (this) {
+            if (getFreeBytes() - bytes < 0) {
+                return false;
+            }
+            reservedBytes += bytes;
+        }
+
+        listeners.forEach(listener -> listener.onUnownedMemoryReserved(this));
+        return true;
+    }
+
+    public synchronized void freeUnowned(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(reservedBytes >= bytes, "tried to free more memory than is reserved");
+        reservedBytes -= bytes;
+        if (getFreeBytes() > 0 && future != null) {
+            future.set(null);
+            future = null;
+        }
+    }
+
     public synchronized void free(QueryId queryId, String allocationTag, long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
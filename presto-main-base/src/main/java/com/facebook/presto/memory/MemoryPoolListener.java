@@ -26,4 +26,11 @@ public interface MemoryPoolListener
      * @param queryMemoryReservation the total amount of memory reserved by the query (revocable and regular)
      */
     void onMemoryReserved(MemoryPool memoryPool, QueryId queryId, long queryMemoryReservation);
+
+    /**
+     * Invoked when a reservation of memory that is not owned by a query completes successfully.
+     *
+     * @param memoryPool the {@link MemoryPool} where the reservation took place
+     */
+    default void onUnownedMemoryReserved(MemoryPool memoryPool) {}
 }
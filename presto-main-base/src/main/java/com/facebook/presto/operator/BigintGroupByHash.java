@@ -36,6 +36,7 @@ import static com.facebook.presto.type.TypeUtils.NULL_HASH_CODE;
 import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.sizeOf;
 import static it.unimi.dsi.fastutil.HashCommon.arraySize;
 import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
 import static java.lang.Math.toIntExact;
@@ -47,6 +48,8 @@ public class BigintGroupByHash
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(BigintGroupByHash.class).instanceSize();
 
     private static final float FILL_RATIO = 0.75f;
+    // number of positions hashed and probed together, small enough for the scratch arrays to stay in L1
+    private static final int BATCH_SIZE = 256;
     private static final List<Type> TYPES = ImmutableList.of(BIGINT);
     private static final List<Type> TYPES_WITH_RAW_HASH = ImmutableList.of(BIGINT, BIGINT);
 
@@ -76,6 +79,11 @@ public class BigintGroupByHash
     private long preallocatedMemoryInBytes;
     private long currentPageSizeInBytes;
 
+    // scratch space for batch processing, see putIfAbsentBatch
+    private final long[] batchValues = new long[BATCH_SIZE];
+    private final long[] batchHashPositions = new long[BATCH_SIZE];
+    private final int[] batchGroupIds = new int[BATCH_SIZE];
+
     public BigintGroupByHash(int hashChannel, boolean outputRawHash, int expectedSize, UpdateMemory updateMemory)
     {
         checkArgument(hashChannel >= 0, "hashChannel must be at least zero");
@@ -108,6 +116,9 @@ public class BigintGroupByHash
                 groupIds.sizeOf() +
                 values.sizeOf() +
                 valuesByGroupId.sizeOf() +
+                sizeOf(batchValues) +
+                sizeOf(batchHashPositions) +
+                sizeOf(batchGroupIds) +
                 preallocatedMemoryInBytes;
     }
 
@@ -219,20 +230,54 @@ public class BigintGroupByHash
         return hashCapacity;
     }
 
-    private int putIfAbsent(int position, Block block)
+    /**
+     * Puts the values at positions {@code [start, start + length)} and stores their group ids in {@link #batchGroupIds}.
+     * The hash table must have room for {@code length} new groups, as it is not rehashed while the batch is processed.
+     * <p>
+     * The values and hash positions of the whole batch are computed first in a tight loop, then all positions are
+     * probed once without branching on collisions, which lets the CPU overlap the cache misses of independent rows.
+     * Only the positions that didn't hit their group in the first slot (new groups, collisions and nulls) are handled
+     * one by one in a final pass, in position order, so group ids are assigned in the same order as when the rows are
+     * processed one at a time.
+     */
+    private void putIfAbsentBatch(Block block, int start, int length)
     {
-        if (block.isNull(position)) {
-            if (nullGroupId < 0) {
-                // set null group id
-                nullGroupId = nextGroupId++;
-            }
+        checkArgument(length <= BATCH_SIZE && length <= maxFill - nextGroupId, "batch does not fit in the hash table");
+
+        boolean mayHaveNull = block.mayHaveNull();
+        for (int i = 0; i < length; i++) {
+            int position = start + i;
+            // nulls are resolved in the last pass
+            long value = mayHaveNull && block.isNull(position) ? 0 : BIGINT.getLong(block, position);
+            batchValues[i] = value;
+            batchHashPositions[i] = getHashPosition(value, mask);
+        }
 
-            return nullGroupId;
+        for (int i = 0; i < length; i++) {
+            long hashPosition = batchHashPositions[i];
+            int groupId = groupIds.get(hashPosition);
+            if (groupId != -1 && values.get(hashPosition) != batchValues[i]) {
+                groupId = -1;
+            }
+            batchGroupIds[i] = groupId;
         }
 
-        long value = BIGINT.getLong(block, position);
-        long hashPosition = getHashPosition(value, mask);
+        for (int i = 0; i < length; i++) {
+            if (mayHaveNull && block.isNull(start + i)) {
+                if (nullGroupId < 0) {
+                    // set null group id
+                    nullGroupId = nextGroupId++;
+                }
+                batchGroupIds[i] = nullGroupId;
+            }
+            else if (batchGroupIds[i] == -1) {
+                batchGroupIds[i] = putIfAbsent(batchValues[i], batchHashPositions[i]);
+            }
+        }
+    }
 
+    private int putIfAbsent(long value, long hashPosition)
+    {
         // look for an empty slot or a slot containing this key
         while (true) {
             int groupId = groupIds.get(hashPosition);
@@ -260,14 +305,15 @@ public class BigintGroupByHash
         values.set(hashPosition, value);
         valuesByGroupId.set(groupId, value);
         groupIds.set(hashPosition, groupId);
-
-        // increase capacity, if necessary
-        if (needRehash()) {
-            tryRehash();
-        }
         return groupId;
     }
 
+    private int getBatchSize(int remainingPositions)
+    {
+        // a batch can't add more groups than the hash table can take before it has to be rehashed
+        return Math.min(Math.min(remainingPositions, BATCH_SIZE), maxFill - nextGroupId);
+    }
+
     private boolean tryRehash()
     {
         long newCapacityLong = hashCapacity * 2L;
@@ -369,12 +415,15 @@ public class BigintGroupByHash
                 return false;
             }
 
-            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
+            // We rehash after each batch if rehash is needed, unless there isn't enough memory to do so.
             // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
             while (lastPosition < positionCount && !needRehash()) {
-                // get the group for the current row
-                putIfAbsent(lastPosition, block);
-                lastPosition++;
+                int batchSize = getBatchSize(positionCount - lastPosition);
+                putIfAbsentBatch(block, lastPosition, batchSize);
+                lastPosition += batchSize;
+                if (needRehash()) {
+                    tryRehash();
+                }
             }
             return lastPosition == positionCount;
         }
@@ -415,12 +464,19 @@ public class BigintGroupByHash
                 return false;
             }
 
-            // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
+            // We rehash after each batch if rehash is needed, unless there isn't enough memory to do so.
             // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
             while (lastPosition < positionCount && !needRehash()) {
-                // output the group id for this row
-                BIGINT.writeLong(blockBuilder, putIfAbsent(lastPosition, block));
-                lastPosition++;
+                int batchSize = getBatchSize(positionCount - lastPosition);
+                putIfAbsentBatch(block, lastPosition, batchSize);
+                // output the group ids for this batch
+                for (int i = 0; i < batchSize; i++) {
+                    BIGINT.writeLong(blockBuilder, batchGroupIds[i]);
+                }
+                lastPosition += batchSize;
+                if (needRehash()) {
+                    tryRehash();
+                }
             }
             return lastPosition == positionCount;
         }
@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import io.airlift.units.DataSize;
+import org.openjdk.jol.info.ClassLayout;
+
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.RealType.REAL;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Cache-friendly Bloom filter over the values of a single join key type, used as a dynamic filter
+ * summary when the build side has too many distinct values to be described by a {@code TupleDomain}.
+ * <p>
+ * The filter is split into blocks of 512 bits (a single cache line). A value sets one bit in
+ * each of the 8 words of its block, so every lookup touches exactly one cache line.
+ * Filters of the same size can be merged, which is how the per-driver filters are combined.
+ */
+public final class BlockedBloomFilter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(BlockedBloomFilter.class).instanceSize();
+
+    private static final int WORDS_PER_BLOCK = 8;
+    private static final int BITS_PER_WORD_INDEX = 6;
+    private static final int BLOCK_INDEX_SHIFT = WORDS_PER_BLOCK * BITS_PER_WORD_INDEX;
+    // block index is taken from the bits of the hash that are not used to pick the bits within a block
+    private static final int MAX_BLOCK_COUNT = 1 << (Long.SIZE - BLOCK_INDEX_SHIFT);
+
+    private final Type type;
+    private final long[] words;
+    private final int blockMask;
+
+    public BlockedBloomFilter(Type type, DataSize size)
+    {
+        this.type = requireNonNull(type, "type is null");
+        checkArgument(isSupported(type), "Bloom filters are not supported for type %s", type);
+        long requestedBlocks = size.toBytes() / (WORDS_PER_BLOCK * Long.BYTES);
+        checkArgument(requestedBlocks > 0, "size must be at least %s bytes", WORDS_PER_BLOCK * Long.BYTES);
+        int blockCount = Integer.highestOneBit(toIntExact(Math.min(requestedBlocks, MAX_BLOCK_COUNT)));
+        this.words = new long[blockCount * WORDS_PER_BLOCK];
+        this.blockMask = blockCount - 1;
+    }
+
+    /**
+     * Returns true if the hash of a value is consistent with equality for the given type,
+     * so that a Bloom filter built on the build side can be probed with the probe-side values.
+     */
+    public static boolean isSupported(Type type)
+    {
+        // DOUBLE and REAL are skipped for the same reason as in min/max collection: NaN and signed zeros
+        return type.isComparable() && !type.equals(DOUBLE) && !type.equals(REAL);
+    }
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    /**
+     * Adds the value at {@code position}, which must not be null.
+     */
+    public void put(Block block, int position)
+    {
+        long hash = hash(block, position);
+        int offset = blockOffset(hash);
+        for (int word = 0; word < WORDS_PER_BLOCK; word++) {
+            words[offset + word] |= bitMask(hash, word);
+        }
+    }
+
+    /**
+     * Returns false if the value at {@code position}, which must not be null, was definitely not added to the filter.
+     */
+    public boolean mightContain(Block block, int position)
+    {
+        long hash = hash(block, position);
+        int offset = blockOffset(hash);
+        for (int word = 0; word < WORDS_PER_BLOCK; word++) {
+            long mask = bitMask(hash, word);
+            if ((words[offset + word] & mask) != mask) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds all values of {@code other} to this filter.
+     */
+    public void union(BlockedBloomFilter other)
+    {
+        checkCompatible(other);
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= other.words[i];
+        }
+    }
+
+    /**
+     * Retains only the bits set in both filters. The result may contain values that are in
+     * only one of the filters, but it never drops a value that is in both.
+     */
+    public void intersect(BlockedBloomFilter other)
+    {
+        checkCompatible(other);
+        for (int i = 0; i < words.length; i++) {
+            words[i] &= other.words[i];
+        }
+    }
+
+    public BlockedBloomFilter copy()
+    {
+        BlockedBloomFilter copy = new BlockedBloomFilter(type, new DataSize(words.length * Long.BYTES, BYTE));
+        System.arraycopy(words, 0, copy.words, 0, words.length);
+        return copy;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeOf(words);
+    }
+
+    private void checkCompatible(BlockedBloomFilter other)
+    {
+        checkArgument(type.equals(other.type), "Bloom filters have different types: %s and %s", type, other.type);
+        checkArgument(words.length == other.words.length, "Bloom filters have different sizes: %s and %s", words.length, other.words.length);
+    }
+
+    private long hash(Block block, int position)
+    {
+        return murmurHash3(type.hash(block, position));
+    }
+
+    private int blockOffset(long hash)
+    {
+        return ((int) (hash >>> BLOCK_INDEX_SHIFT) & blockMask) * WORDS_PER_BLOCK;
+    }
+
+    private static long bitMask(long hash, int word)
+    {
+        return 1L << ((hash >>> (word * BITS_PER_WORD_INDEX)) & 63);
+    }
+}
@@ -16,30 +16,48 @@ package com.facebook.presto.operator;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
-import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
+import static com.facebook.presto.operator.SpillingUtils.spillPages;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isFlatGroupByHashEnabled;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterators.singletonIterator;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 public class DistinctLimitOperator
         implements Operator
 {
+    private static final int SPILL_PARTITION_COUNT = 16;
+
     public static class DistinctLimitOperatorFactory
             implements OperatorFactory
     {
@@ -52,6 +70,8 @@ public class DistinctLimitOperator
         private boolean closed;
         private final JoinCompiler joinCompiler;
         private final int timeoutMillis;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
 
         public DistinctLimitOperatorFactory(
                 int operatorId,
@@ -74,6 +94,21 @@ public class DistinctLimitOperator
                 Optional<Integer> hashChannel,
                 JoinCompiler joinCompiler,
                 int timeoutMillis)
+        {
+            this(operatorId, planNodeId, sourceTypes, distinctChannels, limit, hashChannel, joinCompiler, timeoutMillis, false, unsupportedPartitioningSpillerFactory());
+        }
+
+        public DistinctLimitOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> distinctChannels,
+                long limit,
+                Optional<Integer> hashChannel,
+                JoinCompiler joinCompiler,
+                int timeoutMillis,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -85,6 +120,8 @@ public class DistinctLimitOperator
             this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
             this.timeoutMillis = timeoutMillis;
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -95,7 +132,7 @@ public class DistinctLimitOperator
             List<Type> distinctTypes = distinctChannels.stream()
                     .map(sourceTypes::get)
                     .collect(toImmutableList());
-            return new DistinctLimitOperator(operatorContext, distinctChannels, distinctTypes, limit, hashChannel, joinCompiler, timeoutMillis);
+            return new DistinctLimitOperator(operatorContext, distinctChannels, distinctTypes, limit, hashChannel, joinCompiler, timeoutMillis, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -107,20 +144,25 @@ public class DistinctLimitOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new DistinctLimitOperatorFactory(operatorId, planNodeId, sourceTypes, distinctChannels, limit, hashChannel, joinCompiler, timeoutMillis);
+            return new DistinctLimitOperatorFactory(operatorId, planNodeId, sourceTypes, distinctChannels, limit, hashChannel, joinCompiler, timeoutMillis, spillEnabled, partitioningSpillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
     private Page inputPage;
     private long remainingLimit;
 
     private boolean finishing;
 
+    private final List<Type> distinctTypes;
+    private final Optional<Integer> hashChannel;
     private final int[] outputChannels;
-    private final GroupByHash groupByHash;
+    private final int expectedPositions;
+    private final JoinCompiler joinCompiler;
+    private GroupByHash groupByHash;
     private long nextDistinctId;
 
     // for yield when memory is not available
@@ -128,12 +170,46 @@ public class DistinctLimitOperator
     private Work<GroupByIdBlock> unfinishedWork;
     private final long timeoutMillis;
 
+    // once spilled, the distinct values produced so far are kept in distinctValuesSpiller and all remaining input goes
+    // to inputSpiller, both laid out as the output; they are partitioned on the distinct channels and deduplicated one
+    // partition at a time
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private Optional<PartitioningSpiller> distinctValuesSpiller = Optional.empty();
+    private Optional<PartitioningSpiller> inputSpiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Runnable finishMemoryRevoke = () -> {};
+
+    private int unspillPartition = -1;
+    private Iterator<Page> unspilledDistinctValues = emptyIterator();
+    private Iterator<Page> unspilledInput = emptyIterator();
+    private boolean unspillFinished;
+
     public DistinctLimitOperator(OperatorContext operatorContext, List<Integer> distinctChannels, List<Type> distinctTypes, long limit, Optional<Integer> hashChannel, JoinCompiler joinCompiler, int timeout)
+    {
+        this(operatorContext, distinctChannels, distinctTypes, limit, hashChannel, joinCompiler, timeout, false, unsupportedPartitioningSpillerFactory());
+    }
+
+    public DistinctLimitOperator(
+            OperatorContext operatorContext,
+            List<Integer> distinctChannels,
+            List<Type> distinctTypes,
+            long limit,
+            Optional<Integer> hashChannel,
+            JoinCompiler joinCompiler,
+            int timeout,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
         checkArgument(limit >= 0, "limit must be at least zero");
-        requireNonNull(hashChannel, "hashChannel is null");
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.distinctTypes = ImmutableList.copyOf(requireNonNull(distinctTypes, "distinctTypes is null"));
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
 
         int[] distinctChannelInts = Ints.toArray(requireNonNull(distinctChannels, "distinctChannels is null"));
         if (hashChannel.isPresent()) {
@@ -144,14 +220,8 @@ public class DistinctLimitOperator
             outputChannels = distinctChannelInts.clone(); // defensive copy since this is passed into createGroupByHash
         }
 
-        this.groupByHash = createGroupByHash(
-                distinctTypes,
-                distinctChannelInts,
-                hashChannel,
-                min((int) limit, 10_000),
-                isDictionaryAggregationEnabled(operatorContext.getSession()),
-                joinCompiler,
-                this::updateMemoryReservation);
+        this.expectedPositions = min((int) limit, 10_000);
+        this.groupByHash = createGroupByHash(distinctChannelInts, hashChannel);
         remainingLimit = limit;
         if (timeout > 0) {
             this.timeoutMillis = System.currentTimeMillis() + timeout;
@@ -186,13 +256,25 @@ public class DistinctLimitOperator
     @Override
     public boolean isFinished()
     {
+        if (hasSpilled()) {
+            return finishIfTimedOut() || unspillFinished || remainingLimit == 0;
+        }
         return finishIfTimedOut() || (!hasUnfinishedInput() && (finishing || remainingLimit == 0));
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (!spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        return NOT_BLOCKED;
+    }
+
     @Override
     public boolean needsInput()
     {
-        return !finishIfTimedOut() && !finishing && remainingLimit > 0 && !hasUnfinishedInput();
+        return !finishIfTimedOut() && !finishing && remainingLimit > 0 && !hasUnfinishedInput() && spillInProgress.isDone();
     }
 
     @Override
@@ -203,6 +285,12 @@ public class DistinctLimitOperator
         }
 
         checkState(needsInput());
+        checkSpillSucceeded(spillInProgress);
+
+        if (hasSpilled()) {
+            spillInProgress = spillPages(inputSpiller.get(), singletonIterator(page.extractChannels(outputChannels)));
+            return;
+        }
 
         inputPage = page;
         unfinishedWork = groupByHash.getGroupIds(page);
@@ -213,6 +301,15 @@ public class DistinctLimitOperator
     @Override
     public Page getOutput()
     {
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSpillSucceeded(spillInProgress);
+
+        if (hasSpilled()) {
+            return finishing ? getUnspilledOutput() : null;
+        }
+
         if (unfinishedWork != null && !processUnfinishedWork()) {
             finishIfTimedOut();
             return null;
@@ -222,6 +319,67 @@ public class DistinctLimitOperator
             return null;
         }
 
+        return getDistinctRows(outputChannels);
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (!spillEnabled || unspillPartition >= 0 || localRevocableMemoryContext.getBytes() == 0) {
+            finishMemoryRevoke = () -> {};
+            return immediateFuture(null);
+        }
+        // input is only spilled asynchronously after the hash has been revoked, and then nothing is revocable anymore
+        verify(spillInProgress.isDone(), "spill is already in progress");
+        checkSpillSucceeded(spillInProgress);
+
+        if (!hasSpilled()) {
+            distinctValuesSpiller = Optional.of(createSpiller());
+            inputSpiller = Optional.of(createSpiller());
+        }
+
+        // The new values of a pending page have not been produced yet, so only the values produced so far
+        // are spilled and the pending page is deduplicated again after unspilling.
+        ListenableFuture<?> distinctValuesSpilled = spillPages(distinctValuesSpiller.get(), groupByHash.getGroupValues(nextDistinctId));
+        ListenableFuture<?> inputSpilled = immediateFuture(null);
+        if (inputPage != null) {
+            inputSpilled = spillPages(inputSpiller.get(), singletonIterator(inputPage.extractChannels(outputChannels)));
+        }
+        spillInProgress = allAsList(distinctValuesSpilled, inputSpilled);
+        finishMemoryRevoke = () -> {
+            inputPage = null;
+            groupByIds = null;
+            unfinishedWork = null;
+            groupByHash = null;
+            localRevocableMemoryContext.setBytes(0);
+        };
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.run();
+        finishMemoryRevoke = () -> {};
+    }
+
+    @Override
+    public void close()
+    {
+        groupByHash = null;
+        unspilledDistinctValues = emptyIterator();
+        unspilledInput = emptyIterator();
+        try (Closer closer = Closer.create()) {
+            distinctValuesSpiller.ifPresent(closer::register);
+            inputSpiller.ifPresent(closer::register);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Page getDistinctRows(int[] channels)
+    {
         verify(inputPage != null);
 
         long resultingPositions = min(groupByIds.getGroupCount() - nextDistinctId, remainingLimit);
@@ -237,7 +395,7 @@ public class DistinctLimitOperator
             }
             verify(distinctCount == distinctPositions.length);
             remainingLimit -= distinctCount;
-            result = inputPage.extractChannels(outputChannels).getPositions(distinctPositions, 0, distinctPositions.length);
+            result = inputPage.extractChannels(channels).getPositions(distinctPositions, 0, distinctPositions.length);
         }
 
         groupByIds = null;
@@ -247,6 +405,89 @@ public class DistinctLimitOperator
         return result;
     }
 
+    private Page getUnspilledOutput()
+    {
+        // the unspilled pages are laid out as the output
+        int[] channels = IntStream.range(0, outputChannels.length).toArray();
+        while (!unspillFinished && remainingLimit > 0) {
+            if (unfinishedWork != null) {
+                if (!processUnfinishedWork()) {
+                    return null;
+                }
+                if (inputPage == null) {
+                    // distinct values of the partition only rebuild the hash, they have been produced already
+                    groupByIds = null;
+                    nextDistinctId = groupByHash.getGroupCount();
+                    updateMemoryReservation();
+                    continue;
+                }
+                Page result = getDistinctRows(channels);
+                if (result != null) {
+                    return result;
+                }
+                continue;
+            }
+
+            if (unspilledDistinctValues.hasNext()) {
+                unfinishedWork = groupByHash.getGroupIds(unspilledDistinctValues.next());
+            }
+            else if (unspilledInput.hasNext()) {
+                inputPage = unspilledInput.next();
+                unfinishedWork = groupByHash.getGroupIds(inputPage);
+            }
+            else {
+                startNextUnspillPartition();
+            }
+        }
+        return null;
+    }
+
+    private void startNextUnspillPartition()
+    {
+        unspillPartition++;
+        if (unspillPartition == SPILL_PARTITION_COUNT) {
+            distinctValuesSpiller.get().verifyAllPartitionsRead();
+            inputSpiller.get().verifyAllPartitionsRead();
+            groupByHash = null;
+            unspillFinished = true;
+            updateMemoryReservation();
+            return;
+        }
+
+        // rebuild the hash for a single partition; it is laid out like the spilled pages
+        int[] channels = new int[distinctTypes.size()];
+        Arrays.setAll(channels, channel -> channel);
+        groupByHash = createGroupByHash(channels, hashChannel.map(ignored -> distinctTypes.size()));
+        nextDistinctId = 0;
+        unspilledDistinctValues = distinctValuesSpiller.get().getSpilledPages(unspillPartition);
+        unspilledInput = inputSpiller.get().getSpilledPages(unspillPartition);
+        updateMemoryReservation();
+    }
+
+    private GroupByHash createGroupByHash(int[] channels, Optional<Integer> hashChannel)
+    {
+        return GroupByHash.createGroupByHash(
+                distinctTypes,
+                channels,
+                hashChannel,
+                expectedPositions,
+                isDictionaryAggregationEnabled(operatorContext.getSession()),
+                isFlatGroupByHashEnabled(operatorContext.getSession()),
+                joinCompiler,
+                this::updateMemoryReservation);
+    }
+
+    private PartitioningSpiller createSpiller()
+    {
+        // the distinct values and the spilled input are both laid out as the output, which is the layout of the hash
+        List<Integer> distinctValueChannels = IntStream.range(0, distinctTypes.size()).boxed().collect(toImmutableList());
+        return partitioningSpillerFactory.create(
+                groupByHash.getTypes(),
+                new LocalPartitionGenerator(new InterpretedHashGenerator(distinctTypes, distinctValueChannels), SPILL_PARTITION_COUNT),
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.aggregateSystemMemoryContext());
+    }
+
     private boolean processUnfinishedWork()
     {
         verify(unfinishedWork != null);
@@ -258,6 +499,11 @@ public class DistinctLimitOperator
         return true;
     }
 
+    private boolean hasSpilled()
+    {
+        return inputSpiller.isPresent();
+    }
+
     private boolean hasUnfinishedInput()
     {
         return !finishIfTimedOut() && inputPage != null || unfinishedWork != null;
@@ -273,9 +519,16 @@ public class DistinctLimitOperator
     // The following implementation is a hybrid model, where the push model is going to call the pull model causing reentrancy
     private boolean updateMemoryReservation()
     {
+        long hashSize = groupByHash == null ? 0 : groupByHash.getEstimatedSize();
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
-        localUserMemoryContext.setBytes(groupByHash.getEstimatedSize());
+        if (spillEnabled && !hasSpilled()) {
+            // the hash can be revoked until the input is spilled
+            localRevocableMemoryContext.setBytes(hashSize);
+        }
+        else {
+            localUserMemoryContext.setBytes(hashSize);
+        }
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
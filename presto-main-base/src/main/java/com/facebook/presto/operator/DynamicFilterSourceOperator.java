@@ -20,6 +20,7 @@ import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.predicate.ValueSet;
 import com.facebook.presto.common.type.Type;
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.aggregation.TypedSet;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
@@ -29,6 +30,7 @@ import io.airlift.units.DataSize;
 import javax.annotation.Nullable;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 
@@ -39,6 +41,7 @@ import static com.facebook.presto.common.type.TypeUtils.isFloatingPointNaN;
 import static com.facebook.presto.common.type.TypeUtils.readNativeValue;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toSet;
 
@@ -47,6 +50,8 @@ import static java.util.stream.Collectors.toSet;
  * The collected pages' value are used for creating a run-time filtering constraint (for probe-side table scan in an inner join).
  * We record all values for the run-time filter only for small build-side pages (which should be the case when using "broadcast" join).
  * For large inputs on build side, we can optionally record the min and max values per channel for orderable types (except Double and Real).
+ * Optionally, a fixed-size Bloom filter of all build-side values is collected per channel as well, which still prunes
+ * most non-matching probe rows when the exact values are dropped in favor of a range.
  */
 public class DynamicFilterSourceOperator
         implements Operator
@@ -93,6 +98,8 @@ public class DynamicFilterSourceOperator
         private final DataSize maxFilterSize;
         private final int minMaxCollectionLimit;
         private final boolean useNewNanDefinition;
+        private final Consumer<Map<String, BlockedBloomFilter>> bloomFilterConsumer;
+        private final DataSize bloomFilterSize;
 
         private boolean closed;
 
@@ -105,6 +112,31 @@ public class DynamicFilterSourceOperator
                 DataSize maxFilterSize,
                 int minMaxCollectionLimit,
                 boolean useNewNanDefinition)
+        {
+            this(
+                    operatorId,
+                    planNodeId,
+                    dynamicPredicateConsumer,
+                    channels,
+                    maxFilterPositionsCount,
+                    maxFilterSize,
+                    minMaxCollectionLimit,
+                    useNewNanDefinition,
+                    bloomFilters -> {},
+                    new DataSize(0, BYTE));
+        }
+
+        public DynamicFilterSourceOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                Consumer<TupleDomain<String>> dynamicPredicateConsumer,
+                List<Channel> channels,
+                int maxFilterPositionsCount,
+                DataSize maxFilterSize,
+                int minMaxCollectionLimit,
+                boolean useNewNanDefinition,
+                Consumer<Map<String, BlockedBloomFilter>> bloomFilterConsumer,
+                DataSize bloomFilterSize)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -120,6 +152,8 @@ public class DynamicFilterSourceOperator
             this.maxFilterSize = maxFilterSize;
             this.minMaxCollectionLimit = minMaxCollectionLimit;
             this.useNewNanDefinition = useNewNanDefinition;
+            this.bloomFilterConsumer = requireNonNull(bloomFilterConsumer, "bloomFilterConsumer is null");
+            this.bloomFilterSize = requireNonNull(bloomFilterSize, "bloomFilterSize is null");
         }
 
         @Override
@@ -134,7 +168,9 @@ public class DynamicFilterSourceOperator
                     maxFilterPositionsCount,
                     maxFilterSize,
                     minMaxCollectionLimit,
-                    useNewNanDefinition);
+                    useNewNanDefinition,
+                    bloomFilterConsumer,
+                    bloomFilterSize);
         }
 
         @Override
@@ -158,6 +194,9 @@ public class DynamicFilterSourceOperator
     private final List<Channel> channels;
     private final List<Integer> minMaxChannels;
     private final boolean useNewNanDefinition;
+    private final Consumer<Map<String, BlockedBloomFilter>> bloomFilterConsumer;
+    private final List<Integer> bloomFilterChannels;
+    private final LocalMemoryContext bloomFilterMemoryContext;
 
     private boolean finished;
     private Page current;
@@ -174,6 +213,10 @@ public class DynamicFilterSourceOperator
     @Nullable
     private Block[] maxValues;
 
+    // Unlike the other summaries, Bloom filters have a fixed size and are kept until finish()
+    @Nullable
+    private BlockedBloomFilter[] bloomFilters;
+
     private DynamicFilterSourceOperator(
             OperatorContext context,
             Consumer<TupleDomain<String>> dynamicPredicateConsumer,
@@ -182,7 +225,9 @@ public class DynamicFilterSourceOperator
             int maxFilterPositionsCount,
             DataSize maxFilterSize,
             int minMaxCollectionLimit,
-            boolean useNewNanDefinition)
+            boolean useNewNanDefinition,
+            Consumer<Map<String, BlockedBloomFilter>> bloomFilterConsumer,
+            DataSize bloomFilterSize)
     {
         this.context = requireNonNull(context, "context is null");
         this.maxFilterPositionsCount = maxFilterPositionsCount;
@@ -194,12 +239,16 @@ public class DynamicFilterSourceOperator
         this.blockBuilders = new BlockBuilder[channels.size()];
         this.valueSets = new TypedSet[channels.size()];
         ImmutableList.Builder<Integer> minMaxChannelsBuilder = ImmutableList.builder();
+        ImmutableList.Builder<Integer> bloomFilterChannelsBuilder = ImmutableList.builder();
         for (int channelIndex = 0; channelIndex < channels.size(); ++channelIndex) {
             Type type = channels.get(channelIndex).getType();
             // Skipping DOUBLE and REAL in collectMinMaxValues to avoid dealing with NaN values
             if (minMaxCollectionLimit > 0 && type.isOrderable() && !type.equals(DOUBLE) && !type.equals(REAL)) {
                 minMaxChannelsBuilder.add(channelIndex);
             }
+            if (bloomFilterSize.toBytes() > 0 && BlockedBloomFilter.isSupported(type)) {
+                bloomFilterChannelsBuilder.add(channelIndex);
+            }
             this.blockBuilders[channelIndex] = type.createBlockBuilder(null, EXPECTED_BLOCK_BUILDER_SIZE);
             this.valueSets[channelIndex] = new TypedSet(
                     type,
@@ -216,6 +265,18 @@ public class DynamicFilterSourceOperator
             maxValues = new Block[channels.size()];
         }
         this.useNewNanDefinition = useNewNanDefinition;
+        this.bloomFilterConsumer = requireNonNull(bloomFilterConsumer, "bloomFilterConsumer is null");
+        this.bloomFilterChannels = bloomFilterChannelsBuilder.build();
+        this.bloomFilterMemoryContext = context.newLocalSystemMemoryContext(DynamicFilterSourceOperator.class.getSimpleName());
+        if (!bloomFilterChannels.isEmpty()) {
+            bloomFilters = new BlockedBloomFilter[channels.size()];
+            long bloomFiltersRetainedBytes = 0;
+            for (Integer channelIndex : bloomFilterChannels) {
+                bloomFilters[channelIndex] = new BlockedBloomFilter(channels.get(channelIndex).getType(), bloomFilterSize);
+                bloomFiltersRetainedBytes += bloomFilters[channelIndex].getRetainedSizeInBytes();
+            }
+            bloomFilterMemoryContext.setBytes(bloomFiltersRetainedBytes);
+        }
     }
 
     @Override
@@ -235,6 +296,9 @@ public class DynamicFilterSourceOperator
     {
         verify(!finished, "DynamicFilterSourceOperator: addInput() shouldn't not be called after finish()");
         current = page;
+        if (bloomFilters != null) {
+            updateBloomFilters(page);
+        }
         if (valueSets == null) {
             // the exact predicate became too large.
             if (minValues == null) {
@@ -307,6 +371,21 @@ public class DynamicFilterSourceOperator
         maxValues = null;
     }
 
+    private void updateBloomFilters(Page page)
+    {
+        checkState(bloomFilters != null);
+        for (Integer channelIndex : bloomFilterChannels) {
+            Block block = page.getBlock(channels.get(channelIndex).getIndex());
+            BlockedBloomFilter bloomFilter = bloomFilters[channelIndex];
+            for (int position = 0; position < block.getPositionCount(); ++position) {
+                // Inner and right join doesn't match rows with null key column values.
+                if (!block.isNull(position)) {
+                    bloomFilter.put(block, position);
+                }
+            }
+        }
+    }
+
     private void updateMinMaxValues(Block block, int channelIndex)
     {
         checkState(minValues != null && maxValues != null);
@@ -367,6 +446,14 @@ public class DynamicFilterSourceOperator
             return;
         }
         finished = true;
+        finishTupleDomain();
+        // Bloom filters are always published after the predicate, so that the consumer has the predicates
+        // from all partitions once it has received all the Bloom filters.
+        finishBloomFilters();
+    }
+
+    private void finishTupleDomain()
+    {
         ImmutableMap.Builder<String, Domain> domainsBuilder = ImmutableMap.builder();
         if (valueSets == null) {
             if (minValues == null) {
@@ -407,6 +494,20 @@ public class DynamicFilterSourceOperator
         dynamicPredicateConsumer.accept(TupleDomain.withColumnDomains(domainsBuilder.build()));
     }
 
+    private void finishBloomFilters()
+    {
+        ImmutableMap.Builder<String, BlockedBloomFilter> bloomFiltersBuilder = ImmutableMap.builder();
+        if (bloomFilters != null) {
+            for (Integer channelIndex : bloomFilterChannels) {
+                bloomFiltersBuilder.put(channels.get(channelIndex).getFilterId(), bloomFilters[channelIndex]);
+            }
+            bloomFilters = null;
+        }
+        // the consumer accounts for the Bloom filters from now on
+        bloomFilterConsumer.accept(bloomFiltersBuilder.build());
+        bloomFilterMemoryContext.setBytes(0);
+    }
+
     private Domain convertToDomain(Type type, Block block)
     {
         ImmutableList.Builder<Object> values = ImmutableList.builder();
@@ -104,6 +104,9 @@ public class ExchangeClient
     private long bufferRetainedSizeInBytes;
     @GuardedBy("this")
     private long maxBufferRetainedSizeInBytes;
+    // space reserved for responses that the shuffle clients fetch ahead of the requests
+    @GuardedBy("this")
+    private long prefetchReservedBytes;
     @GuardedBy("this")
     private long successfulRequests;
     @GuardedBy("this")
@@ -185,7 +188,7 @@ public class ExchangeClient
         checkState(!noMoreLocations, "No more locations already set");
 
         PageBufferClient client = new PageBufferClient(
-                rpcShuffleClientProvider.get(location),
+                rpcShuffleClientProvider.get(location, new ExchangePrefetchBudget()),
                 maxErrorDuration,
                 acknowledgePages,
                 location,
@@ -281,7 +284,7 @@ public class ExchangeClient
         synchronized (this) {
             if (!closed.get()) {
                 bufferRetainedSizeInBytes -= page.getRetainedSizeInBytes();
-                systemMemoryContext.setBytes(bufferRetainedSizeInBytes);
+                systemMemoryContext.setBytes(bufferRetainedSizeInBytes + prefetchReservedBytes);
             }
             scheduleRequestIfNecessary();
         }
@@ -314,6 +317,7 @@ public class ExchangeClient
         pageBuffer.clear();
         systemMemoryContext.setBytes(0);
         bufferRetainedSizeInBytes = 0;
+        prefetchReservedBytes = 0;
         if (pageBuffer.peekLast() != NO_MORE_PAGES) {
             checkState(pageBuffer.add(NO_MORE_PAGES), "Could not add no more pages marker");
         }
@@ -338,7 +342,7 @@ public class ExchangeClient
             return;
         }
 
-        long neededBytes = bufferCapacity - bufferRetainedSizeInBytes;
+        long neededBytes = bufferCapacity - bufferRetainedSizeInBytes - prefetchReservedBytes;
         if (neededBytes <= 0) {
             return;
         }
@@ -404,7 +408,7 @@ public class ExchangeClient
 
                 bufferRetainedSizeInBytes += pagesRetainedSizeInBytes;
                 maxBufferRetainedSizeInBytes = max(maxBufferRetainedSizeInBytes, bufferRetainedSizeInBytes);
-                systemMemoryContext.setBytes(bufferRetainedSizeInBytes);
+                systemMemoryContext.setBytes(bufferRetainedSizeInBytes + prefetchReservedBytes);
 
                 // Notify pending listeners that a page has been added
                 notify = ImmutableList.copyOf(blockedCallers);
@@ -482,6 +486,35 @@ public class ExchangeClient
         }
     }
 
+    private class ExchangePrefetchBudget
+            implements PrefetchBudget
+    {
+        @Override
+        public boolean tryReserve(long bytes)
+        {
+            synchronized (ExchangeClient.this) {
+                if (closed.get() || bufferRetainedSizeInBytes + prefetchReservedBytes + bytes > bufferCapacity) {
+                    return false;
+                }
+                prefetchReservedBytes += bytes;
+                systemMemoryContext.setBytes(bufferRetainedSizeInBytes + prefetchReservedBytes);
+                return true;
+            }
+        }
+
+        @Override
+        public void free(long bytes)
+        {
+            synchronized (ExchangeClient.this) {
+                if (closed.get()) {
+                    return;
+                }
+                prefetchReservedBytes -= bytes;
+                systemMemoryContext.setBytes(bufferRetainedSizeInBytes + prefetchReservedBytes);
+            }
+        }
+    }
+
     private class ExchangeClientCallback
             implements ClientCallback
     {
@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.airlift.configuration.Config;
+import com.facebook.airlift.configuration.ConfigDescription;
 import com.facebook.airlift.configuration.DefunctConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
@@ -41,6 +42,9 @@ public class ExchangeClientConfig
     private int pageBufferClientMaxCallbackThreads = 25;
     private boolean acknowledgePages = true;
     private double responseSizeExponentialMovingAverageDecayingAlpha = 0.1;
+    private boolean streamingEnabled;
+    private DataSize streamingMaxPrefetchSize = new DataSize(8, MEGABYTE);
+    private boolean localShortCircuitEnabled;
 
     @NotNull
     public DataSize getMaxBufferSize()
@@ -172,4 +176,45 @@ public class ExchangeClientConfig
     {
         return responseSizeExponentialMovingAverageDecayingAlpha;
     }
+
+    public boolean isStreamingEnabled()
+    {
+        return streamingEnabled;
+    }
+
+    @Config("exchange.streaming-enabled")
+    @ConfigDescription("Fetch the next batch of pages of a remote HTTP buffer while the previous one is consumed, instead of polling for one batch at a time")
+    public ExchangeClientConfig setStreamingEnabled(boolean streamingEnabled)
+    {
+        this.streamingEnabled = streamingEnabled;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("1MB")
+    public DataSize getStreamingMaxPrefetchSize()
+    {
+        return streamingMaxPrefetchSize;
+    }
+
+    @Config("exchange.streaming-max-prefetch-size")
+    @ConfigDescription("Maximum size of the batch of pages fetched ahead of the consumer of a remote HTTP buffer when streaming is enabled")
+    public ExchangeClientConfig setStreamingMaxPrefetchSize(DataSize streamingMaxPrefetchSize)
+    {
+        this.streamingMaxPrefetchSize = streamingMaxPrefetchSize;
+        return this;
+    }
+
+    public boolean isLocalShortCircuitEnabled()
+    {
+        return localShortCircuitEnabled;
+    }
+
+    @Config("exchange.local-short-circuit-enabled")
+    @ConfigDescription("Read the output buffers of tasks running on the same node directly, instead of over HTTP")
+    public ExchangeClientConfig setLocalShortCircuitEnabled(boolean localShortCircuitEnabled)
+    {
+        this.localShortCircuitEnabled = localShortCircuitEnabled;
+        return this;
+    }
 }
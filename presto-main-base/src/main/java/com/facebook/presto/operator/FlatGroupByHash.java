@@ -0,0 +1,586 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.array.LongBigArray;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.ShortDecimalType;
+import com.facebook.presto.common.type.TimestampType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.operator.scalar.CombineHashFunction;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
+import com.facebook.presto.type.TypeUtils;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INSUFFICIENT_RESOURCES;
+import static com.facebook.presto.sql.planner.PlannerUtils.INITIAL_HASH_VALUE;
+import static com.facebook.presto.type.TypeUtils.NULL_HASH_CODE;
+import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Group by hash for keys whose types are all fixed-width and stored as a {@code long} with a
+ * binary equality, e.g. BIGINT, INTEGER, DATE or short DECIMAL.
+ * <p>
+ * Unlike {@link MultiChannelGroupByHash}, the keys are not kept in the input blocks. Every group is
+ * serialized into a flat row of longs in a single array: the raw hash, a null mask, and one long per
+ * key. A probe compares the inlined hash and then the row words, so it touches one contiguous row
+ * instead of following block references per channel, and a rehash never needs to recompute a hash.
+ */
+public class FlatGroupByHash
+        implements GroupByHash
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(FlatGroupByHash.class).instanceSize();
+
+    private static final float FILL_RATIO = 0.75f;
+    // number of positions hashed and probed together, small enough for the scratch arrays to stay in L1
+    private static final int BATCH_SIZE = 256;
+
+    // layout of a row
+    private static final int HASH_OFFSET = 0;
+    private static final int NULL_MASK_OFFSET = 1;
+    private static final int VALUES_OFFSET = 2;
+
+    private final List<Type> hashTypes;
+    private final Type[] keyTypes;
+    private final int[] channels;
+    private final Optional<Integer> inputHashChannel;
+    private final List<Type> types;
+    private final int rowSize;
+
+    private int hashCapacity;
+    private int maxFill;
+    private int mask;
+
+    // the hash table from rows to groupIds
+    private int[] groupIdsByHash;
+
+    // the rows of all groups, ordered by groupId
+    private final LongBigArray rows;
+
+    private int nextGroupId;
+    private long hashCollisions;
+    private double expectedHashCollisions;
+
+    // reserve enough memory before rehash
+    private final UpdateMemory updateMemory;
+    private long preallocatedMemoryInBytes;
+    private long currentPageSizeInBytes;
+
+    // scratch space for batch processing, see putIfAbsentBatch
+    private final long[] batchRows;
+    private final int[] batchGroupIds = new int[BATCH_SIZE];
+    // scratch space for contains
+    private final long[] probeRow;
+
+    public FlatGroupByHash(
+            List<? extends Type> hashTypes,
+            int[] hashChannels,
+            Optional<Integer> inputHashChannel,
+            int expectedSize,
+            UpdateMemory updateMemory)
+    {
+        this.hashTypes = ImmutableList.copyOf(requireNonNull(hashTypes, "hashTypes is null"));
+        requireNonNull(hashChannels, "hashChannels is null");
+        checkArgument(isSupported(hashTypes), "Unsupported key types: %s", hashTypes);
+        checkArgument(hashTypes.size() == hashChannels.length, "hashTypes and hashChannels have different sizes");
+        checkArgument(expectedSize > 0, "expectedSize must be greater than zero");
+
+        this.keyTypes = this.hashTypes.toArray(new Type[0]);
+        this.channels = hashChannels.clone();
+        this.inputHashChannel = requireNonNull(inputHashChannel, "inputHashChannel is null");
+        this.types = inputHashChannel.isPresent() ? ImmutableList.copyOf(Iterables.concat(hashTypes, ImmutableList.of(BIGINT))) : this.hashTypes;
+        this.rowSize = VALUES_OFFSET + hashChannels.length;
+
+        hashCapacity = arraySize(expectedSize, FILL_RATIO);
+
+        maxFill = calculateMaxFill(hashCapacity);
+        mask = hashCapacity - 1;
+        groupIdsByHash = new int[hashCapacity];
+        Arrays.fill(groupIdsByHash, -1);
+
+        rows = new LongBigArray();
+        rows.ensureCapacity((long) maxFill * rowSize);
+
+        batchRows = new long[BATCH_SIZE * rowSize];
+        probeRow = new long[rowSize];
+
+        // This interface is used for actively reserving memory (push model) for rehash.
+        // The caller can also query memory usage on this object (pull model)
+        this.updateMemory = requireNonNull(updateMemory, "updateMemory is null");
+    }
+
+    /**
+     * Returns true if every key can be stored as a single long, such that two keys are not distinct
+     * if and only if their longs are equal. The null mask limits the number of keys to 64.
+     */
+    public static boolean isSupported(List<? extends Type> hashTypes)
+    {
+        return !hashTypes.isEmpty() && hashTypes.size() <= Long.SIZE && hashTypes.stream().allMatch(FlatGroupByHash::isSupportedType);
+    }
+
+    private static boolean isSupportedType(Type type)
+    {
+        // REAL and TIMESTAMP WITH TIME ZONE are stored as a long too, but their equality is not binary
+        return type.equals(BIGINT) ||
+                type.equals(INTEGER) ||
+                type.equals(SMALLINT) ||
+                type.equals(TINYINT) ||
+                type.equals(DATE) ||
+                type instanceof TimestampType ||
+                type instanceof ShortDecimalType;
+    }
+
+    @Override
+    public long getEstimatedSize()
+    {
+        return INSTANCE_SIZE +
+                sizeOf(groupIdsByHash) +
+                rows.sizeOf() +
+                sizeOf(batchRows) +
+                sizeOf(batchGroupIds) +
+                sizeOf(probeRow) +
+                preallocatedMemoryInBytes;
+    }
+
+    @Override
+    public long getHashCollisions()
+    {
+        return hashCollisions;
+    }
+
+    @Override
+    public double getExpectedHashCollisions()
+    {
+        return expectedHashCollisions + estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public int getGroupCount()
+    {
+        return nextGroupId;
+    }
+
+    @Override
+    public void appendValuesTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        checkArgument(groupId >= 0, "groupId is negative");
+        appendKeysTo(groupId, pageBuilder, outputChannelOffset);
+        if (inputHashChannel.isPresent()) {
+            BlockBuilder hashBlockBuilder = pageBuilder.getBlockBuilder(outputChannelOffset + keyTypes.length);
+            BIGINT.writeLong(hashBlockBuilder, getRawHash(groupId));
+        }
+    }
+
+    @Override
+    public Work<?> addPage(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        return new AddPageWork(page);
+    }
+
+    @Override
+    public List<Page> getBufferedPages()
+    {
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        PageBuilder pageBuilder = new PageBuilder(hashTypes);
+        for (int groupId = 0; groupId < nextGroupId; groupId++) {
+            pageBuilder.declarePosition();
+            appendKeysTo(groupId, pageBuilder, 0);
+            if (pageBuilder.isFull()) {
+                pages.add(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+        if (!pageBuilder.isEmpty()) {
+            pages.add(pageBuilder.build());
+        }
+        return pages.build();
+    }
+
+    @Override
+    public Work<GroupByIdBlock> getGroupIds(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        return new GetGroupIdsWork(page);
+    }
+
+    @Override
+    public boolean contains(int position, Page page, int[] hashChannels)
+    {
+        long rawHash = INITIAL_HASH_VALUE;
+        for (int channel = 0; channel < keyTypes.length; channel++) {
+            rawHash = CombineHashFunction.getHash(rawHash, TypeUtils.hashPosition(keyTypes[channel], page.getBlock(hashChannels[channel]), position));
+        }
+        return contains(position, page, hashChannels, rawHash);
+    }
+
+    @Override
+    public boolean contains(int position, Page page, int[] hashChannels, long rawHash)
+    {
+        probeRow[HASH_OFFSET] = rawHash;
+        probeRow[NULL_MASK_OFFSET] = 0;
+        for (int channel = 0; channel < keyTypes.length; channel++) {
+            Block block = page.getBlock(hashChannels[channel]);
+            if (block.isNull(position)) {
+                probeRow[NULL_MASK_OFFSET] |= 1L << channel;
+                probeRow[VALUES_OFFSET + channel] = 0;
+            }
+            else {
+                probeRow[VALUES_OFFSET + channel] = keyTypes[channel].getLong(block, position);
+            }
+        }
+
+        int hashPosition = getHashPosition(rawHash, mask);
+        // look for an empty slot or a slot containing this key
+        while (groupIdsByHash[hashPosition] != -1) {
+            if (rowEquals(groupIdsByHash[hashPosition], probeRow, 0)) {
+                return true;
+            }
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+        }
+        return false;
+    }
+
+    @Override
+    public long getRawHash(int groupId)
+    {
+        return rows.get(rowOffset(groupId) + HASH_OFFSET);
+    }
+
+    @VisibleForTesting
+    @Override
+    public int getCapacity()
+    {
+        return hashCapacity;
+    }
+
+    private void appendKeysTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        long rowOffset = rowOffset(groupId);
+        long nullMask = rows.get(rowOffset + NULL_MASK_OFFSET);
+        for (int channel = 0; channel < keyTypes.length; channel++) {
+            BlockBuilder blockBuilder = pageBuilder.getBlockBuilder(outputChannelOffset + channel);
+            if ((nullMask & (1L << channel)) != 0) {
+                blockBuilder.appendNull();
+            }
+            else {
+                keyTypes[channel].writeLong(blockBuilder, rows.get(rowOffset + VALUES_OFFSET + channel));
+            }
+        }
+    }
+
+    /**
+     * Puts the rows at positions {@code [start, start + length)} and stores their group ids in {@link #batchGroupIds}.
+     * The hash table must have room for {@code length} new groups, as it is not rehashed while the batch is processed.
+     * <p>
+     * The rows of the batch are first serialized into {@link #batchRows} one channel at a time, so that the values and
+     * hashes of a channel are read in a tight loop with a single type, and then probed in position order.
+     */
+    private void putIfAbsentBatch(Page page, int start, int length)
+    {
+        checkArgument(length <= BATCH_SIZE && length <= maxFill - nextGroupId, "batch does not fit in the hash table");
+
+        // hashes start at INITIAL_HASH_VALUE and null masks at zero
+        Arrays.fill(batchRows, 0, length * rowSize, 0);
+
+        boolean computeHash = !inputHashChannel.isPresent();
+        for (int channel = 0; channel < keyTypes.length; channel++) {
+            Type type = keyTypes[channel];
+            Block block = page.getBlock(channels[channel]);
+            boolean mayHaveNull = block.mayHaveNull();
+            long nullBit = 1L << channel;
+            for (int i = 0; i < length; i++) {
+                int position = start + i;
+                int rowOffset = i * rowSize;
+                if (mayHaveNull && block.isNull(position)) {
+                    batchRows[rowOffset + NULL_MASK_OFFSET] |= nullBit;
+                    if (computeHash) {
+                        batchRows[rowOffset + HASH_OFFSET] = CombineHashFunction.getHash(batchRows[rowOffset + HASH_OFFSET], NULL_HASH_CODE);
+                    }
+                }
+                else {
+                    batchRows[rowOffset + VALUES_OFFSET + channel] = type.getLong(block, position);
+                    if (computeHash) {
+                        batchRows[rowOffset + HASH_OFFSET] = CombineHashFunction.getHash(batchRows[rowOffset + HASH_OFFSET], type.hash(block, position));
+                    }
+                }
+            }
+        }
+        if (!computeHash) {
+            Block hashBlock = page.getBlock(inputHashChannel.get());
+            for (int i = 0; i < length; i++) {
+                batchRows[i * rowSize + HASH_OFFSET] = BIGINT.getLong(hashBlock, start + i);
+            }
+        }
+
+        for (int i = 0; i < length; i++) {
+            batchGroupIds[i] = putIfAbsent(i * rowSize);
+        }
+    }
+
+    private int putIfAbsent(int batchRowOffset)
+    {
+        int hashPosition = getHashPosition(batchRows[batchRowOffset + HASH_OFFSET], mask);
+
+        // look for an empty slot or a slot containing this key
+        while (true) {
+            int groupId = groupIdsByHash[hashPosition];
+            if (groupId == -1) {
+                break;
+            }
+
+            if (rowEquals(groupId, batchRows, batchRowOffset)) {
+                return groupId;
+            }
+
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+            hashCollisions++;
+        }
+
+        return addNewGroup(hashPosition, batchRowOffset);
+    }
+
+    private int addNewGroup(int hashPosition, int batchRowOffset)
+    {
+        // record group id in hash
+        int groupId = nextGroupId++;
+
+        long rowOffset = rowOffset(groupId);
+        for (int i = 0; i < rowSize; i++) {
+            rows.set(rowOffset + i, batchRows[batchRowOffset + i]);
+        }
+        groupIdsByHash[hashPosition] = groupId;
+        return groupId;
+    }
+
+    private boolean rowEquals(int groupId, long[] row, int offset)
+    {
+        // the hash is the first word, so most mismatches are rejected on the first comparison
+        long rowOffset = rowOffset(groupId);
+        for (int i = 0; i < rowSize; i++) {
+            if (rows.get(rowOffset + i) != row[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long rowOffset(int groupId)
+    {
+        return (long) groupId * rowSize;
+    }
+
+    private int getBatchSize(int remainingPositions)
+    {
+        // a batch can't add more groups than the hash table can take before it has to be rehashed
+        return Math.min(Math.min(remainingPositions, BATCH_SIZE), maxFill - nextGroupId);
+    }
+
+    private boolean tryRehash()
+    {
+        long newCapacityLong = hashCapacity * 2L;
+        if (newCapacityLong > Integer.MAX_VALUE) {
+            throw new PrestoException(GENERIC_INSUFFICIENT_RESOURCES, "Size of hash table cannot exceed 1 billion entries");
+        }
+        int newCapacity = toIntExact(newCapacityLong);
+
+        // An estimate of how much extra memory is needed before we can go ahead and expand the hash table.
+        // This includes the new capacity for groupIdsByHash and rows as well as the size of the current page
+        preallocatedMemoryInBytes = newCapacity * (long) Integer.BYTES + calculateMaxFill(newCapacity) * (long) rowSize * Long.BYTES + currentPageSizeInBytes;
+        if (!updateMemory.update()) {
+            // reserved memory but has exceeded the limit
+            return false;
+        }
+
+        expectedHashCollisions += estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+
+        int newMask = newCapacity - 1;
+        int[] newGroupIdsByHash = new int[newCapacity];
+        Arrays.fill(newGroupIdsByHash, -1);
+
+        for (int groupId = 0; groupId < nextGroupId; groupId++) {
+            // find an empty slot for the group, the hash is stored in the row
+            int hashPosition = getHashPosition(getRawHash(groupId), newMask);
+            while (newGroupIdsByHash[hashPosition] != -1) {
+                hashPosition = (hashPosition + 1) & newMask;
+                hashCollisions++;
+            }
+            newGroupIdsByHash[hashPosition] = groupId;
+        }
+
+        mask = newMask;
+        hashCapacity = newCapacity;
+        maxFill = calculateMaxFill(hashCapacity);
+        groupIdsByHash = newGroupIdsByHash;
+
+        rows.ensureCapacity((long) maxFill * rowSize);
+
+        preallocatedMemoryInBytes = 0;
+        // release temporary memory reservation
+        updateMemory.update();
+        return true;
+    }
+
+    private boolean needRehash()
+    {
+        return nextGroupId >= maxFill;
+    }
+
+    private static int getHashPosition(long rawHash, int mask)
+    {
+        return (int) (murmurHash3(rawHash) & mask);
+    }
+
+    private static int calculateMaxFill(int hashSize)
+    {
+        checkArgument(hashSize > 0, "hashSize must be greater than 0");
+        int maxFill = (int) Math.ceil(hashSize * FILL_RATIO);
+        if (maxFill == hashSize) {
+            maxFill--;
+        }
+        checkArgument(hashSize > maxFill, "hashSize must be larger than maxFill");
+        return maxFill;
+    }
+
+    private class AddPageWork
+            implements Work<Void>
+    {
+        private final Page page;
+
+        private int lastPosition;
+
+        public AddPageWork(Page page)
+        {
+            this.page = requireNonNull(page, "page is null");
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = page.getPositionCount();
+            checkState(lastPosition <= positionCount, "position count out of bound");
+
+            // needRehash() == true indicates we have reached capacity boundary and a rehash is needed.
+            // We can only proceed if tryRehash() successfully did a rehash.
+            if (needRehash() && !tryRehash()) {
+                return false;
+            }
+
+            // We rehash after each batch if rehash is needed, unless there isn't enough memory to do so.
+            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
+            while (lastPosition < positionCount && !needRehash()) {
+                int batchSize = getBatchSize(positionCount - lastPosition);
+                putIfAbsentBatch(page, lastPosition, batchSize);
+                lastPosition += batchSize;
+                if (needRehash()) {
+                    tryRehash();
+                }
+            }
+            return lastPosition == positionCount;
+        }
+
+        @Override
+        public Void getResult()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class GetGroupIdsWork
+            implements Work<GroupByIdBlock>
+    {
+        private final BlockBuilder blockBuilder;
+        private final Page page;
+
+        private boolean finished;
+        private int lastPosition;
+
+        public GetGroupIdsWork(Page page)
+        {
+            this.page = requireNonNull(page, "page is null");
+            // we know the exact size required for the block
+            this.blockBuilder = BIGINT.createFixedSizeBlockBuilder(page.getPositionCount());
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = page.getPositionCount();
+            checkState(lastPosition <= positionCount, "position count out of bound");
+            checkState(!finished);
+
+            // needRehash() == true indicates we have reached capacity boundary and a rehash is needed.
+            // We can only proceed if tryRehash() successfully did a rehash.
+            if (needRehash() && !tryRehash()) {
+                return false;
+            }
+
+            // We rehash after each batch if rehash is needed, unless there isn't enough memory to do so.
+            // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
+            while (lastPosition < positionCount && !needRehash()) {
+                int batchSize = getBatchSize(positionCount - lastPosition);
+                putIfAbsentBatch(page, lastPosition, batchSize);
+                // output the group ids for this batch
+                for (int i = 0; i < batchSize; i++) {
+                    BIGINT.writeLong(blockBuilder, batchGroupIds[i]);
+                }
+                lastPosition += batchSize;
+                if (needRehash()) {
+                    tryRehash();
+                }
+            }
+            return lastPosition == positionCount;
+        }
+
+        @Override
+        public GroupByIdBlock getResult()
+        {
+            checkState(lastPosition == page.getPositionCount(), "process has not yet finished");
+            checkState(!finished, "result has produced");
+            finished = true;
+            return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+        }
+    }
+}
@@ -21,14 +21,18 @@ import com.facebook.presto.common.type.Type;
 import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
 import it.unimi.dsi.fastutil.ints.IntIterator;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.operator.UpdateMemory.NOOP;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isFlatGroupByHashEnabled;
+import static com.google.common.base.Preconditions.checkArgument;
 
 public interface GroupByHash
 {
@@ -40,7 +44,7 @@ public interface GroupByHash
             int expectedSize,
             JoinCompiler joinCompiler)
     {
-        return createGroupByHash(hashTypes, hashChannels, inputHashChannel, expectedSize, isDictionaryAggregationEnabled(session), joinCompiler, NOOP);
+        return createGroupByHash(hashTypes, hashChannels, inputHashChannel, expectedSize, isDictionaryAggregationEnabled(session), isFlatGroupByHashEnabled(session), joinCompiler, NOOP);
     }
 
     static GroupByHash createGroupByHash(
@@ -51,10 +55,27 @@ public interface GroupByHash
             boolean processDictionary,
             JoinCompiler joinCompiler,
             UpdateMemory updateMemory)
+    {
+        return createGroupByHash(hashTypes, hashChannels, inputHashChannel, expectedSize, processDictionary, false, joinCompiler, updateMemory);
+    }
+
+    static GroupByHash createGroupByHash(
+            List<? extends Type> hashTypes,
+            int[] hashChannels,
+            Optional<Integer> inputHashChannel,
+            int expectedSize,
+            boolean processDictionary,
+            boolean flatGroupByHashEnabled,
+            JoinCompiler joinCompiler,
+            UpdateMemory updateMemory)
     {
         if (hashTypes.size() == 1 && hashTypes.get(0).equals(BIGINT) && hashChannels.length == 1) {
             return new BigintGroupByHash(hashChannels[0], inputHashChannel.isPresent(), expectedSize, updateMemory);
         }
+        // FlatGroupByHash does not process dictionaries, so it would lose the dictionary aggregation optimization
+        if (flatGroupByHashEnabled && !processDictionary && FlatGroupByHash.isSupported(hashTypes)) {
+            return new FlatGroupByHash(hashTypes, hashChannels, inputHashChannel, expectedSize, updateMemory);
+        }
         return new MultiChannelGroupByHash(hashTypes, hashChannels, inputHashChannel, expectedSize, processDictionary, joinCompiler, updateMemory);
     }
 
@@ -88,6 +109,35 @@ public interface GroupByHash
     @VisibleForTesting
     int getCapacity();
 
+    /**
+     * Returns the values of the first {@code groupCount} groups, in group id order, in pages laid out as {@link #getTypes()}.
+     * Pages are built lazily, so the hash must not be modified while the iterator is in use.
+     */
+    default Iterator<Page> getGroupValues(long groupCount)
+    {
+        checkArgument(groupCount <= getGroupCount(), "groupCount is greater than the number of groups");
+        PageBuilder pageBuilder = new PageBuilder(getTypes());
+        return new AbstractIterator<Page>()
+        {
+            private int groupId;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (groupId >= groupCount) {
+                    return endOfData();
+                }
+                pageBuilder.reset();
+                while (!pageBuilder.isFull() && groupId < groupCount) {
+                    pageBuilder.declarePosition();
+                    appendValuesTo(groupId, pageBuilder, 0);
+                    groupId++;
+                }
+                return pageBuilder.build();
+            }
+        };
+    }
+
     default IntIterator getHashSortedGroupIds()
     {
         IntBigArray groupIds = new IntBigArray();
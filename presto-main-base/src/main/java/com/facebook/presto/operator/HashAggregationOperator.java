@@ -43,6 +43,9 @@ import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.stream.Collectors;
 
+import static com.facebook.presto.common.RuntimeMetricName.PARTIAL_AGGREGATION_SKIPPED_FLUSHES;
+import static com.facebook.presto.common.RuntimeMetricName.PARTIAL_AGGREGATION_SKIPPED_ROWS;
+import static com.facebook.presto.common.RuntimeUnit.NONE;
 import static com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder.toTypes;
 import static com.facebook.presto.sql.planner.PlannerUtils.INITIAL_HASH_VALUE;
 import static com.facebook.presto.type.TypeUtils.NULL_HASH_CODE;
@@ -561,6 +564,11 @@ public class HashAggregationOperator
 
     private void closeAggregationBuilder()
     {
+        if (aggregationBuilder instanceof SkipAggregationBuilder) {
+            // report the adaptive decision for this operator, so that it is visible in the operator stats
+            operatorContext.getRuntimeStats().addMetricValue(PARTIAL_AGGREGATION_SKIPPED_FLUSHES, NONE, 1);
+            operatorContext.getRuntimeStats().addMetricValueIgnoreZero(PARTIAL_AGGREGATION_SKIPPED_ROWS, NONE, inputRowsProcessed);
+        }
         partialAggregationController.ifPresent(
                 controller -> controller.onFlush(
                         inputBytesProcessed,
@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.airlift.log.Logger;
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
 import com.facebook.presto.execution.Lifespan;
 import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.ErrorCause;
@@ -32,21 +33,27 @@ import javax.annotation.concurrent.ThreadSafe;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.Queue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 
 import static com.facebook.airlift.concurrent.MoreFutures.getDone;
 import static com.facebook.presto.ExceededMemoryLimitException.exceededLocalUserMemoryLimit;
 import static com.facebook.presto.SystemSessionProperties.getQueryMaxMemoryPerNode;
 import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isJoinBuildCacheEnabled;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static io.airlift.units.DataSize.succinctBytes;
 import static java.lang.String.format;
@@ -76,6 +83,8 @@ public class HashBuilderOperator
         private final int expectedPositions;
         private final boolean spillEnabled;
         private final SingleStreamSpillerFactory singleStreamSpillerFactory;
+        private final Optional<JoinBuildCache> joinBuildCache;
+        private final Optional<ForkJoinPool> parallelHashBuildPool;
 
         private final Map<Lifespan, Integer> partitionIndexManager = new HashMap<>();
 
@@ -97,6 +106,43 @@ public class HashBuilderOperator
                 boolean spillEnabled,
                 SingleStreamSpillerFactory singleStreamSpillerFactory,
                 boolean enforceBroadcastMemoryLimit)
+        {
+            this(
+                    operatorId,
+                    planNodeId,
+                    lookupSourceFactoryManager,
+                    outputChannels,
+                    hashChannels,
+                    preComputedHashChannel,
+                    filterFunctionFactory,
+                    sortChannel,
+                    searchFunctionFactories,
+                    expectedPositions,
+                    pagesIndexFactory,
+                    spillEnabled,
+                    singleStreamSpillerFactory,
+                    enforceBroadcastMemoryLimit,
+                    Optional.empty(),
+                    Optional.empty());
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                JoinBridgeManager<PartitionedLookupSourceFactory> lookupSourceFactoryManager,
+                List<Integer> outputChannels,
+                List<Integer> hashChannels,
+                OptionalInt preComputedHashChannel,
+                Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+                Optional<Integer> sortChannel,
+                List<JoinFilterFunctionFactory> searchFunctionFactories,
+                int expectedPositions,
+                PagesIndex.Factory pagesIndexFactory,
+                boolean spillEnabled,
+                SingleStreamSpillerFactory singleStreamSpillerFactory,
+                boolean enforceBroadcastMemoryLimit,
+                Optional<JoinBuildCache> joinBuildCache,
+                Optional<ForkJoinPool> parallelHashBuildPool)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -117,6 +163,8 @@ public class HashBuilderOperator
 
             this.expectedPositions = expectedPositions;
             this.enforceBroadcastMemoryLimit = enforceBroadcastMemoryLimit;
+            this.joinBuildCache = requireNonNull(joinBuildCache, "joinBuildCache is null");
+            this.parallelHashBuildPool = requireNonNull(parallelHashBuildPool, "parallelHashBuildPool is null");
         }
 
         @Override
@@ -142,7 +190,9 @@ public class HashBuilderOperator
                     pagesIndexFactory,
                     spillEnabled,
                     singleStreamSpillerFactory,
-                    enforceBroadcastMemoryLimit);
+                    enforceBroadcastMemoryLimit,
+                    joinBuildCache,
+                    parallelHashBuildPool);
         }
 
         @Override
@@ -207,6 +257,8 @@ public class HashBuilderOperator
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
     private final LocalMemoryContext localRevocableMemoryContext;
+    // scratch arrays of a parallel hash build, held only while the lookup source is built
+    private final LocalMemoryContext hashBuildMemoryContext;
     private final PartitionedLookupSourceFactory lookupSourceFactory;
     private final ListenableFuture<?> lookupSourceFactoryDestroyed;
     private final int partitionIndex;
@@ -238,6 +290,18 @@ public class HashBuilderOperator
     private Optional<Runnable> finishMemoryRevoke = Optional.empty();
 
     private final boolean enforceBroadcastMemoryLimit;
+    private final Optional<ForkJoinPool> parallelHashBuildPool;
+
+    // present only when the lookup source of this build may be shared through the join build cache
+    private final Optional<JoinBuildCache> joinBuildCache;
+    private final Optional<JoinBuildCache.Key> joinBuildCacheKey;
+    // the input is matched against these cached entries instead of being added to the index, until no entry matches anymore
+    private List<JoinBuildCache.Matcher> joinBuildCacheMatchers = ImmutableList.of();
+    private final LocalMemoryContext joinBuildCacheMemoryContext;
+    private final int[] hashChannelsArray;
+    private Optional<JoinBuildCache.Lease> joinBuildCacheLease = Optional.empty();
+    // set when the pages of the index are retained by a cached lookup source, and must not be cleared
+    private boolean indexRetainedByJoinBuildCache;
 
     public HashBuilderOperator(
             OperatorContext operatorContext,
@@ -253,9 +317,12 @@ public class HashBuilderOperator
             PagesIndex.Factory pagesIndexFactory,
             boolean spillEnabled,
             SingleStreamSpillerFactory singleStreamSpillerFactory,
-            boolean enforceBroadcastMemoryLimit)
+            boolean enforceBroadcastMemoryLimit,
+            Optional<JoinBuildCache> joinBuildCache,
+            Optional<ForkJoinPool> parallelHashBuildPool)
     {
         requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
+        requireNonNull(joinBuildCache, "joinBuildCache is null");
 
         this.operatorContext = operatorContext;
         this.partitionIndex = partitionIndex;
@@ -264,6 +331,7 @@ public class HashBuilderOperator
         this.searchFunctionFactories = searchFunctionFactories;
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
         this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+        this.hashBuildMemoryContext = operatorContext.aggregateUserMemoryContext().newLocalMemoryContext(PagesHash.class.getSimpleName());
 
         this.index = pagesIndexFactory.newPagesIndex(lookupSourceFactory.getTypes(), expectedPositions);
         this.lookupSourceFactory = lookupSourceFactory;
@@ -279,6 +347,25 @@ public class HashBuilderOperator
         this.spillEnabled = spillEnabled;
         this.singleStreamSpillerFactory = requireNonNull(singleStreamSpillerFactory, "singleStreamSpillerFactory is null");
         this.enforceBroadcastMemoryLimit = enforceBroadcastMemoryLimit;
+        this.parallelHashBuildPool = requireNonNull(parallelHashBuildPool, "parallelHashBuildPool is null");
+
+        // filter functions are compiled per query, and spilling may rebuild the lookup source, so neither can be shared
+        boolean cacheable = joinBuildCache.isPresent()
+                && isJoinBuildCacheEnabled(operatorContext.getSession())
+                && !spillEnabled
+                && !filterFunctionFactory.isPresent()
+                && !sortChannel.isPresent()
+                && JoinBuildCache.isSupported(lookupSourceFactory.getTypes());
+        this.joinBuildCache = cacheable ? joinBuildCache : Optional.empty();
+        this.joinBuildCacheKey = cacheable
+                ? Optional.of(new JoinBuildCache.Key(lookupSourceFactory.getTypes(), hashChannels, outputChannels, preComputedHashChannel))
+                : Optional.empty();
+        this.hashChannelsArray = hashChannels.stream().mapToInt(Integer::intValue).toArray();
+        this.joinBuildCacheMemoryContext = operatorContext.aggregateUserMemoryContext().newLocalMemoryContext(JoinBuildCache.class.getSimpleName());
+        if (cacheable) {
+            joinBuildCacheMatchers = new ArrayList<>(this.joinBuildCache.get().acquireMatchers(joinBuildCacheKey.get()));
+            updateJoinBuildCacheMemory();
+        }
     }
 
     @Override
@@ -350,6 +437,68 @@ public class HashBuilderOperator
     }
 
     private void updateIndex(Page page)
+    {
+        if (joinBuildCacheMatchers.isEmpty()) {
+            addToIndex(page);
+        }
+        else {
+            matchJoinBuildCache(page).ifPresent(this::addToIndex);
+        }
+        operatorContext.recordOutput(page.getSizeInBytes(), page.getPositionCount());
+    }
+
+    /**
+     * Matches the rows of the page against the cached entries, and drops the entries that do not match.
+     * Returns the rows that must be added to the index once the last entry does not match.
+     */
+    private Optional<Page> matchJoinBuildCache(Page page)
+    {
+        Page loadedPage = page.getLoadedPage();
+        Page hashChannelsPage = loadedPage.extractChannels(hashChannelsArray);
+        for (int position = 0; position < loadedPage.getPositionCount(); position++) {
+            Iterator<JoinBuildCache.Matcher> iterator = joinBuildCacheMatchers.iterator();
+            while (iterator.hasNext()) {
+                JoinBuildCache.Matcher matcher = iterator.next();
+                if (matcher.matchRow(loadedPage, hashChannelsPage, position)) {
+                    continue;
+                }
+                if (joinBuildCacheMatchers.size() == 1) {
+                    stopJoinBuildCacheMatching(matcher);
+                    return Optional.of(loadedPage.getRegion(position, loadedPage.getPositionCount() - position));
+                }
+                matcher.getLease().release();
+                iterator.remove();
+            }
+        }
+        updateJoinBuildCacheMemory();
+        return Optional.empty();
+    }
+
+    /**
+     * Fills the index with the rows matched so far, which are copied from the entry of the matcher,
+     * and releases all the cached entries.
+     */
+    private void stopJoinBuildCacheMatching(JoinBuildCache.Matcher matcher)
+    {
+        matcher.copyMatchedRows(this::addToIndex);
+        releaseJoinBuildCacheMatchers();
+    }
+
+    private void releaseJoinBuildCacheMatchers()
+    {
+        joinBuildCacheMatchers.forEach(matcher -> matcher.getLease().release());
+        joinBuildCacheMatchers = ImmutableList.of();
+        updateJoinBuildCacheMemory();
+    }
+
+    private void updateJoinBuildCacheMemory()
+    {
+        joinBuildCacheMemoryContext.setBytes(joinBuildCacheMatchers.stream()
+                .mapToLong(JoinBuildCache.Matcher::getRetainedSizeInBytes)
+                .sum());
+    }
+
+    private void addToIndex(Page page)
     {
         index.addPage(page);
 
@@ -362,7 +511,6 @@ public class HashBuilderOperator
                 localUserMemoryContext.setBytes(index.getEstimatedSize().toBytes(), enforceBroadcastMemoryLimit);
             }
         }
-        operatorContext.recordOutput(page.getSizeInBytes(), page.getPositionCount());
     }
 
     private void spillInput(Page page)
@@ -525,6 +673,11 @@ public class HashBuilderOperator
             return;
         }
 
+        if (joinBuildCache.isPresent()) {
+            finishInputWithJoinBuildCache();
+            return;
+        }
+
         LookupSourceSupplier partition = buildLookupSource();
         if (spillEnabled) {
             localRevocableMemoryContext.setBytes(partition.get().getInMemorySizeInBytes());
@@ -537,6 +690,55 @@ public class HashBuilderOperator
         state = State.LOOKUP_SOURCE_BUILT;
     }
 
+    private void finishInputWithJoinBuildCache()
+    {
+        JoinBuildCache cache = joinBuildCache.get();
+        LookupSourceSupplier partition;
+        Optional<JoinBuildCache.Matcher> match = joinBuildCacheMatchers.stream()
+                .filter(JoinBuildCache.Matcher::isComplete)
+                .findFirst();
+        if (match.isPresent()) {
+            // every row of the build equals a distinct row of the entry, and the entry has no other rows;
+            // the input was never added to the index, and the memory of the entry is accounted by the cache
+            joinBuildCacheLease = Optional.of(match.get().getLease());
+            joinBuildCacheMatchers.remove(match.get());
+            releaseJoinBuildCacheMatchers();
+            cache.recordHit(joinBuildCacheLease.get());
+            partition = joinBuildCacheLease.get().getLookupSourceSupplier();
+            recordLookupSourceStats(partition);
+            checkState(lookupSourceSupplier == null, "lookupSourceSupplier is already set");
+            lookupSourceSupplier = partition;
+        }
+        else {
+            if (!joinBuildCacheMatchers.isEmpty()) {
+                // all the input matched, but the entries have more rows
+                stopJoinBuildCacheMatching(joinBuildCacheMatchers.get(0));
+            }
+            cache.recordMiss();
+            partition = buildLookupSource();
+            long lookupSourceSizeInBytes = partition.get().getInMemorySizeInBytes();
+            localUserMemoryContext.setBytes(lookupSourceSizeInBytes, enforceBroadcastMemoryLimit);
+            List<List<Block>> channels = IntStream.range(0, index.getTypes().size())
+                    .<List<Block>>mapToObj(index::getChannel)
+                    .collect(toImmutableList());
+            joinBuildCacheLease = cache.put(
+                    joinBuildCacheKey.get(),
+                    partition,
+                    channels,
+                    index.getValueAddresses(),
+                    index.getPositionCount(),
+                    lookupSourceSizeInBytes);
+            indexRetainedByJoinBuildCache = joinBuildCacheLease.isPresent();
+            if (indexRetainedByJoinBuildCache) {
+                // the memory of the lookup source is now reserved by the cache
+                localUserMemoryContext.setBytes(0, enforceBroadcastMemoryLimit);
+            }
+        }
+        lookupSourceNotNeeded = Optional.of(lookupSourceFactory.lendPartitionLookupSource(partitionIndex, partition));
+
+        state = State.LOOKUP_SOURCE_BUILT;
+    }
+
     private void disposeLookupSourceIfRequested()
     {
         checkState(state == State.LOOKUP_SOURCE_BUILT);
@@ -545,9 +747,9 @@ public class HashBuilderOperator
             return;
         }
 
-        index.clear();
+        clearIndex();
         localRevocableMemoryContext.setBytes(0);
-        localUserMemoryContext.setBytes(index.getEstimatedSize().toBytes(), enforceBroadcastMemoryLimit);
+        localUserMemoryContext.setBytes(indexRetainedByJoinBuildCache ? 0 : index.getEstimatedSize().toBytes(), enforceBroadcastMemoryLimit);
         lookupSourceSupplier = null;
         close();
     }
@@ -642,15 +844,44 @@ public class HashBuilderOperator
 
     private LookupSourceSupplier buildLookupSource()
     {
-        LookupSourceSupplier partition = index.createLookupSourceSupplier(operatorContext.getSession(), hashChannels, preComputedHashChannel, filterFunctionFactory, sortChannel, searchFunctionFactories, Optional.of(outputChannels));
-        hashCollisionsCounter.recordHashCollision(partition.getHashCollisions(), partition.getExpectedHashCollisions());
-        operatorContext.recordNullJoinBuildKeyCount(partition.getPositionIsNullCount());
-        operatorContext.recordJoinBuildKeyCount(partition.getPositionCount());
+        LookupSourceSupplier partition;
+        if (parallelHashBuildPool.isPresent()) {
+            hashBuildMemoryContext.setBytes(PagesHash.getParallelBuildScratchSizeInBytes(index.getPositionCount()));
+        }
+        try {
+            partition = index.createLookupSourceSupplier(
+                    operatorContext.getSession(),
+                    hashChannels,
+                    preComputedHashChannel,
+                    filterFunctionFactory,
+                    sortChannel,
+                    searchFunctionFactories,
+                    Optional.of(outputChannels),
+                    parallelHashBuildPool);
+        }
+        finally {
+            hashBuildMemoryContext.setBytes(0);
+        }
+        recordLookupSourceStats(partition);
         checkState(lookupSourceSupplier == null, "lookupSourceSupplier is already set");
         this.lookupSourceSupplier = partition;
         return partition;
     }
 
+    private void recordLookupSourceStats(LookupSourceSupplier partition)
+    {
+        hashCollisionsCounter.recordHashCollision(partition.getHashCollisions(), partition.getExpectedHashCollisions());
+        operatorContext.recordNullJoinBuildKeyCount(partition.getPositionIsNullCount());
+        operatorContext.recordJoinBuildKeyCount(partition.getPositionCount());
+    }
+
+    private void clearIndex()
+    {
+        if (!indexRetainedByJoinBuildCache) {
+            index.clear();
+        }
+    }
+
     @Override
     public boolean isFinished()
     {
@@ -681,7 +912,9 @@ public class HashBuilderOperator
         finishMemoryRevoke = finishMemoryRevoke.map(ifPresent -> () -> {});
 
         try (Closer closer = Closer.create()) {
-            closer.register(index::clear);
+            closer.register(this::clearIndex);
+            joinBuildCacheLease.ifPresent(lease -> closer.register(lease::release));
+            closer.register(this::releaseJoinBuildCacheMatchers);
             spiller.ifPresent(closer::register);
             closer.register(() -> localUserMemoryContext.setBytes(0, enforceBroadcastMemoryLimit));
             closer.register(() -> localRevocableMemoryContext.setBytes(0));
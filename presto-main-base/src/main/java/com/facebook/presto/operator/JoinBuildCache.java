@@ -0,0 +1,624 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.PageBuilder;
+import com.facebook.presto.common.array.AdaptiveLongBigArray;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.DecimalType;
+import com.facebook.presto.common.type.TimestampType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.VarbinaryType;
+import com.facebook.presto.common.type.VarcharType;
+import com.facebook.presto.memory.LocalMemoryManager;
+import com.facebook.presto.memory.MemoryPool;
+import com.facebook.presto.memory.MemoryPoolListener;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.memory.MemoryPoolId;
+import com.facebook.presto.sql.analyzer.JavaFeaturesConfig;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.common.type.DateType.DATE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
+import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Worker-wide cache of join lookup sources, shared between queries that build a hash table
+ * over identical data.
+ * <p>
+ * Entries are keyed by the layout of the build side only. A hash builder matches its input rows
+ * against the rows of the cached entries with the same layout, with a {@link Matcher} per entry,
+ * instead of adding them to its pages index. A cached lookup source is reused only when every row
+ * of the build equals a distinct row of the entry and no row of the entry is left over, so it is
+ * only ever reused for exactly the same rows.
+ * <p>
+ * Entries are reference counted by the {@link Lease}s handed out to the hash builders using them,
+ * and unreferenced entries are evicted in least recently used order once the cache grows over its
+ * maximum size. The memory of cached entries is reserved in the general memory pool of the worker,
+ * rather than by the queries using them, and unreferenced entries are also evicted as soon as the
+ * pool runs out of memory, so that the cache never blocks the queries.
+ */
+@ThreadSafe
+public class JoinBuildCache
+{
+    private final long maxSizeInBytes;
+    private final MemoryPool memoryPool;
+
+    @GuardedBy("this")
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    @GuardedBy("this")
+    private long nextEntryId;
+    @GuardedBy("this")
+    private long sizeInBytes;
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat evictions = new CounterStat();
+
+    @Inject
+    public JoinBuildCache(JavaFeaturesConfig config, LocalMemoryManager localMemoryManager)
+    {
+        this(
+                requireNonNull(config, "config is null").getJoinBuildCacheMaxSize(),
+                requireNonNull(localMemoryManager, "localMemoryManager is null").getGeneralPool());
+    }
+
+    /**
+     * Creates a cache that reserves its memory in a memory pool of its own, of the maximum size of the cache.
+     */
+    public JoinBuildCache(DataSize maxSize)
+    {
+        this(maxSize, new MemoryPool(new MemoryPoolId("join_build_cache"), maxSize));
+    }
+
+    public JoinBuildCache(DataSize maxSize, MemoryPool memoryPool)
+    {
+        this.maxSizeInBytes = requireNonNull(maxSize, "maxSize is null").toBytes();
+        this.memoryPool = requireNonNull(memoryPool, "memoryPool is null");
+        memoryPool.addListener(new MemoryPoolListener()
+        {
+            @Override
+            public void onMemoryReserved(MemoryPool memoryPool, QueryId queryId, long queryMemoryReservation)
+            {
+                evictIfPoolExhausted();
+            }
+
+            @Override
+            public void onUnownedMemoryReserved(MemoryPool memoryPool)
+            {
+                evictIfPoolExhausted();
+            }
+        });
+    }
+
+    /**
+     * Returns true if a build side with the given types can be cached, that is if values that are
+     * equal are also indistinguishable in the join output.
+     */
+    public static boolean isSupported(List<Type> types)
+    {
+        return types.stream().allMatch(type -> type.equals(BIGINT)
+                || type.equals(INTEGER)
+                || type.equals(SMALLINT)
+                || type.equals(TINYINT)
+                || type.equals(BOOLEAN)
+                || type.equals(DATE)
+                || type instanceof TimestampType
+                || type instanceof DecimalType
+                || type instanceof VarcharType
+                || type instanceof VarbinaryType);
+    }
+
+    /**
+     * Returns a matcher for every cached entry with the given layout. Each matcher holds a lease
+     * on its entry, which must be released once the matcher is no longer used.
+     */
+    public synchronized List<Matcher> acquireMatchers(Key key)
+    {
+        requireNonNull(key, "key is null");
+        ImmutableList.Builder<Matcher> matchers = ImmutableList.builder();
+        // iterating over the values does not change the access order
+        for (Entry entry : entries.values()) {
+            if (entry.key.equals(key)) {
+                entry.referenceCount++;
+                matchers.add(new Matcher(new Lease(entry)));
+            }
+        }
+        return matchers.build();
+    }
+
+    /**
+     * Records that a build was served by the entry of the lease.
+     */
+    public synchronized void recordHit(Lease lease)
+    {
+        hits.update(1);
+        // marks the entry as recently used
+        entries.get(lease.entry.id);
+    }
+
+    /**
+     * Records that a build did not match any cached entry.
+     */
+    public void recordMiss()
+    {
+        misses.update(1);
+    }
+
+    /**
+     * Adds a lookup source to the cache, evicting unreferenced entries as needed. The {@code channels}
+     * and {@code addresses} are the ones the lookup source was built from, and must not be modified
+     * afterwards. Returns a lease on the new entry, or empty if the lookup source does not fit in the
+     * cache or in the memory pool.
+     */
+    public Optional<Lease> put(
+            Key key,
+            LookupSourceSupplier lookupSourceSupplier,
+            List<List<Block>> channels,
+            AdaptiveLongBigArray addresses,
+            int positionCount,
+            long retainedSizeInBytes)
+    {
+        requireNonNull(key, "key is null");
+        requireNonNull(lookupSourceSupplier, "lookupSourceSupplier is null");
+        requireNonNull(channels, "channels is null");
+        requireNonNull(addresses, "addresses is null");
+        checkArgument(channels.size() == key.types.size(), "channels do not match the types of the key");
+        checkArgument(retainedSizeInBytes >= 0, "retainedSizeInBytes is negative");
+        if (retainedSizeInBytes > maxSizeInBytes) {
+            return Optional.empty();
+        }
+        // scans the rows outside of the lock
+        int[] nullKeyPositions = findNullKeyPositions(key, channels, addresses, positionCount);
+
+        synchronized (this) {
+            evictUnreferenced(maxSizeInBytes - retainedSizeInBytes);
+            if (sizeInBytes + retainedSizeInBytes > maxSizeInBytes) {
+                return Optional.empty();
+            }
+            if (!memoryPool.tryReserveUnowned(retainedSizeInBytes)) {
+                // the worker is short of memory, so the unreferenced entries make room for the new one
+                evictUnreferenced(0);
+                if (!memoryPool.tryReserveUnowned(retainedSizeInBytes)) {
+                    return Optional.empty();
+                }
+            }
+
+            Entry entry = new Entry(nextEntryId++, key, lookupSourceSupplier, channels, addresses, positionCount, nullKeyPositions, retainedSizeInBytes);
+            entry.referenceCount++;
+            entries.put(entry.id, entry);
+            sizeInBytes += retainedSizeInBytes;
+            return Optional.of(new Lease(entry));
+        }
+    }
+
+    private static int[] findNullKeyPositions(Key key, List<List<Block>> channels, AdaptiveLongBigArray addresses, int positionCount)
+    {
+        IntArrayList nullKeyPositions = new IntArrayList();
+        for (int position = 0; position < positionCount; position++) {
+            long address = addresses.get(position);
+            int blockIndex = decodeSliceIndex(address);
+            int blockPosition = decodePosition(address);
+            for (int hashChannel : key.hashChannels) {
+                if (channels.get(hashChannel).get(blockIndex).isNull(blockPosition)) {
+                    nullKeyPositions.add(position);
+                    break;
+                }
+            }
+        }
+        return nullKeyPositions.toIntArray();
+    }
+
+    /**
+     * Evicts unreferenced entries until the pool has free memory again. Reservations of the queries
+     * block once the pool has no free memory left, and are unblocked by the memory given back.
+     */
+    private void evictIfPoolExhausted()
+    {
+        long freeBytes = memoryPool.getFreeBytes();
+        if (freeBytes > 0) {
+            return;
+        }
+        synchronized (this) {
+            evictUnreferenced(sizeInBytes + freeBytes - 1);
+        }
+    }
+
+    @GuardedBy("this")
+    private void evictUnreferenced(long targetSizeInBytes)
+    {
+        // iteration order of an access ordered map is least recently used first
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (sizeInBytes > targetSizeInBytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.referenceCount == 0) {
+                iterator.remove();
+                sizeInBytes -= entry.retainedSizeInBytes;
+                memoryPool.freeUnowned(entry.retainedSizeInBytes);
+                evictions.update(1);
+            }
+        }
+    }
+
+    private synchronized void release(Entry entry)
+    {
+        checkState(entry.referenceCount > 0, "entry is not referenced");
+        entry.referenceCount--;
+    }
+
+    @Managed
+    public synchronized long getSizeInBytes()
+    {
+        return sizeInBytes;
+    }
+
+    @Managed
+    public synchronized int getEntryCount()
+    {
+        return entries.size();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getEvictions()
+    {
+        return evictions;
+    }
+
+    private static class Entry
+    {
+        private final long id;
+        private final Key key;
+        private final LookupSourceSupplier lookupSourceSupplier;
+        private final List<List<Block>> channels;
+        private final AdaptiveLongBigArray addresses;
+        private final int positionCount;
+        // the rows with a null join key, which are not in the lookup source
+        private final int[] nullKeyPositions;
+        private final long retainedSizeInBytes;
+        // guarded by the cache
+        private int referenceCount;
+
+        private Entry(
+                long id,
+                Key key,
+                LookupSourceSupplier lookupSourceSupplier,
+                List<List<Block>> channels,
+                AdaptiveLongBigArray addresses,
+                int positionCount,
+                int[] nullKeyPositions,
+                long retainedSizeInBytes)
+        {
+            this.id = id;
+            this.key = key;
+            this.lookupSourceSupplier = lookupSourceSupplier;
+            this.channels = ImmutableList.copyOf(channels);
+            this.addresses = addresses;
+            this.positionCount = positionCount;
+            this.nullKeyPositions = nullKeyPositions;
+            this.retainedSizeInBytes = retainedSizeInBytes;
+        }
+    }
+
+    public final class Lease
+    {
+        private final Entry entry;
+        @GuardedBy("this")
+        private boolean released;
+
+        private Lease(Entry entry)
+        {
+            this.entry = entry;
+        }
+
+        public LookupSourceSupplier getLookupSourceSupplier()
+        {
+            return entry.lookupSourceSupplier;
+        }
+
+        public void release()
+        {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            JoinBuildCache.this.release(entry);
+        }
+    }
+
+    /**
+     * Matches the rows of a build, one at a time, against the rows of a cached entry. Each row of the
+     * build is paired with a distinct, equal row of the entry, so duplicate rows must appear as many
+     * times in the build as in the entry.
+     * <p>
+     * As long as the rows of the build arrive in the order of the rows of the entry, which is the
+     * common case when the same data is built twice, each row is only compared with the next row of
+     * the entry. Once a row arrives out of order, the rows are paired through the lookup source of
+     * the entry, and the paired rows are tracked in an array allocated at that point.
+     */
+    @NotThreadSafe
+    public static final class Matcher
+    {
+        // bounds the work spent on a row when the entry has many rows with the same join key
+        private static final int MAX_CANDIDATES_PER_ROW = 64;
+
+        private final Lease lease;
+        private final Entry entry;
+        private LookupSource lookupSource;
+        // null while the rows arrive in order, in which case the first matchedCount rows of the entry are paired
+        private boolean[] matched;
+        private int matchedCount;
+        // index of the first entry in nullKeyPositions that may not be paired yet
+        private int nextNullKeyPosition;
+
+        private Matcher(Lease lease)
+        {
+            this.lease = requireNonNull(lease, "lease is null");
+            this.entry = lease.entry;
+        }
+
+        public Lease getLease()
+        {
+            return lease;
+        }
+
+        public long getRetainedSizeInBytes()
+        {
+            return matched == null ? 0 : sizeOf(matched);
+        }
+
+        /**
+         * Pairs the row at {@code position} with an unpaired, equal row of the entry. Returns false if
+         * there is no such row, or if it can not be found cheaply, in which case the matcher must not be
+         * used anymore.
+         *
+         * @param page all the channels of the build
+         * @param hashChannelsPage the join channels of the build, in the order of the key
+         */
+        public boolean matchRow(Page page, Page hashChannelsPage, int position)
+        {
+            if (matched == null) {
+                if (matchedCount < entry.positionCount && rowEquals(matchedCount, page, position)) {
+                    matchedCount++;
+                    return true;
+                }
+                matched = new boolean[entry.positionCount];
+                Arrays.fill(matched, 0, matchedCount, true);
+                lookupSource = entry.lookupSourceSupplier.get();
+            }
+
+            int entryPosition = hasNullKey(hashChannelsPage, position) ? findNullKeyRow(page, position) : findRow(page, hashChannelsPage, position);
+            if (entryPosition < 0) {
+                return false;
+            }
+            matched[entryPosition] = true;
+            matchedCount++;
+            return true;
+        }
+
+        private static boolean hasNullKey(Page hashChannelsPage, int position)
+        {
+            for (int channel = 0; channel < hashChannelsPage.getChannelCount(); channel++) {
+                if (hashChannelsPage.getBlock(channel).isNull(position)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int findRow(Page page, Page hashChannelsPage, int position)
+        {
+            long joinPosition = lookupSource.getJoinPosition(position, hashChannelsPage, page);
+            for (int candidates = 0; joinPosition >= 0 && candidates < MAX_CANDIDATES_PER_ROW; candidates++) {
+                int entryPosition = toIntExact(joinPosition);
+                if (!matched[entryPosition] && rowEquals(entryPosition, page, position)) {
+                    return entryPosition;
+                }
+                joinPosition = lookupSource.getNextJoinPosition(joinPosition, position, page);
+            }
+            return -1;
+        }
+
+        private int findNullKeyRow(Page page, int position)
+        {
+            // rows with a null join key are not in the lookup source, so they are scanned instead
+            int[] nullKeyPositions = entry.nullKeyPositions;
+            while (nextNullKeyPosition < nullKeyPositions.length && matched[nullKeyPositions[nextNullKeyPosition]]) {
+                nextNullKeyPosition++;
+            }
+            int candidates = 0;
+            for (int index = nextNullKeyPosition; index < nullKeyPositions.length && candidates < MAX_CANDIDATES_PER_ROW; index++) {
+                int entryPosition = nullKeyPositions[index];
+                if (matched[entryPosition]) {
+                    continue;
+                }
+                if (rowEquals(entryPosition, page, position)) {
+                    return entryPosition;
+                }
+                candidates++;
+            }
+            return -1;
+        }
+
+        /**
+         * Returns true if every row of the entry was paired with a row of the build.
+         */
+        public boolean isComplete()
+        {
+            return matchedCount == entry.positionCount;
+        }
+
+        /**
+         * Copies the rows of the entry that were paired so far, which are equal to the rows of the build
+         * matched so far, into new pages.
+         */
+        public void copyMatchedRows(Consumer<Page> pageConsumer)
+        {
+            List<Type> types = entry.key.types;
+            PageBuilder pageBuilder = new PageBuilder(types);
+            int positionCount = matched == null ? matchedCount : entry.positionCount;
+            for (int position = 0; position < positionCount; position++) {
+                if (matched != null && !matched[position]) {
+                    continue;
+                }
+                long address = entry.addresses.get(position);
+                int blockIndex = decodeSliceIndex(address);
+                int blockPosition = decodePosition(address);
+                pageBuilder.declarePosition();
+                for (int channel = 0; channel < types.size(); channel++) {
+                    Block block = entry.channels.get(channel).get(blockIndex);
+                    BlockBuilder blockBuilder = pageBuilder.getBlockBuilder(channel);
+                    if (block.isNull(blockPosition)) {
+                        blockBuilder.appendNull();
+                    }
+                    else {
+                        types.get(channel).appendTo(block, blockPosition, blockBuilder);
+                    }
+                }
+                if (pageBuilder.isFull()) {
+                    pageConsumer.accept(pageBuilder.build());
+                    pageBuilder.reset();
+                }
+            }
+            if (!pageBuilder.isEmpty()) {
+                pageConsumer.accept(pageBuilder.build());
+            }
+        }
+
+        private boolean rowEquals(int entryPosition, Page page, int position)
+        {
+            long address = entry.addresses.get(entryPosition);
+            int blockIndex = decodeSliceIndex(address);
+            int blockPosition = decodePosition(address);
+            List<Type> types = entry.key.types;
+            for (int channel = 0; channel < types.size(); channel++) {
+                Block entryBlock = entry.channels.get(channel).get(blockIndex);
+                Block block = page.getBlock(channel);
+                boolean entryNull = entryBlock.isNull(blockPosition);
+                if (entryNull != block.isNull(position)) {
+                    return false;
+                }
+                if (!entryNull && !types.get(channel).equalTo(entryBlock, blockPosition, block, position)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The layout of a build side.
+     */
+    public static final class Key
+    {
+        private final List<Type> types;
+        private final List<Integer> hashChannels;
+        private final List<Integer> outputChannels;
+        private final OptionalInt preComputedHashChannel;
+
+        public Key(
+                List<Type> types,
+                List<Integer> hashChannels,
+                List<Integer> outputChannels,
+                OptionalInt preComputedHashChannel)
+        {
+            this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+            checkArgument(isSupported(this.types), "types are not supported: %s", this.types);
+            this.hashChannels = ImmutableList.copyOf(requireNonNull(hashChannels, "hashChannels is null"));
+            this.outputChannels = ImmutableList.copyOf(requireNonNull(outputChannels, "outputChannels is null"));
+            this.preComputedHashChannel = requireNonNull(preComputedHashChannel, "preComputedHashChannel is null");
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return types.equals(other.types) &&
+                    hashChannels.equals(other.hashChannels) &&
+                    outputChannels.equals(other.outputChannels) &&
+                    preComputedHashChannel.equals(other.preComputedHashChannel);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(types, hashChannels, outputChannels, preComputedHashChannel);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("types", types)
+                    .add("hashChannels", hashChannels)
+                    .add("outputChannels", outputChannels)
+                    .add("preComputedHashChannel", preComputedHashChannel)
+                    .toString();
+        }
+    }
+}
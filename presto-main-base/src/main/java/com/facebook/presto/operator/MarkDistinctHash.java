@@ -23,11 +23,13 @@ import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isFlatGroupByHashEnabled;
 import static com.google.common.base.Preconditions.checkState;
 
 public class MarkDistinctHash
@@ -42,7 +44,7 @@ public class MarkDistinctHash
 
     public MarkDistinctHash(Session session, List<Type> types, int[] channels, Optional<Integer> hashChannel, int expectedDistinctValues, JoinCompiler joinCompiler, UpdateMemory updateMemory)
     {
-        this.groupByHash = createGroupByHash(types, channels, hashChannel, expectedDistinctValues, isDictionaryAggregationEnabled(session), joinCompiler, updateMemory);
+        this.groupByHash = createGroupByHash(types, channels, hashChannel, expectedDistinctValues, isDictionaryAggregationEnabled(session), isFlatGroupByHashEnabled(session), joinCompiler, updateMemory);
     }
 
     public long getEstimatedSize()
@@ -66,6 +68,29 @@ public class MarkDistinctHash
         return groupByHash.getBufferedPages();
     }
 
+    public List<Type> getTypes()
+    {
+        return groupByHash.getTypes();
+    }
+
+    /**
+     * Returns the number of distinct values seen in completely processed pages.
+     * Values of a page whose {@link #markDistinctRows} work has not finished yet are not included.
+     */
+    public long getDistinctCount()
+    {
+        return nextDistinctId;
+    }
+
+    /**
+     * Returns the first {@code distinctCount} distinct values in pages laid out as {@link #getTypes()}.
+     * Pages are built lazily, so the hash must not be modified while the iterator is in use.
+     */
+    public Iterator<Page> getDistinctValues(long distinctCount)
+    {
+        return groupByHash.getGroupValues(distinctCount);
+    }
+
     private Block processNextGroupIds(GroupByIdBlock ids)
     {
         int positions = ids.getPositionCount();
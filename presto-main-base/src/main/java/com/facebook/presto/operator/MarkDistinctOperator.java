@@ -17,24 +17,45 @@ import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
+import static com.facebook.presto.operator.SpillingUtils.spillPages;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterators.singletonIterator;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 public class MarkDistinctOperator
         implements Operator
 {
+    private static final int SPILL_PARTITION_COUNT = 16;
+
     public static class MarkDistinctOperatorFactory
             implements OperatorFactory
     {
@@ -44,6 +65,8 @@ public class MarkDistinctOperator
         private final List<Integer> markDistinctChannels;
         private final List<Type> types;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
         private boolean closed;
 
         public MarkDistinctOperatorFactory(
@@ -53,6 +76,19 @@ public class MarkDistinctOperator
                 Collection<Integer> markDistinctChannels,
                 Optional<Integer> hashChannel,
                 JoinCompiler joinCompiler)
+        {
+            this(operatorId, planNodeId, sourceTypes, markDistinctChannels, hashChannel, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+        }
+
+        public MarkDistinctOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                Collection<Integer> markDistinctChannels,
+                Optional<Integer> hashChannel,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -64,6 +100,8 @@ public class MarkDistinctOperator
                     .addAll(sourceTypes)
                     .add(BOOLEAN)
                     .build();
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -71,7 +109,7 @@ public class MarkDistinctOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MarkDistinctOperator.class.getSimpleName());
-            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperator(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -83,13 +121,22 @@ public class MarkDistinctOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler);
+            return new MarkDistinctOperatorFactory(operatorId, planNodeId, types.subList(0, types.size() - 1), markDistinctChannels, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
-    private final MarkDistinctHash markDistinctHash;
+    private final List<Type> sourceTypes;
+    private final List<Type> distinctTypes;
+    private final List<Integer> markDistinctChannels;
+    private final Optional<Integer> hashChannel;
+    private final JoinCompiler joinCompiler;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+
+    private MarkDistinctHash markDistinctHash;
 
     private Page inputPage;
     private boolean finishing;
@@ -97,19 +144,49 @@ public class MarkDistinctOperator
     // for yield when memory is not available
     private Work<Block> unfinishedWork;
 
+    // once spilled, the distinct values seen so far are kept in distinctValuesSpiller and all remaining
+    // input goes to inputSpiller; both are partitioned on the distinct channels and marked one partition at a time
+    private Optional<PartitioningSpiller> distinctValuesSpiller = Optional.empty();
+    private Optional<PartitioningSpiller> inputSpiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Runnable finishMemoryRevoke = () -> {};
+
+    private int unspillPartition = -1;
+    private Iterator<Page> unspilledDistinctValues = emptyIterator();
+    private Iterator<Page> unspilledInput = emptyIterator();
+    private boolean unspillFinished;
+
     public MarkDistinctOperator(OperatorContext operatorContext, List<Type> types, List<Integer> markDistinctChannels, Optional<Integer> hashChannel, JoinCompiler joinCompiler)
     {
-        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this(operatorContext, types, markDistinctChannels, hashChannel, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+    }
 
-        requireNonNull(hashChannel, "hashChannel is null");
-        requireNonNull(markDistinctChannels, "markDistinctChannels is null");
+    public MarkDistinctOperator(
+            OperatorContext operatorContext,
+            List<Type> types,
+            List<Integer> markDistinctChannels,
+            Optional<Integer> hashChannel,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.markDistinctChannels = ImmutableList.copyOf(requireNonNull(markDistinctChannels, "markDistinctChannels is null"));
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
 
+        // the last type is the appended mark channel
+        this.sourceTypes = ImmutableList.copyOf(types.subList(0, types.size() - 1));
         ImmutableList.Builder<Type> distinctTypes = ImmutableList.builder();
         for (int channel : markDistinctChannels) {
             distinctTypes.add(types.get(channel));
         }
-        this.markDistinctHash = new MarkDistinctHash(operatorContext.getSession(), distinctTypes.build(), Ints.toArray(markDistinctChannels), hashChannel, joinCompiler, this::updateMemoryReservation);
+        this.distinctTypes = distinctTypes.build();
+        this.markDistinctHash = new MarkDistinctHash(operatorContext.getSession(), this.distinctTypes, Ints.toArray(markDistinctChannels), hashChannel, joinCompiler, this::updateMemoryReservation);
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
     }
 
     @Override
@@ -127,13 +204,25 @@ public class MarkDistinctOperator
     @Override
     public boolean isFinished()
     {
+        if (hasSpilled()) {
+            return unspillFinished;
+        }
         return finishing && !hasUnfinishedInput();
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (!spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        return NOT_BLOCKED;
+    }
+
     @Override
     public boolean needsInput()
     {
-        return !finishing && !hasUnfinishedInput();
+        return !finishing && !hasUnfinishedInput() && spillInProgress.isDone();
     }
 
     @Override
@@ -141,6 +230,12 @@ public class MarkDistinctOperator
     {
         requireNonNull(page, "page is null");
         checkState(needsInput());
+        checkSpillSucceeded(spillInProgress);
+
+        if (hasSpilled()) {
+            spillInProgress = spillInput(page);
+            return;
+        }
 
         inputPage = page;
 
@@ -151,6 +246,15 @@ public class MarkDistinctOperator
     @Override
     public Page getOutput()
     {
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSpillSucceeded(spillInProgress);
+
+        if (hasSpilled()) {
+            return finishing ? getUnspilledOutput() : null;
+        }
+
         if (unfinishedWork == null) {
             return null;
         }
@@ -169,6 +273,152 @@ public class MarkDistinctOperator
         return outputPage;
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (!spillEnabled || unspillPartition >= 0 || localRevocableMemoryContext.getBytes() == 0) {
+            finishMemoryRevoke = () -> {};
+            return immediateFuture(null);
+        }
+        // input is only spilled asynchronously after the hash has been revoked, and then nothing is revocable anymore
+        verify(spillInProgress.isDone(), "spill is already in progress");
+        checkSpillSucceeded(spillInProgress);
+
+        if (!hasSpilled()) {
+            distinctValuesSpiller = Optional.of(createSpiller(markDistinctHash.getTypes(), new InterpretedHashGenerator(distinctTypes, distinctValueChannels())));
+            inputSpiller = Optional.of(createSpiller(sourceTypes, new InterpretedHashGenerator(distinctTypes, markDistinctChannels)));
+        }
+
+        // Values added by a partially processed page have not been marked yet, so only the values of
+        // completed pages are spilled and the pending page is marked again after unspilling.
+        ListenableFuture<?> distinctValuesSpilled = spillPages(distinctValuesSpiller.get(), markDistinctHash.getDistinctValues(markDistinctHash.getDistinctCount()));
+        ListenableFuture<?> inputSpilled = immediateFuture(null);
+        if (inputPage != null) {
+            inputSpilled = spillInput(inputPage);
+        }
+        spillInProgress = allAsList(distinctValuesSpilled, inputSpilled);
+        finishMemoryRevoke = () -> {
+            inputPage = null;
+            unfinishedWork = null;
+            markDistinctHash = null;
+            localRevocableMemoryContext.setBytes(0);
+        };
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.run();
+        finishMemoryRevoke = () -> {};
+    }
+
+    @Override
+    public void close()
+    {
+        markDistinctHash = null;
+        unspilledDistinctValues = emptyIterator();
+        unspilledInput = emptyIterator();
+        try (Closer closer = Closer.create()) {
+            distinctValuesSpiller.ifPresent(closer::register);
+            inputSpiller.ifPresent(closer::register);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Page getUnspilledOutput()
+    {
+        while (!unspillFinished) {
+            if (unfinishedWork != null) {
+                if (!unfinishedWork.process()) {
+                    return null;
+                }
+                Block mask = unfinishedWork.getResult();
+                Page unspilledPage = inputPage;
+                unfinishedWork = null;
+                inputPage = null;
+                updateMemoryReservation();
+                if (unspilledPage != null) {
+                    return unspilledPage.appendColumn(mask);
+                }
+                // distinct values of the partition only rebuild the hash, their mask is not needed
+                continue;
+            }
+
+            if (unspilledDistinctValues.hasNext()) {
+                unfinishedWork = markDistinctHash.markDistinctRows(unspilledDistinctValues.next());
+            }
+            else if (unspilledInput.hasNext()) {
+                inputPage = unspilledInput.next();
+                unfinishedWork = markDistinctHash.markDistinctRows(inputPage.extractChannels(distinctValueInputChannels()));
+            }
+            else {
+                startNextUnspillPartition();
+            }
+        }
+        return null;
+    }
+
+    private void startNextUnspillPartition()
+    {
+        unspillPartition++;
+        if (unspillPartition == SPILL_PARTITION_COUNT) {
+            distinctValuesSpiller.get().verifyAllPartitionsRead();
+            inputSpiller.get().verifyAllPartitionsRead();
+            markDistinctHash = null;
+            unspillFinished = true;
+            updateMemoryReservation();
+            return;
+        }
+
+        // rebuild the hash for a single partition; it is laid out like the spilled distinct values
+        int[] channels = new int[distinctTypes.size()];
+        Arrays.setAll(channels, channel -> channel);
+        markDistinctHash = new MarkDistinctHash(
+                operatorContext.getSession(),
+                distinctTypes,
+                channels,
+                hashChannel.map(ignored -> distinctTypes.size()),
+                joinCompiler,
+                this::updateMemoryReservation);
+        unspilledDistinctValues = distinctValuesSpiller.get().getSpilledPages(unspillPartition);
+        unspilledInput = inputSpiller.get().getSpilledPages(unspillPartition);
+        updateMemoryReservation();
+    }
+
+    private PartitioningSpiller createSpiller(List<Type> types, HashGenerator hashGenerator)
+    {
+        return partitioningSpillerFactory.create(
+                types,
+                new LocalPartitionGenerator(hashGenerator, SPILL_PARTITION_COUNT),
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.aggregateSystemMemoryContext());
+    }
+
+    private ListenableFuture<?> spillInput(Page page)
+    {
+        return spillPages(inputSpiller.get(), singletonIterator(page));
+    }
+
+    private List<Integer> distinctValueChannels()
+    {
+        return IntStream.range(0, distinctTypes.size()).boxed().collect(toImmutableList());
+    }
+
+    private int[] distinctValueInputChannels()
+    {
+        ImmutableList.Builder<Integer> channels = ImmutableList.<Integer>builder().addAll(markDistinctChannels);
+        hashChannel.ifPresent(channels::add);
+        return Ints.toArray(channels.build());
+    }
+
+    private boolean hasSpilled()
+    {
+        return inputSpiller.isPresent();
+    }
+
     private boolean hasUnfinishedInput()
     {
         return inputPage != null || unfinishedWork != null;
@@ -184,9 +434,16 @@ public class MarkDistinctOperator
     // The following implementation is a hybrid model, where the push model is going to call the pull model causing reentrancy
     private boolean updateMemoryReservation()
     {
+        long hashSize = markDistinctHash == null ? 0 : markDistinctHash.getEstimatedSize();
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
-        localUserMemoryContext.setBytes(markDistinctHash.getEstimatedSize());
+        if (spillEnabled && !hasSpilled()) {
+            // the hash can be revoked until the input is spilled
+            localRevocableMemoryContext.setBytes(hashSize);
+        }
+        else {
+            localUserMemoryContext.setBytes(hashSize);
+        }
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
@@ -57,6 +57,8 @@ public class MultiChannelGroupByHash
 {
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(MultiChannelGroupByHash.class).instanceSize();
     private static final float FILL_RATIO = 0.75f;
+    // number of positions hashed together before they are inserted
+    private static final int BATCH_SIZE = 256;
     private final List<Type> types;
     private final List<Type> hashTypes;
     private final int[] channels;
@@ -90,6 +92,9 @@ public class MultiChannelGroupByHash
     private long preallocatedMemoryInBytes;
     private long currentPageSizeInBytes;
 
+    // scratch space for the raw hashes of a batch of positions
+    private final long[] batchRawHashes = new long[BATCH_SIZE];
+
     public MultiChannelGroupByHash(
             List<? extends Type> hashTypes,
             int[] hashChannels,
@@ -175,6 +180,7 @@ public class MultiChannelGroupByHash
                 sizeOf(groupIdsByHash) +
                 groupAddressByGroupId.sizeOf() +
                 sizeOf(rawHashByHashPosition) +
+                sizeOf(batchRawHashes) +
                 preallocatedMemoryInBytes;
     }
 
@@ -321,6 +327,20 @@ public class MultiChannelGroupByHash
         return groupId;
     }
 
+    /**
+     * Hashes up to {@link #BATCH_SIZE} positions from {@code start} into {@link #batchRawHashes}, and returns the number
+     * of hashed positions. Hashing a whole batch in a tight loop, separately from the branchy probing, lets the JIT keep
+     * the hash computation pipelined.
+     */
+    private int hashBatch(Page page, int start, int remainingPositions)
+    {
+        int length = Math.min(remainingPositions, BATCH_SIZE);
+        for (int i = 0; i < length; i++) {
+            batchRawHashes[i] = hashGenerator.hashPosition(start + i, page);
+        }
+        return length;
+    }
+
     private int addNewGroup(int hashPosition, int position, Page page, long rawHash)
     {
         // add the row to the open page
@@ -611,9 +631,12 @@ public class MultiChannelGroupByHash
             // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
             // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
             while (lastPosition < positionCount && !needRehash()) {
-                // get the group for the current row
-                putIfAbsent(lastPosition, page);
-                lastPosition++;
+                int batchSize = hashBatch(page, lastPosition, positionCount - lastPosition);
+                for (int i = 0; i < batchSize && !needRehash(); i++) {
+                    // get the group for the current row
+                    putIfAbsent(lastPosition, page, batchRawHashes[i]);
+                    lastPosition++;
+                }
             }
             return lastPosition == positionCount;
         }
@@ -745,9 +768,12 @@ public class MultiChannelGroupByHash
             // putIfAbsent will rehash automatically if rehash is needed, unless there isn't enough memory to do so.
             // Therefore needRehash will not generally return true even if we have just crossed the capacity boundary.
             while (lastPosition < positionCount && !needRehash()) {
-                // output the group id for this row
-                BIGINT.writeLong(blockBuilder, putIfAbsent(lastPosition, page));
-                lastPosition++;
+                int batchSize = hashBatch(page, lastPosition, positionCount - lastPosition);
+                for (int i = 0; i < batchSize && !needRehash(); i++) {
+                    // output the group id for this row
+                    BIGINT.writeLong(blockBuilder, putIfAbsent(lastPosition, page, batchRawHashes[i]));
+                    lastPosition++;
+                }
             }
             return lastPosition == positionCount;
         }
@@ -23,6 +23,7 @@ import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.memory.context.MemoryTrackingContext;
 import com.facebook.presto.operator.OperationTimer.OperationTiming;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.page.PagesSerde;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Suppliers;
@@ -40,6 +41,13 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
+import static com.facebook.presto.common.RuntimeMetricName.EXCHANGE_COMPRESSION_CPU_NANOS;
+import static com.facebook.presto.common.RuntimeMetricName.EXCHANGE_COMPRESSION_INPUT_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.EXCHANGE_COMPRESSION_OUTPUT_BYTES;
+import static com.facebook.presto.common.RuntimeMetricName.EXCHANGE_COMPRESSION_SKIPPED_PAGES;
+import static com.facebook.presto.common.RuntimeUnit.BYTE;
+import static com.facebook.presto.common.RuntimeUnit.NANO;
+import static com.facebook.presto.common.RuntimeUnit.NONE;
 import static com.facebook.presto.operator.BlockedReason.WAITING_FOR_MEMORY;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -257,6 +265,18 @@ public class OperatorContext
         physicalWrittenDataSize.getAndAdd(sizeInBytes);
     }
 
+    /**
+     * Records the compression stats of the serde used to serialize the output of this operator. Must be called once,
+     * when the operator is closed.
+     */
+    public void recordSerdeCompression(PagesSerde serde)
+    {
+        runtimeStats.addMetricValueIgnoreZero(EXCHANGE_COMPRESSION_INPUT_BYTES, BYTE, serde.getCompressionInputBytes());
+        runtimeStats.addMetricValueIgnoreZero(EXCHANGE_COMPRESSION_OUTPUT_BYTES, BYTE, serde.getCompressionOutputBytes());
+        runtimeStats.addMetricValueIgnoreZero(EXCHANGE_COMPRESSION_CPU_NANOS, NANO, serde.getCompressionCpuNanos());
+        runtimeStats.addMetricValueIgnoreZero(EXCHANGE_COMPRESSION_SKIPPED_PAGES, NONE, serde.getCompressionSkippedPages());
+    }
+
     public void recordAdditionalCpu(long cpuTimeNanos)
     {
         this.additionalCpuNanos.getAndAdd(cpuTimeNanos);
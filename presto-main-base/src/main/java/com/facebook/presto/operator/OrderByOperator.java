@@ -29,6 +29,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
 import static com.facebook.presto.util.MergeSortedPages.mergeSortedPages;
@@ -43,6 +44,9 @@ import static java.util.Objects.requireNonNull;
 public class OrderByOperator
         implements Operator
 {
+    // below this size, handing the sort off to other threads costs more than it saves
+    private static final int PARALLEL_SORT_MIN_POSITIONS = 64 * 1024;
+
     public static class OrderByOperatorFactory
             implements OperatorFactory
     {
@@ -57,6 +61,7 @@ public class OrderByOperator
         private final boolean spillEnabled;
         private final Optional<SpillerFactory> spillerFactory;
         private final OrderingCompiler orderingCompiler;
+        private final Optional<ForkJoinPool> parallelSortPool;
 
         private boolean closed;
 
@@ -71,7 +76,8 @@ public class OrderByOperator
                 PagesIndex.Factory pagesIndexFactory,
                 boolean spillEnabled,
                 Optional<SpillerFactory> spillerFactory,
-                OrderingCompiler orderingCompiler)
+                OrderingCompiler orderingCompiler,
+                Optional<ForkJoinPool> parallelSortPool)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -85,6 +91,7 @@ public class OrderByOperator
             this.spillEnabled = spillEnabled;
             this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
             this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
+            this.parallelSortPool = requireNonNull(parallelSortPool, "parallelSortPool is null");
             checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
         }
 
@@ -104,7 +111,8 @@ public class OrderByOperator
                     pagesIndexFactory,
                     spillEnabled,
                     spillerFactory,
-                    orderingCompiler);
+                    orderingCompiler,
+                    parallelSortPool);
         }
 
         @Override
@@ -127,7 +135,8 @@ public class OrderByOperator
                     pagesIndexFactory,
                     spillEnabled,
                     spillerFactory,
-                    orderingCompiler);
+                    orderingCompiler,
+                    parallelSortPool);
         }
     }
 
@@ -152,6 +161,7 @@ public class OrderByOperator
     private final boolean spillEnabled;
     private final Optional<SpillerFactory> spillerFactory;
     private final OrderingCompiler orderingCompiler;
+    private final Optional<ForkJoinPool> parallelSortPool;
 
     private Optional<Spiller> spiller = Optional.empty();
     private ListenableFuture<?> spillInProgress = immediateFuture(null);
@@ -171,7 +181,8 @@ public class OrderByOperator
             PagesIndex.Factory pagesIndexFactory,
             boolean spillEnabled,
             Optional<SpillerFactory> spillerFactory,
-            OrderingCompiler orderingCompiler)
+            OrderingCompiler orderingCompiler,
+            Optional<ForkJoinPool> parallelSortPool)
     {
         requireNonNull(pagesIndexFactory, "pagesIndexFactory is null");
 
@@ -187,6 +198,7 @@ public class OrderByOperator
         this.spillEnabled = spillEnabled;
         this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
         this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
+        this.parallelSortPool = requireNonNull(parallelSortPool, "parallelSortPool is null");
         checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
     }
 
@@ -222,7 +234,7 @@ public class OrderByOperator
                 }
             }
 
-            pageIndex.sort(sortChannels, sortOrder);
+            sortPageIndex();
             Iterator<Page> sortedPagesIndex = pageIndex.getSortedPages();
 
             List<WorkProcessor<Page>> spilledPages = getSpilledPages();
@@ -310,7 +322,7 @@ public class OrderByOperator
                     operatorContext.aggregateSystemMemoryContext()));
         }
 
-        pageIndex.sort(sortChannels, sortOrder);
+        sortPageIndex();
         spillInProgress = spiller.get().spill(pageIndex.getSortedPages());
         finishMemoryRevoke = () -> {
             pageIndex.clear();
@@ -320,6 +332,16 @@ public class OrderByOperator
         return spillInProgress;
     }
 
+    private void sortPageIndex()
+    {
+        if (parallelSortPool.isPresent()) {
+            pageIndex.parallelSort(sortChannels, sortOrder, parallelSortPool.get(), PARALLEL_SORT_MIN_POSITIONS);
+        }
+        else {
+            pageIndex.sort(sortChannels, sortOrder);
+        }
+    }
+
     @Override
     public void finishMemoryRevoke()
     {
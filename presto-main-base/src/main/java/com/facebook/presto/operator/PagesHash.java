@@ -21,11 +21,21 @@ import it.unimi.dsi.fastutil.HashCommon;
 import org.openjdk.jol.info.ClassLayout;
 
 import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
 import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
 import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
 import static io.airlift.slice.SizeOf.sizeOf;
+import static io.airlift.slice.SizeOf.sizeOfBooleanArray;
+import static io.airlift.slice.SizeOf.sizeOfLongArray;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
@@ -35,6 +45,8 @@ public final class PagesHash
 {
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(PagesHash.class).instanceSize();
     private static final DataSize CACHE_SIZE = new DataSize(128, KILOBYTE);
+    static final int PARALLEL_BUILD_MIN_POSITIONS = 64 * 1024;
+    private static final int PARALLEL_BUILD_TASK_POSITIONS = 16 * 1024;
     private final AdaptiveLongBigArray addresses;
     private final int positionCount;
     private final PagesHashStrategy pagesHashStrategy;
@@ -57,11 +69,28 @@ public final class PagesHash
             int positionCount,
             PagesHashStrategy pagesHashStrategy,
             PositionLinks.FactoryBuilder positionLinks)
+    {
+        this(addresses, positionCount, pagesHashStrategy, positionLinks, Optional.empty());
+    }
+
+    /**
+     * When {@code parallelBuildPool} is present and there are at least {@link #PARALLEL_BUILD_MIN_POSITIONS} positions,
+     * the hashes and null flags of all positions are read from the blocks by the calling thread together with the threads
+     * of the pool, and only the insertion into the hash table is done on the calling thread. The scratch arrays of the
+     * build take {@link #getParallelBuildScratchSizeInBytes} bytes, which the caller is expected to account.
+     */
+    public PagesHash(
+            AdaptiveLongBigArray addresses,
+            int positionCount,
+            PagesHashStrategy pagesHashStrategy,
+            PositionLinks.FactoryBuilder positionLinks,
+            Optional<ForkJoinPool> parallelBuildPool)
     {
         this.addresses = requireNonNull(addresses, "addresses is null");
         this.positionCount = positionCount;
         this.pagesHashStrategy = requireNonNull(pagesHashStrategy, "pagesHashStrategy is null");
         this.channelCount = pagesHashStrategy.getChannelCount();
+        requireNonNull(parallelBuildPool, "parallelBuildPool is null");
 
         // reserve memory for the arrays
         int hashSize = HashCommon.arraySize(positionCount, 0.75f);
@@ -72,55 +101,54 @@ public final class PagesHash
 
         positionToHashes = new byte[positionCount];
 
-        // We will process addresses in batches, to save memory on array of hashes.
-        int positionsInStep = Math.min(positionCount + 1, (int) CACHE_SIZE.toBytes() / Integer.SIZE);
-        long[] positionToFullHashes = new long[positionsInStep];
         long hashCollisionsLocal = 0;
         long positionIsNullCountLocal = 0;
 
-        for (int step = 0; step * positionsInStep < positionCount; step++) {
-            int stepBeginPosition = step * positionsInStep;
-            int stepEndPosition = Math.min((step + 1) * positionsInStep, positionCount);
-            int stepSize = stepEndPosition - stepBeginPosition;
-
-            // First extract all hashes from blocks to native array.
-            // Somehow having this as a separate loop is much faster compared
-            // to extracting hashes on the fly in the loop below.
-            for (int position = 0; position < stepSize; position++) {
-                int realPosition = position + stepBeginPosition;
-                long hash = readHashPosition(realPosition);
-                positionToFullHashes[position] = hash;
-                positionToHashes[realPosition] = (byte) hash;
-            }
+        if (parallelBuildPool.isPresent() && positionCount >= PARALLEL_BUILD_MIN_POSITIONS) {
+            // Reading the hashes goes through the blocks of every join channel and dominates the build.
+            // The insertion below is a tight loop over the native arrays, so it is kept sequential, which
+            // keeps the position links identical to the ones of a sequential build.
+            long[] positionToFullHashes = new long[positionCount];
+            boolean[] positionIsNull = new boolean[positionCount];
+            readHashesInParallel(parallelBuildPool.get(), positionToFullHashes, positionIsNull);
 
-            // index pages
-            for (int position = 0; position < stepSize; position++) {
-                int realPosition = position + stepBeginPosition;
-                if (isPositionNull(realPosition)) {
+            for (int position = 0; position < positionCount; position++) {
+                if (positionIsNull[position]) {
                     ++positionIsNullCountLocal;
                     continue;
                 }
+                hashCollisionsLocal += insert(position, positionToFullHashes[position], positionLinks);
+            }
+        }
+        else {
+            // We will process addresses in batches, to save memory on array of hashes.
+            int positionsInStep = Math.min(positionCount + 1, (int) CACHE_SIZE.toBytes() / Integer.SIZE);
+            long[] positionToFullHashes = new long[positionsInStep];
+
+            for (int step = 0; step * positionsInStep < positionCount; step++) {
+                int stepBeginPosition = step * positionsInStep;
+                int stepEndPosition = Math.min((step + 1) * positionsInStep, positionCount);
+                int stepSize = stepEndPosition - stepBeginPosition;
+
+                // First extract all hashes from blocks to native array.
+                // Somehow having this as a separate loop is much faster compared
+                // to extracting hashes on the fly in the loop below.
+                for (int position = 0; position < stepSize; position++) {
+                    int realPosition = position + stepBeginPosition;
+                    long hash = readHashPosition(realPosition);
+                    positionToFullHashes[position] = hash;
+                    positionToHashes[realPosition] = (byte) hash;
+                }
 
-                long hash = positionToFullHashes[position];
-                int pos = getHashPosition(hash, mask);
-
-                // look for an empty slot or a slot containing this key
-                while (key[pos] != -1) {
-                    int currentKey = key[pos];
-                    if (((byte) hash) == positionToHashes[currentKey] && positionEqualsPositionIgnoreNulls(currentKey, realPosition)) {
-                        // found a slot for this key
-                        // link the new key position to the current key position
-                        realPosition = positionLinks.link(realPosition, currentKey);
-
-                        // key[pos] updated outside of this loop
-                        break;
+                // index pages
+                for (int position = 0; position < stepSize; position++) {
+                    int realPosition = position + stepBeginPosition;
+                    if (isPositionNull(realPosition)) {
+                        ++positionIsNullCountLocal;
+                        continue;
                     }
-                    // increment position and mask to handler wrap around
-                    pos = (pos + 1) & mask;
-                    hashCollisionsLocal++;
+                    hashCollisionsLocal += insert(realPosition, positionToFullHashes[position], positionLinks);
                 }
-
-                key[pos] = realPosition;
             }
         }
 
@@ -131,6 +159,17 @@ public final class PagesHash
         positionIsNullCount = positionIsNullCountLocal;
     }
 
+    /**
+     * Returns the size of the scratch arrays allocated for the duration of a parallel build of {@code positionCount} positions.
+     */
+    public static long getParallelBuildScratchSizeInBytes(int positionCount)
+    {
+        if (positionCount < PARALLEL_BUILD_MIN_POSITIONS) {
+            return 0;
+        }
+        return sizeOfLongArray(positionCount) + sizeOfBooleanArray(positionCount);
+    }
+
     public final int getChannelCount()
     {
         return channelCount;
@@ -189,6 +228,90 @@ public final class PagesHash
         pagesHashStrategy.appendTo(blockIndex, blockPosition, pageBuilder, outputChannelOffset);
     }
 
+    /**
+     * Inserts the position into the hash table and returns the number of hash collisions.
+     */
+    private int insert(int realPosition, long hash, PositionLinks.FactoryBuilder positionLinks)
+    {
+        int collisions = 0;
+        int pos = getHashPosition(hash, mask);
+
+        // look for an empty slot or a slot containing this key
+        while (key[pos] != -1) {
+            int currentKey = key[pos];
+            if (((byte) hash) == positionToHashes[currentKey] && positionEqualsPositionIgnoreNulls(currentKey, realPosition)) {
+                // found a slot for this key
+                // link the new key position to the current key position
+                realPosition = positionLinks.link(realPosition, currentKey);
+
+                // key[pos] updated outside of this loop
+                break;
+            }
+            // increment position and mask to handler wrap around
+            pos = (pos + 1) & mask;
+            collisions++;
+        }
+
+        key[pos] = realPosition;
+        return collisions;
+    }
+
+    // The calling thread reads ranges together with the threads of the pool, and only waits for the ranges
+    // that are being read by other threads, so a busy pool does not block the build. The reader is a lambda
+    // rather than a nested task class, since JoinCompiler isolates this class without its nested classes.
+    private void readHashesInParallel(ForkJoinPool pool, long[] positionToFullHashes, boolean[] positionIsNull)
+    {
+        int rangeCount = (positionCount + PARALLEL_BUILD_TASK_POSITIONS - 1) / PARALLEL_BUILD_TASK_POSITIONS;
+        AtomicInteger nextRange = new AtomicInteger();
+        CountDownLatch remainingRanges = new CountDownLatch(rangeCount);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Runnable reader = () -> {
+            for (int range = nextRange.getAndIncrement(); range < rangeCount; range = nextRange.getAndIncrement()) {
+                try {
+                    if (failure.get() == null) {
+                        int from = range * PARALLEL_BUILD_TASK_POSITIONS;
+                        readHashes(from, Math.min(from + PARALLEL_BUILD_TASK_POSITIONS, positionCount), positionToFullHashes, positionIsNull);
+                    }
+                }
+                catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+                finally {
+                    remainingRanges.countDown();
+                }
+            }
+        };
+
+        int helperCount = Math.min(rangeCount - 1, pool.getParallelism());
+        try {
+            for (int i = 0; i < helperCount; i++) {
+                pool.execute(reader);
+            }
+        }
+        catch (RejectedExecutionException ignored) {
+            // the pool is shutting down, the remaining ranges are read by the calling thread
+        }
+        reader.run();
+        awaitUninterruptibly(remainingRanges);
+
+        Throwable throwable = failure.get();
+        if (throwable != null) {
+            throwIfUnchecked(throwable);
+            throw new RuntimeException(throwable);
+        }
+    }
+
+    // Concurrent calls write disjoint ranges of the arrays.
+    private void readHashes(int from, int to, long[] positionToFullHashes, boolean[] positionIsNull)
+    {
+        for (int position = from; position < to; position++) {
+            long hash = readHashPosition(position);
+            positionToFullHashes[position] = hash;
+            positionToHashes[position] = (byte) hash;
+            positionIsNull[position] = isPositionNull(position);
+        }
+    }
+
     private boolean isPositionNull(int position)
     {
         long pageAddress = addresses.get(position);
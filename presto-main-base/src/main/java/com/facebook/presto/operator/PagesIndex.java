@@ -49,6 +49,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.IntUnaryOperator;
 import java.util.function.Supplier;
 import java.util.stream.IntStream;
@@ -376,6 +377,40 @@ public class PagesIndex
         createPagesIndexComparator(sortChannels, sortOrders).sort(this, startPosition, endPosition);
     }
 
+    /**
+     * Sorts the index using the threads of the given pool. Indexes smaller than {@code minParallelSortSize}
+     * positions are sorted on the calling thread.
+     */
+    public void parallelSort(List<Integer> sortChannels, List<SortOrder> sortOrders, ForkJoinPool pool, int minParallelSortSize)
+    {
+        if (positionCount < minParallelSortSize) {
+            sort(sortChannels, sortOrders);
+            return;
+        }
+
+        // lazy blocks must not be loaded concurrently by the sorting threads
+        loadBlocks(sortChannels);
+
+        createPagesIndexComparator(sortChannels, sortOrders).parallelSort(this, 0, positionCount, pool, minParallelSortSize);
+    }
+
+    private void loadBlocks(Iterable<Integer> channelsToLoad)
+    {
+        for (int channel : channelsToLoad) {
+            ObjectArrayList<Block> blocks = channels[channel];
+            for (int i = 0; i < blocks.size(); i++) {
+                Block block = blocks.get(i);
+                Block loadedBlock = block.getLoadedBlock();
+                if (loadedBlock != block) {
+                    blocks.set(i, loadedBlock);
+                    pagesMemorySize -= block.getRetainedSizeInBytes();
+                    pagesMemorySize += loadedBlock.getRetainedSizeInBytes();
+                }
+            }
+        }
+        estimatedSize = calculateEstimatedSize();
+    }
+
     public boolean positionEqualsPosition(PagesHashStrategy partitionHashStrategy, int leftPosition, int rightPosition)
     {
         long leftAddress = valueAddresses.get(leftPosition);
@@ -479,6 +514,28 @@ public class PagesIndex
             List<JoinFilterFunctionFactory> searchFunctionFactories,
             Optional<List<Integer>> outputChannels)
     {
+        return createLookupSourceSupplier(session, joinChannels, hashChannel, filterFunctionFactory, sortChannel, searchFunctionFactories, outputChannels, Optional.empty());
+    }
+
+    /**
+     * When {@code parallelHashBuildPool} is present, the hashes of a large index are read by the threads of the pool, see {@link PagesHash}.
+     */
+    public LookupSourceSupplier createLookupSourceSupplier(
+            Session session,
+            List<Integer> joinChannels,
+            OptionalInt hashChannel,
+            Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+            Optional<Integer> sortChannel,
+            List<JoinFilterFunctionFactory> searchFunctionFactories,
+            Optional<List<Integer>> outputChannels,
+            Optional<ForkJoinPool> parallelHashBuildPool)
+    {
+        if (parallelHashBuildPool.isPresent()) {
+            // lazy blocks must not be loaded concurrently by the threads reading the hashes, see PagesHash
+            loadBlocks(joinChannels);
+            hashChannel.ifPresent(channel -> loadBlocks(ImmutableList.of(channel)));
+        }
+
         List<List<Block>> channels = ImmutableList.copyOf(this.channels);
         if (!joinChannels.isEmpty()) {
             // todo compiled implementation of lookup join does not support when we are joining with empty join channels.
@@ -495,7 +552,8 @@ public class PagesIndex
                         hashChannel,
                         filterFunctionFactory,
                         sortChannel,
-                        searchFunctionFactories);
+                        searchFunctionFactories,
+                        parallelHashBuildPool);
             }
             catch (Exception e) {
                 log.error(e, "Lookup source compile failed for types=%s error=%s", types, e);
@@ -520,7 +578,8 @@ public class PagesIndex
                 channels,
                 filterFunctionFactory,
                 sortChannel,
-                searchFunctionFactories);
+                searchFunctionFactories,
+                parallelHashBuildPool);
     }
 
     private List<Integer> rangeList(int endExclusive)
@@ -13,6 +13,10 @@
  */
 package com.facebook.presto.operator;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 public class PagesIndexOrdering
@@ -37,6 +41,17 @@ public class PagesIndexOrdering
         quickSort(pagesIndex, startPosition, endPosition);
     }
 
+    /**
+     * Sorts the specified range like {@link #sort}, but once a range has been partitioned, the two
+     * sides are sorted concurrently in the given pool. Ranges smaller than {@code minParallelSortSize}
+     * are sorted sequentially. The pages index must not be modified while the sort is running.
+     */
+    public void parallelSort(PagesIndex pagesIndex, int startPosition, int endPosition, ForkJoinPool pool, int minParallelSortSize)
+    {
+        checkArgument(minParallelSortSize > SMALL, "minParallelSortSize must be greater than %s", SMALL);
+        pool.invoke(new ParallelQuickSort(pagesIndex, startPosition, endPosition, minParallelSortSize));
+    }
+
     /**
      * Sorts the specified range of elements using the specified swapper and according to the order induced by the specified
      * comparator using quickSort.
@@ -63,6 +78,28 @@ public class PagesIndexOrdering
             return;
         }
 
+        long partitionSizes = partition(pagesIndex, from, to);
+
+        // Recursively sort non-partition-elements
+        int s;
+        if ((s = lowerPartitionSize(partitionSizes)) > 1) {
+            quickSort(pagesIndex, from, from + s);
+        }
+        if ((s = upperPartitionSize(partitionSizes)) > 1) {
+            quickSort(pagesIndex, to - s, to);
+        }
+    }
+
+    /**
+     * Partitions the range around a pivot, leaving the elements lower than the pivot at the start and the
+     * elements greater than the pivot at the end of the range. Returns the sizes of both partitions, which
+     * can be extracted with {@link #lowerPartitionSize} and {@link #upperPartitionSize}.
+     */
+    @SuppressWarnings("InnerAssignment")
+    private long partition(PagesIndex pagesIndex, int from, int to)
+    {
+        int len = to - from;
+
         // Choose a partition element, v
         int m = from + len / 2; // Small arrays, middle element
         if (len > SMALL) {
@@ -129,13 +166,17 @@ public class PagesIndexOrdering
         s = Math.min(d - c, n - d - 1);
         vectorSwap(pagesIndex, b, n - s, s);
 
-        // Recursively sort non-partition-elements
-        if ((s = b - a) > 1) {
-            quickSort(pagesIndex, from, from + s);
-        }
-        if ((s = d - c) > 1) {
-            quickSort(pagesIndex, n - s, n);
-        }
+        return ((long) (b - a) << 32) | (d - c);
+    }
+
+    private static int lowerPartitionSize(long partitionSizes)
+    {
+        return (int) (partitionSizes >>> 32);
+    }
+
+    private static int upperPartitionSize(long partitionSizes)
+    {
+        return (int) partitionSizes;
     }
 
     /**
@@ -160,4 +201,38 @@ public class PagesIndexOrdering
             pagesIndex.swap(from, l);
         }
     }
+
+    private class ParallelQuickSort
+            extends RecursiveAction
+    {
+        private final PagesIndex pagesIndex;
+        private final int from;
+        private final int to;
+        private final int minParallelSortSize;
+
+        private ParallelQuickSort(PagesIndex pagesIndex, int from, int to, int minParallelSortSize)
+        {
+            this.pagesIndex = pagesIndex;
+            this.from = from;
+            this.to = to;
+            this.minParallelSortSize = minParallelSortSize;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from < minParallelSortSize) {
+                quickSort(pagesIndex, from, to);
+                return;
+            }
+
+            long partitionSizes = partition(pagesIndex, from, to);
+            // the partitions are disjoint ranges of the index, so they can be sorted independently
+            int lowerSize = lowerPartitionSize(partitionSizes);
+            int upperSize = upperPartitionSize(partitionSizes);
+            invokeAll(
+                    new ParallelQuickSort(pagesIndex, from, from + lowerSize, minParallelSortSize),
+                    new ParallelQuickSort(pagesIndex, to - upperSize, to, minParallelSortSize));
+        }
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.sql.analyzer.JavaFeaturesConfig;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Worker-wide fork-join pool for operators that split CPU heavy work, like sorting a large
+ * pages index, across threads. The pool never grows beyond the configured number of threads,
+ * so the parallel work of all queries running on the worker is bounded.
+ */
+public class ParallelOperatorPool
+{
+    private final ForkJoinPool pool;
+
+    @Inject
+    public ParallelOperatorPool(JavaFeaturesConfig config)
+    {
+        this(requireNonNull(config, "config is null").getParallelOperatorThreads());
+    }
+
+    public ParallelOperatorPool(int threads)
+    {
+        checkArgument(threads > 0, "threads must be at least 1");
+        ForkJoinWorkerThreadFactory threadFactory = forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("parallel-operator-" + thread.getPoolIndex());
+            return thread;
+        };
+        // a task that waits for its subtasks runs without a compensating thread once the pool is at its maximum size
+        this.pool = new ForkJoinPool(threads, threadFactory, null, false, 0, threads, 1, forkJoinPool -> true, 60, SECONDS);
+    }
+
+    public ForkJoinPool getForkJoinPool()
+    {
+        return pool;
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        pool.shutdownNow();
+    }
+}
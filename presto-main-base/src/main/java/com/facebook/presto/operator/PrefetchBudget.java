@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+/**
+ * Space in the buffer of an {@link ExchangeClient} that a {@link RpcShuffleClient} may use
+ * for responses it fetches before they are requested.
+ */
+public interface PrefetchBudget
+{
+    PrefetchBudget UNLIMITED = new PrefetchBudget()
+    {
+        @Override
+        public boolean tryReserve(long bytes)
+        {
+            return true;
+        }
+
+        @Override
+        public void free(long bytes) {}
+    };
+
+    /**
+     * Reserves {@code bytes} for a prefetched response. Returns false if the buffer has no space for it.
+     */
+    boolean tryReserve(long bytes);
+
+    /**
+     * Frees a reservation once the prefetched response is requested or dropped.
+     */
+    void free(long bytes);
+}
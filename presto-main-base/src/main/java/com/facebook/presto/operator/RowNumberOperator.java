@@ -20,27 +20,48 @@ import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.operator.SpillingUtils.checkSpillSucceeded;
+import static com.facebook.presto.operator.SpillingUtils.spillPages;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isFlatGroupByHashEnabled;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterators.singletonIterator;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 public class RowNumberOperator
         implements Operator
 {
+    private static final int SPILL_PARTITION_COUNT = 16;
+
     public static class RowNumberOperatorFactory
             implements OperatorFactory
     {
@@ -55,6 +76,8 @@ public class RowNumberOperator
         private final int expectedPositions;
         private boolean closed;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
 
         public RowNumberOperatorFactory(
                 int operatorId,
@@ -67,6 +90,23 @@ public class RowNumberOperator
                 Optional<Integer> hashChannel,
                 int expectedPositions,
                 JoinCompiler joinCompiler)
+        {
+            this(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, maxRowsPerPartition, hashChannel, expectedPositions, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+        }
+
+        public RowNumberOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<Integer> partitionChannels,
+                List<? extends Type> partitionTypes,
+                Optional<Integer> maxRowsPerPartition,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -80,6 +120,8 @@ public class RowNumberOperator
             checkArgument(expectedPositions > 0, "expectedPositions < 0");
             this.expectedPositions = expectedPositions;
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -97,7 +139,9 @@ public class RowNumberOperator
                     maxRowsPerPartition,
                     hashChannel,
                     expectedPositions,
-                    joinCompiler);
+                    joinCompiler,
+                    spillEnabled,
+                    partitioningSpillerFactory);
         }
 
         @Override
@@ -109,22 +153,41 @@ public class RowNumberOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new RowNumberOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, maxRowsPerPartition, hashChannel, expectedPositions, joinCompiler);
+            return new RowNumberOperatorFactory(
+                    operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    partitionChannels,
+                    partitionTypes,
+                    maxRowsPerPartition,
+                    hashChannel,
+                    expectedPositions,
+                    joinCompiler,
+                    spillEnabled,
+                    partitioningSpillerFactory);
         }
     }
 
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
     private boolean finishing;
 
     private final int[] outputChannels;
     private final List<Type> types;
+    private final List<Type> sourceTypes;
+    private final List<Integer> partitionChannels;
+    private final List<Type> partitionTypes;
+    private final Optional<Integer> hashChannel;
+    private final int expectedPositions;
+    private final JoinCompiler joinCompiler;
 
     private GroupByIdBlock partitionIds;
-    private final Optional<GroupByHash> groupByHash;
+    private Optional<GroupByHash> groupByHash;
 
     private Page inputPage;
-    private final LongBigArray partitionRowCount;
+    private LongBigArray partitionRowCount;
 
     private final Optional<Integer> maxRowsPerPartition;
     // Only present if maxRowsPerPartition is present
@@ -133,6 +196,21 @@ public class RowNumberOperator
     // for yield when memory is not available
     private Work<GroupByIdBlock> unfinishedWork;
 
+    // once spilled, the row count of every partition seen so far is kept in partitionRowCountSpiller and all remaining
+    // input goes to inputSpiller; both are partitioned on the partition channels and numbered one spill partition at a time
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private Optional<PartitioningSpiller> partitionRowCountSpiller = Optional.empty();
+    private Optional<PartitioningSpiller> inputSpiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Runnable finishMemoryRevoke = () -> {};
+
+    private int unspillPartition = -1;
+    private Iterator<Page> unspilledPartitionRowCounts = emptyIterator();
+    private Iterator<Page> unspilledInput = emptyIterator();
+    private Page partitionRowCountPage;
+    private boolean unspillFinished;
+
     public RowNumberOperator(
             OperatorContext operatorContext,
             List<Type> sourceTypes,
@@ -143,11 +221,36 @@ public class RowNumberOperator
             Optional<Integer> hashChannel,
             int expectedPositions,
             JoinCompiler joinCompiler)
+    {
+        this(operatorContext, sourceTypes, outputChannels, partitionChannels, partitionTypes, maxRowsPerPartition, hashChannel, expectedPositions, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+    }
+
+    public RowNumberOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<Integer> partitionChannels,
+            List<Type> partitionTypes,
+            Optional<Integer> maxRowsPerPartition,
+            Optional<Integer> hashChannel,
+            int expectedPositions,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
         this.outputChannels = Ints.toArray(outputChannels);
         this.types = toTypes(sourceTypes, outputChannels);
+        this.sourceTypes = ImmutableList.copyOf(requireNonNull(sourceTypes, "sourceTypes is null"));
+        this.partitionChannels = ImmutableList.copyOf(requireNonNull(partitionChannels, "partitionChannels is null"));
+        this.partitionTypes = ImmutableList.copyOf(requireNonNull(partitionTypes, "partitionTypes is null"));
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.expectedPositions = expectedPositions;
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
 
         this.maxRowsPerPartition = maxRowsPerPartition;
         if (maxRowsPerPartition.isPresent()) {
@@ -162,8 +265,7 @@ public class RowNumberOperator
             this.groupByHash = Optional.empty();
         }
         else {
-            int[] channels = Ints.toArray(partitionChannels);
-            this.groupByHash = Optional.of(createGroupByHash(partitionTypes, channels, hashChannel, expectedPositions, isDictionaryAggregationEnabled(operatorContext.getSession()), joinCompiler, this::updateMemoryReservation));
+            this.groupByHash = Optional.of(createPartitionHash(Ints.toArray(partitionChannels), hashChannel));
         }
     }
 
@@ -182,6 +284,9 @@ public class RowNumberOperator
     @Override
     public boolean isFinished()
     {
+        if (hasSpilled()) {
+            return unspillFinished;
+        }
         if (isSinglePartition() && maxRowsPerPartition.isPresent()) {
             if (finishing && !hasUnfinishedInput()) {
                 return true;
@@ -199,7 +304,16 @@ public class RowNumberOperator
             // Check if single partition is done
             return partitionRowCount.get(0) < maxRowsPerPartition.get() && !finishing && !hasUnfinishedInput();
         }
-        return !finishing && !hasUnfinishedInput();
+        return !finishing && !hasUnfinishedInput() && spillInProgress.isDone();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (!spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        return NOT_BLOCKED;
     }
 
     @Override
@@ -208,6 +322,13 @@ public class RowNumberOperator
         checkState(!finishing, "Operator is already finishing");
         requireNonNull(page, "page is null");
         checkState(!hasUnfinishedInput());
+        checkSpillSucceeded(spillInProgress);
+
+        if (hasSpilled()) {
+            spillInProgress = spillPages(inputSpiller.get(), singletonIterator(page));
+            return;
+        }
+
         inputPage = page;
         if (groupByHash.isPresent()) {
             unfinishedWork = groupByHash.get().getGroupIds(inputPage);
@@ -219,6 +340,15 @@ public class RowNumberOperator
     @Override
     public Page getOutput()
     {
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSpillSucceeded(spillInProgress);
+
+        if (hasSpilled()) {
+            return finishing ? getUnspilledOutput() : null;
+        }
+
         if (unfinishedWork != null && !processUnfinishedWork()) {
             return null;
         }
@@ -227,6 +357,72 @@ public class RowNumberOperator
             return null;
         }
 
+        return numberRows();
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (!spillEnabled || isSinglePartition() || unspillPartition >= 0 || localRevocableMemoryContext.getBytes() == 0) {
+            finishMemoryRevoke = () -> {};
+            return immediateFuture(null);
+        }
+        // input is only spilled asynchronously after the hash has been revoked, and then nothing is revocable anymore
+        verify(spillInProgress.isDone(), "spill is already in progress");
+        checkSpillSucceeded(spillInProgress);
+
+        if (!hasSpilled()) {
+            List<Integer> partitionValueChannels = IntStream.range(0, partitionTypes.size()).boxed().collect(toImmutableList());
+            List<Type> partitionRowCountTypes = ImmutableList.<Type>builder()
+                    .addAll(groupByHash.get().getTypes())
+                    .add(BIGINT)
+                    .build();
+            partitionRowCountSpiller = Optional.of(createSpiller(partitionRowCountTypes, new InterpretedHashGenerator(partitionTypes, partitionValueChannels)));
+            inputSpiller = Optional.of(createSpiller(sourceTypes, new InterpretedHashGenerator(partitionTypes, partitionChannels)));
+        }
+
+        // The rows of a pending page have not been numbered yet, so the page is spilled and numbered after unspilling.
+        ListenableFuture<?> partitionRowCountsSpilled = spillPages(partitionRowCountSpiller.get(), getPartitionRowCounts());
+        ListenableFuture<?> inputSpilled = immediateFuture(null);
+        if (inputPage != null) {
+            inputSpilled = spillPages(inputSpiller.get(), singletonIterator(inputPage));
+        }
+        spillInProgress = allAsList(partitionRowCountsSpilled, inputSpilled);
+        finishMemoryRevoke = () -> {
+            inputPage = null;
+            partitionIds = null;
+            unfinishedWork = null;
+            groupByHash = Optional.empty();
+            partitionRowCount = new LongBigArray(0);
+            localRevocableMemoryContext.setBytes(0);
+        };
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.run();
+        finishMemoryRevoke = () -> {};
+    }
+
+    @Override
+    public void close()
+    {
+        groupByHash = Optional.empty();
+        unspilledPartitionRowCounts = emptyIterator();
+        unspilledInput = emptyIterator();
+        try (Closer closer = Closer.create()) {
+            partitionRowCountSpiller.ifPresent(closer::register);
+            inputSpiller.ifPresent(closer::register);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Page numberRows()
+    {
         Page outputPage;
         if (maxRowsPerPartition.isPresent()) {
             outputPage = getSelectedRows();
@@ -236,10 +432,142 @@ public class RowNumberOperator
         }
 
         inputPage = null;
+        partitionIds = null;
         updateMemoryReservation();
         return outputPage;
     }
 
+    private Page getUnspilledOutput()
+    {
+        while (!unspillFinished) {
+            if (unfinishedWork != null) {
+                if (!processUnfinishedWork()) {
+                    return null;
+                }
+                if (partitionRowCountPage != null) {
+                    loadPartitionRowCounts();
+                    continue;
+                }
+                Page outputPage = numberRows();
+                if (outputPage != null) {
+                    return outputPage;
+                }
+                continue;
+            }
+
+            if (unspilledPartitionRowCounts.hasNext()) {
+                partitionRowCountPage = unspilledPartitionRowCounts.next();
+                unfinishedWork = groupByHash.get().getGroupIds(partitionRowCountPage);
+            }
+            else if (unspilledInput.hasNext()) {
+                inputPage = unspilledInput.next();
+                unfinishedWork = groupByHash.get().getGroupIds(inputPage.extractChannels(partitionHashInputChannels()));
+            }
+            else {
+                startNextUnspillPartition();
+            }
+        }
+        return null;
+    }
+
+    private void loadPartitionRowCounts()
+    {
+        Block rowCounts = partitionRowCountPage.getBlock(partitionRowCountPage.getChannelCount() - 1);
+        for (int position = 0; position < partitionRowCountPage.getPositionCount(); position++) {
+            partitionRowCount.set(partitionIds.getGroupId(position), BIGINT.getLong(rowCounts, position));
+        }
+        partitionRowCountPage = null;
+        partitionIds = null;
+        updateMemoryReservation();
+    }
+
+    private void startNextUnspillPartition()
+    {
+        unspillPartition++;
+        if (unspillPartition == SPILL_PARTITION_COUNT) {
+            partitionRowCountSpiller.get().verifyAllPartitionsRead();
+            inputSpiller.get().verifyAllPartitionsRead();
+            groupByHash = Optional.empty();
+            partitionRowCount = new LongBigArray(0);
+            unspillFinished = true;
+            updateMemoryReservation();
+            return;
+        }
+
+        // rebuild the hash for a single partition; it is laid out like the spilled row counts
+        int[] channels = IntStream.range(0, partitionTypes.size()).toArray();
+        groupByHash = Optional.of(createPartitionHash(channels, hashChannel.map(ignored -> partitionTypes.size())));
+        partitionRowCount = new LongBigArray(0);
+        unspilledPartitionRowCounts = partitionRowCountSpiller.get().getSpilledPages(unspillPartition);
+        unspilledInput = inputSpiller.get().getSpilledPages(unspillPartition);
+        updateMemoryReservation();
+    }
+
+    /**
+     * Returns the values and the row count of every partition, in pages laid out as the hash followed by the row count.
+     * Pages are built lazily, so the hash must not be modified while the iterator is in use.
+     */
+    private Iterator<Page> getPartitionRowCounts()
+    {
+        GroupByHash hash = groupByHash.get();
+        // partitions of a page that is not numbered yet have no rows
+        partitionRowCount.ensureCapacity(hash.getGroupCount());
+        Iterator<Page> partitionValues = hash.getGroupValues(hash.getGroupCount());
+        return new AbstractIterator<Page>()
+        {
+            private int groupId;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (!partitionValues.hasNext()) {
+                    return endOfData();
+                }
+                Page page = partitionValues.next();
+                BlockBuilder rowCounts = BIGINT.createFixedSizeBlockBuilder(page.getPositionCount());
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    BIGINT.writeLong(rowCounts, partitionRowCount.get(groupId));
+                    groupId++;
+                }
+                return page.appendColumn(rowCounts.build());
+            }
+        };
+    }
+
+    private GroupByHash createPartitionHash(int[] channels, Optional<Integer> hashChannel)
+    {
+        return createGroupByHash(
+                partitionTypes,
+                channels,
+                hashChannel,
+                expectedPositions,
+                isDictionaryAggregationEnabled(operatorContext.getSession()),
+                isFlatGroupByHashEnabled(operatorContext.getSession()),
+                joinCompiler,
+                this::updateMemoryReservation);
+    }
+
+    private PartitioningSpiller createSpiller(List<Type> types, HashGenerator hashGenerator)
+    {
+        return partitioningSpillerFactory.create(
+                types,
+                new LocalPartitionGenerator(hashGenerator, SPILL_PARTITION_COUNT),
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.aggregateSystemMemoryContext());
+    }
+
+    private int[] partitionHashInputChannels()
+    {
+        ImmutableList.Builder<Integer> channels = ImmutableList.<Integer>builder().addAll(partitionChannels);
+        hashChannel.ifPresent(channels::add);
+        return Ints.toArray(channels.build());
+    }
+
+    private boolean hasSpilled()
+    {
+        return inputSpiller.isPresent();
+    }
+
     private boolean hasUnfinishedInput()
     {
         return inputPage != null || unfinishedWork != null;
@@ -258,7 +586,13 @@ public class RowNumberOperator
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
         long memorySizeInBytes = groupByHash.map(GroupByHash::getEstimatedSize).orElse(0L) + partitionRowCount.sizeOf();
-        localUserMemoryContext.setBytes(memorySizeInBytes);
+        if (spillEnabled && !isSinglePartition() && !hasSpilled()) {
+            // the hash and the row counts can be revoked until the input is spilled
+            localRevocableMemoryContext.setBytes(memorySizeInBytes);
+        }
+        else {
+            localUserMemoryContext.setBytes(memorySizeInBytes);
+        }
         // If memory is not available, inform the caller that we cannot proceed for allocation.
         return operatorContext.isWaitingForMemory().isDone();
     }
@@ -277,7 +611,7 @@ public class RowNumberOperator
 
     private boolean isSinglePartition()
     {
-        return !groupByHash.isPresent();
+        return partitionChannels.isEmpty();
     }
 
     private Page getRowsWithRowNumber()
@@ -18,4 +18,12 @@ import java.net.URI;
 public interface RpcShuffleClientProvider
 {
     RpcShuffleClient get(URI location);
+
+    /**
+     * Returns a client that may prefetch responses within {@code prefetchBudget}.
+     */
+    default RpcShuffleClient get(URI location, PrefetchBudget prefetchBudget)
+    {
+        return get(location);
+    }
 }
@@ -81,6 +81,7 @@ public class ScanFilterAndProjectOperator
     private final LocalMemoryContext outputMemoryContext;
     private final SettableFuture<?> blocked = SettableFuture.create();
     private final Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier;
+    private final Optional<Supplier<Map<Integer, BlockedBloomFilter>>> bloomFilterSupplier;
     private final MergingPageOutput mergingOutput;
 
     private RecordCursor cursor;
@@ -104,6 +105,7 @@ public class ScanFilterAndProjectOperator
             Iterable<ColumnHandle> columns,
             Iterable<Type> types,
             Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier,
+            Optional<Supplier<Map<Integer, BlockedBloomFilter>>> bloomFilterSupplier,
             MergingPageOutput mergingOutput)
     {
         this.cursorProcessor = requireNonNull(cursorProcessor, "cursorProcessor is null");
@@ -118,6 +120,7 @@ public class ScanFilterAndProjectOperator
         this.pageProcessorMemoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext(ScanFilterAndProjectOperator.class.getSimpleName());
         this.outputMemoryContext = operatorContext.newLocalSystemMemoryContext(ScanFilterAndProjectOperator.class.getSimpleName());
         this.dynamicFilterSupplier = requireNonNull(dynamicFilterSupplier, "dynamicFilterSupplier is null");
+        this.bloomFilterSupplier = requireNonNull(bloomFilterSupplier, "bloomFilterSupplier is null");
         this.mergingOutput = requireNonNull(mergingOutput, "mergingOutput is null");
 
         this.pageBuilder = new PageBuilder(ImmutableList.copyOf(requireNonNull(types, "types is null")));
@@ -300,6 +303,7 @@ public class ScanFilterAndProjectOperator
             if (page != null) {
                 // update operator stats
                 page = recordProcessedInput(page);
+                page = applyBloomFilters(page);
 
                 Iterator<Optional<Page>> output = pageProcessor.process(sqlFunctionProperties, yieldSignal, pageProcessorMemoryContext, page);
                 mergingOutput.addInput(output);
@@ -318,6 +322,55 @@ public class ScanFilterAndProjectOperator
         return result;
     }
 
+    private Page applyBloomFilters(Page page)
+    {
+        if (!bloomFilterSupplier.isPresent()) {
+            return page;
+        }
+        Map<Integer, BlockedBloomFilter> bloomFilters = bloomFilterSupplier.get().get();
+        if (bloomFilters.isEmpty()) {
+            return page;
+        }
+
+        int[] positions = new int[page.getPositionCount()];
+        for (int position = 0; position < positions.length; position++) {
+            positions[position] = position;
+        }
+        int positionCount = positions.length;
+        for (Map.Entry<Integer, BlockedBloomFilter> entry : bloomFilters.entrySet()) {
+            Block block = page.getBlock(entry.getKey());
+            BlockedBloomFilter bloomFilter = entry.getValue();
+            int retainedCount = 0;
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                // null keys never match, the same as in the dynamic filter predicate
+                if (!block.isNull(position) && bloomFilter.mightContain(block, position)) {
+                    positions[retainedCount] = position;
+                    retainedCount++;
+                }
+            }
+            positionCount = retainedCount;
+        }
+        if (positionCount == page.getPositionCount()) {
+            return page;
+        }
+
+        int retainedPositionCount = positionCount;
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            Block block = page.getBlock(channel);
+            if (block instanceof LazyBlock && !((LazyBlock) block).isLoaded()) {
+                // keep columns that are not used by the Bloom filters lazy
+                LazyBlock lazyBlock = (LazyBlock) block;
+                blocks[channel] = new LazyBlock(retainedPositionCount, filtered -> filtered.setBlock(lazyBlock.getLoadedBlock().getPositions(positions, 0, retainedPositionCount)));
+            }
+            else {
+                blocks[channel] = block.getPositions(positions, 0, retainedPositionCount);
+            }
+        }
+        return new Page(retainedPositionCount, blocks);
+    }
+
     private final class RecordingLazyBlockLoader
             implements LazyBlockLoader<LazyBlock>
     {
@@ -417,6 +470,7 @@ public class ScanFilterAndProjectOperator
         private final List<ColumnHandle> columns;
         private final List<Type> types;
         private final Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier;
+        private final Optional<Supplier<Map<Integer, BlockedBloomFilter>>> bloomFilterSupplier;
         private final DataSize minOutputPageSize;
         private final int minOutputPageRowCount;
         private boolean closed;
@@ -434,6 +488,41 @@ public class ScanFilterAndProjectOperator
                 Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier,
                 DataSize minOutputPageSize,
                 int minOutputPageRowCount)
+        {
+            this(
+                    operatorId,
+                    planNodeId,
+                    sourceId,
+                    pageSourceProvider,
+                    cursorProcessor,
+                    pageProcessor,
+                    table,
+                    columns,
+                    types,
+                    dynamicFilterSupplier,
+                    Optional.empty(),
+                    minOutputPageSize,
+                    minOutputPageRowCount);
+        }
+
+        /**
+         * @param bloomFilterSupplier Bloom filters from the build side of joins, by input channel.
+         * Rows that don't pass them are removed from the pages of the page source before filtering and projection.
+         */
+        public ScanFilterAndProjectOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                Supplier<CursorProcessor> cursorProcessor,
+                Supplier<PageProcessor> pageProcessor,
+                TableHandle table,
+                Iterable<ColumnHandle> columns,
+                List<Type> types,
+                Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier,
+                Optional<Supplier<Map<Integer, BlockedBloomFilter>>> bloomFilterSupplier,
+                DataSize minOutputPageSize,
+                int minOutputPageRowCount)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -445,6 +534,7 @@ public class ScanFilterAndProjectOperator
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
             this.types = requireNonNull(types, "types is null");
             this.dynamicFilterSupplier = requireNonNull(dynamicFilterSupplier, "dynamicFilterSupplier is null");
+            this.bloomFilterSupplier = requireNonNull(bloomFilterSupplier, "bloomFilterSupplier is null");
             this.minOutputPageSize = requireNonNull(minOutputPageSize, "minOutputPageSize is null");
             this.minOutputPageRowCount = minOutputPageRowCount;
         }
@@ -470,6 +560,7 @@ public class ScanFilterAndProjectOperator
                     columns,
                     types,
                     dynamicFilterSupplier,
+                    bloomFilterSupplier,
                     new MergingPageOutput(types, minOutputPageSize.toBytes(), minOutputPageRowCount));
         }
 
@@ -172,4 +172,10 @@ public class TaskOutputOperator
     {
         return null;
     }
+
+    @Override
+    public void close()
+    {
+        operatorContext.recordSerdeCompression(serde);
+    }
 }
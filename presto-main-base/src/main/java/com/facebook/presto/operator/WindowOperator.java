@@ -21,6 +21,7 @@ import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.WorkProcessor.ProcessState;
 import com.facebook.presto.operator.WorkProcessor.Transformation;
 import com.facebook.presto.operator.WorkProcessor.TransformationState;
+import com.facebook.presto.operator.window.AggregateWindowFunction;
 import com.facebook.presto.operator.window.FrameInfo;
 import com.facebook.presto.operator.window.FramedWindowFunction;
 import com.facebook.presto.operator.window.WindowPartition;
@@ -239,6 +240,12 @@ public class WindowOperator
         this.windowFunctions = windowFunctionDefinitions.stream()
                 .map(functionDefinition -> new FramedWindowFunction(functionDefinition.createWindowFunction(), functionDefinition.getFrameInfo()))
                 .collect(toImmutableList());
+        for (FramedWindowFunction windowFunction : windowFunctions) {
+            if (windowFunction.getFunction() instanceof AggregateWindowFunction) {
+                ((AggregateWindowFunction) windowFunction.getFunction()).setMemoryContext(
+                        operatorContext.aggregateUserMemoryContext().newLocalMemoryContext(AggregateWindowFunction.class.getSimpleName()));
+            }
+        }
 
         this.outputTypes = Stream.concat(
                 outputChannels.stream()
@@ -50,6 +50,7 @@ import java.util.function.Consumer;
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isFlatGroupByHashEnabled;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
@@ -172,6 +173,7 @@ public class InMemoryHashAggregationBuilder
                 hashChannel,
                 expectedGroups,
                 isDictionaryAggregationEnabled(operatorContext.getSession()),
+                isFlatGroupByHashEnabled(operatorContext.getSession()),
                 joinCompiler,
                 updateMemory);
         this.operatorContext = operatorContext;
@@ -48,6 +48,8 @@ import java.util.stream.Stream;
 
 import static com.facebook.presto.operator.PipelineExecutionStrategy.UNGROUPED_EXECUTION;
 import static com.facebook.presto.operator.exchange.LocalExchangeSink.finishedLocalExchangeSink;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isLocalExchangeWorkStealingEnabled;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isLocalExchangeZeroCopyPartitioningEnabled;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_ARBITRARY_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_BROADCAST_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
@@ -120,6 +122,9 @@ public class LocalExchange
             exchangerSupplier = () -> new BroadcastExchanger(buffers, memoryManager);
         }
         else if (partitioning.equals(FIXED_ARBITRARY_DISTRIBUTION)) {
+            if (isLocalExchangeWorkStealingEnabled(session)) {
+                LocalExchangeSource.enableWorkStealing(this.sources);
+            }
             exchangerSupplier = () -> new RandomExchanger(buffers, memoryManager);
         }
         else if (partitioning.equals(FIXED_PASSTHROUGH_DISTRIBUTION)) {
@@ -142,7 +147,8 @@ public class LocalExchange
                             partitioningChannelTypes,
                             partitionHashChannel.isPresent()),
                     partitionChannels,
-                    partitionHashChannel);
+                    partitionHashChannel,
+                    isLocalExchangeZeroCopyPartitioningEnabled(session));
         }
         else {
             throw new IllegalArgumentException("Unsupported local exchange partitioning " + partitioning);
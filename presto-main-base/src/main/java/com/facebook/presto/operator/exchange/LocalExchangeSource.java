@@ -16,6 +16,7 @@ package com.facebook.presto.operator.exchange;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.operator.WorkProcessor;
 import com.facebook.presto.operator.WorkProcessor.ProcessState;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 
@@ -31,6 +32,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static java.util.Objects.requireNonNull;
 
@@ -50,11 +52,27 @@ public class LocalExchangeSource
 
     private volatile boolean finishing;
 
+    // other sources of the same exchange this source may take pages from when its own buffer is empty
+    private volatile List<LocalExchangeSource> workStealingSiblings = ImmutableList.of();
+
     public LocalExchangeSource(Consumer<LocalExchangeSource> onFinish)
     {
         this.onFinish = requireNonNull(onFinish, "onFinish is null");
     }
 
+    /**
+     * Lets the consumers of the given sources take pages from each other. This is only
+     * correct when any consumer may process any page, as for an arbitrary distribution.
+     */
+    static void enableWorkStealing(List<LocalExchangeSource> sources)
+    {
+        for (LocalExchangeSource source : sources) {
+            source.workStealingSiblings = sources.stream()
+                    .filter(sibling -> sibling != source)
+                    .collect(toImmutableList());
+        }
+    }
+
     public LocalExchangeBufferInfo getBufferInfo()
     {
         // This must be lock free to assure task info creation is fast
@@ -95,6 +113,30 @@ public class LocalExchangeSource
         if (notEmptyFuture != null) {
             notEmptyFuture.set(null);
         }
+        else if (added) {
+            // our reader is busy, so wake up an idle sibling that can take the page instead
+            for (LocalExchangeSource sibling : workStealingSiblings) {
+                if (sibling.notifyStealableWork()) {
+                    break;
+                }
+            }
+        }
+    }
+
+    private boolean notifyStealableWork()
+    {
+        checkNotHoldsLock();
+
+        SettableFuture<?> notEmptyFuture;
+        synchronized (this) {
+            notEmptyFuture = this.notEmptyFuture;
+            this.notEmptyFuture = null;
+        }
+        if (notEmptyFuture == null) {
+            return false;
+        }
+        notEmptyFuture.set(null);
+        return true;
     }
 
     public WorkProcessor<Page> pages()
@@ -119,6 +161,23 @@ public class LocalExchangeSource
     }
 
     public Page removePage()
+    {
+        Page page = removeBufferedPage();
+        if (page != null || finishing) {
+            return page;
+        }
+
+        for (LocalExchangeSource sibling : workStealingSiblings) {
+            page = sibling.removeBufferedPage();
+            if (page != null) {
+                return page;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private Page removeBufferedPage()
     {
         checkNotHoldsLock();
 
@@ -136,6 +195,10 @@ public class LocalExchangeSource
 
         checkFinished();
 
+        if (pageReference.isCompactOnRemove()) {
+            // copy the rows of the view on the consumer thread, so that the consumer doesn't retain the whole input page
+            page = page.compact();
+        }
         return page;
     }
 
@@ -144,13 +207,13 @@ public class LocalExchangeSource
         checkNotHoldsLock();
 
         //  Fast path, definitely not blocked
-        if (finishing || !buffer.isEmpty()) {
+        if (finishing || !buffer.isEmpty() || hasStealableWork()) {
             return NOT_BLOCKED;
         }
 
         synchronized (this) {
-            // re-check after synchronizing
-            if (finishing || !buffer.isEmpty()) {
+            // re-check after synchronizing, a sibling that adds a page afterwards wakes this source up
+            if (finishing || !buffer.isEmpty() || hasStealableWork()) {
                 return NOT_BLOCKED;
             }
             // if we need to block readers, and the current future is complete, create a new one
@@ -161,6 +224,16 @@ public class LocalExchangeSource
         }
     }
 
+    private boolean hasStealableWork()
+    {
+        for (LocalExchangeSource sibling : workStealingSiblings) {
+            if (!sibling.buffer.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public boolean isFinished()
     {
         // Common case fast-path without synchronizing
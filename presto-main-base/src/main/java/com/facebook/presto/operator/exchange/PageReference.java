@@ -17,6 +17,7 @@ import com.facebook.presto.common.Page;
 
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -31,13 +32,29 @@ final class PageReference
     private volatile int referenceCount;
     private final Page page;
     private final PageReleasedListener onPageReleased;
+    private final boolean compactOnRemove;
 
     public PageReference(Page page, int referenceCount, PageReleasedListener onPageReleased)
+    {
+        this(page, referenceCount, onPageReleased, false);
+    }
+
+    /**
+     * @param compactOnRemove whether the page is a view that retains much more memory than it uses, and should be
+     * compacted by the consumer removing it
+     */
+    public PageReference(Page page, int referenceCount, PageReleasedListener onPageReleased, boolean compactOnRemove)
     {
         this.page = requireNonNull(page, "page is null");
         this.onPageReleased = requireNonNull(onPageReleased, "onPageReleased is null");
         checkArgument(referenceCount >= 1, "referenceCount must be at least 1");
         this.referenceCount = referenceCount;
+        this.compactOnRemove = compactOnRemove;
+    }
+
+    public boolean isCompactOnRemove()
+    {
+        return compactOnRemove;
     }
 
     public long getRetainedSizeInBytes()
@@ -73,5 +90,21 @@ final class PageReference
             requireNonNull(memoryManager, "memoryManager is null");
             return (releasedSizeInBytes) -> memoryManager.updateMemoryUsage(-releasedSizeInBytes);
         }
+
+        /**
+         * Returns a listener for {@code referenceCount} pages that all retain the memory of a shared page,
+         * such as views over the positions of the page. The shared page is released with the last of them.
+         */
+        static PageReleasedListener forSharedPage(long sharedPageSizeInBytes, int referenceCount, PageReleasedListener onSharedPageReleased)
+        {
+            requireNonNull(onSharedPageReleased, "onSharedPageReleased is null");
+            checkArgument(referenceCount >= 1, "referenceCount must be at least 1");
+            AtomicInteger remainingReferences = new AtomicInteger(referenceCount);
+            return (releasedSizeInBytes) -> {
+                if (remainingReferences.decrementAndGet() == 0) {
+                    onSharedPageReleased.onPageReleased(sharedPageSizeInBytes);
+                }
+            };
+        }
     }
 }
@@ -38,13 +38,15 @@ class PartitioningExchanger
     private final Optional<Integer> hashChannel;
     private final IntArrayList[] partitionAssignments;
     private final PageReleasedListener onPageReleased;
+    private final boolean zeroCopy;
 
     public PartitioningExchanger(
             List<Consumer<PageReference>> partitions,
             LocalExchangeMemoryManager memoryManager,
             PartitionFunction partitionFunction,
             List<Integer> partitioningChannels,
-            Optional<Integer> hashChannel)
+            Optional<Integer> hashChannel,
+            boolean zeroCopy)
     {
         this.buffers = ImmutableList.copyOf(requireNonNull(partitions, "partitions is null"));
         this.memoryManager = requireNonNull(memoryManager, "memoryManager is null");
@@ -52,6 +54,7 @@ class PartitioningExchanger
         this.partitioningChannels = Ints.toArray(requireNonNull(partitioningChannels, "partitioningChannels is null"));
         this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
         this.onPageReleased = PageReleasedListener.forLocalExchangeMemoryManager(memoryManager);
+        this.zeroCopy = zeroCopy;
 
         partitionAssignments = new IntArrayList[partitions.size()];
         for (int i = 0; i < partitionAssignments.length; i++) {
@@ -74,6 +77,11 @@ class PartitioningExchanger
             partitionAssignments[partition].add(position);
         }
 
+        if (zeroCopy) {
+            acceptPageViews(page);
+            return;
+        }
+
         // build a page for each partition
         for (int partition = 0; partition < buffers.size(); partition++) {
             IntArrayList positions = partitionAssignments[partition];
@@ -85,6 +93,41 @@ class PartitioningExchanger
         }
     }
 
+    private void acceptPageViews(Page page)
+    {
+        // Every partition gets a view of its positions, so no rows are copied on the thread partitioning the page.
+        // A view retains the whole input page, and the consumers account the full retained size of every page they hold,
+        // so a view that keeps less than half of the positions is compacted by the source when its consumer removes it.
+        // The rows are then copied on the consumer threads, in parallel, and the input page is freed once all views are removed.
+        Page[] views = new Page[buffers.size()];
+        boolean[] compact = new boolean[buffers.size()];
+        int viewCount = 0;
+        for (int partition = 0; partition < buffers.size(); partition++) {
+            IntArrayList positions = partitionAssignments[partition];
+            if (positions.isEmpty()) {
+                continue;
+            }
+            if (positions.size() == page.getPositionCount()) {
+                views[partition] = page;
+            }
+            else {
+                views[partition] = page.getPositions(positions.toIntArray(), 0, positions.size());
+                compact[partition] = positions.size() * 2 < page.getPositionCount();
+            }
+            viewCount++;
+        }
+
+        // every view retains the input page, so its memory is accounted once and released with the last view
+        long retainedSizeInBytes = page.getRetainedSizeInBytes();
+        memoryManager.updateMemoryUsage(retainedSizeInBytes);
+        PageReleasedListener onViewReleased = PageReleasedListener.forSharedPage(retainedSizeInBytes, viewCount, onPageReleased);
+        for (int partition = 0; partition < buffers.size(); partition++) {
+            if (views[partition] != null) {
+                buffers.get(partition).accept(new PageReference(views[partition], 1, onViewReleased, compact[partition]));
+            }
+        }
+    }
+
     private Page extractPartitioningChannels(Page inputPage)
     {
         // hash value is pre-computed, only needs to extract that channel
@@ -74,6 +74,7 @@ import static com.facebook.presto.common.array.Arrays.ExpansionOption.PRESERVE;
 import static com.facebook.presto.common.array.Arrays.ensureCapacity;
 import static com.facebook.presto.common.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
 import static com.facebook.presto.operator.repartition.AbstractBlockEncodingBuffer.createBlockEncodingBuffers;
+import static com.facebook.presto.operator.repartition.PartitionSkewDetector.createPartitionSkewDetector;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Verify.verify;
 import static io.airlift.slice.SizeOf.SIZE_OF_INT;
@@ -189,6 +190,8 @@ public class OptimizedPartitionedOutputOperator
     public void close()
     {
         systemMemoryContext.close();
+        operatorContext.recordSerdeCompression(pagePartitioner.getSerde());
+        pagePartitioner.getSkewDetector().ifPresent(detector -> detector.recordMetrics(operatorContext.getRuntimeStats()));
     }
 
     /**
@@ -409,6 +412,7 @@ public class OptimizedPartitionedOutputOperator
         private final List<Integer> variableWidthChannels;
         private final int fixedWidthRowSize;
         private final DecodedBlockNode[] decodedBlocks;
+        private final Optional<PartitionSkewDetector> skewDetector;
 
         private boolean hasAnyRowBeenReplicated;
 
@@ -452,9 +456,10 @@ public class OptimizedPartitionedOutputOperator
 
             int partitionBufferCapacity = max(1, min(DEFAULT_MAX_PAGE_SIZE_IN_BYTES, toIntExact(maxMemory.toBytes()) / partitionCount));
 
+            this.skewDetector = createPartitionSkewDetector(operatorContext, sourceTypes, this.partitionChannels, partitionConstants, partitionCount);
             partitionBuffers = new PartitionBuffer[partitionCount];
             for (int i = 0; i < partitionCount; i++) {
-                partitionBuffers[i] = new PartitionBuffer(i, sourceTypes.size(), partitionBufferCapacity, pagesAdded, rowsAdded, serde, bufferAllocator, operatorContext);
+                partitionBuffers[i] = new PartitionBuffer(i, sourceTypes.size(), partitionBufferCapacity, pagesAdded, rowsAdded, serde, bufferAllocator, operatorContext, skewDetector);
             }
 
             this.sourceTypes = sourceTypes;
@@ -514,6 +519,9 @@ public class OptimizedPartitionedOutputOperator
             }
 
             Page partitionFunctionArgs = getPartitionFunctionArguments(page);
+            if (skewDetector.isPresent()) {
+                skewDetector.get().addKeys(partitionFunctionArgs);
+            }
             // Skip null block checks if mayHaveNull reports that no positions will be null
             if (nullChannel >= 0 && page.getBlock(nullChannel).mayHaveNull()) {
                 Block nullBlock = page.getBlock(nullChannel);
@@ -564,6 +572,16 @@ public class OptimizedPartitionedOutputOperator
             }
         }
 
+        public PagesSerde getSerde()
+        {
+            return serde;
+        }
+
+        public Optional<PartitionSkewDetector> getSkewDetector()
+        {
+            return skewDetector;
+        }
+
         public long getRetainedSizeInBytes()
         {
             // When called by the operator constructor, the blockDecodingAllocator was empty at the moment.
@@ -636,8 +654,18 @@ public class OptimizedPartitionedOutputOperator
         private int bufferedRowCount;
         private boolean bufferFull;
         private OperatorContext operatorContext;
-
-        PartitionBuffer(int partition, int channelCount, int capacity, AtomicLong pagesAdded, AtomicLong rowsAdded, PagesSerde serde, ArrayAllocator bufferAllocator, OperatorContext operatorContext)
+        private final Optional<PartitionSkewDetector> skewDetector;
+
+        PartitionBuffer(
+                int partition,
+                int channelCount,
+                int capacity,
+                AtomicLong pagesAdded,
+                AtomicLong rowsAdded,
+                PagesSerde serde,
+                ArrayAllocator bufferAllocator,
+                OperatorContext operatorContext,
+                Optional<PartitionSkewDetector> skewDetector)
         {
             this.partition = partition;
             this.channelCount = channelCount;
@@ -648,6 +676,7 @@ public class OptimizedPartitionedOutputOperator
             this.bufferAllocator = requireNonNull(bufferAllocator, "bufferAllocator is null");
             this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
             this.lifespan = operatorContext.getDriverContext().getLifespan();
+            this.skewDetector = requireNonNull(skewDetector, "skewDetector is null");
         }
 
         private void resetPositions(int estimatedPositionCount)
@@ -793,6 +822,9 @@ public class OptimizedPartitionedOutputOperator
             pagesAdded.incrementAndGet();
             rowsAdded.addAndGet(bufferedRowCount);
             operatorContext.recordOutput(totalSizeInBytes, bufferedRowCount);
+            if (skewDetector.isPresent()) {
+                skewDetector.get().addPartitionBytes(partition, totalSizeInBytes);
+            }
 
             bufferedRowCount = 0;
         }
@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.repartition;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.spi.relation.ConstantExpression;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.common.RuntimeMetricName.PARTITIONED_OUTPUT_HOT_KEYS;
+import static com.facebook.presto.common.RuntimeMetricName.PARTITIONED_OUTPUT_MAX_PARTITION_BYTES;
+import static com.facebook.presto.common.RuntimeUnit.BYTE;
+import static com.facebook.presto.common.RuntimeUnit.NONE;
+import static com.facebook.presto.operator.scalar.CombineHashFunction.getHash;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isPartitionedOutputSkewDetectionEnabled;
+import static com.facebook.presto.type.TypeUtils.hashPosition;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Detects skew in the output of a partitioned output operator. It counts the bytes sent to every
+ * partition, and tracks the most frequent partitioning keys of a sample of the rows with a
+ * Space-Saving heavy hitter sketch.
+ * <p>
+ * The detector only reports skew. The planner mitigates it when asked to: the grouping keys of
+ * an aggregation are salted by the salt_aggregation_keys session property, and the keys of a
+ * join are salted, with the build rows replicated to every salt, by sharded_joins_strategy.
+ */
+public class PartitionSkewDetector
+{
+    private static final int SAMPLE_INTERVAL = 16;
+    private static final int SKETCH_SIZE = 64;
+    // too few samples make every key look hot
+    private static final int MINIMUM_SAMPLED_ROWS_FOR_HOT_KEYS = 1024;
+
+    private final List<Type> keyTypes;
+    private final long[] partitionBytes;
+
+    private final long[] sketchKeys = new long[SKETCH_SIZE];
+    private final long[] sketchCounts = new long[SKETCH_SIZE];
+    // upper bound of the overestimation of each count, inherited from the evicted key
+    private final long[] sketchErrors = new long[SKETCH_SIZE];
+    private int sketchEntries;
+    private long sampledRows;
+    private int nextSamplePosition;
+
+    /**
+     * @param keyTypes the types of the arguments of the partition function
+     */
+    public PartitionSkewDetector(List<Type> keyTypes, int partitionCount)
+    {
+        this.keyTypes = ImmutableList.copyOf(requireNonNull(keyTypes, "keyTypes is null"));
+        checkArgument(partitionCount > 0, "partitionCount must be positive");
+        this.partitionBytes = new long[partitionCount];
+    }
+
+    /**
+     * Creates a detector for a partitioned output operator if skew detection is enabled for the session
+     */
+    public static Optional<PartitionSkewDetector> createPartitionSkewDetector(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            int[] partitionChannels,
+            List<Optional<ConstantExpression>> partitionConstants,
+            int partitionCount)
+    {
+        if (!isPartitionedOutputSkewDetectionEnabled(operatorContext.getSession())) {
+            return Optional.empty();
+        }
+        ImmutableList.Builder<Type> keyTypes = ImmutableList.builder();
+        for (int i = 0; i < partitionChannels.length; i++) {
+            if (partitionChannels[i] < 0) {
+                keyTypes.add(partitionConstants.get(i).get().getType());
+            }
+            else {
+                keyTypes.add(sourceTypes.get(partitionChannels[i]));
+            }
+        }
+        return Optional.of(new PartitionSkewDetector(keyTypes.build(), partitionCount));
+    }
+
+    /**
+     * Samples the partitioning keys of a page of partition function arguments
+     */
+    public void addKeys(Page keys)
+    {
+        checkArgument(keys.getChannelCount() == keyTypes.size(), "keys have %s channels, expected %s", keys.getChannelCount(), keyTypes.size());
+        int position = nextSamplePosition;
+        for (; position < keys.getPositionCount(); position += SAMPLE_INTERVAL) {
+            long hash = 0;
+            for (int channel = 0; channel < keyTypes.size(); channel++) {
+                hash = getHash(hash, hashPosition(keyTypes.get(channel), keys.getBlock(channel), position));
+            }
+            addSample(hash);
+        }
+        nextSamplePosition = position - keys.getPositionCount();
+    }
+
+    public void addPartitionBytes(int partition, long bytes)
+    {
+        partitionBytes[partition] += bytes;
+    }
+
+    public long getMaxPartitionBytes()
+    {
+        long maxBytes = 0;
+        for (long bytes : partitionBytes) {
+            maxBytes = max(maxBytes, bytes);
+        }
+        return maxBytes;
+    }
+
+    /**
+     * Returns the number of keys that are guaranteed to make up more than the share of the rows
+     * each partition would receive if the data was evenly distributed.
+     */
+    public int getHotKeyCount()
+    {
+        if (partitionBytes.length == 1 || sampledRows < MINIMUM_SAMPLED_ROWS_FOR_HOT_KEYS) {
+            return 0;
+        }
+        long fairShare = sampledRows / partitionBytes.length;
+        int hotKeys = 0;
+        for (int i = 0; i < sketchEntries; i++) {
+            if (sketchCounts[i] - sketchErrors[i] > fairShare) {
+                hotKeys++;
+            }
+        }
+        return hotKeys;
+    }
+
+    public void recordMetrics(RuntimeStats runtimeStats)
+    {
+        runtimeStats.addMetricValueIgnoreZero(PARTITIONED_OUTPUT_MAX_PARTITION_BYTES, BYTE, getMaxPartitionBytes());
+        runtimeStats.addMetricValueIgnoreZero(PARTITIONED_OUTPUT_HOT_KEYS, NONE, getHotKeyCount());
+    }
+
+    private void addSample(long hash)
+    {
+        sampledRows++;
+        int minIndex = 0;
+        for (int i = 0; i < sketchEntries; i++) {
+            if (sketchKeys[i] == hash) {
+                sketchCounts[i]++;
+                return;
+            }
+            if (sketchCounts[i] < sketchCounts[minIndex]) {
+                minIndex = i;
+            }
+        }
+
+        if (sketchEntries < SKETCH_SIZE) {
+            sketchKeys[sketchEntries] = hash;
+            sketchCounts[sketchEntries] = 1;
+            sketchEntries++;
+            return;
+        }
+
+        // replace the least frequent key, which may have been seen as many times as the new key
+        sketchKeys[minIndex] = hash;
+        sketchErrors[minIndex] = sketchCounts[minIndex];
+        sketchCounts[minIndex]++;
+    }
+}
@@ -50,6 +50,7 @@ import java.util.function.Supplier;
 
 import static com.facebook.presto.common.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
 import static com.facebook.presto.execution.buffer.PageSplitterUtil.splitPage;
+import static com.facebook.presto.operator.repartition.PartitionSkewDetector.createPartitionSkewDetector;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
@@ -279,6 +280,8 @@ public class PartitionedOutputOperator
     public void close()
     {
         partitionFunction.zeroMemoryContext();
+        operatorContext.recordSerdeCompression(partitionFunction.getSerde());
+        partitionFunction.getSkewDetector().ifPresent(detector -> detector.recordMetrics(operatorContext.getRuntimeStats()));
     }
 
     private static class PagePartitioner
@@ -298,6 +301,7 @@ public class PartitionedOutputOperator
         private boolean hasAnyRowBeenReplicated;
         private final OperatorContext operatorContext;
         private final LocalMemoryContext systemMemoryContext;
+        private final Optional<PartitionSkewDetector> skewDetector;
 
         public PagePartitioner(
                 PartitionFunction partitionFunction,
@@ -347,6 +351,17 @@ public class PartitionedOutputOperator
             for (int i = 0; i < partitionCount; i++) {
                 pageBuilders[i] = PageBuilder.withMaxPageSize(pageSize, sourceTypes);
             }
+            this.skewDetector = createPartitionSkewDetector(operatorContext, sourceTypes, this.partitionChannels, partitionConstants, partitionCount);
+        }
+
+        public Optional<PartitionSkewDetector> getSkewDetector()
+        {
+            return skewDetector;
+        }
+
+        public PagesSerde getSerde()
+        {
+            return serde;
         }
 
         public void zeroMemoryContext()
@@ -413,6 +428,9 @@ public class PartitionedOutputOperator
             }
 
             Page partitionFunctionArgs = getPartitionFunctionArguments(page);
+            if (skewDetector.isPresent()) {
+                skewDetector.get().addKeys(partitionFunctionArgs);
+            }
             // Skip null block checks if mayHaveNull reports that no positions will be null
             if (nullChannel >= 0 && page.getBlock(nullChannel).mayHaveNull()) {
                 Block nullsBlock = page.getBlock(nullChannel);
@@ -481,6 +499,9 @@ public class PartitionedOutputOperator
                     partitionPageBuilder.reset();
 
                     operatorContext.recordOutput(pagePartition.getSizeInBytes(), pagePartition.getPositionCount());
+                    if (skewDetector.isPresent()) {
+                        skewDetector.get().addPartitionBytes(partition, pagePartition.getSizeInBytes());
+                    }
 
                     outputBuffer.enqueue(operatorContext.getDriverContext().getLifespan(), partition, splitAndSerializePage(pagePartition));
                     pagesAdded.incrementAndGet();
@@ -14,6 +14,8 @@
 package com.facebook.presto.operator.window;
 
 import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.operator.UpdateMemory;
 import com.facebook.presto.operator.aggregation.AccumulatorFactory;
 import com.facebook.presto.operator.aggregation.BuiltInAggregationFunctionImplementation;
@@ -27,6 +29,7 @@ import com.google.common.collect.ImmutableList;
 import java.util.List;
 import java.util.Optional;
 
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.facebook.presto.operator.aggregation.GenericAccumulatorFactory.generateAccumulatorFactory;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
@@ -34,11 +37,18 @@ import static java.util.Objects.requireNonNull;
 public class AggregateWindowFunction
         implements WindowFunction
 {
+    private static final int SEGMENT_TREE_MIN_FRAME_SIZE = 4 * WindowSegmentTree.LEAF_SIZE;
+
     private final List<Integer> argumentChannels;
     private final AccumulatorFactory accumulatorFactory;
+    private final boolean segmentTreeSupported;
+    private final Type intermediateType;
 
     private WindowIndex windowIndex;
     private Accumulator accumulator;
+    // built lazily for the current partition the first time a large frame slides
+    private WindowSegmentTree segmentTree;
+    private LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext(AggregateWindowFunction.class.getSimpleName());
     private int currentStart;
     private int currentEnd;
 
@@ -48,12 +58,26 @@ public class AggregateWindowFunction
         BuiltInAggregationFunctionImplementation builtinFunction = (BuiltInAggregationFunctionImplementation) function;
         this.argumentChannels = ImmutableList.copyOf(argumentChannels);
         this.accumulatorFactory = generateAccumulatorFactory(builtinFunction, createArgs(builtinFunction), Optional.empty());
+        this.intermediateType = builtinFunction.getIntermediateType();
+        this.segmentTreeSupported = WindowSegmentTree.isSupported(intermediateType);
+    }
+
+    /**
+     * Sets the memory context that the segment tree of the current partition is charged to.
+     */
+    public void setMemoryContext(LocalMemoryContext memoryContext)
+    {
+        this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
     }
 
     @Override
     public void reset(WindowIndex windowIndex)
     {
         this.windowIndex = windowIndex;
+        if (segmentTree != null) {
+            segmentTree = null;
+            memoryContext.setBytes(0);
+        }
         resetAccumulator();
     }
 
@@ -69,6 +93,13 @@ public class AggregateWindowFunction
             accumulate(currentEnd + 1, frameEnd);
             currentEnd = frameEnd;
         }
+        else if (useSegmentTree(frameStart, frameEnd)) {
+            // sliding frame: combine pre-aggregated states instead of re-reading every row
+            accumulator = accumulatorFactory.createAccumulator(UpdateMemory.NOOP);
+            getSegmentTree().accumulate(accumulator, frameStart, frameEnd);
+            currentStart = frameStart;
+            currentEnd = frameEnd;
+        }
         else {
             // different frame
             resetAccumulator();
@@ -80,6 +111,26 @@ public class AggregateWindowFunction
         accumulator.evaluateFinal(output);
     }
 
+    private boolean useSegmentTree(int frameStart, int frameEnd)
+    {
+        // only frames whose start moves need the tree: the first frame of a partition and frames
+        // that keep their start are accumulated incrementally. Small frames are cheaper to
+        // re-accumulate than to decompose into tree nodes.
+        return segmentTreeSupported &&
+                currentStart >= 0 &&
+                frameStart != currentStart &&
+                frameEnd - frameStart + 1 > SEGMENT_TREE_MIN_FRAME_SIZE;
+    }
+
+    private WindowSegmentTree getSegmentTree()
+    {
+        if (segmentTree == null) {
+            segmentTree = new WindowSegmentTree(accumulatorFactory, intermediateType, argumentChannels, windowIndex);
+            memoryContext.setBytes(segmentTree.getRetainedSizeInBytes());
+        }
+        return segmentTree;
+    }
+
     private void accumulate(int start, int end)
     {
         accumulator.addInput(windowIndex, argumentChannels, start, end);
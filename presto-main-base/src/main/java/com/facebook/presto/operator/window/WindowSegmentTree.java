@@ -0,0 +1,175 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.type.FixedWidthType;
+import com.facebook.presto.common.type.RowType;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.operator.UpdateMemory;
+import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.spi.function.WindowIndex;
+import com.facebook.presto.spi.function.aggregation.Accumulator;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Segment tree of aggregation intermediate states over the rows of a window partition.
+ * <p>
+ * Rows are grouped into leaves of {@link #LEAF_SIZE} rows. Each level of the tree stores
+ * the intermediate states of its nodes in a single block, and every node above the leaves
+ * combines the states of (up to) two children. An arbitrary frame is then evaluated by
+ * adding the raw rows of the partially covered leaves at both ends, plus the intermediate
+ * states of O(log n) fully covered nodes, independent of the frame width.
+ * <p>
+ * Nodes are always combined from left to right, so the tree can be used for any aggregation
+ * that is able to merge its own intermediate states.
+ */
+final class WindowSegmentTree
+{
+    static final int LEAF_SIZE = 32;
+
+    private final AccumulatorFactory accumulatorFactory;
+    private final List<Integer> argumentChannels;
+    private final WindowIndex windowIndex;
+    // levels.get(0) holds the leaves, the last level holds the root
+    private final List<Block> levels;
+
+    public WindowSegmentTree(AccumulatorFactory accumulatorFactory, Type intermediateType, List<Integer> argumentChannels, WindowIndex windowIndex)
+    {
+        this.accumulatorFactory = requireNonNull(accumulatorFactory, "accumulatorFactory is null");
+        this.argumentChannels = ImmutableList.copyOf(requireNonNull(argumentChannels, "argumentChannels is null"));
+        this.windowIndex = requireNonNull(windowIndex, "windowIndex is null");
+        requireNonNull(intermediateType, "intermediateType is null");
+
+        ImmutableList.Builder<Block> levels = ImmutableList.builder();
+        int leafCount = (windowIndex.size() + LEAF_SIZE - 1) / LEAF_SIZE;
+        BlockBuilder leaves = intermediateType.createBlockBuilder(null, leafCount);
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            Accumulator accumulator = createAccumulator();
+            int start = leaf * LEAF_SIZE;
+            accumulator.addInput(windowIndex, this.argumentChannels, start, Math.min(start + LEAF_SIZE, windowIndex.size()) - 1);
+            accumulator.evaluateIntermediate(leaves);
+        }
+
+        Block level = leaves.build();
+        levels.add(level);
+        while (level.getPositionCount() > 1) {
+            int parentCount = (level.getPositionCount() + 1) / 2;
+            BlockBuilder parents = intermediateType.createBlockBuilder(null, parentCount);
+            for (int parent = 0; parent < parentCount; parent++) {
+                int firstChild = parent * 2;
+                Accumulator accumulator = createAccumulator();
+                accumulator.addIntermediate(level.getRegion(firstChild, Math.min(2, level.getPositionCount() - firstChild)));
+                accumulator.evaluateIntermediate(parents);
+            }
+            level = parents.build();
+            levels.add(level);
+        }
+        this.levels = levels.build();
+    }
+
+    /**
+     * Returns true if the intermediate state of an aggregation is small and bounded, which makes
+     * keeping O(n / LEAF_SIZE) copies of it in the tree cheap.
+     */
+    public static boolean isSupported(Type intermediateType)
+    {
+        if (intermediateType instanceof FixedWidthType) {
+            return true;
+        }
+        if (intermediateType instanceof RowType) {
+            return intermediateType.getTypeParameters().stream().allMatch(FixedWidthType.class::isInstance);
+        }
+        return false;
+    }
+
+    /**
+     * Adds the rows in {@code [start, end]} (both inclusive) to the accumulator.
+     */
+    public void accumulate(Accumulator accumulator, int start, int end)
+    {
+        checkArgument(start >= 0 && start <= end && end < windowIndex.size(), "invalid frame [%s, %s]", start, end);
+
+        int firstLeaf = (start + LEAF_SIZE - 1) / LEAF_SIZE;
+        int lastLeafExclusive = (end + 1) / LEAF_SIZE;
+        if (firstLeaf >= lastLeafExclusive) {
+            accumulator.addInput(windowIndex, argumentChannels, start, end);
+            return;
+        }
+
+        int headEnd = firstLeaf * LEAF_SIZE - 1;
+        if (start <= headEnd) {
+            accumulator.addInput(windowIndex, argumentChannels, start, headEnd);
+        }
+
+        // standard bottom-up decomposition into fully covered nodes; nodes on the right
+        // side are discovered from right to left, so they are buffered to keep row order
+        List<Block> leftNodes = new ArrayList<>();
+        Deque<Block> rightNodes = new ArrayDeque<>();
+        int low = firstLeaf;
+        int high = lastLeafExclusive;
+        for (int level = 0; low < high; level++) {
+            Block nodes = levels.get(level);
+            if ((low & 1) == 1) {
+                leftNodes.add(nodes.getRegion(low, 1));
+                low++;
+            }
+            if ((high & 1) == 1) {
+                high--;
+                rightNodes.addFirst(nodes.getRegion(high, 1));
+            }
+            low /= 2;
+            high /= 2;
+        }
+        for (Block node : leftNodes) {
+            accumulator.addIntermediate(node);
+        }
+        for (Block node : rightNodes) {
+            accumulator.addIntermediate(node);
+        }
+
+        int tailStart = lastLeafExclusive * LEAF_SIZE;
+        if (tailStart <= end) {
+            accumulator.addInput(windowIndex, argumentChannels, tailStart, end);
+        }
+    }
+
+    /**
+     * Returns the size of the intermediate states of the tree. The accumulators that build and
+     * query the tree are short lived and hold a single fixed width state, so they are not counted.
+     */
+    public long getRetainedSizeInBytes()
+    {
+        long size = 0;
+        for (Block level : levels) {
+            size += level.getRetainedSizeInBytes();
+        }
+        return size;
+    }
+
+    private Accumulator createAccumulator()
+    {
+        // see AggregateWindowFunction#resetAccumulator for why no memory callback is needed
+        return accumulatorFactory.createAccumulator(UpdateMemory.NOOP);
+    }
+}
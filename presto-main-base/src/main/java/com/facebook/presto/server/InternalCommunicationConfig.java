@@ -42,6 +42,7 @@ public class InternalCommunicationConfig
     private boolean binaryTransportEnabled;
     private boolean thriftTransportEnabled;
     private boolean taskInfoThriftTransportEnabled;
+    private boolean omitTaskUpdateStats;
     private Protocol thriftProtocol = Protocol.BINARY;
     private DataSize maxTaskUpdateSize = new DataSize(16, MEGABYTE);
     private CommunicationProtocol taskCommunicationProtocol = CommunicationProtocol.HTTP;
@@ -200,6 +201,19 @@ public class InternalCommunicationConfig
         return this;
     }
 
+    public boolean isOmitTaskUpdateStats()
+    {
+        return omitTaskUpdateStats;
+    }
+
+    @Config("experimental.internal-communication.omit-task-update-stats")
+    @ConfigDescription("Leave the stats of running tasks out of the responses to task updates")
+    public InternalCommunicationConfig setOmitTaskUpdateStats(boolean omitTaskUpdateStats)
+    {
+        this.omitTaskUpdateStats = omitTaskUpdateStats;
+        return this;
+    }
+
     public Protocol getThriftProtocol()
     {
         return thriftProtocol;
@@ -42,7 +42,18 @@ public class JavaWorkerSessionPropertyProvider
     public static final String DISTINCT_AGGREGATION_LARGE_BLOCK_SIZE_THRESHOLD = "distinct_aggregation_large_block_size_threshold";
     public static final String ORDER_BY_AGGREGATION_SPILL_ENABLED = "order_by_aggregation_spill_enabled";
     public static final String WINDOW_SPILL_ENABLED = "window_spill_enabled";
+    public static final String MARK_DISTINCT_SPILL_ENABLED = "mark_distinct_spill_enabled";
+    public static final String DISTINCT_LIMIT_SPILL_ENABLED = "distinct_limit_spill_enabled";
+    public static final String ROW_NUMBER_SPILL_ENABLED = "row_number_spill_enabled";
     public static final String ORDER_BY_SPILL_ENABLED = "order_by_spill_enabled";
+    public static final String ORDER_BY_PARALLEL_SORT_ENABLED = "order_by_parallel_sort_enabled";
+    public static final String JOIN_PARALLEL_HASH_BUILD_ENABLED = "join_parallel_hash_build_enabled";
+    public static final String JOIN_BUILD_CACHE_ENABLED = "join_build_cache_enabled";
+    public static final String FLAT_GROUP_BY_HASH_ENABLED = "flat_group_by_hash_enabled";
+    public static final String LOCAL_EXCHANGE_ZERO_COPY_PARTITIONING_ENABLED = "local_exchange_zero_copy_partitioning_enabled";
+    public static final String LOCAL_EXCHANGE_WORK_STEALING_ENABLED = "local_exchange_work_stealing_enabled";
+    public static final String PARTITIONED_OUTPUT_SKEW_DETECTION_ENABLED = "partitioned_output_skew_detection_enabled";
+    public static final String ASYNC_RECORD_READS_ENABLED = "async_record_reads_enabled";
     public static final String AGGREGATION_OPERATOR_UNSPILL_MEMORY_LIMIT = "aggregation_operator_unspill_memory_limit";
     public static final String TOPN_OPERATOR_UNSPILL_MEMORY_LIMIT = "topn_operator_unspill_memory_limit";
     public static final String TEMP_STORAGE_SPILLER_BUFFER_SIZE = "temp_storage_spiller_buffer_size";
@@ -97,11 +108,66 @@ public class JavaWorkerSessionPropertyProvider
                         "Enable window spilling if spill_enabled",
                         javaFeaturesConfig.isWindowSpillEnabled(),
                         nativeExecution),
+                booleanProperty(
+                        MARK_DISTINCT_SPILL_ENABLED,
+                        "Enable mark distinct spilling if spill_enabled",
+                        javaFeaturesConfig.isMarkDistinctSpillEnabled(),
+                        nativeExecution),
+                booleanProperty(
+                        DISTINCT_LIMIT_SPILL_ENABLED,
+                        "Enable distinct limit spilling if spill_enabled",
+                        javaFeaturesConfig.isDistinctLimitSpillEnabled(),
+                        nativeExecution),
+                booleanProperty(
+                        ROW_NUMBER_SPILL_ENABLED,
+                        "Enable row number spilling if spill_enabled",
+                        javaFeaturesConfig.isRowNumberSpillEnabled(),
+                        nativeExecution),
                 booleanProperty(
                         ORDER_BY_SPILL_ENABLED,
                         "Enable order by spilling if spill_enabled",
                         javaFeaturesConfig.isOrderBySpillEnabled(),
                         nativeExecution),
+                booleanProperty(
+                        ORDER_BY_PARALLEL_SORT_ENABLED,
+                        "Sort large order by inputs using multiple threads",
+                        javaFeaturesConfig.isOrderByParallelSortEnabled(),
+                        nativeExecution),
+                booleanProperty(
+                        JOIN_PARALLEL_HASH_BUILD_ENABLED,
+                        "Hash large join build sides using multiple threads",
+                        javaFeaturesConfig.isJoinParallelHashBuildEnabled(),
+                        nativeExecution),
+                booleanProperty(
+                        JOIN_BUILD_CACHE_ENABLED,
+                        "Reuse hash tables built over identical join build sides across queries",
+                        javaFeaturesConfig.isJoinBuildCacheEnabled(),
+                        nativeExecution),
+                booleanProperty(
+                        FLAT_GROUP_BY_HASH_ENABLED,
+                        "Group by fixed-width keys using a hash table that stores the keys in flat rows",
+                        javaFeaturesConfig.isFlatGroupByHashEnabled(),
+                        nativeExecution),
+                booleanProperty(
+                        LOCAL_EXCHANGE_ZERO_COPY_PARTITIONING_ENABLED,
+                        "Partition pages in local exchanges by passing views over the positions of the input page instead of copying them",
+                        javaFeaturesConfig.isLocalExchangeZeroCopyPartitioningEnabled(),
+                        nativeExecution),
+                booleanProperty(
+                        LOCAL_EXCHANGE_WORK_STEALING_ENABLED,
+                        "Let idle consumers of arbitrarily distributed local exchanges take pages buffered for other consumers",
+                        javaFeaturesConfig.isLocalExchangeWorkStealingEnabled(),
+                        nativeExecution),
+                booleanProperty(
+                        PARTITIONED_OUTPUT_SKEW_DETECTION_ENABLED,
+                        "Track the data sent to each partition and the most frequent partitioning keys in partitioned outputs, and report the skew in the operator stats",
+                        javaFeaturesConfig.isPartitionedOutputSkewDetectionEnabled(),
+                        nativeExecution),
+                booleanProperty(
+                        ASYNC_RECORD_READS_ENABLED,
+                        "Read from record cursor based connectors on a separate thread pool, so that drivers yield instead of blocking a runner thread on remote I/O",
+                        javaFeaturesConfig.isAsyncRecordReadsEnabled(),
+                        nativeExecution),
                 new PropertyMetadata<>(
                         AGGREGATION_OPERATOR_UNSPILL_MEMORY_LIMIT,
                         "Experimental: How much memory can should be allocated per aggregation operator in unspilling process",
@@ -177,11 +243,66 @@ public class JavaWorkerSessionPropertyProvider
         return session.getSystemProperty(WINDOW_SPILL_ENABLED, Boolean.class) && isSpillEnabled(session);
     }
 
+    public static boolean isMarkDistinctSpillEnabled(Session session)
+    {
+        return session.getSystemProperty(MARK_DISTINCT_SPILL_ENABLED, Boolean.class) && isSpillEnabled(session);
+    }
+
+    public static boolean isDistinctLimitSpillEnabled(Session session)
+    {
+        return session.getSystemProperty(DISTINCT_LIMIT_SPILL_ENABLED, Boolean.class) && isSpillEnabled(session);
+    }
+
+    public static boolean isRowNumberSpillEnabled(Session session)
+    {
+        return session.getSystemProperty(ROW_NUMBER_SPILL_ENABLED, Boolean.class) && isSpillEnabled(session);
+    }
+
     public static boolean isOrderBySpillEnabled(Session session)
     {
         return session.getSystemProperty(ORDER_BY_SPILL_ENABLED, Boolean.class) && isSpillEnabled(session);
     }
 
+    public static boolean isOrderByParallelSortEnabled(Session session)
+    {
+        return session.getSystemProperty(ORDER_BY_PARALLEL_SORT_ENABLED, Boolean.class);
+    }
+
+    public static boolean isJoinParallelHashBuildEnabled(Session session)
+    {
+        return session.getSystemProperty(JOIN_PARALLEL_HASH_BUILD_ENABLED, Boolean.class);
+    }
+
+    public static boolean isJoinBuildCacheEnabled(Session session)
+    {
+        return session.getSystemProperty(JOIN_BUILD_CACHE_ENABLED, Boolean.class);
+    }
+
+    public static boolean isFlatGroupByHashEnabled(Session session)
+    {
+        return session.getSystemProperty(FLAT_GROUP_BY_HASH_ENABLED, Boolean.class);
+    }
+
+    public static boolean isLocalExchangeZeroCopyPartitioningEnabled(Session session)
+    {
+        return session.getSystemProperty(LOCAL_EXCHANGE_ZERO_COPY_PARTITIONING_ENABLED, Boolean.class);
+    }
+
+    public static boolean isLocalExchangeWorkStealingEnabled(Session session)
+    {
+        return session.getSystemProperty(LOCAL_EXCHANGE_WORK_STEALING_ENABLED, Boolean.class);
+    }
+
+    public static boolean isPartitionedOutputSkewDetectionEnabled(Session session)
+    {
+        return session.getSystemProperty(PARTITIONED_OUTPUT_SKEW_DETECTION_ENABLED, Boolean.class);
+    }
+
+    public static boolean isAsyncRecordReadsEnabled(Session session)
+    {
+        return session.getSystemProperty(ASYNC_RECORD_READS_ENABLED, Boolean.class);
+    }
+
     public static DataSize getAggregationOperatorUnspillMemoryLimit(Session session)
     {
         DataSize memoryLimitForMerge = session.getSystemProperty(AGGREGATION_OPERATOR_UNSPILL_MEMORY_LIMIT, DataSize.class);
@@ -0,0 +1,229 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.airlift.log.Logger;
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.spi.ConnectorPageSource;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
+/**
+ * Reads the pages of a page source that does blocking I/O, such as a cursor over a remote
+ * database, on a separate executor. The driver is blocked on the read in progress instead
+ * of parking its runner thread, and the next page is read while the current one is processed.
+ * <p>
+ * The delegate is only ever accessed by one thread at a time, but not always the same one.
+ * Its stats are read by the thread that reads its pages, and the getters of this page source
+ * return the values of the last read, so they never call into the delegate concurrently.
+ */
+@ThreadSafe
+public class AsyncReadPageSource
+        implements ConnectorPageSource
+{
+    private static final Logger log = Logger.get(AsyncReadPageSource.class);
+
+    private final ConnectorPageSource delegate;
+    private final Executor executor;
+
+    @GuardedBy("this")
+    private CompletableFuture<ReadResult> pendingRead;
+    @GuardedBy("this")
+    private boolean finished;
+    @GuardedBy("this")
+    private boolean closed;
+
+    private final RuntimeStats runtimeStats;
+    private volatile long completedBytes;
+    private volatile long completedPositions;
+    private volatile long readTimeNanos;
+    private volatile long delegateMemoryUsage;
+    // a page that was read ahead and is not handed out yet
+    private volatile long pendingPageBytes;
+
+    public AsyncReadPageSource(ConnectorPageSource delegate, Executor executor)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        // nothing reads from the delegate yet
+        this.runtimeStats = delegate.getRuntimeStats();
+        recordStats();
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedBytes;
+    }
+
+    @Override
+    public long getCompletedPositions()
+    {
+        return completedPositions;
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos;
+    }
+
+    @Override
+    public synchronized boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public synchronized CompletableFuture<?> isBlocked()
+    {
+        if (finished) {
+            return NOT_BLOCKED;
+        }
+        if (pendingRead == null) {
+            startRead();
+        }
+        return pendingRead.isDone() ? NOT_BLOCKED : pendingRead;
+    }
+
+    @Override
+    public synchronized Page getNextPage()
+    {
+        if (finished) {
+            return null;
+        }
+        if (pendingRead == null) {
+            startRead();
+        }
+        if (!pendingRead.isDone()) {
+            return null;
+        }
+
+        // propagates the failure of the read
+        ReadResult result = getFutureValue(pendingRead);
+        pendingRead = null;
+        pendingPageBytes = 0;
+        if (result.isFinished()) {
+            finished = true;
+        }
+        else {
+            // read the next page while this one is processed
+            startRead();
+        }
+        return result.getPage();
+    }
+
+    @GuardedBy("this")
+    private void startRead()
+    {
+        pendingRead = supplyAsync(() -> {
+            Page page = delegate.getNextPage();
+            boolean finished = delegate.isFinished();
+            recordStats();
+            if (page != null) {
+                pendingPageBytes = page.getRetainedSizeInBytes();
+            }
+            return new ReadResult(page, finished);
+        }, executor);
+    }
+
+    private void recordStats()
+    {
+        completedBytes = delegate.getCompletedBytes();
+        completedPositions = delegate.getCompletedPositions();
+        readTimeNanos = delegate.getReadTimeNanos();
+        delegateMemoryUsage = delegate.getSystemMemoryUsage();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return delegateMemoryUsage + pendingPageBytes;
+    }
+
+    @Override
+    public RuntimeStats getRuntimeStats()
+    {
+        return runtimeStats;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        CompletableFuture<ReadResult> read;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            finished = true;
+            read = pendingRead;
+            pendingRead = null;
+        }
+        pendingPageBytes = 0;
+
+        if (read == null || read.isDone()) {
+            delegate.close();
+            return;
+        }
+        // closing the delegate while it is being read from is not safe
+        read.whenComplete((result, throwable) -> {
+            pendingPageBytes = 0;
+            closeDelegateQuietly();
+        });
+    }
+
+    private void closeDelegateQuietly()
+    {
+        try {
+            delegate.close();
+        }
+        catch (IOException | RuntimeException e) {
+            log.warn(e, "Failed to close page source");
+        }
+    }
+
+    private static class ReadResult
+    {
+        private final Page page;
+        private final boolean finished;
+
+        private ReadResult(Page page, boolean finished)
+        {
+            this.page = page;
+            this.finished = finished;
+        }
+
+        public Page getPage()
+        {
+            return page;
+        }
+
+        public boolean isFinished()
+        {
+            return finished;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.NodeProvider;
+import com.facebook.presto.spi.SplitWeight;
+import com.facebook.presto.spi.schedule.NodeSelectionStrategy;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import static com.facebook.presto.spi.SplitWeight.rawValueSum;
+import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.NO_PREFERENCE;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A group of small splits of the same connector, which are read one after the other by a single driver.
+ *
+ * @see SplitCoalescer
+ */
+public class CoalescedSplit
+        implements ConnectorSplit
+{
+    private final List<ConnectorSplit> splits;
+
+    @JsonCreator
+    public CoalescedSplit(@JsonProperty("splits") List<ConnectorSplit> splits)
+    {
+        this.splits = ImmutableList.copyOf(requireNonNull(splits, "splits is null"));
+        checkArgument(!this.splits.isEmpty(), "splits is empty");
+    }
+
+    @JsonProperty
+    public List<ConnectorSplit> getSplits()
+    {
+        return splits;
+    }
+
+    @Override
+    public NodeSelectionStrategy getNodeSelectionStrategy()
+    {
+        // only splits without node preference are coalesced
+        return NO_PREFERENCE;
+    }
+
+    @Override
+    public List<HostAddress> getPreferredNodes(NodeProvider nodeProvider)
+    {
+        return ImmutableList.of();
+    }
+
+    @Override
+    public Object getInfo()
+    {
+        // the info of a split may be null
+        return splits.stream()
+                .map(ConnectorSplit::getInfo)
+                .collect(toList());
+    }
+
+    @Override
+    public OptionalLong getSplitSizeInBytes()
+    {
+        long sizeInBytes = 0;
+        for (ConnectorSplit split : splits) {
+            OptionalLong splitSizeInBytes = split.getSplitSizeInBytes();
+            if (!splitSizeInBytes.isPresent()) {
+                return OptionalLong.empty();
+            }
+            sizeInBytes += splitSizeInBytes.getAsLong();
+        }
+        return OptionalLong.of(sizeInBytes);
+    }
+
+    @Override
+    public SplitWeight getSplitWeight()
+    {
+        return SplitWeight.fromRawValue(rawValueSum(splits, ConnectorSplit::getSplitWeight));
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("splits", splits)
+                .toString();
+    }
+}
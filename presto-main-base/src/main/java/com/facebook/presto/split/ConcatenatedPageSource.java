@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
+import com.facebook.presto.spi.ConnectorPageSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Returns the pages of a sequence of page sources one after the other. A page source is only
+ * created once the previous one is finished, and is closed as soon as it is finished, so at
+ * most one of them holds resources at a time.
+ * <p>
+ * This is not an {@link com.facebook.presto.spi.UpdatablePageSource}, so the splits of a scan
+ * that feeds a delete or an update are never coalesced.
+ */
+public class ConcatenatedPageSource
+        implements ConnectorPageSource
+{
+    private final Iterator<Supplier<ConnectorPageSource>> pageSources;
+
+    private ConnectorPageSource current;
+    private boolean closed;
+
+    // stats of the page sources that are already closed
+    private long completedBytes;
+    private long completedPositions;
+    private long readTimeNanos;
+    private final RuntimeStats runtimeStats = new RuntimeStats();
+
+    public ConcatenatedPageSource(Iterator<Supplier<ConnectorPageSource>> pageSources)
+    {
+        this.pageSources = requireNonNull(pageSources, "pageSources is null");
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedBytes + (current == null ? 0 : current.getCompletedBytes());
+    }
+
+    @Override
+    public long getCompletedPositions()
+    {
+        return completedPositions + (current == null ? 0 : current.getCompletedPositions());
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos + (current == null ? 0 : current.getReadTimeNanos());
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed || (current == null && !pageSources.hasNext());
+    }
+
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        return current == null ? NOT_BLOCKED : current.isBlocked();
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        while (!closed) {
+            if (current != null) {
+                if (!current.isFinished()) {
+                    return current.getNextPage();
+                }
+                closeCurrent();
+            }
+            if (!pageSources.hasNext()) {
+                return null;
+            }
+            current = pageSources.next().get();
+        }
+        return null;
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return current == null ? 0 : current.getSystemMemoryUsage();
+    }
+
+    @Override
+    public RuntimeStats getRuntimeStats()
+    {
+        if (current == null) {
+            return runtimeStats;
+        }
+        return RuntimeStats.merge(runtimeStats, current.getRuntimeStats());
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (current != null) {
+            ConnectorPageSource pageSource = current;
+            current = null;
+            pageSource.close();
+        }
+    }
+
+    private void closeCurrent()
+    {
+        ConnectorPageSource pageSource = current;
+        current = null;
+
+        completedBytes += pageSource.getCompletedBytes();
+        completedPositions += pageSource.getCompletedPositions();
+        readTimeNanos += pageSource.getReadTimeNanos();
+        runtimeStats.mergeWith(pageSource.getRuntimeStats());
+        try {
+            pageSource.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
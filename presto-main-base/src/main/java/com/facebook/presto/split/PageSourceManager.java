@@ -22,25 +22,55 @@ import com.facebook.presto.spi.ConnectorId;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.FixedPageSource;
+import com.facebook.presto.spi.RecordPageSource;
 import com.facebook.presto.spi.SplitContext;
 import com.facebook.presto.spi.TableHandle;
 import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
+import com.facebook.presto.sql.analyzer.JavaFeaturesConfig;
 import com.google.common.collect.ImmutableList;
 
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Supplier;
 
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isAsyncRecordReadsEnabled;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 
 public class PageSourceManager
         implements PageSourceProvider
 {
     private final ConcurrentMap<ConnectorId, ConnectorPageSourceProvider> pageSourceProviders = new ConcurrentHashMap<>();
+    // each thread blocks on a single remote read, and reads beyond the thread count wait in the queue with their drivers blocked
+    private final ExecutorService asyncReadExecutor;
+
+    public PageSourceManager()
+    {
+        this(new JavaFeaturesConfig());
+    }
+
+    @Inject
+    public PageSourceManager(JavaFeaturesConfig javaFeaturesConfig)
+    {
+        requireNonNull(javaFeaturesConfig, "javaFeaturesConfig is null");
+        this.asyncReadExecutor = newFixedThreadPool(javaFeaturesConfig.getAsyncRecordReadThreads(), daemonThreadsNamed("async-record-reader-%s"));
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        asyncReadExecutor.shutdownNow();
+    }
 
     public void addConnectorPageSourceProvider(ConnectorId connectorId, ConnectorPageSourceProvider pageSourceProvider)
     {
@@ -76,9 +106,24 @@ public class PageSourceManager
                     new SplitContext(split.getSplitContext().isCacheable(), dynamicFilter.get().get()));
         }
 
+        if (split.getConnectorSplit() instanceof CoalescedSplit) {
+            Split coalescedSplit = split;
+            Iterator<Supplier<ConnectorPageSource>> pageSources = ((CoalescedSplit) split.getConnectorSplit()).getSplits().stream()
+                    .map(connectorSplit -> new Split(
+                            coalescedSplit.getConnectorId(),
+                            coalescedSplit.getTransactionHandle(),
+                            connectorSplit,
+                            coalescedSplit.getLifespan(),
+                            coalescedSplit.getSplitContext()))
+                    .<Supplier<ConnectorPageSource>>map(childSplit -> () -> createPageSource(session, childSplit, table, columns, runtimeStats))
+                    .iterator();
+            return new ConcatenatedPageSource(pageSources);
+        }
+
         ConnectorSession connectorSession = session.toConnectorSession(split.getConnectorId());
+        ConnectorPageSource pageSource;
         if (table.getLayout().isPresent()) {
-            return getPageSourceProvider(split).createPageSource(
+            pageSource = getPageSourceProvider(split).createPageSource(
                     split.getTransactionHandle(),
                     connectorSession,
                     split.getConnectorSplit(),
@@ -87,7 +132,15 @@ public class PageSourceManager
                     split.getSplitContext(),
                     runtimeStats);
         }
-        return getPageSourceProvider(split).createPageSource(split.getTransactionHandle(), connectorSession, split.getConnectorSplit(), columns, split.getSplitContext());
+        else {
+            pageSource = getPageSourceProvider(split).createPageSource(split.getTransactionHandle(), connectorSession, split.getConnectorSplit(), columns, split.getSplitContext());
+        }
+
+        // record cursors have no way to signal that they are waiting on I/O
+        if (pageSource instanceof RecordPageSource && isAsyncRecordReadsEnabled(session)) {
+            return new AsyncReadPageSource(pageSource, asyncReadExecutor);
+        }
+        return pageSource;
     }
 
     private ConnectorPageSourceProvider getPageSourceProvider(Split split)
@@ -0,0 +1,216 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.presto.execution.Lifespan;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.connector.ConnectorPartitionHandle;
+import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.OptionalInt;
+
+import static com.facebook.presto.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Futures.addCallback;
+import static com.google.common.util.concurrent.Futures.immediateFailedFuture;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
+import static com.google.common.util.concurrent.Futures.transformAsync;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Fetches the splits of an ungrouped split source ahead of the scheduler, so that the enumeration
+ * of splits, such as listing directories or reading manifests, overlaps with the scheduling and
+ * execution of the splits already enumerated.
+ * <p>
+ * The number of splits fetched ahead starts at one batch of the scheduler, and doubles each time
+ * the scheduler has to wait for splits, up to {@code maxBufferedSplits}.
+ */
+@ThreadSafe
+public class PrefetchingSplitSource
+        implements SplitSource
+{
+    private final SplitSource source;
+    private final int maxBufferedSplits;
+
+    @GuardedBy("this")
+    private final Deque<Split> bufferedSplits = new ArrayDeque<>();
+    @GuardedBy("this")
+    private int targetBufferedSplits;
+    @GuardedBy("this")
+    private ListenableFuture<?> pendingFetch = immediateFuture(null);
+    @GuardedBy("this")
+    private boolean noMoreSplits;
+    @GuardedBy("this")
+    private Throwable failure;
+    @GuardedBy("this")
+    private boolean closed;
+
+    public PrefetchingSplitSource(SplitSource source, int maxBufferedSplits)
+    {
+        this.source = requireNonNull(source, "source is null");
+        checkArgument(maxBufferedSplits > 0, "maxBufferedSplits must be positive");
+        this.maxBufferedSplits = maxBufferedSplits;
+    }
+
+    @Override
+    public ConnectorId getConnectorId()
+    {
+        return source.getConnectorId();
+    }
+
+    @Override
+    public ConnectorTransactionHandle getTransactionHandle()
+    {
+        return source.getTransactionHandle();
+    }
+
+    @Override
+    public ListenableFuture<SplitBatch> getNextBatch(ConnectorPartitionHandle partitionHandle, Lifespan lifespan, int maxSize)
+    {
+        checkArgument(partitionHandle.equals(NOT_PARTITIONED) && lifespan.isTaskWide(), "Only ungrouped split sources can be prefetched");
+        checkArgument(maxSize > 0, "Cannot fetch a batch of zero size");
+
+        SplitBatch batch = null;
+        synchronized (this) {
+            checkState(!closed, "split source is closed");
+
+            // keep at least one batch ahead of the scheduler
+            targetBufferedSplits = max(targetBufferedSplits, min(maxSize, maxBufferedSplits));
+
+            if (!bufferedSplits.isEmpty() || noMoreSplits) {
+                ImmutableList.Builder<Split> splits = ImmutableList.builder();
+                for (int i = 0; i < maxSize && !bufferedSplits.isEmpty(); i++) {
+                    splits.add(bufferedSplits.poll());
+                }
+                batch = new SplitBatch(splits.build(), noMoreSplits && bufferedSplits.isEmpty());
+            }
+            else if (failure != null) {
+                return immediateFailedFuture(failure);
+            }
+            else {
+                // the scheduler consumes splits faster than they are fetched
+                targetBufferedSplits = min(max(targetBufferedSplits * 2, maxSize), maxBufferedSplits);
+            }
+        }
+
+        fetchSplits();
+        if (batch != null) {
+            return immediateFuture(batch);
+        }
+
+        ListenableFuture<?> fetchFuture;
+        synchronized (this) {
+            // the fetch may have completed already
+            fetchFuture = bufferedSplits.isEmpty() && !noMoreSplits ? pendingFetch : immediateFuture(null);
+        }
+        return transformAsync(nonCancellationPropagating(fetchFuture), ignored -> getNextBatch(partitionHandle, lifespan, maxSize), directExecutor());
+    }
+
+    private void fetchSplits()
+    {
+        // keep fetching until the buffer is full
+        while (true) {
+            int fetchSize;
+            SettableFuture<?> fetchFuture = SettableFuture.create();
+            synchronized (this) {
+                if (!pendingFetch.isDone() || noMoreSplits || failure != null || closed || bufferedSplits.size() >= targetBufferedSplits) {
+                    return;
+                }
+                fetchSize = targetBufferedSplits - bufferedSplits.size();
+                pendingFetch = fetchFuture;
+            }
+
+            // the source is called without holding the lock, as it may complete the future while holding its own locks
+            ListenableFuture<SplitBatch> batchFuture = source.getNextBatch(NOT_PARTITIONED, Lifespan.taskWide(), fetchSize);
+            // a batch that is already available is buffered by this loop, so a source that completes
+            // its batches immediately does not grow the stack with each batch
+            boolean completed = batchFuture.isDone();
+            addCallback(batchFuture, new FutureCallback<SplitBatch>()
+            {
+                @Override
+                public void onSuccess(SplitBatch batch)
+                {
+                    synchronized (PrefetchingSplitSource.this) {
+                        if (!closed) {
+                            bufferedSplits.addAll(batch.getSplits());
+                        }
+                        noMoreSplits = batch.isLastBatch();
+                    }
+                    fetchFuture.set(null);
+                    if (!completed) {
+                        fetchSplits();
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable throwable)
+                {
+                    synchronized (PrefetchingSplitSource.this) {
+                        failure = throwable;
+                    }
+                    fetchFuture.setException(throwable);
+                }
+            }, directExecutor());
+            if (!completed) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void rewind(ConnectorPartitionHandle partitionHandle)
+    {
+        source.rewind(partitionHandle);
+    }
+
+    @Override
+    public void close()
+    {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            bufferedSplits.clear();
+        }
+        source.close();
+    }
+
+    @Override
+    public synchronized boolean isFinished()
+    {
+        return noMoreSplits && bufferedSplits.isEmpty();
+    }
+
+    @Override
+    public synchronized OptionalInt getBufferedSplitCount()
+    {
+        return OptionalInt.of(bufferedSplits.size());
+    }
+}
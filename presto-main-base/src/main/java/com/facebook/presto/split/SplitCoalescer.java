@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.SplitWeight;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.NO_PREFERENCE;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+/**
+ * Groups adjacent splits that the connector weighs as smaller than a standard split into
+ * {@link CoalescedSplit}s of about the weight of a standard split, so that tables made of
+ * many small files do not cost a driver, split stats and a task update entry per file.
+ * <p>
+ * Splits with a node preference and cacheable splits are left as they are, since they
+ * are scheduled and cached based on their own identity.
+ */
+public final class SplitCoalescer
+{
+    // bounds the size of a coalesced split whatever the weights reported by the connector
+    static final int MAX_COALESCED_SPLITS = 64;
+
+    private static final long STANDARD_WEIGHT = SplitWeight.standard().getRawValue();
+
+    private SplitCoalescer() {}
+
+    public static List<Split> coalesceSplits(List<Split> splits)
+    {
+        ImmutableList.Builder<Split> result = ImmutableList.builderWithExpectedSize(splits.size());
+        List<Split> group = new ArrayList<>();
+        long groupWeight = 0;
+        for (Split split : splits) {
+            if (!isCoalescable(split)) {
+                result.add(split);
+                continue;
+            }
+            group.add(split);
+            groupWeight += split.getConnectorSplit().getSplitWeight().getRawValue();
+            if (groupWeight >= STANDARD_WEIGHT || group.size() == MAX_COALESCED_SPLITS) {
+                result.add(toSplit(group));
+                group.clear();
+                groupWeight = 0;
+            }
+        }
+        if (!group.isEmpty()) {
+            result.add(toSplit(group));
+        }
+        return result.build();
+    }
+
+    private static boolean isCoalescable(Split split)
+    {
+        ConnectorSplit connectorSplit = split.getConnectorSplit();
+        return !(connectorSplit instanceof EmptySplit) &&
+                !(connectorSplit instanceof CoalescedSplit) &&
+                !split.getSplitContext().isCacheable() &&
+                connectorSplit.getNodeSelectionStrategy() == NO_PREFERENCE &&
+                connectorSplit.getSplitWeight().getRawValue() < STANDARD_WEIGHT;
+    }
+
+    private static Split toSplit(List<Split> group)
+    {
+        Split first = group.get(0);
+        if (group.size() == 1) {
+            return first;
+        }
+        List<ConnectorSplit> connectorSplits = group.stream()
+                .map(Split::getConnectorSplit)
+                .collect(toImmutableList());
+        // splits of a batch share the connector, transaction and lifespan
+        return new Split(first.getConnectorId(), first.getTransactionHandle(), new CoalescedSplit(connectorSplits), first.getLifespan(), first.getSplitContext());
+    }
+}
@@ -37,6 +37,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import static com.facebook.presto.execution.scheduler.NodeSchedulerConfig.NetworkTopologyType.LEGACY;
+import static com.facebook.presto.spi.connector.ConnectorSplitManager.SplitSchedulingStrategy.UNGROUPED_SCHEDULING;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
@@ -45,6 +46,7 @@ public class SplitManager
 {
     private final ConcurrentMap<ConnectorId, ConnectorSplitManager> splitManagers = new ConcurrentHashMap<>();
     private final int minScheduleSplitBatchSize;
+    private final int maxPrefetchedSplits;
     private final Metadata metadata;
     private final boolean preferSplitHostAddresses;
 
@@ -53,6 +55,7 @@ public class SplitManager
     {
         this.metadata = metadata;
         this.minScheduleSplitBatchSize = config.getMinScheduleSplitBatchSize();
+        this.maxPrefetchedSplits = config.getMaxPrefetchedSplits();
         this.preferSplitHostAddresses = !nodeSchedulerConfig.getNetworkTopology().equals(LEGACY);
     }
 
@@ -96,6 +99,9 @@ public class SplitManager
         if (minScheduleSplitBatchSize > 1) {
             splitSource = new BufferingSplitSource(splitSource, minScheduleSplitBatchSize);
         }
+        if (maxPrefetchedSplits > 0 && splitSchedulingStrategy == UNGROUPED_SCHEDULING) {
+            splitSource = new PrefetchingSplitSource(splitSource, maxPrefetchedSplits);
+        }
         return splitSource;
     }
 
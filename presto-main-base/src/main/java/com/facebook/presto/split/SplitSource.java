@@ -22,6 +22,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.Closeable;
 import java.util.List;
+import java.util.OptionalInt;
 
 import static java.util.Objects.requireNonNull;
 
@@ -41,6 +42,15 @@ public interface SplitSource
 
     boolean isFinished();
 
+    /**
+     * Returns the number of splits fetched from the connector that are not yet returned by {@link #getNextBatch},
+     * or empty if the split source does not fetch splits ahead.
+     */
+    default OptionalInt getBufferedSplitCount()
+    {
+        return OptionalInt.empty();
+    }
+
     class SplitBatch
     {
         private final List<Split> splits;
@@ -44,6 +44,7 @@ import static com.facebook.presto.sql.analyzer.FeaturesConfig.TaskSpillingStrate
 import static com.facebook.presto.sql.expressions.ExpressionOptimizerManager.DEFAULT_EXPRESSION_OPTIMIZER_NAME;
 import static com.facebook.presto.sql.tree.CreateView.Security.DEFINER;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Objects.requireNonNull;
@@ -119,6 +120,8 @@ public class FeaturesConfig
     private boolean pushTableWriteThroughUnion = true;
     private CompressionCodec exchangeCompressionCodec = CompressionCodec.NONE;
     private boolean exchangeChecksumEnabled;
+    private boolean exchangeAdaptiveCompressionEnabled;
+    private boolean splitCoalescingEnabled;
     private boolean optimizeMixedDistinctAggregations;
     private boolean forceSingleNodeOutput = true;
     private boolean pagesIndexEagerCompactionEnabled;
@@ -165,6 +168,7 @@ public class FeaturesConfig
     private int dynamicFilteringMaxPerDriverRowCount = 100;
     private DataSize dynamicFilteringMaxPerDriverSize = new DataSize(10, KILOBYTE);
     private int dynamicFilteringRangeRowLimitPerDriver;
+    private DataSize dynamicFilteringBloomFilterSize = new DataSize(0, BYTE);
 
     private boolean fragmentResultCachingEnabled;
 
@@ -202,6 +206,8 @@ public class FeaturesConfig
     private boolean spoolingOutputBufferEnabled;
     private DataSize spoolingOutputBufferThreshold = new DataSize(8, MEGABYTE);
     private String spoolingOutputBufferTempStorage = "local";
+    private boolean spoolingPartitionedOutputBufferEnabled;
+    private int spoolingPartitionedOutputBufferThreads = 8;
 
     private String warnOnNoTableLayoutFilter = "";
 
@@ -246,6 +252,8 @@ public class FeaturesConfig
     private RandomizeOuterJoinNullKeyStrategy randomizeOuterJoinNullKeyStrategy = RandomizeOuterJoinNullKeyStrategy.DISABLED;
     private ShardedJoinStrategy shardedJoinStrategy = ShardedJoinStrategy.DISABLED;
     private int joinShardCount = 100;
+    private boolean saltAggregationKeys;
+    private int aggregationKeySaltCount = 8;
     private boolean isOptimizeConditionalAggregationEnabled;
     private boolean isRemoveRedundantDistinctAggregationEnabled = true;
     private boolean inPredicatesAsInnerJoinsEnabled;
@@ -1468,6 +1476,20 @@ public class FeaturesConfig
         return this;
     }
 
+    @MaxDataSize("4MB")
+    public DataSize getDynamicFilteringBloomFilterSize()
+    {
+        return dynamicFilteringBloomFilterSize;
+    }
+
+    @Config("dynamic-filtering-bloom-filter-size")
+    @ConfigDescription("Size of the Bloom filter collected per driver and join key for dynamic filtering, used when there are too many build-side values for an exact filter. Zero disables Bloom filters")
+    public FeaturesConfig setDynamicFilteringBloomFilterSize(DataSize dynamicFilteringBloomFilterSize)
+    {
+        this.dynamicFilteringBloomFilterSize = dynamicFilteringBloomFilterSize;
+        return this;
+    }
+
     public boolean isFragmentResultCachingEnabled()
     {
         return fragmentResultCachingEnabled;
@@ -1518,6 +1540,32 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isExchangeAdaptiveCompressionEnabled()
+    {
+        return exchangeAdaptiveCompressionEnabled;
+    }
+
+    @Config("exchange.adaptive-compression-enabled")
+    @ConfigDescription("Skip compressing exchange pages that are small or do not compress well")
+    public FeaturesConfig setExchangeAdaptiveCompressionEnabled(boolean exchangeAdaptiveCompressionEnabled)
+    {
+        this.exchangeAdaptiveCompressionEnabled = exchangeAdaptiveCompressionEnabled;
+        return this;
+    }
+
+    public boolean isSplitCoalescingEnabled()
+    {
+        return splitCoalescingEnabled;
+    }
+
+    @Config("split-coalescing-enabled")
+    @ConfigDescription("Read small splits of a source stage together in a single driver")
+    public FeaturesConfig setSplitCoalescingEnabled(boolean splitCoalescingEnabled)
+    {
+        this.splitCoalescingEnabled = splitCoalescingEnabled;
+        return this;
+    }
+
     public boolean isEnableIntermediateAggregations()
     {
         return enableIntermediateAggregations;
@@ -1988,6 +2036,33 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isSpoolingPartitionedOutputBufferEnabled()
+    {
+        return spoolingPartitionedOutputBufferEnabled;
+    }
+
+    @Config("spooling-output-buffer-partitioned-enabled")
+    @ConfigDescription("Spool the partitioned output of tasks to temp storage instead of keeping it in memory until it is consumed")
+    public FeaturesConfig setSpoolingPartitionedOutputBufferEnabled(boolean spoolingPartitionedOutputBufferEnabled)
+    {
+        this.spoolingPartitionedOutputBufferEnabled = spoolingPartitionedOutputBufferEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getSpoolingPartitionedOutputBufferThreads()
+    {
+        return spoolingPartitionedOutputBufferThreads;
+    }
+
+    @Config("spooling-output-buffer-partitioned-threads")
+    @ConfigDescription("Number of threads used by the spooling partitioned output buffers to write and read temp storage")
+    public FeaturesConfig setSpoolingPartitionedOutputBufferThreads(int spoolingPartitionedOutputBufferThreads)
+    {
+        this.spoolingPartitionedOutputBufferThreads = spoolingPartitionedOutputBufferThreads;
+        return this;
+    }
+
     public boolean isPrestoSparkAssignBucketToPartitionForPartitionedTableWriteEnabled()
     {
         return prestoSparkAssignBucketToPartitionForPartitionedTableWriteEnabled;
@@ -2407,6 +2482,33 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isSaltAggregationKeys()
+    {
+        return saltAggregationKeys;
+    }
+
+    @Config("optimizer.salt-aggregation-keys")
+    @ConfigDescription("Spread each grouping key over several tasks before the final aggregation to mitigate skew")
+    public FeaturesConfig setSaltAggregationKeys(boolean saltAggregationKeys)
+    {
+        this.saltAggregationKeys = saltAggregationKeys;
+        return this;
+    }
+
+    @Min(1)
+    public int getAggregationKeySaltCount()
+    {
+        return aggregationKeySaltCount;
+    }
+
+    @Config("optimizer.aggregation-key-salt-count")
+    @ConfigDescription("Number of tasks each grouping key is spread over when aggregation keys are salted")
+    public FeaturesConfig setAggregationKeySaltCount(int aggregationKeySaltCount)
+    {
+        this.aggregationKeySaltCount = aggregationKeySaltCount;
+        return this;
+    }
+
     public boolean isOptimizeConditionalAggregationEnabled()
     {
         return isOptimizeConditionalAggregationEnabled;
@@ -17,6 +17,9 @@ import com.facebook.airlift.configuration.Config;
 import com.facebook.airlift.configuration.ConfigDescription;
 import io.airlift.units.DataSize;
 
+import javax.validation.constraints.Min;
+
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 public class JavaFeaturesConfig
@@ -28,7 +31,21 @@ public class JavaFeaturesConfig
     private boolean distinctAggregationLargeBlockSpillEnabled;
     private boolean orderByAggregationSpillEnabled = true;
     private boolean orderBySpillEnabled = true;
+    private boolean orderByParallelSortEnabled;
+    private int parallelOperatorThreads = Runtime.getRuntime().availableProcessors();
+    private boolean joinParallelHashBuildEnabled;
+    private boolean joinBuildCacheEnabled;
+    private boolean flatGroupByHashEnabled;
+    private boolean localExchangeZeroCopyPartitioningEnabled;
+    private boolean localExchangeWorkStealingEnabled;
+    private boolean partitionedOutputSkewDetectionEnabled;
+    private boolean asyncRecordReadsEnabled;
+    private int asyncRecordReadThreads = 32;
+    private DataSize joinBuildCacheMaxSize = new DataSize(1, GIGABYTE);
     private boolean windowSpillEnabled = true;
+    private boolean markDistinctSpillEnabled;
+    private boolean distinctLimitSpillEnabled;
+    private boolean rowNumberSpillEnabled;
     private DataSize distinctAggregationLargeBlockSizeThreshold = new DataSize(50, MEGABYTE);
     private DataSize topNOperatorUnspillMemoryLimit = new DataSize(4, MEGABYTE);
     private DataSize aggregationOperatorUnspillMemoryLimit = new DataSize(4, MEGABYTE);
@@ -46,6 +63,151 @@ public class JavaFeaturesConfig
         return this;
     }
 
+    public boolean isOrderByParallelSortEnabled()
+    {
+        return orderByParallelSortEnabled;
+    }
+
+    @Config("experimental.order-by-parallel-sort-enabled")
+    @ConfigDescription("Sort large order by inputs using multiple threads")
+    public JavaFeaturesConfig setOrderByParallelSortEnabled(boolean orderByParallelSortEnabled)
+    {
+        this.orderByParallelSortEnabled = orderByParallelSortEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getParallelOperatorThreads()
+    {
+        return parallelOperatorThreads;
+    }
+
+    @Config("experimental.parallel-operator-threads")
+    @ConfigDescription("Number of threads of the worker pool used by parallel sorts and hash builds")
+    public JavaFeaturesConfig setParallelOperatorThreads(int parallelOperatorThreads)
+    {
+        this.parallelOperatorThreads = parallelOperatorThreads;
+        return this;
+    }
+
+    public boolean isJoinParallelHashBuildEnabled()
+    {
+        return joinParallelHashBuildEnabled;
+    }
+
+    @Config("experimental.join-parallel-hash-build-enabled")
+    @ConfigDescription("Hash large join build sides using multiple threads")
+    public JavaFeaturesConfig setJoinParallelHashBuildEnabled(boolean joinParallelHashBuildEnabled)
+    {
+        this.joinParallelHashBuildEnabled = joinParallelHashBuildEnabled;
+        return this;
+    }
+
+    public boolean isJoinBuildCacheEnabled()
+    {
+        return joinBuildCacheEnabled;
+    }
+
+    @Config("experimental.join-build-cache-enabled")
+    @ConfigDescription("Reuse hash tables built over identical join build sides across queries")
+    public JavaFeaturesConfig setJoinBuildCacheEnabled(boolean joinBuildCacheEnabled)
+    {
+        this.joinBuildCacheEnabled = joinBuildCacheEnabled;
+        return this;
+    }
+
+    public DataSize getJoinBuildCacheMaxSize()
+    {
+        return joinBuildCacheMaxSize;
+    }
+
+    @Config("experimental.join-build-cache-max-size")
+    @ConfigDescription("Maximum memory used by the worker to retain join hash tables for reuse")
+    public JavaFeaturesConfig setJoinBuildCacheMaxSize(DataSize joinBuildCacheMaxSize)
+    {
+        this.joinBuildCacheMaxSize = joinBuildCacheMaxSize;
+        return this;
+    }
+
+    public boolean isFlatGroupByHashEnabled()
+    {
+        return flatGroupByHashEnabled;
+    }
+
+    @Config("experimental.flat-group-by-hash-enabled")
+    @ConfigDescription("Group by fixed-width keys using a hash table that stores the keys in flat rows")
+    public JavaFeaturesConfig setFlatGroupByHashEnabled(boolean flatGroupByHashEnabled)
+    {
+        this.flatGroupByHashEnabled = flatGroupByHashEnabled;
+        return this;
+    }
+
+    public boolean isLocalExchangeZeroCopyPartitioningEnabled()
+    {
+        return localExchangeZeroCopyPartitioningEnabled;
+    }
+
+    @Config("experimental.local-exchange-zero-copy-partitioning-enabled")
+    @ConfigDescription("Partition pages in local exchanges by passing views over the positions of the input page instead of copying them")
+    public JavaFeaturesConfig setLocalExchangeZeroCopyPartitioningEnabled(boolean localExchangeZeroCopyPartitioningEnabled)
+    {
+        this.localExchangeZeroCopyPartitioningEnabled = localExchangeZeroCopyPartitioningEnabled;
+        return this;
+    }
+
+    public boolean isLocalExchangeWorkStealingEnabled()
+    {
+        return localExchangeWorkStealingEnabled;
+    }
+
+    @Config("experimental.local-exchange-work-stealing-enabled")
+    @ConfigDescription("Let idle consumers of arbitrarily distributed local exchanges take pages buffered for other consumers")
+    public JavaFeaturesConfig setLocalExchangeWorkStealingEnabled(boolean localExchangeWorkStealingEnabled)
+    {
+        this.localExchangeWorkStealingEnabled = localExchangeWorkStealingEnabled;
+        return this;
+    }
+
+    public boolean isPartitionedOutputSkewDetectionEnabled()
+    {
+        return partitionedOutputSkewDetectionEnabled;
+    }
+
+    @Config("experimental.partitioned-output-skew-detection-enabled")
+    @ConfigDescription("Track the data sent to each partition and the most frequent partitioning keys in partitioned outputs, and report the skew in the operator stats")
+    public JavaFeaturesConfig setPartitionedOutputSkewDetectionEnabled(boolean partitionedOutputSkewDetectionEnabled)
+    {
+        this.partitionedOutputSkewDetectionEnabled = partitionedOutputSkewDetectionEnabled;
+        return this;
+    }
+
+    public boolean isAsyncRecordReadsEnabled()
+    {
+        return asyncRecordReadsEnabled;
+    }
+
+    @Config("experimental.async-record-reads-enabled")
+    @ConfigDescription("Read from record cursor based connectors on a separate thread pool, so that drivers yield instead of blocking a runner thread on remote I/O")
+    public JavaFeaturesConfig setAsyncRecordReadsEnabled(boolean asyncRecordReadsEnabled)
+    {
+        this.asyncRecordReadsEnabled = asyncRecordReadsEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getAsyncRecordReadThreads()
+    {
+        return asyncRecordReadThreads;
+    }
+
+    @Config("experimental.async-record-read-threads")
+    @ConfigDescription("Number of threads that read from record cursor based connectors when async record reads are enabled")
+    public JavaFeaturesConfig setAsyncRecordReadThreads(int asyncRecordReadThreads)
+    {
+        this.asyncRecordReadThreads = asyncRecordReadThreads;
+        return this;
+    }
+
     public boolean isWindowSpillEnabled()
     {
         return windowSpillEnabled;
@@ -59,6 +221,45 @@ public class JavaFeaturesConfig
         return this;
     }
 
+    public boolean isMarkDistinctSpillEnabled()
+    {
+        return markDistinctSpillEnabled;
+    }
+
+    @Config("experimental.mark-distinct-spill-enabled")
+    @ConfigDescription("Enable MarkDistinct Operator Spilling if spill is enabled")
+    public JavaFeaturesConfig setMarkDistinctSpillEnabled(boolean markDistinctSpillEnabled)
+    {
+        this.markDistinctSpillEnabled = markDistinctSpillEnabled;
+        return this;
+    }
+
+    public boolean isDistinctLimitSpillEnabled()
+    {
+        return distinctLimitSpillEnabled;
+    }
+
+    @Config("experimental.distinct-limit-spill-enabled")
+    @ConfigDescription("Enable DistinctLimit Operator Spilling if spill is enabled")
+    public JavaFeaturesConfig setDistinctLimitSpillEnabled(boolean distinctLimitSpillEnabled)
+    {
+        this.distinctLimitSpillEnabled = distinctLimitSpillEnabled;
+        return this;
+    }
+
+    public boolean isRowNumberSpillEnabled()
+    {
+        return rowNumberSpillEnabled;
+    }
+
+    @Config("experimental.row-number-spill-enabled")
+    @ConfigDescription("Enable RowNumber Operator Spilling if spill is enabled")
+    public JavaFeaturesConfig setRowNumberSpillEnabled(boolean rowNumberSpillEnabled)
+    {
+        this.rowNumberSpillEnabled = rowNumberSpillEnabled;
+        return this;
+    }
+
     public boolean isOrderByAggregationSpillEnabled()
     {
         return orderByAggregationSpillEnabled;
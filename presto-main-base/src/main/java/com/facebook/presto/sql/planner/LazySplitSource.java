@@ -22,6 +22,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 
 import javax.annotation.concurrent.GuardedBy;
 
+import java.util.OptionalInt;
 import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -72,6 +73,15 @@ public class LazySplitSource
         return getDelegate().isFinished();
     }
 
+    @Override
+    public synchronized OptionalInt getBufferedSplitCount()
+    {
+        if (delegate == null) {
+            return OptionalInt.empty();
+        }
+        return delegate.getBufferedSplitCount();
+    }
+
     @Override
     public synchronized void close()
     {
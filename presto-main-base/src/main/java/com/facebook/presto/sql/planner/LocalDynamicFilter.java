@@ -13,10 +13,14 @@
  */
 package com.facebook.presto.sql.planner;
 
+import com.facebook.presto.common.predicate.DiscreteValues;
 import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.Range;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.expressions.DynamicFilters.DynamicFilterExtractResult;
 import com.facebook.presto.expressions.DynamicFilters.DynamicFilterPlaceholder;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.BlockedBloomFilter;
 import com.facebook.presto.spi.plan.AbstractJoinNode;
 import com.facebook.presto.spi.plan.FilterNode;
 import com.facebook.presto.spi.plan.PlanNode;
@@ -35,7 +39,9 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 
+import static com.facebook.presto.common.function.OperatorType.EQUAL;
 import static com.facebook.presto.expressions.DynamicFilters.extractDynamicFilters;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Verify.verify;
 import static java.util.Objects.requireNonNull;
@@ -57,7 +63,23 @@ public class LocalDynamicFilter
     // The resulting predicates from each build-side partition.
     private final List<TupleDomain<String>> partitions;
 
+    private final SettableFuture<Map<VariableReferenceExpression, BlockedBloomFilter>> bloomFilterResultFuture;
+
+    // The Bloom filters from each build-side partition (may be empty if Bloom filters are disabled).
+    private final List<Map<String, BlockedBloomFilter>> bloomFilterPartitions;
+
+    // Accounts for the Bloom filters of the partitions until they are merged.
+    private final LocalMemoryContext bloomFilterMemoryContext;
+
+    // The union of all partitions' predicates, available once all of them are collected.
+    private TupleDomain<String> mergedPredicate;
+
     public LocalDynamicFilter(Multimap<String, DynamicFilterPlaceholder> probeVariables, Map<String, Integer> buildChannels, int partitionCount)
+    {
+        this(probeVariables, buildChannels, partitionCount, newSimpleAggregatedMemoryContext().newLocalMemoryContext(LocalDynamicFilter.class.getSimpleName()));
+    }
+
+    public LocalDynamicFilter(Multimap<String, DynamicFilterPlaceholder> probeVariables, Map<String, Integer> buildChannels, int partitionCount, LocalMemoryContext bloomFilterMemoryContext)
     {
         this.probeVariables = requireNonNull(probeVariables, "probeVariables is null");
         this.buildChannels = requireNonNull(buildChannels, "buildChannels is null");
@@ -67,6 +89,10 @@ public class LocalDynamicFilter
 
         this.partitionCount = partitionCount;
         this.partitions = new ArrayList<>(partitionCount);
+
+        this.bloomFilterResultFuture = SettableFuture.create();
+        this.bloomFilterPartitions = new ArrayList<>(partitionCount);
+        this.bloomFilterMemoryContext = requireNonNull(bloomFilterMemoryContext, "bloomFilterMemoryContext is null");
     }
 
     private synchronized void addPartition(TupleDomain<String> tupleDomain)
@@ -78,11 +104,73 @@ public class LocalDynamicFilter
         partitions.add(tupleDomain);
         if (partitions.size() == partitionCount) {
             // No more partitions are left to be processed.
-            TupleDomain<VariableReferenceExpression> result = convertTupleDomain(TupleDomain.columnWiseUnion(partitions));
+            mergedPredicate = TupleDomain.columnWiseUnion(partitions);
+            TupleDomain<VariableReferenceExpression> result = convertTupleDomain(mergedPredicate);
             verify(resultFuture.set(result), "dynamic filter result is provided more than once");
         }
     }
 
+    private synchronized void addBloomFilterPartition(Map<String, BlockedBloomFilter> bloomFilters)
+    {
+        // Called by each DynamicFilterSourceOperator instance after it has provided its predicate.
+        verify(!bloomFilterResultFuture.isDone(), "Bloom filter result is provided more than once");
+        verify(bloomFilterPartitions.size() < partitionCount);
+        bloomFilterPartitions.add(bloomFilters);
+        if (bloomFilterPartitions.size() == partitionCount) {
+            verify(mergedPredicate != null, "Bloom filters are provided before the predicate");
+            Map<VariableReferenceExpression, BlockedBloomFilter> result = mergeBloomFilters();
+            // the merged Bloom filters are accounted by the collector they are published to
+            bloomFilterPartitions.clear();
+            bloomFilterMemoryContext.close();
+            verify(bloomFilterResultFuture.set(result), "Bloom filter result is provided more than once");
+            return;
+        }
+        bloomFilterMemoryContext.setBytes(bloomFilterMemoryContext.getBytes() + bloomFilters.values().stream()
+                .mapToLong(BlockedBloomFilter::getRetainedSizeInBytes)
+                .sum());
+    }
+
+    private Map<VariableReferenceExpression, BlockedBloomFilter> mergeBloomFilters()
+    {
+        if (mergedPredicate.isNone()) {
+            return ImmutableMap.of();
+        }
+        ImmutableMap.Builder<VariableReferenceExpression, BlockedBloomFilter> builder = ImmutableMap.builder();
+        for (String filterId : buildChannels.keySet()) {
+            Domain domain = mergedPredicate.getDomains().get().get(filterId);
+            if (domain != null && isDiscreteSet(domain)) {
+                // the exact values are a better filter than the Bloom filter
+                continue;
+            }
+            if (!bloomFilterPartitions.stream().allMatch(partition -> partition.containsKey(filterId))) {
+                continue;
+            }
+            // the operators hand over their filters, so a single partition doesn't need to be copied
+            BlockedBloomFilter bloomFilter = bloomFilterPartitions.get(0).get(filterId);
+            if (bloomFilterPartitions.size() > 1) {
+                bloomFilter = bloomFilter.copy();
+                for (int partition = 1; partition < bloomFilterPartitions.size(); partition++) {
+                    bloomFilter.union(bloomFilterPartitions.get(partition).get(filterId));
+                }
+            }
+            for (DynamicFilterPlaceholder placeholder : probeVariables.get(filterId)) {
+                // Bloom filters can only answer equality
+                if (placeholder.getOperator() == EQUAL) {
+                    builder.put((VariableReferenceExpression) placeholder.getInput(), bloomFilter);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private static boolean isDiscreteSet(Domain domain)
+    {
+        return domain.getValues().getValuesProcessor().transform(
+                ranges -> ranges.getOrderedRanges().stream().allMatch(Range::isSingleValue),
+                DiscreteValues::isWhiteList,
+                allOrNone -> !allOrNone.isAll());
+    }
+
     private TupleDomain<VariableReferenceExpression> convertTupleDomain(TupleDomain<String> result)
     {
         if (result.isNone()) {
@@ -103,6 +191,11 @@ public class LocalDynamicFilter
     }
 
     public static Optional<LocalDynamicFilter> create(AbstractJoinNode planNode, int partitionCount)
+    {
+        return create(planNode, partitionCount, newSimpleAggregatedMemoryContext().newLocalMemoryContext(LocalDynamicFilter.class.getSimpleName()));
+    }
+
+    public static Optional<LocalDynamicFilter> create(AbstractJoinNode planNode, int partitionCount, LocalMemoryContext bloomFilterMemoryContext)
     {
         Set<String> joinDynamicFilters = planNode.getDynamicFilters().keySet();
         List<FilterNode> filterNodes = PlanNodeSearcher
@@ -143,7 +236,7 @@ public class LocalDynamicFilter
         if (buildChannels.isEmpty()) {
             return Optional.empty();
         }
-        return Optional.of(new LocalDynamicFilter(probeVariables, buildChannels, partitionCount));
+        return Optional.of(new LocalDynamicFilter(probeVariables, buildChannels, partitionCount, bloomFilterMemoryContext));
     }
 
     public Map<String, Integer> getBuildChannels()
@@ -161,6 +254,16 @@ public class LocalDynamicFilter
         return this::addPartition;
     }
 
+    public ListenableFuture<Map<VariableReferenceExpression, BlockedBloomFilter>> getBloomFilterResultFuture()
+    {
+        return bloomFilterResultFuture;
+    }
+
+    public Consumer<Map<String, BlockedBloomFilter>> getBloomFilterConsumer()
+    {
+        return this::addBloomFilterPartition;
+    }
+
     @Override
     public String toString()
     {
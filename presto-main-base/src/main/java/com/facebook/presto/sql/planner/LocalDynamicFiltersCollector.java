@@ -14,11 +14,20 @@
 package com.facebook.presto.sql.planner;
 
 import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.BlockedBloomFilter;
 import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.google.common.collect.ImmutableMap;
 
 import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static java.util.Objects.requireNonNull;
+
 @ThreadSafe
 public class LocalDynamicFiltersCollector
 {
@@ -29,9 +38,25 @@ public class LocalDynamicFiltersCollector
     @GuardedBy ("this")
     private TupleDomain<VariableReferenceExpression> predicate;
 
+    /**
+     * Bloom filters for the join keys whose build-side values were too many
+     * to be represented exactly by the predicate.
+     */
+    @GuardedBy("this")
+    private Map<VariableReferenceExpression, BlockedBloomFilter> bloomFilters;
+
+    private final LocalMemoryContext bloomFilterMemoryContext;
+
     public LocalDynamicFiltersCollector()
+    {
+        this(newSimpleAggregatedMemoryContext().newLocalMemoryContext(LocalDynamicFiltersCollector.class.getSimpleName()));
+    }
+
+    public LocalDynamicFiltersCollector(LocalMemoryContext bloomFilterMemoryContext)
     {
         this.predicate = TupleDomain.all();
+        this.bloomFilters = ImmutableMap.of();
+        this.bloomFilterMemoryContext = requireNonNull(bloomFilterMemoryContext, "bloomFilterMemoryContext is null");
     }
 
     public synchronized TupleDomain<VariableReferenceExpression> getPredicate()
@@ -43,4 +68,32 @@ public class LocalDynamicFiltersCollector
     {
         this.predicate = this.predicate.intersect(predicate);
     }
+
+    public synchronized Map<VariableReferenceExpression, BlockedBloomFilter> getBloomFilters()
+    {
+        return bloomFilters;
+    }
+
+    public synchronized void intersectBloomFilters(Map<VariableReferenceExpression, BlockedBloomFilter> bloomFilters)
+    {
+        if (bloomFilters.isEmpty()) {
+            return;
+        }
+        // the published map and its filters are never modified, so readers don't need to copy them
+        // and a filter is only copied when it has to be intersected with an already published one
+        Map<VariableReferenceExpression, BlockedBloomFilter> result = new HashMap<>(this.bloomFilters);
+        for (Map.Entry<VariableReferenceExpression, BlockedBloomFilter> entry : bloomFilters.entrySet()) {
+            BlockedBloomFilter bloomFilter = entry.getValue();
+            BlockedBloomFilter existing = result.get(entry.getKey());
+            if (existing != null) {
+                bloomFilter = bloomFilter.copy();
+                bloomFilter.intersect(existing);
+            }
+            result.put(entry.getKey(), bloomFilter);
+        }
+        this.bloomFilters = ImmutableMap.copyOf(result);
+        bloomFilterMemoryContext.setBytes(this.bloomFilters.values().stream()
+                .mapToLong(BlockedBloomFilter::getRetainedSizeInBytes)
+                .sum());
+    }
 }
@@ -46,6 +46,7 @@ import com.facebook.presto.expressions.DynamicFilters.DynamicFilterPlaceholder;
 import com.facebook.presto.expressions.LogicalRowExpressions;
 import com.facebook.presto.index.IndexManager;
 import com.facebook.presto.memory.MemoryManagerConfig;
+import com.facebook.presto.memory.context.MemoryTrackingContext;
 import com.facebook.presto.metadata.AnalyzeTableHandle;
 import com.facebook.presto.metadata.BuiltInFunctionHandle;
 import com.facebook.presto.metadata.ConnectorMetadataUpdaterManager;
@@ -53,6 +54,7 @@ import com.facebook.presto.metadata.FunctionAndTypeManager;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.operator.AggregationOperator.AggregationOperatorFactory;
 import com.facebook.presto.operator.AssignUniqueIdOperator;
+import com.facebook.presto.operator.BlockedBloomFilter;
 import com.facebook.presto.operator.DeleteOperator.DeleteOperatorFactory;
 import com.facebook.presto.operator.DevNullOperator.DevNullOperatorFactory;
 import com.facebook.presto.operator.DriverFactory;
@@ -66,6 +68,7 @@ import com.facebook.presto.operator.HashAggregationOperator.HashAggregationOpera
 import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFactory;
 import com.facebook.presto.operator.HashSemiJoinOperator.HashSemiJoinOperatorFactory;
 import com.facebook.presto.operator.JoinBridgeManager;
+import com.facebook.presto.operator.JoinBuildCache;
 import com.facebook.presto.operator.JoinOperatorFactory;
 import com.facebook.presto.operator.JoinOperatorFactory.OuterOperatorFactoryResult;
 import com.facebook.presto.operator.LimitOperator.LimitOperatorFactory;
@@ -83,6 +86,7 @@ import com.facebook.presto.operator.OutputFactory;
 import com.facebook.presto.operator.PageSinkCommitStrategy;
 import com.facebook.presto.operator.PagesIndex;
 import com.facebook.presto.operator.PagesSpatialIndexFactory;
+import com.facebook.presto.operator.ParallelOperatorPool;
 import com.facebook.presto.operator.PartitionFunction;
 import com.facebook.presto.operator.PartitionedLookupSourceFactory;
 import com.facebook.presto.operator.PipelineExecutionStrategy;
@@ -235,6 +239,7 @@ import com.google.common.collect.SetMultimap;
 import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
 
+import javax.annotation.concurrent.GuardedBy;
 import javax.inject.Inject;
 
 import java.util.ArrayList;
@@ -256,6 +261,7 @@ import java.util.stream.IntStream;
 
 import static com.facebook.airlift.concurrent.MoreFutures.addSuccessCallback;
 import static com.facebook.presto.SystemSessionProperties.getAdaptivePartialAggregationRowsReductionRatioThreshold;
+import static com.facebook.presto.SystemSessionProperties.getDynamicFilteringBloomFilterSize;
 import static com.facebook.presto.SystemSessionProperties.getDynamicFilteringMaxPerDriverRowCount;
 import static com.facebook.presto.SystemSessionProperties.getDynamicFilteringMaxPerDriverSize;
 import static com.facebook.presto.SystemSessionProperties.getDynamicFilteringRangeRowLimitPerDriver;
@@ -268,6 +274,7 @@ import static com.facebook.presto.SystemSessionProperties.getTaskPartitionedWrit
 import static com.facebook.presto.SystemSessionProperties.getTaskWriterCount;
 import static com.facebook.presto.SystemSessionProperties.isAdaptivePartialAggregationEnabled;
 import static com.facebook.presto.SystemSessionProperties.isEnableDynamicFiltering;
+import static com.facebook.presto.SystemSessionProperties.isExchangeAdaptiveCompressionEnabled;
 import static com.facebook.presto.SystemSessionProperties.isExchangeChecksumEnabled;
 import static com.facebook.presto.SystemSessionProperties.isJoinSpillingEnabled;
 import static com.facebook.presto.SystemSessionProperties.isNativeExecutionEnabled;
@@ -306,8 +313,13 @@ import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionProp
 import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.getTopNOperatorUnspillMemoryLimit;
 import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isAggregationSpillEnabled;
 import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isDistinctAggregationSpillEnabled;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isDistinctLimitSpillEnabled;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isJoinParallelHashBuildEnabled;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isMarkDistinctSpillEnabled;
 import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isOrderByAggregationSpillEnabled;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isOrderByParallelSortEnabled;
 import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isOrderBySpillEnabled;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isRowNumberSpillEnabled;
 import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isTopNSpillEnabled;
 import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.isWindowSpillEnabled;
 import static com.facebook.presto.spi.StandardErrorCode.COMPILER_ERROR;
@@ -386,6 +398,8 @@ public class LocalExecutionPlanner
     private final JsonCodec<TableCommitContext> tableCommitContextCodec;
     private final LogicalRowExpressions logicalRowExpressions;
     private final FragmentResultCacheManager fragmentResultCacheManager;
+    private final JoinBuildCache joinBuildCache;
+    private final ParallelOperatorPool parallelOperatorPool;
     private final ObjectMapper sortedMapObjectMapper;
     private final boolean tableFinishOperatorMemoryTrackingEnabled;
     private final StandaloneSpillerFactory standaloneSpillerFactory;
@@ -421,6 +435,8 @@ public class LocalExecutionPlanner
             JsonCodec<TableCommitContext> tableCommitContextCodec,
             DeterminismEvaluator determinismEvaluator,
             FragmentResultCacheManager fragmentResultCacheManager,
+            JoinBuildCache joinBuildCache,
+            ParallelOperatorPool parallelOperatorPool,
             ObjectMapper objectMapper,
             StandaloneSpillerFactory standaloneSpillerFactory)
     {
@@ -454,6 +470,8 @@ public class LocalExecutionPlanner
                 new FunctionResolution(metadata.getFunctionAndTypeManager().getFunctionAndTypeResolver()),
                 metadata.getFunctionAndTypeManager());
         this.fragmentResultCacheManager = requireNonNull(fragmentResultCacheManager, "fragmentResultCacheManager is null");
+        this.joinBuildCache = requireNonNull(joinBuildCache, "joinBuildCache is null");
+        this.parallelOperatorPool = requireNonNull(parallelOperatorPool, "parallelOperatorPool is null");
         this.sortedMapObjectMapper = requireNonNull(objectMapper, "objectMapper is null")
                 .copy()
                 .configure(ORDER_MAP_ENTRIES_BY_KEYS, true);
@@ -640,7 +658,7 @@ public class LocalExecutionPlanner
                                 outputTypes,
                                 pagePreprocessor,
                                 outputPartitioning,
-                                new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session), isExchangeChecksumEnabled(session))))
+                                new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session), isExchangeChecksumEnabled(session), isExchangeAdaptiveCompressionEnabled(session))))
                         .build(),
                 context.getDriverInstanceCount(),
                 physicalOperation.getPipelineExecutionStrategy(),
@@ -709,7 +727,13 @@ public class LocalExecutionPlanner
 
         public LocalExecutionPlanContext(TaskContext taskContext, TableWriteInfo tableWriteInfo)
         {
-            this(taskContext, new ArrayList<>(), Optional.empty(), new LocalDynamicFiltersCollector(), new AtomicInteger(0), tableWriteInfo);
+            this(
+                    taskContext,
+                    new ArrayList<>(),
+                    Optional.empty(),
+                    new LocalDynamicFiltersCollector(taskContext.getTaskMemoryContext().newSystemMemoryContext(LocalDynamicFiltersCollector.class.getSimpleName())),
+                    new AtomicInteger(0),
+                    tableWriteInfo);
         }
 
         private LocalExecutionPlanContext(
@@ -763,6 +787,11 @@ public class LocalExecutionPlanner
             return taskContext.getTaskId().getStageExecutionId();
         }
 
+        public MemoryTrackingContext getTaskMemoryContext()
+        {
+            return taskContext.getTaskMemoryContext();
+        }
+
         public Optional<IndexSourceContext> getIndexSourceContext()
         {
             return indexSourceContext;
@@ -1041,7 +1070,9 @@ public class LocalExecutionPlanner
                     node.getMaxRowCountPerPartition(),
                     hashChannel,
                     10_000,
-                    joinCompiler);
+                    joinCompiler,
+                    isRowNumberSpillEnabled(context.getSession()),
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operatorFactory, outputMappings.build(), context, source);
         }
 
@@ -1269,7 +1300,8 @@ public class LocalExecutionPlanner
                     pagesIndexFactory,
                     spillEnabled,
                     Optional.of(spillerFactory),
-                    orderingCompiler);
+                    orderingCompiler,
+                    isOrderByParallelSortEnabled(context.getSession()) ? Optional.of(parallelOperatorPool.getForkJoinPool()) : Optional.empty());
 
             return new PhysicalOperation(operator, source.getLayout(), context, source);
         }
@@ -1299,7 +1331,9 @@ public class LocalExecutionPlanner
                     node.getLimit(),
                     hashChannel,
                     joinCompiler,
-                    node.getTimeoutMillis());
+                    node.getTimeoutMillis(),
+                    isDistinctLimitSpillEnabled(context.getSession()),
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, source);
         }
 
@@ -1381,7 +1415,15 @@ public class LocalExecutionPlanner
 
             List<Integer> channels = getChannelsForVariables(node.getDistinctVariables(), source.getLayout());
             Optional<Integer> hashChannel = node.getHashVariable().map(variableChannelGetter(source));
-            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(context.getNextOperatorId(), node.getId(), source.getTypes(), channels, hashChannel, joinCompiler);
+            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    source.getTypes(),
+                    channels,
+                    hashChannel,
+                    joinCompiler,
+                    isMarkDistinctSpillEnabled(context.getSession()),
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operator, makeLayout(node), context, source);
         }
 
@@ -1497,6 +1539,7 @@ public class LocalExecutionPlanner
 
             Optional<List<DynamicFilterPlaceholder>> dynamicFilters = extractDynamicFilterResult.map(DynamicFilterExtractResult::getDynamicConjuncts);
             Optional<Supplier<TupleDomain<ColumnHandle>>> dynamicFilterSupplier = Optional.empty();
+            Optional<Supplier<Map<Integer, BlockedBloomFilter>>> bloomFilterSupplier = Optional.empty();
             if (dynamicFilters.isPresent() && !dynamicFilters.get().isEmpty() && sourceNode instanceof TableScanNode) {
                 TableScanNode tableScanNode = (TableScanNode) sourceNode;
                 LocalDynamicFiltersCollector collector = context.getDynamicFiltersCollector();
@@ -1504,6 +1547,9 @@ public class LocalExecutionPlanner
                     TupleDomain<VariableReferenceExpression> predicate = collector.getPredicate();
                     return predicate.transform(tableScanNode.getAssignments()::get);
                 });
+                if (getDynamicFilteringBloomFilterSize(session).toBytes() > 0) {
+                    bloomFilterSupplier = Optional.of(new BloomFilterChannelSupplier(collector, sourceLayout));
+                }
             }
 
             // compiler uses inputs instead of variables, so rewrite the expressions first
@@ -1540,6 +1586,7 @@ public class LocalExecutionPlanner
                             columns,
                             projections.stream().map(RowExpression::getType).collect(toImmutableList()),
                             dynamicFilterSupplier,
+                            bloomFilterSupplier,
                             getFilterAndProjectMinOutputPageSize(session),
                             getFilterAndProjectMinOutputPageRowCount(session));
 
@@ -2432,7 +2479,9 @@ public class LocalExecutionPlanner
                     pagesIndexFactory,
                     spillEnabled && partitionCount > 1,
                     singleStreamSpillerFactory,
-                    isBroadcastJoin);
+                    isBroadcastJoin,
+                    Optional.of(joinBuildCache),
+                    isJoinParallelHashBuildEnabled(context.getSession()) ? Optional.of(parallelOperatorPool.getForkJoinPool()) : Optional.empty());
 
             factoriesBuilder.add(hashBuilderOperatorFactory);
 
@@ -2469,7 +2518,9 @@ public class LocalExecutionPlanner
                     getDynamicFilteringMaxPerDriverRowCount(context.getSession()),
                     getDynamicFilteringMaxPerDriverSize(context.getSession()),
                     getDynamicFilteringRangeRowLimitPerDriver(context.getSession()),
-                    useNewNanDefinition);
+                    useNewNanDefinition,
+                    dynamicFilter.getBloomFilterConsumer(),
+                    getDynamicFilteringBloomFilterSize(context.getSession()));
         }
 
         private Optional<LocalDynamicFilter> createDynamicFilter(PhysicalOperation buildSource, AbstractJoinNode node, LocalExecutionPlanContext context, int partitionCount)
@@ -2485,11 +2536,12 @@ public class LocalExecutionPlanner
             }
             LocalDynamicFiltersCollector collector = context.getDynamicFiltersCollector();
             return LocalDynamicFilter
-                    .create(node, partitionCount)
+                    .create(node, partitionCount, context.getTaskMemoryContext().newSystemMemoryContext(LocalDynamicFilter.class.getSimpleName()))
                     .map(filter -> {
                         // Intersect dynamic filters' predicates when they become ready,
                         // in order to support multiple join nodes in the same plan fragment.
                         addSuccessCallback(filter.getResultFuture(), collector::intersect);
+                        addSuccessCallback(filter.getBloomFilterResultFuture(), collector::intersectBloomFilters);
                         return filter;
                     });
         }
@@ -3644,6 +3696,49 @@ public class LocalExecutionPlanner
         }
     }
 
+    /**
+     * Maps the Bloom filters published by the collector to the channels of the scan. The collector
+     * replaces its map whenever a filter arrives, so the channel map is only rebuilt when that happens
+     * rather than for every page.
+     */
+    private static class BloomFilterChannelSupplier
+            implements Supplier<Map<Integer, BlockedBloomFilter>>
+    {
+        private final LocalDynamicFiltersCollector collector;
+        private final Map<VariableReferenceExpression, Integer> sourceLayout;
+
+        @GuardedBy("this")
+        private Map<VariableReferenceExpression, BlockedBloomFilter> lastBloomFilters = ImmutableMap.of();
+        @GuardedBy("this")
+        private Map<Integer, BlockedBloomFilter> lastChannelBloomFilters = ImmutableMap.of();
+
+        public BloomFilterChannelSupplier(LocalDynamicFiltersCollector collector, Map<VariableReferenceExpression, Integer> sourceLayout)
+        {
+            this.collector = requireNonNull(collector, "collector is null");
+            this.sourceLayout = ImmutableMap.copyOf(requireNonNull(sourceLayout, "sourceLayout is null"));
+        }
+
+        @Override
+        public synchronized Map<Integer, BlockedBloomFilter> get()
+        {
+            Map<VariableReferenceExpression, BlockedBloomFilter> bloomFilters = collector.getBloomFilters();
+            if (bloomFilters == lastBloomFilters) {
+                return lastChannelBloomFilters;
+            }
+            ImmutableMap.Builder<Integer, BlockedBloomFilter> channelBloomFilters = ImmutableMap.builder();
+            bloomFilters.forEach((variable, bloomFilter) -> {
+                Integer channel = sourceLayout.get(variable);
+                // the probe column must have the same type for the hashes to match
+                if (channel != null && variable.getType().equals(bloomFilter.getType())) {
+                    channelBloomFilters.put(channel, bloomFilter);
+                }
+            });
+            lastBloomFilters = bloomFilters;
+            lastChannelBloomFilters = channelBloomFilters.build();
+            return lastChannelBloomFilters;
+        }
+    }
+
     private static class DriverFactoryParameters
     {
         private final LocalExecutionPlanContext subContext;
@@ -130,6 +130,7 @@ import com.facebook.presto.sql.planner.iterative.rule.RewriteConstantArrayContai
 import com.facebook.presto.sql.planner.iterative.rule.RewriteFilterWithExternalFunctionToProject;
 import com.facebook.presto.sql.planner.iterative.rule.RewriteSpatialPartitioningAggregation;
 import com.facebook.presto.sql.planner.iterative.rule.RuntimeReorderJoinSides;
+import com.facebook.presto.sql.planner.iterative.rule.SaltAggregationKeys;
 import com.facebook.presto.sql.planner.iterative.rule.ScaledWriterRule;
 import com.facebook.presto.sql.planner.iterative.rule.SimplifyCardinalityMap;
 import com.facebook.presto.sql.planner.iterative.rule.SimplifyCountOverConstant;
@@ -946,6 +947,7 @@ public class PlanOptimizers
                 costCalculator,
                 ImmutableSet.of(
                         new AddIntermediateAggregations(),
+                        new SaltAggregationKeys(metadata.getFunctionAndTypeManager()),
                         new RemoveRedundantIdentityProjections())));
 
         builder.add(
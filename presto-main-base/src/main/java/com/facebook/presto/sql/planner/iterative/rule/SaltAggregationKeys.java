@@ -0,0 +1,241 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.matching.Captures;
+import com.facebook.presto.matching.Pattern;
+import com.facebook.presto.metadata.FunctionAndTypeManager;
+import com.facebook.presto.spi.plan.AggregationNode;
+import com.facebook.presto.spi.plan.AggregationNode.Aggregation;
+import com.facebook.presto.spi.plan.Partitioning;
+import com.facebook.presto.spi.plan.PartitioningScheme;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.plan.PlanNodeIdAllocator;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.PlannerUtils;
+import com.facebook.presto.sql.planner.TypeProvider;
+import com.facebook.presto.sql.planner.iterative.Lookup;
+import com.facebook.presto.sql.planner.iterative.Rule;
+import com.facebook.presto.sql.planner.plan.ExchangeNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.getAggregationKeySaltCount;
+import static com.facebook.presto.SystemSessionProperties.isSaltAggregationKeys;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.plan.AggregationNode.Step.FINAL;
+import static com.facebook.presto.spi.plan.AggregationNode.Step.INTERMEDIATE;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
+import static com.facebook.presto.sql.planner.iterative.rule.AddIntermediateAggregations.inputsAsOutputs;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Scope.LOCAL;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Scope.REMOTE_STREAMING;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Type.REPARTITION;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.systemPartitionedExchange;
+import static com.facebook.presto.sql.planner.plan.Patterns.Aggregation.step;
+import static com.facebook.presto.sql.planner.plan.Patterns.aggregation;
+import static com.facebook.presto.sql.relational.Expressions.call;
+import static com.facebook.presto.sql.relational.Expressions.constant;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spreads each grouping key of a FINAL aggregation over several tasks before it is aggregated
+ * in the task that owns the key, so that a hot key no longer sends all of its partial results
+ * to one task. The rows are repartitioned on the grouping keys and a random salt, merged by an
+ * INTERMEDIATE aggregation, and then repartitioned on the grouping keys alone.
+ * <p>
+ * From:
+ * <pre>
+ * - Aggregation (FINAL)
+ *   - LocalExchange (REPARTITION keys)
+ *     - RemoteExchange (REPARTITION keys)
+ *       - source
+ * </pre>
+ * To:
+ * <pre>
+ * - Aggregation (FINAL)
+ *   - LocalExchange (REPARTITION keys)
+ *     - RemoteExchange (REPARTITION keys)
+ *       - Aggregation (INTERMEDIATE)
+ *         - LocalExchange (REPARTITION keys)
+ *           - RemoteExchange (REPARTITION keys, salt)
+ *             - Project (salt := random(saltCount))
+ *               - source
+ * </pre>
+ */
+public class SaltAggregationKeys
+        implements Rule<AggregationNode>
+{
+    private static final Pattern<AggregationNode> PATTERN = aggregation()
+            .with(step().equalTo(FINAL))
+            // global aggregations produce a single row and cannot be skewed
+            .matching(node -> !node.getGroupingKeys().isEmpty() && !node.hasEmptyGroupingSet())
+            .matching(node -> !node.hasOrderings() && !node.getHashVariable().isPresent());
+
+    private final FunctionAndTypeManager functionAndTypeManager;
+
+    public SaltAggregationKeys(FunctionAndTypeManager functionAndTypeManager)
+    {
+        this.functionAndTypeManager = requireNonNull(functionAndTypeManager, "functionAndTypeManager is null");
+    }
+
+    @Override
+    public Pattern<AggregationNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    public boolean isEnabled(Session session)
+    {
+        return isSaltAggregationKeys(session) && getAggregationKeySaltCount(session) > 1;
+    }
+
+    @Override
+    public Result apply(AggregationNode aggregation, Captures captures, Context context)
+    {
+        Lookup lookup = context.getLookup();
+        PlanNode source = lookup.resolve(aggregation.getSource());
+        Optional<ExchangeNode> localExchange = Optional.empty();
+        if (source instanceof ExchangeNode && ((ExchangeNode) source).getScope() == LOCAL) {
+            localExchange = Optional.of((ExchangeNode) source);
+            if (!isIdentity(localExchange.get())) {
+                return Result.empty();
+            }
+            source = lookup.resolve(localExchange.get().getSources().get(0));
+        }
+        if (!(source instanceof ExchangeNode) || !isPartitionedOnGroupingKeys((ExchangeNode) source, aggregation)) {
+            return Result.empty();
+        }
+        ExchangeNode remoteExchange = (ExchangeNode) source;
+        if (isSalted(remoteExchange, lookup)) {
+            return Result.empty();
+        }
+
+        Map<VariableReferenceExpression, Aggregation> intermediateAggregations = inputsAsOutputs(
+                aggregation.getAggregations(),
+                TypeProvider.viewOf(context.getVariableAllocator().getVariables()));
+        if (intermediateAggregations.isEmpty() && !aggregation.getAggregations().isEmpty()) {
+            return Result.empty();
+        }
+
+        PlanNodeIdAllocator idAllocator = context.getIdAllocator();
+        ExchangeNode saltedExchange = saltedExchange(remoteExchange, aggregation.getGroupingKeys(), getAggregationKeySaltCount(context.getSession()), context);
+        AggregationNode intermediate = new AggregationNode(
+                aggregation.getSourceLocation(),
+                idAllocator.getNextId(),
+                systemPartitionedExchange(idAllocator.getNextId(), LOCAL, saltedExchange, aggregation.getGroupingKeys(), Optional.empty()),
+                intermediateAggregations,
+                aggregation.getGroupingSets(),
+                ImmutableList.of(),
+                INTERMEDIATE,
+                Optional.empty(),
+                aggregation.getGroupIdVariable(),
+                aggregation.getAggregationId());
+        if (!ImmutableSet.copyOf(intermediate.getOutputVariables()).equals(ImmutableSet.copyOf(remoteExchange.getOutputVariables()))) {
+            return Result.empty();
+        }
+
+        PlanNode result = new ExchangeNode(
+                remoteExchange.getSourceLocation(),
+                idAllocator.getNextId(),
+                REPARTITION,
+                REMOTE_STREAMING,
+                remoteExchange.getPartitioningScheme(),
+                ImmutableList.of(intermediate),
+                ImmutableList.of(remoteExchange.getOutputVariables()),
+                false,
+                Optional.empty());
+        if (localExchange.isPresent()) {
+            result = localExchange.get().replaceChildren(ImmutableList.of(result));
+        }
+        return Result.ofPlanNode(aggregation.replaceChildren(ImmutableList.of(result)));
+    }
+
+    private ExchangeNode saltedExchange(ExchangeNode exchange, List<VariableReferenceExpression> groupingKeys, int saltCount, Context context)
+    {
+        RowExpression random = call(functionAndTypeManager, "random", BIGINT, constant((long) saltCount, BIGINT));
+        VariableReferenceExpression salt = context.getVariableAllocator().newVariable("salt", BIGINT);
+
+        ImmutableList.Builder<PlanNode> sources = ImmutableList.builder();
+        ImmutableList.Builder<List<VariableReferenceExpression>> inputs = ImmutableList.builder();
+        for (int i = 0; i < exchange.getSources().size(); i++) {
+            sources.add(PlannerUtils.addProjections(exchange.getSources().get(i), context.getIdAllocator(), context.getVariableAllocator(), ImmutableList.of(random), ImmutableList.of(salt)));
+            inputs.add(ImmutableList.<VariableReferenceExpression>builder()
+                    .addAll(exchange.getInputs().get(i))
+                    .add(salt)
+                    .build());
+        }
+
+        List<VariableReferenceExpression> outputs = ImmutableList.<VariableReferenceExpression>builder()
+                .addAll(exchange.getOutputVariables())
+                .add(salt)
+                .build();
+        PartitioningScheme partitioningScheme = new PartitioningScheme(
+                Partitioning.create(FIXED_HASH_DISTRIBUTION, ImmutableList.<VariableReferenceExpression>builder()
+                        .addAll(groupingKeys)
+                        .add(salt)
+                        .build()),
+                outputs,
+                Optional.empty(),
+                false,
+                false,
+                exchange.getPartitioningScheme().getEncoding(),
+                Optional.empty());
+        return new ExchangeNode(
+                exchange.getSourceLocation(),
+                context.getIdAllocator().getNextId(),
+                REPARTITION,
+                REMOTE_STREAMING,
+                partitioningScheme,
+                sources.build(),
+                inputs.build(),
+                false,
+                Optional.empty());
+    }
+
+    private static boolean isPartitionedOnGroupingKeys(ExchangeNode exchange, AggregationNode aggregation)
+    {
+        PartitioningScheme partitioningScheme = exchange.getPartitioningScheme();
+        if (exchange.getScope() != REMOTE_STREAMING ||
+                exchange.getType() != REPARTITION ||
+                exchange.getOrderingScheme().isPresent() ||
+                !partitioningScheme.getPartitioning().getHandle().equals(FIXED_HASH_DISTRIBUTION) ||
+                partitioningScheme.getHashColumn().isPresent() ||
+                partitioningScheme.isReplicateNullsAndAny()) {
+            return false;
+        }
+        List<RowExpression> arguments = partitioningScheme.getPartitioning().getArguments();
+        return !arguments.isEmpty() && aggregation.getGroupingKeys().containsAll(arguments);
+    }
+
+    private static boolean isIdentity(ExchangeNode exchange)
+    {
+        return exchange.getSources().size() == 1 && exchange.getInputs().get(0).equals(exchange.getOutputVariables());
+    }
+
+    private static boolean isSalted(ExchangeNode exchange, Lookup lookup)
+    {
+        if (exchange.getSources().size() != 1) {
+            return false;
+        }
+        PlanNode source = lookup.resolve(exchange.getSources().get(0));
+        return source instanceof AggregationNode && ((AggregationNode) source).getStep() == INTERMEDIATE;
+    }
+}
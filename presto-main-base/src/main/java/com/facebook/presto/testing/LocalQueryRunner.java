@@ -113,11 +113,13 @@ import com.facebook.presto.nodeManager.PluginNodeManager;
 import com.facebook.presto.operator.Driver;
 import com.facebook.presto.operator.DriverContext;
 import com.facebook.presto.operator.DriverFactory;
+import com.facebook.presto.operator.JoinBuildCache;
 import com.facebook.presto.operator.LookupJoinOperators;
 import com.facebook.presto.operator.NoOpFragmentResultCacheManager;
 import com.facebook.presto.operator.OperatorContext;
 import com.facebook.presto.operator.OutputFactory;
 import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.operator.ParallelOperatorPool;
 import com.facebook.presto.operator.SourceOperatorFactory;
 import com.facebook.presto.operator.TableCommitContext;
 import com.facebook.presto.operator.TaskContext;
@@ -340,6 +342,7 @@ public class LocalQueryRunner
     private final SpillerFactory spillerFactory;
     private final StandaloneSpillerFactory standaloneSpillerFactory;
     private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private final ParallelOperatorPool parallelOperatorPool;
 
     private final PageFunctionCompiler pageFunctionCompiler;
     private final ExpressionCompiler expressionCompiler;
@@ -622,6 +625,7 @@ public class LocalQueryRunner
         this.partitioningSpillerFactory = new GenericPartitioningSpillerFactory(this.singleStreamSpillerFactory);
         this.spillerFactory = new GenericSpillerFactory(singleStreamSpillerFactory);
         this.standaloneSpillerFactory = new TempStorageStandaloneSpillerFactory(new TestingTempStorageManager(), blockEncodingManager, nodeSpillConfig, featuresConfig, spillerStats);
+        this.parallelOperatorPool = new ParallelOperatorPool(new JavaFeaturesConfig());
     }
 
     public static LocalQueryRunner queryRunnerWithInitialTransaction(Session defaultSession)
@@ -643,6 +647,7 @@ public class LocalQueryRunner
         connectorManager.stop();
         finalizerService.destroy();
         singleStreamSpillerFactory.destroy();
+        parallelOperatorPool.stop();
     }
 
     @Override
@@ -1009,6 +1014,8 @@ public class LocalQueryRunner
                 jsonCodec(TableCommitContext.class),
                 new RowExpressionDeterminismEvaluator(metadata),
                 new NoOpFragmentResultCacheManager(),
+                new JoinBuildCache(new JavaFeaturesConfig().getJoinBuildCacheMaxSize()),
+                parallelOperatorPool,
                 objectMapper,
                 standaloneSpillerFactory);
 
@@ -50,6 +50,7 @@ public class TestQueryManagerConfig
                 .setClientTimeout(new Duration(5, TimeUnit.MINUTES))
                 .setScheduleSplitBatchSize(1000)
                 .setMinScheduleSplitBatchSize(100)
+                .setMaxPrefetchedSplits(0)
                 .setMaxConcurrentQueries(1000)
                 .setMaxQueuedQueries(5000)
                 .setHashPartitionCount(100)
@@ -104,6 +105,7 @@ public class TestQueryManagerConfig
                 .put("resource-group-runtimeinfo-refresh-interval", "10ms")
                 .put("query.schedule-split-batch-size", "99")
                 .put("query.min-schedule-split-batch-size", "9")
+                .put("query.max-prefetched-splits", "5000")
                 .put("query.max-concurrent-queries", "10")
                 .put("query.max-queued-queries", "15")
                 .put("query.hash-partition-count", "16")
@@ -155,6 +157,7 @@ public class TestQueryManagerConfig
                 .setClientTimeout(new Duration(10, TimeUnit.SECONDS))
                 .setScheduleSplitBatchSize(99)
                 .setMinScheduleSplitBatchSize(9)
+                .setMaxPrefetchedSplits(5000)
                 .setMaxConcurrentQueries(10)
                 .setMaxQueuedQueries(15)
                 .setHashPartitionCount(16)
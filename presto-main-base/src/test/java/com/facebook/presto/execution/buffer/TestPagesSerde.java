@@ -17,8 +17,10 @@ import com.facebook.presto.CompressionCodec;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.BlockEncodingManager;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.spi.page.PagesSerde;
+import com.facebook.presto.spi.page.SerializedPage;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
@@ -27,12 +29,14 @@ import org.testng.annotations.Test;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 import java.util.UUID;
 import java.util.stream.LongStream;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
+import static com.facebook.presto.spi.page.PageCodecMarker.COMPRESSED;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.readPages;
 import static com.facebook.presto.spi.page.PagesSerdeUtil.writePages;
 import static org.testng.Assert.assertEquals;
@@ -154,6 +158,54 @@ public class TestPagesSerde
         assertTrue(actualSize < expectedMaxSize, "Expected round trip size difference less than 20% of original page");
     }
 
+    @Test
+    public void testAdaptiveCompression()
+    {
+        PagesSerde serde = new PagesSerdeFactory(new BlockEncodingManager(), CompressionCodec.LZ4, false, true).createPagesSerde();
+
+        // small pages are never compressed
+        assertFalse(isCompressed(serde, createBigintPage(10, false)));
+        assertEquals(serde.getCompressionSkippedPages(), 1);
+
+        // after pages that do not compress, the following 1, 2, 4... pages are not compressed
+        Page randomPage = createBigintPage(1000, true);
+        assertFalse(isCompressed(serde, randomPage));
+        assertEquals(serde.getCompressionSkippedPages(), 1);
+        assertFalse(isCompressed(serde, randomPage));
+        assertEquals(serde.getCompressionSkippedPages(), 2);
+        assertFalse(isCompressed(serde, randomPage));
+        assertEquals(serde.getCompressionSkippedPages(), 2);
+
+        Page constantPage = createBigintPage(1000, false);
+        assertFalse(isCompressed(serde, constantPage));
+        assertFalse(isCompressed(serde, constantPage));
+        assertEquals(serde.getCompressionSkippedPages(), 4);
+        assertTrue(isCompressed(serde, constantPage));
+        assertTrue(isCompressed(serde, constantPage));
+        assertTrue(serde.getCompressionOutputBytes() < serde.getCompressionInputBytes());
+
+        // pages serialized with adaptive compression can be read by any serde
+        PagesSerde reader = new TestingPagesSerdeFactory(CompressionCodec.LZ4).createPagesSerde();
+        assertPageEquals(ImmutableList.of(BIGINT), reader.deserialize(serde.serialize(constantPage)), constantPage);
+        assertPageEquals(ImmutableList.of(BIGINT), reader.deserialize(serde.serialize(createBigintPage(10, false))), createBigintPage(10, false));
+    }
+
+    private static boolean isCompressed(PagesSerde serde, Page page)
+    {
+        SerializedPage serializedPage = serde.serialize(page);
+        return COMPRESSED.isSet(serializedPage.getPageCodecMarkers());
+    }
+
+    private static Page createBigintPage(int positionCount, boolean random)
+    {
+        Random generator = new Random(42);
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, positionCount);
+        for (int position = 0; position < positionCount; position++) {
+            BIGINT.writeLong(builder, random ? generator.nextLong() : 7);
+        }
+        return new Page(builder.build());
+    }
+
     private static int serializedSize(List<? extends Type> types, Page expectedPage, CompressionCodec codec)
     {
         PagesSerde serde = new TestingPagesSerdeFactory(codec).createPagesSerde();
@@ -0,0 +1,326 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.type.BigintType;
+import com.facebook.presto.execution.Lifespan;
+import com.facebook.presto.execution.QueryIdGenerator;
+import com.facebook.presto.execution.StateMachine;
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.memory.context.SimpleLocalMemoryContext;
+import com.facebook.presto.spi.storage.TempStorage;
+import com.facebook.presto.spiller.LocalTempStorage;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.testing.TestingTempStorageManager;
+import com.facebook.presto.util.FinalizerService;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.execution.buffer.BufferResult.emptyResults;
+import static com.facebook.presto.execution.buffer.BufferState.FINISHED;
+import static com.facebook.presto.execution.buffer.BufferState.FLUSHING;
+import static com.facebook.presto.execution.buffer.BufferState.OPEN;
+import static com.facebook.presto.execution.buffer.BufferState.TERMINAL_BUFFER_STATES;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.MAX_WAIT;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.NO_WAIT;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.PAGES_SERDE;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.acknowledgeBufferResult;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.addPage;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.assertBufferResultEquals;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.createBufferResult;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.createPage;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.enqueuePage;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.getBufferResult;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.sizeOfPages;
+import static com.facebook.presto.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
+import static com.facebook.presto.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.facebook.presto.execution.buffer.OutputBuffers.createSpoolingOutputBuffers;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestSpoolingPartitionedOutputBuffer
+{
+    private static final String TASK_INSTANCE_ID = "task-instance-id";
+
+    private static final List<BigintType> TYPES = ImmutableList.of(BIGINT);
+    private static final OutputBufferId FIRST = new OutputBufferId(0);
+    private static final OutputBufferId SECOND = new OutputBufferId(1);
+    private static final OutputBuffers OUTPUT_BUFFERS = createInitialEmptyOutputBuffers(PARTITIONED)
+            .withBuffer(FIRST, 0)
+            .withBuffer(SECOND, 1)
+            .withNoMoreBufferIds();
+
+    private static final QueryIdGenerator queryIdGenerator = new QueryIdGenerator();
+
+    private SpoolingOutputBufferFactory spoolingOutputBufferFactory;
+    private ScheduledExecutorService stateNotificationExecutor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        stateNotificationExecutor = newScheduledThreadPool(5, daemonThreadsNamed("test-%s"));
+
+        // six pages for the whole task
+        FeaturesConfig featuresConfig = new FeaturesConfig()
+                .setSpoolingOutputBufferThreshold(sizeOfPages(6))
+                .setSpoolingPartitionedOutputBufferEnabled(true);
+        spoolingOutputBufferFactory = new SpoolingOutputBufferFactory(featuresConfig);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        if (stateNotificationExecutor != null) {
+            stateNotificationExecutor.shutdownNow();
+            stateNotificationExecutor = null;
+        }
+        spoolingOutputBufferFactory.shutdown();
+    }
+
+    @Test(timeOut = 10_000)
+    public void testPartitions()
+            throws InterruptedException
+    {
+        SpoolingPartitionedOutputBuffer buffer = createBuffer();
+
+        // the largest partition is spooled once the task reaches the threshold, the other one stays in memory
+        List<Page> firstPages = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            firstPages.add(createPage(i));
+            addPage(buffer, createPage(i), 0);
+        }
+        addPage(buffer, createPage(10), 1);
+        addPage(buffer, createPage(11), 1);
+        assertEquals(buffer.getInfo().getTotalBufferedPages(), 6);
+        assertEquals(buffer.getInfo().getTotalPagesSent(), 6);
+        assertEquals(buffer.getInfo().getBuffers().get(0).getBufferedPages(), 4);
+        assertEquals(buffer.getInfo().getBuffers().get(1).getBufferedPages(), 2);
+        assertFalse(buffer.isOverutilized());
+
+        // reading the spooled pages waits for the write, after which only the pages in memory are accounted
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(10), MAX_WAIT), createBufferResult(TASK_INSTANCE_ID, 0, firstPages));
+        assertEquals(buffer.getMemoryManager().getBufferedBytes(), sizeOfPages(2).toBytes());
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, SECOND, 0, sizeOfPages(10), MAX_WAIT), createBufferResult(TASK_INSTANCE_ID, 0, ImmutableList.of(createPage(10), createPage(11))));
+
+        // reading again from the same token returns the same pages
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(1), MAX_WAIT), createBufferResult(TASK_INSTANCE_ID, 0, ImmutableList.of(createPage(0))));
+
+        acknowledgeBufferResult(buffer, FIRST, 4);
+        acknowledgeBufferResult(buffer, SECOND, 2);
+        assertEquals(buffer.getInfo().getTotalBufferedPages(), 0);
+        assertEquals(buffer.getInfo().getBuffers().get(0).getPagesSent(), 4);
+
+        // the acknowledged pages in memory are released once they are written to storage
+        while (buffer.getMemoryManager().getBufferedBytes() > 0) {
+            MILLISECONDS.sleep(10);
+        }
+    }
+
+    @Test
+    public void testConsumerRetry()
+    {
+        SpoolingPartitionedOutputBuffer buffer = createBuffer();
+        List<Page> firstPages = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            firstPages.add(createPage(i));
+            addPage(buffer, createPage(i), 0);
+        }
+
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(2), MAX_WAIT), createBufferResult(TASK_INSTANCE_ID, 0, firstPages.subList(0, 2)));
+        acknowledgeBufferResult(buffer, FIRST, 2);
+
+        // the consumer fails before reading the whole partition
+        buffer.abort(FIRST);
+        assertFalse(buffer.isFinished());
+
+        // a request of the failed consumer does not acknowledge the pages of the next one
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 3, sizeOfPages(10), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 3, false));
+
+        firstPages.add(createPage(4));
+        addPage(buffer, createPage(4), 0);
+        buffer.setNoMorePages();
+
+        // the retried consumer reads the partition again from the first page
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(10), MAX_WAIT), createBufferResult(TASK_INSTANCE_ID, 0, firstPages));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 5, sizeOfPages(10), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 5, true));
+        buffer.abort(FIRST);
+        assertFalse(buffer.isFinished());
+
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, SECOND, 0, sizeOfPages(10), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 0, true));
+        buffer.abort(SECOND);
+        assertTrue(buffer.isFinished());
+    }
+
+    @Test
+    public void testBlockOnPendingWrites()
+            throws Exception
+    {
+        // the writes are held back until the latch is released
+        CountDownLatch writesReleased = new CountDownLatch(1);
+        ExecutorService writeExecutor = newSingleThreadExecutor(daemonThreadsNamed("test-write-%s"));
+        writeExecutor.execute(() -> awaitUninterruptibly(writesReleased));
+        try {
+            LocalMemoryContext memoryContext = new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test");
+            SpoolingPartitionedOutputBuffer buffer = createBuffer(sizeOfPages(2), sizeOfPages(2), memoryContext, listeningDecorator(writeExecutor));
+
+            addPage(buffer, createPage(0), 0);
+            addPage(buffer, createPage(1), 1);
+            addPage(buffer, createPage(2), 1);
+            addPage(buffer, createPage(3), 0);
+            // the pages waiting to be written count against the buffer until they are written
+            assertEquals(memoryContext.getBytes(), sizeOfPages(4).toBytes());
+
+            ListenableFuture<?> full = enqueuePage(buffer, createPage(4), 0);
+            assertEquals(memoryContext.getBytes(), sizeOfPages(5).toBytes());
+            assertTrue(buffer.isOverutilized());
+
+            writesReleased.countDown();
+            full.get(10, SECONDS);
+
+            buffer.destroy();
+            assertEquals(memoryContext.getBytes(), 0);
+        }
+        finally {
+            writesReleased.countDown();
+            writeExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBufferCompletion()
+    {
+        SpoolingPartitionedOutputBuffer buffer = createBuffer();
+
+        for (int i = 0; i < 4; i++) {
+            addPage(buffer, createPage(i), i % 2);
+        }
+        buffer.setNoMorePages();
+        assertEquals(buffer.getInfo().getState(), FLUSHING);
+
+        // pages added after no more pages are ignored
+        addPage(buffer, createPage(42), 0);
+        assertEquals(buffer.getInfo().getTotalPagesSent(), 4);
+
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 0, sizeOfPages(10), MAX_WAIT), createBufferResult(TASK_INSTANCE_ID, 0, ImmutableList.of(createPage(0), createPage(2))));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, FIRST, 2, sizeOfPages(10), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 2, true));
+        buffer.abort(FIRST);
+        assertFalse(buffer.isFinished());
+
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, SECOND, 0, sizeOfPages(10), MAX_WAIT), createBufferResult(TASK_INSTANCE_ID, 0, ImmutableList.of(createPage(1), createPage(3))));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, SECOND, 2, sizeOfPages(10), MAX_WAIT), emptyResults(TASK_INSTANCE_ID, 2, true));
+        buffer.abort(SECOND);
+        assertTrue(buffer.isFinished());
+        assertEquals(buffer.getInfo().getState(), FINISHED);
+    }
+
+    @Test
+    public void testLifespanCompletion()
+    {
+        SpoolingPartitionedOutputBuffer buffer = createBuffer();
+        List<Lifespan> completedLifespans = new ArrayList<>();
+        buffer.registerLifespanCompletionCallback(completedLifespans::add);
+
+        Lifespan lifespan = Lifespan.driverGroup(3);
+        buffer.enqueue(lifespan, 0, ImmutableList.of(PAGES_SERDE.serialize(createPage(0))));
+        assertFalse(buffer.isFinishedForLifespan(lifespan));
+
+        // the pages are owned by the buffer, so the lifespan finishes before they are consumed
+        buffer.setNoMorePagesForLifespan(lifespan);
+        assertTrue(buffer.isFinishedForLifespan(lifespan));
+        assertEquals(completedLifespans, ImmutableList.of(lifespan));
+        assertEquals(buffer.getInfo().getTotalBufferedPages(), 1);
+
+        // pages of a finished lifespan are ignored
+        buffer.enqueue(lifespan, 0, ImmutableList.of(PAGES_SERDE.serialize(createPage(1))));
+        assertEquals(buffer.getInfo().getTotalBufferedPages(), 1);
+    }
+
+    @Test
+    public void testDestroy()
+    {
+        SpoolingPartitionedOutputBuffer buffer = createBuffer();
+        for (int i = 0; i < 8; i++) {
+            addPage(buffer, createPage(i), i % 2);
+        }
+
+        buffer.destroy();
+        assertTrue(buffer.isFinished());
+        assertEquals(buffer.getInfo().getTotalBufferedPages(), 0);
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, SECOND, 0, sizeOfPages(10), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 0, true));
+    }
+
+    private SpoolingPartitionedOutputBuffer createBuffer()
+    {
+        TaskId taskId = new TaskId(queryIdGenerator.createNextQueryId().toString(), 0, 0, 0, 0);
+        return spoolingOutputBufferFactory.createSpoolingPartitionedOutputBuffer(
+                taskId,
+                TASK_INSTANCE_ID,
+                OUTPUT_BUFFERS,
+                new StateMachine<>("bufferState", stateNotificationExecutor, OPEN, TERMINAL_BUFFER_STATES),
+                sizeOfPages(10).toBytes(),
+                () -> new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"));
+    }
+
+    private SpoolingPartitionedOutputBuffer createBuffer(DataSize threshold, DataSize maxBufferSize, LocalMemoryContext memoryContext, ListeningExecutorService executor)
+    {
+        TaskId taskId = new TaskId(queryIdGenerator.createNextQueryId().toString(), 0, 0, 0, 0);
+        TempStorage tempStorage = new TestingTempStorageManager().getTempStorage(LocalTempStorage.NAME);
+        ImmutableList.Builder<SpoolingOutputBuffer> partitions = ImmutableList.builder();
+        for (int partition = 0; partition < OUTPUT_BUFFERS.getBuffers().size(); partition++) {
+            partitions.add(new SpoolingOutputBuffer(
+                    taskId,
+                    TASK_INSTANCE_ID,
+                    createSpoolingOutputBuffers(),
+                    new StateMachine<>("partition-" + partition, stateNotificationExecutor, OPEN, TERMINAL_BUFFER_STATES),
+                    tempStorage,
+                    threshold.toBytes(),
+                    executor,
+                    new FinalizerService()));
+        }
+        return new SpoolingPartitionedOutputBuffer(
+                new StateMachine<>("bufferState", stateNotificationExecutor, OPEN, TERMINAL_BUFFER_STATES),
+                OUTPUT_BUFFERS,
+                partitions.build(),
+                threshold.toBytes(),
+                maxBufferSize.toBytes(),
+                () -> memoryContext,
+                stateNotificationExecutor);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.executor;
+
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.airlift.stats.TimeStat;
+import com.facebook.presto.execution.SplitRunner;
+import com.facebook.presto.execution.TaskId;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.Duration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.OptionalInt;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.execution.executor.MultilevelSplitQueue.LEVEL_THRESHOLD_SECONDS;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures how many splits the runner threads can take from and return to the split queue,
+ * which is what every runner thread does once per quanta. Run {@link #main} to measure the
+ * throughput as the number of runner threads grows.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.Throughput)
+public class BenchmarkMultilevelSplitQueue
+{
+    private static final int TASKS = 128;
+    private static final int SPLITS_PER_TASK = 8;
+
+    @Benchmark
+    public PrioritizedSplitRunner takeAndOffer(BenchmarkData data)
+            throws InterruptedException
+    {
+        PrioritizedSplitRunner split = data.getQueue().take();
+        data.getQueue().offer(split);
+        return split;
+    }
+
+    @State(Scope.Benchmark)
+    public static class BenchmarkData
+    {
+        private MultilevelSplitQueue queue;
+
+        @Setup
+        public void setup()
+        {
+            queue = new MultilevelSplitQueue(2);
+            CounterStat globalCpuTimeMicros = new CounterStat();
+            CounterStat globalScheduledTimeMicros = new CounterStat();
+            TimeStat blockedQuantaWallTime = new TimeStat();
+            TimeStat unblockedQuantaWallTime = new TimeStat();
+
+            for (int task = 0; task < TASKS; task++) {
+                TaskHandle taskHandle = new TaskHandle(new TaskId("test", 0, 0, task, 0), new TaskPriorityTracker(queue), () -> 0, 1, new Duration(1, SECONDS), OptionalInt.empty());
+                // spread the tasks over all levels
+                taskHandle.addScheduledNanos(SECONDS.toNanos(LEVEL_THRESHOLD_SECONDS[task % LEVEL_THRESHOLD_SECONDS.length]));
+                for (int split = 0; split < SPLITS_PER_TASK; split++) {
+                    queue.offer(new PrioritizedSplitRunner(
+                            taskHandle,
+                            new NoopSplitRunner(),
+                            Ticker.systemTicker(),
+                            globalCpuTimeMicros,
+                            globalScheduledTimeMicros,
+                            blockedQuantaWallTime,
+                            unblockedQuantaWallTime));
+                }
+            }
+        }
+
+        public MultilevelSplitQueue getQueue()
+        {
+            return queue;
+        }
+    }
+
+    private static class NoopSplitRunner
+            implements SplitRunner
+    {
+        @Override
+        public boolean isFinished()
+        {
+            return false;
+        }
+
+        @Override
+        public ListenableFuture<?> processFor(Duration duration)
+        {
+            return immediateFuture(null);
+        }
+
+        @Override
+        public String getInfo()
+        {
+            return "noop";
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        for (int threads : new int[] {1, 4, 16, 64}) {
+            Options options = new OptionsBuilder()
+                    .verbosity(VerboseMode.NORMAL)
+                    .threads(threads)
+                    .include(".*" + BenchmarkMultilevelSplitQueue.class.getSimpleName() + ".*")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
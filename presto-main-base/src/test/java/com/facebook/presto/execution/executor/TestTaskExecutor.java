@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.execution.executor;
 
+import com.facebook.airlift.stats.CounterStat;
+import com.facebook.airlift.stats.TimeStat;
 import com.facebook.airlift.testing.TestingTicker;
 import com.facebook.presto.execution.SplitRunner;
 import com.facebook.presto.execution.TaskId;
@@ -20,6 +22,7 @@ import com.facebook.presto.server.ServerConfig;
 import com.facebook.presto.version.EmbedVersion;
 import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
@@ -376,6 +379,36 @@ public class TestTaskExecutor
         }
     }
 
+    @Test(timeOut = 30_000)
+    public void testSplitQueueRemove()
+            throws Exception
+    {
+        MultilevelSplitQueue splitQueue = new MultilevelSplitQueue(2);
+        TaskHandle handle0 = new TaskHandle(new TaskId("test0", 0, 0, 0, 0), new TaskPriorityTracker(splitQueue), () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty());
+        TaskHandle handle1 = new TaskHandle(new TaskId("test1", 0, 0, 0, 0), new TaskPriorityTracker(splitQueue), () -> 1, 1, new Duration(1, SECONDS), OptionalInt.empty());
+        handle1.addScheduledNanos(SECONDS.toNanos(LEVEL_THRESHOLD_SECONDS[1]));
+
+        PrioritizedSplitRunner removed = createPrioritizedSplitRunner(handle0);
+        PrioritizedSplitRunner level0Split = createPrioritizedSplitRunner(handle0);
+        PrioritizedSplitRunner level1Split = createPrioritizedSplitRunner(handle1);
+        splitQueue.offer(removed);
+        splitQueue.offer(level0Split);
+        splitQueue.offer(level1Split);
+        assertEquals(splitQueue.size(), 3);
+
+        splitQueue.remove(removed);
+        assertEquals(splitQueue.size(), 2);
+
+        // the permit of the removed split must not make a taker return early or block forever
+        List<PrioritizedSplitRunner> taken = ImmutableList.of(splitQueue.take(), splitQueue.take());
+        assertEquals(ImmutableSet.copyOf(taken), ImmutableSet.of(level0Split, level1Split));
+        assertEquals(splitQueue.size(), 0);
+
+        splitQueue.offer(removed);
+        splitQueue.removeAll(ImmutableList.of(removed));
+        assertEquals(splitQueue.size(), 0);
+    }
+
     @Test(timeOut = 30_000)
     public void testMinMaxDriversPerTask()
     {
@@ -503,6 +536,11 @@ public class TestTaskExecutor
         }
     }
 
+    private static PrioritizedSplitRunner createPrioritizedSplitRunner(TaskHandle taskHandle)
+    {
+        return new PrioritizedSplitRunner(taskHandle, new MockSplitRunner(), Ticker.systemTicker(), new CounterStat(), new CounterStat(), new TimeStat(), new TimeStat());
+    }
+
     private static void waitUntilSplitsStart(List<TestingJob> splits)
     {
         while (splits.stream().anyMatch(split -> !split.isStarted())) {
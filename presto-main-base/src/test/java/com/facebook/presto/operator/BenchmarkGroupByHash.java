@@ -20,6 +20,7 @@ import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.LongArrayBlock;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.spi.function.aggregation.GroupByIdBlock;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.type.BigintOperators;
 import com.facebook.presto.type.VarcharOperators;
@@ -174,6 +175,49 @@ public class BenchmarkGroupByHash
         return pageBuilder.build();
     }
 
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long bigintGroupByHashGetGroupIds(SingleChannelBenchmarkData data)
+    {
+        GroupByHash groupByHash = new BigintGroupByHash(0, data.getHashEnabled(), EXPECTED_SIZE, NOOP);
+        return getGroupIds(groupByHash, data.getPages());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long groupByHashGetGroupIds(BenchmarkData data)
+    {
+        GroupByHash groupByHash = new MultiChannelGroupByHash(data.getTypes(), data.getChannels(), data.getHashChannel(), EXPECTED_SIZE, false, getJoinCompiler(), NOOP);
+        return getGroupIds(groupByHash, data.getPages());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public long createdGroupByHashGetGroupIds(BenchmarkData data)
+    {
+        // picks FlatGroupByHash for BIGINT keys, so it can be compared with groupByHashGetGroupIds
+        GroupByHash groupByHash = GroupByHash.createGroupByHash(data.getTypes(), data.getChannels(), data.getHashChannel(), EXPECTED_SIZE, false, true, getJoinCompiler(), NOOP);
+        return getGroupIds(groupByHash, data.getPages());
+    }
+
+    private static long getGroupIds(GroupByHash groupByHash, List<Page> pages)
+    {
+        long groupIdSum = 0;
+        for (Page page : pages) {
+            Work<GroupByIdBlock> work = groupByHash.getGroupIds(page);
+            boolean finished;
+            do {
+                finished = work.process();
+            }
+            while (!finished);
+            GroupByIdBlock groupIds = work.getResult();
+            for (int position = 0; position < groupIds.getPositionCount(); position++) {
+                groupIdSum += groupIds.getGroupId(position);
+            }
+        }
+        return groupIdSum;
+    }
+
     @Benchmark
     @OperationsPerInvocation(POSITIONS)
     public long baseline(BaselinePagesData data)
@@ -436,10 +480,13 @@ public class BenchmarkGroupByHash
         data.setup();
         new BenchmarkGroupByHash().groupByHashPreCompute(data);
         new BenchmarkGroupByHash().addPagePreCompute(data);
+        new BenchmarkGroupByHash().groupByHashGetGroupIds(data);
+        new BenchmarkGroupByHash().createdGroupByHashGetGroupIds(data);
 
         SingleChannelBenchmarkData singleChannelBenchmarkData = new SingleChannelBenchmarkData();
         singleChannelBenchmarkData.setup();
         new BenchmarkGroupByHash().bigintGroupByHash(singleChannelBenchmarkData);
+        new BenchmarkGroupByHash().bigintGroupByHashGetGroupIds(singleChannelBenchmarkData);
 
         Options options = new OptionsBuilder()
                 .verbosity(VerboseMode.NORMAL)
@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.block.Block;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringSequenceBlock;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestBlockedBloomFilter
+{
+    @Test
+    public void testNoFalseNegatives()
+    {
+        BlockedBloomFilter bloomFilter = new BlockedBloomFilter(VARCHAR, new DataSize(16, KILOBYTE));
+        Block values = createStringSequenceBlock(0, 10_000);
+        for (int position = 0; position < values.getPositionCount(); position++) {
+            bloomFilter.put(values, position);
+        }
+        for (int position = 0; position < values.getPositionCount(); position++) {
+            assertTrue(bloomFilter.mightContain(values, position));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRate()
+    {
+        // ~13 bits per value
+        BlockedBloomFilter bloomFilter = new BlockedBloomFilter(BIGINT, new DataSize(16, KILOBYTE));
+        Block values = createLongSequenceBlock(0, 10_000);
+        for (int position = 0; position < values.getPositionCount(); position++) {
+            bloomFilter.put(values, position);
+        }
+
+        Block otherValues = createLongSequenceBlock(1_000_000, 1_100_000);
+        int falsePositives = 0;
+        for (int position = 0; position < otherValues.getPositionCount(); position++) {
+            if (bloomFilter.mightContain(otherValues, position)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < otherValues.getPositionCount() / 20, "too many false positives: " + falsePositives);
+    }
+
+    @Test
+    public void testUnionAndIntersect()
+    {
+        Block values = createLongSequenceBlock(0, 1000);
+        BlockedBloomFilter first = new BlockedBloomFilter(BIGINT, new DataSize(4, KILOBYTE));
+        BlockedBloomFilter second = new BlockedBloomFilter(BIGINT, new DataSize(4, KILOBYTE));
+        for (int position = 0; position < 500; position++) {
+            first.put(values, position);
+        }
+        for (int position = 250; position < values.getPositionCount(); position++) {
+            second.put(values, position);
+        }
+
+        BlockedBloomFilter union = first.copy();
+        union.union(second);
+        for (int position = 0; position < values.getPositionCount(); position++) {
+            assertTrue(union.mightContain(values, position));
+        }
+
+        BlockedBloomFilter intersection = first.copy();
+        intersection.intersect(second);
+        for (int position = 250; position < 500; position++) {
+            assertTrue(intersection.mightContain(values, position));
+        }
+    }
+
+    @Test
+    public void testSupportedTypes()
+    {
+        assertTrue(BlockedBloomFilter.isSupported(BIGINT));
+        assertTrue(BlockedBloomFilter.isSupported(VARCHAR));
+        assertFalse(BlockedBloomFilter.isSupported(DOUBLE));
+    }
+}
@@ -24,6 +24,7 @@ import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.units.DataSize;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -32,6 +33,7 @@ import org.testng.annotations.Test;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.stream.IntStream;
@@ -71,6 +73,7 @@ import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static java.lang.Float.floatToRawIntBits;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestDynamicFilterSourceOperator
@@ -582,4 +585,42 @@ public class TestDynamicFilterSourceOperator
                         new Page(createLongSequenceBlock(0, maxPositionsCount + 1))),
                 ImmutableList.of(TupleDomain.all()));
     }
+
+    @Test
+    public void testCollectBloomFilters()
+    {
+        int maxPositionsCount = 100;
+        ImmutableList.Builder<Map<String, BlockedBloomFilter>> bloomFilterPartitions = ImmutableList.builder();
+        OperatorFactory operatorFactory = new DynamicFilterSourceOperator.DynamicFilterSourceOperatorFactory(
+                0,
+                new PlanNodeId("PLAN_NODE_ID"),
+                this::consumePredicate,
+                ImmutableList.of(channel(0, BIGINT), channel(1, DOUBLE)),
+                maxPositionsCount,
+                new DataSize(10, KILOBYTE),
+                1_000_000,
+                true,
+                bloomFilterPartitions::add,
+                new DataSize(4, KILOBYTE));
+        verifyPassthrough(
+                createOperator(operatorFactory),
+                ImmutableList.of(BIGINT, DOUBLE),
+                new Page(createLongSequenceBlock(0, 1000), createDoubleSequenceBlock(0, 1000)),
+                new Page(createLongsBlock(Arrays.asList(new Long[] {5000L, null})), createDoublesBlock(1.0, null)));
+        operatorFactory.noMoreOperators();
+
+        // the exact values are dropped in favor of a range, but the Bloom filter still has all of them
+        assertEquals(partitions.build(), ImmutableList.of(TupleDomain.withColumnDomains(ImmutableMap.of(
+                "0", Domain.create(ValueSet.ofRanges(range(BIGINT, 0L, true, 5000L, true)), false)))));
+        List<Map<String, BlockedBloomFilter>> bloomFilters = bloomFilterPartitions.build();
+        assertEquals(bloomFilters.size(), 1);
+        // DOUBLE is not supported
+        assertEquals(bloomFilters.get(0).keySet(), ImmutableSet.of("0"));
+        BlockedBloomFilter bloomFilter = bloomFilters.get(0).get("0");
+        Block values = createLongSequenceBlock(0, 1000);
+        for (int position = 0; position < values.getPositionCount(); position++) {
+            assertTrue(bloomFilter.mightContain(values, position));
+        }
+        assertTrue(bloomFilter.mightContain(createLongsBlock(5000L), 0));
+    }
 }
@@ -43,7 +43,10 @@ public class TestExchangeClientConfig
                 .setPageBufferClientMaxCallbackThreads(25)
                 .setClientThreads(25)
                 .setAcknowledgePages(true)
-                .setResponseSizeExponentialMovingAverageDecayingAlpha(0.1));
+                .setResponseSizeExponentialMovingAverageDecayingAlpha(0.1)
+                .setStreamingEnabled(false)
+                .setStreamingMaxPrefetchSize(new DataSize(8, MEGABYTE))
+                .setLocalShortCircuitEnabled(false));
     }
 
     @Test
@@ -60,6 +63,9 @@ public class TestExchangeClientConfig
                 .put("exchange.page-buffer-client.max-callback-threads", "16")
                 .put("exchange.acknowledge-pages", "false")
                 .put("exchange.response-size-exponential-moving-average-decaying-alpha", "0.42")
+                .put("exchange.streaming-enabled", "true")
+                .put("exchange.streaming-max-prefetch-size", "2MB")
+                .put("exchange.local-short-circuit-enabled", "true")
                 .build();
 
         ExchangeClientConfig expected = new ExchangeClientConfig()
@@ -72,7 +78,10 @@ public class TestExchangeClientConfig
                 .setClientThreads(2)
                 .setPageBufferClientMaxCallbackThreads(16)
                 .setAcknowledgePages(false)
-                .setResponseSizeExponentialMovingAverageDecayingAlpha(0.42);
+                .setResponseSizeExponentialMovingAverageDecayingAlpha(0.42)
+                .setStreamingEnabled(true)
+                .setStreamingMaxPrefetchSize(new DataSize(2, MEGABYTE))
+                .setLocalShortCircuitEnabled(true);
 
         assertFullMapping(properties, expected);
     }
@@ -32,7 +32,9 @@ import org.testng.annotations.Test;
 
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
@@ -43,10 +45,13 @@ import static com.facebook.presto.block.BlockAssertions.createStringSequenceBloc
 import static com.facebook.presto.common.block.DictionaryId.randomDictionaryId;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.FLAT_GROUP_BY_HASH_ENABLED;
 import static com.facebook.presto.type.TypeUtils.getHashBlock;
 import static com.google.common.math.DoubleMath.log2;
+import static java.lang.Math.toIntExact;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
@@ -56,6 +61,9 @@ public class TestGroupByHash
     private static final int MAX_GROUP_ID = 500;
     private static final int[] CONTAINS_CHANNELS = {0};
     private static final Session TEST_SESSION = TestingSession.testSessionBuilder().build();
+    private static final Session FLAT_GROUP_BY_HASH_SESSION = TestingSession.testSessionBuilder()
+            .setSystemProperty(FLAT_GROUP_BY_HASH_ENABLED, "true")
+            .build();
     private static final JoinCompiler JOIN_COMPILER = new JoinCompiler(MetadataManager.createTestMetadataManager());
 
     @DataProvider
@@ -232,6 +240,98 @@ public class TestGroupByHash
         assertTrue(groupByHash.contains(0, new Page(testValuesBlock, testStringValuesBlock, testHashBlock), hashChannels));
     }
 
+    @Test
+    public void testFixedWidthKeys()
+    {
+        Block bigintBlock = BlockAssertions.createLongsBlock(1L, 2L, null, 1L, 2L, null, 1L);
+        Block integerBlock = BlockAssertions.createIntsBlock(10, 20, 10, 10, null, null, 10);
+        Block hashBlock = getHashBlock(ImmutableList.of(BIGINT, INTEGER), bigintBlock, integerBlock);
+        Page page = new Page(bigintBlock, integerBlock, hashBlock);
+
+        for (Optional<Integer> inputHashChannel : ImmutableList.of(Optional.<Integer>empty(), Optional.of(2))) {
+            GroupByHash groupByHash = createGroupByHash(FLAT_GROUP_BY_HASH_SESSION, ImmutableList.of(BIGINT, INTEGER), new int[] {0, 1}, inputHashChannel, 1, JOIN_COMPILER);
+            assertTrue(groupByHash instanceof FlatGroupByHash);
+
+            Work<GroupByIdBlock> work = groupByHash.getGroupIds(page);
+            assertTrue(work.process());
+            GroupByIdBlock groupIds = work.getResult();
+            assertEquals(groupByHash.getGroupCount(), 5);
+            long[] expectedGroupIds = {0, 1, 2, 0, 3, 4, 0};
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                assertEquals(groupIds.getGroupId(position), expectedGroupIds[position]);
+                assertEquals(groupByHash.getRawHash(toIntExact(groupIds.getGroupId(position))), BIGINT.getLong(hashBlock, position));
+                assertTrue(groupByHash.contains(position, page, new int[] {0, 1}));
+            }
+
+            PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+            for (int groupId = 0; groupId < groupByHash.getGroupCount(); groupId++) {
+                pageBuilder.declarePosition();
+                groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+            }
+            Page outputPage = pageBuilder.build();
+            BlockAssertions.assertBlockEquals(BIGINT, outputPage.getBlock(0), BlockAssertions.createLongsBlock(1L, 2L, null, 2L, null));
+            BlockAssertions.assertBlockEquals(INTEGER, outputPage.getBlock(1), BlockAssertions.createIntsBlock(10, 20, 10, null, null));
+
+            Block missingBigintBlock = BlockAssertions.createLongsBlock(2L);
+            Block missingIntegerBlock = BlockAssertions.createIntsBlock(10);
+            assertFalse(groupByHash.contains(0, new Page(missingBigintBlock, missingIntegerBlock), new int[] {0, 1}));
+        }
+    }
+
+    @Test
+    public void testFlatGroupByHashSelection()
+    {
+        List<Type> types = ImmutableList.of(BIGINT, INTEGER);
+        int[] channels = {0, 1};
+
+        // disabled by default
+        assertTrue(createGroupByHash(TEST_SESSION, types, channels, Optional.empty(), 1, JOIN_COMPILER) instanceof MultiChannelGroupByHash);
+        assertTrue(createGroupByHash(types, channels, Optional.empty(), 1, false, true, JOIN_COMPILER, UpdateMemory.NOOP) instanceof FlatGroupByHash);
+        // dictionary processing is only implemented by MultiChannelGroupByHash
+        assertTrue(createGroupByHash(types, channels, Optional.empty(), 1, true, true, JOIN_COMPILER, UpdateMemory.NOOP) instanceof MultiChannelGroupByHash);
+        // variable width keys are not supported
+        assertTrue(createGroupByHash(ImmutableList.of(BIGINT, VARCHAR), channels, Optional.empty(), 1, false, true, JOIN_COMPILER, UpdateMemory.NOOP) instanceof MultiChannelGroupByHash);
+    }
+
+    @Test
+    public void testGetGroupIdsAcrossBatches()
+    {
+        // many more positions than a batch, with repeated values and nulls, so that batches span rehashes
+        List<Long> values = new ArrayList<>();
+        for (int position = 0; position < 10_000; position++) {
+            values.add(position % 7 == 3 ? null : (long) ((position * 31) % 3_000));
+        }
+        Block block = createLongsBlock(values);
+
+        // a single BIGINT channel uses BigintGroupByHash, two channels use FlatGroupByHash or MultiChannelGroupByHash
+        assertGroupIdsInFirstOccurrenceOrder(
+                createGroupByHash(TEST_SESSION, ImmutableList.of(BIGINT), new int[] {0}, Optional.empty(), 4, JOIN_COMPILER),
+                new Page(block),
+                values);
+        assertGroupIdsInFirstOccurrenceOrder(
+                createGroupByHash(FLAT_GROUP_BY_HASH_SESSION, ImmutableList.of(BIGINT, BIGINT), new int[] {0, 1}, Optional.empty(), 4, JOIN_COMPILER),
+                new Page(block, block),
+                values);
+        assertGroupIdsInFirstOccurrenceOrder(
+                createGroupByHash(TEST_SESSION, ImmutableList.of(BIGINT, BIGINT), new int[] {0, 1}, Optional.empty(), 4, JOIN_COMPILER),
+                new Page(block, block),
+                values);
+    }
+
+    private static void assertGroupIdsInFirstOccurrenceOrder(GroupByHash groupByHash, Page page, List<Long> values)
+    {
+        Work<GroupByIdBlock> work = groupByHash.getGroupIds(page);
+        assertTrue(work.process());
+        GroupByIdBlock groupIds = work.getResult();
+
+        Map<Long, Long> expectedGroupIds = new HashMap<>();
+        for (int position = 0; position < values.size(); position++) {
+            long expectedGroupId = expectedGroupIds.computeIfAbsent(values.get(position), value -> (long) expectedGroupIds.size());
+            assertEquals(groupIds.getGroupId(position), expectedGroupId);
+        }
+        assertEquals(groupByHash.getGroupCount(), expectedGroupIds.size());
+    }
+
     @Test
     public void testForceRehash()
     {
@@ -16,6 +16,7 @@ package com.facebook.presto.operator;
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.common.Page;
+import com.facebook.presto.common.RuntimeStats;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
 import com.facebook.presto.common.block.ByteArrayBlock;
@@ -63,6 +64,8 @@ import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.block.BlockAssertions.createLongRepeatBlock;
 import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.common.RuntimeMetricName.PARTIAL_AGGREGATION_SKIPPED_FLUSHES;
+import static com.facebook.presto.common.RuntimeMetricName.PARTIAL_AGGREGATION_SKIPPED_ROWS;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.common.type.DoubleType.DOUBLE;
@@ -944,6 +947,48 @@ public class TestHashAggregationOperator
         assertTrue(partialAggregationController.isPartialAggregationDisabled());
     }
 
+    @Test
+    public void testAdaptivePartialAggregationStats()
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        DataSize maxPartialMemory = succinctBytes(1);
+        PartialAggregationController partialAggregationController = new PartialAggregationController(maxPartialMemory, 0.8);
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                ImmutableList.of(),
+                Step.PARTIAL,
+                false,
+                ImmutableList.of(generateAccumulatorFactory(LONG_SUM, ImmutableList.of(0), Optional.empty())),
+                Optional.empty(),
+                Optional.empty(),
+                100,
+                Optional.of(maxPartialMemory), // flush after every page
+                false,
+                Optional.of(partialAggregationController),
+                new DataSize(0, MEGABYTE),
+                new DataSize(0, MEGABYTE),
+                new FailingSpillerFactory(),
+                joinCompiler,
+                false);
+
+        // the first page is mostly distinct, which disables partial aggregation for the following pages
+        List<Page> input = rowPagesBuilder(false, hashChannels, BIGINT)
+                .addBlocksPage(createLongsBlock(0, 1, 2, 3, 4, 5, 6, 7, 8, 8))
+                .addBlocksPage(createLongRepeatBlock(1, 10))
+                .addBlocksPage(createLongRepeatBlock(2, 5))
+                .build();
+        Operator operator = operatorFactory.createOperator(createDriverContext());
+        toPages(operator, input.iterator());
+
+        RuntimeStats runtimeStats = operator.getOperatorContext().getOperatorStats().getRuntimeStats();
+        assertEquals(runtimeStats.getMetric(PARTIAL_AGGREGATION_SKIPPED_FLUSHES).getSum(), 2);
+        assertEquals(runtimeStats.getMetric(PARTIAL_AGGREGATION_SKIPPED_ROWS).getSum(), 15);
+    }
+
     private void assertOperatorEquals(OperatorFactory operatorFactory, List<Page> inputPages, List<Page> expectedPages)
     {
         DriverContext driverContext = createDriverContext(1024);
@@ -60,6 +60,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.SynchronousQueue;
@@ -80,6 +81,7 @@ import static com.facebook.presto.SystemSessionProperties.getQueryMaxMemoryPerNo
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEqualsIgnoreOrder;
 import static com.facebook.presto.operator.OperatorAssertion.dropChannel;
 import static com.facebook.presto.operator.OperatorAssertion.without;
 import static com.facebook.presto.operator.PipelineExecutionStrategy.UNGROUPED_EXECUTION;
@@ -206,6 +208,58 @@ public class TestHashJoinOperator
         assertOperatorEquals(joinOperatorFactory, taskContext.addPipelineContext(0, true, true, false).addDriverContext(), probeInput, expected, true, getHashChannels(probePages, buildPages));
     }
 
+    @Test
+    public void testInnerJoinWithParallelHashBuild()
+    {
+        ParallelOperatorPool parallelHashBuildPool = new ParallelOperatorPool(4);
+        try {
+            assertInnerJoinWithParallelHashBuild(parallelHashBuildPool);
+        }
+        finally {
+            parallelHashBuildPool.stop();
+        }
+    }
+
+    private void assertInnerJoinWithParallelHashBuild(ParallelOperatorPool parallelHashBuildPool)
+    {
+        TaskContext taskContext = TestingTaskContext.createTaskContext(executor, scheduledExecutor, session);
+
+        // large enough for PagesHash to read the hashes in parallel, keys [25000, 50000) are duplicated
+        RowPagesBuilder buildPages = rowPagesBuilder(false, Ints.asList(0), ImmutableList.of(BIGINT, BIGINT))
+                .addSequencePage(50_000, 0, 0)
+                .addSequencePage(50_000, 25_000, 100_000);
+        BuildSideSetup buildSideSetup = setupBuildSide(
+                false,
+                taskContext,
+                Ints.asList(0),
+                buildPages,
+                Optional.empty(),
+                false,
+                SINGLE_STREAM_SPILLER_FACTORY,
+                false,
+                Optional.of(parallelHashBuildPool.getForkJoinPool()));
+        JoinBridgeManager<PartitionedLookupSourceFactory> lookupSourceFactory = buildSideSetup.getLookupSourceFactoryManager();
+
+        RowPagesBuilder probePages = rowPagesBuilder(false, Ints.asList(0), ImmutableList.of(BIGINT));
+        List<Page> probeInput = probePages
+                .addSequencePage(10, 49_995)
+                .build();
+        OperatorFactory joinOperatorFactory = innerJoinOperatorFactory(lookupSourceFactory, probePages, PARTITIONING_SPILLER_FACTORY);
+
+        instantiateBuildDrivers(buildSideSetup, taskContext);
+        buildLookupSource(buildSideSetup);
+
+        MaterializedResult.Builder expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probePages.getTypesWithoutHash(), buildPages.getTypesWithoutHash()));
+        for (long key = 49_995; key < 50_005; key++) {
+            if (key < 50_000) {
+                expected.row(key, key, key);
+            }
+            expected.row(key, key, key + 75_000);
+        }
+
+        assertOperatorEqualsIgnoreOrder(joinOperatorFactory, taskContext.addPipelineContext(0, true, true, false).addDriverContext(), probeInput, expected.build());
+    }
+
     @Test
     public void testYield()
     {
@@ -1542,6 +1596,21 @@ public class TestHashJoinOperator
             boolean spillEnabled,
             SingleStreamSpillerFactory singleStreamSpillerFactory,
             boolean enforceBroadcastMemoryLimit)
+    {
+        return setupBuildSide(parallelBuild, taskContext, hashChannels, buildPages,
+                filterFunction, spillEnabled, singleStreamSpillerFactory, enforceBroadcastMemoryLimit, Optional.empty());
+    }
+
+    private BuildSideSetup setupBuildSide(
+            boolean parallelBuild,
+            TaskContext taskContext,
+            List<Integer> hashChannels,
+            RowPagesBuilder buildPages,
+            Optional<InternalJoinFilterFunction> filterFunction,
+            boolean spillEnabled,
+            SingleStreamSpillerFactory singleStreamSpillerFactory,
+            boolean enforceBroadcastMemoryLimit,
+            Optional<ForkJoinPool> parallelHashBuildPool)
     {
         Optional<JoinFilterFunctionFactory> filterFunctionFactory = filterFunction
                 .map(function -> (session, addresses, pages) -> new StandardJoinFilterFunction(function, addresses, pages));
@@ -1604,7 +1673,9 @@ public class TestHashJoinOperator
                 new PagesIndex.TestingFactory(false),
                 spillEnabled,
                 singleStreamSpillerFactory,
-                enforceBroadcastMemoryLimit);
+                enforceBroadcastMemoryLimit,
+                Optional.empty(),
+                parallelHashBuildPool);
         return new BuildSideSetup(lookupSourceFactoryManager, buildOperatorFactory, sourceOperatorFactory, partitionCount);
     }
 
@@ -0,0 +1,312 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.memory.MemoryPool;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.memory.MemoryPoolId;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.stream.IntStream;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.block.BlockAssertions.assertBlockEquals;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.VarcharType.VARCHAR;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestJoinBuildCache
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR);
+    private static final JoinBuildCache.Key KEY = new JoinBuildCache.Key(TYPES, ImmutableList.of(0), ImmutableList.of(0, 1), OptionalInt.empty());
+
+    @Test
+    public void testMatchIgnoresRowOrder()
+    {
+        Page first = new Page(createLongSequenceBlock(0, 100), createStringSequenceBlock(0, 100));
+        Page second = new Page(createLongSequenceBlock(100, 150), createStringSequenceBlock(100, 150));
+        JoinBuildCache cache = new JoinBuildCache(new DataSize(1, MEGABYTE));
+        put(cache, 100, first, second).release();
+
+        JoinBuildCache.Matcher matcher = getOnlyElement(cache.acquireMatchers(KEY));
+        assertTrue(matchAll(matcher, second));
+        assertFalse(matcher.isComplete());
+        assertTrue(matchAll(matcher, first));
+        assertTrue(matcher.isComplete());
+        matcher.getLease().release();
+
+        // a different layout has no candidates
+        JoinBuildCache.Key otherKey = new JoinBuildCache.Key(TYPES, ImmutableList.of(0), ImmutableList.of(0), OptionalInt.empty());
+        assertTrue(cache.acquireMatchers(otherKey).isEmpty());
+    }
+
+    @Test
+    public void testMatchComparesWholeRows()
+    {
+        JoinBuildCache cache = new JoinBuildCache(new DataSize(1, MEGABYTE));
+        put(cache, 100, new Page(createLongsBlock(1, 2), createStringsBlock("a", "b"))).release();
+
+        // same join key, different value in the other channel
+        JoinBuildCache.Matcher matcher = getOnlyElement(cache.acquireMatchers(KEY));
+        assertTrue(matchAll(matcher, new Page(createLongsBlock(1), createStringsBlock("a"))));
+        assertFalse(matchAll(matcher, new Page(createLongsBlock(2), createStringsBlock("c"))));
+        matcher.getLease().release();
+    }
+
+    @Test
+    public void testMatchNullKeys()
+    {
+        JoinBuildCache cache = new JoinBuildCache(new DataSize(1, MEGABYTE));
+        put(cache, 100, new Page(createLongsBlock(null, 1L, null), createStringsBlock("a", "b", "c"))).release();
+
+        // rows with a null join key are not in the lookup source, but are matched all the same
+        JoinBuildCache.Matcher matcher = getOnlyElement(cache.acquireMatchers(KEY));
+        assertTrue(matchAll(matcher, new Page(createLongsBlock(null, null, 1L), createStringsBlock("c", "a", "b"))));
+        assertTrue(matcher.isComplete());
+        matcher.getLease().release();
+
+        matcher = getOnlyElement(cache.acquireMatchers(KEY));
+        assertFalse(matchAll(matcher, new Page(createLongsBlock(1L, null), createStringsBlock("b", "d"))));
+        matcher.getLease().release();
+    }
+
+    @Test
+    public void testMatchInOrder()
+    {
+        Page page = new Page(createLongSequenceBlock(0, 100), createStringSequenceBlock(0, 100));
+        JoinBuildCache cache = new JoinBuildCache(new DataSize(1, MEGABYTE));
+        put(cache, 100, page).release();
+
+        // rows arriving in the order of the entry are paired without tracking them
+        JoinBuildCache.Matcher matcher = getOnlyElement(cache.acquireMatchers(KEY));
+        assertTrue(matchAll(matcher, page.getRegion(0, 50)));
+        assertEquals(matcher.getRetainedSizeInBytes(), 0);
+
+        // a row out of order switches to pairing rows through the lookup source
+        assertTrue(matchAll(matcher, page.getRegion(99, 1)));
+        assertTrue(matcher.getRetainedSizeInBytes() > 0);
+        assertTrue(matchAll(matcher, page.getRegion(50, 49)));
+        assertTrue(matcher.isComplete());
+
+        List<Page> pages = new ArrayList<>();
+        matcher.copyMatchedRows(pages::add);
+        matcher.getLease().release();
+        assertBlockEquals(BIGINT, getOnlyElement(pages).getBlock(0), page.getBlock(0));
+    }
+
+    @Test
+    public void testMatchCountsDuplicateRows()
+    {
+        JoinBuildCache cache = new JoinBuildCache(new DataSize(1, MEGABYTE));
+        put(cache, 100, new Page(createLongsBlock(1, 1, 2), createStringsBlock("a", "a", "b"))).release();
+
+        JoinBuildCache.Matcher matcher = getOnlyElement(cache.acquireMatchers(KEY));
+        assertTrue(matchAll(matcher, new Page(createLongsBlock(1, 2), createStringsBlock("a", "b"))));
+        assertFalse(matcher.isComplete());
+        assertTrue(matchAll(matcher, new Page(createLongsBlock(1), createStringsBlock("a"))));
+        assertTrue(matcher.isComplete());
+        // the entry has no third copy of the row
+        assertFalse(matchAll(matcher, new Page(createLongsBlock(1), createStringsBlock("a"))));
+        matcher.getLease().release();
+    }
+
+    @Test
+    public void testCopyMatchedRows()
+    {
+        JoinBuildCache cache = new JoinBuildCache(new DataSize(1, MEGABYTE));
+        put(cache, 100, new Page(createLongsBlock(1, 2, 3), createStringsBlock("a", "b", "c"))).release();
+
+        JoinBuildCache.Matcher matcher = getOnlyElement(cache.acquireMatchers(KEY));
+        assertTrue(matchAll(matcher, new Page(createLongsBlock(3, 1), createStringsBlock("c", "a"))));
+        List<Page> pages = new ArrayList<>();
+        matcher.copyMatchedRows(pages::add);
+        matcher.getLease().release();
+
+        // the rows are copied in the order of the entry
+        Page page = getOnlyElement(pages);
+        assertBlockEquals(BIGINT, page.getBlock(0), createLongsBlock(1, 3));
+        assertBlockEquals(VARCHAR, page.getBlock(1), createStringsBlock("a", "c"));
+    }
+
+    @Test
+    public void testAcquireAndRelease()
+    {
+        JoinBuildCache cache = new JoinBuildCache(new DataSize(100, BYTE));
+        Page page = new Page(createLongSequenceBlock(0, 10), createStringSequenceBlock(0, 10));
+
+        assertTrue(cache.acquireMatchers(KEY).isEmpty());
+        JoinBuildCache.Lease lease = put(cache, 40, page);
+
+        JoinBuildCache.Matcher matcher = getOnlyElement(cache.acquireMatchers(KEY));
+        assertSame(matcher.getLease().getLookupSourceSupplier(), lease.getLookupSourceSupplier());
+        cache.recordHit(matcher.getLease());
+        cache.recordMiss();
+        assertEquals(cache.getHits().getTotalCount(), 1);
+        assertEquals(cache.getMisses().getTotalCount(), 1);
+        assertEquals(cache.getSizeInBytes(), 40);
+
+        lease.release();
+        // releasing twice has no effect
+        lease.release();
+        matcher.getLease().release();
+        assertEquals(cache.getEntryCount(), 1);
+    }
+
+    @Test
+    public void testEvictsOnlyUnreferencedEntries()
+    {
+        JoinBuildCache cache = new JoinBuildCache(new DataSize(100, BYTE));
+        Page first = new Page(createLongSequenceBlock(0, 10), createStringSequenceBlock(0, 10));
+        Page second = new Page(createLongSequenceBlock(10, 20), createStringSequenceBlock(10, 20));
+        Page third = new Page(createLongSequenceBlock(20, 30), createStringSequenceBlock(20, 30));
+
+        JoinBuildCache.Lease firstLease = put(cache, 40, first);
+        JoinBuildCache.Lease secondLease = put(cache, 40, second);
+
+        // both entries are in use
+        assertFalse(tryPut(cache, 40, third).isPresent());
+
+        secondLease.release();
+        // touch the first entry, so that the second one is the least recently used
+        cache.recordHit(firstLease);
+        firstLease.release();
+
+        assertTrue(tryPut(cache, 40, third).isPresent());
+        assertEquals(cache.getEvictions().getTotalCount(), 1);
+        assertEquals(cache.getSizeInBytes(), 80);
+        assertEquals(cache.getEntryCount(), 2);
+        List<JoinBuildCache.Matcher> matchers = cache.acquireMatchers(KEY);
+        assertTrue(matchers.stream().anyMatch(matcher -> matchAll(matcher, first)));
+        matchers.forEach(matcher -> matcher.getLease().release());
+
+        // larger than the whole cache
+        assertFalse(tryPut(cache, 101, second).isPresent());
+    }
+
+    @Test
+    public void testReservesMemoryInPool()
+    {
+        MemoryPool memoryPool = new MemoryPool(new MemoryPoolId("test"), new DataSize(100, BYTE));
+        JoinBuildCache cache = new JoinBuildCache(new DataSize(1000, BYTE), memoryPool);
+        Page page = new Page(createLongSequenceBlock(0, 10), createStringSequenceBlock(0, 10));
+
+        JoinBuildCache.Lease lease = put(cache, 60, page);
+        assertEquals(memoryPool.getReservedBytes(), 60);
+
+        // fits in the cache, but not in the pool
+        assertFalse(tryPut(cache, 60, page).isPresent());
+        assertEquals(cache.getEntryCount(), 1);
+
+        // unreferenced entries are evicted to make room in the pool
+        lease.release();
+        assertTrue(tryPut(cache, 80, page).isPresent());
+        assertEquals(cache.getEvictions().getTotalCount(), 1);
+        assertEquals(cache.getEntryCount(), 1);
+        assertEquals(memoryPool.getReservedBytes(), 80);
+    }
+
+    @Test
+    public void testEvictsWhenPoolExhausted()
+    {
+        MemoryPool memoryPool = new MemoryPool(new MemoryPoolId("test"), new DataSize(100, BYTE));
+        JoinBuildCache cache = new JoinBuildCache(new DataSize(1000, BYTE), memoryPool);
+        Page page = new Page(createLongSequenceBlock(0, 10), createStringSequenceBlock(0, 10));
+
+        JoinBuildCache.Lease firstLease = put(cache, 30, page);
+        put(cache, 30, page).release();
+        put(cache, 30, page).release();
+
+        // a query running out of memory gets the memory of the least recently used unreferenced entries back
+        QueryId queryId = new QueryId("test");
+        ListenableFuture<?> future = memoryPool.reserve(queryId, "test", 20);
+        assertTrue(future.isDone());
+        assertEquals(cache.getEntryCount(), 2);
+        assertEquals(cache.getEvictions().getTotalCount(), 1);
+        assertEquals(memoryPool.getReservedBytes(), 80);
+
+        // entries in use are kept
+        future = memoryPool.reserve(queryId, "test", 60);
+        assertFalse(future.isDone());
+        assertEquals(cache.getEntryCount(), 1);
+        assertEquals(cache.getEvictions().getTotalCount(), 2);
+
+        firstLease.release();
+        memoryPool.free(queryId, "test", 80);
+        assertTrue(future.isDone());
+    }
+
+    @Test
+    public void testSupportedTypes()
+    {
+        assertTrue(JoinBuildCache.isSupported(TYPES));
+        assertFalse(JoinBuildCache.isSupported(ImmutableList.of(BIGINT, DOUBLE)));
+    }
+
+    private static boolean matchAll(JoinBuildCache.Matcher matcher, Page page)
+    {
+        Page hashChannelsPage = page.extractChannels(new int[] {0});
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            if (!matcher.matchRow(page, hashChannelsPage, position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static JoinBuildCache.Lease put(JoinBuildCache cache, long retainedSizeInBytes, Page... pages)
+    {
+        return tryPut(cache, retainedSizeInBytes, pages).get();
+    }
+
+    private static Optional<JoinBuildCache.Lease> tryPut(JoinBuildCache cache, long retainedSizeInBytes, Page... pages)
+    {
+        PagesIndex index = new PagesIndex.TestingFactory(false).newPagesIndex(TYPES, 10);
+        for (Page page : pages) {
+            index.addPage(page);
+        }
+        LookupSourceSupplier lookupSourceSupplier = index.createLookupSourceSupplier(
+                TEST_SESSION,
+                ImmutableList.of(0),
+                OptionalInt.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                ImmutableList.of());
+        List<List<Block>> channels = IntStream.range(0, TYPES.size())
+                .<List<Block>>mapToObj(index::getChannel)
+                .collect(toImmutableList());
+        return cache.put(KEY, lookupSourceSupplier, channels, index.getValueAddresses(), index.getPositionCount(), retainedSizeInBytes);
+    }
+}
@@ -16,11 +16,18 @@ package com.facebook.presto.operator;
 import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.block.BlockEncodingManager;
 import com.facebook.presto.common.block.RunLengthEncodedBlock;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.operator.MarkDistinctOperator.MarkDistinctOperatorFactory;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.FileSingleStreamSpillerFactory;
+import com.facebook.presto.spiller.GenericPartitioningSpillerFactory;
+import com.facebook.presto.spiller.NodeSpillConfig;
+import com.facebook.presto.spiller.SingleStreamSpillerFactory;
+import com.facebook.presto.spiller.SpillerStats;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.testing.MaterializedResult;
 import com.google.common.collect.ImmutableList;
@@ -30,6 +37,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -48,6 +56,9 @@ import static com.facebook.presto.operator.GroupByHashYieldAssertion.finishOpera
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static java.nio.file.Files.createTempDirectory;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
@@ -111,6 +122,56 @@ public class TestMarkDistinctOperator
         OperatorAssertion.assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected.build(), hashEnabled, Optional.of(1));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testMarkDistinctWithSpill(boolean hashEnabled)
+            throws Exception
+    {
+        Path spillPath = createTempDirectory(getClass().getSimpleName());
+        try {
+            assertMarkDistinctWithSpill(hashEnabled, spillPath);
+        }
+        finally {
+            deleteRecursively(spillPath, ALLOW_INSECURE);
+        }
+    }
+
+    private void assertMarkDistinctWithSpill(boolean hashEnabled, Path spillPath)
+    {
+        FeaturesConfig featuresConfig = new FeaturesConfig()
+                .setSpillerSpillPaths(spillPath.toString())
+                .setSpillMaxUsedSpaceThreshold(1.0);
+        SingleStreamSpillerFactory spillerFactory = new FileSingleStreamSpillerFactory(new BlockEncodingManager(), new SpillerStats(), featuresConfig, new NodeSpillConfig());
+
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT, VARCHAR);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(100, 0, 0)
+                .addSequencePage(100, 0, 100)
+                .addSequencePage(100, 50, 200)
+                .build();
+
+        OperatorFactory operatorFactory = new MarkDistinctOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                rowPagesBuilder.getTypes(),
+                ImmutableList.of(0),
+                rowPagesBuilder.getHashChannel(),
+                joinCompiler,
+                true,
+                new GenericPartitioningSpillerFactory(spillerFactory));
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, VARCHAR, BOOLEAN);
+        for (long i = 0; i < 100; i++) {
+            expected.row(i, String.valueOf(i), true);
+            expected.row(i, String.valueOf(i + 100), false);
+        }
+        for (long i = 50; i < 150; i++) {
+            expected.row(i, String.valueOf(i + 150), i >= 100);
+        }
+
+        // memory is revoked after every input page, so the first page is marked in memory and the rest after unspilling
+        OperatorAssertion.assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected.build(), hashEnabled, Optional.of(2), true);
+    }
+
     @Test(dataProvider = "hashEnabledValues")
     public void testRleDistinctMask(boolean hashEnabled)
     {
@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.operator.OrderByOperator.OrderByOperatorFactory;
 import com.facebook.presto.spi.plan.PlanNodeId;
@@ -28,6 +29,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -59,6 +61,7 @@ public class TestOrderByOperator
     private ExecutorService executor;
     private ScheduledExecutorService scheduledExecutor;
     private DummySpillerFactory spillerFactory;
+    private ParallelOperatorPool parallelSortPool;
 
     @DataProvider
     public static Object[][] spillEnabled()
@@ -77,6 +80,7 @@ public class TestOrderByOperator
         executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
         scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("test-scheduledExecutor-%s"));
         spillerFactory = new DummySpillerFactory();
+        parallelSortPool = new ParallelOperatorPool(4);
     }
 
     @AfterMethod
@@ -85,6 +89,7 @@ public class TestOrderByOperator
         executor.shutdownNow();
         scheduledExecutor.shutdownNow();
         spillerFactory = null;
+        parallelSortPool.stop();
     }
 
     @Test(dataProvider = "spillEnabled")
@@ -107,7 +112,8 @@ public class TestOrderByOperator
                 new PagesIndex.TestingFactory(false),
                 spillEnabled,
                 Optional.of(spillerFactory),
-                new OrderingCompiler());
+                new OrderingCompiler(),
+                Optional.empty());
 
         DriverContext driverContext = createDriverContext(memoryLimit);
         MaterializedResult.Builder expectedBuilder = resultBuilder(driverContext.getSession(), DOUBLE);
@@ -128,6 +134,45 @@ public class TestOrderByOperator
                 format("Spill state mismatch. Expected spill: %s, spill count: %s", spillEnabled, spillerFactory.getSpillsCount()));
     }
 
+    @Test
+    public void testParallelSort()
+    {
+        // large enough to be partitioned across threads, with plenty of duplicate keys
+        int numberOfRows = 300_000;
+        RowPagesBuilder inputBuilder = rowPagesBuilder(BIGINT);
+        long[] values = new long[numberOfRows];
+        for (int i = 0; i < numberOfRows; i++) {
+            values[i] = (i * 7919L) % 50_000;
+            inputBuilder.row(values[i]);
+            if ((i + 1) % 10_000 == 0) {
+                inputBuilder.pageBreak();
+            }
+        }
+
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                ImmutableList.of(0),
+                10,
+                ImmutableList.of(0),
+                ImmutableList.of(ASC_NULLS_LAST),
+                new PagesIndex.TestingFactory(false),
+                false,
+                Optional.empty(),
+                new OrderingCompiler(),
+                Optional.of(parallelSortPool.getForkJoinPool()));
+
+        DriverContext driverContext = createDriverContext(0);
+        Arrays.sort(values);
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT);
+        for (long value : values) {
+            expected.row(value);
+        }
+
+        assertOperatorEquals(operatorFactory, driverContext, inputBuilder.build(), expected.build());
+    }
+
     @Test(dataProvider = "spillEnabled")
     public void testSingleFieldKey(boolean spillEnabled, boolean revokeMemoryWhenAddingPages, long memoryLimit)
     {
@@ -150,7 +195,8 @@ public class TestOrderByOperator
                 new PagesIndex.TestingFactory(false),
                 spillEnabled,
                 Optional.of(spillerFactory),
-                new OrderingCompiler());
+                new OrderingCompiler(),
+                Optional.empty());
 
         DriverContext driverContext = createDriverContext(memoryLimit);
         MaterializedResult expected = resultBuilder(driverContext.getSession(), DOUBLE)
@@ -185,7 +231,8 @@ public class TestOrderByOperator
                 new PagesIndex.TestingFactory(false),
                 spillEnabled,
                 Optional.of(spillerFactory),
-                new OrderingCompiler());
+                new OrderingCompiler(),
+                Optional.empty());
 
         DriverContext driverContext = createDriverContext(memoryLimit);
         MaterializedResult expected = MaterializedResult.resultBuilder(driverContext.getSession(), VARCHAR, BIGINT)
@@ -220,7 +267,8 @@ public class TestOrderByOperator
                 new PagesIndex.TestingFactory(false),
                 spillEnabled,
                 Optional.of(spillerFactory),
-                new OrderingCompiler());
+                new OrderingCompiler(),
+                Optional.empty());
 
         DriverContext driverContext = createDriverContext(memoryLimit);
         MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT)
@@ -259,7 +307,8 @@ public class TestOrderByOperator
                 new PagesIndex.TestingFactory(false),
                 false,
                 Optional.of(spillerFactory),
-                new OrderingCompiler());
+                new OrderingCompiler(),
+                Optional.empty());
 
         toPages(operatorFactory, driverContext, input);
     }
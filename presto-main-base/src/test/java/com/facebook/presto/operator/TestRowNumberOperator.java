@@ -17,13 +17,23 @@ import com.facebook.presto.RowPagesBuilder;
 import com.facebook.presto.common.Page;
 import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.block.BlockBuilder;
+import com.facebook.presto.common.block.BlockEncodingManager;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spiller.FileSingleStreamSpillerFactory;
+import com.facebook.presto.spiller.GenericPartitioningSpillerFactory;
+import com.facebook.presto.spiller.NodeSpillConfig;
+import com.facebook.presto.spiller.SingleStreamSpillerFactory;
+import com.facebook.presto.spiller.SpillerStats;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.testing.MaterializedRow;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Ints;
 import org.testng.annotations.AfterClass;
@@ -31,6 +41,7 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -51,6 +62,9 @@ import static com.facebook.presto.operator.OperatorAssertion.toPages;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
 import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static java.nio.file.Files.createTempDirectory;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
@@ -248,6 +262,70 @@ public class TestRowNumberOperator
         assertEquals(Sets.intersection(expectedPartition3Set, actualSet).size(), 2);
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testRowNumberPartitionedWithSpill(boolean hashEnabled)
+            throws Exception
+    {
+        Path spillPath = createTempDirectory(getClass().getSimpleName());
+        try {
+            assertRowNumberPartitionedWithSpill(hashEnabled, spillPath);
+        }
+        finally {
+            deleteRecursively(spillPath, ALLOW_INSECURE);
+        }
+    }
+
+    private void assertRowNumberPartitionedWithSpill(boolean hashEnabled, Path spillPath)
+    {
+        FeaturesConfig featuresConfig = new FeaturesConfig()
+                .setSpillerSpillPaths(spillPath.toString())
+                .setSpillMaxUsedSpaceThreshold(1.0);
+        SingleStreamSpillerFactory spillerFactory = new FileSingleStreamSpillerFactory(new BlockEncodingManager(), new SpillerStats(), featuresConfig, new NodeSpillConfig());
+
+        DriverContext driverContext = getDriverContext();
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, Ints.asList(0), BIGINT, DOUBLE);
+        List<Page> input = rowPagesBuilder
+                .row(1L, 0.3)
+                .row(2L, 0.2)
+                .row(3L, 0.1)
+                .row(3L, 0.19)
+                .pageBreak()
+                .row(1L, 0.4)
+                .pageBreak()
+                .row(1L, 0.5)
+                .row(1L, 0.6)
+                .row(2L, 0.7)
+                .row(2L, 0.8)
+                .row(2L, 0.9)
+                .build();
+
+        RowNumberOperator.RowNumberOperatorFactory operatorFactory = new RowNumberOperator.RowNumberOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT, DOUBLE),
+                Ints.asList(1, 0),
+                Ints.asList(0),
+                ImmutableList.of(BIGINT),
+                Optional.of(3),
+                rowPagesBuilder.getHashChannel(),
+                10,
+                joinCompiler,
+                true,
+                new GenericPartitioningSpillerFactory(spillerFactory));
+
+        // memory is revoked after every input page, so the first page is numbered in memory and the rest after unspilling
+        List<Page> pages = toPages(operatorFactory, driverContext, input, true);
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), ImmutableList.of(DOUBLE, BIGINT, BIGINT), pages);
+
+        ListMultimap<Long, Long> rowNumbers = ArrayListMultimap.create();
+        for (MaterializedRow row : actual.getMaterializedRows()) {
+            rowNumbers.put((Long) row.getField(1), (Long) row.getField(2));
+        }
+        assertEqualsIgnoreOrder(rowNumbers.get(1L), ImmutableList.of(1L, 2L, 3L));
+        assertEqualsIgnoreOrder(rowNumbers.get(2L), ImmutableList.of(1L, 2L, 3L));
+        assertEqualsIgnoreOrder(rowNumbers.get(3L), ImmutableList.of(1L, 2L));
+    }
+
     @Test(dataProvider = "hashEnabledValues")
     public void testRowNumberPartitionedLimit(boolean hashEnabled)
     {
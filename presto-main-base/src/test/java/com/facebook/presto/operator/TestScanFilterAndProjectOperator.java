@@ -47,6 +47,7 @@ import com.facebook.presto.testing.MaterializedResult;
 import com.facebook.presto.testing.TestingSplit;
 import com.facebook.presto.testing.TestingTransactionHandle;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
 import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
@@ -201,6 +202,60 @@ public class TestScanFilterAndProjectOperator
         assertPageEquals(ImmutableList.of(BIGINT), actual.get(0), expected.get(0));
     }
 
+    @Test
+    public void testPageSourceBloomFilter()
+    {
+        Block keyBlock = BlockAssertions.createLongSequenceBlock(0, 100);
+        BlockedBloomFilter bloomFilter = new BlockedBloomFilter(BIGINT, new DataSize(64, KILOBYTE));
+        for (int position = 0; position < keyBlock.getPositionCount(); position += 2) {
+            bloomFilter.put(keyBlock, position);
+        }
+
+        Page input = new Page(100, keyBlock, new LazyBlock(100, lazyBlock -> lazyBlock.setBlock(BlockAssertions.createLongSequenceBlock(100, 200))));
+        DriverContext driverContext = newDriverContext();
+
+        List<RowExpression> projections = ImmutableList.of(field(0, BIGINT), field(1, BIGINT));
+        Supplier<CursorProcessor> cursorProcessor = expressionCompiler.compileCursorProcessor(driverContext.getSession().getSqlFunctionProperties(), Optional.empty(), projections, "key");
+        Supplier<PageProcessor> pageProcessor = expressionCompiler.compilePageProcessor(driverContext.getSession().getSqlFunctionProperties(), Optional.empty(), projections);
+
+        ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory factory = new ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                new PlanNodeId("0"),
+                (session, split, table, columns, runtimeStats) -> new FixedPageSource(ImmutableList.of(input)),
+                cursorProcessor,
+                pageProcessor,
+                TESTING_TABLE_HANDLE,
+                ImmutableList.of(),
+                ImmutableList.of(BIGINT, BIGINT),
+                Optional.empty(),
+                Optional.of(() -> ImmutableMap.of(0, bloomFilter)),
+                new DataSize(0, BYTE),
+                0);
+
+        SourceOperator operator = factory.createOperator(driverContext);
+        operator.addSplit(
+                new ScheduledSplit(
+                        0,
+                        operator.getSourceId(),
+                        new Split(new ConnectorId("test"), TestingTransactionHandle.create(), TestingSplit.createLocalSplit())));
+        operator.noMoreSplits();
+
+        // the rows that the Bloom filter rejects are dropped, and the lazy column is filtered with them
+        MaterializedResult.Builder expected = MaterializedResult.resultBuilder(driverContext.getSession(), BIGINT, BIGINT);
+        int expectedRows = 0;
+        for (int position = 0; position < keyBlock.getPositionCount(); position++) {
+            if (bloomFilter.mightContain(keyBlock, position)) {
+                expected.row((long) position, position + 100L);
+                expectedRows++;
+            }
+        }
+        assertTrue(expectedRows >= 50 && expectedRows < 100, "unexpected number of rows passing the Bloom filter: " + expectedRows);
+
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), ImmutableList.of(BIGINT, BIGINT), toPages(operator));
+        assertEquals(actual, expected.build());
+    }
+
     @Test
     public void testPageSourceLazyLoad()
     {
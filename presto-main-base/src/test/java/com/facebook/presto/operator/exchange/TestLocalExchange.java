@@ -48,6 +48,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static com.facebook.airlift.testing.Assertions.assertContains;
@@ -55,6 +56,8 @@ import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.operator.PipelineExecutionStrategy.GROUPED_EXECUTION;
 import static com.facebook.presto.operator.PipelineExecutionStrategy.UNGROUPED_EXECUTION;
 import static com.facebook.presto.operator.exchange.LocalExchange.createPartitionFunction;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.LOCAL_EXCHANGE_WORK_STEALING_ENABLED;
+import static com.facebook.presto.sessionpropertyproviders.JavaWorkerSessionPropertyProvider.LOCAL_EXCHANGE_ZERO_COPY_PARTITIONING_ENABLED;
 import static com.facebook.presto.spi.connector.ConnectorBucketNodeMap.createBucketNodeMap;
 import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.SOFT_AFFINITY;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_ARBITRARY_DISTRIBUTION;
@@ -451,6 +454,123 @@ public class TestLocalExchange
         });
     }
 
+    @DataProvider
+    public static Object[][] zeroCopyPartitionCounts()
+    {
+        return new Object[][] {{2}, {4}};
+    }
+
+    @Test(dataProvider = "zeroCopyPartitionCounts")
+    public void testPartitionZeroCopy(int partitionCount)
+    {
+        Session zeroCopySession = testSessionBuilder()
+                .setSystemProperty(LOCAL_EXCHANGE_ZERO_COPY_PARTITIONING_ENABLED, "true")
+                .build();
+        LocalExchangeFactory localExchangeFactory = new LocalExchangeFactory(
+                partitioningProviderManager,
+                zeroCopySession,
+                FIXED_HASH_DISTRIBUTION,
+                partitionCount,
+                TYPES,
+                ImmutableList.of(0),
+                Optional.empty(),
+                UNGROUPED_EXECUTION,
+                LOCAL_EXCHANGE_MAX_BUFFERED_BYTES);
+        LocalExchangeSinkFactoryId localExchangeSinkFactoryId = localExchangeFactory.newSinkFactoryId();
+        localExchangeFactory.noMoreSinkFactories();
+
+        run(localExchangeFactory, UNGROUPED_EXECUTION, exchange -> {
+            LocalExchangeSinkFactory sinkFactory = exchange.getSinkFactory(localExchangeSinkFactoryId);
+            LocalExchangeSink sink = sinkFactory.createSink();
+            sinkFactory.close();
+            sinkFactory.noMoreSinkFactories();
+
+            Page page = createPage(0);
+            sink.addPage(page);
+
+            // every partition references the input page, which is accounted once
+            assertEquals(exchange.getBufferedBytes(), page.getRetainedSizeInBytes());
+
+            // the consumers of partitions with less than half of the positions get a compact copy of their positions
+            LocalPartitionGenerator partitionGenerator = new LocalPartitionGenerator(new InterpretedHashGenerator(TYPES, new int[] {0}), partitionCount);
+            for (int partition = 0; partition < partitionCount; partition++) {
+                LocalExchangeSource source = exchange.getSource(partition);
+                int[] positions = getPartitionPositions(page, partitionGenerator, partition);
+                if (positions.length > 0) {
+                    Page partitionPage = assertPartitionedRemovePage(source, partition, partitionCount);
+                    if (positions.length * 2 < page.getPositionCount()) {
+                        assertTrue(partitionPage.getRetainedSizeInBytes() < page.getRetainedSizeInBytes());
+                    }
+                }
+            }
+            assertExchangeTotalBufferedBytes(exchange, 0);
+
+            sink.finish();
+            for (int partition = 0; partition < partitionCount; partition++) {
+                assertSourceFinished(exchange.getSource(partition));
+            }
+        });
+    }
+
+    private static int[] getPartitionPositions(Page page, LocalPartitionGenerator partitionGenerator, int partition)
+    {
+        return IntStream.range(0, page.getPositionCount())
+                .filter(position -> partitionGenerator.getPartition(page, position) == partition)
+                .toArray();
+    }
+
+    @Test
+    public void testRandomWorkStealing()
+    {
+        Session workStealingSession = testSessionBuilder()
+                .setSystemProperty(LOCAL_EXCHANGE_WORK_STEALING_ENABLED, "true")
+                .build();
+        LocalExchangeFactory localExchangeFactory = new LocalExchangeFactory(
+                partitioningProviderManager,
+                workStealingSession,
+                FIXED_ARBITRARY_DISTRIBUTION,
+                2,
+                TYPES,
+                ImmutableList.of(),
+                Optional.empty(),
+                UNGROUPED_EXECUTION,
+                LOCAL_EXCHANGE_MAX_BUFFERED_BYTES);
+        LocalExchangeSinkFactoryId localExchangeSinkFactoryId = localExchangeFactory.newSinkFactoryId();
+        localExchangeFactory.noMoreSinkFactories();
+
+        run(localExchangeFactory, UNGROUPED_EXECUTION, exchange -> {
+            LocalExchangeSinkFactory sinkFactory = exchange.getSinkFactory(localExchangeSinkFactoryId);
+            LocalExchangeSink sink = sinkFactory.createSink();
+            sinkFactory.close();
+            sinkFactory.noMoreSinkFactories();
+
+            LocalExchangeSource sourceA = exchange.getSource(0);
+            LocalExchangeSource sourceB = exchange.getSource(1);
+            ListenableFuture<?> readFutureA = sourceA.waitForReading();
+            ListenableFuture<?> readFutureB = sourceB.waitForReading();
+
+            for (int i = 0; i < 10; i++) {
+                sink.addPage(createPage(0));
+            }
+            // the pages may land in either buffer, but both readers can make progress
+            assertTrue(readFutureA.isDone());
+            assertTrue(readFutureB.isDone());
+
+            // a single reader drains the whole exchange
+            for (int i = 0; i < 10; i++) {
+                assertTrue(sourceA.waitForReading().isDone());
+                assertNotNull(sourceA.removePage());
+            }
+            assertNull(sourceA.removePage());
+            assertNull(sourceB.removePage());
+            assertExchangeTotalBufferedBytes(exchange, 0);
+
+            sink.finish();
+            assertSourceFinished(sourceA);
+            assertSourceFinished(sourceB);
+        });
+    }
+
     @Test
     public void testCreatePartitionFunction()
     {
@@ -723,7 +843,7 @@ public class TestLocalExchange
         PageAssertions.assertPageEquals(TYPES, actualPage, expectedPage);
     }
 
-    private static void assertPartitionedRemovePage(LocalExchangeSource source, int partition, int partitionCount)
+    private static Page assertPartitionedRemovePage(LocalExchangeSource source, int partition, int partitionCount)
     {
         assertTrue(source.waitForReading().isDone());
         Page page = source.removePage();
@@ -733,6 +853,7 @@ public class TestLocalExchange
         for (int position = 0; position < page.getPositionCount(); position++) {
             assertEquals(partitionGenerator.getPartition(page, position), partition);
         }
+        return page;
     }
 
     private static void assertSinkCanWrite(LocalExchangeSink sink)
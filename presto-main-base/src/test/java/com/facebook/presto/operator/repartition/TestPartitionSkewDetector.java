@@ -0,0 +1,69 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.repartition;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.common.block.BlockBuilder;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static org.testng.Assert.assertEquals;
+
+public class TestPartitionSkewDetector
+{
+    @Test
+    public void testUniformKeys()
+    {
+        PartitionSkewDetector detector = new PartitionSkewDetector(ImmutableList.of(BIGINT), 8);
+        for (int i = 0; i < 100; i++) {
+            detector.addKeys(new Page(createLongSequenceBlock(i * 1000, (i + 1) * 1000)));
+        }
+        assertEquals(detector.getHotKeyCount(), 0);
+    }
+
+    @Test
+    public void testHotKeys()
+    {
+        PartitionSkewDetector detector = new PartitionSkewDetector(ImmutableList.of(BIGINT), 16);
+        for (int i = 0; i < 100; i++) {
+            // two fifths of the rows have one of two keys
+            BlockBuilder builder = BIGINT.createBlockBuilder(null, 1000);
+            for (int position = 0; position < 1000; position++) {
+                if (position % 5 == 0) {
+                    BIGINT.writeLong(builder, -1);
+                }
+                else if (position % 5 == 1) {
+                    BIGINT.writeLong(builder, -2);
+                }
+                else {
+                    BIGINT.writeLong(builder, i * 1000 + position);
+                }
+            }
+            detector.addKeys(new Page(builder.build()));
+        }
+        assertEquals(detector.getHotKeyCount(), 2);
+    }
+
+    @Test
+    public void testMaxPartitionBytes()
+    {
+        PartitionSkewDetector detector = new PartitionSkewDetector(ImmutableList.of(BIGINT), 3);
+        detector.addPartitionBytes(0, 10);
+        detector.addPartitionBytes(1, 20);
+        detector.addPartitionBytes(0, 15);
+        assertEquals(detector.getMaxPartitionBytes(), 25);
+    }
+}
@@ -14,6 +14,7 @@
 package com.facebook.presto.operator.window;
 
 import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.testing.MaterializedRow;
 import org.intellij.lang.annotations.Language;
 import org.testng.annotations.Test;
 
@@ -22,6 +23,8 @@ import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+import static java.lang.String.format;
+import static org.testng.Assert.assertEquals;
 
 public class TestAggregateWindowFunction
         extends AbstractTestWindowFunction
@@ -530,4 +533,50 @@ public class TestAggregateWindowFunction
                         .row(null, null, null)
                         .build());
     }
+
+    @Test
+    public void testLargeSlidingFrames()
+    {
+        int rows = 3000;
+        assertLargeSlidingFrame(rows, 299, 0);
+        assertLargeSlidingFrame(rows, 150, 150);
+        assertLargeSlidingFrame(rows, 1000, -500);
+    }
+
+    private void assertLargeSlidingFrame(int rows, int preceding, int following)
+    {
+        String frame = format("ORDER BY x ROWS BETWEEN %s PRECEDING AND %s)",
+                preceding,
+                following >= 0 ? following + " FOLLOWING" : -following + " PRECEDING");
+        MaterializedResult actual = queryRunner.execute(format("" +
+                        "SELECT x, sum(v) OVER (%1$s, min(v) OVER (%1$s, max(v) OVER (%1$s, count(v) OVER (%1$s " +
+                        "FROM (SELECT x, IF(x %% 97 = 0, NULL, x * 7919 %% 1000) v FROM UNNEST(sequence(1, %2$s)) t(x)) " +
+                        "ORDER BY x",
+                frame,
+                rows));
+
+        assertEquals(actual.getRowCount(), rows);
+        for (int row = 0; row < rows; row++) {
+            Long sum = null;
+            Long min = null;
+            Long max = null;
+            long count = 0;
+            for (int i = Math.max(0, row - preceding); i <= Math.min(rows - 1, row + following); i++) {
+                long x = i + 1;
+                if (x % 97 == 0) {
+                    continue;
+                }
+                long value = x * 7919 % 1000;
+                sum = sum == null ? value : sum + value;
+                min = min == null ? value : Math.min(min, value);
+                max = max == null ? value : Math.max(max, value);
+                count++;
+            }
+            MaterializedRow actualRow = actual.getMaterializedRows().get(row);
+            assertEquals(actualRow.getField(1), sum, "sum at row " + row);
+            assertEquals(actualRow.getField(2), min, "min at row " + row);
+            assertEquals(actualRow.getField(3), max, "max at row " + row);
+            assertEquals(actualRow.getField(4), count, "count at row " + row);
+        }
+    }
 }
@@ -47,6 +47,7 @@ public class TestInternalCommunicationConfig
                 .setServerInfoCommunicationProtocol(CommunicationProtocol.HTTP)
                 .setThriftTransportEnabled(false)
                 .setTaskInfoThriftTransportEnabled(false)
+                .setOmitTaskUpdateStats(false)
                 .setThriftProtocol(Protocol.BINARY)
                 .setMemoizeDeadNodesEnabled(false)
                 .setSharedSecret(null)
@@ -72,6 +73,7 @@ public class TestInternalCommunicationConfig
                 .put("internal-communication.server-info-communication-protocol", "THRIFT")
                 .put("experimental.internal-communication.thrift-transport-enabled", "true")
                 .put("experimental.internal-communication.task-info-thrift-transport-enabled", "true")
+                .put("experimental.internal-communication.omit-task-update-stats", "true")
                 .put("experimental.internal-communication.thrift-transport-protocol", "COMPACT")
                 .put("internal-communication.memoize-dead-nodes-enabled", "true")
                 .put("internal-communication.shared-secret", "secret")
@@ -94,6 +96,7 @@ public class TestInternalCommunicationConfig
                 .setServerInfoCommunicationProtocol(CommunicationProtocol.THRIFT)
                 .setThriftTransportEnabled(true)
                 .setTaskInfoThriftTransportEnabled(true)
+                .setOmitTaskUpdateStats(true)
                 .setThriftProtocol(Protocol.COMPACT)
                 .setMemoizeDeadNodesEnabled(true)
                 .setSharedSecret("secret")
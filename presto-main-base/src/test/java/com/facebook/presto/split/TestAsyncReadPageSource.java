@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.FixedPageSource;
+import com.facebook.presto.spi.InMemoryRecordSet;
+import com.facebook.presto.spi.RecordPageSource;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestAsyncReadPageSource
+{
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-async-read-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test(timeOut = 30_000)
+    public void testReadAllRecords()
+            throws IOException
+    {
+        InMemoryRecordSet.Builder records = InMemoryRecordSet.builder(ImmutableList.of(BIGINT));
+        for (long i = 0; i < 10_000; i++) {
+            records.addRow(i);
+        }
+        ConnectorPageSource pageSource = new AsyncReadPageSource(new RecordPageSource(records.build()), executor);
+
+        long positions = 0;
+        while (!pageSource.isFinished()) {
+            getFutureValue(pageSource.isBlocked());
+            Page page = pageSource.getNextPage();
+            if (page != null) {
+                positions += page.getPositionCount();
+            }
+        }
+        assertEquals(positions, 10_000);
+        assertNull(pageSource.getNextPage());
+        pageSource.close();
+    }
+
+    @Test(timeOut = 30_000)
+    public void testBlockedOnRead()
+            throws Exception
+    {
+        CountDownLatch readAllowed = new CountDownLatch(1);
+        ConnectorPageSource delegate = new FixedPageSource(ImmutableList.of(new Page(createLongSequenceBlock(0, 10))))
+        {
+            @Override
+            public Page getNextPage()
+            {
+                try {
+                    readAllowed.await();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+                return super.getNextPage();
+            }
+        };
+        ConnectorPageSource pageSource = new AsyncReadPageSource(delegate, executor);
+
+        CompletableFuture<?> blocked = pageSource.isBlocked();
+        assertFalse(blocked.isDone());
+        assertNull(pageSource.getNextPage());
+        assertFalse(pageSource.isFinished());
+
+        readAllowed.countDown();
+        getFutureValue(blocked);
+        // the page that was read ahead is counted until it is returned
+        long memoryUsage = pageSource.getSystemMemoryUsage();
+        assertEquals(pageSource.getCompletedPositions(), 10);
+        Page page = pageSource.getNextPage();
+        assertEquals(page.getPositionCount(), 10);
+        assertEquals(pageSource.getSystemMemoryUsage(), memoryUsage - page.getRetainedSizeInBytes());
+        assertTrue(pageSource.isFinished());
+        pageSource.close();
+    }
+
+    @Test(timeOut = 30_000)
+    public void testReadFailure()
+            throws IOException
+    {
+        ConnectorPageSource delegate = new FixedPageSource(ImmutableList.of())
+        {
+            @Override
+            public Page getNextPage()
+            {
+                throw new IllegalStateException("read failed");
+            }
+        };
+        ConnectorPageSource pageSource = new AsyncReadPageSource(delegate, executor);
+
+        getFutureValue(pageSource.isBlocked()
+                .handle((result, throwable) -> null));
+        try {
+            pageSource.getNextPage();
+            fail("expected exception");
+        }
+        catch (IllegalStateException e) {
+            assertEquals(e.getMessage(), "read failed");
+        }
+        pageSource.close();
+    }
+}
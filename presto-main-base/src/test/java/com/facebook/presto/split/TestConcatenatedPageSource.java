@@ -0,0 +1,122 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.presto.common.Page;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.FixedPageSource;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestConcatenatedPageSource
+{
+    @Test
+    public void testConcatenate()
+            throws IOException
+    {
+        List<TrackingPageSource> created = new ArrayList<>();
+        List<Supplier<ConnectorPageSource>> pageSources = ImmutableList.of(
+                () -> track(created, new TrackingPageSource(ImmutableList.of(createPage(10), createPage(20)))),
+                () -> track(created, new TrackingPageSource(ImmutableList.of())),
+                () -> track(created, new TrackingPageSource(ImmutableList.of(createPage(30)))));
+        ConnectorPageSource pageSource = new ConcatenatedPageSource(pageSources.iterator());
+
+        // page sources are created lazily
+        assertFalse(pageSource.isFinished());
+        assertTrue(created.isEmpty());
+
+        List<Integer> positionCounts = new ArrayList<>();
+        while (!pageSource.isFinished()) {
+            Page page = pageSource.getNextPage();
+            if (page != null) {
+                positionCounts.add(page.getPositionCount());
+                // a page source is closed once the next one is created
+                assertTrue(created.subList(0, created.size() - 1).stream().allMatch(TrackingPageSource::isClosed));
+            }
+        }
+        assertEquals(positionCounts, ImmutableList.of(10, 20, 30));
+        assertEquals(created.size(), 3);
+        assertEquals(pageSource.getCompletedPositions(), 60);
+        assertEquals(pageSource.getCompletedBytes(), created.stream().mapToLong(FixedPageSource::getCompletedBytes).sum());
+        assertNull(pageSource.getNextPage());
+
+        pageSource.close();
+        assertTrue(created.stream().allMatch(TrackingPageSource::isClosed));
+    }
+
+    @Test
+    public void testClose()
+            throws IOException
+    {
+        List<TrackingPageSource> created = new ArrayList<>();
+        List<Supplier<ConnectorPageSource>> pageSources = ImmutableList.of(
+                () -> track(created, new TrackingPageSource(ImmutableList.of(createPage(10), createPage(20)))),
+                () -> track(created, new TrackingPageSource(ImmutableList.of(createPage(30)))));
+        ConnectorPageSource pageSource = new ConcatenatedPageSource(pageSources.iterator());
+
+        assertEquals(pageSource.getNextPage().getPositionCount(), 10);
+        pageSource.close();
+        assertTrue(pageSource.isFinished());
+        assertNull(pageSource.getNextPage());
+
+        // the remaining page sources are never created
+        assertEquals(created.size(), 1);
+        assertTrue(created.get(0).isClosed());
+    }
+
+    private static Page createPage(int positionCount)
+    {
+        return new Page(createLongSequenceBlock(0, positionCount));
+    }
+
+    private static TrackingPageSource track(List<TrackingPageSource> created, TrackingPageSource pageSource)
+    {
+        created.add(pageSource);
+        return pageSource;
+    }
+
+    private static class TrackingPageSource
+            extends FixedPageSource
+    {
+        private boolean closed;
+
+        public TrackingPageSource(List<Page> pages)
+        {
+            super(pages);
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+            super.close();
+        }
+
+        public boolean isClosed()
+        {
+            return closed;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.presto.execution.Lifespan;
+import com.facebook.presto.split.SplitSource.SplitBatch;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.testng.annotations.Test;
+
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutionException;
+
+import static com.facebook.airlift.concurrent.MoreFutures.getFutureValue;
+import static com.facebook.airlift.testing.Assertions.assertContains;
+import static com.facebook.presto.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
+import static com.facebook.presto.split.MockSplitSource.Action.FAIL;
+import static com.facebook.presto.split.MockSplitSource.Action.FINISH;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestPrefetchingSplitSource
+{
+    @Test
+    public void testPrefetch()
+    {
+        MockSplitSource mockSource = new MockSplitSource()
+                .setBatchSize(10)
+                .increaseAvailableSplits(100)
+                .atSplitCompletion(FINISH);
+        try (SplitSource source = new PrefetchingSplitSource(mockSource, 50)) {
+            // the first batch has to wait for the source, so twice the batch size is fetched
+            assertBatch(getNextBatch(source, 10), 10, false);
+            assertEquals(source.getBufferedSplitCount(), OptionalInt.of(20));
+            assertEquals(mockSource.getNextBatchInvocationCount(), 3);
+
+            // the splits of the next batch are already buffered
+            assertBatch(getNextBatch(source, 10), 10, false);
+            assertEquals(source.getBufferedSplitCount(), OptionalInt.of(20));
+            assertEquals(mockSource.getNextBatchInvocationCount(), 4);
+
+            int splits = 20;
+            while (!source.isFinished()) {
+                SplitBatch batch = getFutureValue(getNextBatch(source, 10));
+                splits += batch.getSplits().size();
+            }
+            assertEquals(splits, 100);
+            assertEquals(source.getBufferedSplitCount(), OptionalInt.of(0));
+        }
+    }
+
+    @Test
+    public void testPrefetchDepthGrows()
+    {
+        MockSplitSource mockSource = new MockSplitSource()
+                .setBatchSize(100);
+        try (SplitSource source = new PrefetchingSplitSource(mockSource, 40)) {
+            ListenableFuture<SplitBatch> batch = getNextBatch(source, 5);
+            assertFalse(batch.isDone());
+            mockSource.increaseAvailableSplits(7);
+            assertBatch(batch, 5, false);
+            assertEquals(source.getBufferedSplitCount(), OptionalInt.of(2));
+            assertBatch(getNextBatch(source, 5), 2, false);
+
+            // the scheduler has to wait again, so more splits are fetched ahead
+            batch = getNextBatch(source, 5);
+            assertFalse(batch.isDone());
+            mockSource.increaseAvailableSplits(100);
+            assertBatch(batch, 5, false);
+            assertEquals(source.getBufferedSplitCount(), OptionalInt.of(20));
+
+            // the number of splits fetched ahead is bounded
+            assertBatch(getNextBatch(source, 100), 20, false);
+            assertEquals(source.getBufferedSplitCount(), OptionalInt.of(40));
+        }
+    }
+
+    @Test
+    public void testManyImmediateBatches()
+    {
+        MockSplitSource mockSource = new MockSplitSource()
+                .setBatchSize(1)
+                .increaseAvailableSplits(100_000)
+                .atSplitCompletion(FINISH);
+        try (SplitSource source = new PrefetchingSplitSource(mockSource, 100_000)) {
+            // batches that complete immediately are fetched without growing the stack
+            assertBatch(getNextBatch(source, 100_000), 100_000, true);
+            assertEquals(mockSource.getNextBatchInvocationCount(), 100_000);
+        }
+    }
+
+    @Test
+    public void testRewind()
+    {
+        try (SplitSource source = new PrefetchingSplitSource(new MockSplitSource(), 100)) {
+            source.rewind(NOT_PARTITIONED);
+            fail("expected exception");
+        }
+        catch (UnsupportedOperationException e) {
+            // rewinding is left to the underlying source
+            assertEquals(e.getMessage(), "rewind is not supported in MockSplitSource");
+        }
+    }
+
+    @Test
+    public void testEmptySource()
+    {
+        MockSplitSource mockSource = new MockSplitSource()
+                .setBatchSize(1)
+                .atSplitCompletion(FINISH);
+        try (SplitSource source = new PrefetchingSplitSource(mockSource, 100)) {
+            assertBatch(getNextBatch(source, 10), 0, true);
+            assertTrue(source.isFinished());
+        }
+    }
+
+    @Test
+    public void testFail()
+    {
+        MockSplitSource mockSource = new MockSplitSource()
+                .setBatchSize(1)
+                .increaseAvailableSplits(1)
+                .atSplitCompletion(FAIL);
+        try (SplitSource source = new PrefetchingSplitSource(mockSource, 100)) {
+            // the failure of a prefetch is reported once the buffered splits are consumed
+            assertBatch(getNextBatch(source, 10), 1, false);
+            assertFailsWithMockFailure(getNextBatch(source, 10));
+        }
+    }
+
+    private static ListenableFuture<SplitBatch> getNextBatch(SplitSource splitSource, int maxSize)
+    {
+        return splitSource.getNextBatch(NOT_PARTITIONED, Lifespan.taskWide(), maxSize);
+    }
+
+    private static void assertBatch(ListenableFuture<SplitBatch> future, int expectedSize, boolean expectedLastBatch)
+    {
+        assertTrue(future.isDone());
+        SplitBatch batch = getFutureValue(future);
+        assertEquals(batch.getSplits().size(), expectedSize);
+        assertEquals(batch.isLastBatch(), expectedLastBatch);
+    }
+
+    private static void assertFailsWithMockFailure(ListenableFuture<?> future)
+    {
+        assertTrue(future.isDone());
+        try {
+            future.get();
+            fail("expected exception");
+        }
+        catch (InterruptedException | ExecutionException e) {
+            assertContains(e.getMessage(), "Mock failure");
+        }
+    }
+}
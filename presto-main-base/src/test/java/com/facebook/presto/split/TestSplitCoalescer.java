@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.split;
+
+import com.facebook.presto.execution.Lifespan;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.NodeProvider;
+import com.facebook.presto.spi.SplitContext;
+import com.facebook.presto.spi.SplitWeight;
+import com.facebook.presto.spi.schedule.NodeSelectionStrategy;
+import com.facebook.presto.testing.TestingSplit;
+import com.facebook.presto.testing.TestingTransactionHandle;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.OptionalLong;
+
+import static com.facebook.presto.spi.SplitContext.NON_CACHEABLE;
+import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.HARD_AFFINITY;
+import static com.facebook.presto.spi.schedule.NodeSelectionStrategy.NO_PREFERENCE;
+import static com.facebook.presto.split.SplitCoalescer.MAX_COALESCED_SPLITS;
+import static com.facebook.presto.split.SplitCoalescer.coalesceSplits;
+import static java.util.Collections.nCopies;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestSplitCoalescer
+{
+    private static final ConnectorId CONNECTOR_ID = new ConnectorId("test");
+
+    @Test
+    public void testCoalesceSmallSplits()
+    {
+        // four splits of a quarter make one standard split
+        List<Split> splits = ImmutableList.of(
+                createSplit(0.25),
+                createSplit(0.25),
+                createSplit(0.25),
+                createSplit(0.25),
+                createSplit(0.5));
+        List<Split> coalesced = coalesceSplits(splits);
+
+        assertEquals(coalesced.size(), 2);
+        assertCoalesced(coalesced.get(0), splits.subList(0, 4));
+        assertSame(coalesced.get(1), splits.get(4));
+        assertEquals(coalesced.get(0).getConnectorSplit().getSplitWeight(), SplitWeight.standard());
+    }
+
+    @Test
+    public void testStandardSplitsNotCoalesced()
+    {
+        List<Split> splits = ImmutableList.of(createSplit(1), createSplit(0.1), createSplit(1));
+        assertEquals(coalesceSplits(splits), splits);
+    }
+
+    @Test
+    public void testSplitsNotCoalesced()
+    {
+        Split affinity = new Split(CONNECTOR_ID, TestingTransactionHandle.create(), new WeightedSplit(SplitWeight.fromProportion(0.1), HARD_AFFINITY));
+        Split cacheable = new Split(CONNECTOR_ID, TestingTransactionHandle.create(), new WeightedSplit(SplitWeight.fromProportion(0.1), NO_PREFERENCE), Lifespan.taskWide(), new SplitContext(true));
+        Split empty = new Split(CONNECTOR_ID, TestingTransactionHandle.create(), new EmptySplit(CONNECTOR_ID));
+        Split first = createSplit(0.1);
+        Split second = createSplit(0.1);
+
+        List<Split> coalesced = coalesceSplits(ImmutableList.of(first, affinity, cacheable, empty, second));
+        assertEquals(coalesced.size(), 4);
+        assertCoalesced(coalesced.get(0), ImmutableList.of(first, second));
+        assertEquals(coalesced.subList(1, 4), ImmutableList.of(affinity, cacheable, empty));
+    }
+
+    @Test
+    public void testMaxCoalescedSplits()
+    {
+        List<Split> splits = ImmutableList.copyOf(nCopies(MAX_COALESCED_SPLITS + 1, createSplit(0.001)));
+        List<Split> coalesced = coalesceSplits(splits);
+
+        assertEquals(coalesced.size(), 2);
+        assertCoalesced(coalesced.get(0), splits.subList(0, MAX_COALESCED_SPLITS));
+        assertSame(coalesced.get(1), splits.get(MAX_COALESCED_SPLITS));
+    }
+
+    @Test
+    public void testCoalescedSplit()
+    {
+        CoalescedSplit split = new CoalescedSplit(ImmutableList.of(
+                new WeightedSplit(SplitWeight.fromProportion(0.25), NO_PREFERENCE),
+                new WeightedSplit(SplitWeight.fromProportion(0.5), NO_PREFERENCE)));
+        assertEquals(split.getSplitWeight(), SplitWeight.fromProportion(0.75));
+        assertEquals(split.getSplitSizeInBytes(), OptionalLong.of(200));
+        assertEquals(split.getInfo(), ImmutableList.of("weighted", "weighted"));
+
+        // the size is unknown as soon as one split does not know its size
+        assertEquals(new CoalescedSplit(ImmutableList.of(new WeightedSplit(SplitWeight.standard(), NO_PREFERENCE), TestingSplit.createLocalSplit())).getSplitSizeInBytes(), OptionalLong.empty());
+    }
+
+    private static void assertCoalesced(Split split, List<Split> expected)
+    {
+        assertTrue(split.getConnectorSplit() instanceof CoalescedSplit);
+        List<ConnectorSplit> expectedConnectorSplits = expected.stream()
+                .map(Split::getConnectorSplit)
+                .collect(ImmutableList.toImmutableList());
+        assertEquals(((CoalescedSplit) split.getConnectorSplit()).getSplits(), expectedConnectorSplits);
+        assertEquals(split.getConnectorId(), CONNECTOR_ID);
+        assertEquals(split.getSplitContext(), NON_CACHEABLE);
+    }
+
+    private static Split createSplit(double weight)
+    {
+        return new Split(CONNECTOR_ID, TestingTransactionHandle.create(), new WeightedSplit(SplitWeight.fromProportion(weight), NO_PREFERENCE));
+    }
+
+    private static class WeightedSplit
+            implements ConnectorSplit
+    {
+        private final SplitWeight splitWeight;
+        private final NodeSelectionStrategy nodeSelectionStrategy;
+
+        public WeightedSplit(SplitWeight splitWeight, NodeSelectionStrategy nodeSelectionStrategy)
+        {
+            this.splitWeight = splitWeight;
+            this.nodeSelectionStrategy = nodeSelectionStrategy;
+        }
+
+        @Override
+        public NodeSelectionStrategy getNodeSelectionStrategy()
+        {
+            return nodeSelectionStrategy;
+        }
+
+        @Override
+        public List<HostAddress> getPreferredNodes(NodeProvider nodeProvider)
+        {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public Object getInfo()
+        {
+            return "weighted";
+        }
+
+        @Override
+        public OptionalLong getSplitSizeInBytes()
+        {
+            return OptionalLong.of(100);
+        }
+
+        @Override
+        public SplitWeight getSplitWeight()
+        {
+            return splitWeight;
+        }
+    }
+}
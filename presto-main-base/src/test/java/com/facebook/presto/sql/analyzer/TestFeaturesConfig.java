@@ -47,6 +47,7 @@ import static com.facebook.presto.sql.analyzer.FeaturesConfig.TaskSpillingStrate
 import static com.facebook.presto.sql.analyzer.FeaturesConfig.TaskSpillingStrategy.PER_TASK_MEMORY_THRESHOLD;
 import static com.facebook.presto.sql.tree.CreateView.Security.DEFINER;
 import static com.facebook.presto.sql.tree.CreateView.Security.INVOKER;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
@@ -121,6 +122,7 @@ public class TestFeaturesConfig
                 .setDynamicFilteringMaxPerDriverRowCount(100)
                 .setDynamicFilteringMaxPerDriverSize(new DataSize(10, KILOBYTE))
                 .setDynamicFilteringRangeRowLimitPerDriver(0)
+                .setDynamicFilteringBloomFilterSize(new DataSize(0, BYTE))
                 .setFragmentResultCachingEnabled(false)
                 .setEnableStatsCalculator(true)
                 .setEnableStatsCollectionForTemporaryTable(false)
@@ -129,6 +131,8 @@ public class TestFeaturesConfig
                 .setDefaultFilterFactorEnabled(false)
                 .setExchangeCompressionCodec(CompressionCodec.NONE)
                 .setExchangeChecksumEnabled(false)
+                .setExchangeAdaptiveCompressionEnabled(false)
+                .setSplitCoalescingEnabled(false)
                 .setEnableIntermediateAggregations(false)
                 .setPushAggregationThroughJoin(true)
                 .setForceSingleNodeOutput(true)
@@ -177,6 +181,8 @@ public class TestFeaturesConfig
                 .setSpoolingOutputBufferEnabled(false)
                 .setSpoolingOutputBufferThreshold(new DataSize(8, MEGABYTE))
                 .setSpoolingOutputBufferTempStorage("local")
+                .setSpoolingPartitionedOutputBufferEnabled(false)
+                .setSpoolingPartitionedOutputBufferThreads(8)
                 .setPrestoSparkAssignBucketToPartitionForPartitionedTableWriteEnabled(false)
                 .setPartialResultsEnabled(false)
                 .setPartialResultsCompletionRatioThreshold(0.5)
@@ -209,6 +215,8 @@ public class TestFeaturesConfig
                 .setRandomizeOuterJoinNullKeyStrategy(RandomizeOuterJoinNullKeyStrategy.DISABLED)
                 .setShardedJoinStrategy(FeaturesConfig.ShardedJoinStrategy.DISABLED)
                 .setJoinShardCount(100)
+                .setSaltAggregationKeys(false)
+                .setAggregationKeySaltCount(8)
                 .setOptimizeConditionalAggregationEnabled(false)
                 .setRemoveRedundantDistinctAggregationEnabled(true)
                 .setInPredicatesAsInnerJoinsEnabled(false)
@@ -276,6 +284,7 @@ public class TestFeaturesConfig
                 .put("dynamic-filtering-max-per-driver-row-count", "256")
                 .put("dynamic-filtering-max-per-driver-size", "64kB")
                 .put("dynamic-filtering-range-row-limit-per-driver", "1000")
+                .put("dynamic-filtering-bloom-filter-size", "1MB")
                 .put("fragment-result-cache.enabled", "true")
                 .put("experimental.enable-stats-calculator", "false")
                 .put("experimental.enable-stats-collection-for-temporary-table", "true")
@@ -337,6 +346,8 @@ public class TestFeaturesConfig
                 .put("experimental.spiller.max-revocable-task-memory", "1GB")
                 .put("exchange.compression-codec", "LZ4")
                 .put("exchange.checksum-enabled", "true")
+                .put("exchange.adaptive-compression-enabled", "true")
+                .put("split-coalescing-enabled", "true")
                 .put("optimizer.enable-intermediate-aggregations", "true")
                 .put("optimizer.force-single-node-output", "false")
                 .put("pages-index.eager-compaction-enabled", "true")
@@ -384,6 +395,8 @@ public class TestFeaturesConfig
                 .put("spooling-output-buffer-enabled", "true")
                 .put("spooling-output-buffer-threshold", "16MB")
                 .put("spooling-output-buffer-temp-storage", "tempfs")
+                .put("spooling-output-buffer-partitioned-enabled", "true")
+                .put("spooling-output-buffer-partitioned-threads", "3")
                 .put("spark.assign-bucket-to-partition-for-partitioned-table-write-enabled", "true")
                 .put("partial-results-enabled", "true")
                 .put("partial-results-completion-ratio-threshold", "0.9")
@@ -416,6 +429,8 @@ public class TestFeaturesConfig
                 .put("optimizer.randomize-outer-join-null-key-strategy", "key_from_outer_join")
                 .put("optimizer.sharded-join-strategy", "cost_based")
                 .put("optimizer.join-shard-count", "200")
+                .put("optimizer.salt-aggregation-keys", "true")
+                .put("optimizer.aggregation-key-salt-count", "4")
                 .put("optimizer.optimize-conditional-aggregation-enabled", "true")
                 .put("optimizer.remove-redundant-distinct-aggregation-enabled", "false")
                 .put("optimizer.in-predicates-as-inner-joins-enabled", "true")
@@ -479,6 +494,7 @@ public class TestFeaturesConfig
                 .setDynamicFilteringMaxPerDriverRowCount(256)
                 .setDynamicFilteringMaxPerDriverSize(new DataSize(64, KILOBYTE))
                 .setDynamicFilteringRangeRowLimitPerDriver(1000)
+                .setDynamicFilteringBloomFilterSize(new DataSize(1, MEGABYTE))
                 .setFragmentResultCachingEnabled(true)
                 .setEnableStatsCalculator(false)
                 .setEnableStatsCollectionForTemporaryTable(true)
@@ -539,6 +555,8 @@ public class TestFeaturesConfig
                 .setMaxRevocableMemoryPerTask(new DataSize(1, GIGABYTE))
                 .setExchangeCompressionCodec(CompressionCodec.LZ4)
                 .setExchangeChecksumEnabled(true)
+                .setExchangeAdaptiveCompressionEnabled(true)
+                .setSplitCoalescingEnabled(true)
                 .setEnableIntermediateAggregations(true)
                 .setForceSingleNodeOutput(false)
                 .setPagesIndexEagerCompactionEnabled(true)
@@ -588,6 +606,8 @@ public class TestFeaturesConfig
                 .setSpoolingOutputBufferEnabled(true)
                 .setSpoolingOutputBufferThreshold(new DataSize(16, MEGABYTE))
                 .setSpoolingOutputBufferTempStorage("tempfs")
+                .setSpoolingPartitionedOutputBufferEnabled(true)
+                .setSpoolingPartitionedOutputBufferThreads(3)
                 .setPrestoSparkAssignBucketToPartitionForPartitionedTableWriteEnabled(true)
                 .setPartialResultsEnabled(true)
                 .setPartialResultsCompletionRatioThreshold(0.9)
@@ -620,6 +640,8 @@ public class TestFeaturesConfig
                 .setRandomizeOuterJoinNullKeyStrategy(RandomizeOuterJoinNullKeyStrategy.KEY_FROM_OUTER_JOIN)
                 .setShardedJoinStrategy(FeaturesConfig.ShardedJoinStrategy.COST_BASED)
                 .setJoinShardCount(200)
+                .setSaltAggregationKeys(true)
+                .setAggregationKeySaltCount(4)
                 .setOptimizeConditionalAggregationEnabled(true)
                 .setRemoveRedundantDistinctAggregationEnabled(false)
                 .setInPredicatesAsInnerJoinsEnabled(true)
@@ -36,7 +36,21 @@ public class TestJavaFeaturesConfig
                 .setDistinctAggregationLargeBlockSizeThreshold(DataSize.valueOf("50MB"))
                 .setOrderByAggregationSpillEnabled(true)
                 .setWindowSpillEnabled(true)
+                .setMarkDistinctSpillEnabled(false)
+                .setDistinctLimitSpillEnabled(false)
+                .setRowNumberSpillEnabled(false)
                 .setOrderBySpillEnabled(true)
+                .setOrderByParallelSortEnabled(false)
+                .setParallelOperatorThreads(Runtime.getRuntime().availableProcessors())
+                .setJoinParallelHashBuildEnabled(false)
+                .setFlatGroupByHashEnabled(false)
+                .setJoinBuildCacheEnabled(false)
+                .setJoinBuildCacheMaxSize(DataSize.valueOf("1GB"))
+                .setLocalExchangeZeroCopyPartitioningEnabled(false)
+                .setLocalExchangeWorkStealingEnabled(false)
+                .setPartitionedOutputSkewDetectionEnabled(false)
+                .setAsyncRecordReadsEnabled(false)
+                .setAsyncRecordReadThreads(32)
                 .setTopNSpillEnabled(true)
                 .setAggregationOperatorUnspillMemoryLimit(DataSize.valueOf("4MB"))
                 .setTopNOperatorUnspillMemoryLimit(DataSize.valueOf("4MB")));
@@ -53,7 +67,21 @@ public class TestJavaFeaturesConfig
                 .put("experimental.distinct-aggregation-large-block-size-threshold", "10MB")
                 .put("experimental.order-by-aggregation-spill-enabled", "false")
                 .put("experimental.window-spill-enabled", "false")
+                .put("experimental.mark-distinct-spill-enabled", "true")
+                .put("experimental.distinct-limit-spill-enabled", "true")
+                .put("experimental.row-number-spill-enabled", "true")
                 .put("experimental.order-by-spill-enabled", "false")
+                .put("experimental.order-by-parallel-sort-enabled", "true")
+                .put("experimental.parallel-operator-threads", "3")
+                .put("experimental.join-parallel-hash-build-enabled", "true")
+                .put("experimental.flat-group-by-hash-enabled", "true")
+                .put("experimental.join-build-cache-enabled", "true")
+                .put("experimental.join-build-cache-max-size", "256MB")
+                .put("experimental.local-exchange-zero-copy-partitioning-enabled", "true")
+                .put("experimental.local-exchange-work-stealing-enabled", "true")
+                .put("experimental.partitioned-output-skew-detection-enabled", "true")
+                .put("experimental.async-record-reads-enabled", "true")
+                .put("experimental.async-record-read-threads", "4")
                 .put("experimental.topn-spill-enabled", "false")
                 .put("experimental.aggregation-operator-unspill-memory-limit", "100MB")
                 .put("experimental.topn-operator-unspill-memory-limit", "100MB")
@@ -67,7 +95,21 @@ public class TestJavaFeaturesConfig
                 .setDistinctAggregationLargeBlockSizeThreshold(DataSize.valueOf("10MB"))
                 .setOrderByAggregationSpillEnabled(false)
                 .setWindowSpillEnabled(false)
+                .setMarkDistinctSpillEnabled(true)
+                .setDistinctLimitSpillEnabled(true)
+                .setRowNumberSpillEnabled(true)
                 .setOrderBySpillEnabled(false)
+                .setOrderByParallelSortEnabled(true)
+                .setParallelOperatorThreads(3)
+                .setJoinParallelHashBuildEnabled(true)
+                .setFlatGroupByHashEnabled(true)
+                .setJoinBuildCacheEnabled(true)
+                .setJoinBuildCacheMaxSize(DataSize.valueOf("256MB"))
+                .setLocalExchangeZeroCopyPartitioningEnabled(true)
+                .setLocalExchangeWorkStealingEnabled(true)
+                .setPartitionedOutputSkewDetectionEnabled(true)
+                .setAsyncRecordReadsEnabled(true)
+                .setAsyncRecordReadThreads(4)
                 .setTopNSpillEnabled(false)
                 .setAggregationOperatorUnspillMemoryLimit(DataSize.valueOf("100MB"))
                 .setTopNOperatorUnspillMemoryLimit(DataSize.valueOf("100MB"));
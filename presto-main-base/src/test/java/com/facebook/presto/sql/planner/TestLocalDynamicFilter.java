@@ -15,9 +15,14 @@
 package com.facebook.presto.sql.planner;
 
 import com.facebook.presto.Session;
+import com.facebook.presto.common.block.Block;
 import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.Range;
 import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.common.predicate.ValueSet;
 import com.facebook.presto.expressions.DynamicFilters.DynamicFilterPlaceholder;
+import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.facebook.presto.operator.BlockedBloomFilter;
 import com.facebook.presto.spi.plan.JoinNode;
 import com.facebook.presto.spi.relation.VariableReferenceExpression;
 import com.facebook.presto.sql.Optimizer;
@@ -26,8 +31,10 @@ import com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
 
 import java.util.List;
@@ -40,12 +47,17 @@ import java.util.function.Consumer;
 import static com.facebook.presto.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
 import static com.facebook.presto.SystemSessionProperties.FORCE_SINGLE_NODE_OUTPUT;
 import static com.facebook.presto.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
 import static com.facebook.presto.common.function.OperatorType.EQUAL;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
 import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.facebook.presto.testing.assertions.Assert.assertEquals;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestLocalDynamicFilter
         extends BasePlanTest
@@ -191,6 +203,74 @@ public class TestLocalDynamicFilter
                 new VariableReferenceExpression(Optional.empty(), "b", BIGINT), Domain.multipleValues(BIGINT, ImmutableList.of(100L, 200L)))));
     }
 
+    @Test
+    public void testBloomFilterMultiplePartitions()
+            throws ExecutionException, InterruptedException
+    {
+        VariableReferenceExpression probeVariable = new VariableReferenceExpression(Optional.empty(), "a", BIGINT);
+        AggregatedMemoryContext memoryContext = newSimpleAggregatedMemoryContext();
+        LocalDynamicFilter filter = new LocalDynamicFilter(
+                ImmutableMultimap.of("123", new DynamicFilterPlaceholder("123", probeVariable, EQUAL)),
+                ImmutableMap.of("123", 0),
+                2,
+                memoryContext.newLocalMemoryContext("test"));
+        Consumer<TupleDomain<String>> consumer = filter.getTupleDomainConsumer();
+        Consumer<Map<String, BlockedBloomFilter>> bloomFilterConsumer = filter.getBloomFilterConsumer();
+        ListenableFuture<Map<VariableReferenceExpression, BlockedBloomFilter>> result = filter.getBloomFilterResultFuture();
+
+        // each build driver collected too many values for an exact predicate
+        Block firstValues = createLongSequenceBlock(0, 1000);
+        consumer.accept(TupleDomain.withColumnDomains(ImmutableMap.of(
+                "123", Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 0L, true, 999L, true)), false))));
+        BlockedBloomFilter firstBloomFilter = createBloomFilter(firstValues);
+        bloomFilterConsumer.accept(ImmutableMap.of("123", firstBloomFilter));
+        assertFalse(result.isDone());
+        // the partitions are retained until all of them are merged
+        assertEquals(memoryContext.getBytes(), firstBloomFilter.getRetainedSizeInBytes());
+
+        Block secondValues = createLongSequenceBlock(5000, 6000);
+        consumer.accept(TupleDomain.withColumnDomains(ImmutableMap.of(
+                "123", Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 5000L, true, 5999L, true)), false))));
+        bloomFilterConsumer.accept(ImmutableMap.of("123", createBloomFilter(secondValues)));
+        assertEquals(memoryContext.getBytes(), 0);
+
+        // the merged filter contains the values of both drivers and rejects most of the others
+        Map<VariableReferenceExpression, BlockedBloomFilter> bloomFilters = result.get();
+        assertEquals(bloomFilters.keySet(), ImmutableSet.of(probeVariable));
+        BlockedBloomFilter merged = bloomFilters.get(probeVariable);
+        assertAllMightBeContained(merged, firstValues);
+        assertAllMightBeContained(merged, secondValues);
+
+        Block otherValues = createLongSequenceBlock(1000, 5000);
+        int falsePositives = 0;
+        for (int position = 0; position < otherValues.getPositionCount(); position++) {
+            if (merged.mightContain(otherValues, position)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < otherValues.getPositionCount() / 100, "too many false positives: " + falsePositives);
+    }
+
+    @Test
+    public void testBloomFilterSkippedForDiscreteValues()
+            throws ExecutionException, InterruptedException
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(
+                ImmutableMultimap.of("123", new DynamicFilterPlaceholder("123", new VariableReferenceExpression(Optional.empty(), "a", BIGINT), EQUAL)),
+                ImmutableMap.of("123", 0),
+                2);
+        Consumer<TupleDomain<String>> consumer = filter.getTupleDomainConsumer();
+        Consumer<Map<String, BlockedBloomFilter>> bloomFilterConsumer = filter.getBloomFilterConsumer();
+
+        consumer.accept(TupleDomain.withColumnDomains(ImmutableMap.of("123", Domain.singleValue(BIGINT, 10L))));
+        bloomFilterConsumer.accept(ImmutableMap.of("123", createBloomFilter(createLongsBlock(10L))));
+        consumer.accept(TupleDomain.withColumnDomains(ImmutableMap.of("123", Domain.singleValue(BIGINT, 20L))));
+        bloomFilterConsumer.accept(ImmutableMap.of("123", createBloomFilter(createLongsBlock(20L))));
+
+        // the exact values are published by the predicate instead
+        assertEquals(filter.getBloomFilterResultFuture().get(), ImmutableMap.of());
+    }
+
     @Test
     public void testCreateSingleColumn()
             throws ExecutionException, InterruptedException
@@ -309,4 +389,20 @@ public class TestLocalDynamicFilter
                 .searchFrom(fragment.getRoot())
                 .where(node -> node instanceof JoinNode);
     }
+
+    private static BlockedBloomFilter createBloomFilter(Block values)
+    {
+        BlockedBloomFilter bloomFilter = new BlockedBloomFilter(BIGINT, new DataSize(64, KILOBYTE));
+        for (int position = 0; position < values.getPositionCount(); position++) {
+            bloomFilter.put(values, position);
+        }
+        return bloomFilter;
+    }
+
+    private static void assertAllMightBeContained(BlockedBloomFilter bloomFilter, Block values)
+    {
+        for (int position = 0; position < values.getPositionCount(); position++) {
+            assertTrue(bloomFilter.mightContain(values, position));
+        }
+    }
 }
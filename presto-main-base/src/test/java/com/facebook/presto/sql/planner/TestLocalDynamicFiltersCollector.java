@@ -16,15 +16,21 @@ package com.facebook.presto.sql.planner;
 
 import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.TupleDomain;
+import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.facebook.presto.operator.BlockedBloomFilter;
 import com.facebook.presto.spi.relation.VariableReferenceExpression;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
 
 import java.util.Optional;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.facebook.presto.testing.assertions.Assert.assertEquals;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static org.testng.Assert.assertSame;
 
 public class TestLocalDynamicFiltersCollector
 {
@@ -49,6 +55,29 @@ public class TestLocalDynamicFiltersCollector
         assertEquals(collector.getPredicate(), TupleDomain.none());
     }
 
+    @Test
+    public void testBloomFilterMemory()
+    {
+        VariableReferenceExpression first = new VariableReferenceExpression(Optional.empty(), "first", BIGINT);
+        VariableReferenceExpression second = new VariableReferenceExpression(Optional.empty(), "second", BIGINT);
+        AggregatedMemoryContext memoryContext = newSimpleAggregatedMemoryContext();
+        LocalDynamicFiltersCollector collector = new LocalDynamicFiltersCollector(memoryContext.newLocalMemoryContext("test"));
+
+        // a filter for a new variable is published as is
+        BlockedBloomFilter firstBloomFilter = new BlockedBloomFilter(BIGINT, new DataSize(16, KILOBYTE));
+        collector.intersectBloomFilters(ImmutableMap.of(first, firstBloomFilter));
+        assertSame(collector.getBloomFilters().get(first), firstBloomFilter);
+        assertEquals(memoryContext.getBytes(), firstBloomFilter.getRetainedSizeInBytes());
+
+        BlockedBloomFilter secondBloomFilter = new BlockedBloomFilter(BIGINT, new DataSize(16, KILOBYTE));
+        collector.intersectBloomFilters(ImmutableMap.of(second, secondBloomFilter));
+        assertEquals(memoryContext.getBytes(), firstBloomFilter.getRetainedSizeInBytes() + secondBloomFilter.getRetainedSizeInBytes());
+
+        // intersecting replaces the published filter, so the memory doesn't grow
+        collector.intersectBloomFilters(ImmutableMap.of(first, new BlockedBloomFilter(BIGINT, new DataSize(16, KILOBYTE))));
+        assertEquals(memoryContext.getBytes(), firstBloomFilter.getRetainedSizeInBytes() + secondBloomFilter.getRetainedSizeInBytes());
+    }
+
     private TupleDomain<VariableReferenceExpression> tupleDomain(VariableReferenceExpression variable, Long... values)
     {
         return TupleDomain.withColumnDomains(ImmutableMap.of(variable, Domain.multipleValues(BIGINT, ImmutableList.copyOf(values))));
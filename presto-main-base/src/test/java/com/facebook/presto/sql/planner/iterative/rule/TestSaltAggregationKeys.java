@@ -0,0 +1,156 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.iterative.rule.test.BaseRuleTest;
+import com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.SystemSessionProperties.AGGREGATION_KEY_SALT_COUNT;
+import static com.facebook.presto.SystemSessionProperties.SALT_AGGREGATION_KEYS;
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.plan.AggregationNode.Step.FINAL;
+import static com.facebook.presto.spi.plan.AggregationNode.Step.INTERMEDIATE;
+import static com.facebook.presto.spi.plan.AggregationNode.Step.PARTIAL;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.aggregation;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.exchange;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.expression;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.project;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.values;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Scope.LOCAL;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Scope.REMOTE_STREAMING;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Type.REPARTITION;
+
+public class TestSaltAggregationKeys
+        extends BaseRuleTest
+{
+    @Test
+    public void testSaltGroupingKeys()
+    {
+        tester().assertThat(new SaltAggregationKeys(getFunctionManager()))
+                .setSystemProperty(SALT_AGGREGATION_KEYS, "true")
+                .setSystemProperty(AGGREGATION_KEY_SALT_COUNT, "4")
+                .on(TestSaltAggregationKeys::finalAggregation)
+                .matches(
+                        aggregation(
+                                ImmutableMap.of(),
+                                FINAL,
+                                exchange(LOCAL, REPARTITION,
+                                        exchange(REMOTE_STREAMING, REPARTITION, ImmutableList.of(), ImmutableSet.of("a"),
+                                                aggregation(
+                                                        ImmutableMap.of(),
+                                                        INTERMEDIATE,
+                                                        exchange(LOCAL, REPARTITION, ImmutableList.of(), ImmutableSet.of("a"),
+                                                                exchange(REMOTE_STREAMING, REPARTITION, ImmutableList.of(), ImmutableSet.of("a", "salt"),
+                                                                        project(
+                                                                                ImmutableMap.of("salt", expression("random(4)")),
+                                                                                aggregation(
+                                                                                        ImmutableMap.of(),
+                                                                                        PARTIAL,
+                                                                                        values("a", "b"))))))))));
+    }
+
+    @Test
+    public void testDoesNotFireWhenDisabled()
+    {
+        tester().assertThat(new SaltAggregationKeys(getFunctionManager()))
+                .setSystemProperty(SALT_AGGREGATION_KEYS, "false")
+                .on(TestSaltAggregationKeys::finalAggregation)
+                .doesNotFire();
+
+        tester().assertThat(new SaltAggregationKeys(getFunctionManager()))
+                .setSystemProperty(SALT_AGGREGATION_KEYS, "true")
+                .setSystemProperty(AGGREGATION_KEY_SALT_COUNT, "1")
+                .on(TestSaltAggregationKeys::finalAggregation)
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireOnSaltedAggregation()
+    {
+        tester().assertThat(new SaltAggregationKeys(getFunctionManager()))
+                .setSystemProperty(SALT_AGGREGATION_KEYS, "true")
+                .on(p -> {
+                    VariableReferenceExpression a = p.variable("a", BIGINT);
+                    VariableReferenceExpression c = p.variable("c", BIGINT);
+                    PlanNode intermediate = p.aggregation(ap -> ap.singleGroupingSet(a)
+                            .step(INTERMEDIATE)
+                            .addAggregation(c, p.rowExpression("count(c)"))
+                            .source(p.values(a, c)));
+                    return finalAggregation(p, intermediate);
+                })
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireOnGlobalAggregation()
+    {
+        tester().assertThat(new SaltAggregationKeys(getFunctionManager()))
+                .setSystemProperty(SALT_AGGREGATION_KEYS, "true")
+                .on(p -> {
+                    VariableReferenceExpression b = p.variable("b", BIGINT);
+                    VariableReferenceExpression c = p.variable("c", BIGINT);
+                    return p.aggregation(af -> af.globalGrouping()
+                            .step(FINAL)
+                            .addAggregation(p.variable("d", BIGINT), p.rowExpression("count(c)"))
+                            .source(p.gatheringExchange(
+                                    REMOTE_STREAMING,
+                                    p.aggregation(ap -> ap.globalGrouping()
+                                            .step(PARTIAL)
+                                            .addAggregation(c, p.rowExpression("count(b)"))
+                                            .source(p.values(b))))));
+                })
+                .doesNotFire();
+    }
+
+    private static PlanNode finalAggregation(PlanBuilder p)
+    {
+        VariableReferenceExpression a = p.variable("a", BIGINT);
+        VariableReferenceExpression b = p.variable("b", BIGINT);
+        VariableReferenceExpression c = p.variable("c", BIGINT);
+        PlanNode partial = p.aggregation(ap -> ap.singleGroupingSet(a)
+                .step(PARTIAL)
+                .addAggregation(c, p.rowExpression("count(b)"))
+                .source(p.values(a, b)));
+        return finalAggregation(p, partial);
+    }
+
+    private static PlanNode finalAggregation(PlanBuilder p, PlanNode source)
+    {
+        VariableReferenceExpression a = p.variable("a", BIGINT);
+        VariableReferenceExpression c = p.variable("c", BIGINT);
+        ImmutableList<VariableReferenceExpression> outputs = ImmutableList.of(a, c);
+        PlanNode remoteExchange = p.exchange(e -> e
+                .type(REPARTITION)
+                .scope(REMOTE_STREAMING)
+                .fixedHashDistributionPartitioningScheme(outputs, ImmutableList.of(a))
+                .addSource(source)
+                .addInputsSet(outputs));
+        PlanNode localExchange = p.exchange(e -> e
+                .type(REPARTITION)
+                .scope(LOCAL)
+                .fixedHashDistributionPartitioningScheme(outputs, ImmutableList.of(a))
+                .addSource(remoteExchange)
+                .addInputsSet(outputs));
+        return p.aggregation(af -> af.singleGroupingSet(a)
+                .step(FINAL)
+                .addAggregation(p.variable("d", BIGINT), p.rowExpression("count(c)"))
+                .source(localExchange));
+    }
+}
@@ -72,7 +72,20 @@ public class MemoryRevokingScheduler
     private final TaskSpillingStrategy spillingStrategy;
 
     private final List<MemoryPool> memoryPools;
-    private final MemoryPoolListener memoryPoolListener = this::onMemoryReserved;
+    private final MemoryPoolListener memoryPoolListener = new MemoryPoolListener()
+    {
+        @Override
+        public void onMemoryReserved(MemoryPool memoryPool, QueryId queryId, long queryMemoryReservation)
+        {
+            MemoryRevokingScheduler.this.onMemoryReserved(memoryPool, queryId, queryMemoryReservation);
+        }
+
+        @Override
+        public void onUnownedMemoryReserved(MemoryPool memoryPool)
+        {
+            MemoryRevokingScheduler.this.onUnownedMemoryReserved(memoryPool);
+        }
+    };
 
     private final boolean queryLimitSpillEnabled;
 
@@ -179,6 +192,20 @@ public class MemoryRevokingScheduler
         }
     }
 
+    private void onUnownedMemoryReserved(MemoryPool memoryPool)
+    {
+        // memory that is not owned by a query, like the memory of a worker-wide cache, only counts against the pool
+        try {
+            if (memoryRevokingNeededForPool(memoryPool)) {
+                log.debug("Scheduling check for %s", memoryPool);
+                scheduleMemoryPoolRevoking(memoryPool);
+            }
+        }
+        catch (Exception e) {
+            log.error(e, "Error when acting on memory pool reservation");
+        }
+    }
+
     private boolean memoryRevokingNeededForQuery(long queryMemoryReservation, long maxTotalMemory)
     {
         return queryMemoryReservation >= maxTotalMemory;
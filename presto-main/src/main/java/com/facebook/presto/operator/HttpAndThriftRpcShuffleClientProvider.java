@@ -26,23 +26,35 @@ public class HttpAndThriftRpcShuffleClientProvider
 {
     private final HttpShuffleClientProvider httpShuffleClientProvider;
     private final ThriftShuffleClientProvider thriftShuffleClientProvider;
+    private final LocalShuffleClientProvider localShuffleClientProvider;
 
     @Inject
     public HttpAndThriftRpcShuffleClientProvider(
             @ForExchange HttpShuffleClientProvider httpShuffleClientProvider,
-            @ForExchange ThriftShuffleClientProvider thriftShuffleClientProvider)
+            @ForExchange ThriftShuffleClientProvider thriftShuffleClientProvider,
+            @ForExchange LocalShuffleClientProvider localShuffleClientProvider)
     {
         this.httpShuffleClientProvider = httpShuffleClientProvider;
         this.thriftShuffleClientProvider = thriftShuffleClientProvider;
+        this.localShuffleClientProvider = localShuffleClientProvider;
     }
 
     @Override
     public RpcShuffleClient get(URI location)
     {
+        return get(location, PrefetchBudget.UNLIMITED);
+    }
+
+    @Override
+    public RpcShuffleClient get(URI location, PrefetchBudget prefetchBudget)
+    {
+        if (localShuffleClientProvider.isLocal(location)) {
+            return localShuffleClientProvider.get(location);
+        }
         switch (location.getScheme().toLowerCase(Locale.getDefault())) {
             case "https":
             case "http":
-                return httpShuffleClientProvider.get(location);
+                return httpShuffleClientProvider.get(location, prefetchBudget);
             case "thrift":
                 return thriftShuffleClientProvider.get(location);
             default:
@@ -15,8 +15,10 @@ package com.facebook.presto.operator;
 
 import com.facebook.airlift.http.client.HttpClient;
 import com.google.inject.Inject;
+import io.airlift.units.DataSize;
 
 import java.net.URI;
+import java.util.Optional;
 
 import static java.util.Objects.requireNonNull;
 
@@ -24,15 +26,36 @@ public class HttpShuffleClientProvider
         implements RpcShuffleClientProvider
 {
     private final HttpClient httpClient;
+    private final Optional<DataSize> streamingMaxPrefetchSize;
 
     @Inject
-    public HttpShuffleClientProvider(@ForExchange HttpClient httpClient)
+    public HttpShuffleClientProvider(@ForExchange HttpClient httpClient, ExchangeClientConfig config)
+    {
+        this(httpClient, requireNonNull(config, "config is null").isStreamingEnabled() ? Optional.of(config.getStreamingMaxPrefetchSize()) : Optional.empty());
+    }
+
+    public HttpShuffleClientProvider(HttpClient httpClient)
+    {
+        this(httpClient, Optional.empty());
+    }
+
+    public HttpShuffleClientProvider(HttpClient httpClient, Optional<DataSize> streamingMaxPrefetchSize)
     {
         this.httpClient = requireNonNull(httpClient, "httpClient is null");
+        this.streamingMaxPrefetchSize = requireNonNull(streamingMaxPrefetchSize, "streamingMaxPrefetchSize is null");
     }
 
     public RpcShuffleClient get(URI location)
     {
+        return get(location, PrefetchBudget.UNLIMITED);
+    }
+
+    @Override
+    public RpcShuffleClient get(URI location, PrefetchBudget prefetchBudget)
+    {
+        if (streamingMaxPrefetchSize.isPresent()) {
+            return new StreamingHttpRpcShuffleClient(httpClient, location, streamingMaxPrefetchSize.get(), prefetchBudget);
+        }
         return new HttpRpcShuffleClient(httpClient, location);
     }
 }
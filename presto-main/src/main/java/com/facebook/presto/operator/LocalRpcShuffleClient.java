@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskManager;
+import com.facebook.presto.execution.buffer.BufferResult;
+import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
+import com.facebook.presto.operator.PageBufferClient.PagesResponse;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.net.URI;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.airlift.concurrent.MoreFutures.addTimeout;
+import static com.facebook.presto.operator.PageBufferClient.PagesResponse.createPagesResponse;
+import static com.facebook.presto.util.TaskUtils.DEFAULT_MAX_WAIT_TIME;
+import static com.facebook.presto.util.TaskUtils.randomizeWaitTime;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the results of a task running on the same node directly from its output buffer, bypassing
+ * the HTTP transport. The serialized pages are handed over as they are, and pages stay in the output
+ * buffer until they are acknowledged, so memory accounting and flow control are the same as for a
+ * remote task.
+ */
+@ThreadSafe
+public final class LocalRpcShuffleClient
+        implements RpcShuffleClient
+{
+    private final TaskManager taskManager;
+    private final ScheduledExecutorService executor;
+    private final TaskId taskId;
+    private final OutputBufferId outputBufferId;
+
+    public LocalRpcShuffleClient(TaskManager taskManager, ScheduledExecutorService executor, URI location)
+    {
+        this.taskManager = requireNonNull(taskManager, "taskManager is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        requireNonNull(location, "location is null");
+
+        // location format: http://{host}:{port}/v1/task/{taskId}/results/{bufferId}
+        String[] paths = location.getPath().split("/");
+        this.taskId = TaskId.valueOf(paths[3]);
+        this.outputBufferId = OutputBufferId.fromString(paths[5]);
+    }
+
+    @Override
+    public ListenableFuture<PagesResponse> getResults(long token, DataSize maxResponseSize)
+    {
+        ListenableFuture<BufferResult> bufferResultFuture = taskManager.getTaskResults(taskId, outputBufferId, token, maxResponseSize.toBytes());
+        // wake up periodically like the remote endpoints do, so that the client gets to check its state
+        Duration waitTime = randomizeWaitTime(DEFAULT_MAX_WAIT_TIME);
+        bufferResultFuture = addTimeout(
+                bufferResultFuture,
+                () -> BufferResult.emptyResults(taskManager.getTaskInstanceId(taskId), token, false),
+                waitTime,
+                executor);
+
+        return Futures.transform(
+                bufferResultFuture,
+                result -> createPagesResponse(
+                        result.getTaskInstanceId(),
+                        result.getToken(),
+                        result.getNextToken(),
+                        result.getSerializedPages(),
+                        result.isBufferComplete()),
+                directExecutor());
+    }
+
+    @Override
+    public void acknowledgeResultsAsync(long nextToken)
+    {
+        taskManager.acknowledgeTaskResults(taskId, outputBufferId, nextToken);
+    }
+
+    @Override
+    public ListenableFuture<?> abortResults()
+    {
+        // aborting the buffer may run listeners of the producing task, so do not run it on the caller's thread
+        return listeningDecorator(executor).submit(() -> taskManager.abortTaskResults(taskId, outputBufferId));
+    }
+
+    @Override
+    public Throwable rewriteException(Throwable throwable)
+    {
+        return throwable;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.TaskManager;
+import com.facebook.presto.metadata.InternalNodeManager;
+import com.facebook.presto.spi.HostAddress;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.Objects.requireNonNull;
+
+public class LocalShuffleClientProvider
+        implements RpcShuffleClientProvider
+{
+    // the task manager depends on the exchange clients, so it can only be looked up lazily
+    private final Provider<TaskManager> taskManager;
+    private final Provider<InternalNodeManager> nodeManager;
+    private final ScheduledExecutorService executor;
+    private final boolean enabled;
+
+    @Inject
+    public LocalShuffleClientProvider(
+            Provider<TaskManager> taskManager,
+            Provider<InternalNodeManager> nodeManager,
+            @ForExchange ScheduledExecutorService executor,
+            ExchangeClientConfig config)
+    {
+        this.taskManager = requireNonNull(taskManager, "taskManager is null");
+        this.nodeManager = requireNonNull(nodeManager, "nodeManager is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.enabled = requireNonNull(config, "config is null").isLocalShortCircuitEnabled();
+    }
+
+    /**
+     * Returns true if the location is a buffer of a task running on this node that can be read without going through the network
+     */
+    public boolean isLocal(URI location)
+    {
+        if (!enabled) {
+            return false;
+        }
+        String scheme = location.getScheme().toLowerCase(Locale.ENGLISH);
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            return false;
+        }
+        return HostAddress.fromUri(location).equals(nodeManager.get().getCurrentNode().getHostAndPort());
+    }
+
+    @Override
+    public RpcShuffleClient get(URI location)
+    {
+        return new LocalRpcShuffleClient(taskManager.get(), executor, location);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.airlift.http.client.HttpClient;
+import com.facebook.presto.operator.HttpRpcShuffleClient.PageResponseHandler;
+import com.facebook.presto.operator.PageBufferClient.PagesResponse;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.net.URI;
+
+import static com.facebook.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
+import static com.facebook.airlift.http.client.Request.Builder.prepareGet;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.units.DataSize.succinctBytes;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Streams the pages of a remote buffer over HTTP by keeping a request for the next batch in flight
+ * while the previous one is being consumed, so that the upstream buffer keeps sending pages instead
+ * of waiting for a full round trip between batches.
+ * <p>
+ * The number of bytes fetched ahead of the consumer is bounded by a credit of one batch of at most
+ * {@code maxPrefetchSize}, which is granted again every time the consumer takes a batch. The batch is
+ * only fetched if it fits in the buffer of the exchange client, and it is counted in that buffer until
+ * the consumer requests it. Since fetching token N acknowledges all the pages before it, no separate
+ * acknowledge requests are sent.
+ */
+@ThreadSafe
+public final class StreamingHttpRpcShuffleClient
+        implements RpcShuffleClient
+{
+    private final HttpClient httpClient;
+    private final URI location;
+    private final DataSize maxPrefetchSize;
+    private final HttpRpcShuffleClient delegate;
+    private final PrefetchBudget prefetchBudget;
+
+    @GuardedBy("this")
+    private long prefetchedToken = -1;
+    @GuardedBy("this")
+    private ListenableFuture<PagesResponse> prefetchedResponse;
+    @GuardedBy("this")
+    private long prefetchedMaxSizeInBytes;
+    @GuardedBy("this")
+    private boolean aborted;
+
+    public StreamingHttpRpcShuffleClient(HttpClient httpClient, URI location, DataSize maxPrefetchSize, PrefetchBudget prefetchBudget)
+    {
+        this.httpClient = requireNonNull(httpClient, "httpClient is null");
+        this.location = requireNonNull(location, "location is null");
+        this.maxPrefetchSize = requireNonNull(maxPrefetchSize, "maxPrefetchSize is null");
+        this.prefetchBudget = requireNonNull(prefetchBudget, "prefetchBudget is null");
+        this.delegate = new HttpRpcShuffleClient(httpClient, location);
+    }
+
+    @Override
+    public ListenableFuture<PagesResponse> getResults(long token, DataSize maxResponseSize)
+    {
+        ListenableFuture<PagesResponse> response;
+        long freedBytes = 0;
+        synchronized (this) {
+            if (prefetchedResponse != null && prefetchedToken == token && prefetchedMaxSizeInBytes <= maxResponseSize.toBytes()) {
+                response = prefetchedResponse;
+            }
+            else {
+                // the consumer is retrying, skipped ahead or lowered the response size since the
+                // batch was requested, so the prefetched batch is of no use
+                if (prefetchedResponse != null) {
+                    prefetchedResponse.cancel(true);
+                }
+                response = sendGetResults(token, maxResponseSize);
+            }
+            if (prefetchedResponse != null) {
+                // from here on the batch is an ordinary request of the consumer
+                freedBytes = prefetchedMaxSizeInBytes;
+            }
+            prefetchedResponse = null;
+            prefetchedMaxSizeInBytes = 0;
+        }
+        // the budget is owned by the exchange client, which calls into this client while holding its lock
+        if (freedBytes > 0) {
+            prefetchBudget.free(freedBytes);
+        }
+
+        DataSize prefetchSize = succinctBytes(min(maxResponseSize.toBytes(), maxPrefetchSize.toBytes()));
+        Futures.addCallback(response, new FutureCallback<PagesResponse>()
+        {
+            @Override
+            public void onSuccess(PagesResponse result)
+            {
+                if (!result.isClientComplete()) {
+                    prefetch(result.getNextToken(), prefetchSize);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable throwable)
+            {
+                // the consumer retries with the same token
+            }
+        }, directExecutor());
+        return response;
+    }
+
+    private void prefetch(long token, DataSize maxResponseSize)
+    {
+        synchronized (this) {
+            if (aborted || prefetchedResponse != null) {
+                return;
+            }
+        }
+        if (!prefetchBudget.tryReserve(maxResponseSize.toBytes())) {
+            // the exchange client buffer is full, so the consumer fetches the batch when it has space
+            return;
+        }
+        synchronized (this) {
+            if (!aborted && prefetchedResponse == null) {
+                prefetchedToken = token;
+                prefetchedMaxSizeInBytes = maxResponseSize.toBytes();
+                prefetchedResponse = sendGetResults(token, maxResponseSize);
+                return;
+            }
+        }
+        prefetchBudget.free(maxResponseSize.toBytes());
+    }
+
+    private ListenableFuture<PagesResponse> sendGetResults(long token, DataSize maxResponseSize)
+    {
+        URI uri = uriBuilderFrom(location).appendPath(String.valueOf(token)).build();
+        return httpClient.executeAsync(
+                prepareGet()
+                        .setHeader(PRESTO_MAX_SIZE, maxResponseSize.toString())
+                        .setUri(uri).build(),
+                new PageResponseHandler());
+    }
+
+    @Override
+    public void acknowledgeResultsAsync(long nextToken)
+    {
+        // the request for the next batch, which is already in flight, acknowledges the pages
+    }
+
+    @Override
+    public ListenableFuture<?> abortResults()
+    {
+        long freedBytes = 0;
+        synchronized (this) {
+            aborted = true;
+            if (prefetchedResponse != null) {
+                prefetchedResponse.cancel(true);
+                prefetchedResponse = null;
+                freedBytes = prefetchedMaxSizeInBytes;
+                prefetchedMaxSizeInBytes = 0;
+            }
+        }
+        if (freedBytes > 0) {
+            prefetchBudget.free(freedBytes);
+        }
+        return delegate.abortResults();
+    }
+
+    @Override
+    public Throwable rewriteException(Throwable throwable)
+    {
+        return delegate.rewriteException(throwable);
+    }
+
+    @VisibleForTesting
+    synchronized boolean hasPrefetchedResponse()
+    {
+        return prefetchedResponse != null;
+    }
+}
@@ -116,10 +116,13 @@ import com.facebook.presto.operator.FragmentCacheStats;
 import com.facebook.presto.operator.FragmentResultCacheManager;
 import com.facebook.presto.operator.HttpAndThriftRpcShuffleClientProvider;
 import com.facebook.presto.operator.HttpShuffleClientProvider;
+import com.facebook.presto.operator.JoinBuildCache;
+import com.facebook.presto.operator.LocalShuffleClientProvider;
 import com.facebook.presto.operator.LookupJoinOperators;
 import com.facebook.presto.operator.NoOpFragmentResultCacheManager;
 import com.facebook.presto.operator.OperatorStats;
 import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.operator.ParallelOperatorPool;
 import com.facebook.presto.operator.RpcShuffleClientProvider;
 import com.facebook.presto.operator.TableCommitContext;
 import com.facebook.presto.operator.TaskMemoryReservationSummary;
@@ -539,6 +542,9 @@ public class ServerMainModule
         configBinder(binder).bindConfig(TaskManagerConfig.class);
         binder.bind(IndexJoinLookupStats.class).in(Scopes.SINGLETON);
         newExporter(binder).export(IndexJoinLookupStats.class).withGeneratedName();
+        binder.bind(JoinBuildCache.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(JoinBuildCache.class).withGeneratedName();
+        binder.bind(ParallelOperatorPool.class).in(Scopes.SINGLETON);
         binder.bind(AsyncHttpExecutionMBean.class).in(Scopes.SINGLETON);
         newExporter(binder).export(AsyncHttpExecutionMBean.class).withGeneratedName();
         binder.bind(JoinFilterFunctionCompiler.class).in(Scopes.SINGLETON);
@@ -574,6 +580,9 @@ public class ServerMainModule
         binder.bind(ThriftShuffleClientProvider.class)
                 .annotatedWith(ForExchange.class)
                 .to(ThriftShuffleClientProvider.class);
+        binder.bind(LocalShuffleClientProvider.class)
+                .annotatedWith(ForExchange.class)
+                .to(LocalShuffleClientProvider.class);
         binder.bind(ExchangeClientSupplier.class).to(ExchangeClientFactory.class).in(Scopes.SINGLETON);
 
         httpClientBinder(binder).bindHttpClient("exchange", ForExchange.class)
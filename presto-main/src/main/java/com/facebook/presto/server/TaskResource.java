@@ -143,7 +143,10 @@ public class TaskResource
                 taskUpdateRequest.getOutputIds(),
                 taskUpdateRequest.getTableWriteInfo());
 
-        if (shouldSummarize(uriInfo)) {
+        if (shouldOmitStats(uriInfo)) {
+            taskInfo = taskInfo.omitStats();
+        }
+        else if (shouldSummarize(uriInfo)) {
             taskInfo = taskInfo.summarize();
         }
 
@@ -353,4 +356,9 @@ public class TaskResource
     {
         return uriInfo.getQueryParameters().containsKey("summarize");
     }
+
+    private static boolean shouldOmitStats(UriInfo uriInfo)
+    {
+        return uriInfo.getQueryParameters().containsKey("omitStats");
+    }
 }
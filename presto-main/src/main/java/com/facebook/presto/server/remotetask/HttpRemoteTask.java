@@ -221,6 +221,7 @@ public final class HttpRemoteTask
     private final boolean binaryTransportEnabled;
     private final boolean thriftTransportEnabled;
     private final boolean taskInfoThriftTransportEnabled;
+    private final boolean omitTaskUpdateStats;
     private final Protocol thriftProtocol;
     private final ConnectorTypeSerdeManager connectorTypeSerdeManager;
     private final HandleResolver handleResolver;
@@ -262,6 +263,7 @@ public final class HttpRemoteTask
             boolean binaryTransportEnabled,
             boolean thriftTransportEnabled,
             boolean taskInfoThriftTransportEnabled,
+            boolean omitTaskUpdateStats,
             Protocol thriftProtocol,
             TableWriteInfo tableWriteInfo,
             long maxTaskUpdateSizeInBytes,
@@ -322,6 +324,7 @@ public final class HttpRemoteTask
             this.binaryTransportEnabled = binaryTransportEnabled;
             this.thriftTransportEnabled = thriftTransportEnabled;
             this.taskInfoThriftTransportEnabled = taskInfoThriftTransportEnabled;
+            this.omitTaskUpdateStats = omitTaskUpdateStats;
             this.thriftProtocol = thriftProtocol;
             this.connectorTypeSerdeManager = connectorTypeSerdeManager;
             this.handleResolver = handleResolver;
@@ -732,9 +735,16 @@ public final class HttpRemoteTask
 
     private synchronized void processTaskUpdate(TaskInfo newValue, List<TaskSource> sources)
     {
-        //Setting the flag as false since TaskUpdateRequest is not on thrift yet.
-        //Once it is converted to thrift we can use the isThrift enabled flag here.
-        updateTaskInfo(newValue, false);
+        if (omitTaskUpdateStats && !newValue.getTaskStatus().getState().isDone()) {
+            // the worker leaves out the stats of a running task, which are kept up to date by the task info fetcher
+            taskStatusFetcher.updateTaskStatus(newValue.getTaskStatus());
+            taskInfoFetcher.updateTaskInfoKeepingStats(newValue);
+        }
+        else {
+            //Setting the flag as false since TaskUpdateRequest is not on thrift yet.
+            //Once it is converted to thrift we can use the isThrift enabled flag here.
+            updateTaskInfo(newValue, false);
+        }
 
         // remove acknowledged splits, which frees memory
         for (TaskSource source : sources) {
@@ -902,6 +912,9 @@ public final class HttpRemoteTask
         }
 
         HttpUriBuilder uriBuilder = getHttpUriBuilder(taskStatus);
+        if (omitTaskUpdateStats) {
+            uriBuilder.addParameter("omitStats");
+        }
         Request request = setContentTypeHeaders(binaryTransportEnabled, preparePost())
                 .setUri(uriBuilder.build())
                 .setBodyGenerator(createStaticBodyGenerator(taskUpdateRequestJson))
@@ -102,6 +102,7 @@ public class HttpRemoteTaskFactory
     private final boolean binaryTransportEnabled;
     private final boolean thriftTransportEnabled;
     private final boolean taskInfoThriftTransportEnabled;
+    private final boolean omitTaskUpdateStats;
     private final Protocol thriftProtocol;
     private final int maxTaskUpdateSizeInBytes;
     private final MetadataManager metadataManager;
@@ -152,6 +153,7 @@ public class HttpRemoteTaskFactory
         binaryTransportEnabled = communicationConfig.isBinaryTransportEnabled();
         thriftTransportEnabled = communicationConfig.isThriftTransportEnabled();
         taskInfoThriftTransportEnabled = communicationConfig.isTaskInfoThriftTransportEnabled();
+        omitTaskUpdateStats = communicationConfig.isOmitTaskUpdateStats();
         thriftProtocol = communicationConfig.getThriftProtocol();
         this.maxTaskUpdateSizeInBytes = toIntExact(requireNonNull(communicationConfig, "communicationConfig is null").getMaxTaskUpdateSize().toBytes());
 
@@ -269,6 +271,7 @@ public class HttpRemoteTaskFactory
                     binaryTransportEnabled,
                     thriftTransportEnabled,
                     taskInfoThriftTransportEnabled,
+                    omitTaskUpdateStats,
                     thriftProtocol,
                     tableWriteInfo,
                     maxTaskUpdateSizeInBytes,
@@ -311,6 +314,7 @@ public class HttpRemoteTaskFactory
                 binaryTransportEnabled,
                 thriftTransportEnabled,
                 taskInfoThriftTransportEnabled,
+                omitTaskUpdateStats,
                 thriftProtocol,
                 tableWriteInfo,
                 maxTaskUpdateSizeInBytes,
@@ -218,6 +218,7 @@ public final class HttpRemoteTaskWithEventLoop
     private final boolean binaryTransportEnabled;
     private final boolean thriftTransportEnabled;
     private final boolean taskInfoThriftTransportEnabled;
+    private final boolean omitTaskUpdateStats;
     private final Protocol thriftProtocol;
     private final ConnectorTypeSerdeManager connectorTypeSerdeManager;
     private final HandleResolver handleResolver;
@@ -260,6 +261,7 @@ public final class HttpRemoteTaskWithEventLoop
             boolean binaryTransportEnabled,
             boolean thriftTransportEnabled,
             boolean taskInfoThriftTransportEnabled,
+            boolean omitTaskUpdateStats,
             Protocol thriftProtocol,
             TableWriteInfo tableWriteInfo,
             int maxTaskUpdateSizeInBytes,
@@ -297,6 +299,7 @@ public final class HttpRemoteTaskWithEventLoop
                 binaryTransportEnabled,
                 thriftTransportEnabled,
                 taskInfoThriftTransportEnabled,
+                omitTaskUpdateStats,
                 thriftProtocol,
                 tableWriteInfo,
                 maxTaskUpdateSizeInBytes,
@@ -337,6 +340,7 @@ public final class HttpRemoteTaskWithEventLoop
             boolean binaryTransportEnabled,
             boolean thriftTransportEnabled,
             boolean taskInfoThriftTransportEnabled,
+            boolean omitTaskUpdateStats,
             Protocol thriftProtocol,
             TableWriteInfo tableWriteInfo,
             int maxTaskUpdateSizeInBytes,
@@ -396,6 +400,7 @@ public final class HttpRemoteTaskWithEventLoop
         this.binaryTransportEnabled = binaryTransportEnabled;
         this.thriftTransportEnabled = thriftTransportEnabled;
         this.taskInfoThriftTransportEnabled = taskInfoThriftTransportEnabled;
+        this.omitTaskUpdateStats = omitTaskUpdateStats;
         this.thriftProtocol = thriftProtocol;
         this.connectorTypeSerdeManager = connectorTypeSerdeManager;
         this.handleResolver = handleResolver;
@@ -831,9 +836,16 @@ public final class HttpRemoteTaskWithEventLoop
     {
         verify(taskEventLoop.inEventLoop());
 
-        //Setting the flag as false since TaskUpdateRequest is not on thrift yet.
-        //Once it is converted to thrift we can use the isThrift enabled flag here.
-        updateTaskInfo(newValue, false);
+        if (omitTaskUpdateStats && !newValue.getTaskStatus().getState().isDone()) {
+            // the worker leaves out the stats of a running task, which are kept up to date by the task info fetcher
+            taskStatusFetcher.updateTaskStatus(newValue.getTaskStatus());
+            taskInfoFetcher.updateTaskInfoKeepingStats(newValue);
+        }
+        else {
+            //Setting the flag as false since TaskUpdateRequest is not on thrift yet.
+            //Once it is converted to thrift we can use the isThrift enabled flag here.
+            updateTaskInfo(newValue, false);
+        }
 
         // remove acknowledged splits, which frees memory
         for (TaskSource source : sources) {
@@ -1014,6 +1026,9 @@ public final class HttpRemoteTaskWithEventLoop
             }
 
             HttpUriBuilder uriBuilder = getHttpUriBuilder(taskStatus);
+            if (omitTaskUpdateStats) {
+                uriBuilder.addParameter("omitStats");
+            }
             Request request = setContentTypeHeaders(binaryTransportEnabled, preparePost())
                     .setUri(uriBuilder.build())
                     .setBodyGenerator(createStaticBodyGenerator(taskUpdateRequestJson))
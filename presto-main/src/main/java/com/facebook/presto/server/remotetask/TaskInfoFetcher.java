@@ -71,6 +71,7 @@ import static com.facebook.presto.server.smile.AdaptingJsonResponseHandler.creat
 import static com.facebook.presto.server.smile.FullSmileResponseHandler.createFullSmileResponseHandler;
 import static com.facebook.presto.server.thrift.ThriftCodecWrapper.unwrapThriftCodec;
 import static com.facebook.presto.spi.StandardErrorCode.REMOTE_TASK_ERROR;
+import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.units.Duration.nanosSince;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -315,6 +316,28 @@ public class TaskInfoFetcher
                 executor);
     }
 
+    /**
+     * Updates the task info of a running task from a task update response, which leaves out the stats.
+     * The stats of the current task info are kept, and are read under the same compare and set as the
+     * update, so stats that were fetched concurrently are never replaced by older ones.
+     */
+    synchronized void updateTaskInfoKeepingStats(TaskInfo newValue)
+    {
+        TaskStatus newTaskStatus = newValue.getTaskStatus();
+        checkArgument(!newTaskStatus.getState().isDone(), "the stats of a done task are never left out");
+        while (true) {
+            TaskInfo oldValue = taskInfo.get();
+            TaskStatus oldTaskStatus = oldValue.getTaskStatus();
+            // never update if the task has reached a terminal state, and don't update to an older version (same version is ok)
+            if (oldTaskStatus.getState().isDone() || newTaskStatus.getVersion() < oldTaskStatus.getVersion()) {
+                return;
+            }
+            if (taskInfo.compareAndSet(oldValue, newValue.withStats(oldValue.getStats()))) {
+                return;
+            }
+        }
+    }
+
     synchronized void updateTaskInfo(TaskInfo newValue)
     {
         boolean updated = taskInfo.setIf(newValue, oldValue -> {
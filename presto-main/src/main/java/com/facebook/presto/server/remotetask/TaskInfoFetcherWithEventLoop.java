@@ -66,6 +66,7 @@ import static com.facebook.presto.server.smile.AdaptingJsonResponseHandler.creat
 import static com.facebook.presto.server.smile.FullSmileResponseHandler.createFullSmileResponseHandler;
 import static com.facebook.presto.server.thrift.ThriftCodecWrapper.unwrapThriftCodec;
 import static com.facebook.presto.spi.StandardErrorCode.REMOTE_TASK_ERROR;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Verify.verify;
 import static io.airlift.units.Duration.nanosSince;
 import static java.util.Objects.requireNonNull;
@@ -303,6 +304,30 @@ public class TaskInfoFetcherWithEventLoop
                 taskEventLoop);
     }
 
+    /**
+     * Updates the task info of a running task from a task update response, which leaves out the stats.
+     * The stats of the current task info are kept, and are read under the same compare and set as the
+     * update, so stats that were fetched concurrently are never replaced by older ones.
+     */
+    void updateTaskInfoKeepingStats(TaskInfo newValue)
+    {
+        verify(taskEventLoop.inEventLoop());
+
+        TaskStatus newTaskStatus = newValue.getTaskStatus();
+        checkArgument(!newTaskStatus.getState().isDone(), "the stats of a done task are never left out");
+        while (true) {
+            TaskInfo oldValue = taskInfo.get();
+            TaskStatus oldTaskStatus = oldValue.getTaskStatus();
+            // never update if the task has reached a terminal state, and don't update to an older version (same version is ok)
+            if (oldTaskStatus.getState().isDone() || newTaskStatus.getVersion() < oldTaskStatus.getVersion()) {
+                return;
+            }
+            if (taskInfo.compareAndSet(oldValue, newValue.withStats(oldValue.getStats()))) {
+                return;
+            }
+        }
+    }
+
     void updateTaskInfo(TaskInfo newValue)
     {
         verify(taskEventLoop.inEventLoop());
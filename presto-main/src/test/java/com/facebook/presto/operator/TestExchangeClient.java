@@ -56,6 +56,7 @@ import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
@@ -159,6 +160,79 @@ public class TestExchangeClient
         assertStatus(status.getPageBufferClientStatuses().get(0), location, "closed", 3, 3, 3, "not scheduled");
     }
 
+    @Test(timeOut = 10000)
+    public void testStreaming()
+    {
+        DataSize maxResponseSize = new DataSize(10, MEGABYTE);
+        MockExchangeRequestProcessor processor = new MockExchangeRequestProcessor(maxResponseSize);
+
+        URI location = URI.create("http://localhost:8080");
+        processor.addPage(location, createPage(1));
+
+        HttpShuffleClientProvider shuffleClientProvider = new HttpShuffleClientProvider(
+                new TestingHttpClient(processor, testingHttpClientExecutor),
+                Optional.of(new DataSize(1, MEGABYTE)));
+        ExchangeClient exchangeClient = createExchangeClient(shuffleClientProvider, new DataSize(32, MEGABYTE), maxResponseSize);
+
+        exchangeClient.addLocation(location, TaskId.valueOf("queryid.0.0.0.0"));
+        exchangeClient.noMoreLocations();
+
+        assertPageEquals(getNextPage(exchangeClient), createPage(1));
+        // the following pages are fetched by the request that is kept in flight
+        processor.addPage(location, createPage(2));
+        processor.addPage(location, createPage(3));
+        assertPageEquals(getNextPage(exchangeClient), createPage(2));
+        assertPageEquals(getNextPage(exchangeClient), createPage(3));
+        processor.setComplete(location);
+        assertNull(getNextPage(exchangeClient));
+        assertTrue(exchangeClient.isClosed());
+
+        // all requests used the prefetch size
+        assertTrue(processor.getRequestMaxSizes().stream().skip(1).allMatch(size -> size.compareTo(new DataSize(1, MEGABYTE)) <= 0));
+    }
+
+    @Test(timeOut = 10000)
+    public void testStreamingPrefetchBudget()
+            throws Exception
+    {
+        DataSize maxResponseSize = new DataSize(10, MEGABYTE);
+        DataSize maxPrefetchSize = new DataSize(1, MEGABYTE);
+        MockExchangeRequestProcessor processor = new MockExchangeRequestProcessor(maxResponseSize);
+        URI location = URI.create("http://localhost:8080");
+        processor.addPage(location, createPage(1));
+
+        TestingPrefetchBudget prefetchBudget = new TestingPrefetchBudget(0);
+        StreamingHttpRpcShuffleClient client = new StreamingHttpRpcShuffleClient(
+                new TestingHttpClient(processor, testingHttpClientExecutor),
+                location,
+                maxPrefetchSize,
+                prefetchBudget);
+
+        // the buffer has no space, so the next batch is not fetched ahead
+        assertEquals(client.getResults(0, maxResponseSize).get().getPages().size(), 1);
+        prefetchBudget.awaitReserveRequests(1);
+        assertFalse(client.hasPrefetchedResponse());
+        assertEquals(processor.getRequestMaxSizes().size(), 1);
+
+        // with space in the buffer the next batch is fetched ahead and counted in the buffer
+        prefetchBudget.setAvailableBytes(maxPrefetchSize.toBytes());
+        processor.addPage(location, createPage(2));
+        assertEquals(client.getResults(1, maxResponseSize).get().getPages().size(), 1);
+        prefetchBudget.awaitReserveRequests(2);
+        assertTrue(client.hasPrefetchedResponse());
+        assertEquals(prefetchBudget.getReservedBytes(), maxPrefetchSize.toBytes());
+
+        // a batch fetched ahead with a larger size than the consumer now accepts is dropped
+        DataSize smallerResponseSize = new DataSize(512, KILOBYTE);
+        client.getResults(2, smallerResponseSize).get();
+        assertEquals(processor.getRequestMaxSizes().get(processor.getRequestMaxSizes().size() - 1), smallerResponseSize);
+        assertTrue(prefetchBudget.getReservedBytes() <= smallerResponseSize.toBytes());
+
+        client.abortResults().get();
+        assertFalse(client.hasPrefetchedResponse());
+        assertEquals(prefetchBudget.getReservedBytes(), 0);
+    }
+
     @Test(timeOut = 10000)
     public void testAddLocation()
             throws Exception
@@ -552,6 +626,11 @@ public class TestExchangeClient
     }
 
     private ExchangeClient createExchangeClient(MockExchangeRequestProcessor processor, DataSize bufferCapacity, DataSize maxResponseSize)
+    {
+        return createExchangeClient(new HttpShuffleClientProvider(new TestingHttpClient(processor, testingHttpClientExecutor)), bufferCapacity, maxResponseSize);
+    }
+
+    private ExchangeClient createExchangeClient(HttpShuffleClientProvider shuffleClientProvider, DataSize bufferCapacity, DataSize maxResponseSize)
     {
         return new ExchangeClient(
                 bufferCapacity,
@@ -560,9 +639,58 @@ public class TestExchangeClient
                 new Duration(1, MINUTES),
                 true,
                 0.2,
-                new HttpShuffleClientProvider(new TestingHttpClient(processor, testingHttpClientExecutor)),
+                shuffleClientProvider,
                 scheduler,
                 new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
                 pageBufferClientCallbackExecutor);
     }
+
+    private static class TestingPrefetchBudget
+            implements PrefetchBudget
+    {
+        private long availableBytes;
+        private long reservedBytes;
+        private int reserveRequests;
+
+        public TestingPrefetchBudget(long availableBytes)
+        {
+            this.availableBytes = availableBytes;
+        }
+
+        @Override
+        public synchronized boolean tryReserve(long bytes)
+        {
+            reserveRequests++;
+            notifyAll();
+            if (reservedBytes + bytes > availableBytes) {
+                return false;
+            }
+            reservedBytes += bytes;
+            return true;
+        }
+
+        @Override
+        public synchronized void free(long bytes)
+        {
+            reservedBytes -= bytes;
+        }
+
+        public synchronized void setAvailableBytes(long availableBytes)
+        {
+            this.availableBytes = availableBytes;
+        }
+
+        public synchronized long getReservedBytes()
+        {
+            return reservedBytes;
+        }
+
+        public synchronized void awaitReserveRequests(int count)
+                throws InterruptedException
+        {
+            while (reserveRequests < count) {
+                wait();
+            }
+        }
+    }
 }
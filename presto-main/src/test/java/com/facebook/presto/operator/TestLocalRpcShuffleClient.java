@@ -0,0 +1,252 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.SqlTaskManager;
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskInfo;
+import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.execution.TaskSource;
+import com.facebook.presto.execution.TaskState;
+import com.facebook.presto.execution.TestSqlTaskManager;
+import com.facebook.presto.execution.buffer.BufferInfo;
+import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
+import com.facebook.presto.execution.scheduler.TableWriteInfo;
+import com.facebook.presto.memory.context.SimpleLocalMemoryContext;
+import com.facebook.presto.metadata.InMemoryNodeManager;
+import com.facebook.presto.operator.PageBufferClient.PagesResponse;
+import com.facebook.presto.spi.page.SerializedPage;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.airlift.concurrent.MoreFutures.tryGetFutureValue;
+import static com.facebook.airlift.concurrent.Threads.daemonThreadsNamed;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.execution.TaskTestUtils.PLAN_FRAGMENT;
+import static com.facebook.presto.execution.TaskTestUtils.SPLIT;
+import static com.facebook.presto.execution.TaskTestUtils.TABLE_SCAN_NODE_ID;
+import static com.facebook.presto.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
+import static com.facebook.presto.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestLocalRpcShuffleClient
+{
+    private static final URI NODE_URI = URI.create("http://127.0.0.1:8080");
+    private static final TaskId TASK_ID = new TaskId("query", 0, 0, 1, 0);
+    private static final OutputBufferId OUT = new OutputBufferId(0);
+    private static final DataSize MAX_RESPONSE_SIZE = new DataSize(1, MEGABYTE);
+
+    private TestSqlTaskManager sqlTaskManagerFactory;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService pageBufferClientCallbackExecutor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        sqlTaskManagerFactory = new TestSqlTaskManager();
+        scheduler = newScheduledThreadPool(4, daemonThreadsNamed("test-%s"));
+        pageBufferClientCallbackExecutor = newSingleThreadExecutor(daemonThreadsNamed("test-callback-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        if (sqlTaskManagerFactory != null) {
+            sqlTaskManagerFactory.tearDown();
+            sqlTaskManagerFactory = null;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (pageBufferClientCallbackExecutor != null) {
+            pageBufferClientCallbackExecutor.shutdownNow();
+            pageBufferClientCallbackExecutor = null;
+        }
+    }
+
+    @Test
+    public void testIsLocal()
+    {
+        try (SqlTaskManager sqlTaskManager = sqlTaskManagerFactory.createSqlTaskManager(new TaskManagerConfig())) {
+            assertTrue(createProvider(sqlTaskManager, true).isLocal(createLocation(TASK_ID)));
+            assertFalse(createProvider(sqlTaskManager, false).isLocal(createLocation(TASK_ID)));
+            assertFalse(createProvider(sqlTaskManager, true).isLocal(URI.create("http://127.0.0.1:8081/v1/task/" + TASK_ID + "/results/0")));
+            assertFalse(createProvider(sqlTaskManager, true).isLocal(URI.create("thrift://127.0.0.1:8080/v1/task/" + TASK_ID + "/results/0")));
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testExchangeClient()
+            throws Exception
+    {
+        try (SqlTaskManager sqlTaskManager = sqlTaskManagerFactory.createSqlTaskManager(new TaskManagerConfig())) {
+            TaskInfo taskInfo = createTask(sqlTaskManager, TASK_ID);
+
+            ExchangeClient exchangeClient = createExchangeClient(createProvider(sqlTaskManager, true));
+            exchangeClient.addLocation(createLocation(TASK_ID), TASK_ID);
+            exchangeClient.noMoreLocations();
+
+            SerializedPage page = getNextPage(exchangeClient);
+            assertNotNull(page);
+            assertEquals(page.getPositionCount(), 1);
+            while (page != null) {
+                page = getNextPage(exchangeClient);
+            }
+            assertTrue(exchangeClient.isClosed());
+            exchangeClient.close();
+
+            // the exchange client destroys the buffer once it has read all the pages, which finishes the task
+            taskInfo = sqlTaskManager.getTaskInfo(TASK_ID, taskInfo.getTaskStatus().getState()).get(10, TimeUnit.SECONDS);
+            assertEquals(taskInfo.getTaskStatus().getState(), TaskState.FINISHED);
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testAcknowledge()
+            throws Exception
+    {
+        try (SqlTaskManager sqlTaskManager = sqlTaskManagerFactory.createSqlTaskManager(new TaskManagerConfig())) {
+            createTask(sqlTaskManager, TASK_ID);
+            RpcShuffleClient client = createProvider(sqlTaskManager, true).get(createLocation(TASK_ID));
+
+            PagesResponse response = client.getResults(0, MAX_RESPONSE_SIZE).get();
+            assertEquals(response.getPages().size(), 1);
+            assertEquals(response.getTaskInstanceId(), sqlTaskManager.getTaskInstanceId(TASK_ID));
+
+            // the pages are handed over as they are and stay in the output buffer until they are acknowledged
+            assertEquals(getBufferedBytes(sqlTaskManager), response.getPages().get(0).getRetainedSizeInBytes());
+            client.acknowledgeResultsAsync(response.getNextToken());
+            assertEquals(getBufferedBytes(sqlTaskManager), 0);
+
+            sqlTaskManager.cancelTask(TASK_ID);
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testAbort()
+            throws Exception
+    {
+        try (SqlTaskManager sqlTaskManager = sqlTaskManagerFactory.createSqlTaskManager(new TaskManagerConfig())) {
+            TaskInfo taskInfo = createTask(sqlTaskManager, TASK_ID);
+            RpcShuffleClient client = createProvider(sqlTaskManager, true).get(createLocation(TASK_ID));
+
+            client.abortResults().get();
+
+            taskInfo = sqlTaskManager.getTaskInfo(TASK_ID, taskInfo.getTaskStatus().getState()).get(10, TimeUnit.SECONDS);
+            assertEquals(taskInfo.getTaskStatus().getState(), TaskState.FINISHED);
+        }
+    }
+
+    @Test(timeOut = 30_000)
+    public void testMissingTask()
+            throws Exception
+    {
+        try (SqlTaskManager sqlTaskManager = sqlTaskManagerFactory.createSqlTaskManager(new TaskManagerConfig())) {
+            RpcShuffleClient client = createProvider(sqlTaskManager, true).get(createLocation(TASK_ID));
+
+            // like the remote endpoint, the request waits for the task to be created and returns no pages when the wait times out
+            PagesResponse response = client.getResults(0, MAX_RESPONSE_SIZE).get();
+            assertEquals(response.getToken(), 0);
+            assertEquals(response.getNextToken(), 0);
+            assertTrue(response.getPages().isEmpty());
+            assertFalse(response.isClientComplete());
+
+            // acknowledging and aborting the buffer of a task that does not exist yet is ignored
+            client.acknowledgeResultsAsync(1);
+            client.abortResults().get();
+            assertFalse(sqlTaskManager.getTaskStatus(TASK_ID).getState().isDone());
+        }
+    }
+
+    private LocalShuffleClientProvider createProvider(SqlTaskManager sqlTaskManager, boolean enabled)
+    {
+        InMemoryNodeManager nodeManager = new InMemoryNodeManager(NODE_URI);
+        return new LocalShuffleClientProvider(
+                () -> sqlTaskManager,
+                () -> nodeManager,
+                scheduler,
+                new ExchangeClientConfig().setLocalShortCircuitEnabled(enabled));
+    }
+
+    private ExchangeClient createExchangeClient(RpcShuffleClientProvider shuffleClientProvider)
+    {
+        return new ExchangeClient(
+                new DataSize(32, MEGABYTE),
+                MAX_RESPONSE_SIZE,
+                1,
+                new Duration(1, MINUTES),
+                true,
+                0.2,
+                shuffleClientProvider,
+                scheduler,
+                new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                pageBufferClientCallbackExecutor);
+    }
+
+    private static TaskInfo createTask(SqlTaskManager sqlTaskManager, TaskId taskId)
+    {
+        return sqlTaskManager.updateTask(
+                TEST_SESSION,
+                taskId,
+                Optional.of(PLAN_FRAGMENT),
+                ImmutableList.of(new TaskSource(TABLE_SCAN_NODE_ID, ImmutableSet.of(SPLIT), true)),
+                createInitialEmptyOutputBuffers(PARTITIONED).withBuffer(OUT, 0).withNoMoreBufferIds(),
+                Optional.of(new TableWriteInfo(Optional.empty(), Optional.empty())));
+    }
+
+    private static URI createLocation(TaskId taskId)
+    {
+        return URI.create(NODE_URI + "/v1/task/" + taskId + "/results/" + OUT);
+    }
+
+    private static long getBufferedBytes(SqlTaskManager sqlTaskManager)
+    {
+        return sqlTaskManager.getOutputBufferInfo(TASK_ID).getBuffers().stream()
+                .filter(bufferInfo -> bufferInfo.getBufferId().equals(OUT))
+                .map(BufferInfo::getPageBufferInfo)
+                .findFirst()
+                .orElseThrow(AssertionError::new)
+                .getBufferedBytes();
+    }
+
+    private static SerializedPage getNextPage(ExchangeClient exchangeClient)
+    {
+        ListenableFuture<SerializedPage> futurePage = Futures.transform(exchangeClient.isBlocked(), ignored -> exchangeClient.pollPage(), directExecutor());
+        return tryGetFutureValue(futurePage, 10, TimeUnit.SECONDS).orElse(null);
+    }
+}
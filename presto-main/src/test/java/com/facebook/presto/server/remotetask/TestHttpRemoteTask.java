@@ -55,6 +55,7 @@ import com.facebook.presto.metadata.HandleResolver;
 import com.facebook.presto.metadata.InternalNode;
 import com.facebook.presto.metadata.MetadataUpdates;
 import com.facebook.presto.metadata.Split;
+import com.facebook.presto.operator.TaskStats;
 import com.facebook.presto.server.ConnectorMetadataUpdateHandleJsonSerde;
 import com.facebook.presto.server.InternalCommunicationConfig;
 import com.facebook.presto.server.TaskUpdateRequest;
@@ -114,6 +115,7 @@ import static com.facebook.airlift.json.smile.SmileCodecBinder.smileCodecBinder;
 import static com.facebook.drift.codec.guice.ThriftCodecBinder.thriftCodecBinder;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CURRENT_STATE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_WAIT;
+import static com.facebook.presto.common.RuntimeUnit.NONE;
 import static com.facebook.presto.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
 import static com.facebook.presto.metadata.FunctionAndTypeManager.createTestFunctionAndTypeManager;
 import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
@@ -144,6 +146,7 @@ public class TestHttpRemoteTask
             .setInfoUpdateInterval(new Duration(IDLE_TIMEOUT.roundTo(MILLISECONDS) / 10, MILLISECONDS));
 
     private static final boolean TRACE_HTTP = false;
+    private static final String FETCHED_STATS_METRIC = "fetchedStats";
 
     @DataProvider
     public Object[][] thriftEncodingToggle()
@@ -204,6 +207,37 @@ public class TestHttpRemoteTask
         httpRemoteTaskFactory.stop();
     }
 
+    @Test(timeOut = 60000)
+    public void testOmitTaskUpdateStats()
+            throws Exception
+    {
+        AtomicLong lastActivityNanos = new AtomicLong(System.nanoTime());
+        TestingTaskResource testingTaskResource = new TestingTaskResource(lastActivityNanos, FailureScenario.NO_FAILURE);
+        InternalCommunicationConfig internalCommunicationConfig = new InternalCommunicationConfig()
+                .setOmitTaskUpdateStats(true);
+
+        HttpRemoteTaskFactory httpRemoteTaskFactory = createHttpRemoteTaskFactory(testingTaskResource, false, internalCommunicationConfig);
+
+        RemoteTask remoteTask = createRemoteTask(httpRemoteTaskFactory);
+
+        testingTaskResource.setInitialTaskInfo(remoteTask.getTaskInfo());
+        remoteTask.start();
+        poll(() -> hasFetchedStats(remoteTask.getTaskInfo()));
+
+        remoteTask.addSplits(ImmutableMultimap.of(TaskTestUtils.TABLE_SCAN_NODE_ID, new Split(new ConnectorId("test"), TestingTransactionHandle.create(), TestingSplit.createLocalSplit())));
+        poll(() -> testingTaskResource.getTaskSource(TaskTestUtils.TABLE_SCAN_NODE_ID) != null);
+        poll(() -> testingTaskResource.getStatsOmittedUpdates() > 0);
+
+        // the stats fetched with the task info survive the update that left them out
+        poll(() -> remoteTask.getTaskInfo().getTaskStatus().getVersion() >= testingTaskResource.getLastStatsOmittedVersion());
+        assertTrue(hasFetchedStats(remoteTask.getTaskInfo()));
+
+        remoteTask.cancel();
+        poll(() -> remoteTask.getTaskInfo().getTaskStatus().getState().isDone());
+
+        httpRemoteTaskFactory.stop();
+    }
+
     @Test(timeOut = 50000)
     public void testHTTPRemoteTaskSize()
             throws Exception
@@ -434,6 +468,11 @@ public class TestHttpRemoteTask
         return injector.getInstance(HttpRemoteTaskFactory.class);
     }
 
+    private static boolean hasFetchedStats(TaskInfo taskInfo)
+    {
+        return taskInfo.getStats().getRuntimeStats().getMetric(FETCHED_STATS_METRIC) != null;
+    }
+
     private static void poll(BooleanSupplier success)
             throws InterruptedException
     {
@@ -495,6 +534,8 @@ public class TestHttpRemoteTask
         private long taskInstanceIdMostSignificantBits = INITIAL_TASK_INSTANCE_ID.getMostSignificantBits();
 
         private long statusFetchCounter;
+        private long statsOmittedUpdates;
+        private long lastStatsOmittedVersion;
 
         public TestingTaskResource(AtomicLong lastActivityNanos, FailureScenario failureScenario)
         {
@@ -517,7 +558,11 @@ public class TestHttpRemoteTask
                 @Context UriInfo uriInfo)
         {
             lastActivityNanos.set(System.nanoTime());
-            return buildTaskInfo();
+            TaskInfo taskInfo = buildTaskInfo();
+            // marks the stats, so that they can be told apart from the stats left out of task updates
+            TaskStats stats = new TaskStats(taskInfo.getStats().getCreateTimeInMillis(), taskInfo.getStats().getEndTimeInMillis());
+            stats.getRuntimeStats().addMetricValue(FETCHED_STATS_METRIC, NONE, 1);
+            return taskInfo.withStats(stats);
         }
 
         Map<PlanNodeId, TaskSource> taskSourceMap = new HashMap<>();
@@ -535,9 +580,25 @@ public class TestHttpRemoteTask
                 taskSourceMap.compute(source.getPlanNodeId(), (planNodeId, taskSource) -> taskSource == null ? source : taskSource.update(source));
             }
             lastActivityNanos.set(System.nanoTime());
+            if (uriInfo.getQueryParameters().containsKey("omitStats")) {
+                statsOmittedUpdates++;
+                TaskInfo taskInfo = buildTaskInfo();
+                lastStatsOmittedVersion = taskInfo.getTaskStatus().getVersion();
+                return taskInfo.omitStats();
+            }
             return buildTaskInfo();
         }
 
+        public synchronized long getStatsOmittedUpdates()
+        {
+            return statsOmittedUpdates;
+        }
+
+        public synchronized long getLastStatsOmittedVersion()
+        {
+            return lastStatsOmittedVersion;
+        }
+
         public synchronized TaskSource getTaskSource(PlanNodeId planNodeId)
         {
             TaskSource source = taskSourceMap.get(planNodeId);
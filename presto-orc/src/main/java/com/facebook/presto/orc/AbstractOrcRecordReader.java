@@ -444,7 +444,8 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
     @VisibleForTesting
     static OrcDataSource wrapWithCacheIfTinyStripes(OrcDataSource dataSource, List<StripeInformation> stripes, DataSize maxMergeDistance, DataSize tinyStripeThreshold, OrcAggregatedMemoryContext systemMemoryContext)
     {
-        if (dataSource instanceof CachingOrcDataSource) {
+        // a memory mapped file is read without copies, so caching it would only add one
+        if (dataSource instanceof CachingOrcDataSource || dataSource instanceof MemoryMappedOrcDataSource) {
             return dataSource;
         }
         for (StripeInformation stripe : stripes) {
@@ -499,6 +500,26 @@ abstract class AbstractOrcRecordReader<T extends StreamReader>
         return splitLength;
     }
 
+    /**
+     * Returns the file ranges of the projected streams of each stripe that can
+     * possibly be read by this reader, in the order in which the stripes are read.
+     * The stripe footers are read to find the streams. Returns an empty list if all
+     * stripes are at or below the tiny stripe threshold, since those stripes are
+     * read as a whole, in a few large reads, when the first one is read.
+     */
+    public List<List<DiskRange>> getStripeDiskRanges()
+            throws IOException
+    {
+        if (orcDataSource instanceof CachingOrcDataSource) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<List<DiskRange>> stripeDiskRanges = ImmutableList.builder();
+        for (StripeInformation stripe : stripes) {
+            stripeDiskRanges.add(stripeReader.getIncludedStreamDiskRanges(stripe, systemMemoryUsage));
+        }
+        return stripeDiskRanges.build();
+    }
+
     @Override
     public void close()
             throws IOException
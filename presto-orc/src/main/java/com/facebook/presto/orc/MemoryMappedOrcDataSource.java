@@ -0,0 +1,139 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads a file through a slice of its read-only memory mapping. The disk ranges are
+ * returned as slices of the mapping, so the stream data is decoded from the page cache
+ * without copying it to the heap.
+ * <p>
+ * The slices keep a reference to the mapping, which is unmapped by the garbage collector
+ * when it is no longer referenced, so a slice that outlives the data source can still be
+ * read safely. The data source does not unmap the file when it is closed, so the owner of
+ * the mapping must limit the number of mappings, and the file must not be truncated while
+ * it is mapped.
+ */
+public class MemoryMappedOrcDataSource
+        implements OrcDataSource
+{
+    private final OrcDataSourceId id;
+    private final long size;
+    private Slice mapping;
+    private long readBytes;
+
+    public MemoryMappedOrcDataSource(OrcDataSourceId id, Slice mapping)
+    {
+        this.id = requireNonNull(id, "id is null");
+        this.mapping = requireNonNull(mapping, "mapping is null");
+        this.size = mapping.length();
+        checkArgument(size > 0, "size must be at least 1");
+    }
+
+    @Override
+    public OrcDataSourceId getId()
+    {
+        return id;
+    }
+
+    @Override
+    public long getReadBytes()
+    {
+        return readBytes;
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        // the data is read by page faults while it is decoded
+        return 0;
+    }
+
+    @Override
+    public long getSize()
+    {
+        return size;
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer)
+            throws IOException
+    {
+        readFully(position, buffer, 0, buffer.length);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+            throws IOException
+    {
+        getSlice(position, bufferLength).getBytes(0, buffer, bufferOffset, bufferLength);
+    }
+
+    @Override
+    public <K> Map<K, OrcDataSourceInput> readFully(Map<K, DiskRange> diskRanges)
+            throws IOException
+    {
+        requireNonNull(diskRanges, "diskRanges is null");
+
+        ImmutableMap.Builder<K, OrcDataSourceInput> slices = ImmutableMap.builder();
+        for (Entry<K, DiskRange> entry : diskRanges.entrySet()) {
+            DiskRange diskRange = entry.getValue();
+            // the mapping is not on the heap, so it is not counted in the retained size
+            slices.put(entry.getKey(), new OrcDataSourceInput(getSlice(diskRange.getOffset(), diskRange.getLength()).getInput(), 0));
+        }
+        return slices.build();
+    }
+
+    @Override
+    public void close()
+    {
+        mapping = null;
+    }
+
+    /**
+     * Called for every range that is read from the mapping.
+     */
+    protected void recordRead(int length)
+    {
+    }
+
+    @Override
+    public final String toString()
+    {
+        return id.toString();
+    }
+
+    private Slice getSlice(long position, int length)
+            throws IOException
+    {
+        checkState(mapping != null, "data source is closed");
+        if (position < 0 || position + length > size) {
+            throw new OrcCorruptionException(id, "Read of %s bytes at offset %s is outside of the file of %s bytes", length, position, size);
+        }
+        readBytes += length;
+        recordRead(length);
+        return mapping.slice(toIntExact(position), length);
+    }
+}
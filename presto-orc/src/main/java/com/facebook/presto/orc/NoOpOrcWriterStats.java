@@ -33,6 +33,11 @@ public class NoOpOrcWriterStats
     {
     }
 
+    @Override
+    public void recordBloomFiltersWritten(long bloomFilterBytes)
+    {
+    }
+
     @Override
     public void updateSizeInBytes(long deltaInBytes)
     {
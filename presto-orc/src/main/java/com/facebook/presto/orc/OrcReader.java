@@ -463,7 +463,8 @@ public class OrcReader
 
     private static OrcDataSource wrapWithCacheIfTiny(OrcDataSource dataSource, DataSize maxCacheSize, OrcAggregatedMemoryContext systemMemoryContext)
     {
-        if (dataSource instanceof CachingOrcDataSource) {
+        // a memory mapped file is read without copies, so caching it would only add one
+        if (dataSource instanceof CachingOrcDataSource || dataSource instanceof MemoryMappedOrcDataSource) {
             return dataSource;
         }
         if (dataSource.getSize() > maxCacheSize.toBytes()) {
@@ -37,6 +37,7 @@ import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
 import com.facebook.presto.orc.metadata.statistics.StripeStatistics;
 import com.facebook.presto.orc.proto.DwrfProto;
 import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.orc.writer.BloomFilterIndexWriter;
 import com.facebook.presto.orc.writer.ColumnWriter;
 import com.facebook.presto.orc.writer.CompressionBufferPool;
 import com.facebook.presto.orc.writer.CompressionBufferPool.LastUsedCompressionBufferPool;
@@ -81,6 +82,7 @@ import static com.facebook.presto.orc.DwrfEncryptionInfo.UNENCRYPTED;
 import static com.facebook.presto.orc.DwrfEncryptionInfo.createNodeToGroupMap;
 import static com.facebook.presto.orc.FlushReason.CLOSED;
 import static com.facebook.presto.orc.OrcEncoding.DWRF;
+import static com.facebook.presto.orc.OrcEncoding.ORC;
 import static com.facebook.presto.orc.OrcReader.validateFile;
 import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
 import static com.facebook.presto.orc.metadata.ColumnEncoding.DEFAULT_SEQUENCE_ID;
@@ -90,6 +92,7 @@ import static com.facebook.presto.orc.metadata.OrcType.createNodeIdToColumnMap;
 import static com.facebook.presto.orc.metadata.OrcType.mapColumnToNode;
 import static com.facebook.presto.orc.metadata.PostScript.MAGIC;
 import static com.facebook.presto.orc.metadata.statistics.ColumnStatistics.mergeColumnStatistics;
+import static com.facebook.presto.orc.writer.BloomFilterIndexWriter.isBloomFilterSupported;
 import static com.facebook.presto.orc.writer.ColumnWriters.createColumnWriter;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -136,6 +139,8 @@ public class OrcWriter
     private final List<OrcType> orcTypes;
 
     private final List<ColumnWriter> columnWriters;
+    // Bloom filter index writers by column index
+    private final Map<Integer, BloomFilterIndexWriter> bloomFilterIndexWriters;
     private final Optional<DwrfStripeCacheWriter> dwrfStripeCacheWriter;
     private final int dictionaryMaxMemoryBytes;
     private final DictionaryCompressionOptimizer dictionaryCompressionOptimizer;
@@ -335,6 +340,24 @@ public class OrcWriter
             }
         }
         this.columnWriters = columnWriters.build();
+
+        // DWRF has no Bloom filter streams, and the filters are only useful for the types the reader tests them for
+        ImmutableMap.Builder<Integer, BloomFilterIndexWriter> bloomFilterIndexWriters = ImmutableMap.builder();
+        if (orcEncoding == ORC) {
+            for (int columnIndex : options.getBloomFilterColumns()) {
+                checkArgument(columnIndex >= 0 && columnIndex < types.size(), "Invalid Bloom filter column index: %s", columnIndex);
+                Type fieldType = types.get(columnIndex);
+                if (isBloomFilterSupported(fieldType)) {
+                    bloomFilterIndexWriters.put(columnIndex, new BloomFilterIndexWriter(
+                            rootType.getFieldTypeIndex(columnIndex),
+                            fieldType,
+                            rowGroupMaxRowCount,
+                            options.getBloomFilterFpp(),
+                            metadataWriter));
+                }
+            }
+        }
+        this.bloomFilterIndexWriters = bloomFilterIndexWriters.build();
         this.dictionaryMaxMemoryBytes = toIntExact(options.getDictionaryMaxMemory().toBytes());
         int dictionaryMemoryAlmostFullRangeBytes = toIntExact(options.getDictionaryMemoryAlmostFullRange().toBytes());
         int dictionaryUsefulCheckColumnSizeBytes = toIntExact(options.getDictionaryUsefulCheckColumnSize().toBytes());
@@ -447,6 +470,9 @@ public class OrcWriter
             stripeRawSize += writer.writeBlock(chunk.getBlock(channel));
             bufferedBytes += writer.getBufferedBytes();
         }
+        for (Entry<Integer, BloomFilterIndexWriter> entry : bloomFilterIndexWriters.entrySet()) {
+            entry.getValue().writeBlock(chunk.getBlock(entry.getKey()));
+        }
 
         // update stats
         rowGroupRowCount += chunk.getPositionCount();
@@ -468,13 +494,15 @@ public class OrcWriter
         if (flushReason.isPresent()) {
             flushStripe(flushReason.get());
         }
-        columnWritersRetainedBytes = columnWriters.stream().mapToLong(ColumnWriter::getRetainedBytes).sum();
+        columnWritersRetainedBytes = columnWriters.stream().mapToLong(ColumnWriter::getRetainedBytes).sum() +
+                bloomFilterIndexWriters.values().stream().mapToLong(BloomFilterIndexWriter::getRetainedBytes).sum();
     }
 
     private void finishRowGroup()
     {
         Map<Integer, ColumnStatistics> columnStatistics = new HashMap<>();
         columnWriters.forEach(columnWriter -> columnStatistics.putAll(columnWriter.finishRowGroup()));
+        bloomFilterIndexWriters.values().forEach(BloomFilterIndexWriter::finishRowGroup);
         recordValidation(validation -> validation.addRowGroupStatistics(columnStatistics));
         rowGroupRowCount = 0;
     }
@@ -506,6 +534,7 @@ public class OrcWriter
         finally {
             // open next stripe
             columnWriters.forEach(ColumnWriter::reset);
+            bloomFilterIndexWriters.values().forEach(BloomFilterIndexWriter::reset);
             dictionaryCompressionOptimizer.reset();
             rowGroupRowCount = 0;
             stripeRowCount = 0;
@@ -548,10 +577,18 @@ public class OrcWriter
 
         // get index streams
         long indexLength = 0;
+        long bloomFilterLength = 0;
         long offset = 0;
         int previousEncryptionGroup = -1;
-        for (ColumnWriter columnWriter : columnWriters) {
-            List<StreamDataOutput> streams = columnWriter.getIndexStreams(Optional.empty());
+        for (int columnIndex = 0; columnIndex < columnWriters.size(); columnIndex++) {
+            List<StreamDataOutput> streams = new ArrayList<>(columnWriters.get(columnIndex).getIndexStreams(Optional.empty()));
+            // the Bloom filters of a column follow its row index
+            BloomFilterIndexWriter bloomFilterIndexWriter = bloomFilterIndexWriters.get(columnIndex);
+            if (bloomFilterIndexWriter != null) {
+                StreamDataOutput bloomFilterStream = bloomFilterIndexWriter.getIndexStream();
+                streams.add(bloomFilterStream);
+                bloomFilterLength += bloomFilterStream.size();
+            }
             indexStreams.addAll(streams);
             for (StreamDataOutput indexStream : streams) {
                 // The ordering is critical because the stream only contain a length with no offset.
@@ -652,6 +689,9 @@ public class OrcWriter
                 flushReason,
                 dictionaryCompressionOptimizer.getDictionaryMemoryBytes(),
                 stripeInformation);
+        if (!bloomFilterIndexWriters.isEmpty()) {
+            stats.recordBloomFiltersWritten(bloomFilterLength);
+        }
 
         return ImmutableList.<DataOutput>builder()
                 .addAll(indexStreams)
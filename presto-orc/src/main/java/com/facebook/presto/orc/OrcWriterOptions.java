@@ -49,6 +49,7 @@ public class OrcWriterOptions
     public static final boolean DEFAULT_INTEGER_DICTIONARY_ENCODING_ENABLED = false;
     public static final boolean DEFAULT_STRING_DICTIONARY_ENCODING_ENABLED = true;
     public static final boolean DEFAULT_STRING_DICTIONARY_SORTING_ENABLED = true;
+    public static final double DEFAULT_BLOOM_FILTER_FPP = 0.05;
 
     private final OrcWriterFlushPolicy flushPolicy;
     private final int rowGroupMaxRowCount;
@@ -80,6 +81,12 @@ public class OrcWriterOptions
      */
     private final Set<Integer> flattenedColumns;
 
+    /**
+     * Contains indexes of columns (not nodes!) for which writer should write Bloom filters. This is only supported for ORC.
+     */
+    private final Set<Integer> bloomFilterColumns;
+    private final double bloomFilterFpp;
+
     private OrcWriterOptions(
             OrcWriterFlushPolicy flushPolicy,
             int rowGroupMaxRowCount,
@@ -101,7 +108,9 @@ public class OrcWriterOptions
             int preserveDirectEncodingStripeCount,
             Set<Integer> flattenedColumns,
             boolean mapStatisticsEnabled,
-            int maxFlattenedMapKeyCount)
+            int maxFlattenedMapKeyCount,
+            Set<Integer> bloomFilterColumns,
+            double bloomFilterFpp)
     {
         requireNonNull(flushPolicy, "flushPolicy is null");
         checkArgument(rowGroupMaxRowCount >= 1, "rowGroupMaxRowCount must be at least 1");
@@ -117,6 +126,8 @@ public class OrcWriterOptions
         requireNonNull(dwrfWriterOptions, "dwrfWriterOptions is null");
         requireNonNull(flattenedColumns, "flattenedColumns is null");
         checkArgument(maxFlattenedMapKeyCount > 0, "maxFlattenedMapKeyCount must be positive: %s", maxFlattenedMapKeyCount);
+        requireNonNull(bloomFilterColumns, "bloomFilterColumns is null");
+        checkArgument(bloomFilterFpp > 0.0 && bloomFilterFpp < 1.0, "bloomFilterFpp must be between 0 and 1: %s", bloomFilterFpp);
 
         this.flushPolicy = flushPolicy;
         this.rowGroupMaxRowCount = rowGroupMaxRowCount;
@@ -139,6 +150,8 @@ public class OrcWriterOptions
         this.flattenedColumns = flattenedColumns;
         this.mapStatisticsEnabled = mapStatisticsEnabled;
         this.maxFlattenedMapKeyCount = maxFlattenedMapKeyCount;
+        this.bloomFilterColumns = bloomFilterColumns;
+        this.bloomFilterFpp = bloomFilterFpp;
     }
 
     public OrcWriterFlushPolicy getFlushPolicy()
@@ -246,6 +259,16 @@ public class OrcWriterOptions
         return maxFlattenedMapKeyCount;
     }
 
+    public Set<Integer> getBloomFilterColumns()
+    {
+        return bloomFilterColumns;
+    }
+
+    public double getBloomFilterFpp()
+    {
+        return bloomFilterFpp;
+    }
+
     @Override
     public String toString()
     {
@@ -269,6 +292,8 @@ public class OrcWriterOptions
                 .add("flattenedColumns", flattenedColumns)
                 .add("mapStatisticsEnabled", mapStatisticsEnabled)
                 .add("maxFlattenedMapKeyCount", maxFlattenedMapKeyCount)
+                .add("bloomFilterColumns", bloomFilterColumns)
+                .add("bloomFilterFpp", bloomFilterFpp)
                 .toString();
     }
 
@@ -307,6 +332,8 @@ public class OrcWriterOptions
         private Set<Integer> flattenedColumns = ImmutableSet.of();
         private boolean mapStatisticsEnabled;
         private int maxFlattenedMapKeyCount = DEFAULT_MAX_FLATTENED_MAP_KEY_COUNT;
+        private Set<Integer> bloomFilterColumns = ImmutableSet.of();
+        private double bloomFilterFpp = DEFAULT_BLOOM_FILTER_FPP;
 
         public Builder withFlushPolicy(OrcWriterFlushPolicy flushPolicy)
         {
@@ -448,6 +475,19 @@ public class OrcWriterOptions
             return this;
         }
 
+        public Builder withBloomFilterColumns(Set<Integer> bloomFilterColumns)
+        {
+            this.bloomFilterColumns = ImmutableSet.copyOf(bloomFilterColumns);
+            return this;
+        }
+
+        public Builder withBloomFilterFpp(double bloomFilterFpp)
+        {
+            checkArgument(bloomFilterFpp > 0.0 && bloomFilterFpp < 1.0, "bloomFilterFpp must be between 0 and 1: %s", bloomFilterFpp);
+            this.bloomFilterFpp = bloomFilterFpp;
+            return this;
+        }
+
         public OrcWriterOptions build()
         {
             Optional<DwrfStripeCacheOptions> dwrfWriterOptions;
@@ -479,7 +519,9 @@ public class OrcWriterOptions
                     preserveDirectEncodingStripeCount,
                     flattenedColumns,
                     mapStatisticsEnabled,
-                    maxFlattenedMapKeyCount);
+                    maxFlattenedMapKeyCount,
+                    bloomFilterColumns,
+                    bloomFilterFpp);
         }
     }
 }
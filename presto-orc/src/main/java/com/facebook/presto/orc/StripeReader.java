@@ -100,6 +100,7 @@ public class StripeReader
     private final Multimap<Integer, Integer> dwrfEncryptionGroupColumns;
     private final RuntimeStats runtimeStats;
     private final Optional<OrcFileIntrospector> fileIntrospector;
+    private final Map<Long, StripeFooter> readAheadStripeFooters = new HashMap<>();
 
     public StripeReader(
             OrcDataSource orcDataSource,
@@ -158,8 +159,11 @@ public class StripeReader
     {
         StripeId stripeId = new StripeId(orcDataSource.getId(), stripe.getOffset());
 
-        // read the stripe footer
-        StripeFooter stripeFooter = readStripeFooter(stripeId, stripe, systemMemoryUsage);
+        // read the stripe footer, unless it was read to find the ranges to read ahead
+        StripeFooter stripeFooter = readAheadStripeFooters.remove(stripe.getOffset());
+        if (stripeFooter == null) {
+            stripeFooter = readStripeFooter(stripeId, stripe, systemMemoryUsage);
+        }
         fileIntrospector.ifPresent(introspector -> introspector.onStripeFooter(stripe, stripeFooter));
 
         // get streams for selected columns
@@ -501,6 +505,31 @@ public class StripeReader
         }
     }
 
+    /**
+     * Returns the file ranges of the streams of the included columns of the stripe, which
+     * are the ranges read by {@link #readStripe}. The stripe footer is kept until the stripe
+     * is read, so it is not read twice. Streams of encrypted columns are not included, since
+     * they are only known once the stripe encryption groups are decrypted.
+     */
+    public List<DiskRange> getIncludedStreamDiskRanges(StripeInformation stripe, OrcAggregatedMemoryContext systemMemoryUsage)
+            throws IOException
+    {
+        StripeFooter stripeFooter = readStripeFooter(new StripeId(orcDataSource.getId(), stripe.getOffset()), stripe, systemMemoryUsage);
+        readAheadStripeFooters.put(stripe.getOffset(), stripeFooter);
+
+        Map<StreamId, Stream> includedStreams = new HashMap<>();
+        addIncludedStreams(stripeFooter.getColumnEncodings(), stripeFooter.getStreams(), includedStreams);
+
+        ImmutableList.Builder<DiskRange> diskRanges = ImmutableList.builder();
+        for (Entry<StreamId, DiskRange> entry : getDiskRanges(ImmutableList.of(stripeFooter.getStreams())).entrySet()) {
+            if (includedStreams.containsKey(entry.getKey())) {
+                DiskRange diskRange = entry.getValue();
+                diskRanges.add(new DiskRange(stripe.getOffset() + diskRange.getOffset(), diskRange.getLength()));
+            }
+        }
+        return diskRanges.build();
+    }
+
     static boolean isIndexStream(Stream stream)
     {
         return stream.getStreamKind().getStreamArea() == INDEX;
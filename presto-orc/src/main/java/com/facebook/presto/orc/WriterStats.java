@@ -25,5 +25,7 @@ public interface WriterStats
             int dictionaryBytes,
             StripeInformation stripeInformation);
 
+    void recordBloomFiltersWritten(long bloomFilterBytes);
+
     void updateSizeInBytes(long deltaInBytes);
 }
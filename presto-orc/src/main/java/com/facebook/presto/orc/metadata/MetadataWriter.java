@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.orc.metadata;
 
+import com.facebook.presto.orc.metadata.statistics.BloomFilter;
 import io.airlift.slice.SliceOutput;
 
 import java.io.IOException;
@@ -45,4 +46,7 @@ public interface MetadataWriter
 
     int writeRowIndexes(SliceOutput output, List<RowGroupIndex> rowGroupIndexes)
             throws IOException;
+
+    int writeBloomFilters(SliceOutput output, List<BloomFilter> bloomFilters)
+            throws IOException;
 }
@@ -0,0 +1,136 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.type.Type;
+import com.facebook.presto.common.type.VarbinaryType;
+import com.facebook.presto.common.type.VarcharType;
+import com.facebook.presto.orc.metadata.CompressedMetadataWriter;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.statistics.BloomFilter;
+import com.facebook.presto.orc.metadata.statistics.HiveBloomFilter;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import io.airlift.slice.Slice;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.common.type.BigintType.BIGINT;
+import static com.facebook.presto.common.type.DoubleType.DOUBLE;
+import static com.facebook.presto.common.type.IntegerType.INTEGER;
+import static com.facebook.presto.common.type.SmallintType.SMALLINT;
+import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.orc.metadata.ColumnEncoding.DEFAULT_SEQUENCE_ID;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.BLOOM_FILTER;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Builds a Bloom filter per row group for a column, and writes them as the legacy BLOOM_FILTER
+ * index stream of the column, which is the only Bloom filter stream the Presto reader uses.
+ * The values are hashed the same way as in Hive, so Hive and older ORC readers can skip the row
+ * groups as well. Newer ORC readers ignore the BLOOM_FILTER stream of string columns and only use
+ * BLOOM_FILTER_UTF8, which is not written.
+ */
+public class BloomFilterIndexWriter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(BloomFilterIndexWriter.class).instanceSize();
+
+    private final int column;
+    private final Type type;
+    private final CompressedMetadataWriter metadataWriter;
+    private final BloomFilter bloomFilter;
+    private final List<BloomFilter> rowGroupBloomFilters = new ArrayList<>();
+    private long rowGroupBloomFiltersRetainedBytes;
+
+    public BloomFilterIndexWriter(int column, Type type, int rowGroupMaxRowCount, double fpp, CompressedMetadataWriter metadataWriter)
+    {
+        checkArgument(isBloomFilterSupported(type), "Bloom filters are not supported for type %s", type);
+        this.column = column;
+        this.type = type;
+        this.metadataWriter = requireNonNull(metadataWriter, "metadataWriter is null");
+        this.bloomFilter = new BloomFilter(rowGroupMaxRowCount, fpp);
+    }
+
+    // these are the types for which the reader tests the predicate values against Bloom filters
+    public static boolean isBloomFilterSupported(Type type)
+    {
+        return type == TINYINT ||
+                type == SMALLINT ||
+                type == INTEGER ||
+                type == BIGINT ||
+                type == DOUBLE ||
+                type instanceof VarcharType ||
+                type instanceof VarbinaryType;
+    }
+
+    public void writeBlock(Block block)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                continue;
+            }
+            if (type == DOUBLE) {
+                bloomFilter.addDouble(type.getDouble(block, position));
+            }
+            else if (type instanceof VarcharType || type instanceof VarbinaryType) {
+                Slice slice = type.getSlice(block, position);
+                if (slice.hasByteArray()) {
+                    bloomFilter.addBytes(slice.byteArray(), slice.byteArrayOffset(), slice.length());
+                }
+                else {
+                    bloomFilter.add(slice.getBytes());
+                }
+            }
+            else {
+                bloomFilter.addLong(type.getLong(block, position));
+            }
+        }
+    }
+
+    public void finishRowGroup()
+    {
+        HiveBloomFilter rowGroupBloomFilter = new HiveBloomFilter(bloomFilter);
+        rowGroupBloomFilters.add(rowGroupBloomFilter);
+        rowGroupBloomFiltersRetainedBytes += rowGroupBloomFilter.getRetainedSizeInBytes();
+        bloomFilter.reset();
+    }
+
+    /**
+     * Returns the BLOOM_FILTER stream with one Bloom filter for each row group of the stripe.
+     * The stream must be written after the ROW_INDEX stream of the column.
+     */
+    public StreamDataOutput getIndexStream()
+            throws IOException
+    {
+        Slice slice = metadataWriter.writeBloomFilters(rowGroupBloomFilters);
+        Stream stream = new Stream(column, DEFAULT_SEQUENCE_ID, BLOOM_FILTER, slice.length(), false);
+        return new StreamDataOutput(slice, stream);
+    }
+
+    public long getRetainedBytes()
+    {
+        return INSTANCE_SIZE + bloomFilter.sizeInBytes() + rowGroupBloomFiltersRetainedBytes;
+    }
+
+    public void reset()
+    {
+        rowGroupBloomFilters.clear();
+        rowGroupBloomFiltersRetainedBytes = 0;
+        bloomFilter.reset();
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.FixedLengthSliceInput;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Map;
+
+import static com.facebook.presto.orc.AbstractOrcRecordReader.wrapWithCacheIfTinyStripes;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+
+public class TestMemoryMappedOrcDataSource
+{
+    private static final int FILE_SIZE = 1000;
+
+    private TempFile tempFile;
+
+    @BeforeClass
+    public void setUp()
+            throws Exception
+    {
+        tempFile = new TempFile();
+        byte[] data = new byte[FILE_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        Files.write(tempFile.getFile().toPath(), data);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws Exception
+    {
+        tempFile.close();
+    }
+
+    @Test
+    public void testReadFully()
+            throws IOException
+    {
+        try (MemoryMappedOrcDataSource dataSource = createDataSource()) {
+            assertEquals(dataSource.getSize(), FILE_SIZE);
+
+            byte[] buffer = new byte[12];
+            dataSource.readFully(300, buffer, 1, 10);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(buffer[i + 1], (byte) (300 + i));
+            }
+            assertEquals(dataSource.getReadBytes(), 10);
+
+            assertThrows(OrcCorruptionException.class, () -> dataSource.readFully(FILE_SIZE - 5, new byte[10]));
+        }
+    }
+
+    @Test
+    public void testReadDiskRanges()
+            throws IOException
+    {
+        try (MemoryMappedOrcDataSource dataSource = createDataSource()) {
+            Map<String, OrcDataSourceInput> inputs = dataSource.readFully(ImmutableMap.of(
+                    "first", new DiskRange(0, 100),
+                    "second", new DiskRange(500, 400)));
+
+            assertInput(inputs.get("first"), 0, 100);
+            assertInput(inputs.get("second"), 500, 400);
+            assertEquals(dataSource.getReadBytes(), 500);
+        }
+    }
+
+    @Test
+    public void testReadAfterClose()
+            throws IOException
+    {
+        MemoryMappedOrcDataSource dataSource = createDataSource();
+        OrcDataSourceInput input = dataSource.readFully(ImmutableMap.of(0, new DiskRange(10, 20))).get(0);
+        dataSource.close();
+
+        // the data that was returned stays readable, but the data source can no longer be read
+        assertInput(input, 10, 20);
+        assertThrows(IllegalStateException.class, () -> dataSource.readFully(0, new byte[10]));
+    }
+
+    @Test
+    public void testRecordRead()
+            throws IOException
+    {
+        int[] recordedBytes = new int[1];
+        try (MemoryMappedOrcDataSource dataSource = new MemoryMappedOrcDataSource(new OrcDataSourceId("test"), map())
+        {
+            @Override
+            protected void recordRead(int length)
+            {
+                recordedBytes[0] += length;
+            }
+        }) {
+            dataSource.readFully(0, new byte[10]);
+            dataSource.readFully(ImmutableMap.of(0, new DiskRange(100, 20)));
+            assertEquals(recordedBytes[0], 30);
+        }
+    }
+
+    @Test
+    public void testNotWrappedWithCache()
+            throws IOException
+    {
+        try (MemoryMappedOrcDataSource dataSource = createDataSource()) {
+            OrcDataSource actual = wrapWithCacheIfTinyStripes(
+                    dataSource,
+                    ImmutableList.of(),
+                    new DataSize(1, MEGABYTE),
+                    new DataSize(8, MEGABYTE),
+                    new TestingHiveOrcAggregatedMemoryContext());
+            assertSame(actual, dataSource);
+        }
+    }
+
+    private MemoryMappedOrcDataSource createDataSource()
+            throws IOException
+    {
+        return new MemoryMappedOrcDataSource(new OrcDataSourceId(tempFile.getFile().getPath()), map());
+    }
+
+    private Slice map()
+            throws IOException
+    {
+        try (RandomAccessFile file = new RandomAccessFile(tempFile.getFile(), "r");
+                FileChannel channel = file.getChannel()) {
+            return wrappedBuffer(channel.map(READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private static void assertInput(OrcDataSourceInput input, int offset, int length)
+    {
+        assertEquals(input.getRetainedSizeInBytes(), 0);
+        FixedLengthSliceInput sliceInput = input.getInput();
+        assertEquals(sliceInput.length(), length);
+        for (int i = 0; i < length; i++) {
+            assertEquals(sliceInput.readByte(), (byte) (offset + i));
+        }
+    }
+}
@@ -20,8 +20,11 @@ import com.facebook.presto.common.type.Type;
 import com.facebook.presto.orc.cache.StorageOrcFileTailSource;
 import com.facebook.presto.orc.metadata.CompressionKind;
 import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.statistics.HiveBloomFilter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.units.DataSize;
 import org.joda.time.DateTimeZone;
 import org.testng.annotations.Test;
@@ -31,15 +34,20 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.orc.NoOpOrcWriterStats.NOOP_WRITER_STATS;
 import static com.facebook.presto.orc.NoopOrcAggregatedMemoryContext.NOOP_ORC_AGGREGATED_MEMORY_CONTEXT;
 import static com.facebook.presto.orc.OrcTester.createOrcWriter;
+import static com.facebook.presto.orc.TupleDomainOrcPredicate.checkInBloomFilter;
 import static com.facebook.presto.orc.metadata.Stream.StreamKind.ROW_INDEX;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 public class TestOrcFileIntrospection
 {
@@ -54,8 +62,8 @@ public class TestOrcFileIntrospection
 
         // write two stripes, first stripe with two row groups of 5 rows each, and the second stripe with one row group with 5 rows
         try (TempFile tempFile = new TempFile()) {
-            writeFile(type, page, tempFile);
-            readFile(type, introspector, tempFile);
+            writeFile(OrcEncoding.DWRF, type, page, ImmutableSet.of(), tempFile);
+            readFile(OrcEncoding.DWRF, type, introspector, tempFile);
         }
 
         // check we got all objects
@@ -87,9 +95,39 @@ public class TestOrcFileIntrospection
         assertNotNull(rowGroupIndexes1.get(0).getColumnStatistics());
         assertNotNull(rowGroupIndexes1.get(1).getColumnStatistics());
         assertNotNull(rowGroupIndexes2.get(0).getColumnStatistics());
+        assertNull(rowGroupIndexes1.get(0).getColumnStatistics().getBloomFilter());
     }
 
-    private void writeFile(Type type, Page page, TempFile tempFile)
+    @Test
+    public void testBloomFilters()
+            throws Exception
+    {
+        Type type = INTEGER;
+        CapturingOrcFileIntrospector introspector = new CapturingOrcFileIntrospector();
+
+        try (TempFile tempFile = new TempFile()) {
+            writeFile(OrcEncoding.ORC, type, createTestPage(type, 15), ImmutableSet.of(0), tempFile);
+            readFile(OrcEncoding.ORC, type, introspector, tempFile);
+        }
+
+        // every row group has a Bloom filter with the values of its 5 rows
+        int firstValue = 0;
+        for (StripeInformation stripe : introspector.getStripeInformations()) {
+            List<RowGroupIndex> rowGroupIndexes = introspector.getRowGroupIndexesByStripeOffset().get(stripe.getOffset()).get(new StreamId(1, 0, ROW_INDEX));
+            for (RowGroupIndex rowGroupIndex : rowGroupIndexes) {
+                HiveBloomFilter bloomFilter = rowGroupIndex.getColumnStatistics().getBloomFilter();
+                assertNotNull(bloomFilter);
+                for (int value = firstValue; value < firstValue + 5; value++) {
+                    assertTrue(checkInBloomFilter(bloomFilter, (long) value, type));
+                }
+                assertFalse(checkInBloomFilter(bloomFilter, 1_000_000L, type));
+                firstValue += 5;
+            }
+        }
+        assertEquals(firstValue, 15);
+    }
+
+    private void writeFile(OrcEncoding encoding, Type type, Page page, Set<Integer> bloomFilterColumns, TempFile tempFile)
             throws IOException
     {
         DefaultOrcWriterFlushPolicy flushPolicy = DefaultOrcWriterFlushPolicy.builder()
@@ -99,11 +137,13 @@ public class TestOrcFileIntrospection
         OrcWriterOptions writerOptions = OrcWriterOptions.builder()
                 .withFlushPolicy(flushPolicy)
                 .withRowGroupMaxRowCount(5)
+                .withBloomFilterColumns(bloomFilterColumns)
+                .withBloomFilterFpp(0.01)
                 .build();
 
         try (OrcWriter orcWriter = createOrcWriter(
                 tempFile.getFile(),
-                OrcEncoding.DWRF,
+                encoding,
                 CompressionKind.ZSTD,
                 Optional.empty(),
                 ImmutableList.of(type),
@@ -113,7 +153,7 @@ public class TestOrcFileIntrospection
         }
     }
 
-    private static void readFile(Type type, CapturingOrcFileIntrospector introspector, TempFile tempFile)
+    private static void readFile(OrcEncoding encoding, Type type, CapturingOrcFileIntrospector introspector, TempFile tempFile)
             throws IOException
     {
         OrcDataSource dataSource = new FileOrcDataSource(tempFile.getFile(),
@@ -130,7 +170,7 @@ public class TestOrcFileIntrospection
 
         OrcReader reader = new OrcReader(
                 dataSource,
-                OrcEncoding.DWRF,
+                encoding,
                 new StorageOrcFileTailSource(),
                 StripeMetadataSourceFactory.of(new StorageStripeMetadataSource()),
                 Optional.empty(),
@@ -67,6 +67,8 @@ public class TestOrcWriterOptions
         assertEquals(options.getFlattenedColumns(), ImmutableSet.of());
         assertFalse(options.isMapStatisticsEnabled());
         assertEquals(options.getMaxFlattenedMapKeyCount(), 25000);
+        assertEquals(options.getBloomFilterColumns(), ImmutableSet.of());
+        assertEquals(options.getBloomFilterFpp(), 0.05);
     }
 
     @Test
@@ -112,7 +114,9 @@ public class TestOrcWriterOptions
                 .withPreserveDirectEncodingStripeCount(preserveDirectEncodingStripeCount)
                 .withFlattenedColumns(ImmutableSet.of(4, 3))
                 .withMapStatisticsEnabled(mapStatisticsEnabled)
-                .withMaxFlattenedMapKeyCount(maxFlattenedMapKeyCount);
+                .withMaxFlattenedMapKeyCount(maxFlattenedMapKeyCount)
+                .withBloomFilterColumns(ImmutableSet.of(1, 2))
+                .withBloomFilterFpp(0.01);
 
         OrcWriterOptions options = builder.build();
 
@@ -136,6 +140,8 @@ public class TestOrcWriterOptions
         assertEquals(options.getFlattenedColumns(), ImmutableSet.of(4, 3));
         assertEquals(options.isMapStatisticsEnabled(), mapStatisticsEnabled);
         assertEquals(options.getMaxFlattenedMapKeyCount(), maxFlattenedMapKeyCount);
+        assertEquals(options.getBloomFilterColumns(), ImmutableSet.of(1, 2));
+        assertEquals(options.getBloomFilterFpp(), 0.01);
     }
 
     @Test
@@ -185,6 +191,7 @@ public class TestOrcWriterOptions
                 .withFlattenedColumns(ImmutableSet.of(4))
                 .withMapStatisticsEnabled(mapStatisticsEnabled)
                 .withMaxFlattenedMapKeyCount(maxFlattenedMapKeyCount)
+                .withBloomFilterColumns(ImmutableSet.of(2))
                 .build();
 
         String expectedString = "OrcWriterOptions{flushPolicy=DefaultOrcWriterFlushPolicy{stripeMaxRowCount=1100000, " +
@@ -195,7 +202,7 @@ public class TestOrcWriterOptions
                 "stringDictionarySortingEnabled=true, stringDictionaryEncodingEnabled=true, " +
                 "dwrfWriterOptions=Optional[DwrfStripeCacheOptions{stripeCacheMode=INDEX_AND_FOOTER, stripeCacheMaxSize=4MB}], " +
                 "ignoreDictionaryRowGroupSizes=false, preserveDirectEncodingStripeCount=0, flattenedColumns=[4], mapStatisticsEnabled=true, " +
-                "maxFlattenedMapKeyCount=27}";
+                "maxFlattenedMapKeyCount=27, bloomFilterColumns=[2], bloomFilterFpp=0.05}";
         assertEquals(expectedString, writerOptions.toString());
     }
 }
@@ -13,6 +13,10 @@
  */
 package com.facebook.presto.parquet;
 
+import io.airlift.slice.Slice;
+
+import java.util.Optional;
+
 import static java.util.Objects.requireNonNull;
 
 public abstract class AbstractParquetDataSource
@@ -63,5 +67,20 @@ public abstract class AbstractParquetDataSource
         readTimeNanos += currentReadTimeNanos;
     }
 
+    @Override
+    public final Optional<Slice> getSlice(long position, int length)
+    {
+        Optional<Slice> slice = getSliceInternal(position, length);
+        if (slice.isPresent()) {
+            readBytes += length;
+        }
+        return slice;
+    }
+
     protected abstract void readInternal(long position, byte[] buffer, int bufferOffset, int bufferLength);
+
+    protected Optional<Slice> getSliceInternal(long position, int length)
+    {
+        return Optional.empty();
+    }
 }
@@ -27,5 +27,16 @@ public interface ColumnReader
 
     ColumnChunk readNext();
 
+    /**
+     * Reads the values at the given positions of the next batch, which must be in increasing order. Readers
+     * that can skip values override this, so that the values at the other positions are not decoded. The
+     * returned chunk has no definition and repetition levels, so this is only meant for flat columns.
+     */
+    default ColumnChunk readNext(int[] positions, int positionCount)
+    {
+        ColumnChunk columnChunk = readNext();
+        return new ColumnChunk(columnChunk.getBlock().getPositions(positions, 0, positionCount), new int[0], new int[0]);
+    }
+
     long getRetainedSizeInBytes();
 }
@@ -22,6 +22,7 @@ import io.airlift.slice.Slice;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.zip.GZIPInputStream;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -146,6 +147,12 @@ public final class ParquetCompressionUtils
 
     private static int decompress(Decompressor decompressor, Slice input, int inputOffset, int inputLength, byte[] output, int outputOffset)
     {
+        if (!input.hasByteArray()) {
+            // the input is not on the heap, for example a page of a memory mapped file
+            ByteBuffer outputBuffer = ByteBuffer.wrap(output, outputOffset, output.length - outputOffset);
+            decompressor.decompress(input.toByteBuffer(inputOffset, inputLength), outputBuffer);
+            return outputBuffer.position() - outputOffset;
+        }
         byte[] byteArray = (byte[]) input.getBase();
         int byteArrayOffset = inputOffset + (int) (input.getAddress() - ARRAY_BYTE_BASE_OFFSET);
         int size = decompressor.decompress(byteArray, byteArrayOffset, inputLength, output, outputOffset, output.length - outputOffset);
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.parquet;
 
+import io.airlift.slice.Slice;
 import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.internal.column.columnindex.ColumnIndex;
 import org.apache.parquet.internal.column.columnindex.OffsetIndex;
@@ -34,6 +35,15 @@ public interface ParquetDataSource
 
     void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength);
 
+    /**
+     * Returns the bytes at the given position without copying them, if the data source holds the file
+     * in memory, for example through a memory mapping. Otherwise, the bytes must be read with readFully.
+     */
+    default Optional<Slice> getSlice(long position, int length)
+    {
+        return Optional.empty();
+    }
+
     Optional<ColumnIndex> readColumnIndex(ColumnChunkMetaData column) throws IOException;
 
     Optional<OffsetIndex> readOffsetIndex(ColumnChunkMetaData column) throws IOException;
@@ -113,6 +113,23 @@ public class Int64FlatBatchReader
         return columnChunk;
     }
 
+    @Override
+    public ColumnChunk readNext(int[] positions, int positionCount)
+    {
+        ColumnChunk columnChunk = null;
+        try {
+            seek();
+            columnChunk = readPositions(positions, positionCount);
+        }
+        catch (IOException exception) {
+            throw new PrestoException(PARQUET_IO_READ_ERROR, "Error reading Parquet column " + columnDescriptor, exception);
+        }
+
+        readOffset = 0;
+        nextBatchSize = 0;
+        return columnChunk;
+    }
+
     @Override
     public long getRetainedSizeInBytes()
     {
@@ -225,6 +242,103 @@ public class Int64FlatBatchReader
         return new ColumnChunk(block, new int[0], new int[0]);
     }
 
+    /**
+     * Reads the values at the given positions of the batch, and skips the values at the other positions
+     * without decoding them.
+     */
+    private ColumnChunk readPositions(int[] positions, int positionCount)
+            throws IOException
+    {
+        long[] values = new long[positionCount];
+        boolean[] isNull = new boolean[positionCount];
+        boolean[] isNullInPage = null;
+
+        // the non-null values at the positions are read densely, and moved to their positions at the end
+        int nonNullCount = 0;
+        int nextPosition = 0;
+        int batchOffset = 0;
+        while (batchOffset < nextBatchSize) {
+            if (remainingCountInPage == 0) {
+                if (!readNextPage()) {
+                    break;
+                }
+            }
+
+            int chunkSize = Math.min(remainingCountInPage, nextBatchSize - batchOffset);
+            if (!field.isRequired()) {
+                if (isNullInPage == null || isNullInPage.length < chunkSize) {
+                    isNullInPage = new boolean[chunkSize];
+                }
+                definitionLevelDecoder.readNext(isNullInPage, 0, chunkSize);
+            }
+
+            // consecutive values to read or to skip
+            int valuesToRead = 0;
+            int valuesToSkip = 0;
+            for (int offset = 0; offset < chunkSize; offset++) {
+                boolean selected = nextPosition < positionCount && positions[nextPosition] == batchOffset + offset;
+                if (!field.isRequired() && isNullInPage[offset]) {
+                    if (selected) {
+                        isNull[nextPosition] = true;
+                        nextPosition++;
+                    }
+                    continue;
+                }
+                if (selected) {
+                    if (valuesToSkip > 0) {
+                        valuesDecoder.skip(valuesToSkip);
+                        valuesToSkip = 0;
+                    }
+                    valuesToRead++;
+                    nextPosition++;
+                }
+                else {
+                    if (valuesToRead > 0) {
+                        valuesDecoder.readNext(values, nonNullCount, valuesToRead);
+                        nonNullCount += valuesToRead;
+                        valuesToRead = 0;
+                    }
+                    valuesToSkip++;
+                }
+            }
+            if (valuesToRead > 0) {
+                valuesDecoder.readNext(values, nonNullCount, valuesToRead);
+                nonNullCount += valuesToRead;
+            }
+            if (valuesToSkip > 0) {
+                valuesDecoder.skip(valuesToSkip);
+            }
+
+            batchOffset += chunkSize;
+            remainingCountInPage -= chunkSize;
+        }
+
+        if (batchOffset != nextBatchSize) {
+            throw new ParquetDecodingException(format("Corrupted Parquet file: extra %d values to be consumed when scanning current batch", nextBatchSize - batchOffset));
+        }
+        checkArgument(nextPosition == positionCount, "positions must be increasing and within the batch");
+
+        if (nonNullCount == 0 && positionCount > 0) {
+            Block block = RunLengthEncodedBlock.create(field.getType(), null, positionCount);
+            return new ColumnChunk(block, new int[0], new int[0]);
+        }
+
+        if (nonNullCount == positionCount) {
+            Block block = new LongArrayBlock(positionCount, Optional.empty(), values);
+            return new ColumnChunk(block, new int[0], new int[0]);
+        }
+
+        int valueSourceIndex = nonNullCount - 1;
+        for (int valueDestinationIndex = positionCount - 1; valueDestinationIndex >= 0; valueDestinationIndex--) {
+            if (!isNull[valueDestinationIndex]) {
+                values[valueDestinationIndex] = values[valueSourceIndex];
+                valueSourceIndex--;
+            }
+        }
+        Block block = new LongArrayBlock(positionCount, Optional.of(isNull), values);
+        return new ColumnChunk(block, new int[0], new int[0]);
+    }
+
     private void seek()
             throws IOException
     {
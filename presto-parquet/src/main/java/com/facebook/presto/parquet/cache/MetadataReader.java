@@ -18,6 +18,8 @@ import com.facebook.presto.parquet.ParquetDataSource;
 import com.facebook.presto.parquet.ParquetDataSourceId;
 import io.airlift.slice.BasicSliceInput;
 import io.airlift.slice.Slice;
+import org.apache.parquet.column.values.bloomfilter.BlockSplitBloomFilter;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
 import org.apache.parquet.crypto.AesCipher;
 import org.apache.parquet.crypto.AesGcmEncryptor;
 import org.apache.parquet.crypto.HiddenColumnChunkMetaData;
@@ -28,6 +30,7 @@ import org.apache.parquet.crypto.ModuleCipherFactory.ModuleType;
 import org.apache.parquet.crypto.ParquetCryptoRuntimeException;
 import org.apache.parquet.crypto.TagVerificationException;
 import org.apache.parquet.format.BlockCipher.Decryptor;
+import org.apache.parquet.format.BloomFilterHeader;
 import org.apache.parquet.format.ColumnChunk;
 import org.apache.parquet.format.ColumnCryptoMetaData;
 import org.apache.parquet.format.ColumnMetaData;
@@ -84,6 +87,7 @@ import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
 import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.apache.parquet.column.values.bloomfilter.BlockSplitBloomFilter.UPPER_BOUND_BYTES;
 import static org.apache.parquet.crypto.AesCipher.GCM_TAG_LENGTH;
 import static org.apache.parquet.crypto.AesCipher.NONCE_LENGTH;
 import static org.apache.parquet.crypto.ParquetCryptoMetaDataUtils.removeColumnsInSchema;
@@ -99,6 +103,7 @@ public final class MetadataReader
     private static final Slice EMAGIC = wrappedBuffer(EF_MAGIC_STR.getBytes(US_ASCII));
     private static final int POST_SCRIPT_SIZE = Integer.BYTES + MAGIC.length();
     private static final int EXPECTED_FOOTER_SIZE = 16 * 1024;
+    private static final int EXPECTED_BLOOM_FILTER_HEADER_SIZE = 64;
     private static final ParquetMetadataConverter PARQUET_METADATA_CONVERTER = new ParquetMetadataConverter();
     private static final long MODIFICATION_TIME_NOT_SET = 0L;
 
@@ -257,6 +262,10 @@ public final class MetadataReader
                     ColumnChunkMetaData column = buildColumnChunkMetaData(metaData, columnPath, messageType.getType(columnPath.toArray()).asPrimitiveType());
                     column.setColumnIndexReference(toColumnIndexReference(columnChunk));
                     column.setOffsetIndexReference(toOffsetIndexReference(columnChunk));
+                    // the Bloom filters of encrypted columns are encrypted as well, and are not read
+                    if (metaData.isSetBloom_filter_offset() && !columnChunk.isSetCrypto_metadata()) {
+                        column.setBloomFilterOffset(metaData.getBloom_filter_offset());
+                    }
                     blockMetaData.addColumn(column);
                 }
                 blockMetaData.setPath(filePath);
@@ -558,6 +567,37 @@ public final class MetadataReader
         return readFooter(parquetDataSource, fileSize, modificationTime, fileDecryptor, readMaskedValue);
     }
 
+    @Override
+    public Optional<BloomFilter> getBloomFilter(ParquetDataSource parquetDataSource, ColumnChunkMetaData columnChunk, boolean cacheable, long modificationTime)
+            throws IOException
+    {
+        return readBloomFilter(parquetDataSource, columnChunk);
+    }
+
+    public static Optional<BloomFilter> readBloomFilter(ParquetDataSource parquetDataSource, ColumnChunkMetaData columnChunk)
+            throws IOException
+    {
+        long offset = columnChunk.getBloomFilterOffset();
+        if (offset < 0) {
+            return Optional.empty();
+        }
+
+        // the header is small, but its exact size is only known after it has been decoded
+        byte[] headerBuffer = new byte[EXPECTED_BLOOM_FILTER_HEADER_SIZE];
+        parquetDataSource.readFully(offset, headerBuffer);
+        ByteArrayInputStream headerInput = new ByteArrayInputStream(headerBuffer);
+        BloomFilterHeader header = Util.readBloomFilterHeader(headerInput);
+        if (!header.getAlgorithm().isSetBLOCK() || !header.getHash().isSetXXHASH() || !header.getCompression().isSetUNCOMPRESSED()) {
+            return Optional.empty();
+        }
+
+        int bitsetSize = header.getNumBytes();
+        validateParquet(bitsetSize > 0 && bitsetSize <= UPPER_BOUND_BYTES, "Invalid Bloom filter size %s for column %s in Parquet file: %s", bitsetSize, columnChunk.getPath(), parquetDataSource.getId());
+        byte[] bitset = new byte[bitsetSize];
+        parquetDataSource.readFully(offset + headerBuffer.length - headerInput.available(), bitset);
+        return Optional.of(new BlockSplitBloomFilter(bitset));
+    }
+
     private static IndexReference toColumnIndexReference(ColumnChunk columnChunk)
     {
         if (columnChunk.isSetColumn_index_offset() && columnChunk.isSetColumn_index_length()) {
@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.predicate;
+
+import com.facebook.presto.parquet.ParquetDataSource;
+import com.facebook.presto.parquet.cache.ParquetMetadataSource;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the Bloom filters of the column chunks of a single file.
+ */
+public class BloomFilterStore
+{
+    private final ParquetMetadataSource metadataSource;
+    private final ParquetDataSource dataSource;
+    private final boolean cacheable;
+    private final long modificationTime;
+
+    public BloomFilterStore(ParquetMetadataSource metadataSource, ParquetDataSource dataSource, boolean cacheable, long modificationTime)
+    {
+        this.metadataSource = requireNonNull(metadataSource, "metadataSource is null");
+        this.dataSource = requireNonNull(dataSource, "dataSource is null");
+        this.cacheable = cacheable;
+        this.modificationTime = modificationTime;
+    }
+
+    public Optional<BloomFilter> getBloomFilter(ColumnChunkMetaData columnChunk)
+    {
+        if (columnChunk.getBloomFilterOffset() < 0) {
+            return Optional.empty();
+        }
+        try {
+            return metadataSource.getBloomFilter(dataSource, columnChunk, cacheable, modificationTime);
+        }
+        catch (IOException ignored) {
+            // the Bloom filter is only an optimization, so the row group is read if it cannot be loaded
+            return Optional.empty();
+        }
+    }
+}
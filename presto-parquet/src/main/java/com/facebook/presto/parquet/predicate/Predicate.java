@@ -17,6 +17,7 @@ import com.facebook.presto.parquet.ParquetDataSourceId;
 import com.facebook.presto.spi.WarningCollector;
 import org.apache.parquet.column.ColumnDescriptor;
 import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
 import org.apache.parquet.internal.filter2.columnindex.ColumnIndexStore;
 
 import java.util.Map;
@@ -43,6 +44,12 @@ public interface Predicate
         {
             return true;
         }
+
+        @Override
+        public boolean matches(ColumnDescriptor column, BloomFilter bloomFilter)
+        {
+            return true;
+        }
     };
 
     /**
@@ -73,4 +80,14 @@ public interface Predicate
      * @param columnIndexStore column index (statistics) store
      */
     boolean matches(long numberOfRows, Optional<ColumnIndexStore> columnIndexStore);
+
+    /**
+     * Should the Parquet Reader process a file section with the specified Bloom filter of a single column.
+     * A Bloom filter can only prove that the values of an equality or IN predicate are absent,
+     * so the section is only eliminated if none of the predicate values may be in it.
+     *
+     * @param column the column of the Bloom filter
+     * @param bloomFilter the Bloom filter of the column chunk
+     */
+    boolean matches(ColumnDescriptor column, BloomFilter bloomFilter);
 }
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.parquet.predicate;
 
+import com.facebook.presto.common.predicate.Domain;
 import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.parquet.DictionaryPage;
@@ -31,6 +32,7 @@ import org.apache.parquet.column.ColumnDescriptor;
 import org.apache.parquet.column.Encoding;
 import org.apache.parquet.column.EncodingStats;
 import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
 import org.apache.parquet.crypto.HiddenColumnChunkMetaData;
 import org.apache.parquet.format.DictionaryPageHeader;
 import org.apache.parquet.format.PageHeader;
@@ -55,6 +57,7 @@ import static com.facebook.presto.common.type.SmallintType.SMALLINT;
 import static com.facebook.presto.common.type.TinyintType.TINYINT;
 import static com.facebook.presto.parquet.ParquetCompressionUtils.decompress;
 import static com.facebook.presto.parquet.ParquetTypeUtils.getParquetEncoding;
+import static com.facebook.presto.parquet.predicate.TupleDomainParquetPredicate.isBloomFilterDomain;
 import static com.google.common.base.Verify.verify;
 import static io.airlift.slice.Slices.wrappedBuffer;
 import static java.lang.Math.toIntExact;
@@ -117,6 +120,29 @@ public final class PredicateUtils
             Optional<ColumnIndexStore> columnIndexStore,
             boolean readColumnIndex,
             Optional<WarningCollector> warningCollector)
+    {
+        return predicateMatches(
+                parquetPredicate,
+                block,
+                dataSource,
+                descriptorsByPath,
+                parquetTupleDomain,
+                columnIndexStore,
+                readColumnIndex,
+                warningCollector,
+                Optional.empty());
+    }
+
+    public static boolean predicateMatches(
+            Predicate parquetPredicate,
+            BlockMetaData block,
+            ParquetDataSource dataSource,
+            Map<List<String>, RichColumnDescriptor> descriptorsByPath,
+            TupleDomain<ColumnDescriptor> parquetTupleDomain,
+            Optional<ColumnIndexStore> columnIndexStore,
+            boolean readColumnIndex,
+            Optional<WarningCollector> warningCollector,
+            Optional<BloomFilterStore> bloomFilterStore)
     {
         Map<ColumnDescriptor, Statistics<?>> columnStatistics = getStatistics(block, descriptorsByPath);
         if (!parquetPredicate.matches(block.getRowCount(), columnStatistics, dataSource.getId(), warningCollector)) {
@@ -128,6 +154,11 @@ public final class PredicateUtils
             return false;
         }
 
+        // Bloom filters are checked before the dictionaries, since they are much smaller than the column chunks the dictionaries are read with
+        if (bloomFilterStore.isPresent() && !bloomFilterPredicatesMatch(parquetPredicate, block, descriptorsByPath, parquetTupleDomain, bloomFilterStore.get())) {
+            return false;
+        }
+
         return dictionaryPredicatesMatch(parquetPredicate, block, dataSource, descriptorsByPath, parquetTupleDomain);
     }
 
@@ -164,6 +195,28 @@ public final class PredicateUtils
         return true;
     }
 
+    private static boolean bloomFilterPredicatesMatch(Predicate parquetPredicate, BlockMetaData blockMetadata, Map<List<String>, RichColumnDescriptor> descriptorsByPath, TupleDomain<ColumnDescriptor> parquetTupleDomain, BloomFilterStore bloomFilterStore)
+    {
+        Map<ColumnDescriptor, Domain> domains = parquetTupleDomain.getDomains().orElseThrow(() -> new IllegalStateException("parquetTupleDomain is empty"));
+        for (ColumnChunkMetaData columnMetaData : blockMetadata.getColumns()) {
+            if (!HiddenColumnChunkMetaData.isHiddenColumn(columnMetaData)) {
+                RichColumnDescriptor descriptor = descriptorsByPath.get(Arrays.asList(columnMetaData.getPath().toArray()));
+                if (descriptor == null) {
+                    continue;
+                }
+                Domain domain = domains.get(descriptor);
+                if (domain == null || !isBloomFilterDomain(domain)) {
+                    continue;
+                }
+                Optional<BloomFilter> bloomFilter = bloomFilterStore.getBloomFilter(columnMetaData);
+                if (bloomFilter.isPresent() && !parquetPredicate.matches(descriptor, bloomFilter.get())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     private static Optional<DictionaryPage> readDictionaryPage(byte[] data, CompressionCodecName codecName)
     {
         try {
@@ -31,6 +31,7 @@ import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import org.apache.parquet.column.ColumnDescriptor;
 import org.apache.parquet.column.statistics.Statistics;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
 import org.apache.parquet.filter2.predicate.FilterApi;
 import org.apache.parquet.filter2.predicate.FilterPredicate;
 import org.apache.parquet.filter2.predicate.UserDefinedPredicate;
@@ -48,6 +49,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.function.Function;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
@@ -58,11 +60,13 @@ import static com.facebook.presto.common.type.IntegerType.INTEGER;
 import static com.facebook.presto.common.type.RealType.REAL;
 import static com.facebook.presto.common.type.SmallintType.SMALLINT;
 import static com.facebook.presto.common.type.TinyintType.TINYINT;
+import static com.facebook.presto.common.type.VarbinaryType.VARBINARY;
 import static com.facebook.presto.common.type.Varchars.isVarcharType;
 import static com.facebook.presto.parquet.ParquetWarningCode.PARQUET_FILE_STATISTICS_CORRUPTION;
 import static com.facebook.presto.parquet.predicate.PredicateUtils.isStatisticsOverflow;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.Float.floatToRawIntBits;
+import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.util.Objects.requireNonNull;
@@ -393,6 +397,61 @@ public class TupleDomainParquetPredicate
         return true;
     }
 
+    @Override
+    public boolean matches(ColumnDescriptor column, BloomFilter bloomFilter)
+    {
+        requireNonNull(bloomFilter, "bloomFilter is null");
+        if (effectivePredicate.isNone()) {
+            return false;
+        }
+
+        Map<ColumnDescriptor, Domain> effectivePredicateDomains = effectivePredicate.getDomains()
+                .orElseThrow(() -> new IllegalStateException("Effective predicate other than none should have domains"));
+
+        Domain effectivePredicateDomain = effectivePredicateDomains.get(column);
+        if (effectivePredicateDomain == null || !isBloomFilterDomain(effectivePredicateDomain)) {
+            return true;
+        }
+
+        PrimitiveTypeName primitiveType = column.getPrimitiveType().getPrimitiveTypeName();
+        for (Range range : effectivePredicateDomain.getValues().getRanges().getOrderedRanges()) {
+            OptionalLong hash = getBloomFilterHash(bloomFilter, effectivePredicateDomain.getType(), primitiveType, range.getSingleValue());
+            if (!hash.isPresent() || bloomFilter.findHash(hash.getAsLong())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Bloom filters can only be used for domains that are a non-null set of discrete values,
+     * i.e. equality and IN predicates.
+     */
+    public static boolean isBloomFilterDomain(Domain domain)
+    {
+        if (domain.isNullAllowed() || domain.isNone() || !domain.getType().isOrderable()) {
+            return false;
+        }
+        return domain.getValues().getRanges().getOrderedRanges().stream()
+                .allMatch(Range::isSingleValue);
+    }
+
+    private static OptionalLong getBloomFilterHash(BloomFilter bloomFilter, Type type, PrimitiveTypeName primitiveType, Object value)
+    {
+        // the value is hashed the same way the writer hashed the physical value of the column.
+        // Floating point values are not checked, since 0.0 and -0.0 are equal but hash differently.
+        if (primitiveType == INT64 && type.equals(BIGINT)) {
+            return OptionalLong.of(bloomFilter.hash((long) value));
+        }
+        if (primitiveType == INT32 && (type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT) || type.equals(DATE))) {
+            return OptionalLong.of(bloomFilter.hash(toIntExact((long) value)));
+        }
+        if (primitiveType == BINARY && (isVarcharType(type) || type.equals(VARBINARY))) {
+            return OptionalLong.of(bloomFilter.hash(Binary.fromConstantByteBuffer(((Slice) value).toByteBuffer())));
+        }
+        return OptionalLong.empty();
+    }
+
     @VisibleForTesting
     public Domain getDomain(Type type, long rowCount, ColumnIndex columnIndex, RichColumnDescriptor descriptor)
     {
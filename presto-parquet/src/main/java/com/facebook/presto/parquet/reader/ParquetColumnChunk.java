@@ -20,6 +20,7 @@ import com.facebook.presto.parquet.DataPageV2;
 import com.facebook.presto.parquet.DictionaryPage;
 import com.facebook.presto.parquet.ParquetCorruptionException;
 import com.facebook.presto.parquet.cache.MetadataReader;
+import io.airlift.slice.BasicSliceInput;
 import io.airlift.slice.Slice;
 import org.apache.parquet.column.Encoding;
 import org.apache.parquet.column.EncodingStats;
@@ -38,6 +39,8 @@ import org.apache.parquet.hadoop.metadata.ColumnPath;
 import org.apache.parquet.internal.column.columnindex.OffsetIndex;
 import org.openjdk.jol.info.ClassLayout;
 
+import javax.annotation.Nullable;
+
 import java.io.BufferedInputStream;
 import java.io.Closeable;
 import java.io.IOException;
@@ -57,7 +60,11 @@ public class ParquetColumnChunk
     private static final int INSTANCE_SIZE = ClassLayout.parseClass(ParquetColumnChunk.class).instanceSize();
 
     private final ColumnChunkDescriptor descriptor;
-    private final ColumnChunkBufferedInputStream stream;
+    private final InputStream stream;
+    private final long streamRetainedSizeInBytes;
+    // set if the pages are sliced from the column chunk instead of being copied from the stream
+    @Nullable
+    private final BasicSliceInput sliceInput;
     private final OffsetIndex offsetIndex;
     private final LocalMemoryContext memoryContext;
 
@@ -66,9 +73,44 @@ public class ParquetColumnChunk
             ColumnChunkBufferedInputStream stream,
             Optional<OffsetIndex> offsetIndex,
             LocalMemoryContext memoryContext)
+    {
+        this(descriptor, stream, stream.getRetainedSizeInBytes(), null, offsetIndex, memoryContext);
+    }
+
+    /**
+     * Reads the pages of a column chunk that the data source holds in memory, for example through a memory mapping.
+     * The pages are slices of the column chunk, so they are not copied, and they are not counted in the memory usage.
+     */
+    public ParquetColumnChunk(
+            ColumnChunkDescriptor descriptor,
+            Slice columnChunk,
+            Optional<OffsetIndex> offsetIndex,
+            LocalMemoryContext memoryContext)
+    {
+        this(descriptor, columnChunk.getInput(), offsetIndex, memoryContext);
+    }
+
+    private ParquetColumnChunk(
+            ColumnChunkDescriptor descriptor,
+            BasicSliceInput sliceInput,
+            Optional<OffsetIndex> offsetIndex,
+            LocalMemoryContext memoryContext)
+    {
+        this(descriptor, sliceInput, 0, sliceInput, offsetIndex, memoryContext);
+    }
+
+    private ParquetColumnChunk(
+            ColumnChunkDescriptor descriptor,
+            InputStream stream,
+            long streamRetainedSizeInBytes,
+            @Nullable BasicSliceInput sliceInput,
+            Optional<OffsetIndex> offsetIndex,
+            LocalMemoryContext memoryContext)
     {
         this.descriptor = requireNonNull(descriptor);
         this.stream = stream;
+        this.streamRetainedSizeInBytes = streamRetainedSizeInBytes;
+        this.sliceInput = sliceInput;
         this.offsetIndex = requireNonNull(offsetIndex).orElse(null);
         this.memoryContext = requireNonNull(memoryContext, "ParquetColumnChunk memoryContext is null");
     }
@@ -199,8 +241,8 @@ public class ParquetColumnChunk
                             // retained by this class, it still makes sense to count them because they are actual being used in the PageDataPage's lifetime.
                             sizeOf(pageHeaderAdditionalAuthenticationData) +
                             // The memory to hold the ParquetDataPage data is allocated in getSlice() with size compressedPageSize. This slice will be read, uncompressed and
-                            // decoded while the PageDataPage is alive, therefore it's better to also count it.
-                            readPage.getRetainedSizeInBytes());
+                            // decoded while the PageDataPage is alive, therefore it's better to also count it. A slice of a column chunk in memory is not allocated.
+                            (sliceInput == null ? readPage.getRetainedSizeInBytes() : 0));
                 }
                 catch (IOException e) {
                     throw new RuntimeException(e);
@@ -212,7 +254,7 @@ public class ParquetColumnChunk
 
     public long getRetainedSizeInBytes()
     {
-        return INSTANCE_SIZE + stream.getRetainedSizeInBytes();
+        return INSTANCE_SIZE + streamRetainedSizeInBytes;
     }
 
     private Optional<BlockCipher.Decryptor> getDataDecryptor(InternalColumnDecryptionSetup columnDecryptionSetup)
@@ -226,6 +268,9 @@ public class ParquetColumnChunk
     private Slice getSlice(int size)
             throws IOException
     {
+        if (sliceInput != null) {
+            return sliceInput.readSlice(size);
+        }
         byte[] buffer = new byte[size];
         stream.read(buffer);
         return wrappedBuffer(buffer, 0, size);
@@ -37,6 +37,7 @@ import com.facebook.presto.parquet.RichColumnDescriptor;
 import com.facebook.presto.parquet.predicate.Predicate;
 import com.facebook.presto.parquet.predicate.TupleDomainParquetPredicate;
 import com.facebook.presto.parquet.reader.ColumnIndexFilterUtils.OffsetRange;
+import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
 import it.unimi.dsi.fastutil.booleans.BooleanArrayList;
 import it.unimi.dsi.fastutil.booleans.BooleanList;
@@ -59,6 +60,8 @@ import org.apache.parquet.io.PrimitiveColumnIO;
 import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
 import org.openjdk.jol.info.ClassLayout;
 
+import javax.annotation.Nullable;
+
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
@@ -323,6 +326,15 @@ public class ParquetReader
 
     private ColumnChunk readPrimitive(PrimitiveField field)
             throws IOException
+    {
+        return readPrimitive(field, null, 0);
+    }
+
+    /**
+     * Reads the values at the given positions of the batch, or all the values if {@code positions} is null.
+     */
+    private ColumnChunk readPrimitive(PrimitiveField field, @Nullable int[] positions, int positionCount)
+            throws IOException
     {
         ColumnDescriptor columnDescriptor = field.getDescriptor();
 
@@ -364,39 +376,37 @@ public class ParquetReader
             }
             else {
                 PageReader pageReader = createPageReader(
-                        dataSourceAsInputStream(startingPosition, columnChunkSize),
+                        startingPosition,
                         columnChunkSize,
                         columnChunkMetaData,
                         columnDescriptor,
-                        Optional.empty(),
                         pageReaderMemoryContext);
                 columnReader.init(pageReader, field, null);
 
                 if (enableVerification) {
                     ColumnReader verificationColumnReader = verificationColumnReaders[field.getId()];
                     PageReader pageReaderVerification = createPageReader(
-                            dataSourceAsInputStream(startingPosition, columnChunkSize),
+                            startingPosition,
                             columnChunkSize,
                             columnChunkMetaData,
                             columnDescriptor,
-                            Optional.empty(),
                             verificationPageReaderMemoryContext);
                     verificationColumnReader.init(pageReaderVerification, field, null);
                 }
             }
         }
 
-        ColumnChunk columnChunk = columnReader.readNext();
+        ColumnChunk columnChunk = positions == null ? columnReader.readNext() : columnReader.readNext(positions, positionCount);
         columnChunk = typeCoercion(columnChunk, field.getDescriptor().getPrimitiveType().getPrimitiveTypeName(), field.getType());
 
         if (enableVerification) {
             ColumnReader verificationColumnReader = verificationColumnReaders[field.getId()];
-            ColumnChunk expected = verificationColumnReader.readNext();
+            ColumnChunk expected = positions == null ? verificationColumnReader.readNext() : verificationColumnReader.readNext(positions, positionCount);
             ParquetResultVerifierUtils.verifyColumnChunks(columnChunk, expected, columnDescriptor.getPath().length > 1, field, dataSource.getId());
         }
 
         // update max size per primitive column chunk
-        long bytesPerCell = columnChunk.getBlock().getSizeInBytes() / batchSize;
+        long bytesPerCell = columnChunk.getBlock().getSizeInBytes() / max(1, positions == null ? batchSize : positionCount);
         if (maxBytesPerCell[fieldId] < bytesPerCell) {
             // update batch size
             maxCombinedBytesPerRow = maxCombinedBytesPerRow - maxBytesPerCell[fieldId] + bytesPerCell;
@@ -467,6 +477,24 @@ public class ParquetReader
                 blockIndexStores.get(currentBlock).getColumnIndex(path) != null;
     }
 
+    private PageReader createPageReader(
+            long startingPosition,
+            int columnChunkSize,
+            ColumnChunkMetaData columnChunkMetaData,
+            ColumnDescriptor columnDescriptor,
+            LocalMemoryContext memoryContext)
+            throws IOException
+    {
+        Optional<Slice> columnChunk = dataSource.getSlice(startingPosition, columnChunkSize);
+        if (!columnChunk.isPresent()) {
+            return createPageReader(dataSourceAsInputStream(startingPosition, columnChunkSize), columnChunkSize, columnChunkMetaData, columnDescriptor, Optional.empty(), memoryContext);
+        }
+
+        // the data source holds the column chunk in memory, so its pages are sliced instead of being copied
+        ColumnChunkDescriptor descriptor = new ColumnChunkDescriptor(columnDescriptor, columnChunkMetaData, columnChunkSize);
+        return createPageReaderInternal(columnDescriptor, new ParquetColumnChunk(descriptor, columnChunk.get(), Optional.empty(), memoryContext), memoryContext);
+    }
+
     private PageReader createPageReader(
             InputStream inputStream,
             int columnChunkSize,
@@ -533,6 +561,26 @@ public class ParquetReader
         return readColumnChunk(field).getBlock();
     }
 
+    /**
+     * Reads the values at the given positions of the current batch, which must be in increasing order. The values
+     * of a flat column at the other positions are skipped rather than decoded, if its column reader supports it.
+     * The column can not be read again for the same batch.
+     */
+    public Block readBlock(Field field, int[] positions, int positionCount)
+            throws IOException
+    {
+        requireNonNull(positions, "positions is null");
+        checkArgument(positionCount <= batchSize, "positionCount is greater than the batch size");
+        if (!(field instanceof PrimitiveField) || positionCount == batchSize) {
+            Block block = readBlock(field);
+            return positionCount == batchSize ? block : block.getPositions(positions, 0, positionCount);
+        }
+
+        Block block = readPrimitive((PrimitiveField) field, positions, positionCount).getBlock();
+        parquetReaderMemoryContext.setBytes(getRetainedSizeInBytes());
+        return block;
+    }
+
     private ColumnChunk readColumnChunk(Field field)
             throws IOException
     {
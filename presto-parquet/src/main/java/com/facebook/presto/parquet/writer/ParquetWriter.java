@@ -25,11 +25,19 @@ import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
 import org.apache.parquet.column.ParquetProperties;
 import org.apache.parquet.column.ParquetProperties.Builder;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
+import org.apache.parquet.format.BloomFilterAlgorithm;
+import org.apache.parquet.format.BloomFilterCompression;
+import org.apache.parquet.format.BloomFilterHash;
+import org.apache.parquet.format.BloomFilterHeader;
 import org.apache.parquet.format.ColumnMetaData;
 import org.apache.parquet.format.FileMetaData;
 import org.apache.parquet.format.RowGroup;
 import org.apache.parquet.format.SchemaElement;
+import org.apache.parquet.format.SplitBlockAlgorithm;
+import org.apache.parquet.format.Uncompressed;
 import org.apache.parquet.format.Util;
+import org.apache.parquet.format.XxHash;
 import org.apache.parquet.format.converter.ParquetMetadataConverter;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
@@ -41,6 +49,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static com.facebook.presto.parquet.writer.ParquetDataOutput.createDataOutput;
 import static com.facebook.presto.parquet.writer.ParquetWriterOptions.DEFAULT_MAX_PAGE_SIZE;
@@ -119,7 +128,7 @@ public class ParquetWriter
         }
         ParquetProperties parquetProperties = parquetPropertiesBuilder.build();
         CompressionCodecName compressionCodecName = getCompressionCodecName(compressionCodecClass);
-        this.columnWriters = ParquetWriters.getColumnWriters(messageType, primitiveTypes, parquetProperties, compressionCodecName);
+        this.columnWriters = ParquetWriters.getColumnWriters(messageType, primitiveTypes, parquetProperties, compressionCodecName, writerOption);
 
         this.chunkMaxLogicalBytes = max(1, CHUNK_MAX_BYTES / 2);
     }
@@ -211,7 +220,7 @@ public class ParquetWriter
     // Parquet File Layout:
     //
     // MAGIC
-    // variable: Data
+    // variable: Data, each row group followed by its Bloom filters
     // variable: Metadata
     // 4 bytes: MetadataLength
     // MAGIC
@@ -236,13 +245,43 @@ public class ParquetWriter
         List<ColumnMetaData> metadatas = bufferDataList.stream()
                 .map(BufferData::getMetaData)
                 .collect(toImmutableList());
-        updateRowGroups(updateColumnMetadataOffset(metadatas, stripeStartOffset));
+        List<ColumnMetaData> columnMetaData = updateColumnMetadataOffset(metadatas, stripeStartOffset);
+
+        // the Bloom filters are written after the column chunks of the row group
+        long bloomFilterOffset = stripeStartOffset + metadatas.stream().mapToLong(ColumnMetaData::getTotal_compressed_size).sum();
+        ImmutableList.Builder<Slice> bloomFilters = ImmutableList.builder();
+        for (int i = 0; i < bufferDataList.size(); i++) {
+            Optional<BloomFilter> bloomFilter = bufferDataList.get(i).getBloomFilter();
+            if (bloomFilter.isPresent()) {
+                Slice serializedBloomFilter = serializeBloomFilter(bloomFilter.get());
+                columnMetaData.get(i).setBloom_filter_offset(bloomFilterOffset);
+                bloomFilterOffset += serializedBloomFilter.length();
+                bloomFilters.add(serializedBloomFilter);
+            }
+        }
+        updateRowGroups(columnMetaData);
 
         // flush pages
         bufferDataList.stream()
                 .map(BufferData::getData)
                 .flatMap(List::stream)
                 .forEach(data -> data.writeData(outputStream));
+
+        bloomFilters.build().forEach(bloomFilter -> createDataOutput(bloomFilter).writeData(outputStream));
+    }
+
+    private static Slice serializeBloomFilter(BloomFilter bloomFilter)
+            throws IOException
+    {
+        BloomFilterHeader header = new BloomFilterHeader(
+                bloomFilter.getBitsetSize(),
+                BloomFilterAlgorithm.BLOCK(new SplitBlockAlgorithm()),
+                BloomFilterHash.XXHASH(new XxHash()),
+                BloomFilterCompression.UNCOMPRESSED(new Uncompressed()));
+        DynamicSliceOutput output = new DynamicSliceOutput(bloomFilter.getBitsetSize() + 32);
+        Util.writeBloomFilterHeader(header, output);
+        bloomFilter.writeTo(output);
+        return output.slice();
     }
 
     private void writeFooter()
@@ -19,6 +19,7 @@ import com.facebook.presto.common.type.Type;
 import com.facebook.presto.common.type.VarbinaryType;
 import com.facebook.presto.common.type.VarcharType;
 import com.facebook.presto.parquet.writer.valuewriter.BigintValueWriter;
+import com.facebook.presto.parquet.writer.valuewriter.BloomFilterBuilder;
 import com.facebook.presto.parquet.writer.valuewriter.BooleanValueWriter;
 import com.facebook.presto.parquet.writer.valuewriter.CharValueWriter;
 import com.facebook.presto.parquet.writer.valuewriter.DateValueWriter;
@@ -48,6 +49,7 @@ import org.apache.parquet.schema.PrimitiveType;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Supplier;
 
 import static com.facebook.presto.common.type.BigintType.BIGINT;
@@ -82,9 +84,9 @@ class ParquetWriters
         }
     }
 
-    static List<ColumnWriter> getColumnWriters(MessageType messageType, Map<List<String>, Type> prestoTypes, ParquetProperties parquetProperties, CompressionCodecName compressionCodecName)
+    static List<ColumnWriter> getColumnWriters(MessageType messageType, Map<List<String>, Type> prestoTypes, ParquetProperties parquetProperties, CompressionCodecName compressionCodecName, ParquetWriterOptions writerOptions)
     {
-        WriterBuilder writeBuilder = new WriterBuilder(messageType, prestoTypes, parquetProperties, compressionCodecName);
+        WriterBuilder writeBuilder = new WriterBuilder(messageType, prestoTypes, parquetProperties, compressionCodecName, writerOptions);
         ParquetTypeVisitor.visit(messageType, writeBuilder);
         return writeBuilder.build();
     }
@@ -96,14 +98,16 @@ class ParquetWriters
         private final Map<List<String>, Type> prestoTypes;
         private final ParquetProperties parquetProperties;
         private final CompressionCodecName compressionCodecName;
+        private final ParquetWriterOptions writerOptions;
         private final ImmutableList.Builder<ColumnWriter> builder = ImmutableList.builder();
 
-        WriterBuilder(MessageType messageType, Map<List<String>, Type> prestoTypes, ParquetProperties parquetProperties, CompressionCodecName compressionCodecName)
+        WriterBuilder(MessageType messageType, Map<List<String>, Type> prestoTypes, ParquetProperties parquetProperties, CompressionCodecName compressionCodecName, ParquetWriterOptions writerOptions)
         {
             this.type = requireNonNull(messageType, "messageType is null");
             this.prestoTypes = requireNonNull(prestoTypes, "prestoTypes is null");
             this.parquetProperties = requireNonNull(parquetProperties, "parquetProperties is null");
             this.compressionCodecName = requireNonNull(compressionCodecName, "compressionCodecName is null");
+            this.writerOptions = requireNonNull(writerOptions, "writerOptions is null");
         }
 
         List<ColumnWriter> build()
@@ -153,23 +157,32 @@ class ParquetWriters
             int fieldRepetitionLevel = type.getMaxRepetitionLevel(path);
             ColumnDescriptor columnDescriptor = new ColumnDescriptor(path, primitive, fieldRepetitionLevel, fieldDefinitionLevel);
             Type prestoType = requireNonNull(prestoTypes.get(ImmutableList.copyOf(path)), " presto type is null");
+            Optional<BloomFilterBuilder> bloomFilterBuilder = path.length == 1 && writerOptions.getBloomFilterColumns().contains(path[0])
+                    ? Optional.of(new BloomFilterBuilder(writerOptions.getBloomFilterFpp(), writerOptions.getMaxBloomFilterSize()))
+                    : Optional.empty();
+            Supplier<ValuesWriter> valuesWriterSupplier = () -> {
+                ValuesWriter valuesWriter = parquetProperties.newValuesWriter(columnDescriptor);
+                return bloomFilterBuilder.map(filterBuilder -> filterBuilder.wrap(valuesWriter)).orElse(valuesWriter);
+            };
             switch (parquetProperties.getWriterVersion()) {
                 case PARQUET_1_0:
                     return new PrimitiveColumnWriterV1(prestoType,
                             columnDescriptor,
-                            getValueWriter(() -> parquetProperties.newValuesWriter(columnDescriptor), prestoType, columnDescriptor.getPrimitiveType()),
+                            getValueWriter(valuesWriterSupplier, prestoType, columnDescriptor.getPrimitiveType()),
                             parquetProperties.newDefinitionLevelWriter(columnDescriptor),
                             parquetProperties.newRepetitionLevelWriter(columnDescriptor),
                             compressionCodecName,
-                            parquetProperties.getPageSizeThreshold());
+                            parquetProperties.getPageSizeThreshold(),
+                            bloomFilterBuilder);
                 case PARQUET_2_0:
                     return new PrimitiveColumnWriterV2(prestoType,
                             columnDescriptor,
-                            getValueWriter(() -> parquetProperties.newValuesWriter(columnDescriptor), prestoType, columnDescriptor.getPrimitiveType()),
+                            getValueWriter(valuesWriterSupplier, prestoType, columnDescriptor.getPrimitiveType()),
                             parquetProperties.newDefinitionLevelEncoder(columnDescriptor),
                             parquetProperties.newRepetitionLevelEncoder(columnDescriptor),
                             compressionCodecName,
-                            parquetProperties.getPageSizeThreshold());
+                            parquetProperties.getPageSizeThreshold(),
+                            bloomFilterBuilder);
                 default:
                     throw new PrestoException(NOT_SUPPORTED, format("Unsupported Parquet writer version: %s", parquetProperties.getWriterVersion()));
             }
@@ -18,6 +18,7 @@ import com.facebook.presto.parquet.writer.levels.DefinitionLevelIterable;
 import com.facebook.presto.parquet.writer.levels.DefinitionLevelIterables;
 import com.facebook.presto.parquet.writer.levels.RepetitionLevelIterable;
 import com.facebook.presto.parquet.writer.levels.RepetitionLevelIterables;
+import com.facebook.presto.parquet.writer.valuewriter.BloomFilterBuilder;
 import com.facebook.presto.parquet.writer.valuewriter.PrimitiveValueWriter;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Slices;
@@ -37,6 +38,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import static com.facebook.presto.parquet.writer.ParquetCompressor.getCompressor;
@@ -63,6 +65,7 @@ public abstract class PrimitiveColumnWriter
 
     private final Type type;
     private final CompressionCodecName compressionCodec;
+    private final Optional<BloomFilterBuilder> bloomFilterBuilder;
 
     protected boolean closed;
     protected boolean getDataStreamsCalled;
@@ -77,7 +80,7 @@ public abstract class PrimitiveColumnWriter
     protected long totalValues;
     protected Statistics<?> columnStatistics;
 
-    public PrimitiveColumnWriter(Type type, ColumnDescriptor columnDescriptor, PrimitiveValueWriter primitiveValueWriter, CompressionCodecName compressionCodecName, int pageSizeThreshold)
+    public PrimitiveColumnWriter(Type type, ColumnDescriptor columnDescriptor, PrimitiveValueWriter primitiveValueWriter, CompressionCodecName compressionCodecName, int pageSizeThreshold, Optional<BloomFilterBuilder> bloomFilterBuilder)
     {
         this.type = requireNonNull(type, "type is null");
         this.columnDescriptor = requireNonNull(columnDescriptor, "columnDescriptor is null");
@@ -88,6 +91,7 @@ public abstract class PrimitiveColumnWriter
         this.compressionCodec = requireNonNull(compressionCodecName, "compressionCodecName is null");
         this.compressor = getCompressor(compressionCodecName);
         this.pageSizeThreshold = pageSizeThreshold;
+        this.bloomFilterBuilder = requireNonNull(bloomFilterBuilder, "bloomFilterBuilder is null");
 
         this.columnStatistics = Statistics.createStats(columnDescriptor.getPrimitiveType());
     }
@@ -129,7 +133,7 @@ public abstract class PrimitiveColumnWriter
             throws IOException
     {
         checkState(closed);
-        return ImmutableList.of(new BufferData(getDataStreams(), getColumnMetaData()));
+        return ImmutableList.of(new BufferData(getDataStreams(), getColumnMetaData(), bloomFilterBuilder.flatMap(BloomFilterBuilder::build)));
     }
 
     // Returns ColumnMetaData that offset is invalid
@@ -196,7 +200,7 @@ public abstract class PrimitiveColumnWriter
     @Override
     public long getRetainedBytes()
     {
-        return 0;
+        return bloomFilterBuilder.map(BloomFilterBuilder::getRetainedBytes).orElse(0L);
     }
 
     @Override
@@ -204,6 +208,7 @@ public abstract class PrimitiveColumnWriter
     {
         pageBuffer.clear();
         primitiveValueWriter.resetChunk();
+        bloomFilterBuilder.ifPresent(BloomFilterBuilder::reset);
         closed = false;
 
         totalCompressedSize = 0;
@@ -15,6 +15,7 @@ package com.facebook.presto.parquet.writer;
 
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.parquet.writer.levels.DefinitionLevelIterables;
+import com.facebook.presto.parquet.writer.valuewriter.BloomFilterBuilder;
 import com.facebook.presto.parquet.writer.valuewriter.PrimitiveValueWriter;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Slices;
@@ -28,6 +29,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.parquet.writer.ParquetDataOutput.createDataOutput;
 import static com.facebook.presto.parquet.writer.levels.RepetitionLevelIterables.getIterator;
@@ -40,9 +42,9 @@ public class PrimitiveColumnWriterV1
     private final ValuesWriter definitionLevelWriter;
     private final ValuesWriter repetitionLevelWriter;
 
-    public PrimitiveColumnWriterV1(Type type, ColumnDescriptor columnDescriptor, PrimitiveValueWriter primitiveValueWriter, ValuesWriter definitionLevelWriter, ValuesWriter repetitionLevelWriter, CompressionCodecName compressionCodecName, int pageSizeThreshold)
+    public PrimitiveColumnWriterV1(Type type, ColumnDescriptor columnDescriptor, PrimitiveValueWriter primitiveValueWriter, ValuesWriter definitionLevelWriter, ValuesWriter repetitionLevelWriter, CompressionCodecName compressionCodecName, int pageSizeThreshold, Optional<BloomFilterBuilder> bloomFilterBuilder)
     {
-        super(type, columnDescriptor, primitiveValueWriter, compressionCodecName, pageSizeThreshold);
+        super(type, columnDescriptor, primitiveValueWriter, compressionCodecName, pageSizeThreshold, bloomFilterBuilder);
 
         this.definitionLevelWriter = requireNonNull(definitionLevelWriter, "definitionLevelWriter is null");
         this.repetitionLevelWriter = requireNonNull(repetitionLevelWriter, "repetitionLevelWriter is null");
@@ -15,6 +15,7 @@ package com.facebook.presto.parquet.writer;
 
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.parquet.writer.levels.DefinitionLevelIterables;
+import com.facebook.presto.parquet.writer.valuewriter.BloomFilterBuilder;
 import com.facebook.presto.parquet.writer.valuewriter.PrimitiveValueWriter;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Slices;
@@ -28,6 +29,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.parquet.writer.ParquetDataOutput.createDataOutput;
 import static com.facebook.presto.parquet.writer.levels.RepetitionLevelIterables.getIterator;
@@ -44,9 +46,9 @@ public class PrimitiveColumnWriterV2
     // current page stats
     private int currentPageRowCount;
 
-    public PrimitiveColumnWriterV2(Type type, ColumnDescriptor columnDescriptor, PrimitiveValueWriter primitiveValueWriter, RunLengthBitPackingHybridEncoder definitionLevelEncoder, RunLengthBitPackingHybridEncoder repetitionLevelEncoder, CompressionCodecName compressionCodecName, int pageSizeThreshold)
+    public PrimitiveColumnWriterV2(Type type, ColumnDescriptor columnDescriptor, PrimitiveValueWriter primitiveValueWriter, RunLengthBitPackingHybridEncoder definitionLevelEncoder, RunLengthBitPackingHybridEncoder repetitionLevelEncoder, CompressionCodecName compressionCodecName, int pageSizeThreshold, Optional<BloomFilterBuilder> bloomFilterBuilder)
     {
-        super(type, columnDescriptor, primitiveValueWriter, compressionCodecName, pageSizeThreshold);
+        super(type, columnDescriptor, primitiveValueWriter, compressionCodecName, pageSizeThreshold, bloomFilterBuilder);
 
         this.definitionLevelEncoder = requireNonNull(definitionLevelEncoder, "definitionLevelEncoder is null");
         this.repetitionLevelEncoder = requireNonNull(repetitionLevelEncoder, "repetitionLevelEncoder is null");
@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.writer.valuewriter;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.apache.parquet.column.values.ValuesWriter;
+import org.apache.parquet.column.values.bloomfilter.BlockSplitBloomFilter;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
+import org.apache.parquet.io.api.Binary;
+
+import javax.annotation.Nullable;
+
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.sizeOfLongArray;
+import static it.unimi.dsi.fastutil.Hash.DEFAULT_LOAD_FACTOR;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static org.apache.parquet.column.values.bloomfilter.BlockSplitBloomFilter.LOWER_BOUND_BYTES;
+import static org.apache.parquet.column.values.bloomfilter.BlockSplitBloomFilter.optimalNumOfBits;
+
+/**
+ * Builds the split block Bloom filter of a column chunk.
+ * <p>
+ * The hashes of the distinct values are collected until the column chunk is flushed, so the filter
+ * can be sized for the actual number of distinct values. Once there are more distinct values than
+ * a filter of the maximum size holds at the requested false positive probability, the hashes are
+ * inserted into a filter of the maximum size instead.
+ */
+public class BloomFilterBuilder
+{
+    private final double fpp;
+    private final int maxBytes;
+    private final int maxDistinctValues;
+    // the hash functions do not depend on the size of the filter
+    private final BlockSplitBloomFilter hasher = new BlockSplitBloomFilter(LOWER_BOUND_BYTES);
+    private final LongOpenHashSet hashes = new LongOpenHashSet();
+
+    @Nullable
+    private BlockSplitBloomFilter maxSizeFilter;
+
+    public BloomFilterBuilder(double fpp, int maxBytes)
+    {
+        checkArgument(fpp > 0 && fpp < 1, "fpp must be between 0 and 1 (exclusive)");
+        checkArgument(maxBytes >= LOWER_BOUND_BYTES, "maxBytes must be at least %s", LOWER_BOUND_BYTES);
+        this.fpp = fpp;
+        this.maxBytes = maxBytes;
+        this.maxDistinctValues = getMaxDistinctValues(fpp, maxBytes);
+    }
+
+    /**
+     * Returns a values writer that adds the values written to the delegate to this Bloom filter.
+     */
+    public ValuesWriter wrap(ValuesWriter valuesWriter)
+    {
+        return new BloomFilterValuesWriter(valuesWriter, this);
+    }
+
+    void add(int value)
+    {
+        addHash(hasher.hash(value));
+    }
+
+    void add(long value)
+    {
+        addHash(hasher.hash(value));
+    }
+
+    void add(float value)
+    {
+        addHash(hasher.hash(value));
+    }
+
+    void add(double value)
+    {
+        addHash(hasher.hash(value));
+    }
+
+    void add(Binary value)
+    {
+        addHash(hasher.hash(value));
+    }
+
+    private void addHash(long hash)
+    {
+        if (maxSizeFilter != null) {
+            maxSizeFilter.insertHash(hash);
+            return;
+        }
+        hashes.add(hash);
+        if (hashes.size() > maxDistinctValues) {
+            maxSizeFilter = new BlockSplitBloomFilter(maxBytes, maxBytes);
+            insertHashes(maxSizeFilter);
+            hashes.clear();
+            hashes.trim();
+        }
+    }
+
+    /**
+     * Returns the Bloom filter of the values added since the last reset, or empty if no values were added.
+     */
+    public Optional<BloomFilter> build()
+    {
+        if (maxSizeFilter != null) {
+            return Optional.of(maxSizeFilter);
+        }
+        if (hashes.isEmpty()) {
+            return Optional.empty();
+        }
+        BlockSplitBloomFilter filter = new BlockSplitBloomFilter(optimalNumOfBits(hashes.size(), fpp) / Byte.SIZE, maxBytes);
+        insertHashes(filter);
+        return Optional.of(filter);
+    }
+
+    /**
+     * Returns the memory retained by the hashes collected so far, or by the filter of the maximum size.
+     */
+    public long getRetainedBytes()
+    {
+        if (maxSizeFilter != null) {
+            return maxBytes;
+        }
+        // the hash set keeps a power of two sized table below its load factor, plus one slot for the zero key
+        return sizeOfLongArray(arraySize(hashes.size(), DEFAULT_LOAD_FACTOR) + 1);
+    }
+
+    public void reset()
+    {
+        hashes.clear();
+        hashes.trim();
+        maxSizeFilter = null;
+    }
+
+    private void insertHashes(BlockSplitBloomFilter filter)
+    {
+        LongIterator iterator = hashes.iterator();
+        while (iterator.hasNext()) {
+            filter.insertHash(iterator.nextLong());
+        }
+    }
+
+    private static int getMaxDistinctValues(double fpp, int maxBytes)
+    {
+        // the largest number of distinct values that fits a filter of the maximum size
+        int low = 1;
+        int high = maxBytes * Byte.SIZE;
+        while (low < high) {
+            int middle = (int) (((long) low + high + 1) / 2);
+            if (optimalNumOfBits(middle, fpp) / Byte.SIZE <= maxBytes) {
+                low = middle;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.writer.valuewriter;
+
+import org.apache.parquet.bytes.BytesInput;
+import org.apache.parquet.column.Encoding;
+import org.apache.parquet.column.page.DictionaryPage;
+import org.apache.parquet.column.values.ValuesWriter;
+import org.apache.parquet.io.api.Binary;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Adds the values written to a column chunk to its Bloom filter.
+ */
+class BloomFilterValuesWriter
+        extends ValuesWriter
+{
+    private final ValuesWriter delegate;
+    private final BloomFilterBuilder bloomFilterBuilder;
+
+    BloomFilterValuesWriter(ValuesWriter delegate, BloomFilterBuilder bloomFilterBuilder)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.bloomFilterBuilder = requireNonNull(bloomFilterBuilder, "bloomFilterBuilder is null");
+    }
+
+    @Override
+    public void writeBoolean(boolean value)
+    {
+        // the format does not define Bloom filters for booleans
+        delegate.writeBoolean(value);
+    }
+
+    @Override
+    public void writeByte(int value)
+    {
+        delegate.writeByte(value);
+    }
+
+    @Override
+    public void writeInteger(int value)
+    {
+        delegate.writeInteger(value);
+        bloomFilterBuilder.add(value);
+    }
+
+    @Override
+    public void writeLong(long value)
+    {
+        delegate.writeLong(value);
+        bloomFilterBuilder.add(value);
+    }
+
+    @Override
+    public void writeFloat(float value)
+    {
+        delegate.writeFloat(value);
+        bloomFilterBuilder.add(value);
+    }
+
+    @Override
+    public void writeDouble(double value)
+    {
+        delegate.writeDouble(value);
+        bloomFilterBuilder.add(value);
+    }
+
+    @Override
+    public void writeBytes(Binary value)
+    {
+        delegate.writeBytes(value);
+        bloomFilterBuilder.add(value);
+    }
+
+    @Override
+    public long getBufferedSize()
+    {
+        return delegate.getBufferedSize();
+    }
+
+    @Override
+    public BytesInput getBytes()
+    {
+        return delegate.getBytes();
+    }
+
+    @Override
+    public Encoding getEncoding()
+    {
+        return delegate.getEncoding();
+    }
+
+    @Override
+    public void reset()
+    {
+        delegate.reset();
+    }
+
+    @Override
+    public void close()
+    {
+        delegate.close();
+    }
+
+    @Override
+    public DictionaryPage toDictPageAndClose()
+    {
+        return delegate.toDictPageAndClose();
+    }
+
+    @Override
+    public void resetDictionary()
+    {
+        delegate.resetDictionary();
+    }
+
+    @Override
+    public long getAllocatedSize()
+    {
+        return delegate.getAllocatedSize();
+    }
+
+    @Override
+    public String memUsageString(String prefix)
+    {
+        return delegate.memUsageString(prefix);
+    }
+}
@@ -15,6 +15,8 @@ package com.facebook.presto.parquet.writer;
 
 import com.facebook.presto.common.PageBuilder;
 import com.facebook.presto.common.block.Block;
+import com.facebook.presto.common.predicate.Domain;
+import com.facebook.presto.common.predicate.TupleDomain;
 import com.facebook.presto.common.type.DecimalType;
 import com.facebook.presto.common.type.MapType;
 import com.facebook.presto.common.type.RowType;
@@ -22,14 +24,31 @@ import com.facebook.presto.common.type.TimestampType;
 import com.facebook.presto.common.type.Type;
 import com.facebook.presto.parquet.Field;
 import com.facebook.presto.parquet.FileParquetDataSource;
+import com.facebook.presto.parquet.ParquetDataSource;
+import com.facebook.presto.parquet.RichColumnDescriptor;
+import com.facebook.presto.parquet.cache.CachingParquetMetadataSource;
 import com.facebook.presto.parquet.cache.MetadataReader;
+import com.facebook.presto.parquet.cache.ParquetFileMetadata;
+import com.facebook.presto.parquet.cache.ParquetMetadataSource;
+import com.facebook.presto.parquet.predicate.BloomFilterStore;
+import com.facebook.presto.parquet.predicate.Predicate;
+import com.facebook.presto.parquet.predicate.TupleDomainParquetPredicate;
 import com.facebook.presto.parquet.reader.ParquetReader;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.units.DataSize;
+import org.apache.parquet.column.ColumnDescriptor;
+import org.apache.parquet.column.values.bloomfilter.BloomFilter;
+import org.apache.parquet.crypto.InternalFileDecryptor;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
 import org.apache.parquet.hadoop.metadata.CompressionCodecName;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
 import org.apache.parquet.io.ColumnIOConverter;
 import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.schema.LogicalTypeAnnotation;
 import org.apache.parquet.schema.MessageType;
 import org.apache.parquet.schema.PrimitiveType;
@@ -41,8 +60,10 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.facebook.presto.common.block.MethodHandleUtil.nativeValueGetter;
 import static com.facebook.presto.common.type.BigintType.BIGINT;
@@ -57,10 +78,14 @@ import static com.facebook.presto.common.type.UuidType.UUID;
 import static com.facebook.presto.common.type.VarcharType.VARCHAR;
 import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
 import static com.facebook.presto.parquet.ParquetTypeUtils.getColumnIO;
+import static com.facebook.presto.parquet.ParquetTypeUtils.getDescriptors;
+import static com.facebook.presto.parquet.predicate.PredicateUtils.buildPredicate;
+import static com.facebook.presto.parquet.predicate.PredicateUtils.predicateMatches;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.io.Files.createTempDir;
 import static com.google.common.io.MoreFiles.deleteRecursively;
 import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.slice.Slices.utf8Slice;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.UUID.randomUUID;
 import static org.testng.Assert.assertEquals;
@@ -178,6 +203,138 @@ public class TestParquetWriter
         }
     }
 
+    @Test
+    public void testBloomFilters()
+            throws Exception
+    {
+        int pageCount = 10;
+        int pageRowCount = 100;
+        writeBloomFilterTestFile(pageCount, pageRowCount);
+
+        FileParquetDataSource dataSource = new FileParquetDataSource(parquetFile);
+        ParquetMetadata parquetMetadata = MetadataReader.readFooter(dataSource, parquetFile.length(), Optional.empty(), false).getParquetMetadata();
+        List<ColumnDescriptor> columns = parquetMetadata.getFileMetaData().getSchema().getColumns();
+        Predicate missingValues = new TupleDomainParquetPredicate(
+                TupleDomain.withColumnDomains(ImmutableMap.of(
+                        columns.get(0), Domain.singleValue(BIGINT, 1L),
+                        columns.get(1), Domain.multipleValues(VARCHAR, ImmutableList.of(utf8Slice("missing_1"), utf8Slice("missing_2"))))),
+                ImmutableList.of());
+
+        List<BlockMetaData> blocks = parquetMetadata.getBlocks();
+        assertTrue(blocks.size() > 1);
+        int row = 0;
+        for (BlockMetaData block : blocks) {
+            BloomFilter bigintFilter = MetadataReader.readBloomFilter(dataSource, block.getColumns().get(0)).get();
+            BloomFilter varcharFilter = MetadataReader.readBloomFilter(dataSource, block.getColumns().get(1)).get();
+            assertFalse(MetadataReader.readBloomFilter(dataSource, block.getColumns().get(2)).isPresent());
+
+            Predicate presentValue = new TupleDomainParquetPredicate(
+                    TupleDomain.withColumnDomains(ImmutableMap.of(columns.get(0), Domain.singleValue(BIGINT, row * 2L))),
+                    ImmutableList.of());
+            assertTrue(presentValue.matches(columns.get(0), bigintFilter));
+            assertFalse(missingValues.matches(columns.get(0), bigintFilter));
+            assertFalse(missingValues.matches(columns.get(1), varcharFilter));
+
+            for (long i = 0; i < block.getRowCount(); i++, row++) {
+                assertTrue(bigintFilter.findHash(bigintFilter.hash(row * 2L)));
+                assertTrue(varcharFilter.findHash(varcharFilter.hash(Binary.fromString("value_" + row))));
+            }
+        }
+        assertEquals(row, pageCount * pageRowCount);
+    }
+
+    @Test
+    public void testBloomFilterRowGroupPruning()
+            throws Exception
+    {
+        writeBloomFilterTestFile(10, 100);
+
+        AtomicInteger bloomFilterReads = new AtomicInteger();
+        MetadataReader metadataReader = new MetadataReader();
+        ParquetMetadataSource metadataSource = new CachingParquetMetadataSource(
+                CacheBuilder.newBuilder().build(),
+                Optional.of(CacheBuilder.newBuilder().build()),
+                new ParquetMetadataSource()
+                {
+                    @Override
+                    public ParquetFileMetadata getParquetMetadata(ParquetDataSource parquetDataSource, long fileSize, boolean cacheable, long modificationTime, Optional<InternalFileDecryptor> fileDecryptor, boolean readMaskedValue)
+                            throws IOException
+                    {
+                        return metadataReader.getParquetMetadata(parquetDataSource, fileSize, cacheable, modificationTime, fileDecryptor, readMaskedValue);
+                    }
+
+                    @Override
+                    public Optional<BloomFilter> getBloomFilter(ParquetDataSource parquetDataSource, ColumnChunkMetaData columnChunk, boolean cacheable, long modificationTime)
+                            throws IOException
+                    {
+                        bloomFilterReads.incrementAndGet();
+                        return metadataReader.getBloomFilter(parquetDataSource, columnChunk, cacheable, modificationTime);
+                    }
+                });
+
+        FileParquetDataSource dataSource = new FileParquetDataSource(parquetFile);
+        ParquetMetadata parquetMetadata = metadataSource.getParquetMetadata(dataSource, parquetFile.length(), true, 0, Optional.empty(), false).getParquetMetadata();
+        MessageType fileSchema = parquetMetadata.getFileMetaData().getSchema();
+        Map<List<String>, RichColumnDescriptor> descriptorsByPath = getDescriptors(fileSchema, fileSchema);
+        ColumnDescriptor bigintColumn = descriptorsByPath.get(ImmutableList.of("col_1"));
+        Optional<BloomFilterStore> bloomFilterStore = Optional.of(new BloomFilterStore(metadataSource, dataSource, true, 0));
+
+        List<BlockMetaData> blocks = parquetMetadata.getBlocks();
+        assertTrue(blocks.size() > 1);
+        int row = 0;
+        for (BlockMetaData block : blocks) {
+            // the odd value is within the statistics of the row group, so only the Bloom filter eliminates it
+            assertTrue(bloomFilterPredicateMatches(block, dataSource, fileSchema, descriptorsByPath, bigintColumn, row * 2L, bloomFilterStore));
+            assertFalse(bloomFilterPredicateMatches(block, dataSource, fileSchema, descriptorsByPath, bigintColumn, row * 2L + 1, bloomFilterStore));
+            row += block.getRowCount();
+        }
+        // the Bloom filter of each row group is read once, and then served by the cache
+        assertEquals(bloomFilterReads.get(), blocks.size());
+    }
+
+    private static boolean bloomFilterPredicateMatches(
+            BlockMetaData block,
+            ParquetDataSource dataSource,
+            MessageType fileSchema,
+            Map<List<String>, RichColumnDescriptor> descriptorsByPath,
+            ColumnDescriptor column,
+            Object value,
+            Optional<BloomFilterStore> bloomFilterStore)
+    {
+        TupleDomain<ColumnDescriptor> parquetTupleDomain = TupleDomain.withColumnDomains(ImmutableMap.of(column, Domain.singleValue(BIGINT, value)));
+        Predicate parquetPredicate = buildPredicate(fileSchema, parquetTupleDomain, descriptorsByPath);
+        return predicateMatches(parquetPredicate, block, dataSource, descriptorsByPath, parquetTupleDomain, Optional.empty(), false, Optional.empty(), bloomFilterStore);
+    }
+
+    private void writeBloomFilterTestFile(int pageCount, int pageRowCount)
+            throws Exception
+    {
+        temporaryDirectory = createTempDir();
+        parquetFile = new File(temporaryDirectory, randomUUID().toString());
+        List<Type> types = ImmutableList.of(BIGINT, VARCHAR, INTEGER);
+        List<String> names = ImmutableList.of("col_1", "col_2", "col_3");
+        ParquetWriterOptions parquetWriterOptions = ParquetWriterOptions.builder()
+                .setMaxPageSize(DataSize.succinctBytes(1000))
+                .setMaxBlockSize(DataSize.succinctBytes(15000))
+                .setMaxDictionaryPageSize(DataSize.succinctBytes(1000))
+                .setBloomFilterColumns(ImmutableSet.of("col_1", "col_2"))
+                .setBloomFilterFpp(0.001)
+                .build();
+        try (ParquetWriter parquetWriter = createParquetWriter(parquetFile, types, names, parquetWriterOptions, CompressionCodecName.UNCOMPRESSED)) {
+            for (int pageIdx = 0; pageIdx < pageCount; pageIdx++) {
+                PageBuilder pageBuilder = new PageBuilder(pageRowCount, types);
+                for (int rowIdx = 0; rowIdx < pageRowCount; rowIdx++) {
+                    int row = pageIdx * pageRowCount + rowIdx;
+                    BIGINT.writeLong(pageBuilder.getBlockBuilder(0), row * 2L);
+                    VARCHAR.writeString(pageBuilder.getBlockBuilder(1), "value_" + row);
+                    INTEGER.writeLong(pageBuilder.getBlockBuilder(2), row);
+                    pageBuilder.declarePosition();
+                }
+                parquetWriter.write(pageBuilder.build());
+            }
+        }
+    }
+
     @DataProvider(name = "testMetadataCreation")
     public static Object[][] types()
     {
@@ -86,11 +86,13 @@ import com.facebook.presto.operator.FileFragmentResultCacheConfig;
 import com.facebook.presto.operator.FileFragmentResultCacheManager;
 import com.facebook.presto.operator.FragmentCacheStats;
 import com.facebook.presto.operator.FragmentResultCacheManager;
+import com.facebook.presto.operator.JoinBuildCache;
 import com.facebook.presto.operator.LookupJoinOperators;
 import com.facebook.presto.operator.NoOpFragmentResultCacheManager;
 import com.facebook.presto.operator.OperatorInfo;
 import com.facebook.presto.operator.OperatorStats;
 import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.operator.ParallelOperatorPool;
 import com.facebook.presto.operator.TableCommitContext;
 import com.facebook.presto.operator.TaskMemoryReservationSummary;
 import com.facebook.presto.operator.index.IndexJoinLookupStats;
@@ -467,6 +469,7 @@ public class PrestoSparkModule
         configBinder(binder).bindConfig(FileFragmentResultCacheConfig.class);
         binder.bind(FragmentCacheStats.class).in(Scopes.SINGLETON);
         binder.bind(IndexJoinLookupStats.class).in(Scopes.SINGLETON);
+        binder.bind(ParallelOperatorPool.class).in(Scopes.SINGLETON);
         binder.bind(QueryIdGenerator.class).in(Scopes.SINGLETON);
         jsonBinder(binder).addKeySerializerBinding(VariableReferenceExpression.class).to(VariableReferenceExpressionSerializer.class);
         jsonBinder(binder).addKeyDeserializerBinding(VariableReferenceExpression.class).to(VariableReferenceExpressionDeserializer.class);
@@ -577,6 +580,14 @@ public class PrestoSparkModule
         return InMemoryTransactionManager.create(config, scheduledExecutor, catalogManager, executor);
     }
 
+    @Provides
+    @Singleton
+    public static JoinBuildCache createJoinBuildCache(JavaFeaturesConfig config)
+    {
+        // there is no worker memory pool, so the cache reserves its memory in a pool of its own
+        return new JoinBuildCache(config.getJoinBuildCacheMaxSize());
+    }
+
     @Provides
     @Singleton
     public static FragmentResultCacheManager createFragmentResultCacheManager(FileFragmentResultCacheConfig config, BlockEncodingSerde blockEncodingSerde, FragmentCacheStats fragmentCacheStats)
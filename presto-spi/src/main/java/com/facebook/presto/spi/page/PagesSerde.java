@@ -42,21 +42,52 @@ import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
 public class PagesSerde
 {
     private static final double MINIMUM_COMPRESSION_RATIO = 0.9;
+    // with adaptive compression, smaller pages are not worth the compression framing overhead
+    private static final int MINIMUM_ADAPTIVE_COMPRESSION_SIZE = 1024;
+    // with adaptive compression, the number of pages skipped after a page that did not compress well doubles up to this limit
+    private static final int MAXIMUM_ADAPTIVE_COMPRESSION_SKIPPED_PAGES = 64;
 
     private final BlockEncodingSerde blockEncodingSerde;
     private final Optional<PageCompressor> compressor;
     private final Optional<PageDecompressor> decompressor;
     private final Optional<SpillCipher> spillCipher;
     private final boolean checksumEnabled;
+    private final boolean adaptiveCompression;
 
     private byte[] compressionBuffer;
 
+    // adaptive compression state
+    private int pagesToSkipCompression;
+    private int nextPagesToSkipCompression = 1;
+
+    // compression stats
+    private long compressionInputBytes;
+    private long compressionOutputBytes;
+    private long compressionCpuNanos;
+    private long compressionSkippedPages;
+
     public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<PageCompressor> compressor, Optional<PageDecompressor> decompressor, Optional<SpillCipher> spillCipher)
     {
         this(blockEncodingSerde, compressor, decompressor, spillCipher, false);
     }
 
     public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<PageCompressor> compressor, Optional<PageDecompressor> decompressor, Optional<SpillCipher> spillCipher, boolean checksumEnabled)
+    {
+        this(blockEncodingSerde, compressor, decompressor, spillCipher, checksumEnabled, false);
+    }
+
+    /**
+     * @param adaptiveCompression skip compressing pages that are small, and back off from compressing
+     * pages after pages that did not compress well. Readers do not need to be aware of it, since
+     * every page records whether it is compressed.
+     */
+    public PagesSerde(
+            BlockEncodingSerde blockEncodingSerde,
+            Optional<PageCompressor> compressor,
+            Optional<PageDecompressor> decompressor,
+            Optional<SpillCipher> spillCipher,
+            boolean checksumEnabled,
+            boolean adaptiveCompression)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
         checkArgument(compressor.isPresent() == decompressor.isPresent(), "compressor and decompressor must both be present or both be absent");
@@ -65,6 +96,7 @@ public class PagesSerde
         this.spillCipher = requireNonNull(spillCipher, "spillCipher is null");
         checkState(!spillCipher.isPresent() || !spillCipher.get().isDestroyed(), "spillCipher is already destroyed");
         this.checksumEnabled = checksumEnabled;
+        this.adaptiveCompression = adaptiveCompression;
     }
 
     public SerializedPage serialize(Page page)
@@ -118,26 +150,66 @@ public class PagesSerde
         return sizeOf(compressionBuffer);
     }
 
+    /**
+     * Returns the total size of the pages serialized while a compressor was present, before compression
+     */
+    public long getCompressionInputBytes()
+    {
+        return compressionInputBytes;
+    }
+
+    /**
+     * Returns the total size of the pages serialized while a compressor was present, after compression
+     */
+    public long getCompressionOutputBytes()
+    {
+        return compressionOutputBytes;
+    }
+
+    public long getCompressionCpuNanos()
+    {
+        return compressionCpuNanos;
+    }
+
+    /**
+     * Returns the number of pages adaptive compression did not try to compress
+     */
+    public long getCompressionSkippedPages()
+    {
+        return compressionSkippedPages;
+    }
+
     private SerializedPage wrapSlice(Slice slice, int positionCount)
     {
         int uncompressedSize = slice.length();
         byte markers = PageCodecMarker.none();
 
         if (compressor.isPresent()) {
-            int maxCompressedSize = compressor.get().maxCompressedLength(uncompressedSize);
-            compressionBuffer = ensureCapacity(compressionBuffer, maxCompressedSize);
-            int compressedSize = compressor.get().compress(
-                    (byte[]) slice.getBase(),
-                    (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET),
-                    uncompressedSize,
-                    compressionBuffer,
-                    0,
-                    maxCompressedSize);
-
-            if (compressedSize / (double) uncompressedSize <= MINIMUM_COMPRESSION_RATIO) {
-                slice = Slices.copyOf(Slices.wrappedBuffer(compressionBuffer, 0, compressedSize));
-                markers = COMPRESSED.set(markers);
+            if (shouldCompress(uncompressedSize)) {
+                long start = System.nanoTime();
+                int maxCompressedSize = compressor.get().maxCompressedLength(uncompressedSize);
+                compressionBuffer = ensureCapacity(compressionBuffer, maxCompressedSize);
+                int compressedSize = compressor.get().compress(
+                        (byte[]) slice.getBase(),
+                        (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET),
+                        uncompressedSize,
+                        compressionBuffer,
+                        0,
+                        maxCompressedSize);
+
+                boolean compressed = compressedSize / (double) uncompressedSize <= MINIMUM_COMPRESSION_RATIO;
+                if (compressed) {
+                    slice = Slices.copyOf(Slices.wrappedBuffer(compressionBuffer, 0, compressedSize));
+                    markers = COMPRESSED.set(markers);
+                }
+                compressionCpuNanos += System.nanoTime() - start;
+                recordCompressionResult(compressed);
             }
+            else {
+                compressionSkippedPages++;
+            }
+            compressionInputBytes += uncompressedSize;
+            compressionOutputBytes += slice.length();
         }
 
         if (spillCipher.isPresent()) {
@@ -157,6 +229,35 @@ public class PagesSerde
         return new SerializedPage(slice, markers, positionCount, uncompressedSize, checksum);
     }
 
+    private boolean shouldCompress(int uncompressedSize)
+    {
+        if (!adaptiveCompression) {
+            return true;
+        }
+        if (uncompressedSize < MINIMUM_ADAPTIVE_COMPRESSION_SIZE) {
+            return false;
+        }
+        if (pagesToSkipCompression > 0) {
+            pagesToSkipCompression--;
+            return false;
+        }
+        return true;
+    }
+
+    private void recordCompressionResult(boolean compressed)
+    {
+        if (!adaptiveCompression) {
+            return;
+        }
+        if (compressed) {
+            nextPagesToSkipCompression = 1;
+            return;
+        }
+        // the data does not compress, so probe it again less and less often
+        pagesToSkipCompression = nextPagesToSkipCompression;
+        nextPagesToSkipCompression = Math.min(nextPagesToSkipCompression * 2, MAXIMUM_ADAPTIVE_COMPRESSION_SKIPPED_PAGES);
+    }
+
     private static void checkArgument(boolean condition, String message)
     {
         if (!condition) {